@@ -0,0 +1,43 @@
+package com.inventory.analytics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gives each distinct string (a product, customer or order id) a dense int code, in order of
+ * first appearance, so the columns hold ints and a filter on them is an array lookup.
+ * Codes are never reused. Not thread-safe; LineColumns guards it.
+ */
+final class Dictionary {
+
+    static final int ABSENT = -1;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    int encode(String value) {
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+
+    // ABSENT for a value never encoded
+    int find(String value) {
+        Integer code = codes.get(value);
+        return code != null ? code : ABSENT;
+    }
+
+    String decode(int code) {
+        return values.get(code);
+    }
+
+    int size() {
+        return values.size();
+    }
+}
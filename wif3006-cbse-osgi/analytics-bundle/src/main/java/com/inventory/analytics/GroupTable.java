@@ -0,0 +1,101 @@
+package com.inventory.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Running sums per group key: an open-addressing hash table over primitive arrays, so adding a
+ * row allocates nothing. Keys are the non-negative longs LineScan packs the dimensions into.
+ * Each fork-join task fills its own table; tables are merged as the tasks join.
+ */
+final class GroupTable {
+
+    private static final long EMPTY = -1L;
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private long[] quantity;
+    private long[] amount;
+    private long[] lines;
+    private int mask;
+    private int size;
+
+    GroupTable() {
+        allocate(MIN_CAPACITY);
+    }
+
+    void add(long key, long quantity, long amount, long lines) {
+        int slot = slotOf(key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            if (++size * 2 > keys.length) {
+                grow();
+                slot = slotOf(key);
+            }
+        }
+        this.quantity[slot] += quantity;
+        this.amount[slot] += amount;
+        this.lines[slot] += lines;
+    }
+
+    void addAll(GroupTable other) {
+        for (int slot = 0; slot < other.keys.length; slot++) {
+            if (other.keys[slot] != EMPTY) {
+                add(other.keys[slot], other.quantity[slot], other.amount[slot], other.lines[slot]);
+            }
+        }
+    }
+
+    // The occupied slots, for reading a group with the getters below
+    int[] slots() {
+        int[] slots = new int[size];
+        int n = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) slots[n++] = slot;
+        }
+        return slots;
+    }
+
+    long keyAt(int slot) { return keys[slot]; }
+    long quantityAt(int slot) { return quantity[slot]; }
+    long amountAt(int slot) { return amount[slot]; }
+    long linesAt(int slot) { return lines[slot]; }
+
+    int size() {
+        return size;
+    }
+
+    // Linear probing from a mixed hash; the table is at most half full, so a free slot is always found
+    private int slotOf(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldQuantity = quantity;
+        long[] oldAmount = amount;
+        long[] oldLines = lines;
+        allocate(oldKeys.length * 2);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] == EMPTY) continue;
+            int to = slotOf(oldKeys[slot]);
+            keys[to] = oldKeys[slot];
+            quantity[to] = oldQuantity[slot];
+            amount[to] = oldAmount[slot];
+            lines[to] = oldLines[slot];
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        quantity = new long[capacity];
+        amount = new long[capacity];
+        lines = new long[capacity];
+        mask = capacity - 1;
+    }
+}
@@ -0,0 +1,140 @@
+package com.inventory.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Sales order lines laid out column by column: row r is one line, its product, customer and
+ * order as dictionary codes, its order date as an epoch day, its quantity, and its amount as a
+ * long scaled by 10^SCALE so sums stay exact without BigDecimal.
+ *
+ * The lines of an order always sit in consecutive rows (orderFirst / orderCount per order code),
+ * which is what lets a basket be read as a row range. Replacing or removing an order retires its
+ * rows (order = RETIRED) and appends the new ones; compactIfSparse() closes the gaps once a
+ * quarter of the rows are retired. Not thread-safe: readers and writers share a lock outside.
+ */
+final class LineColumns {
+
+    static final int SCALE = 4;
+    static final int RETIRED = -1;
+
+    private static final int INITIAL_CAPACITY = 1 << 12;
+    // Retired rows tolerated before compaction, as a share of the rows and at the least
+    private static final int COMPACT_RATIO = 4;
+    private static final int COMPACT_MIN_ROWS = 1 << 10;
+
+    final Dictionary products = new Dictionary();
+    final Dictionary customers = new Dictionary();
+    final Dictionary orders = new Dictionary();
+
+    int[] product = new int[INITIAL_CAPACITY];
+    int[] customer = new int[INITIAL_CAPACITY];
+    int[] order = new int[INITIAL_CAPACITY];
+    int[] day = new int[INITIAL_CAPACITY];
+    int[] quantity = new int[INITIAL_CAPACITY];
+    long[] amount = new long[INITIAL_CAPACITY];
+    // Rows in use, retired ones included
+    int size;
+
+    // Per order code; an order without lines (removed, or never had any) has a count of 0
+    int[] orderFirst = new int[INITIAL_CAPACITY];
+    int[] orderCount = new int[INITIAL_CAPACITY];
+
+    // Range of the order dates seen, retired rows included; only ever widens
+    int minDay = Integer.MAX_VALUE;
+    int maxDay = Integer.MIN_VALUE;
+
+    private long retired;
+    private int liveOrders;
+
+    // Replaces whatever the columns held for the order
+    void putOrder(OrderLines lines) {
+        int code = orders.encode(lines.orderId);
+        ensureOrderCapacity(code + 1);
+        retire(code);
+        if (lines.size() == 0) return;
+
+        ensureCapacity(size + lines.size());
+        int customerCode = customers.encode(lines.customerId);
+        orderFirst[code] = size;
+        orderCount[code] = lines.size();
+        for (int i = 0; i < lines.size(); i++) {
+            product[size] = products.encode(lines.productIds[i]);
+            customer[size] = customerCode;
+            order[size] = code;
+            day[size] = lines.day;
+            quantity[size] = lines.quantities[i];
+            amount[size] = lines.amounts[i];
+            size++;
+        }
+        minDay = Math.min(minDay, lines.day);
+        maxDay = Math.max(maxDay, lines.day);
+        liveOrders++;
+    }
+
+    void removeOrder(String orderId) {
+        int code = orders.find(orderId);
+        if (code != Dictionary.ABSENT) retire(code);
+    }
+
+    private void retire(int code) {
+        int count = orderCount[code];
+        if (count == 0) return;
+        Arrays.fill(order, orderFirst[code], orderFirst[code] + count, RETIRED);
+        orderCount[code] = 0;
+        retired += count;
+        liveOrders--;
+    }
+
+    // Moves the live rows down over the retired ones; an order's rows stay together and in order
+    void compactIfSparse() {
+        if (retired < COMPACT_MIN_ROWS || retired * COMPACT_RATIO < size) return;
+
+        int kept = 0;
+        for (int row = 0; row < size; row++) {
+            int code = order[row];
+            if (code == RETIRED) continue;
+            if (kept != row) {
+                product[kept] = product[row];
+                customer[kept] = customer[row];
+                order[kept] = code;
+                day[kept] = day[row];
+                quantity[kept] = quantity[row];
+                amount[kept] = amount[row];
+            }
+            if (kept == 0 || order[kept - 1] != code) orderFirst[code] = kept;
+            kept++;
+        }
+        size = kept;
+        retired = 0;
+    }
+
+    long getLineCount() {
+        return size - retired;
+    }
+
+    int getOrderCount() {
+        return liveOrders;
+    }
+
+    boolean isEmpty() {
+        return getLineCount() == 0;
+    }
+
+    private void ensureCapacity(int rows) {
+        if (rows <= product.length) return;
+        int capacity = Math.max(rows, product.length + (product.length >> 1));
+        product = Arrays.copyOf(product, capacity);
+        customer = Arrays.copyOf(customer, capacity);
+        order = Arrays.copyOf(order, capacity);
+        day = Arrays.copyOf(day, capacity);
+        quantity = Arrays.copyOf(quantity, capacity);
+        amount = Arrays.copyOf(amount, capacity);
+    }
+
+    private void ensureOrderCapacity(int codes) {
+        if (codes <= orderFirst.length) return;
+        int capacity = Math.max(codes, orderFirst.length + (orderFirst.length >> 1));
+        orderFirst = Arrays.copyOf(orderFirst, capacity);
+        orderCount = Arrays.copyOf(orderCount, capacity);
+    }
+}
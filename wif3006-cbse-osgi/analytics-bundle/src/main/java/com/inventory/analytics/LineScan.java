@@ -0,0 +1,337 @@
+package com.inventory.analytics;
+
+import com.inventory.api.analytics.LineDimension;
+import com.inventory.api.analytics.LineGroup;
+import com.inventory.api.analytics.LineQuery;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A LineQuery compiled against the columns: the date range as epoch days, the product and
+ * customer filters as masks indexed by dictionary code, and the dimensions packed into one long
+ * group key (first dimension in the highest bits, each as wide as its codes need), so a row is
+ * filtered and keyed with array reads only.
+ *
+ * GroupTask and PairTask split the rows (orders for pairs) in halves until a part is small
+ * enough, sum each part into its own GroupTable and merge them on the way back. Only valid
+ * while the columns are not written to.
+ */
+final class LineScan {
+
+    // Leaves of a fork-join split: at least this many rows (orders for pairs), and a few per worker
+    static final int MIN_ROWS_PER_TASK = 1 << 15;
+    static final int MIN_ORDERS_PER_TASK = 1 << 12;
+    private static final int TASKS_PER_WORKER = 4;
+
+    private final LineColumns columns;
+    private final int fromDay;
+    private final int toDay;
+    // null = every product / customer
+    private final boolean[] productMask;
+    private final boolean[] customerMask;
+
+    private final LineDimension[] dimensions;
+    private final int[] bits;
+    private final int[] shifts;
+    // Month of each day since minDay, counted from the month of minDay; only when grouping by MONTH
+    private final int[] monthOfDay;
+    private final int firstMonth;
+
+    private LineScan(LineColumns columns, LineQuery query, boolean[] productMask, boolean[] customerMask) {
+        this.columns = columns;
+        this.fromDay = query.getFrom() != null ? (int) query.getFrom().toEpochDay() : Integer.MIN_VALUE;
+        this.toDay = query.getTo() != null ? (int) query.getTo().toEpochDay() : Integer.MAX_VALUE;
+        this.productMask = productMask;
+        this.customerMask = customerMask;
+
+        dimensions = query.getDimensions().toArray(new LineDimension[0]);
+        firstMonth = columns.isEmpty() ? 0 : monthIndex(columns.minDay);
+        monthOfDay = !columns.isEmpty() && query.getDimensions().contains(LineDimension.MONTH) ? monthTable() : null;
+
+        bits = new int[dimensions.length];
+        shifts = new int[dimensions.length];
+        int width = 0;
+        for (int i = dimensions.length - 1; i >= 0; i--) {
+            bits[i] = bitsFor(cardinality(dimensions[i]));
+            shifts[i] = width;
+            width += bits[i];
+        }
+        if (width > 63) {
+            throw new IllegalArgumentException("Too many distinct keys to group by " + query.getDimensions() + " at once");
+        }
+    }
+
+    // null when no line can match (a filter names only products or customers never sold)
+    static LineScan of(LineColumns columns, LineQuery query) {
+        boolean[] productMask = maskOf(columns.products, query.getProductIds());
+        boolean[] customerMask = maskOf(columns.customers, query.getCustomerIds());
+        if (productMask != null && productMask.length == 0 || customerMask != null && customerMask.length == 0) return null;
+        return new LineScan(columns, query, productMask, customerMask);
+    }
+
+    // An empty mask when none of the ids is known
+    private static boolean[] maskOf(Dictionary dictionary, Set<String> ids) {
+        if (ids.isEmpty()) return null;
+        boolean[] mask = new boolean[dictionary.size()];
+        boolean any = false;
+        for (String id : ids) {
+            int code = dictionary.find(id);
+            if (code == Dictionary.ABSENT) continue;
+            mask[code] = true;
+            any = true;
+        }
+        return any ? mask : new boolean[0];
+    }
+
+    // Leaf size for units (rows or orders) spread over the workers
+    static int grain(int units, int parallelism, int minimum) {
+        return Math.max(minimum, units / (Math.max(1, parallelism) * TASKS_PER_WORKER));
+    }
+
+    // =================== GROUP BY ===================
+
+    GroupTable group(int fromRow, int toRow) {
+        GroupTable table = new GroupTable();
+        LineColumns c = columns;
+        for (int row = fromRow; row < toRow; row++) {
+            if (c.order[row] == LineColumns.RETIRED) continue;
+            int day = c.day[row];
+            if (day < fromDay || day > toDay) continue;
+            if (productMask != null && !productMask[c.product[row]]) continue;
+            if (customerMask != null && !customerMask[c.customer[row]]) continue;
+
+            long key = 0;
+            for (int i = 0; i < dimensions.length; i++) {
+                key = key << bits[i] | codeOf(dimensions[i], row);
+            }
+            table.add(key, c.quantity[row], c.amount[row], 1);
+        }
+        return table;
+    }
+
+    private long codeOf(LineDimension dimension, int row) {
+        switch (dimension) {
+            case PRODUCT: return columns.product[row];
+            case CUSTOMER: return columns.customer[row];
+            case ORDER: return columns.order[row];
+            case DAY: return columns.day[row] - columns.minDay;
+            default: return monthOfDay[columns.day[row] - columns.minDay];
+        }
+    }
+
+    // Chronological when grouped by time first, otherwise by revenue, highest first
+    List<LineGroup> groups(GroupTable table, int limit) {
+        Comparator<Integer> order = dimensions.length > 0
+                && (dimensions[0] == LineDimension.DAY || dimensions[0] == LineDimension.MONTH)
+                ? Comparator.comparingLong(table::keyAt)
+                : Comparator.<Integer>comparingLong(table::amountAt).reversed().thenComparingLong(table::keyAt);
+
+        List<LineGroup> groups = new ArrayList<>();
+        for (int slot : sorted(table, order, limit)) {
+            List<String> keys = new ArrayList<>(dimensions.length);
+            long key = table.keyAt(slot);
+            for (int i = 0; i < dimensions.length; i++) {
+                keys.add(decode(dimensions[i], (int) (key >>> shifts[i] & ((1L << bits[i]) - 1))));
+            }
+            groups.add(new LineGroup(keys, table.quantityAt(slot), revenueOf(table.amountAt(slot)), table.linesAt(slot)));
+        }
+        return groups;
+    }
+
+    private String decode(LineDimension dimension, int code) {
+        switch (dimension) {
+            case PRODUCT: return columns.products.decode(code);
+            case CUSTOMER: return columns.customers.decode(code);
+            case ORDER: return columns.orders.decode(code);
+            case DAY: return LocalDate.ofEpochDay((long) columns.minDay + code).toString();
+            default:
+                int month = firstMonth + code;
+                return YearMonth.of(Math.floorDiv(month, 12), Math.floorMod(month, 12) + 1).toString();
+        }
+    }
+
+    // =================== PRODUCT PAIRS ===================
+
+    // Each order's distinct products, paired; the key holds the two product codes, lower one first
+    GroupTable pairs(int fromOrder, int toOrder) {
+        GroupTable table = new GroupTable();
+        LineColumns c = columns;
+        int[] products = new int[16];
+        long[] quantities = new long[16];
+        long[] amounts = new long[16];
+        for (int code = fromOrder; code < toOrder; code++) {
+            int count = c.orderCount[code];
+            if (count < 2) continue;
+            int first = c.orderFirst[code];
+            // Every line of an order has its date and customer
+            int day = c.day[first];
+            if (day < fromDay || day > toDay) continue;
+            if (customerMask != null && !customerMask[c.customer[first]]) continue;
+
+            if (count > products.length) {
+                products = new int[count];
+                quantities = new long[count];
+                amounts = new long[count];
+            }
+            int distinct = 0;
+            for (int row = first; row < first + count; row++) {
+                distinct = insert(products, quantities, amounts, distinct, c.product[row], c.quantity[row], c.amount[row]);
+            }
+            for (int i = 0; i < distinct; i++) {
+                for (int j = i + 1; j < distinct; j++) {
+                    if (productMask != null && !productMask[products[i]] && !productMask[products[j]]) continue;
+                    table.add((long) products[i] << 32 | products[j],
+                            quantities[i] + quantities[j], amounts[i] + amounts[j], 1);
+                }
+            }
+        }
+        return table;
+    }
+
+    // Insertion into the order's products kept sorted by code; a product on two lines is summed
+    private static int insert(int[] products, long[] quantities, long[] amounts, int size, int product, long quantity, long amount) {
+        int at = size;
+        while (at > 0 && products[at - 1] > product) at--;
+        if (at > 0 && products[at - 1] == product) {
+            quantities[at - 1] += quantity;
+            amounts[at - 1] += amount;
+            return size;
+        }
+        System.arraycopy(products, at, products, at + 1, size - at);
+        System.arraycopy(quantities, at, quantities, at + 1, size - at);
+        System.arraycopy(amounts, at, amounts, at + 1, size - at);
+        products[at] = product;
+        quantities[at] = quantity;
+        amounts[at] = amount;
+        return size + 1;
+    }
+
+    // Most orders first, then by revenue
+    List<LineGroup> pairGroups(GroupTable table, int limit) {
+        Comparator<Integer> order = Comparator.<Integer>comparingLong(table::linesAt).reversed()
+                .thenComparing(Comparator.<Integer>comparingLong(table::amountAt).reversed())
+                .thenComparingLong(table::keyAt);
+
+        List<LineGroup> groups = new ArrayList<>();
+        for (int slot : sorted(table, order, limit)) {
+            long key = table.keyAt(slot);
+            String one = columns.products.decode((int) (key >>> 32));
+            String other = columns.products.decode((int) key);
+            List<String> keys = one.compareTo(other) <= 0 ? List.of(one, other) : List.of(other, one);
+            groups.add(new LineGroup(keys, table.quantityAt(slot), revenueOf(table.amountAt(slot)), table.linesAt(slot)));
+        }
+        return groups;
+    }
+
+    // =================== TASKS ===================
+
+    static final class GroupTask extends RecursiveTask<GroupTable> {
+        private final LineScan scan;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        GroupTask(LineScan scan, int from, int to, int grain) {
+            this.scan = scan;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected GroupTable compute() {
+            if (to - from <= grain) return scan.group(from, to);
+            int middle = (from + to) >>> 1;
+            GroupTask left = new GroupTask(scan, from, middle, grain);
+            left.fork();
+            GroupTable right = new GroupTask(scan, middle, to, grain).compute();
+            return merge(left.join(), right);
+        }
+    }
+
+    static final class PairTask extends RecursiveTask<GroupTable> {
+        private final LineScan scan;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        PairTask(LineScan scan, int from, int to, int grain) {
+            this.scan = scan;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected GroupTable compute() {
+            if (to - from <= grain) return scan.pairs(from, to);
+            int middle = (from + to) >>> 1;
+            PairTask left = new PairTask(scan, from, middle, grain);
+            left.fork();
+            GroupTable right = new PairTask(scan, middle, to, grain).compute();
+            return merge(left.join(), right);
+        }
+    }
+
+    // The smaller table is added into the larger one
+    private static GroupTable merge(GroupTable one, GroupTable other) {
+        if (one.size() < other.size()) {
+            other.addAll(one);
+            return other;
+        }
+        one.addAll(other);
+        return one;
+    }
+
+    // =================== HELPERS ===================
+
+    private static int[] sorted(GroupTable table, Comparator<Integer> order, int limit) {
+        Integer[] slots = Arrays.stream(table.slots()).boxed().toArray(Integer[]::new);
+        Arrays.sort(slots, order);
+        int n = limit > 0 ? Math.min(limit, slots.length) : slots.length;
+        int[] result = new int[n];
+        for (int i = 0; i < n; i++) result[i] = slots[i];
+        return result;
+    }
+
+    private long cardinality(LineDimension dimension) {
+        switch (dimension) {
+            case PRODUCT: return columns.products.size();
+            case CUSTOMER: return columns.customers.size();
+            case ORDER: return columns.orders.size();
+            case DAY: return columns.isEmpty() ? 1 : (long) columns.maxDay - columns.minDay + 1;
+            default: return columns.isEmpty() ? 1 : (long) monthIndex(columns.maxDay) - firstMonth + 1;
+        }
+    }
+
+    // Bits for codes 0 .. cardinality - 1, at least one
+    private static int bitsFor(long cardinality) {
+        return Math.max(1, 64 - Long.numberOfLeadingZeros(cardinality - 1));
+    }
+
+    private int[] monthTable() {
+        int[] table = new int[columns.maxDay - columns.minDay + 1];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = monthIndex(columns.minDay + i) - firstMonth;
+        }
+        return table;
+    }
+
+    private static int monthIndex(int epochDay) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+
+    static BigDecimal revenueOf(long amount) {
+        return BigDecimal.valueOf(amount, LineColumns.SCALE).setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,29 @@
+package com.inventory.analytics;
+
+/**
+ * One sales order as the columns take it: its customer and date, and per line the product,
+ * quantity and amount (unit price times quantity, scaled by LineColumns.SCALE).
+ */
+final class OrderLines {
+
+    final String orderId;
+    final String customerId;
+    // LocalDate.toEpochDay() of the order date
+    final int day;
+    final String[] productIds;
+    final int[] quantities;
+    final long[] amounts;
+
+    OrderLines(String orderId, String customerId, int day, String[] productIds, int[] quantities, long[] amounts) {
+        this.orderId = orderId;
+        this.customerId = customerId;
+        this.day = day;
+        this.productIds = productIds;
+        this.quantities = quantities;
+        this.amounts = amounts;
+    }
+
+    int size() {
+        return productIds.length;
+    }
+}
@@ -0,0 +1,423 @@
+package com.inventory.analytics;
+
+import com.inventory.api.analytics.LineGroup;
+import com.inventory.api.analytics.LineQuery;
+import com.inventory.api.analytics.SalesLineAnalytics;
+import com.inventory.api.cache.CacheInvalidation;
+import com.inventory.api.cache.CacheInvalidationListener;
+import com.inventory.api.mongo.IndexDefinition;
+import com.inventory.api.mongo.IndexManager;
+import com.inventory.api.mongo.MongoConnectionService;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Variable;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Every sales order line in memory, column by column (see LineColumns), for ad-hoc group-bys
+ * that scan the columns on a fork-join pool instead of aggregating in MongoDB.
+ *
+ * The first load reads every order with its lines in one $lookup pipeline, on a background
+ * thread so activation is not held up. After that only changed orders are read again: the ones
+ * the change stream reports on "sales_orders" (every line write re-stamps its order, see
+ * recalculateOrderTotals) and, without a replica set, the ones whose editedAt / createdAt is past
+ * the watermark of the last refresh. A deleted order leaves no stamp behind, so every
+ * sweepMinutes a refresh also looks up the ids of the orders in memory (by _id, in batches) and
+ * drops the ones MongoDB no longer has; with a change stream the delete is reported straight
+ * away. Queries hold the read lock while they scan; a refresh reads MongoDB first and takes the
+ * write lock only to apply what it read.
+ */
+@Component(
+        service = {SalesLineAnalytics.class, CacheInvalidationListener.class},
+        configurationPid = SalesLineAnalyticsImpl.PID,
+        configurationPolicy = ConfigurationPolicy.OPTIONAL,
+        immediate = true
+)
+public class SalesLineAnalyticsImpl implements SalesLineAnalytics, CacheInvalidationListener {
+
+    public static final String PID = "com.inventory.analytics";
+
+    // Orders per round trip, and ids per $in when changed orders are read again
+    static final int BATCH_SIZE = 1000;
+    // The watermark is set this far before a refresh starts, so writes in flight (or stamped by a
+    // slightly slow clock) are read by the next one; reading an order twice is harmless
+    static final long WATERMARK_SLACK_SECONDS = 5;
+
+    static final List<IndexDefinition> INDEXES = List.of(
+            IndexDefinition.ascending("sales_orders", "editedAt"),
+            IndexDefinition.ascending("sales_orders", "createdAt"));
+
+    @interface Config {
+        // Seconds between refreshes; 0 = only when refresh() is called
+        long refreshSeconds() default 10;
+
+        // Worker threads of a scan; 0 = the common pool, one per core
+        int parallelism() default 0;
+
+        // Minutes between sweeps for deleted orders; 0 = never (only a reload drops them)
+        long sweepMinutes() default 10;
+    }
+
+    @Reference
+    private MongoConnectionService connectionService;
+
+    @Reference
+    private IndexManager indexManager;
+
+    private MongoCollection<Document> salesOrderCollection;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private ScheduledExecutorService scheduler;
+
+    // Guards columns: queries read under the read lock, refresh and reload write under the write lock
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private LineColumns columns = new LineColumns();
+
+    // One refresh or reload at a time; the watermark is only used under it
+    private final Object loading = new Object();
+    private String watermark;
+    private long sweepMillis;
+    private long lastSweep;
+
+    // Orders the change stream reported since the last refresh
+    private final Set<String> changedOrders = ConcurrentHashMap.newKeySet();
+    private volatile boolean reloadNeeded = true;
+
+    @Activate
+    public void activate(Config config) {
+        MongoDatabase database = connectionService.getDatabase();
+        if (database == null) {
+            System.err.println("❌ Sales Line Analytics: Shared MongoDB connection is not available.");
+            return;
+        }
+        salesOrderCollection = database.getCollection("sales_orders");
+        indexManager.ensureIndexes(INDEXES);
+        if (config.parallelism() > 0) pool = new ForkJoinPool(config.parallelism());
+        sweepMillis = TimeUnit.MINUTES.toMillis(config.sweepMinutes());
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sales-line-analytics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (config.refreshSeconds() > 0) {
+            scheduler.scheduleWithFixedDelay(this::refreshQuietly, 0, config.refreshSeconds(), TimeUnit.SECONDS);
+        } else {
+            scheduler.execute(this::refreshQuietly);
+        }
+    }
+
+    @Deactivate
+    public void deactivate() {
+        if (scheduler != null) scheduler.shutdownNow();
+        if (pool != ForkJoinPool.commonPool()) pool.shutdown();
+    }
+
+    // The scheduled refresh: a failure is retried at the next one
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            System.err.println("❌ Sales Line Analytics: refresh failed: " + e.getMessage());
+        }
+    }
+
+    // =================== QUERIES ===================
+
+    @Override
+    public List<LineGroup> query(LineQuery query) {
+        lock.readLock().lock();
+        try {
+            LineScan scan = LineScan.of(columns, query);
+            if (scan == null || columns.isEmpty()) return new ArrayList<>();
+            int grain = LineScan.grain(columns.size, pool.getParallelism(), LineScan.MIN_ROWS_PER_TASK);
+            GroupTable table = pool.invoke(new LineScan.GroupTask(scan, 0, columns.size, grain));
+            return scan.groups(table, query.getLimit());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<LineGroup> productPairs(LineQuery query) {
+        lock.readLock().lock();
+        try {
+            LineScan scan = LineScan.of(columns, query);
+            if (scan == null || columns.isEmpty()) return new ArrayList<>();
+            int orders = columns.orders.size();
+            int grain = LineScan.grain(orders, pool.getParallelism(), LineScan.MIN_ORDERS_PER_TASK);
+            GroupTable table = pool.invoke(new LineScan.PairTask(scan, 0, orders, grain));
+            return scan.pairGroups(table, query.getLimit());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long getLineCount() {
+        lock.readLock().lock();
+        try {
+            return columns.getLineCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // =================== LOADING ===================
+
+    @Override
+    public int refresh() {
+        synchronized (loading) {
+            if (reloadNeeded || watermark == null) {
+                reload();
+                return getOrderCount();
+            }
+
+            String next = LocalDateTime.now().minusSeconds(WATERMARK_SLACK_SECONDS).toString();
+            Set<String> orderIds = drainChangedOrders();
+            try {
+                for (Document doc : salesOrderCollection
+                        .find(Filters.or(Filters.gte("editedAt", watermark), Filters.gte("createdAt", watermark)))
+                        .projection(Projections.include("_id"))) {
+                    orderIds.add(idOf(doc.get("_id")));
+                }
+                long now = System.currentTimeMillis();
+                if (sweepMillis > 0 && now - lastSweep >= sweepMillis) {
+                    // Read like any changed order: not found means its lines are dropped
+                    orderIds.addAll(findDeletedOrders());
+                    lastSweep = now;
+                }
+                if (orderIds.isEmpty()) {
+                    watermark = next;
+                    return 0;
+                }
+                List<OrderLines> read = readOrders(orderIds);
+                apply(orderIds, read);
+            } catch (RuntimeException e) {
+                // Still changed; the next refresh reads them
+                changedOrders.addAll(orderIds);
+                throw e;
+            }
+            watermark = next;
+            return orderIds.size();
+        }
+    }
+
+    @Override
+    public long reload() {
+        synchronized (loading) {
+            String next = LocalDateTime.now().minusSeconds(WATERMARK_SLACK_SECONDS).toString();
+            // Reported from here on may or may not be in the scan; they are read again at the next refresh
+            changedOrders.clear();
+            reloadNeeded = false;
+
+            LineColumns loaded = new LineColumns();
+            try {
+                for (Document doc : salesOrderCollection.aggregate(linesPipeline(new Document()))
+                        .allowDiskUse(true).batchSize(BATCH_SIZE)) {
+                    loaded.putOrder(toOrderLines(doc));
+                }
+            } catch (RuntimeException e) {
+                reloadNeeded = true;
+                throw e;
+            }
+
+            lock.writeLock().lock();
+            try {
+                columns = loaded;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            watermark = next;
+            lastSweep = System.currentTimeMillis();
+            System.out.println("Sales Line Analytics: " + loaded.getLineCount() + " line(s) of "
+                    + loaded.getOrderCount() + " order(s) loaded.");
+            return loaded.getLineCount();
+        }
+    }
+
+    // The changed orders with their lines now, in batches; an order not found is gone or cancelled
+    private List<OrderLines> readOrders(Set<String> orderIds) {
+        List<ObjectId> ids = new ArrayList<>(orderIds.size());
+        for (String orderId : orderIds) {
+            if (ObjectId.isValid(orderId)) ids.add(new ObjectId(orderId));
+        }
+        List<OrderLines> read = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            List<ObjectId> batch = ids.subList(from, Math.min(from + BATCH_SIZE, ids.size()));
+            for (Document doc : salesOrderCollection.aggregate(linesPipeline(Filters.in("_id", batch)))) {
+                read.add(toOrderLines(doc));
+            }
+        }
+        return read;
+    }
+
+    private void apply(Set<String> orderIds, List<OrderLines> read) {
+        Set<String> found = new HashSet<>();
+        lock.writeLock().lock();
+        try {
+            for (OrderLines lines : read) {
+                columns.putOrder(lines);
+                found.add(lines.orderId);
+            }
+            for (String orderId : orderIds) {
+                if (!found.contains(orderId)) columns.removeOrder(orderId);
+            }
+            columns.compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // The orders in memory that MongoDB no longer has, checked by _id in batches
+    private Set<String> findDeletedOrders() {
+        List<String> held = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (int code = 0; code < columns.orders.size(); code++) {
+                if (columns.orderCount[code] > 0) held.add(columns.orders.decode(code));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Set<String> deleted = new HashSet<>();
+        for (int from = 0; from < held.size(); from += BATCH_SIZE) {
+            List<String> batch = held.subList(from, Math.min(from + BATCH_SIZE, held.size()));
+            List<ObjectId> ids = new ArrayList<>(batch.size());
+            for (String orderId : batch) {
+                if (ObjectId.isValid(orderId)) ids.add(new ObjectId(orderId));
+            }
+            Set<String> present = new HashSet<>();
+            for (Document doc : salesOrderCollection.find(Filters.in("_id", ids))
+                    .projection(Projections.include("_id"))) {
+                present.add(idOf(doc.get("_id")));
+            }
+            for (String orderId : batch) {
+                if (!present.contains(orderId)) deleted.add(orderId);
+            }
+        }
+        return deleted;
+    }
+
+    private Set<String> drainChangedOrders() {
+        Set<String> drained = new HashSet<>();
+        for (Iterator<String> ids = changedOrders.iterator(); ids.hasNext(); ) {
+            drained.add(ids.next());
+            ids.remove();
+        }
+        return drained;
+    }
+
+    private int getOrderCount() {
+        lock.readLock().lock();
+        try {
+            return columns.getOrderCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // { _id, customerId, orderDate, items: [{ productId, unitPrice, quantity }] } for each order the
+    // filter matches that is not cancelled and has a date
+    static List<Bson> linesPipeline(Bson orderFilter) {
+        return List.of(
+                Aggregates.match(Filters.and(orderFilter,
+                        Filters.ne("orderStatus", "CANCELLED"),
+                        Filters.ne("orderDate", null))),
+                Aggregates.lookup("sales_order_items",
+                        List.of(new Variable<>("orderId", new Document("$toString", "$_id"))),
+                        List.of(
+                                Aggregates.match(Filters.expr(new Document("$eq", List.of("$salesOrderId", "$$orderId")))),
+                                Aggregates.project(Projections.include("productId", "unitPrice", "quantity"))),
+                        "items"),
+                Aggregates.project(Projections.include("customerId", "orderDate", "items")));
+    }
+
+    static OrderLines toOrderLines(Document doc) {
+        List<Document> items = doc.getList("items", Document.class, Collections.emptyList());
+        String[] productIds = new String[items.size()];
+        int[] quantities = new int[items.size()];
+        long[] amounts = new long[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            Document item = items.get(i);
+            productIds[i] = item.getString("productId");
+            quantities[i] = item.get("quantity") instanceof Number ? ((Number) item.get("quantity")).intValue() : 0;
+            amounts[i] = decimalOf(item.get("unitPrice")).multiply(BigDecimal.valueOf(quantities[i]))
+                    .movePointRight(LineColumns.SCALE).setScale(0, RoundingMode.HALF_UP).longValueExact();
+        }
+        return new OrderLines(idOf(doc.get("_id")), doc.getString("customerId"),
+                (int) dateOf(doc.get("orderDate")).toEpochDay(), productIds, quantities, amounts);
+    }
+
+    // =================== CHANGE STREAM ===================
+
+    @Override
+    public Set<String> getCollections() {
+        return Set.of("sales_orders");
+    }
+
+    // Read at the next refresh; a dropped collection or a stream that could not resume means a reload
+    @Override
+    public void invalidate(CacheInvalidation invalidation) {
+        String orderId = invalidation.getDocumentId();
+        if (orderId != null && ObjectId.isValid(orderId)) {
+            changedOrders.add(orderId);
+        } else {
+            reloadNeeded = true;
+        }
+    }
+
+    // =================== HELPERS ===================
+
+    private static String idOf(Object id) {
+        return id instanceof ObjectId ? ((ObjectId) id).toHexString() : String.valueOf(id);
+    }
+
+    // Dates are stored as the start of the day in the system zone (older orders as yyyy-MM-dd strings)
+    private static LocalDate dateOf(Object value) {
+        if (value instanceof Date) return ((Date) value).toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        return LocalDate.parse(value.toString().substring(0, 10));
+    }
+
+    // Unmigrated prices are still strings
+    private static BigDecimal decimalOf(Object value) {
+        if (value instanceof Decimal128) return ((Decimal128) value).bigDecimalValue();
+        if (value instanceof String) return new BigDecimal((String) value);
+        if (value instanceof Integer || value instanceof Long) return BigDecimal.valueOf(((Number) value).longValue());
+        if (value instanceof Number) return BigDecimal.valueOf(((Number) value).doubleValue());
+        return BigDecimal.ZERO;
+    }
+}
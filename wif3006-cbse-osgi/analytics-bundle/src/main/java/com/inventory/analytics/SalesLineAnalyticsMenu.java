@@ -0,0 +1,145 @@
+package com.inventory.analytics;
+
+import com.inventory.api.ModuleMenu;
+import com.inventory.api.analytics.LineDimension;
+import com.inventory.api.analytics.LineGroup;
+import com.inventory.api.analytics.LineQuery;
+import com.inventory.api.analytics.SalesLineAnalytics;
+import com.inventory.api.salesorder.service.SalesOrderService;
+
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.Set;
+
+@Component(service = ModuleMenu.class)
+public class SalesLineAnalyticsMenu implements ModuleMenu {
+
+    @Reference
+    private SalesLineAnalytics salesLineAnalytics;
+
+    // Product and customer names for the ids the groups are keyed by
+    @Reference
+    private SalesOrderService salesOrderService;
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    // Rows of a top-N screen, and of the product by month screen
+    private static final int TOP_N = 10;
+    private static final int MAX_ROWS = 100;
+
+    @Override
+    public String getModuleName() {
+        return "Sales Line Analytics Module (in-memory)";
+    }
+
+    @Override
+    public void start() {
+        Scanner scanner = new Scanner(System.in);
+        boolean back = false;
+        while (!back) {
+            System.out.println("\n===========================");
+            System.out.println("   SALES LINE ANALYTICS    ");
+            System.out.println("===========================");
+            System.out.println("Lines in memory: " + salesLineAnalytics.getLineCount());
+            System.out.println("1. Quantity by Product by Month");
+            System.out.println("2. Top Customers");
+            System.out.println("3. Top Products");
+            System.out.println("4. Products Bought Together");
+            System.out.println("5. Refresh Changed Orders");
+            System.out.println("6. Reload Everything");
+            System.out.println("7. Back to Main Menu");
+            System.out.print("Enter choice: ");
+
+            String choice = scanner.nextLine();
+            try {
+                switch (choice) {
+                    case "1": case "2": case "3": case "4":
+                        LocalDate from = promptForRangeDate(scanner, "From");
+                        LocalDate to = promptForRangeDate(scanner, "To");
+                        long started = System.currentTimeMillis();
+                        if (choice.equals("1")) {
+                            printGroups(List.of("Month", "Product"), salesLineAnalytics.query(
+                                    LineQuery.groupBy(LineDimension.MONTH, LineDimension.PRODUCT).between(from, to).limit(MAX_ROWS)), started);
+                        } else if (choice.equals("2")) {
+                            printGroups(List.of("Customer"), salesLineAnalytics.query(
+                                    LineQuery.groupBy(LineDimension.CUSTOMER).between(from, to).limit(TOP_N)), started);
+                        } else if (choice.equals("3")) {
+                            printGroups(List.of("Product"), salesLineAnalytics.query(
+                                    LineQuery.groupBy(LineDimension.PRODUCT).between(from, to).limit(TOP_N)), started);
+                        } else {
+                            printGroups(List.of("Product", "Bought With"), salesLineAnalytics.productPairs(
+                                    LineQuery.groupBy().between(from, to).limit(TOP_N)), started);
+                        }
+                        break;
+                    case "5":
+                        System.out.println("Re-read " + salesLineAnalytics.refresh() + " changed order(s).");
+                        break;
+                    case "6":
+                        System.out.println("Reading every sales order line...");
+                        long reloadStarted = System.currentTimeMillis();
+                        long lines = salesLineAnalytics.reload();
+                        System.out.println("Loaded " + lines + " line(s) in " + (System.currentTimeMillis() - reloadStarted) + " ms.");
+                        break;
+                    case "7":
+                        back = true;
+                        break;
+                    default:
+                        System.out.println("Invalid option. Please try again (1-7)");
+                }
+            } catch (RuntimeException e) {
+                System.out.println("❌ Error: " + e.getMessage());
+            }
+        }
+    }
+
+    // Enter leaves that end of the range open
+    private LocalDate promptForRangeDate(Scanner scanner, String label) {
+        while (true) {
+            System.out.print(label + " (yyyy-MM-dd, Enter for no limit): ");
+            String input = scanner.nextLine().trim();
+            if (input.isEmpty()) return null;
+            try {
+                return LocalDate.parse(input, DATE_FORMATTER);
+            } catch (DateTimeParseException e) {
+                System.out.println("Invalid date format. Please use yyyy-MM-dd.");
+            }
+        }
+    }
+
+    // Product and customer ids shown by name; months and days as they are
+    private void printGroups(List<String> keyLabels, List<LineGroup> groups, long started) {
+        long elapsed = System.currentTimeMillis() - started;
+        if (groups.isEmpty()) {
+            System.out.println("No sales in this range.");
+            return;
+        }
+        Set<String> ids = new HashSet<>();
+        for (LineGroup group : groups) ids.addAll(group.getKeys());
+        ids.remove(null);
+        Map<String, String> names = new HashMap<>();
+        if (keyLabels.contains("Customer")) names.putAll(salesOrderService.getCustomerNamesByIds(ids));
+        if (keyLabels.contains("Product")) names.putAll(salesOrderService.getProductNamesByIds(ids));
+
+        StringBuilder header = new StringBuilder();
+        for (String label : keyLabels) header.append(String.format("%-30s ", label));
+        System.out.printf("%s%15s %10s %8s%n", header, "Revenue", "Quantity", "Lines");
+        System.out.println("-".repeat(header.length() + 35));
+        for (LineGroup group : groups) {
+            StringBuilder row = new StringBuilder();
+            for (String key : group.getKeys()) {
+                row.append(String.format("%-30s ", key == null ? "-" : names.getOrDefault(key, key)));
+            }
+            System.out.printf("%s%15.2f %10d %8d%n", row, group.getRevenue(), group.getQuantity(), group.getLines());
+        }
+        System.out.println("(" + groups.size() + " row(s) in " + elapsed + " ms, from memory)");
+    }
+}
@@ -0,0 +1,289 @@
+package com.inventory.analytics;
+
+import com.inventory.api.analytics.LineDimension;
+import com.inventory.api.analytics.LineGroup;
+import com.inventory.api.analytics.LineQuery;
+import com.inventory.api.cache.CacheInvalidation;
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SalesLineAnalyticsImplTest {
+
+    @Mock private MongoCollection<Document> salesOrderCollection;
+    @Mock private AggregateIterable<Document> aggregate;
+    @Mock private AggregateIterable<Document> changedAggregate;
+    @Mock private FindIterable<Document> changedIds;
+    @Mock private FindIterable<Document> sweptIds;
+
+    @InjectMocks
+    private SalesLineAnalyticsImpl salesLineAnalytics;
+
+    private final String orderA = new ObjectId().toHexString();
+    private final String orderB = new ObjectId().toHexString();
+    private final String orderC = new ObjectId().toHexString();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // Reflection is required because fields are private in OSGi Impl
+        setField(salesLineAnalytics, "salesOrderCollection", salesOrderCollection);
+    }
+
+    private void setField(Object target, String fieldName, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    // An order as the lines pipeline returns it
+    private static Document order(String id, String customerId, LocalDate date, Document... items) {
+        return new Document("_id", new ObjectId(id))
+                .append("customerId", customerId)
+                .append("orderDate", Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant()))
+                .append("items", List.of(items));
+    }
+
+    private static Document item(String productId, int quantity, String unitPrice) {
+        return new Document("productId", productId)
+                .append("quantity", quantity)
+                .append("unitPrice", new Decimal128(new BigDecimal(unitPrice)));
+    }
+
+    private static MongoCursor<Document> cursorOver(List<Document> docs) {
+        Iterator<Document> iterator = docs.iterator();
+        MongoCursor<Document> cursor = mock();
+        when(cursor.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+        lenient().when(cursor.next()).thenAnswer(invocation -> iterator.next());
+        return cursor;
+    }
+
+    private void load(Document... orders) {
+        when(salesOrderCollection.aggregate(anyList())).thenReturn(aggregate);
+        when(aggregate.allowDiskUse(true)).thenReturn(aggregate);
+        when(aggregate.batchSize(anyInt())).thenReturn(aggregate);
+        when(aggregate.iterator()).thenAnswer(invocation -> cursorOver(List.of(orders)));
+        salesLineAnalytics.reload();
+    }
+
+    // What the refresh after the load reads: nothing stamped past the watermark, then the changed orders
+    private void changedOrdersAre(Document... orders) {
+        when(salesOrderCollection.find(any(Bson.class))).thenReturn(changedIds);
+        when(changedIds.projection(any(Bson.class))).thenReturn(changedIds);
+        when(changedIds.iterator()).thenAnswer(invocation -> cursorOver(List.of()));
+        when(salesOrderCollection.aggregate(anyList())).thenReturn(changedAggregate);
+        when(changedAggregate.iterator()).thenAnswer(invocation -> cursorOver(List.of(orders)));
+    }
+
+    private void loadThreeOrders() {
+        load(order(orderA, "c1", LocalDate.of(2025, 1, 5), item("p1", 2, "10.00"), item("p2", 1, "19.99")),
+                order(orderB, "c2", LocalDate.of(2025, 1, 20), item("p1", 3, "10.00")),
+                order(orderC, "c1", LocalDate.of(2025, 2, 3), item("p1", 1, "12.50"), item("p2", 4, "19.99")));
+    }
+
+    @Test
+    void testQuery_ByMonthAndProduct_ShouldSumEachMonthInDateOrder() {
+        loadThreeOrders();
+
+        List<LineGroup> groups = salesLineAnalytics.query(LineQuery.groupBy(LineDimension.MONTH, LineDimension.PRODUCT));
+
+        assertEquals(4, groups.size());
+        assertEquals(List.of("2025-01", "p1"), groups.get(0).getKeys());
+        assertEquals(5, groups.get(0).getQuantity());
+        assertEquals(0, new BigDecimal("50.00").compareTo(groups.get(0).getRevenue()));
+        assertEquals(2, groups.get(0).getLines());
+        assertEquals(List.of("2025-01", "p2"), groups.get(1).getKeys());
+        assertEquals("2025-02", groups.get(2).getKey(0));
+        assertEquals("2025-02", groups.get(3).getKey(0));
+        verify(salesOrderCollection, times(1)).aggregate(anyList());
+    }
+
+    @Test
+    void testQuery_ByCustomer_ShouldFilterAndSortByRevenue() {
+        loadThreeOrders();
+
+        List<LineGroup> all = salesLineAnalytics.query(LineQuery.groupBy(LineDimension.CUSTOMER));
+        assertEquals("c1", all.get(0).getKey(0));
+        // 20.00 + 19.99 + 12.50 + 79.96
+        assertEquals(0, new BigDecimal("132.45").compareTo(all.get(0).getRevenue()));
+
+        List<LineGroup> january = salesLineAnalytics.query(LineQuery.groupBy(LineDimension.CUSTOMER)
+                .between(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31))
+                .products(List.of("p1")));
+        assertEquals(2, january.size());
+        assertEquals("c2", january.get(0).getKey(0));
+        assertEquals(3, january.get(0).getQuantity());
+        assertEquals(2, january.get(1).getQuantity());
+
+        assertEquals(1, salesLineAnalytics.query(LineQuery.groupBy(LineDimension.CUSTOMER).limit(1)).size());
+    }
+
+    @Test
+    void testQuery_WithoutDimensions_ShouldSumEverythingIntoOneGroup() {
+        loadThreeOrders();
+
+        List<LineGroup> total = salesLineAnalytics.query(LineQuery.groupBy().customers(List.of("c1")));
+
+        assertEquals(1, total.size());
+        assertTrue(total.get(0).getKeys().isEmpty());
+        assertEquals(8, total.get(0).getQuantity());
+        assertEquals(4, total.get(0).getLines());
+    }
+
+    @Test
+    void testQuery_WithProductNeverSold_ShouldBeEmpty() {
+        loadThreeOrders();
+
+        assertTrue(salesLineAnalytics.query(LineQuery.groupBy(LineDimension.PRODUCT).products(List.of("p9"))).isEmpty());
+    }
+
+    @Test
+    void testProductPairs_ShouldCountTheOrdersHoldingBoth() {
+        load(order(orderA, "c1", LocalDate.of(2025, 1, 5), item("p2", 1, "5.00"), item("p1", 2, "10.00"), item("p2", 1, "5.00")),
+                order(orderB, "c2", LocalDate.of(2025, 1, 6), item("p1", 1, "10.00"), item("p2", 1, "5.00"), item("p3", 1, "1.00")),
+                order(orderC, "c2", LocalDate.of(2025, 1, 7), item("p3", 1, "1.00")));
+
+        List<LineGroup> pairs = salesLineAnalytics.productPairs(LineQuery.groupBy());
+
+        assertEquals(3, pairs.size());
+        assertEquals(List.of("p1", "p2"), pairs.get(0).getKeys());
+        assertEquals(2, pairs.get(0).getLines());
+        // p2 twice on order A counts as one product with both quantities: (2 + 2) + (1 + 1)
+        assertEquals(6, pairs.get(0).getQuantity());
+        assertEquals(1, pairs.get(1).getLines());
+
+        List<LineGroup> withP3 = salesLineAnalytics.productPairs(LineQuery.groupBy().products(List.of("p3")));
+        assertEquals(2, withP3.size());
+        assertTrue(withP3.stream().allMatch(pair -> pair.getKeys().contains("p3")));
+    }
+
+    @Test
+    void testRefresh_ShouldReadOnlyTheChangedOrdersAgain() {
+        loadThreeOrders();
+        salesLineAnalytics.invalidate(CacheInvalidation.ofDocument("sales_orders", orderB, "update"));
+        changedOrdersAre(order(orderB, "c2", LocalDate.of(2025, 1, 20), item("p1", 7, "10.00"), item("p3", 1, "3.00")));
+
+        assertEquals(1, salesLineAnalytics.refresh());
+
+        List<LineGroup> byProduct = salesLineAnalytics.query(LineQuery.groupBy(LineDimension.PRODUCT).customers(List.of("c2")));
+        assertEquals(2, byProduct.size());
+        assertEquals("p1", byProduct.get(0).getKey(0));
+        assertEquals(7, byProduct.get(0).getQuantity());
+        assertEquals(6, salesLineAnalytics.getLineCount());
+        // One full load only; the refresh read the changed order by its id
+        verify(aggregate, times(1)).iterator();
+    }
+
+    @Test
+    void testRefresh_WhenOrderGone_ShouldDropItsLines() {
+        loadThreeOrders();
+        salesLineAnalytics.invalidate(CacheInvalidation.ofDocument("sales_orders", orderA, "delete"));
+        changedOrdersAre();
+
+        salesLineAnalytics.refresh();
+
+        assertEquals(3, salesLineAnalytics.getLineCount());
+        assertTrue(salesLineAnalytics.query(LineQuery.groupBy(LineDimension.ORDER)).stream()
+                .noneMatch(group -> group.getKey(0).equals(orderA)));
+    }
+
+    // No change stream: the delete is only found by the sweep, which looks the held ids up
+    @Test
+    void testRefresh_WhenSweepDue_ShouldDropOrdersDeletedWithoutAStamp() throws Exception {
+        loadThreeOrders();
+        setField(salesLineAnalytics, "sweepMillis", 1L);
+        setField(salesLineAnalytics, "lastSweep", 0L);
+        when(salesOrderCollection.find(any(Bson.class))).thenReturn(changedIds).thenReturn(sweptIds);
+        when(changedIds.projection(any(Bson.class))).thenReturn(changedIds);
+        when(changedIds.iterator()).thenAnswer(invocation -> cursorOver(List.of()));
+        when(salesOrderCollection.aggregate(anyList())).thenReturn(changedAggregate);
+        when(changedAggregate.iterator()).thenAnswer(invocation -> cursorOver(List.of()));
+        when(sweptIds.projection(any(Bson.class))).thenReturn(sweptIds);
+        when(sweptIds.iterator()).thenAnswer(invocation -> cursorOver(List.of(
+                new Document("_id", new ObjectId(orderA)), new Document("_id", new ObjectId(orderC)))));
+
+        assertEquals(1, salesLineAnalytics.refresh());
+
+        assertEquals(4, salesLineAnalytics.getLineCount());
+        assertTrue(salesLineAnalytics.query(LineQuery.groupBy(LineDimension.ORDER)).stream()
+                .noneMatch(group -> group.getKey(0).equals(orderB)));
+    }
+
+    @Test
+    void testInvalidate_WhenStreamCouldNotResume_ShouldReloadAtNextRefresh() {
+        loadThreeOrders();
+        salesLineAnalytics.invalidate(CacheInvalidation.everything());
+
+        salesLineAnalytics.refresh();
+
+        verify(aggregate, times(2)).iterator();
+        verify(salesOrderCollection, never()).find(any(Bson.class));
+        assertEquals(Set.of("sales_orders"), salesLineAnalytics.getCollections());
+    }
+
+    // Enough rows for the fork-join scan to split, and enough removed to compact; sums must not change
+    @Test
+    void testQuery_OverManyRows_ShouldAgreeAcrossTasksAndAfterCompaction() {
+        int orders = 40_000;
+        List<Document> docs = new ArrayList<>(orders);
+        List<String> ids = new ArrayList<>(orders);
+        long expectedQuantity = 0;
+        for (int n = 0; n < orders; n++) {
+            String id = new ObjectId().toHexString();
+            ids.add(id);
+            docs.add(order(id, "c" + (n % 50), LocalDate.of(2024, 1, 1).plusDays(n % 400),
+                    item("p" + (n % 7), 1 + n % 3, "2.50"), item("p" + (n % 11), 2, "1.25"), item("p" + (n % 13), 1, "4.00")));
+            expectedQuantity += 1 + n % 3 + 2 + 1;
+        }
+        load(docs.toArray(new Document[0]));
+
+        List<LineGroup> byCustomerMonth = salesLineAnalytics.query(LineQuery.groupBy(LineDimension.CUSTOMER, LineDimension.MONTH));
+        assertEquals(expectedQuantity, byCustomerMonth.stream().mapToLong(LineGroup::getQuantity).sum());
+        assertEquals(orders * 3L, byCustomerMonth.stream().mapToLong(LineGroup::getLines).sum());
+
+        // A third of the orders deleted
+        long removedQuantity = 0;
+        for (int n = 0; n < orders; n += 3) {
+            salesLineAnalytics.invalidate(CacheInvalidation.ofDocument("sales_orders", ids.get(n), "delete"));
+            removedQuantity += 1 + n % 3 + 2 + 1;
+        }
+        changedOrdersAre();
+        salesLineAnalytics.refresh();
+
+        List<LineGroup> total = salesLineAnalytics.query(LineQuery.groupBy());
+        assertEquals(expectedQuantity - removedQuantity, total.get(0).getQuantity());
+        assertEquals(total.get(0).getLines(), salesLineAnalytics.getLineCount());
+        List<LineGroup> byDay = salesLineAnalytics.query(LineQuery.groupBy(LineDimension.DAY));
+        assertEquals("2024-01-01", byDay.get(0).getKey(0));
+        assertEquals(expectedQuantity - removedQuantity, byDay.stream().mapToLong(LineGroup::getQuantity).sum());
+    }
+
+    @Test
+    void testGroupBy_SameDimensionTwice_ShouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> LineQuery.groupBy(LineDimension.PRODUCT, LineDimension.PRODUCT));
+    }
+}
@@ -0,0 +1,81 @@
+package com.inventory.customer;
+
+import com.inventory.api.customer.model.Customer;
+import com.inventory.api.customer.service.AsyncCustomerService;
+import com.inventory.api.mongo.Publishers;
+import com.inventory.api.mongo.ReactiveMongoConnectionService;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.mongodb.reactivestreams.client.MongoDatabase;
+
+import org.bson.types.ObjectId;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The CustomerService lookups on the reactive driver; same queries, same indexes
+ * (created by CustomerServiceImpl).
+ */
+@Component(service = AsyncCustomerService.class)
+public class AsyncCustomerServiceImpl implements AsyncCustomerService {
+
+    @Reference
+    private ReactiveMongoConnectionService connectionService;
+
+    private MongoCollection<Customer> customerCollection;
+
+    @Activate
+    public void activate() {
+        MongoDatabase database = connectionService.getDatabase();
+        if (database == null) {
+            System.err.println("Async Customer Service: Shared reactive MongoDB connection is not available.");
+            return;
+        }
+        customerCollection = database.getCollection("customers", Customer.class);
+    }
+
+    @Override
+    public CompletableFuture<List<Customer>> getAllCustomers() {
+        if (customerCollection == null) return CompletableFuture.completedFuture(new ArrayList<>());
+        return Publishers.toList(customerCollection.find());
+    }
+
+    @Override
+    public CompletableFuture<Optional<Customer>> getCustomerById(String id) {
+        if (customerCollection == null || id == null || !ObjectId.isValid(id)) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        return Publishers.first(customerCollection.find(Filters.eq("_id", new ObjectId(id))).first())
+                .thenApply(Optional::ofNullable);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, String>> getCustomerNamesByIds(Collection<String> ids) {
+        List<ObjectId> objectIds = new ArrayList<>();
+        if (ids != null) {
+            for (String id : ids) {
+                if (id != null && ObjectId.isValid(id)) objectIds.add(new ObjectId(id));
+            }
+        }
+        if (customerCollection == null || objectIds.isEmpty()) return CompletableFuture.completedFuture(new HashMap<>());
+
+        return Publishers.toList(customerCollection.find(Filters.in("_id", objectIds))
+                        .projection(Projections.include("name")))
+                .thenApply(customers -> {
+                    Map<String, String> names = new HashMap<>();
+                    for (Customer customer : customers) names.put(customer.getId(), customer.getName());
+                    return names;
+                });
+    }
+}
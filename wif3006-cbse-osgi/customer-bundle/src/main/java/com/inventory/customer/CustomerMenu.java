@@ -1,11 +1,15 @@
 package com.inventory.customer;
 
 import com.inventory.api.ModuleMenu;
+import com.inventory.api.common.Page;
+import com.inventory.api.common.Sort;
 import com.inventory.api.customer.service.CustomerService;
 import com.inventory.api.customer.model.Customer;
 import com.inventory.api.customer.model.CustomerGroup;
 import com.inventory.api.customer.model.CustomerCategory;
 import com.inventory.api.customer.model.CustomerContact;
+import com.inventory.api.customer.model.CustomerOverview;
+import com.inventory.api.salesorder.model.SalesOrderSummary;
 
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
@@ -24,6 +28,8 @@ public class CustomerMenu implements ModuleMenu {
 
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
 
+    private static final int PAGE_SIZE = 20;
+
     @Override
     public String getModuleName() {
         return "Customer Management Module";
@@ -232,41 +238,14 @@ public class CustomerMenu implements ModuleMenu {
             System.out.println("2. Add New Customer");
             System.out.println("3. Edit Customer");
             System.out.println("4. Delete Customer");
-            System.out.println("5. Back");
+            System.out.println("5. View Customer Overview");
+            System.out.println("6. Back");
             System.out.print("Enter choice: ");
             String choice = scanner.nextLine();
 
             switch (choice) {
                 case "1":
-                    List<Customer> customers = customerService.getAllCustomers();
-                    if (customers.isEmpty()) System.out.println("No customers found.");
-                    else {
-                        System.out.println("\n--- Customer List ---");
-                        System.out.printf("%-4s %-15s %-25s %-12s %-20s %-15s %-15s %-20s %-20s%n",
-                                "No.", "Name", "Email", "Phone", "Address", "Group", "Category", "Created At", "Edited At");
-                        System.out.println("----------------------------------------------------------------------------------------------------------------------------------------------------------------------");
-
-                        int i = 1;
-                        for (Customer c : customers) {
-                            String groupName = "N/A";
-                            if (c.getCustomerGroupId() != null) {
-                                Optional<CustomerGroup> gOpt = customerService.getGroupById(c.getCustomerGroupId());
-                                if (gOpt.isPresent()) groupName = gOpt.get().getGroupName();
-                            }
-                            String catName = "N/A";
-                            if (c.getCustomerCategoryId() != null) {
-                                Optional<CustomerCategory> cOpt = customerService.getCategoryById(c.getCustomerCategoryId());
-                                if (cOpt.isPresent()) catName = cOpt.get().getCategoryName();
-                            }
-                            // Apply formatting
-                            String created = formatDate(c.getCreatedAt());
-                            String edited = formatDate(c.getEditedAt());
-                            String addressDisplay = (c.getAddress() != null) ? c.getAddress() : "N/A";
-
-                            System.out.printf("%-4d %-15s %-25s %-12s %-20s %-15s %-15s %-20s %-20s%n",
-                                    i++, c.getName(), c.getEmail(), c.getPhoneNumber(), addressDisplay, groupName, catName, created, edited);
-                        }
-                    }
+                    viewCustomers(scanner);
                     break;
                 case "2":
                     performAddCustomer(scanner);
@@ -286,15 +265,97 @@ public class CustomerMenu implements ModuleMenu {
                     }
                     break;
                 case "5":
+                    System.out.print("Enter Customer Name: ");
+                    Optional<Customer> viewOpt = customerService.getCustomerByName(scanner.nextLine());
+                    Optional<CustomerOverview> overview = viewOpt.flatMap(c -> customerService.getCustomerOverview(c.getId()));
+                    if (overview.isPresent()) {
+                        viewCustomerOverview(overview.get());
+                    } else {
+                        System.out.println("Customer not found.");
+                    }
+                    break;
+                case "6":
                     stay = false;
                     break;
                 default:
-                    System.out.println("Invalid option. Please try again (1-5)");
+                    System.out.println("Invalid option. Please try again (1-6)");
             }
         }
     }
 
+    private void viewCustomerOverview(CustomerOverview overview) {
+        Customer c = overview.getCustomer();
+        System.out.println("\n--- Customer Overview ---");
+        System.out.println("Name     : " + c.getName());
+        System.out.println("Email    : " + c.getEmail());
+        System.out.println("Phone    : " + c.getPhoneNumber());
+        System.out.println("Address  : " + (c.getAddress() != null ? c.getAddress() : "N/A"));
+        System.out.println("Group    : " + (overview.getGroup() != null ? overview.getGroup().getGroupName() : "N/A"));
+        System.out.println("Category : " + (overview.getCategory() != null ? overview.getCategory().getCategoryName() : "N/A"));
+        System.out.println("Orders   : " + overview.getOrderCount());
+        System.out.printf("Lifetime Value: %.2f%n", overview.getLifetimeValue());
+
+        System.out.println("\nContacts:");
+        if (overview.getContacts().isEmpty()) {
+            System.out.println("  No contacts.");
+        }
+        for (CustomerContact con : overview.getContacts()) {
+            System.out.printf("  %-20s %-15s %-15s %-25s%n",
+                    con.getContactName(), con.getPosition(), con.getPhone(), con.getEmail());
+        }
+
+        System.out.println("\nRecent Orders:");
+        if (overview.getRecentOrders().isEmpty()) {
+            System.out.println("  No orders.");
+        }
+        for (SalesOrderSummary order : overview.getRecentOrders()) {
+            System.out.printf("  %-12s %-12s %-12s %12.2f%n", order.getOrderNumber(),
+                    order.getOrderDate() != null ? order.getOrderDate() : "-",
+                    order.getOrderStatus(), order.getAfterTaxAmount());
+        }
+    }
+
     // --- 4. CONTACT SUB-MENU ---
+    // Lists customers PAGE_SIZE at a time; numbering continues across pages
+    private void viewCustomers(Scanner scanner) {
+        Page<Customer> page = customerService.listCustomers(null, PAGE_SIZE, Sort.ASC);
+        if (page.isEmpty()) {
+            System.out.println("No customers found.");
+            return;
+        }
+        System.out.println("\n--- Customer List ---");
+        System.out.printf("%-4s %-15s %-25s %-12s %-20s %-15s %-15s %-20s %-20s%n",
+                "No.", "Name", "Email", "Phone", "Address", "Group", "Category", "Created At", "Edited At");
+        System.out.println("----------------------------------------------------------------------------------------------------------------------------------------------------------------------");
+
+        int i = 1;
+        while (true) {
+            for (Customer c : page.getItems()) {
+                String groupName = "N/A";
+                if (c.getCustomerGroupId() != null) {
+                    Optional<CustomerGroup> gOpt = customerService.getGroupById(c.getCustomerGroupId());
+                    if (gOpt.isPresent()) groupName = gOpt.get().getGroupName();
+                }
+                String catName = "N/A";
+                if (c.getCustomerCategoryId() != null) {
+                    Optional<CustomerCategory> cOpt = customerService.getCategoryById(c.getCustomerCategoryId());
+                    if (cOpt.isPresent()) catName = cOpt.get().getCategoryName();
+                }
+                // Apply formatting
+                String created = formatDate(c.getCreatedAt());
+                String edited = formatDate(c.getEditedAt());
+                String addressDisplay = (c.getAddress() != null) ? c.getAddress() : "N/A";
+
+                System.out.printf("%-4d %-15s %-25s %-12s %-20s %-15s %-15s %-20s %-20s%n",
+                        i++, c.getName(), c.getEmail(), c.getPhoneNumber(), addressDisplay, groupName, catName, created, edited);
+            }
+            if (!page.hasNext()) break;
+            System.out.print("-- Enter for next page, 'q' to stop: ");
+            if (scanner.nextLine().trim().equalsIgnoreCase("q")) break;
+            page = customerService.listCustomers(page.getNextCursor(), PAGE_SIZE, Sort.ASC);
+        }
+    }
+
     private void handleContactSubMenu(Scanner scanner) {
         boolean stay = true;
         while (stay) {
@@ -1,20 +1,36 @@
 package com.inventory.customer;
 
+import com.inventory.api.common.Page;
+import com.inventory.api.common.Sort;
 import com.inventory.api.customer.service.CustomerDependencyChecker;
 import com.inventory.api.customer.service.CustomerService;
+import com.inventory.api.customer.service.DependencyCheckResult;
 import com.inventory.api.customer.model.Customer;
 import com.inventory.api.customer.model.CustomerGroup;
 import com.inventory.api.customer.model.CustomerCategory;
 import com.inventory.api.customer.model.CustomerContact;
+import com.inventory.api.customer.model.CustomerOverview;
+import com.inventory.api.cache.CacheInvalidation;
+import com.inventory.api.cache.CacheInvalidationListener;
+import com.inventory.api.cache.ReferenceData;
+import com.inventory.api.cache.ReferenceDataCache;
+import com.inventory.api.mongo.IndexDefinition;
+import com.inventory.api.mongo.IndexManager;
+import com.inventory.api.mongo.MongoConnectionService;
+import com.inventory.api.mongo.MongoPaging;
 
-import com.mongodb.client.MongoClient;
-import com.mongodb.client.MongoClients;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Variable;
 import com.mongodb.client.result.DeleteResult;
 
 import org.bson.Document;
+import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
@@ -25,21 +41,72 @@ import org.osgi.service.component.annotations.ReferencePolicy;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
 
-@Component(service = CustomerService.class)
-public class CustomerServiceImpl implements CustomerService {
+@Component(service = {CustomerService.class, CacheInvalidationListener.class})
+public class CustomerServiceImpl implements CustomerService, CacheInvalidationListener {
+
+    @Reference
+    private MongoConnectionService connectionService;
+
+    @Reference
+    private IndexManager indexManager;
+
+    @Reference
+    private ReferenceDataCache referenceDataCache;
+
+    // Every field the lookups and dependency checks below filter on
+    static final List<IndexDefinition> INDEXES = List.of(
+            IndexDefinition.ascending("customers", "name"),
+            IndexDefinition.ascending("customers", "customerGroupId"),
+            IndexDefinition.ascending("customers", "customerCategoryId"),
+            IndexDefinition.ascending("customer_groups", "groupName"),
+            IndexDefinition.ascending("customer_categories", "categoryName"),
+            IndexDefinition.ascending("customer_contacts", "customerId"));
+
+    // Orders listed on the overview, newest first
+    static final int RECENT_ORDERS = 5;
+
+    // Overviews are dropped on every write that changes them; the age limit bounds what a write
+    // of another instance leaves behind when there is no change stream (standalone server)
+    static final long OVERVIEW_TTL_MILLIS = 60_000;
+    static final int MAX_CACHED_OVERVIEWS = 1_000;
+
+    // Sales orders refer to their customer by the hex string of its _id
+    static final Bson RECENT_ORDER_PROJECTION = Projections.include("orderNumber", "orderDate", "customerId",
+            "taxId", "orderStatus", "beforeTaxAmount", "taxAmount", "afterTaxAmount");
+
+    // After-tax total of the orders that were not cancelled
+    static final Document LIFETIME_VALUE_EXPRESSION = new Document("$cond", List.of(
+            new Document("$eq", List.of("$orderStatus", "CANCELLED")),
+            0,
+            new Document("$toDecimal", new Document("$ifNull", List.of("$afterTaxAmount", 0)))));
 
-    private MongoClient mongoClient;
     private MongoDatabase database;
 
-    private MongoCollection<Document> customerCollection;
+    private MongoCollection<Customer> customerCollection;
     private MongoCollection<Document> groupCollection;
     private MongoCollection<Document> categoryCollection;
     private MongoCollection<Document> contactCollection;
 
+    // Groups and categories by hex id, reloaded after each of their writes below.
+    // The by-name lookups still read the collection: the menu edits the object they return.
+    private final ReferenceData<String, CustomerGroup> groups =
+            new ReferenceData<>("customer_groups", CustomerGroup::getId, this::loadGroups);
+    private final ReferenceData<String, CustomerCategory> categories =
+            new ReferenceData<>("customer_categories", CustomerCategory::getId, this::loadCategories);
+
+    // Overviews by customer id; the group and category in them are dropped with the reference data
+    private final Map<String, CachedOverview> overviews = new ConcurrentHashMap<>();
+
     private List<CustomerDependencyChecker> dependencyCheckers = new CopyOnWriteArrayList<>();
 
     @Reference(
@@ -57,25 +124,29 @@ public class CustomerServiceImpl implements CustomerService {
 
     @Activate
     public void activate() {
-        System.out.println("Customer Service: Starting with MANUAL Mapping...");
+        System.out.println("Customer Service: Starting...");
         try {
-            String uri = System.getProperty("mongodb.uri");
-            if (uri == null || uri.isEmpty()) {
-                System.err.println("Error: mongodb.uri not found in System Properties.");
+            // 1. Shared Connection (pool is owned by the infrastructure bundle)
+            database = connectionService.getDatabase();
+            if (database == null) {
+                System.err.println("Error: Shared MongoDB connection is not available.");
                 return;
             }
 
-            // 1. Standard Connection (No CodecRegistry needed for Document)
-            mongoClient = MongoClients.create(uri);
-            database = mongoClient.getDatabase("inventory_db_osgi");
-
-            // 2. Initialize Collections as 'Document'
-            customerCollection = database.getCollection("customers");
+            // 2. Customers are typed (model codec on the shared client); the catalog collections stay Documents
+            customerCollection = database.getCollection("customers", Customer.class);
             groupCollection = database.getCollection("customer_groups");
             categoryCollection = database.getCollection("customer_categories");
             contactCollection = database.getCollection("customer_contacts");
 
-            System.out.println("Customer Service: Database Connected (Manual Mode).");
+            // 3. Indexes for the filtered fields (no-op when they already exist)
+            indexManager.ensureIndexes(INDEXES);
+
+            // 4. Reference data, loaded fully before the first customer is shown
+            referenceDataCache.register(groups);
+            referenceDataCache.register(categories);
+
+            System.out.println("Customer Service: Database Connected.");
 
         } catch (Exception e) {
             System.err.println("Customer Service: Connection Failed.");
@@ -85,42 +156,14 @@ public class CustomerServiceImpl implements CustomerService {
 
     @Deactivate
     public void deactivate() {
-        if (mongoClient != null) mongoClient.close();
+        referenceDataCache.unregister(groups);
+        referenceDataCache.unregister(categories);
+        // The shared client is closed by the infrastructure bundle, not here
         System.out.println("Customer Service: Stopped.");
     }
 
     // MAPPING HELPERS METHOD
 
-    // --- CUSTOMER MAPPING ---
-    private Customer mapToCustomer(Document doc) {
-        if (doc == null) return null;
-        Customer c = new Customer();
-        // Safe ID conversion: works for both ObjectId and String in DB
-        c.setId(doc.get("_id").toString());
-        c.setName(doc.getString("name"));
-        c.setEmail(doc.getString("email"));
-        c.setPhoneNumber(doc.getString("phoneNumber"));
-        c.setAddress(doc.getString("address"));
-        c.setCustomerGroupId(doc.getString("customerGroupId"));
-        c.setCustomerCategoryId(doc.getString("customerCategoryId"));
-        c.setCreatedAt(doc.getString("createdAt"));
-        c.setEditedAt(doc.getString("editedAt"));
-        return c;
-    }
-
-    private Document mapFromCustomer(Customer c) {
-        Document doc = new Document()
-                .append("name", c.getName())
-                .append("email", c.getEmail())
-                .append("phoneNumber", c.getPhoneNumber())
-                .append("address", c.getAddress())
-                .append("customerGroupId", c.getCustomerGroupId())
-                .append("customerCategoryId", c.getCustomerCategoryId())
-                .append("createdAt", c.getCreatedAt())
-                .append("editedAt", c.getEditedAt());
-        return doc;
-    }
-
     // --- GROUP MAPPING ---
     private CustomerGroup mapToGroup(Document doc) {
         if (doc == null) return null;
@@ -194,41 +237,67 @@ public class CustomerServiceImpl implements CustomerService {
         if (customer.getCreatedAt() == null) {
             customer.setCreatedAt(LocalDateTime.now().toString());
         }
-        Document doc = mapFromCustomer(customer);
-        customerCollection.insertOne(doc);
+        customerCollection.insertOne(customer);
     }
 
     @Override
     public List<Customer> getAllCustomers() {
         List<Customer> list = new ArrayList<>();
-        for (Document doc : customerCollection.find()) {
-            list.add(mapToCustomer(doc));
+        for (Customer customer : customerCollection.find()) {
+            list.add(customer);
         }
         return list;
     }
 
+    @Override
+    public Page<Customer> listCustomers(String afterId, int limit, Sort sort) {
+        return MongoPaging.page(customerCollection, "_id", MongoPaging.objectIdCursor(afterId), limit, sort, Customer::getId);
+    }
+
+    @Override
+    public Stream<Customer> streamCustomers(int batchSize) {
+        return MongoPaging.stream(customerCollection.find(), batchSize);
+    }
+
     @Override
     public Optional<Customer> getCustomerByName(String name) {
-        Document doc = customerCollection.find(Filters.eq("name", name)).first();
-        return Optional.ofNullable(mapToCustomer(doc));
+        return Optional.ofNullable(customerCollection.find(Filters.eq("name", name)).first());
     }
 
     @Override
     public Optional<Customer> getCustomerById(String id) {
         try {
-            Document doc = customerCollection.find(Filters.eq("_id", new ObjectId(id))).first();
-            return Optional.ofNullable(mapToCustomer(doc));
+            return Optional.ofNullable(customerCollection.find(Filters.eq("_id", new ObjectId(id))).first());
         } catch (IllegalArgumentException e) {
             return Optional.empty();
         }
     }
 
+    @Override
+    public Map<String, String> getCustomerNamesByIds(Collection<String> ids) {
+        Map<String, String> names = new HashMap<>();
+        if (ids == null || ids.isEmpty()) return names;
+
+        List<ObjectId> objectIds = new ArrayList<>();
+        for (String id : ids) {
+            if (id != null && ObjectId.isValid(id)) objectIds.add(new ObjectId(id));
+        }
+        if (objectIds.isEmpty()) return names;
+
+        // One round trip for the whole page, only the name is fetched
+        for (Customer customer : customerCollection.find(Filters.in("_id", objectIds))
+                .projection(Projections.include("name"))) {
+            names.put(customer.getId(), customer.getName());
+        }
+        return names;
+    }
+
     @Override
     public void updateCustomer(Customer customer) {
         if (customer.getId() != null) {
             customer.setEditedAt(LocalDateTime.now().toString());
-            Document doc = mapFromCustomer(customer);
-            customerCollection.replaceOne(Filters.eq("_id", new ObjectId(customer.getId())), doc);
+            customerCollection.replaceOne(Filters.eq("_id", new ObjectId(customer.getId())), customer);
+            overviews.remove(customer.getId());
         }
     }
 
@@ -242,14 +311,16 @@ public class CustomerServiceImpl implements CustomerService {
 
         // Ask all checkers to verify deletion
         for (CustomerDependencyChecker checker : dependencyCheckers) {
-            if (checker.hasDependency(id)) {
-                return "Cannot delete: " + checker.getDependencyMessage();
+            DependencyCheckResult result = checker.check(id);
+            if (result.hasDependency()) {
+                return "Cannot delete: " + result.getMessage();
             }
         }
 
         // If no objections, proceed with delete
         customerCollection.deleteOne(Filters.eq("_id", new ObjectId(id)));
         contactCollection.deleteMany(Filters.eq("customerId", id));
+        overviews.remove(id);
 
         return "Customer deleted successfully.";
     }
@@ -261,10 +332,15 @@ public class CustomerServiceImpl implements CustomerService {
         if (group.getCreatedAt() == null) group.setCreatedAt(LocalDateTime.now().toString());
         Document doc = mapFromGroup(group);
         groupCollection.insertOne(doc);
+        groups.refresh();
     }
 
     @Override
     public List<CustomerGroup> getAllGroups() {
+        return new ArrayList<>(groups.getAll());
+    }
+
+    private List<CustomerGroup> loadGroups() {
         List<CustomerGroup> list = new ArrayList<>();
         for (Document doc : groupCollection.find()) {
             list.add(mapToGroup(doc));
@@ -280,12 +356,7 @@ public class CustomerServiceImpl implements CustomerService {
 
     @Override
     public Optional<CustomerGroup> getGroupById(String id) {
-        try {
-            Document doc = groupCollection.find(Filters.eq("_id", new ObjectId(id))).first();
-            return Optional.ofNullable(mapToGroup(doc));
-        } catch (IllegalArgumentException e) {
-            return Optional.empty();
-        }
+        return Optional.ofNullable(groups.get(id));
     }
 
     @Override
@@ -294,6 +365,8 @@ public class CustomerServiceImpl implements CustomerService {
             group.setEditedAt(LocalDateTime.now().toString());
             Document doc = mapFromGroup(group);
             groupCollection.replaceOne(Filters.eq("_id", new ObjectId(group.getId())), doc);
+            groups.refresh();
+            overviews.clear();
         }
     }
 
@@ -305,6 +378,7 @@ public class CustomerServiceImpl implements CustomerService {
         }
         try {
             DeleteResult res = groupCollection.deleteOne(Filters.eq("_id", new ObjectId(id)));
+            if (res.getDeletedCount() > 0) groups.refresh();
             return res.getDeletedCount() > 0 ? "Group deleted." : "Group not found.";
         } catch (Exception e) {
             return "Error: " + e.getMessage();
@@ -318,10 +392,15 @@ public class CustomerServiceImpl implements CustomerService {
         if (category.getCreatedAt() == null) category.setCreatedAt(LocalDateTime.now().toString());
         Document doc = mapFromCategory(category);
         categoryCollection.insertOne(doc);
+        categories.refresh();
     }
 
     @Override
     public List<CustomerCategory> getAllCategories() {
+        return new ArrayList<>(categories.getAll());
+    }
+
+    private List<CustomerCategory> loadCategories() {
         List<CustomerCategory> list = new ArrayList<>();
         for (Document doc : categoryCollection.find()) {
             list.add(mapToCategory(doc));
@@ -337,12 +416,7 @@ public class CustomerServiceImpl implements CustomerService {
 
     @Override
     public Optional<CustomerCategory> getCategoryById(String id) {
-        try {
-            Document doc = categoryCollection.find(Filters.eq("_id", new ObjectId(id))).first();
-            return Optional.ofNullable(mapToCategory(doc));
-        } catch (IllegalArgumentException e) {
-            return Optional.empty();
-        }
+        return Optional.ofNullable(categories.get(id));
     }
 
     @Override
@@ -351,6 +425,8 @@ public class CustomerServiceImpl implements CustomerService {
             category.setEditedAt(LocalDateTime.now().toString());
             Document doc = mapFromCategory(category);
             categoryCollection.replaceOne(Filters.eq("_id", new ObjectId(category.getId())), doc);
+            categories.refresh();
+            overviews.clear();
         }
     }
 
@@ -362,6 +438,7 @@ public class CustomerServiceImpl implements CustomerService {
         }
         try {
             DeleteResult res = categoryCollection.deleteOne(Filters.eq("_id", new ObjectId(id)));
+            if (res.getDeletedCount() > 0) categories.refresh();
             return res.getDeletedCount() > 0 ? "Category deleted." : "Category not found.";
         } catch (Exception e) {
             return "Error: " + e.getMessage();
@@ -393,6 +470,7 @@ public class CustomerServiceImpl implements CustomerService {
         if (contact.getCreatedAt() == null) contact.setCreatedAt(LocalDateTime.now().toString());
         Document doc = mapFromContact(contact);
         contactCollection.insertOne(doc);
+        overviews.remove(customerId);
     }
 
     @Override
@@ -401,6 +479,7 @@ public class CustomerServiceImpl implements CustomerService {
             contact.setEditedAt(LocalDateTime.now().toString());
             Document doc = mapFromContact(contact);
             contactCollection.replaceOne(Filters.eq("_id", new ObjectId(contact.getId())), doc);
+            if (contact.getCustomerId() != null) overviews.remove(contact.getCustomerId());
         }
     }
 
@@ -408,8 +487,94 @@ public class CustomerServiceImpl implements CustomerService {
     public void deleteContact(String id) {
         try {
             contactCollection.deleteOne(Filters.eq("_id", new ObjectId(id)));
+            // Only the id is known here, not the customer whose overview lists the contact
+            overviews.clear();
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+
+    // OVERVIEW IMPLEMENTATION
+
+    @Override
+    public Optional<CustomerOverview> getCustomerOverview(String customerId) {
+        if (customerId == null || !ObjectId.isValid(customerId)) return Optional.empty();
+
+        CachedOverview cached = overviews.get(customerId);
+        if (cached != null && !cached.isExpired()) return Optional.of(cached.overview);
+
+        CustomerOverview overview = customerCollection
+                .aggregate(overviewPipeline(new ObjectId(customerId)), CustomerOverview.class).first();
+        if (overview == null) {
+            overviews.remove(customerId);
+            return Optional.empty();
+        }
+        Customer customer = overview.getCustomer();
+        if (customer.getCustomerGroupId() != null) overview.setGroup(groups.get(customer.getCustomerGroupId()));
+        if (customer.getCustomerCategoryId() != null) overview.setCategory(categories.get(customer.getCustomerCategoryId()));
+
+        if (overviews.size() >= MAX_CACHED_OVERVIEWS) {
+            overviews.values().removeIf(CachedOverview::isExpired);
+            if (overviews.size() >= MAX_CACHED_OVERVIEWS) overviews.clear();
+        }
+        overviews.put(customerId, new CachedOverview(overview));
+        return Optional.of(overview);
+    }
+
+    // The customer, its contacts, its order count and value and its latest orders in one round trip;
+    // decoded by CustomerOverviewCodec. Each join matches on the indexed customerId of its collection.
+    static List<Bson> overviewPipeline(ObjectId customerId) {
+        List<Variable<Document>> byCustomer = List.of(new Variable<>("customerId", new Document("$toString", "$_id")));
+        Bson sameCustomer = Aggregates.match(Filters.expr(new Document("$eq", List.of("$customerId", "$$customerId"))));
+        return List.of(
+                Aggregates.match(Filters.eq("_id", customerId)),
+                Aggregates.lookup("customer_contacts", byCustomer,
+                        List.of(sameCustomer, Aggregates.sort(Sorts.ascending("_id"))),
+                        "contacts"),
+                Aggregates.lookup("sales_orders", byCustomer,
+                        List.of(sameCustomer, Aggregates.group(null,
+                                Accumulators.sum("orderCount", 1),
+                                Accumulators.sum("lifetimeValue", LIFETIME_VALUE_EXPRESSION))),
+                        "orderStats"),
+                Aggregates.lookup("sales_orders", byCustomer,
+                        List.of(sameCustomer,
+                                Aggregates.sort(Sorts.descending("orderDate", "_id")),
+                                Aggregates.limit(RECENT_ORDERS),
+                                Aggregates.project(RECENT_ORDER_PROJECTION)),
+                        "recentOrders"));
+    }
+
+    private static final class CachedOverview {
+        private final CustomerOverview overview;
+        private final long loadedAt = System.currentTimeMillis();
+
+        CachedOverview(CustomerOverview overview) {
+            this.overview = overview;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() - loadedAt > OVERVIEW_TTL_MILLIS;
+        }
+    }
+
+    // =================== CROSS-INSTANCE INVALIDATION ===================
+
+    @Override
+    public Set<String> getCollections() {
+        return Set.of("customers", "customer_contacts", "customer_groups", "customer_categories", "sales_orders");
+    }
+
+    // A customer change names the customer by _id; a contact or order change by the customerId the
+    // change stream passes on. Deletes and group or category changes do not say, so they clear all.
+    @Override
+    public void invalidate(CacheInvalidation invalidation) {
+        String customerId = "customers".equals(invalidation.getCollection())
+                ? invalidation.getDocumentId()
+                : invalidation.getField("customerId");
+        if (customerId != null) {
+            overviews.remove(customerId);
+        } else {
+            overviews.clear();
+        }
+    }
+}
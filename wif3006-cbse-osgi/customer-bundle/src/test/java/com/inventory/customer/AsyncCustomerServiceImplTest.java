@@ -0,0 +1,95 @@
+package com.inventory.customer;
+
+import com.inventory.api.customer.model.Customer;
+import com.mongodb.reactivestreams.client.FindPublisher;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AsyncCustomerServiceImplTest {
+
+    @Mock
+    private MongoCollection<Customer> customerCollection;
+    @Mock
+    private FindPublisher<Customer> customerFind;
+
+    private AsyncCustomerServiceImpl customerService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        customerService = new AsyncCustomerServiceImpl();
+        Field field = AsyncCustomerServiceImpl.class.getDeclaredField("customerCollection");
+        field.setAccessible(true);
+        field.set(customerService, customerCollection);
+    }
+
+    // Makes the mocked FindPublisher emit the customers when subscribed to
+    private void emit(Customer... customers) {
+        doAnswer(invocation -> {
+            Subscriber<? super Customer> subscriber = invocation.getArgument(0);
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                    Arrays.stream(customers).forEach(subscriber::onNext);
+                    subscriber.onComplete();
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            return null;
+        }).when(customerFind).subscribe(any());
+    }
+
+    @Test
+    void testGetCustomerNamesByIds_ShouldQueryOnlyTheValidIdsOnce() {
+        String id = new ObjectId().toHexString();
+        Customer customer = new Customer();
+        customer.setId(id);
+        customer.setName("Acme");
+        when(customerCollection.find(any(Bson.class))).thenReturn(customerFind);
+        when(customerFind.projection(any())).thenReturn(customerFind);
+        emit(customer);
+
+        Map<String, String> names = customerService.getCustomerNamesByIds(List.of(id, "bad-id")).join();
+
+        assertEquals(Map.of(id, "Acme"), names);
+        verify(customerCollection, times(1)).find(any(Bson.class));
+    }
+
+    @Test
+    void testGetCustomerById_InvalidId_ShouldCompleteEmptyWithoutQuery() {
+        assertTrue(customerService.getCustomerById("bad-id").join().isEmpty());
+        assertTrue(customerService.getCustomerNamesByIds(List.of("bad-id")).join().isEmpty());
+        verifyNoInteractions(customerCollection);
+    }
+
+    @Test
+    void testLookups_WithoutConnection_ShouldCompleteEmpty() {
+        // Never activated against a database, as when the reactive connection is unavailable
+        AsyncCustomerServiceImpl unconnected = new AsyncCustomerServiceImpl();
+        String id = new ObjectId().toHexString();
+
+        assertTrue(unconnected.getAllCustomers().join().isEmpty());
+        assertTrue(unconnected.getCustomerById(id).join().isEmpty());
+        assertTrue(unconnected.getCustomerNamesByIds(List.of(id)).join().isEmpty());
+    }
+}
@@ -5,22 +5,34 @@
  */
 package com.inventory.customer;
 
+import com.inventory.api.cache.CacheInvalidation;
+import com.inventory.api.codec.InventoryCodecs;
 import com.inventory.api.customer.model.*;
 import com.inventory.api.customer.service.CustomerDependencyChecker;
+import com.inventory.api.customer.service.DependencyCheckResult;
 import com.mongodb.client.*;
 import com.mongodb.client.result.DeleteResult;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
 import org.bson.Document;
+import org.bson.codecs.DecoderContext;
 import org.bson.conversions.Bson;
+import org.bson.types.Decimal128;
 import org.bson.types.ObjectId;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -30,7 +42,7 @@ import static org.mockito.Mockito.*;
 public class CustomerServiceImplTest {
 
     @Mock
-    private MongoCollection<Document> customerCollection;
+    private MongoCollection<Customer> customerCollection;
     @Mock
     private MongoCollection<Document> groupCollection;
     @Mock
@@ -43,7 +55,15 @@ public class CustomerServiceImplTest {
     @Mock
     private MongoCursor<Document> cursor;
     @Mock
+    private FindIterable<Customer> customerIterable;
+    @Mock
+    private MongoCursor<Customer> customerCursor;
+    @Mock
     private DeleteResult deleteResult;
+    @Mock
+    private AggregateIterable<CustomerOverview> overviewAggregate;
+    @Captor
+    private ArgumentCaptor<List<Bson>> pipeline;
 
     // We need to mock the checker interface
     @Mock
@@ -67,6 +87,21 @@ public class CustomerServiceImplTest {
         field.set(target, value);
     }
 
+    // The reference-data reload that follows a group/category write finds an empty collection
+    private void mockEmptyReload(MongoCollection<Document> collection) {
+        when(collection.find()).thenReturn(findIterable);
+        when(findIterable.iterator()).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(false);
+    }
+
+    // What the customer codec decodes from { _id, name }
+    private Customer customer(ObjectId id, String name) {
+        Customer customer = new Customer();
+        customer.setId(id.toHexString());
+        customer.setName(name);
+        return customer;
+    }
+
     // --- 1. CUSTOMER MODULE TESTS ---
 
     @Test
@@ -74,14 +109,14 @@ public class CustomerServiceImplTest {
         Customer customer = new Customer();
         customer.setName("Goh Yu Heng");
         customerService.createCustomer(customer);
-        verify(customerCollection, times(1)).insertOne(any(Document.class));
+        verify(customerCollection, times(1)).insertOne(customer);
     }
 
     @Test
     void testGetCustomerById_ShouldReturnOptional() {
         ObjectId id = new ObjectId();
-        when(customerCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(new Document("_id", id).append("name", "Ali"));
+        when(customerCollection.find(any(Bson.class))).thenReturn(customerIterable);
+        when(customerIterable.first()).thenReturn(customer(id, "Ali"));
 
         Optional<Customer> result = customerService.getCustomerById(id.toString());
         assertTrue(result.isPresent());
@@ -93,7 +128,7 @@ public class CustomerServiceImplTest {
         Customer c = new Customer();
         c.setId(new ObjectId().toString());
         customerService.updateCustomer(c);
-        verify(customerCollection, times(1)).replaceOne(any(Bson.class), any(Document.class));
+        verify(customerCollection, times(1)).replaceOne(any(Bson.class), eq(c));
     }
 
     @Test
@@ -101,8 +136,8 @@ public class CustomerServiceImplTest {
         // Arrange
         String id = new ObjectId().toString();
         // Simulate customer not found in DB
-        when(customerCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(null);
+        when(customerCollection.find(any(Bson.class))).thenReturn(customerIterable);
+        when(customerIterable.first()).thenReturn(null);
 
         // Act
         String result = customerService.deleteCustomer(id);
@@ -118,12 +153,12 @@ public class CustomerServiceImplTest {
         ObjectId id = new ObjectId();
 
         // 1. Simulate customer found
-        when(customerCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(new Document("_id", id).append("name", "Ali"));
+        when(customerCollection.find(any(Bson.class))).thenReturn(customerIterable);
+        when(customerIterable.first()).thenReturn(customer(id, "Ali"));
 
         // 2. Simulate Dependency Checker saying "YES, I have data"
-        when(dependencyChecker.hasDependency(id.toString())).thenReturn(true);
-        when(dependencyChecker.getDependencyMessage()).thenReturn("Customer has Sales Orders.");
+        when(dependencyChecker.check(id.toString()))
+                .thenReturn(DependencyCheckResult.of(2, "Customer has 2 existing Sales Order(s)."));
 
         // Bind the mock checker to the service
         customerService.bindChecker(dependencyChecker);
@@ -133,7 +168,7 @@ public class CustomerServiceImplTest {
 
         // Assert
         assertTrue(result.contains("Cannot delete"));
-        assertTrue(result.contains("Sales Orders"));
+        assertTrue(result.contains("2 existing Sales Order(s)"));
 
         // Ensure NO delete happened
         verify(customerCollection, never()).deleteOne(any(Bson.class));
@@ -146,11 +181,11 @@ public class CustomerServiceImplTest {
         ObjectId id = new ObjectId();
 
         // 1. Simulate customer found
-        when(customerCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(new Document("_id", id).append("name", "Ali"));
+        when(customerCollection.find(any(Bson.class))).thenReturn(customerIterable);
+        when(customerIterable.first()).thenReturn(customer(id, "Ali"));
 
         // 2. Simulate Dependency Checker saying "NO, I don't have data"
-        when(dependencyChecker.hasDependency(id.toString())).thenReturn(false);
+        when(dependencyChecker.check(id.toString())).thenReturn(DependencyCheckResult.none());
 
         // Bind the mock checker
         customerService.bindChecker(dependencyChecker);
@@ -170,6 +205,7 @@ public class CustomerServiceImplTest {
 
     @Test
     void testCreateGroup_ShouldInsertDocument() {
+        mockEmptyReload(groupCollection);
         customerService.createGroup(new CustomerGroup());
         verify(groupCollection, times(1)).insertOne(any(Document.class));
     }
@@ -179,11 +215,29 @@ public class CustomerServiceImplTest {
         CustomerGroup group = new CustomerGroup();
         group.setId(new ObjectId().toString());
         group.setGroupName("Corporate");
+        mockEmptyReload(groupCollection);
 
         customerService.updateGroup(group);
 
         assertNotNull(group.getEditedAt());
         verify(groupCollection, times(1)).replaceOne(any(Bson.class), any(Document.class));
+        verify(groupCollection, times(1)).find();
+    }
+
+    @Test
+    void testGetGroupById_ShouldReadTheCachedGroupsOnce() {
+        ObjectId id = new ObjectId();
+        when(groupCollection.find()).thenReturn(findIterable);
+        when(findIterable.iterator()).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(true, false);
+        when(cursor.next()).thenReturn(new Document("_id", id).append("groupName", "Corporate"));
+
+        assertEquals("Corporate", customerService.getGroupById(id.toHexString()).get().getGroupName());
+        assertEquals("Corporate", customerService.getGroupById(id.toHexString()).get().getGroupName());
+        assertTrue(customerService.getGroupById("not-an-id").isEmpty());
+
+        verify(groupCollection, times(1)).find();
+        verify(groupCollection, never()).find(any(Bson.class));
     }
 
     @Test
@@ -198,6 +252,7 @@ public class CustomerServiceImplTest {
         when(customerCollection.countDocuments(any(Bson.class))).thenReturn(0L);
         when(groupCollection.deleteOne(any(Bson.class))).thenReturn(deleteResult);
         when(deleteResult.getDeletedCount()).thenReturn(1L);
+        mockEmptyReload(groupCollection);
         assertEquals("Group deleted.", customerService.deleteGroup(new ObjectId().toString()));
     }
 
@@ -205,6 +260,7 @@ public class CustomerServiceImplTest {
 
     @Test
     void testCreateCategory_ShouldInsertDocument() {
+        mockEmptyReload(categoryCollection);
         customerService.createCategory(new CustomerCategory());
         verify(categoryCollection, times(1)).insertOne(any(Document.class));
     }
@@ -219,6 +275,7 @@ public class CustomerServiceImplTest {
     void testUpdateCategory_ShouldUpdateEditedAt() {
         CustomerCategory cat = new CustomerCategory();
         cat.setId(new ObjectId().toString());
+        mockEmptyReload(categoryCollection);
         customerService.updateCategory(cat);
         assertNotNull(cat.getEditedAt());
         verify(categoryCollection, times(1)).replaceOne(any(Bson.class), any(Document.class));
@@ -261,10 +318,10 @@ public class CustomerServiceImplTest {
 
     @Test
     void testGetAllCustomers_ShouldReturnList() {
-        when(customerCollection.find()).thenReturn(findIterable);
-        when(findIterable.iterator()).thenReturn(cursor);
-        when(cursor.hasNext()).thenReturn(true, false);
-        when(cursor.next()).thenReturn(new Document("_id", new ObjectId()).append("name", "Ali"));
+        when(customerCollection.find()).thenReturn(customerIterable);
+        when(customerIterable.iterator()).thenReturn(customerCursor);
+        when(customerCursor.hasNext()).thenReturn(true, false);
+        when(customerCursor.next()).thenReturn(customer(new ObjectId(), "Ali"));
 
         List<Customer> list = customerService.getAllCustomers();
         assertEquals(1, list.size());
@@ -293,4 +350,152 @@ public class CustomerServiceImplTest {
         when(cursor.hasNext()).thenReturn(false);
         assertNotNull(customerService.getAllContacts());
     }
-}
\ No newline at end of file
+
+    // --- 6. BULK LOOKUP TESTS ---
+
+    @Test
+    void testGetCustomerNamesByIds_ShouldUseSingleQuery() {
+        ObjectId id1 = new ObjectId();
+        ObjectId id2 = new ObjectId();
+        when(customerCollection.find(any(Bson.class))).thenReturn(customerIterable);
+        when(customerIterable.projection(any(Bson.class))).thenReturn(customerIterable);
+        when(customerIterable.iterator()).thenReturn(customerCursor);
+        when(customerCursor.hasNext()).thenReturn(true, true, false);
+        when(customerCursor.next()).thenReturn(customer(id1, "Ali"), customer(id2, "Bala"));
+
+        Map<String, String> names = customerService.getCustomerNamesByIds(List.of(id1.toHexString(), id2.toHexString()));
+
+        assertEquals(2, names.size());
+        assertEquals("Ali", names.get(id1.toHexString()));
+        assertEquals("Bala", names.get(id2.toHexString()));
+        verify(customerCollection, times(1)).find(any(Bson.class));
+    }
+
+    @Test
+    void testGetCustomerNamesByIds_WithOnlyInvalidIds_ShouldNotQuery() {
+        Map<String, String> names = customerService.getCustomerNamesByIds(List.of("not-an-id"));
+
+        assertTrue(names.isEmpty());
+        verifyNoInteractions(customerCollection);
+    }
+
+    // --- 6. OVERVIEW TESTS ---
+
+    private <T> T decode(Document doc, Class<T> type) {
+        BsonDocument bson = doc.toBsonDocument(Document.class, InventoryCodecs.REGISTRY);
+        return InventoryCodecs.REGISTRY.get(type).decode(new BsonDocumentReader(bson), DecoderContext.builder().build());
+    }
+
+    // What the overview pipeline returns for a customer with one contact and two orders
+    private CustomerOverview overviewOf(ObjectId id, String groupId) {
+        return decode(new Document("_id", id)
+                .append("name", "Acme Sdn Bhd")
+                .append("customerGroupId", groupId)
+                .append("contacts", List.of(new Document("_id", new ObjectId())
+                        .append("contactName", "Ali")
+                        .append("customerId", id.toHexString())))
+                .append("orderStats", List.of(new Document("orderCount", 2)
+                        .append("lifetimeValue", new Decimal128(new BigDecimal("150.50")))))
+                .append("recentOrders", List.of(
+                        new Document("_id", new ObjectId()).append("orderNumber", "SO-002").append("orderStatus", "PENDING"),
+                        new Document("_id", new ObjectId()).append("orderNumber", "SO-001").append("orderStatus", "CANCELLED"))),
+                CustomerOverview.class);
+    }
+
+    private void mockOverview(ObjectId id, String groupId) {
+        when(customerCollection.aggregate(anyList(), eq(CustomerOverview.class))).thenReturn(overviewAggregate);
+        when(overviewAggregate.first()).thenAnswer(invocation -> overviewOf(id, groupId));
+    }
+
+    @Test
+    void testGetCustomerOverview_ShouldJoinInOneAggregationAndCache() {
+        ObjectId id = new ObjectId();
+        ObjectId groupId = new ObjectId();
+        mockOverview(id, groupId.toHexString());
+        when(groupCollection.find()).thenReturn(findIterable);
+        when(findIterable.iterator()).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(true, false);
+        when(cursor.next()).thenReturn(new Document("_id", groupId).append("groupName", "Retail"));
+
+        CustomerOverview overview = customerService.getCustomerOverview(id.toHexString()).orElseThrow();
+        CustomerOverview again = customerService.getCustomerOverview(id.toHexString()).orElseThrow();
+
+        verify(customerCollection, times(1)).aggregate(pipeline.capture(), eq(CustomerOverview.class));
+        List<String> joined = new ArrayList<>();
+        for (Bson stage : pipeline.getValue()) {
+            BsonDocument rendered = stage.toBsonDocument();
+            if (rendered.containsKey("$lookup")) joined.add(rendered.getDocument("$lookup").getString("from").getValue());
+        }
+        assertEquals(List.of("customer_contacts", "sales_orders", "sales_orders"), joined);
+        String recent = pipeline.getValue().get(3).toBsonDocument().toJson();
+        assertTrue(recent.contains("\"$limit\": " + CustomerServiceImpl.RECENT_ORDERS), recent);
+
+        assertSame(overview, again);
+        assertEquals("Acme Sdn Bhd", overview.getCustomer().getName());
+        assertEquals(id.toHexString(), overview.getCustomer().getId());
+        assertEquals("Retail", overview.getGroup().getGroupName());
+        assertNull(overview.getCategory());
+        assertEquals(1, overview.getContacts().size());
+        assertEquals("Ali", overview.getContacts().get(0).getContactName());
+        assertEquals(2, overview.getOrderCount());
+        assertEquals(0, overview.getLifetimeValue().compareTo(new BigDecimal("150.50")));
+        assertEquals("SO-002", overview.getRecentOrders().get(0).getOrderNumber());
+        verifyNoInteractions(contactCollection);
+    }
+
+    @Test
+    void testGetCustomerOverview_WithInvalidId_ShouldBeEmpty() {
+        assertTrue(customerService.getCustomerOverview("not-an-id").isEmpty());
+        verifyNoInteractions(customerCollection);
+    }
+
+    @Test
+    void testUpdateContact_ShouldEvictThatCustomersOverview() {
+        ObjectId id = new ObjectId();
+        mockOverview(id, null);
+        customerService.getCustomerOverview(id.toHexString());
+
+        CustomerContact contact = new CustomerContact("Ali", "Buyer", "012", "ali@acme.my", id.toHexString());
+        contact.setId(new ObjectId().toHexString());
+        customerService.updateContact(contact);
+        customerService.getCustomerOverview(id.toHexString());
+
+        verify(customerCollection, times(2)).aggregate(anyList(), eq(CustomerOverview.class));
+    }
+
+    @Test
+    void testInvalidate_ShouldEvictOnlyTheChangedCustomerUnlessAnOrderChanged() {
+        ObjectId id = new ObjectId();
+        mockOverview(id, null);
+        customerService.getCustomerOverview(id.toHexString());
+
+        // Another customer changed: still cached
+        customerService.invalidate(CacheInvalidation.ofDocument("customers", new ObjectId().toHexString(), "update"));
+        customerService.getCustomerOverview(id.toHexString());
+        verify(customerCollection, times(1)).aggregate(anyList(), eq(CustomerOverview.class));
+
+        // An order event without the customerId (a delete) does not say whose it was, so every overview goes
+        customerService.invalidate(CacheInvalidation.ofDocument("sales_orders", new ObjectId().toHexString(), "delete"));
+        customerService.getCustomerOverview(id.toHexString());
+        verify(customerCollection, times(2)).aggregate(anyList(), eq(CustomerOverview.class));
+    }
+
+    @Test
+    void testInvalidate_OrderEventWithCustomerId_ShouldEvictOnlyThatCustomer() {
+        ObjectId id = new ObjectId();
+        mockOverview(id, null);
+        customerService.getCustomerOverview(id.toHexString());
+
+        // Another customer's order: still cached
+        customerService.invalidate(CacheInvalidation.ofDocument("sales_orders", new ObjectId().toHexString(), "insert",
+                Map.of("customerId", new ObjectId().toHexString())));
+        customerService.getCustomerOverview(id.toHexString());
+        verify(customerCollection, times(1)).aggregate(anyList(), eq(CustomerOverview.class));
+
+        // This customer's order
+        customerService.invalidate(CacheInvalidation.ofDocument("sales_orders", new ObjectId().toHexString(), "update",
+                Map.of("customerId", id.toHexString())));
+        customerService.getCustomerOverview(id.toHexString());
+        verify(customerCollection, times(2)).aggregate(anyList(), eq(CustomerOverview.class));
+    }
+}
@@ -0,0 +1,317 @@
+package com.inventory.infrastructure;
+
+import com.inventory.api.cache.CacheInvalidation;
+import com.inventory.api.cache.CacheInvalidationListener;
+import com.inventory.api.mongo.MongoConnectionService;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoInterruptedException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows the cached collections on a change stream and passes every change on to the
+ * registered CacheInvalidationListeners, so the caches of this instance see the writes of
+ * all the others.
+ *
+ * The resume token is written to a local file (per database) after the changes it covers were
+ * passed on; after a restart or a dropped connection the stream resumes there and no change is
+ * lost. When it cannot resume (first start, or the token has left the oplog) every listener is
+ * told to drop everything once. Change streams need a replica set; on a standalone server this
+ * logs once and stays idle.
+ *
+ * Inserts, updates and replaces also pass on the documentFields of the document after the change
+ * (looked up for updates, projected so nothing else travels), e.g. the customerId of a sales order.
+ */
+@Component(
+        configurationPid = ChangeStreamInvalidator.PID,
+        configurationPolicy = ConfigurationPolicy.OPTIONAL,
+        immediate = true
+)
+public class ChangeStreamInvalidator {
+
+    public static final String PID = "com.inventory.changestream";
+
+    // Server error codes: not a replica set, and resume token no longer in the oplog
+    static final int NOT_A_REPLICA_SET = 40573;
+    static final int HISTORY_LOST = 286;
+    static final long RETRY_DELAY_MILLIS = 5_000;
+    // Longest the thread waits for a change before it checks for deactivation
+    static final long MAX_AWAIT_MILLIS = 1_000;
+    // How often the token is saved while no change comes in
+    static final long IDLE_SAVE_MILLIS = 10_000;
+
+    @interface Config {
+        String[] collections() default {"customers", "products", "taxes", "product_groups", "unit_measures",
+                "warehouses", "customer_groups", "customer_categories", "customer_contacts", "sales_orders",
+                "stock_levels"};
+
+        // Where the resume token is kept; empty = ~/.inventory/change-stream-<database>.token
+        String tokenFile() default "";
+
+        // Fields of the changed document passed on with the change; empty = no document lookup
+        String[] documentFields() default {"customerId"};
+    }
+
+    @Reference
+    private MongoConnectionService connectionService;
+
+    private final List<CacheInvalidationListener> listeners = new CopyOnWriteArrayList<>();
+
+    private MongoDatabase database;
+    private List<String> collections;
+    private List<String> documentFields;
+    private Path tokenFile;
+    private Thread thread;
+    private volatile boolean running;
+    // Position of the last change passed on; only used by the stream thread
+    private BsonDocument resumeToken;
+
+    @Reference(
+            service = CacheInvalidationListener.class,
+            cardinality = ReferenceCardinality.MULTIPLE,
+            policy = ReferencePolicy.DYNAMIC
+    )
+    public void bindListener(CacheInvalidationListener listener) {
+        listeners.add(listener);
+    }
+
+    public void unbindListener(CacheInvalidationListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Activate
+    public void activate(Config config) {
+        database = connectionService.getDatabase();
+        if (database == null) {
+            System.err.println("Change Stream: Shared MongoDB connection is not available.");
+            return;
+        }
+        collections = List.of(config.collections());
+        documentFields = List.of(config.documentFields());
+        tokenFile = config.tokenFile().isEmpty()
+                ? Paths.get(System.getProperty("user.home"), ".inventory", "change-stream-" + database.getName() + ".token")
+                : Paths.get(config.tokenFile());
+
+        running = true;
+        thread = new Thread(this::run, "change-stream-invalidator");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Deactivate
+    public void deactivate() throws InterruptedException {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    // =================== STREAM ===================
+
+    private void run() {
+        resumeToken = readToken();
+        System.out.println("Change Stream: Watching " + collections + (resumeToken != null ? " (resumed)." : "."));
+        while (running) {
+            try {
+                follow();
+            } catch (MongoCommandException e) {
+                if (e.getErrorCode() == NOT_A_REPLICA_SET) {
+                    System.err.println("Change Stream: The server is not a replica set; caches are only refreshed by this instance's writes.");
+                    return;
+                }
+                if (e.getErrorCode() == HISTORY_LOST) {
+                    System.err.println("Change Stream: The saved position is no longer in the oplog; starting over.");
+                    resumeToken = null;
+                    deleteToken();
+                    continue;
+                }
+                pause(e);
+            } catch (MongoInterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                pause(e);
+            }
+        }
+    }
+
+    // Passes changes on from resumeToken (or from now) until stopped or the stream is invalidated
+    void follow() {
+        ChangeStreamIterable<Document> stream = database.watch(pipeline(collections, documentFields))
+                .maxAwaitTime(MAX_AWAIT_MILLIS, TimeUnit.MILLISECONDS);
+        if (!documentFields.isEmpty()) stream = stream.fullDocument(FullDocument.UPDATE_LOOKUP);
+        if (resumeToken != null) stream = stream.resumeAfter(resumeToken);
+
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+            // Nothing to resume from: whatever changed before now is unknown
+            if (resumeToken == null) publish(CacheInvalidation.everything());
+
+            long savedAt = 0;
+            while (running) {
+                ChangeStreamDocument<Document> change = cursor.tryNext();
+                if (change != null) {
+                    CacheInvalidation invalidation = toInvalidation(change);
+                    if (invalidation != null) publish(invalidation);
+                    // The server closes the stream after an invalidate event; the next one starts from now
+                    if (change.getOperationType() == OperationType.INVALIDATE) {
+                        resumeToken = null;
+                        deleteToken();
+                        return;
+                    }
+                }
+                // Advances while idle too (post-batch token), so a restart does not replay old changes
+                BsonDocument latest = cursor.getResumeToken();
+                if (latest == null || latest.equals(resumeToken)) continue;
+                resumeToken = latest;
+                long now = System.currentTimeMillis();
+                if (change != null || now - savedAt >= IDLE_SAVE_MILLIS) {
+                    writeToken(latest);
+                    savedAt = now;
+                }
+            }
+        }
+    }
+
+    static Bson filter(List<String> collections) {
+        return Filters.or(
+                Filters.in("ns.coll", collections),
+                Filters.in("operationType", List.of("dropDatabase", "invalidate")));
+    }
+
+    // _id (the resume token) is always kept; of the document only documentFields
+    static List<Bson> pipeline(List<String> collections, List<String> documentFields) {
+        if (documentFields.isEmpty()) return List.of(Aggregates.match(filter(collections)));
+        List<String> kept = new ArrayList<>(List.of("operationType", "ns", "documentKey"));
+        for (String field : documentFields) kept.add("fullDocument." + field);
+        return List.of(Aggregates.match(filter(collections)), Aggregates.project(Projections.include(kept)));
+    }
+
+    static CacheInvalidation toInvalidation(ChangeStreamDocument<Document> change) {
+        OperationType type = change.getOperationType();
+        String collection = change.getNamespace() != null ? change.getNamespace().getCollectionName() : null;
+        switch (type) {
+            case INSERT:
+            case UPDATE:
+            case REPLACE:
+            case DELETE:
+                BsonValue id = change.getDocumentKey() != null ? change.getDocumentKey().get("_id") : null;
+                return CacheInvalidation.ofDocument(collection, idOf(id), type.getValue(), fieldsOf(change.getFullDocument()));
+            case DROP:
+            case RENAME:
+                return CacheInvalidation.ofCollection(collection, type.getValue());
+            case DROP_DATABASE:
+            case INVALIDATE:
+                return CacheInvalidation.everything();
+            default:
+                return null;
+        }
+    }
+
+    private static String idOf(BsonValue id) {
+        if (id == null) return null;
+        if (id.isObjectId()) return id.asObjectId().getValue().toHexString();
+        if (id.isString()) return id.asString().getValue();
+        if (id.isInt32()) return String.valueOf(id.asInt32().getValue());
+        if (id.isInt64()) return String.valueOf(id.asInt64().getValue());
+        return id.toString();
+    }
+
+    private static Map<String, String> fieldsOf(Document document) {
+        Map<String, String> fields = new HashMap<>();
+        if (document == null) return fields;
+        document.forEach((name, value) -> {
+            if (value instanceof ObjectId) fields.put(name, ((ObjectId) value).toHexString());
+            else if (value != null) fields.put(name, value.toString());
+        });
+        return fields;
+    }
+
+    void publish(CacheInvalidation invalidation) {
+        for (CacheInvalidationListener listener : listeners) {
+            if (!invalidation.isEverything() && !listener.getCollections().contains(invalidation.getCollection())) continue;
+            try {
+                listener.invalidate(invalidation);
+            } catch (RuntimeException e) {
+                // One failing cache must not stop the stream for the others
+                System.err.println("Change Stream: " + listener.getClass().getSimpleName()
+                        + " failed on " + invalidation + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void pause(RuntimeException e) {
+        System.err.println("Change Stream: " + e.getMessage() + "; retrying in " + RETRY_DELAY_MILLIS / 1000 + "s.");
+        try {
+            Thread.sleep(RETRY_DELAY_MILLIS);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    // =================== RESUME TOKEN ===================
+
+    BsonDocument readToken() {
+        try {
+            if (!Files.exists(tokenFile)) return null;
+            return BsonDocument.parse(Files.readString(tokenFile, StandardCharsets.UTF_8));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Change Stream: Ignoring unreadable token file " + tokenFile + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Written next to the file and moved over it, so a crash never leaves half a token
+    void writeToken(BsonDocument token) {
+        try {
+            Files.createDirectories(tokenFile.toAbsolutePath().getParent());
+            Path temp = tokenFile.resolveSibling(tokenFile.getFileName() + ".tmp");
+            Files.writeString(temp, token.toJson(), StandardCharsets.UTF_8);
+            Files.move(temp, tokenFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Change Stream: Could not save the resume token: " + e.getMessage());
+        }
+    }
+
+    private void deleteToken() {
+        try {
+            Files.deleteIfExists(tokenFile);
+        } catch (IOException e) {
+            System.err.println("Change Stream: Could not delete " + tokenFile + ": " + e.getMessage());
+        }
+    }
+}
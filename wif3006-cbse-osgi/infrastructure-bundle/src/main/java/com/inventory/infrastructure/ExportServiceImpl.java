@@ -0,0 +1,261 @@
+package com.inventory.infrastructure;
+
+import com.inventory.api.export.ExportFormat;
+import com.inventory.api.export.ExportRequest;
+import com.inventory.api.export.ExportResult;
+import com.inventory.api.export.ExportService;
+import com.inventory.api.mongo.MongoConnectionService;
+
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Projections;
+
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.conversions.Bson;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cursor-to-file exports for every bundle.
+ *
+ * Documents are read as RawBsonDocuments (the bytes off the wire, not decoded into maps or models)
+ * and written through a buffered writer onto a FileChannel, optionally through gzip. Only one
+ * cursor batch is held at a time. The file is written as "<name>.part" and moved to its name
+ * once complete, so readers never see half an export.
+ */
+@Component(service = ExportService.class)
+public class ExportServiceImpl implements ExportService {
+
+    // Collections exported at the same time by exportAll(); each holds one pooled connection while it runs
+    static final int PARALLELISM = 4;
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    // Relaxed: numbers and strings as plain JSON, dates as { "$date": "ISO-8601" }
+    private static final JsonWriterSettings JSON = JsonWriterSettings.builder().outputMode(JsonMode.RELAXED).build();
+
+    @Reference
+    private MongoConnectionService connectionService;
+
+    private MongoDatabase database;
+    private ExecutorService executor;
+
+    @Activate
+    public void activate() {
+        executor = Executors.newFixedThreadPool(PARALLELISM, task -> {
+            Thread thread = new Thread(task, "export");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        database = connectionService.getDatabase();
+        if (database == null) {
+            System.err.println("Export: Shared MongoDB connection is not available.");
+        }
+    }
+
+    @Deactivate
+    public void deactivate() {
+        if (executor != null) executor.shutdownNow();
+    }
+
+    @Override
+    public ExportResult export(ExportRequest request) {
+        if (database == null) throw new IllegalStateException("Export: database not available.");
+        if (request.getFormat() == ExportFormat.CSV && request.getColumns().isEmpty()) {
+            throw new IllegalArgumentException("A CSV export needs its columns");
+        }
+
+        long start = System.nanoTime();
+        Path target = request.getTarget().toAbsolutePath();
+        Path part = target.resolveSibling(target.getFileName() + ".part");
+
+        FindIterable<RawBsonDocument> find = database.getCollection(request.getCollection(), RawBsonDocument.class)
+                .find(request.getFilter())
+                .batchSize(request.getBatchSize());
+        if (request.getSort() != null) find = find.sort(request.getSort());
+        if (request.getFormat() == ExportFormat.CSV) find = find.projection(projection(request.getColumns()));
+
+        long documents = 0;
+        try {
+            if (target.getParent() != null) Files.createDirectories(target.getParent());
+            try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE,
+                         StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                 Writer writer = open(channel, request.isGzip());
+                 MongoCursor<RawBsonDocument> cursor = find.iterator()) {
+                if (request.getFormat() == ExportFormat.CSV) writeCsvLine(writer, request.getColumns());
+                while (cursor.hasNext()) {
+                    RawBsonDocument document = cursor.next();
+                    if (request.getFormat() == ExportFormat.CSV) {
+                        List<String> values = new ArrayList<>(request.getColumns().size());
+                        for (String column : request.getColumns()) values.add(csvValue(lookup(document, column)));
+                        writeCsvLine(writer, values);
+                    } else {
+                        writer.write(document.toJson(JSON));
+                        writer.write('\n');
+                    }
+                    documents++;
+                }
+            }
+            moveIntoPlace(part, target);
+        } catch (IOException e) {
+            deleteQuietly(part);
+            throw new UncheckedIOException("Export of " + request.getCollection() + " failed: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            deleteQuietly(part);
+            throw e;
+        }
+
+        long bytes;
+        try {
+            bytes = Files.size(target);
+        } catch (IOException e) {
+            bytes = -1;
+        }
+        ExportResult result = new ExportResult(request.getCollection(), target, documents, bytes,
+                (System.nanoTime() - start) / 1_000_000);
+        System.out.println("Export: " + result);
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<List<ExportResult>> exportAll(List<ExportRequest> requests) {
+        if (executor == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Export: service not active."));
+        }
+        List<CompletableFuture<ExportResult>> exports = new ArrayList<>();
+        for (ExportRequest request : requests) {
+            exports.add(CompletableFuture.supplyAsync(() -> export(request), executor));
+        }
+        return CompletableFuture.allOf(exports.toArray(new CompletableFuture[0])).thenApply(done -> {
+            List<ExportResult> results = new ArrayList<>();
+            exports.forEach(export -> results.add(export.join()));
+            return results;
+        });
+    }
+
+    // =================== FILE ===================
+
+    // Writer -> (gzip ->) 64 KB buffer -> channel, so the channel sees few large writes
+    private static Writer open(FileChannel channel, boolean gzip) throws IOException {
+        OutputStream out = Channels.newOutputStream(channel);
+        out = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : new BufferedOutputStream(out, BUFFER_SIZE);
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    private static void moveIntoPlace(Path part, Path target) throws IOException {
+        try {
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("Export: Could not delete " + file + ": " + e.getMessage());
+        }
+    }
+
+    // =================== CSV ===================
+
+    // Only the top-level fields of the columns come over the wire
+    static Bson projection(List<String> columns) {
+        Set<String> fields = new LinkedHashSet<>();
+        for (String column : columns) fields.add(column.split("\\.", 2)[0]);
+        return fields.contains("_id")
+                ? Projections.include(new ArrayList<>(fields))
+                : Projections.fields(Projections.include(new ArrayList<>(fields)), Projections.excludeId());
+    }
+
+    // The value of a dotted column, null when a part of the path is missing or not a document
+    static BsonValue lookup(BsonDocument document, String column) {
+        BsonValue value = document;
+        for (String name : column.split("\\.")) {
+            if (value == null || !value.isDocument()) return null;
+            value = value.asDocument().get(name);
+        }
+        return value;
+    }
+
+    // Dates the way the codecs store a LocalDate come out as yyyy-MM-dd; arrays and documents as JSON
+    static String csvValue(BsonValue value) {
+        if (value == null || value.isNull()) return "";
+        switch (value.getBsonType()) {
+            case STRING:
+                return value.asString().getValue();
+            case INT32:
+                return String.valueOf(value.asInt32().getValue());
+            case INT64:
+                return String.valueOf(value.asInt64().getValue());
+            case DOUBLE:
+                return BigDecimal.valueOf(value.asDouble().getValue()).toPlainString();
+            case DECIMAL128:
+                return value.asDecimal128().getValue().bigDecimalValue().toPlainString();
+            case BOOLEAN:
+                return String.valueOf(value.asBoolean().getValue());
+            case OBJECT_ID:
+                return value.asObjectId().getValue().toHexString();
+            case DATE_TIME:
+                ZonedDateTime time = Instant.ofEpochMilli(value.asDateTime().getValue()).atZone(ZoneId.systemDefault());
+                return time.toLocalTime().toNanoOfDay() == 0 ? time.toLocalDate().toString() : time.toLocalDateTime().toString();
+            case DOCUMENT:
+                return value.asDocument().toJson(JSON);
+            default:
+                // Arrays and the rarer types: JSON of a one-field wrapper, without the wrapper
+                String json = new BsonDocument("v", value).toJson(JSON);
+                return json.substring(json.indexOf(':') + 1, json.lastIndexOf('}')).trim();
+        }
+    }
+
+    static void writeCsvLine(Writer writer, List<String> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) writer.write(',');
+            writer.write(escapeCsv(values.get(i)));
+        }
+        writer.write('\n');
+    }
+
+    static String escapeCsv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,121 @@
+package com.inventory.infrastructure;
+
+import com.inventory.api.mongo.IndexDefinition;
+import com.inventory.api.mongo.IndexManager;
+import com.inventory.api.mongo.MongoConnectionService;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+
+import org.bson.Document;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Applies the index declarations of the service bundles and reports on them.
+ *
+ * A failing index (typically a unique index over duplicate legacy data) is logged and
+ * skipped so the remaining indexes and the calling service still start; it then shows
+ * up in findMissingIndexes().
+ */
+@Component(service = IndexManager.class, immediate = true)
+public class IndexManagerImpl implements IndexManager {
+
+    @Reference
+    private MongoConnectionService connectionService;
+
+    // "collection.name" -> declaration, across every bundle that called ensureIndexes()
+    private final Map<String, IndexDefinition> declared = new LinkedHashMap<>();
+
+    @Override
+    public synchronized void ensureIndexes(List<IndexDefinition> definitions) {
+        MongoDatabase database = connectionService.getDatabase();
+        if (database == null) {
+            System.err.println("Index Manager: Shared MongoDB connection is not available.");
+            return;
+        }
+
+        Map<String, List<IndexDefinition>> byCollection = new LinkedHashMap<>();
+        for (IndexDefinition definition : definitions) {
+            declared.put(definition.toString(), definition);
+            byCollection.computeIfAbsent(definition.getCollection(), k -> new ArrayList<>()).add(definition);
+        }
+
+        int created = 0;
+        for (Map.Entry<String, List<IndexDefinition>> entry : byCollection.entrySet()) {
+            MongoCollection<Document> collection = database.getCollection(entry.getKey());
+            Set<String> existing = existingIndexNames(collection);
+            for (IndexDefinition definition : entry.getValue()) {
+                if (existing.contains(definition.getName())) continue;
+                try {
+                    collection.createIndex(definition.getKeys(), definition.toIndexOptions());
+                    created++;
+                } catch (MongoException e) {
+                    System.err.println("Index Manager: Could not create " + definition + ": " + e.getMessage());
+                }
+            }
+        }
+
+        if (created > 0) {
+            System.out.println("Index Manager: Created " + created + " index(es) on " + byCollection.keySet() + ".");
+        }
+    }
+
+    @Override
+    public synchronized List<IndexDefinition> findMissingIndexes() {
+        List<IndexDefinition> missing = new ArrayList<>();
+        MongoDatabase database = connectionService.getDatabase();
+        if (database == null) return missing;
+
+        Map<String, Set<String>> namesByCollection = new LinkedHashMap<>();
+        for (IndexDefinition definition : declared.values()) {
+            Set<String> existing = namesByCollection.computeIfAbsent(definition.getCollection(),
+                    name -> existingIndexNames(database.getCollection(name)));
+            if (!existing.contains(definition.getName())) missing.add(definition);
+        }
+        return missing;
+    }
+
+    @Override
+    public synchronized List<String> findUnusedIndexes() {
+        List<String> unused = new ArrayList<>();
+        MongoDatabase database = connectionService.getDatabase();
+        if (database == null) return unused;
+
+        Set<String> collections = new LinkedHashSet<>();
+        for (IndexDefinition definition : declared.values()) collections.add(definition.getCollection());
+
+        for (String name : collections) {
+            // One stats document per index and per node; ops counts the queries that used it
+            List<Document> indexStats = database.getCollection(name)
+                    .aggregate(List.of(new Document("$indexStats", new Document())))
+                    .into(new ArrayList<>());
+            for (Document stats : indexStats) {
+                String indexName = stats.getString("name");
+                Document accesses = stats.get("accesses", Document.class);
+                long ops = accesses == null ? 0 : accesses.get("ops", Number.class).longValue();
+                if (ops == 0 && !"_id_".equals(indexName)) unused.add(name + "." + indexName);
+            }
+        }
+        return unused;
+    }
+
+    // =================== HELPERS ===================
+
+    private Set<String> existingIndexNames(MongoCollection<Document> collection) {
+        Set<String> names = new HashSet<>();
+        for (Document index : collection.listIndexes().into(new ArrayList<>())) {
+            names.add(index.getString("name"));
+        }
+        return names;
+    }
+}
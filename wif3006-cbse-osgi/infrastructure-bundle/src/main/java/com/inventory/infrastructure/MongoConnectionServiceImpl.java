@@ -0,0 +1,125 @@
+package com.inventory.infrastructure;
+
+import com.inventory.api.codec.InventoryCodecs;
+import com.inventory.api.mongo.MongoConnectionService;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoDatabase;
+
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Deactivate;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Owns the single MongoClient (and therefore the single connection pool) of the container.
+ *
+ * Configured through Configuration Admin under the PID "com.inventory.mongo".
+ * When no configuration is present the defaults below are used and the URI is taken
+ * from the "mongodb.uri" system property set by the launcher.
+ */
+@Component(
+        service = MongoConnectionService.class,
+        configurationPid = MongoConnectionServiceImpl.PID,
+        configurationPolicy = ConfigurationPolicy.OPTIONAL,
+        immediate = true
+)
+public class MongoConnectionServiceImpl implements MongoConnectionService {
+
+    public static final String PID = "com.inventory.mongo";
+
+    @interface Config {
+        // Empty = fall back to the "mongodb.uri" system property
+        String uri() default "";
+
+        String databaseName() default "inventory_db_osgi";
+
+        // --- Pool sizing ---
+        int maxPoolSize() default 20;
+
+        int minPoolSize() default 0;
+
+        // Max connections being established at the same time per server
+        int maxConnecting() default 2;
+
+        // --- Timeouts (0 = no limit) ---
+        long maxIdleTimeMs() default 60000;
+
+        long maxConnectionLifeTimeMs() default 0;
+
+        // How long a caller may sit in the wait queue for a pooled connection
+        long maxWaitTimeMs() default 5000;
+    }
+
+    private MongoClient mongoClient;
+    private MongoDatabase database;
+
+    @Activate
+    public void activate(Config config) {
+        Logger.getLogger("org.mongodb.driver").setLevel(Level.SEVERE);
+
+        String uri = resolveUri(config);
+        if (uri == null || uri.isEmpty()) {
+            System.err.println("Mongo Connection: mongodb.uri not found in configuration or System Properties.");
+            return;
+        }
+
+        try {
+            mongoClient = MongoClients.create(buildSettings(config, uri));
+            database = mongoClient.getDatabase(config.databaseName());
+            System.out.println("Mongo Connection: Shared pool started (maxPoolSize=" + config.maxPoolSize()
+                    + ", database=" + config.databaseName() + ").");
+        } catch (Exception e) {
+            System.err.println("Mongo Connection: Connection Failed.");
+            e.printStackTrace();
+        }
+    }
+
+    @Deactivate
+    public void deactivate() {
+        if (mongoClient != null) mongoClient.close();
+        System.out.println("Mongo Connection: Shared pool closed.");
+    }
+
+    @Override
+    public MongoClient getClient() {
+        return mongoClient;
+    }
+
+    @Override
+    public MongoDatabase getDatabase() {
+        return database;
+    }
+
+    // =================== HELPERS ===================
+
+    static String resolveUri(Config config) {
+        String uri = config.uri();
+        if (uri == null || uri.isEmpty()) {
+            uri = System.getProperty("mongodb.uri");
+        }
+        return uri;
+    }
+
+    static MongoClientSettings buildSettings(Config config, String uri) {
+        return MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(uri))
+                .applyToConnectionPoolSettings(pool -> pool
+                        .maxSize(config.maxPoolSize())
+                        .minSize(config.minPoolSize())
+                        .maxConnecting(config.maxConnecting())
+                        .maxConnectionIdleTime(config.maxIdleTimeMs(), TimeUnit.MILLISECONDS)
+                        .maxConnectionLifeTime(config.maxConnectionLifeTimeMs(), TimeUnit.MILLISECONDS)
+                        .maxWaitTime(config.maxWaitTimeMs(), TimeUnit.MILLISECONDS))
+                // Model codecs first, driver defaults after (Document collections are unaffected)
+                .codecRegistry(InventoryCodecs.REGISTRY)
+                .build();
+    }
+}
@@ -0,0 +1,66 @@
+package com.inventory.infrastructure;
+
+import com.inventory.api.mongo.ReactiveMongoConnectionService;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import com.mongodb.reactivestreams.client.MongoDatabase;
+
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Deactivate;
+
+/**
+ * Owns the reactive MongoClient used by the Async*Service components.
+ *
+ * Reads the same configuration (PID "com.inventory.mongo") and builds the same settings as
+ * MongoConnectionServiceImpl - URI, pool limits and model codecs - but the reactive driver
+ * cannot share the sync client, so it keeps a second pool of up to maxPoolSize connections.
+ * Its connections are only opened once an async call is made.
+ */
+@Component(
+        service = ReactiveMongoConnectionService.class,
+        configurationPid = MongoConnectionServiceImpl.PID,
+        configurationPolicy = ConfigurationPolicy.OPTIONAL,
+        immediate = true
+)
+public class ReactiveMongoConnectionServiceImpl implements ReactiveMongoConnectionService {
+
+    private MongoClient mongoClient;
+    private MongoDatabase database;
+
+    @Activate
+    public void activate(MongoConnectionServiceImpl.Config config) {
+        String uri = MongoConnectionServiceImpl.resolveUri(config);
+        if (uri == null || uri.isEmpty()) {
+            System.err.println("Reactive Mongo Connection: mongodb.uri not found in configuration or System Properties.");
+            return;
+        }
+
+        try {
+            mongoClient = MongoClients.create(MongoConnectionServiceImpl.buildSettings(config, uri));
+            database = mongoClient.getDatabase(config.databaseName());
+            System.out.println("Reactive Mongo Connection: Async pool started (maxPoolSize=" + config.maxPoolSize() + ").");
+        } catch (Exception e) {
+            System.err.println("Reactive Mongo Connection: Connection Failed.");
+            e.printStackTrace();
+        }
+    }
+
+    @Deactivate
+    public void deactivate() {
+        if (mongoClient != null) mongoClient.close();
+        System.out.println("Reactive Mongo Connection: Async pool closed.");
+    }
+
+    @Override
+    public MongoClient getClient() {
+        return mongoClient;
+    }
+
+    @Override
+    public MongoDatabase getDatabase() {
+        return database;
+    }
+}
@@ -0,0 +1,71 @@
+package com.inventory.infrastructure;
+
+import com.inventory.api.cache.CacheInvalidation;
+import com.inventory.api.cache.CacheInvalidationListener;
+import com.inventory.api.cache.CacheStats;
+import com.inventory.api.cache.ReferenceData;
+import com.inventory.api.cache.ReferenceDataCache;
+
+import org.osgi.service.component.annotations.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the ReferenceData sets of every service bundle by collection name.
+ *
+ * The sets keep their own snapshots; this component only loads them on registration,
+ * refreshes them by name and collects their counters. As a CacheInvalidationListener it also
+ * reloads a set when another instance writes to its collection.
+ */
+@Component(service = {ReferenceDataCache.class, CacheInvalidationListener.class}, immediate = true)
+public class ReferenceDataCacheImpl implements ReferenceDataCache, CacheInvalidationListener {
+
+    private final Map<String, ReferenceData<?, ?>> registered = new ConcurrentHashMap<>();
+
+    @Override
+    public void register(ReferenceData<?, ?> data) {
+        registered.put(data.getName(), data);
+        if (data.refresh()) {
+            System.out.println("Reference Data: Loaded " + data.getStats().getSize() + " " + data.getName() + ".");
+        }
+    }
+
+    @Override
+    public void unregister(ReferenceData<?, ?> data) {
+        // Only if it was not replaced by a newer registration meanwhile
+        registered.remove(data.getName(), data);
+    }
+
+    @Override
+    public boolean refresh(String name) {
+        ReferenceData<?, ?> data = registered.get(name);
+        return data != null && data.refresh();
+    }
+
+    // =================== INVALIDATION ===================
+
+    @Override
+    public Set<String> getCollections() {
+        return Set.copyOf(registered.keySet());
+    }
+
+    @Override
+    public void invalidate(CacheInvalidation invalidation) {
+        // The sets are small: any change reloads the whole collection
+        for (ReferenceData<?, ?> data : registered.values()) {
+            if (invalidation.affects(data.getName())) data.refresh();
+        }
+    }
+
+    @Override
+    public List<CacheStats> getStats() {
+        List<CacheStats> stats = new ArrayList<>();
+        for (ReferenceData<?, ?> data : registered.values()) stats.add(data.getStats());
+        stats.sort((a, b) -> a.getName().compareTo(b.getName()));
+        return stats;
+    }
+}
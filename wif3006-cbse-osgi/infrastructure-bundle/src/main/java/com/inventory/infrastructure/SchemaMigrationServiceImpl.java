@@ -0,0 +1,316 @@
+package com.inventory.infrastructure;
+
+import com.inventory.api.mongo.BsonConversion;
+import com.inventory.api.mongo.MongoConnectionService;
+import com.inventory.api.mongo.SchemaMigration;
+import com.inventory.api.mongo.SchemaMigrationService;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+
+import org.bson.BsonType;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Background runner for SchemaMigrations, one worker per collection of a migration.
+ *
+ * A collection is scanned in _id order for documents that still hold a legacy type and
+ * converted with unordered bulkWrites of BATCH_SIZE updates. Each update is guarded on the
+ * values it read, so a document a service rewrote in the meantime is not overwritten; such
+ * documents are picked up by the next pass. Passes repeat from the start until one converts
+ * nothing, then the version is marked applied.
+ *
+ * "schema_migrations" holds one document per version:
+ * { _id: version, description, status, startedAt, appliedAt, checkpoints: { collection: lastId }, converted: { collection: n } }
+ */
+@Component(service = SchemaMigrationService.class, immediate = true)
+public class SchemaMigrationServiceImpl implements SchemaMigrationService {
+
+    static final String COLLECTION = "schema_migrations";
+    static final int BATCH_SIZE = 500;
+    // Passes over one collection before giving up on documents that keep coming back in the old format
+    static final int MAX_PASSES = 5;
+
+    static final String RUNNING = "running";
+    static final String APPLIED = "applied";
+    static final String FAILED = "failed";
+
+    @Reference
+    private MongoConnectionService connectionService;
+
+    private MongoDatabase database;
+    private MongoCollection<Document> migrationCollection;
+    private ExecutorService executor;
+
+    private final Set<Integer> applied = ConcurrentHashMap.newKeySet();
+    // Guarded by this; a failed run is replaced on the next submit
+    private final Map<Integer, CompletableFuture<Long>> running = new HashMap<>();
+
+    @Activate
+    public void activate() {
+        executor = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "schema-migration");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        database = connectionService.getDatabase();
+        if (database == null) {
+            System.err.println("Schema Migrations: Shared MongoDB connection is not available.");
+            return;
+        }
+        migrationCollection = database.getCollection(COLLECTION);
+        for (Document record : migrationCollection.find(Filters.eq("status", APPLIED))) {
+            applied.add(record.getInteger("_id"));
+        }
+        System.out.println("Schema Migrations: Started (" + applied.size() + " applied).");
+    }
+
+    @Deactivate
+    public void deactivate() {
+        // Workers stop at the next batch; the checkpoints let the next start resume there
+        if (executor != null) executor.shutdownNow();
+    }
+
+    @Override
+    public synchronized CompletableFuture<Long> submit(SchemaMigration migration) {
+        int version = migration.getVersion();
+        if (applied.contains(version)) return CompletableFuture.completedFuture(0L);
+
+        CompletableFuture<Long> current = running.get(version);
+        if (current != null && !current.isCompletedExceptionally()) return current;
+
+        if (migrationCollection == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Schema Migrations: database not available."));
+        }
+
+        CompletableFuture<Long> started = start(migration);
+        running.put(version, started);
+        return started;
+    }
+
+    @Override
+    public boolean isApplied(int version) {
+        return applied.contains(version);
+    }
+
+    // =================== RUNNER ===================
+
+    private CompletableFuture<Long> start(SchemaMigration migration) {
+        int version = migration.getVersion();
+        Document record = migrationCollection.findOneAndUpdate(
+                Filters.eq("_id", version),
+                Updates.combine(
+                        Updates.setOnInsert("description", migration.getDescription()),
+                        Updates.setOnInsert("startedAt", new Date())),
+                new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER));
+
+        if (!migration.getDescription().equals(record.getString("description"))) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Schema Migrations: V" + version
+                    + " is already used by \"" + record.getString("description") + "\"."));
+        }
+        if (APPLIED.equals(record.getString("status"))) {
+            applied.add(version);
+            return CompletableFuture.completedFuture(0L);
+        }
+
+        migrationCollection.updateOne(Filters.eq("_id", version), Updates.set("status", RUNNING));
+        System.out.println("Schema Migrations: Running " + migration + " on " + migration.getCollections() + ".");
+
+        Document checkpoints = record.get("checkpoints", new Document());
+        List<CompletableFuture<Long>> workers = new ArrayList<>();
+        for (String name : migration.getCollections()) {
+            workers.add(CompletableFuture.supplyAsync(
+                    () -> migrateCollection(migration, name, checkpoints.get(name)), executor));
+        }
+
+        return CompletableFuture.allOf(workers.toArray(new CompletableFuture[0]))
+                .thenApply(done -> workers.stream().mapToLong(CompletableFuture::join).sum())
+                .whenComplete((converted, error) -> finish(migration, converted, error));
+    }
+
+    private void finish(SchemaMigration migration, Long converted, Throwable error) {
+        int version = migration.getVersion();
+        if (error == null) {
+            migrationCollection.updateOne(Filters.eq("_id", version), Updates.combine(
+                    Updates.set("status", APPLIED),
+                    Updates.set("appliedAt", new Date()),
+                    Updates.unset("error")));
+            applied.add(version);
+            System.out.println("Schema Migrations: Applied " + migration + ", " + converted + " document(s) converted.");
+            return;
+        }
+
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        System.err.println("Schema Migrations: " + migration + " stopped: " + cause.getMessage());
+        try {
+            migrationCollection.updateOne(Filters.eq("_id", version), Updates.combine(
+                    Updates.set("status", FAILED),
+                    Updates.set("error", String.valueOf(cause.getMessage()))));
+        } catch (RuntimeException e) {
+            System.err.println("Schema Migrations: Could not record the failure: " + e.getMessage());
+        }
+    }
+
+    // Passes over one collection until a pass from the start converts nothing; returns the documents converted
+    long migrateCollection(SchemaMigration migration, String name, Object checkpoint) {
+        MongoCollection<Document> collection = database.getCollection(name);
+        Map<String, BsonConversion> fields = migration.getConversions(name);
+        Bson legacy = legacyFilter(fields);
+
+        long converted = 0;
+        Object after = checkpoint;
+        for (int pass = 1; pass <= MAX_PASSES; pass++) {
+            boolean fromStart = after == null;
+            long[] result = migratePass(migration.getVersion(), name, collection, fields, legacy, after);
+            converted += result[0];
+            if (fromStart && result[0] == 0) {
+                if (result[1] > 0) {
+                    System.err.println("Schema Migrations: " + result[1] + " document(s) in " + name
+                            + " hold values that cannot be converted; they are left as they are.");
+                }
+                return converted;
+            }
+            after = null;
+        }
+        throw new IllegalStateException(name + ": documents were still being converted after " + MAX_PASSES + " passes");
+    }
+
+    // One scan from 'after' (exclusive) to the end: { converted, skipped }
+    private long[] migratePass(int version, String name, MongoCollection<Document> collection,
+                               Map<String, BsonConversion> fields, Bson legacy, Object after) {
+        long[] result = new long[2];
+        Bson filter = after == null ? legacy : Filters.and(Filters.gt("_id", after), legacy);
+
+        List<Document> batch = new ArrayList<>(BATCH_SIZE);
+        try (MongoCursor<Document> cursor = collection.find(filter)
+                .sort(Sorts.ascending("_id"))
+                .batchSize(BATCH_SIZE)
+                .iterator()) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == BATCH_SIZE) {
+                    writeBatch(version, name, collection, fields, batch, result);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) writeBatch(version, name, collection, fields, batch, result);
+        return result;
+    }
+
+    private void writeBatch(int version, String name, MongoCollection<Document> collection,
+                            Map<String, BsonConversion> fields, List<Document> batch, long[] result) {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException(name + ": stopped with the bundle");
+        }
+
+        List<WriteModel<Document>> writes = new ArrayList<>(batch.size());
+        for (Document document : batch) {
+            Document changes = convert(document, fields);
+            if (changes.isEmpty()) {
+                result[1]++;
+                continue;
+            }
+
+            // Guarded on the values just read: a concurrent rewrite makes this a no-op
+            List<Bson> guard = new ArrayList<>();
+            guard.add(Filters.eq("_id", document.get("_id")));
+            for (String field : changes.keySet()) guard.add(Filters.eq(field, document.get(field)));
+            writes.add(new UpdateOneModel<>(Filters.and(guard), new Document("$set", changes)));
+        }
+
+        long modified = 0;
+        if (!writes.isEmpty()) {
+            modified = collection.bulkWrite(writes, new BulkWriteOptions().ordered(false)).getModifiedCount();
+            result[0] += modified;
+        }
+
+        migrationCollection.updateOne(Filters.eq("_id", version), Updates.combine(
+                Updates.set("checkpoints." + name, batch.get(batch.size() - 1).get("_id")),
+                Updates.inc("converted." + name, modified)));
+    }
+
+    // =================== HELPERS ===================
+
+    // Documents where any of the fields still holds one of its legacy types
+    static Bson legacyFilter(Map<String, BsonConversion> fields) {
+        List<Bson> clauses = new ArrayList<>();
+        for (Map.Entry<String, BsonConversion> entry : fields.entrySet()) {
+            List<Integer> types = new ArrayList<>();
+            for (BsonType type : entry.getValue().getLegacyTypes()) types.add(type.getValue());
+            clauses.add(new Document(entry.getKey(), new Document("$type", types)));
+        }
+        return clauses.size() == 1 ? clauses.get(0) : Filters.or(clauses);
+    }
+
+    // $set document of the converted values, keyed by top-level field; empty when nothing converts.
+    // "array.field" rewrites the whole array with the field converted in every element.
+    static Document convert(Document document, Map<String, BsonConversion> fields) {
+        Document changes = new Document();
+        for (Map.Entry<String, BsonConversion> entry : fields.entrySet()) {
+            String path = entry.getKey();
+            BsonConversion conversion = entry.getValue();
+            int dot = path.indexOf('.');
+
+            if (dot < 0) {
+                Object value = document.get(path);
+                Object converted = value != null ? conversion.convert(value) : null;
+                if (converted != null) changes.put(path, converted);
+                continue;
+            }
+
+            String arrayField = path.substring(0, dot);
+            String field = path.substring(dot + 1);
+            // Another field of the same array may already have been converted into 'changes'
+            Object array = changes.containsKey(arrayField) ? changes.get(arrayField) : document.get(arrayField);
+            if (!(array instanceof List)) continue;
+
+            List<Object> elements = new ArrayList<>();
+            boolean changed = false;
+            for (Object element : (List<?>) array) {
+                if (element instanceof Document) {
+                    Document item = new Document((Document) element);
+                    Object value = item.get(field);
+                    Object converted = value != null ? conversion.convert(value) : null;
+                    if (converted != null) {
+                        item.put(field, converted);
+                        changed = true;
+                    }
+                    elements.add(item);
+                } else {
+                    elements.add(element);
+                }
+            }
+            if (changed) changes.put(arrayField, elements);
+        }
+        return changes;
+    }
+}
@@ -0,0 +1,140 @@
+package com.inventory.infrastructure;
+
+import com.inventory.api.mongo.MongoConnectionService;
+import com.inventory.api.mongo.SequenceService;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+
+import org.bson.Document;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Counter-collection sequences.
+ *
+ * With blockSize = 1 (default) every call is one round trip and IDs stay gap-free.
+ * A larger blockSize reserves that many values per round trip and hands them out
+ * from memory; unused values of a block are lost when the bundle stops (gaps, never duplicates).
+ */
+@Component(
+        service = SequenceService.class,
+        configurationPid = SequenceServiceImpl.PID,
+        configurationPolicy = ConfigurationPolicy.OPTIONAL,
+        immediate = true
+)
+public class SequenceServiceImpl implements SequenceService {
+
+    public static final String PID = "com.inventory.sequence";
+    static final String COLLECTION = "counters";
+
+    @interface Config {
+        // How many values one round trip to MongoDB reserves
+        int blockSize() default 1;
+    }
+
+    // Values reserved in the database but not handed out yet: [next, last]
+    private static final class Block {
+        long next;
+        long last;
+    }
+
+    @Reference
+    private MongoConnectionService connectionService;
+
+    private MongoCollection<Document> counterCollection;
+    private int blockSize = 1;
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+
+    @Activate
+    public void activate(Config config) {
+        blockSize = Math.max(1, config.blockSize());
+        MongoDatabase database = connectionService.getDatabase();
+        if (database == null) {
+            System.err.println("Sequence Service: Shared MongoDB connection is not available.");
+            return;
+        }
+        counterCollection = database.getCollection(COLLECTION);
+        System.out.println("Sequence Service: Started (blockSize=" + blockSize + ").");
+    }
+
+    @Deactivate
+    public void deactivate() {
+        blocks.clear();
+    }
+
+    @Override
+    public long next(String sequenceName) {
+        if (counterCollection == null) {
+            throw new IllegalStateException("Sequence Service: database not available.");
+        }
+
+        Block block = blocks.computeIfAbsent(sequenceName, k -> new Block());
+        synchronized (block) {
+            if (block.next == 0 || block.next > block.last) {
+                long last = reserve(sequenceName, blockSize);
+                block.next = last - blockSize + 1;
+                block.last = last;
+            }
+            return block.next++;
+        }
+    }
+
+    @Override
+    public void ensureAtLeast(String sequenceName, long floor) {
+        if (counterCollection == null || floor <= 0) return;
+
+        // $max only ever moves the counter forward, so concurrent seeding is harmless
+        upsertWithRetry(() -> counterCollection.updateOne(
+                Filters.eq("_id", sequenceName),
+                Updates.max("seq", floor),
+                new UpdateOptions().upsert(true)));
+
+        // Drop an in-memory block that overlaps the seeded range
+        Block block = blocks.get(sequenceName);
+        if (block != null) {
+            synchronized (block) {
+                if (block.next != 0 && block.next <= floor) {
+                    block.next = 0;
+                    block.last = 0;
+                }
+            }
+        }
+    }
+
+    // =================== HELPERS ===================
+
+    // Atomically advances the counter by 'count' and returns the new (last reserved) value
+    long reserve(String sequenceName, int count) {
+        Document counter = upsertWithRetry(() -> counterCollection.findOneAndUpdate(
+                Filters.eq("_id", sequenceName),
+                Updates.inc("seq", (long) count),
+                new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER)));
+
+        return counter.get("seq", Number.class).longValue();
+    }
+
+    // Two first-time upserts of the same counter can race on the _id index; the loser simply retries
+    private <T> T upsertWithRetry(Supplier<T> upsert) {
+        try {
+            return upsert.get();
+        } catch (MongoWriteException e) {
+            if (e.getError().getCategory() != ErrorCategory.DUPLICATE_KEY) throw e;
+            return upsert.get();
+        }
+    }
+}
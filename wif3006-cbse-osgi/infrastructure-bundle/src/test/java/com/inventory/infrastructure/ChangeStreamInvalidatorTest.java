@@ -0,0 +1,236 @@
+package com.inventory.infrastructure;
+
+import com.inventory.api.cache.CacheInvalidation;
+import com.inventory.api.cache.CacheInvalidationListener;
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ChangeStreamInvalidatorTest {
+
+    @Mock
+    private MongoDatabase database;
+
+    @Mock
+    private ChangeStreamIterable<Document> stream;
+
+    @Mock
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor;
+
+    @Mock
+    private CacheInvalidationListener taxCache;
+
+    @Mock
+    private CacheInvalidationListener productCache;
+
+    @TempDir
+    Path tempDir;
+
+    private Path tokenFile;
+    private ChangeStreamInvalidator invalidator;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        tokenFile = tempDir.resolve("change-stream.token");
+        invalidator = new ChangeStreamInvalidator();
+        setField(invalidator, "database", database);
+        setField(invalidator, "collections", List.of("taxes", "products"));
+        setField(invalidator, "documentFields", List.of("customerId"));
+        setField(invalidator, "tokenFile", tokenFile);
+        invalidator.bindListener(taxCache);
+        invalidator.bindListener(productCache);
+    }
+
+    private void setField(Object target, String fieldName, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    // A mock, as every ChangeStreamDocument constructor is deprecated; only what the invalidator reads is stubbed
+    private static ChangeStreamDocument<Document> change(String operation, String collection, BsonValue id) {
+        ChangeStreamDocument<Document> change = mock();
+        lenient().when(change.getOperationType()).thenReturn(OperationType.fromString(operation));
+        lenient().when(change.getNamespace()).thenReturn(new MongoNamespace("inventory_db_osgi", collection));
+        lenient().when(change.getDocumentKey()).thenReturn(id != null ? new BsonDocument("_id", id) : null);
+        return change;
+    }
+
+    // =================== EVENTS ===================
+
+    @Test
+    void testToInvalidation_DocumentChange_ShouldCarryTheIdAsString() {
+        ObjectId id = new ObjectId();
+
+        CacheInvalidation invalidation = ChangeStreamInvalidator.toInvalidation(change("update", "products", new BsonObjectId(id)));
+
+        assertEquals("products", invalidation.getCollection());
+        assertEquals(id.toHexString(), invalidation.getDocumentId());
+        assertEquals("update", invalidation.getOperation());
+        assertEquals("T1", ChangeStreamInvalidator.toInvalidation(change("delete", "taxes", new BsonString("T1"))).getDocumentId());
+    }
+
+    @Test
+    void testToInvalidation_ShouldPassTheProjectedDocumentFieldsOn() {
+        ObjectId customerId = new ObjectId();
+        ChangeStreamDocument<Document> update = change("update", "sales_orders", new BsonObjectId(new ObjectId()));
+        when(update.getFullDocument()).thenReturn(new Document("customerId", customerId));
+
+        CacheInvalidation invalidation = ChangeStreamInvalidator.toInvalidation(update);
+
+        assertEquals(customerId.toHexString(), invalidation.getField("customerId"));
+        // A delete has no document after it
+        assertNull(ChangeStreamInvalidator.toInvalidation(change("delete", "sales_orders", new BsonString("SO1"))).getField("customerId"));
+    }
+
+    @Test
+    void testPipeline_ShouldKeepOnlyTheDocumentFieldsOfTheDocument() {
+        List<Bson> pipeline = ChangeStreamInvalidator.pipeline(List.of("sales_orders"), List.of("customerId"));
+
+        assertEquals(2, pipeline.size());
+        BsonDocument project = pipeline.get(1).toBsonDocument().getDocument("$project");
+        assertTrue(project.containsKey("fullDocument.customerId"));
+        assertTrue(project.containsKey("documentKey"));
+        assertFalse(project.containsKey("_id"), "the resume token must stay");
+        assertEquals(1, ChangeStreamInvalidator.pipeline(List.of("taxes"), List.of()).size());
+    }
+
+    @Test
+    void testToInvalidation_DropAndDropDatabase_ShouldWidenTheScope() {
+        CacheInvalidation drop = ChangeStreamInvalidator.toInvalidation(change("drop", "taxes", null));
+        CacheInvalidation dropDatabase = ChangeStreamInvalidator.toInvalidation(change("dropDatabase", "taxes", null));
+
+        assertNull(drop.getDocumentId());
+        assertFalse(drop.isEverything());
+        assertTrue(dropDatabase.isEverything());
+    }
+
+    @Test
+    void testPublish_ShouldOnlyReachListenersOfThatCollection() {
+        when(taxCache.getCollections()).thenReturn(Set.of("taxes"));
+        when(productCache.getCollections()).thenReturn(Set.of("products"));
+        CacheInvalidation invalidation = CacheInvalidation.ofDocument("taxes", "T1", "update");
+
+        invalidator.publish(invalidation);
+
+        verify(taxCache).invalidate(invalidation);
+        verify(productCache, never()).invalidate(any());
+    }
+
+    // The stock ledger caches levels by _id; a write by another instance must reach it
+    @Test
+    void testDefaultCollections_ShouldCarryStockLevelChangesToTheLedger() throws Exception {
+        String[] defaults = (String[]) ChangeStreamInvalidator.Config.class.getMethod("collections").getDefaultValue();
+        BsonDocument match = ChangeStreamInvalidator.pipeline(List.of(defaults), List.of()).get(0).toBsonDocument();
+        assertTrue(match.toJson().contains("\"stock_levels\""));
+
+        when(taxCache.getCollections()).thenReturn(Set.of("taxes"));
+        when(productCache.getCollections()).thenReturn(Set.of("stock_levels"));
+        CacheInvalidation invalidation = ChangeStreamInvalidator.toInvalidation(
+                change("update", "stock_levels", new BsonString("p1@Main")));
+
+        invalidator.publish(invalidation);
+
+        verify(productCache).invalidate(invalidation);
+        assertEquals("p1@Main", invalidation.getDocumentId());
+    }
+
+    @Test
+    void testPublish_FailingListener_ShouldNotStopTheOthers() {
+        doThrow(new IllegalStateException("boom")).when(taxCache).invalidate(any());
+
+        invalidator.publish(CacheInvalidation.everything());
+
+        verify(productCache).invalidate(CacheInvalidation.everything());
+    }
+
+    // =================== STREAM ===================
+
+    @Test
+    void testFollow_FromScratch_ShouldResetCachesThenPassChangesAndSaveTheToken() throws Exception {
+        BsonDocument token = new BsonDocument("_data", new BsonString("8263A1"));
+        when(database.watch(anyList())).thenReturn(stream);
+        when(stream.maxAwaitTime(anyLong(), any(TimeUnit.class))).thenReturn(stream);
+        when(stream.fullDocument(FullDocument.UPDATE_LOOKUP)).thenReturn(stream);
+        when(stream.cursor()).thenReturn(cursor);
+        when(productCache.getCollections()).thenReturn(Set.of("products"));
+        when(taxCache.getCollections()).thenReturn(Set.of("taxes"));
+        // One change, then the component is stopped
+        ChangeStreamDocument<Document> insert = change("insert", "products", new BsonString("P1"));
+        when(cursor.tryNext()).thenReturn(insert);
+        when(cursor.getResumeToken()).thenAnswer(invocation -> {
+            setField(invalidator, "running", false);
+            return token;
+        });
+        setField(invalidator, "running", true);
+
+        invalidator.follow();
+
+        ArgumentCaptor<CacheInvalidation> received = ArgumentCaptor.forClass(CacheInvalidation.class);
+        verify(productCache, times(2)).invalidate(received.capture());
+        assertTrue(received.getAllValues().get(0).isEverything());
+        assertEquals("P1", received.getAllValues().get(1).getDocumentId());
+        verify(taxCache, times(1)).invalidate(CacheInvalidation.everything());
+        verify(stream, never()).resumeAfter(any());
+        verify(cursor).close();
+
+        assertTrue(Files.exists(tokenFile));
+        assertEquals(token, invalidator.readToken());
+    }
+
+    @Test
+    void testFollow_WithSavedToken_ShouldResumeWithoutReset() throws Exception {
+        BsonDocument token = new BsonDocument("_data", new BsonString("8263A1"));
+        invalidator.writeToken(token);
+        setField(invalidator, "resumeToken", invalidator.readToken());
+        when(database.watch(anyList())).thenReturn(stream);
+        when(stream.maxAwaitTime(anyLong(), any(TimeUnit.class))).thenReturn(stream);
+        when(stream.fullDocument(FullDocument.UPDATE_LOOKUP)).thenReturn(stream);
+        when(stream.resumeAfter(token)).thenReturn(stream);
+        when(stream.cursor()).thenReturn(cursor);
+
+        invalidator.follow();
+
+        verify(stream).resumeAfter(token);
+        verify(taxCache, never()).invalidate(any());
+        verify(productCache, never()).invalidate(any());
+    }
+
+    @Test
+    void testReadToken_UnreadableFile_ShouldStartOver() throws Exception {
+        Files.writeString(tokenFile, "not json");
+
+        assertNull(invalidator.readToken());
+    }
+}
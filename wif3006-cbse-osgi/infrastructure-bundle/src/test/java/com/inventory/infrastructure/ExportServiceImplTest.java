@@ -0,0 +1,187 @@
+package com.inventory.infrastructure;
+
+import com.inventory.api.export.ExportFormat;
+import com.inventory.api.export.ExportRequest;
+import com.inventory.api.export.ExportResult;
+import com.mongodb.MongoSocketReadException;
+import com.mongodb.ServerAddress;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import org.bson.BsonArray;
+import org.bson.BsonDateTime;
+import org.bson.BsonDecimal128;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.conversions.Bson;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ExportServiceImplTest {
+
+    @Mock
+    private MongoDatabase database;
+
+    @Mock
+    private MongoCollection<RawBsonDocument> collection;
+
+    @Mock
+    private FindIterable<RawBsonDocument> find;
+
+    @Mock
+    private MongoCursor<RawBsonDocument> cursor;
+
+    @TempDir
+    Path dir;
+
+    private ExportServiceImpl exportService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        exportService = new ExportServiceImpl();
+        setField(exportService, "database", database);
+        setField(exportService, "executor", Executors.newFixedThreadPool(ExportServiceImpl.PARALLELISM));
+    }
+
+    private void setField(Object target, String fieldName, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    private static RawBsonDocument raw(BsonDocument document) {
+        return new RawBsonDocument(document, new BsonDocumentCodec());
+    }
+
+    // The collection's find() returns a cursor over the documents
+    private void stubCursor(RawBsonDocument... documents) {
+        when(database.getCollection("purchase_orders", RawBsonDocument.class)).thenReturn(collection);
+        when(collection.find(any(Bson.class))).thenReturn(find);
+        when(find.batchSize(anyInt())).thenReturn(find);
+        lenient().when(find.sort(any())).thenReturn(find);
+        lenient().when(find.projection(any())).thenReturn(find);
+        when(find.iterator()).thenReturn(cursor);
+        Iterator<RawBsonDocument> iterator = List.of(documents).iterator();
+        lenient().when(cursor.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+        lenient().when(cursor.next()).thenAnswer(invocation -> iterator.next());
+    }
+
+    private static long epochMillis(LocalDate date) {
+        return date.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    @Test
+    void testExport_Ndjson_ShouldWriteOneDocumentPerLine() throws IOException {
+        stubCursor(
+                raw(new BsonDocument("orderId", new BsonInt32(1)).append("vendor", new BsonString("Acme"))),
+                raw(new BsonDocument("orderId", new BsonInt32(2)).append("vendor", new BsonString("Globex"))));
+        Path target = dir.resolve("orders.ndjson");
+
+        ExportResult result = exportService.export(ExportRequest.of("purchase_orders", target));
+
+        assertEquals(List.of("{\"orderId\": 1, \"vendor\": \"Acme\"}", "{\"orderId\": 2, \"vendor\": \"Globex\"}"),
+                Files.readAllLines(target));
+        assertEquals(2, result.getDocuments());
+        assertEquals(Files.size(target), result.getBytes());
+        assertFalse(Files.exists(dir.resolve("orders.ndjson.part")));
+        verify(cursor).close();
+    }
+
+    @Test
+    void testExport_Csv_ShouldWriteTheColumnsEscapedWithDatesAndArrays() throws IOException {
+        BsonDocument order = new BsonDocument("orderId", new BsonInt32(7))
+                .append("vendor", new BsonString("Acme, \"Intl\""))
+                .append("orderDate", new BsonDateTime(epochMillis(LocalDate.of(2025, 3, 1))))
+                .append("address", new BsonDocument("city", new BsonString("Kuala Lumpur")))
+                .append("orderItems", new BsonArray(List.of(new BsonDocument("quantity", new BsonInt32(2))
+                        .append("pricePerItem", new BsonDecimal128(new Decimal128(new BigDecimal("9.50")))))));
+        stubCursor(raw(order));
+        Path target = dir.resolve("orders.csv");
+
+        exportService.export(ExportRequest.of("purchase_orders", target)
+                .format(ExportFormat.CSV)
+                .columns("orderId", "vendor", "orderDate", "address.city", "receivedDate", "orderItems"));
+
+        List<String> lines = Files.readAllLines(target);
+        assertEquals("orderId,vendor,orderDate,address.city,receivedDate,orderItems", lines.get(0));
+        assertEquals("7,\"Acme, \"\"Intl\"\"\",2025-03-01,Kuala Lumpur,,"
+                + "\"[{\"\"quantity\"\": 2, \"\"pricePerItem\"\": {\"\"$numberDecimal\"\": \"\"9.50\"\"}}]\"", lines.get(1));
+        verify(find).projection(any());
+    }
+
+    @Test
+    void testExport_Gzip_ShouldWriteACompressedFile() throws IOException {
+        stubCursor(raw(new BsonDocument("orderId", new BsonInt32(1))));
+        Path target = dir.resolve("orders.ndjson.gz");
+
+        exportService.export(ExportRequest.of("purchase_orders", target).gzip(true));
+
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(target))) {
+            assertEquals("{\"orderId\": 1}\n", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void testExport_CursorFails_ShouldLeaveNoFile() {
+        stubCursor();
+        doReturn(true).when(cursor).hasNext();
+        doReturn(raw(new BsonDocument("orderId", new BsonInt32(1))))
+                .doThrow(new MongoSocketReadException("connection reset", new ServerAddress()))
+                .when(cursor).next();
+        Path target = dir.resolve("orders.ndjson");
+
+        assertThrows(MongoSocketReadException.class, () -> exportService.export(ExportRequest.of("purchase_orders", target)));
+
+        assertFalse(Files.exists(target));
+        assertFalse(Files.exists(dir.resolve("orders.ndjson.part")));
+    }
+
+    @Test
+    void testExport_CsvWithoutColumns_ShouldBeRejectedBeforeQuerying() {
+        ExportRequest request = ExportRequest.of("purchase_orders", dir.resolve("orders.csv")).format(ExportFormat.CSV);
+
+        assertThrows(IllegalArgumentException.class, () -> exportService.export(request));
+        verifyNoInteractions(database);
+    }
+
+    @Test
+    void testExportAll_ShouldCompleteWithEveryResult() {
+        stubCursor();
+
+        List<ExportResult> results = exportService.exportAll(List.of(
+                ExportRequest.of("purchase_orders", dir.resolve("a.ndjson")),
+                ExportRequest.of("purchase_orders", dir.resolve("b.ndjson")))).join();
+
+        assertEquals(2, results.size());
+        assertEquals(dir.resolve("a.ndjson").toAbsolutePath(), results.get(0).getFile());
+        assertTrue(Files.exists(dir.resolve("b.ndjson")));
+    }
+}
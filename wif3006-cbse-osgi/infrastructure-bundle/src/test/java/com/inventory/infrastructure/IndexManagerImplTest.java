@@ -0,0 +1,154 @@
+package com.inventory.infrastructure;
+
+import com.inventory.api.mongo.IndexDefinition;
+import com.inventory.api.mongo.MongoConnectionService;
+import com.mongodb.MongoCommandException;
+import com.mongodb.ServerAddress;
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.ListIndexesIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.IndexOptions;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class IndexManagerImplTest {
+
+    private static final IndexDefinition BY_SALES_ORDER =
+            IndexDefinition.ascending("sales_order_items", "salesOrderId");
+    private static final IndexDefinition BY_PRODUCT =
+            IndexDefinition.ascending("sales_order_items", "productId");
+
+    @Mock
+    private MongoConnectionService connectionService;
+
+    @Mock
+    private MongoDatabase database;
+
+    @Mock
+    private MongoCollection<Document> collection;
+
+    @Mock
+    private ListIndexesIterable<Document> listIndexes;
+
+    @Mock
+    private AggregateIterable<Document> stats;
+
+    @InjectMocks
+    private IndexManagerImpl indexManager;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(connectionService.getDatabase()).thenReturn(database);
+        lenient().when(database.getCollection("sales_order_items")).thenReturn(collection);
+        lenient().when(collection.listIndexes()).thenReturn(listIndexes);
+    }
+
+    // Makes listIndexes() report the given index names
+    private void existingIndexes(String... names) {
+        when(listIndexes.into(any())).thenAnswer(invocation -> {
+            Collection<Document> target = invocation.getArgument(0);
+            for (String name : names) target.add(new Document("name", name));
+            return target;
+        });
+    }
+
+    @Test
+    void testAscending_ShouldUseMongoDefaultName() {
+        assertEquals("salesOrderId_1", BY_SALES_ORDER.getName());
+        assertEquals("a_1_b_1", IndexDefinition.ascending("c", "a", "b").getName());
+        assertEquals("sales_order_items.salesOrderId_1", BY_SALES_ORDER.toString());
+    }
+
+    @Test
+    void testEnsureIndexes_ShouldCreateOnlyMissingIndexes() {
+        existingIndexes("_id_", "salesOrderId_1");
+
+        indexManager.ensureIndexes(List.of(BY_SALES_ORDER, BY_PRODUCT));
+
+        ArgumentCaptor<IndexOptions> options = ArgumentCaptor.forClass(IndexOptions.class);
+        verify(collection, times(1)).createIndex(any(Bson.class), options.capture());
+        assertEquals("productId_1", options.getValue().getName());
+    }
+
+    @Test
+    void testEnsureIndexes_ShouldApplyUniqueOption() {
+        existingIndexes("_id_");
+
+        indexManager.ensureIndexes(List.of(BY_SALES_ORDER.unique()));
+
+        ArgumentCaptor<IndexOptions> options = ArgumentCaptor.forClass(IndexOptions.class);
+        verify(collection).createIndex(any(Bson.class), options.capture());
+        assertTrue(options.getValue().isUnique());
+    }
+
+    @Test
+    void testEnsureIndexes_WhenOneIndexFails_ShouldContinueAndReportItMissing() {
+        existingIndexes("_id_");
+        MongoCommandException duplicateData = new MongoCommandException(
+                new BsonDocument(), new ServerAddress());
+        when(collection.createIndex(any(Bson.class), any(IndexOptions.class)))
+                .thenThrow(duplicateData)
+                .thenReturn("productId_1");
+
+        indexManager.ensureIndexes(List.of(BY_SALES_ORDER.unique(), BY_PRODUCT));
+
+        verify(collection, times(2)).createIndex(any(Bson.class), any(IndexOptions.class));
+        assertTrue(indexManager.findMissingIndexes().stream()
+                .anyMatch(definition -> definition.getName().equals("salesOrderId_1")));
+    }
+
+    @Test
+    void testFindMissingIndexes_WhenAllPresent_ShouldReturnEmpty() {
+        existingIndexes("_id_", "salesOrderId_1", "productId_1");
+
+        indexManager.ensureIndexes(List.of(BY_SALES_ORDER, BY_PRODUCT));
+
+        assertTrue(indexManager.findMissingIndexes().isEmpty());
+        verify(collection, never()).createIndex(any(Bson.class), any(IndexOptions.class));
+    }
+
+    @Test
+    void testFindUnusedIndexes_ShouldReportIndexesWithoutOps() {
+        existingIndexes("_id_", "salesOrderId_1", "productId_1");
+        indexManager.ensureIndexes(List.of(BY_SALES_ORDER, BY_PRODUCT));
+
+        when(collection.aggregate(anyList())).thenReturn(stats);
+        when(stats.into(any())).thenAnswer(invocation -> {
+            Collection<Document> target = invocation.getArgument(0);
+            target.addAll(Arrays.asList(
+                    new Document("name", "_id_").append("accesses", new Document("ops", 0L)),
+                    new Document("name", "salesOrderId_1").append("accesses", new Document("ops", 12L)),
+                    new Document("name", "productId_1").append("accesses", new Document("ops", 0L))));
+            return target;
+        });
+
+        assertEquals(List.of("sales_order_items.productId_1"), indexManager.findUnusedIndexes());
+    }
+
+    @Test
+    void testEnsureIndexes_WhenDatabaseUnavailable_ShouldDoNothing() {
+        when(connectionService.getDatabase()).thenReturn(null);
+
+        indexManager.ensureIndexes(List.of(BY_SALES_ORDER));
+
+        verifyNoInteractions(database);
+    }
+}
@@ -0,0 +1,104 @@
+package com.inventory.infrastructure;
+
+import com.inventory.api.codec.PurchaseOrderCodec;
+import com.inventory.api.codec.SalesOrderCodec;
+import com.inventory.api.purchaseorder.model.PurchaseOrder;
+import com.inventory.api.salesorder.model.SalesOrder;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.connection.ConnectionPoolSettings;
+import org.bson.Document;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MongoConnectionServiceImplTest {
+
+    private static final String URI = "mongodb://localhost:27017";
+
+    @AfterEach
+    void tearDown() {
+        System.clearProperty("mongodb.uri");
+    }
+
+    // Builds a Config the same way SCR does: annotation defaults unless overridden
+    private MongoConnectionServiceImpl.Config config(Map<String, Object> overrides) {
+        return (MongoConnectionServiceImpl.Config) Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class<?>[]{MongoConnectionServiceImpl.Config.class},
+                (proxy, method, args) -> overrides.containsKey(method.getName())
+                        ? overrides.get(method.getName())
+                        : method.getDefaultValue());
+    }
+
+    @Test
+    void testBuildSettings_ShouldApplyDefaultPoolSettings() {
+        MongoClientSettings settings = MongoConnectionServiceImpl.buildSettings(config(new HashMap<>()), URI);
+        ConnectionPoolSettings pool = settings.getConnectionPoolSettings();
+
+        assertEquals(20, pool.getMaxSize());
+        assertEquals(0, pool.getMinSize());
+        assertEquals(2, pool.getMaxConnecting());
+        assertEquals(60000, pool.getMaxConnectionIdleTime(TimeUnit.MILLISECONDS));
+        assertEquals(5000, pool.getMaxWaitTime(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testBuildSettings_ShouldApplyConfiguredPoolSettings() {
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put("maxPoolSize", 50);
+        overrides.put("minPoolSize", 5);
+        overrides.put("maxIdleTimeMs", 30000L);
+        overrides.put("maxWaitTimeMs", 250L);
+
+        ConnectionPoolSettings pool = MongoConnectionServiceImpl.buildSettings(config(overrides), URI)
+                .getConnectionPoolSettings();
+
+        assertEquals(50, pool.getMaxSize());
+        assertEquals(5, pool.getMinSize());
+        assertEquals(30000, pool.getMaxConnectionIdleTime(TimeUnit.MILLISECONDS));
+        assertEquals(250, pool.getMaxWaitTime(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testBuildSettings_ShouldRegisterModelCodecsBeforeDriverDefaults() {
+        CodecRegistry registry = MongoConnectionServiceImpl.buildSettings(config(new HashMap<>()), URI)
+                .getCodecRegistry();
+
+        assertInstanceOf(SalesOrderCodec.class, registry.get(SalesOrder.class));
+        assertInstanceOf(PurchaseOrderCodec.class, registry.get(PurchaseOrder.class));
+        assertNotNull(registry.get(Document.class));
+    }
+
+    @Test
+    void testResolveUri_WhenNotConfigured_ShouldFallBackToSystemProperty() {
+        System.setProperty("mongodb.uri", URI);
+
+        assertEquals(URI, MongoConnectionServiceImpl.resolveUri(config(new HashMap<>())));
+    }
+
+    @Test
+    void testResolveUri_WhenConfigured_ShouldPreferConfiguration() {
+        System.setProperty("mongodb.uri", URI);
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put("uri", "mongodb://other-host:27017");
+
+        assertEquals("mongodb://other-host:27017", MongoConnectionServiceImpl.resolveUri(config(overrides)));
+    }
+
+    @Test
+    void testActivate_WhenUriMissing_ShouldNotCreateClient() {
+        MongoConnectionServiceImpl service = new MongoConnectionServiceImpl();
+
+        service.activate(config(new HashMap<>()));
+
+        assertNull(service.getClient());
+        assertNull(service.getDatabase());
+    }
+}
@@ -0,0 +1,127 @@
+package com.inventory.infrastructure;
+
+import com.inventory.api.cache.CacheInvalidation;
+import com.inventory.api.cache.CacheStats;
+import com.inventory.api.cache.ReferenceData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReferenceDataCacheImplTest {
+
+    // Stands in for a collection: the loader returns whatever it holds at the time
+    private final List<String> rows = new ArrayList<>();
+    private final AtomicInteger loads = new AtomicInteger();
+    private boolean failing;
+
+    private ReferenceData<String, String> taxes;
+    private ReferenceDataCacheImpl cache;
+
+    @BeforeEach
+    void setUp() {
+        rows.clear();
+        rows.add("GST");
+        rows.add("SST");
+        taxes = new ReferenceData<>("taxes", String::toLowerCase, () -> {
+            loads.incrementAndGet();
+            if (failing) throw new IllegalStateException("connection lost");
+            return new ArrayList<>(rows);
+        });
+        cache = new ReferenceDataCacheImpl();
+    }
+
+    // =================== REFERENCE DATA ===================
+
+    @Test
+    void testFirstRead_ShouldLoadOnceAndCountAsMiss() {
+        assertEquals(List.of("GST", "SST"), taxes.getAll());
+        assertEquals("GST", taxes.get("gst"));
+        assertNull(taxes.get("vat"));
+
+        CacheStats stats = taxes.getStats();
+        assertEquals(1, loads.get());
+        assertEquals(1, stats.getVersion());
+        assertEquals(1, stats.getHits());
+        assertEquals(2, stats.getMisses());
+    }
+
+    @Test
+    void testRefresh_ShouldSwapInANewVersionWithoutTouchingOldSnapshots() {
+        List<String> before = taxes.getAll();
+        rows.add("VAT");
+
+        assertTrue(taxes.refresh());
+
+        assertEquals(2, taxes.getVersion());
+        assertEquals("VAT", taxes.get("vat"));
+        assertEquals(2, before.size());
+        assertThrows(UnsupportedOperationException.class, () -> taxes.getAll().add("X"));
+    }
+
+    @Test
+    void testFailedRefresh_ShouldKeepThePreviousSnapshotAndRetryOnRead() {
+        taxes.refresh();
+        failing = true;
+
+        assertFalse(taxes.refresh());
+        assertEquals(1, taxes.getVersion());
+
+        // Still serves the old data; the next read retries the load
+        assertEquals("SST", taxes.get("sst"));
+        failing = false;
+        assertEquals(2, taxes.getAll().size());
+        assertEquals(2, taxes.getVersion());
+        assertEquals(4, loads.get());
+    }
+
+    // =================== REGISTRY ===================
+
+    @Test
+    void testRegister_ShouldLoadAndRefreshByName() {
+        cache.register(taxes);
+        assertEquals(1, taxes.getVersion());
+
+        rows.remove("SST");
+        assertTrue(cache.refresh("taxes"));
+        assertFalse(cache.refresh("warehouses"));
+
+        assertNull(taxes.get("sst"));
+        assertEquals(1, cache.getStats().size());
+        assertEquals(1, cache.getStats().get(0).getSize());
+    }
+
+    @Test
+    void testInvalidate_ShouldReloadOnlyTheAffectedSets() {
+        ReferenceData<String, String> groups = new ReferenceData<>("product_groups", String::toLowerCase, List::of);
+        cache.register(taxes);
+        cache.register(groups);
+
+        cache.invalidate(CacheInvalidation.ofDocument("taxes", "T1", "update"));
+        assertEquals(2, taxes.getVersion());
+        assertEquals(1, groups.getVersion());
+
+        cache.invalidate(CacheInvalidation.everything());
+        assertEquals(3, taxes.getVersion());
+        assertEquals(2, groups.getVersion());
+        assertEquals(Set.of("taxes", "product_groups"), cache.getCollections());
+    }
+
+    @Test
+    void testUnregister_ReplacedSet_ShouldKeepTheNewerRegistration() {
+        ReferenceData<String, String> newer = new ReferenceData<>("taxes", String::toLowerCase, () -> rows);
+        cache.register(taxes);
+        cache.register(newer);
+
+        cache.unregister(taxes);
+
+        assertEquals(1, cache.getStats().size());
+        assertTrue(cache.refresh("taxes"));
+        assertEquals(2, newer.getVersion());
+    }
+}
@@ -0,0 +1,246 @@
+package com.inventory.infrastructure;
+
+import com.inventory.api.mongo.BsonConversion;
+import com.inventory.api.mongo.SchemaMigration;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SchemaMigrationServiceImplTest {
+
+    private static final SchemaMigration MIGRATION = SchemaMigration.version(1, "Native types")
+            .convert("sales_orders", "orderDate", BsonConversion.DATE)
+            .convert("sales_orders", "beforeTaxAmount", BsonConversion.DECIMAL128);
+
+    @Mock
+    private MongoDatabase database;
+
+    @Mock
+    private MongoCollection<Document> migrationCollection;
+
+    @Mock
+    private MongoCollection<Document> orderCollection;
+
+    @Mock
+    private FindIterable<Document> findIterable;
+
+    @Mock
+    private MongoCursor<Document> firstPass;
+
+    @Mock
+    private MongoCursor<Document> secondPass;
+
+    @Mock
+    private BulkWriteResult bulkWriteResult;
+
+    @Captor
+    private ArgumentCaptor<List<WriteModel<Document>>> writes;
+
+    private SchemaMigrationServiceImpl migrationService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        migrationService = new SchemaMigrationServiceImpl();
+        setField(migrationService, "database", database);
+        setField(migrationService, "migrationCollection", migrationCollection);
+    }
+
+    private void setField(Object target, String fieldName, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    private static Date startOfDay(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    // =================== CONVERSIONS ===================
+
+    @Test
+    void testConvert_ShouldTurnLegacyValuesIntoNativeTypes() {
+        Document legacy = new Document("_id", new ObjectId())
+                .append("orderDate", "2024-01-31")
+                .append("amount", "12.50")
+                .append("quantity", 3.0);
+
+        Document changes = SchemaMigrationServiceImpl.convert(legacy, Map.of(
+                "orderDate", BsonConversion.DATE,
+                "amount", BsonConversion.DECIMAL128,
+                "quantity", BsonConversion.INT32));
+
+        assertEquals(startOfDay(LocalDate.of(2024, 1, 31)), changes.get("orderDate"));
+        assertEquals(Decimal128.parse("12.50"), changes.get("amount"));
+        assertEquals(3, changes.get("quantity"));
+    }
+
+    @Test
+    void testConvert_NativeOrUnparseableValues_ShouldBeLeftOut() {
+        Document document = new Document("orderDate", new Date())
+                .append("amount", "n/a")
+                .append("quantity", 2.5)
+                .append("count", 4);
+
+        Document changes = SchemaMigrationServiceImpl.convert(document, Map.of(
+                "orderDate", BsonConversion.DATE,
+                "amount", BsonConversion.DECIMAL128,
+                "quantity", BsonConversion.INT32,
+                "count", BsonConversion.INT32,
+                "missing", BsonConversion.DATE));
+
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    void testConvert_ArrayField_ShouldRewriteEveryElementOnce() {
+        Document order = new Document("orderItems", List.of(
+                new Document("itemName", "Bolt").append("quantity", "4").append("pricePerItem", 1.25),
+                new Document("itemName", "Nut").append("quantity", 10).append("pricePerItem", 0.5)));
+
+        Document changes = SchemaMigrationServiceImpl.convert(order, Map.of(
+                "orderItems.quantity", BsonConversion.INT32,
+                "orderItems.pricePerItem", BsonConversion.DECIMAL128));
+
+        List<?> items = changes.getList("orderItems", Document.class);
+        assertEquals(2, items.size());
+        assertEquals(4, ((Document) items.get(0)).get("quantity"));
+        assertEquals(Decimal128.parse("1.25"), ((Document) items.get(0)).get("pricePerItem"));
+        assertEquals(Decimal128.parse("0.5"), ((Document) items.get(1)).get("pricePerItem"));
+        assertEquals("Nut", ((Document) items.get(1)).getString("itemName"));
+    }
+
+    @Test
+    void testLegacyFilter_ShouldMatchAnyFieldStillInALegacyType() {
+        BsonDocument filter = SchemaMigrationServiceImpl.legacyFilter(MIGRATION.getConversions("sales_orders")).toBsonDocument();
+
+        assertEquals(2, filter.getArray("$or").size());
+        BsonDocument dateClause = filter.getArray("$or").get(0).asDocument().getDocument("orderDate");
+        assertEquals(2, dateClause.getArray("$type").get(0).asInt32().getValue()); // string
+    }
+
+    // =================== RUNNER ===================
+
+    @Test
+    void testSubmit_WhenAlreadyApplied_ShouldNotTouchTheDatabase() throws Exception {
+        @SuppressWarnings("unchecked")
+        Set<Integer> applied = (Set<Integer>) getField("applied");
+        applied.add(1);
+
+        CompletableFuture<Long> result = migrationService.submit(MIGRATION);
+
+        assertEquals(0L, result.join());
+        assertTrue(migrationService.isApplied(1));
+        verifyNoInteractions(migrationCollection, database);
+    }
+
+    @Test
+    void testSubmit_VersionUsedByAnotherMigration_ShouldFail() {
+        when(migrationCollection.findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class)))
+                .thenReturn(new Document("_id", 1).append("description", "Something else"));
+
+        CompletableFuture<Long> result = migrationService.submit(MIGRATION);
+
+        CompletionException error = assertThrows(CompletionException.class, result::join);
+        assertTrue(error.getCause().getMessage().contains("Something else"));
+        assertFalse(migrationService.isApplied(1));
+        verify(database, never()).getCollection(anyString());
+    }
+
+    @Test
+    void testMigrateCollection_ShouldBulkWriteGuardedUpdatesAndCheckpoint() {
+        ObjectId id = new ObjectId();
+        when(database.getCollection("sales_orders")).thenReturn(orderCollection);
+        when(orderCollection.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.sort(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.batchSize(SchemaMigrationServiceImpl.BATCH_SIZE)).thenReturn(findIterable);
+        // First pass converts the document, the second finds nothing left
+        when(findIterable.iterator()).thenReturn(firstPass).thenReturn(secondPass);
+        when(firstPass.hasNext()).thenReturn(true, false);
+        when(firstPass.next()).thenReturn(new Document("_id", id)
+                .append("orderDate", "2024-05-01")
+                .append("beforeTaxAmount", new Decimal128(BigDecimal.TEN)));
+        when(secondPass.hasNext()).thenReturn(false);
+        when(orderCollection.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenReturn(bulkWriteResult);
+        when(bulkWriteResult.getModifiedCount()).thenReturn(1);
+
+        long converted = migrationService.migrateCollection(MIGRATION, "sales_orders", null);
+
+        assertEquals(1, converted);
+        verify(orderCollection).bulkWrite(writes.capture(), any(BulkWriteOptions.class));
+        UpdateOneModel<Document> update = (UpdateOneModel<Document>) writes.getValue().get(0);
+
+        // Guarded on _id and the value that was read; only the legacy field is set
+        BsonDocument guard = update.getFilter().toBsonDocument();
+        assertEquals(id, guard.getArray("$and").get(0).asDocument().getObjectId("_id").getValue());
+        assertEquals("2024-05-01", guard.getArray("$and").get(1).asDocument().getString("orderDate").getValue());
+        BsonDocument set = update.getUpdate().toBsonDocument().getDocument("$set");
+        assertEquals(startOfDay(LocalDate.of(2024, 5, 1)).getTime(), set.getDateTime("orderDate").getValue());
+        assertFalse(set.containsKey("beforeTaxAmount"));
+
+        ArgumentCaptor<Bson> checkpoint = ArgumentCaptor.forClass(Bson.class);
+        verify(migrationCollection).updateOne(any(Bson.class), checkpoint.capture());
+        assertEquals(id, checkpoint.getValue().toBsonDocument().getDocument("$set")
+                .getObjectId("checkpoints.sales_orders").getValue());
+    }
+
+    @Test
+    void testMigrateCollection_ResumedFromCheckpoint_ShouldStartAfterItThenRescan() {
+        ObjectId checkpoint = new ObjectId();
+        when(database.getCollection("sales_orders")).thenReturn(orderCollection);
+        ArgumentCaptor<Bson> filters = ArgumentCaptor.forClass(Bson.class);
+        when(orderCollection.find(filters.capture())).thenReturn(findIterable);
+        when(findIterable.sort(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.batchSize(anyInt())).thenReturn(findIterable);
+        when(findIterable.iterator()).thenReturn(firstPass).thenReturn(secondPass);
+        when(firstPass.hasNext()).thenReturn(false);
+        when(secondPass.hasNext()).thenReturn(false);
+
+        assertEquals(0, migrationService.migrateCollection(MIGRATION, "sales_orders", checkpoint));
+
+        // Resumed pass skips what is behind the checkpoint; the closing pass starts from the beginning
+        BsonDocument resumed = filters.getAllValues().get(0).toBsonDocument();
+        assertEquals(checkpoint, resumed.getArray("$and").get(0).asDocument().getDocument("_id").getObjectId("$gt").getValue());
+        assertTrue(filters.getAllValues().get(1).toBsonDocument().containsKey("$or"));
+        verify(orderCollection, never()).bulkWrite(anyList(), any(BulkWriteOptions.class));
+    }
+
+    private Object getField(String fieldName) throws Exception {
+        Field field = SchemaMigrationServiceImpl.class.getDeclaredField(fieldName);
+        field.setAccessible(true);
+        return field.get(migrationService);
+    }
+}
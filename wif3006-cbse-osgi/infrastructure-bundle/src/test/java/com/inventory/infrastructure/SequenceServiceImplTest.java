@@ -0,0 +1,120 @@
+package com.inventory.infrastructure;
+
+import com.mongodb.MongoWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.WriteError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.UpdateOptions;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.lang.reflect.Field;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SequenceServiceImplTest {
+
+    private static final String SEQ = "purchase_order_id";
+
+    @Mock
+    private MongoCollection<Document> counterCollection;
+
+    private SequenceServiceImpl sequenceService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        sequenceService = new SequenceServiceImpl();
+        setField(sequenceService, "counterCollection", counterCollection);
+    }
+
+    private void setField(Object target, String fieldName, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    @Test
+    void testNext_WithBlockSizeOne_ShouldHitDatabaseEveryCall() {
+        when(counterCollection.findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class)))
+                .thenReturn(new Document("seq", 1L), new Document("seq", 2L));
+
+        assertEquals(1, sequenceService.next(SEQ));
+        assertEquals(2, sequenceService.next(SEQ));
+        verify(counterCollection, times(2))
+                .findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class));
+    }
+
+    @Test
+    void testNext_WithBlockSize_ShouldServeBlockFromMemory() throws Exception {
+        setField(sequenceService, "blockSize", 5);
+        // Counter was at 10, one $inc of 5 reserves 11..15
+        when(counterCollection.findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class)))
+                .thenReturn(new Document("seq", 15L), new Document("seq", 20L));
+
+        for (long expected = 11; expected <= 15; expected++) {
+            assertEquals(expected, sequenceService.next(SEQ));
+        }
+        assertEquals(16, sequenceService.next(SEQ));
+        verify(counterCollection, times(2))
+                .findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class));
+    }
+
+    @Test
+    void testNext_ShouldUpsertCounter() {
+        when(counterCollection.findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class)))
+                .thenReturn(new Document("seq", 1));
+
+        sequenceService.next(SEQ);
+
+        ArgumentCaptor<FindOneAndUpdateOptions> options = ArgumentCaptor.forClass(FindOneAndUpdateOptions.class);
+        verify(counterCollection).findOneAndUpdate(any(Bson.class), any(Bson.class), options.capture());
+        assertTrue(options.getValue().isUpsert());
+    }
+
+    @Test
+    void testNext_WhenFirstUpsertRacesOnDuplicateKey_ShouldRetry() {
+        MongoWriteException duplicateKey = new MongoWriteException(
+                new WriteError(11000, "E11000 duplicate key error", new BsonDocument()), new ServerAddress());
+        when(counterCollection.findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class)))
+                .thenThrow(duplicateKey)
+                .thenReturn(new Document("seq", 2L));
+
+        assertEquals(2, sequenceService.next(SEQ));
+    }
+
+    @Test
+    void testNext_WhenDatabaseUnavailable_ShouldThrow() throws Exception {
+        setField(sequenceService, "counterCollection", null);
+
+        assertThrows(IllegalStateException.class, () -> sequenceService.next(SEQ));
+    }
+
+    @Test
+    void testEnsureAtLeast_ShouldUpsertWithMax() {
+        sequenceService.ensureAtLeast(SEQ, 42);
+
+        ArgumentCaptor<Bson> update = ArgumentCaptor.forClass(Bson.class);
+        ArgumentCaptor<UpdateOptions> options = ArgumentCaptor.forClass(UpdateOptions.class);
+        verify(counterCollection).updateOne(any(Bson.class), update.capture(), options.capture());
+        assertTrue(update.getValue().toBsonDocument().containsKey("$max"));
+        assertTrue(options.getValue().isUpsert());
+    }
+
+    @Test
+    void testEnsureAtLeast_WithZeroFloor_ShouldDoNothing() {
+        sequenceService.ensureAtLeast(SEQ, 0);
+
+        verifyNoInteractions(counterCollection);
+    }
+}
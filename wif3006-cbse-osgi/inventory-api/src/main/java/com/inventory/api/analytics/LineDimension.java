@@ -0,0 +1,18 @@
+package com.inventory.api.analytics;
+
+/**
+ * What the in-memory sales line analytics can group order lines by.
+ */
+public enum LineDimension {
+
+    // The hex id of the product
+    PRODUCT,
+    // The hex id of the customer
+    CUSTOMER,
+    // The hex id of the sales order; one group per basket
+    ORDER,
+    // The order date; keys are yyyy-MM-dd
+    DAY,
+    // The month of the order date; keys are yyyy-MM
+    MONTH
+}
@@ -0,0 +1,36 @@
+package com.inventory.api.analytics;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Sums of the order lines under one combination of keys, one key per dimension grouped by
+ * (no keys for a query without dimensions). Revenue is before tax, rounded to cents. Immutable.
+ */
+public final class LineGroup {
+
+    private final List<String> keys;
+    private final long quantity;
+    private final BigDecimal revenue;
+    private final long lines;
+
+    public LineGroup(List<String> keys, long quantity, BigDecimal revenue, long lines) {
+        this.keys = List.copyOf(keys);
+        this.quantity = quantity;
+        this.revenue = revenue != null ? revenue : BigDecimal.ZERO;
+        this.lines = lines;
+    }
+
+    // In the order of the query's dimensions
+    public List<String> getKeys() { return keys; }
+    public String getKey(int index) { return keys.get(index); }
+    public long getQuantity() { return quantity; }
+    public BigDecimal getRevenue() { return revenue; }
+    // Order lines summed in; for product pairs, the orders holding both
+    public long getLines() { return lines; }
+
+    @Override
+    public String toString() {
+        return keys + ": qty=" + quantity + " revenue=" + revenue + " lines=" + lines;
+    }
+}
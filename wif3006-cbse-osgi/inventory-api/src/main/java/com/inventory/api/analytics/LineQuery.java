@@ -0,0 +1,72 @@
+package com.inventory.api.analytics;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Which order lines to sum and what to group them by.
+ *
+ * Immutable; each setter returns a copy. Filters combine with AND; an empty product or customer
+ * set means all of them. Date ranges are inclusive at both ends; a null end is open.
+ */
+public final class LineQuery {
+
+    private final List<LineDimension> dimensions;
+    private final LocalDate from;
+    private final LocalDate to;
+    private final Set<String> productIds;
+    private final Set<String> customerIds;
+    private final int limit;
+
+    private LineQuery(List<LineDimension> dimensions, LocalDate from, LocalDate to,
+                      Set<String> productIds, Set<String> customerIds, int limit) {
+        this.dimensions = dimensions;
+        this.from = from;
+        this.to = to;
+        this.productIds = productIds;
+        this.customerIds = customerIds;
+        this.limit = limit;
+    }
+
+    // One group per distinct combination of the dimensions, in that order; none sums everything into one
+    public static LineQuery groupBy(LineDimension... dimensions) {
+        List<LineDimension> list = List.copyOf(Arrays.asList(dimensions));
+        if (list.size() != Set.copyOf(list).size()) throw new IllegalArgumentException("A dimension can only be grouped by once");
+        return new LineQuery(list, null, null, Set.of(), Set.of(), 0);
+    }
+
+    public LineQuery between(LocalDate from, LocalDate to) {
+        return new LineQuery(dimensions, from, to, productIds, customerIds, limit);
+    }
+
+    public LineQuery products(Collection<String> productIds) {
+        return new LineQuery(dimensions, from, to, Set.copyOf(productIds), customerIds, limit);
+    }
+
+    public LineQuery customers(Collection<String> customerIds) {
+        return new LineQuery(dimensions, from, to, productIds, Set.copyOf(customerIds), limit);
+    }
+
+    // Most groups returned, after sorting; 0 = all
+    public LineQuery limit(int limit) {
+        if (limit < 0) throw new IllegalArgumentException("Limit cannot be negative");
+        return new LineQuery(dimensions, from, to, productIds, customerIds, limit);
+    }
+
+    public List<LineDimension> getDimensions() { return dimensions; }
+    public LocalDate getFrom() { return from; }
+    public LocalDate getTo() { return to; }
+    public Set<String> getProductIds() { return productIds; }
+    public Set<String> getCustomerIds() { return customerIds; }
+    public int getLimit() { return limit; }
+
+    @Override
+    public String toString() {
+        return "group by " + dimensions + " from " + from + " to " + to
+                + (productIds.isEmpty() ? "" : " products " + productIds)
+                + (customerIds.isEmpty() ? "" : " customers " + customerIds);
+    }
+}
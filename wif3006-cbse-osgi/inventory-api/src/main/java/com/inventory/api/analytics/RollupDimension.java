@@ -0,0 +1,25 @@
+package com.inventory.api.analytics;
+
+/**
+ * What a sales rollup bucket is keyed by, and the field of "sales_rollups" that holds it.
+ */
+public enum RollupDimension {
+
+    // The order date; keys are yyyy-MM-dd
+    DAY("day"),
+    // The hex id of the customer
+    CUSTOMER("customerId"),
+    PRODUCT("productId"),
+    // The id of the order's tax (null for orders without one)
+    TAX("taxId");
+
+    private final String field;
+
+    RollupDimension(String field) {
+        this.field = field;
+    }
+
+    public String getField() {
+        return field;
+    }
+}
@@ -0,0 +1,37 @@
+package com.inventory.api.analytics;
+
+import java.math.BigDecimal;
+
+/**
+ * Sums of the sales rollup buckets under one key of a dimension (or of a whole range, key null).
+ * Revenue is before tax: unit price times quantity over the order lines. Immutable.
+ */
+public final class RollupTotal {
+
+    private final String key;
+    private final long quantity;
+    private final BigDecimal revenue;
+    private final long lines;
+
+    public RollupTotal(String key, long quantity, BigDecimal revenue, long lines) {
+        this.key = key;
+        this.quantity = quantity;
+        this.revenue = revenue != null ? revenue : BigDecimal.ZERO;
+        this.lines = lines;
+    }
+
+    public static RollupTotal empty(String key) {
+        return new RollupTotal(key, 0, BigDecimal.ZERO, 0);
+    }
+
+    public String getKey() { return key; }
+    public long getQuantity() { return quantity; }
+    public BigDecimal getRevenue() { return revenue; }
+    // Order lines summed in
+    public long getLines() { return lines; }
+
+    @Override
+    public String toString() {
+        return key + ": qty=" + quantity + " revenue=" + revenue + " lines=" + lines;
+    }
+}
@@ -0,0 +1,32 @@
+package com.inventory.api.analytics;
+
+import java.util.List;
+
+/**
+ * Ad-hoc reports over every sales order line, answered from memory, published by the optional
+ * analytics bundle.
+ *
+ * The lines of "sales_order_items" are held column by column together with their order's
+ * customer and date, so a group-by scans primitive arrays in parallel and never reads the
+ * database. What it answers is as fresh as the last refresh: orders changed since are picked up
+ * from the change stream, or by their editedAt stamp where there is none. Cancelled orders and
+ * orders without a date are left out, as in the sales rollups.
+ */
+public interface SalesLineAnalytics {
+
+    // Groups sorted chronologically when the first dimension is DAY or MONTH, otherwise by revenue, highest first
+    List<LineGroup> query(LineQuery query);
+
+    // Products sold together: one group per pair of products (keys in id order) found in the same
+    // order, lines = the orders holding both, sorted by that count. Only the query's filters and limit apply.
+    List<LineGroup> productPairs(LineQuery query);
+
+    // Re-reads the orders changed since the last refresh; returns how many were re-read
+    int refresh();
+
+    // Reads every order again; returns the number of lines held
+    long reload();
+
+    // Lines currently held, cancelled and deleted orders excluded
+    long getLineCount();
+}
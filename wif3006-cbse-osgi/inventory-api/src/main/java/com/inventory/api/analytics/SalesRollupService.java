@@ -0,0 +1,35 @@
+package com.inventory.api.analytics;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Daily sales totals in "sales_rollups", one bucket per day, customer, product and tax, published
+ * by the sales order bundle.
+ *
+ * The sales order service re-rolls an order after each of its writes, so a bucket is kept up to
+ * date with $inc of the difference rather than by reading the orders again. Queries sum buckets
+ * only, so their cost follows the days in the range, not the orders behind them. Cancelled orders and orders
+ * without a date are left out. Date ranges are inclusive at both ends; a null end is open.
+ */
+public interface SalesRollupService {
+
+    // Replaces the order's contribution with what it holds now (nothing once it is deleted or cancelled)
+    void refreshOrder(String orderId);
+
+    // Recomputes every bucket from the orders with $merge and drops the ones no order feeds any more;
+    // returns the number of buckets. Also the repair for drift, best run while no orders are entered.
+    long rebuild();
+
+    // Everything sold in the range
+    RollupTotal getTotal(LocalDate from, LocalDate to);
+
+    // What one key of the dimension (a customer, a product, ...) sold in the range
+    RollupTotal getTotal(RollupDimension dimension, String key, LocalDate from, LocalDate to);
+
+    // One total per key of the dimension: by day in date order, otherwise by revenue, highest first
+    List<RollupTotal> getTotalsBy(RollupDimension dimension, LocalDate from, LocalDate to);
+
+    // The limit keys of the dimension with the most revenue in the range
+    List<RollupTotal> getTopBy(RollupDimension dimension, LocalDate from, LocalDate to, int limit);
+}
@@ -0,0 +1,71 @@
+package com.inventory.api.cache;
+
+import java.util.Map;
+
+/**
+ * A change to cached data, made by this or another application instance.
+ *
+ * Either one document (collection and documentId set), a whole collection (documentId null, e.g.
+ * after a drop) or everything (both null - changes may have been missed, e.g. the change stream
+ * could not be resumed).
+ *
+ * A document change may also carry a few fields of the document after the change (e.g. the
+ * customerId of a sales order), so a cache keyed by something else than _id can evict one entry.
+ */
+public final class CacheInvalidation {
+
+    private static final CacheInvalidation EVERYTHING = new CacheInvalidation(null, null, "reset", Map.of());
+
+    private final String collection;
+    private final String documentId;
+    private final String operation;
+    private final Map<String, String> fields;
+
+    private CacheInvalidation(String collection, String documentId, String operation, Map<String, String> fields) {
+        this.collection = collection;
+        this.documentId = documentId;
+        this.operation = operation;
+        this.fields = fields;
+    }
+
+    // documentId is the _id as a string (hex for ObjectIds)
+    public static CacheInvalidation ofDocument(String collection, String documentId, String operation) {
+        return new CacheInvalidation(collection, documentId, operation, Map.of());
+    }
+
+    // fields: values of the changed document as strings, as far as the sender knows them
+    public static CacheInvalidation ofDocument(String collection, String documentId, String operation,
+                                               Map<String, String> fields) {
+        return new CacheInvalidation(collection, documentId, operation, Map.copyOf(fields));
+    }
+
+    public static CacheInvalidation ofCollection(String collection, String operation) {
+        return new CacheInvalidation(collection, null, operation, Map.of());
+    }
+
+    public static CacheInvalidation everything() {
+        return EVERYTHING;
+    }
+
+    public String getCollection() { return collection; }
+    public String getDocumentId() { return documentId; }
+    // The change stream operation type: insert, update, replace, delete, drop, rename, ...
+    public String getOperation() { return operation; }
+    // Null when the change did not carry it (e.g. a delete, which has no document after it)
+    public String getField(String name) { return fields.get(name); }
+
+    public boolean isEverything() {
+        return collection == null;
+    }
+
+    // True when cached data read from that collection may be stale
+    public boolean affects(String name) {
+        return collection == null || collection.equals(name);
+    }
+
+    @Override
+    public String toString() {
+        if (collection == null) return "everything";
+        return operation + " " + collection + (documentId != null ? "/" + documentId : "");
+    }
+}
@@ -0,0 +1,18 @@
+package com.inventory.api.cache;
+
+import java.util.Set;
+
+/**
+ * Registered (as an OSGi service) by a component that caches data read from MongoDB.
+ *
+ * The infrastructure bundle follows the collections on a change stream and calls invalidate() for
+ * each change to one of getCollections(), whichever instance of the application made it - including
+ * this one, so a cache the owning service already refreshed may be refreshed a second time.
+ * Called from the change stream thread: keep it short.
+ */
+public interface CacheInvalidationListener {
+
+    Set<String> getCollections();
+
+    void invalidate(CacheInvalidation invalidation);
+}
@@ -0,0 +1,45 @@
+package com.inventory.api.cache;
+
+/**
+ * Point-in-time counters of one ReferenceData set, for the cache report.
+ */
+public final class CacheStats {
+
+    private final String name;
+    private final long version;
+    private final int size;
+    private final long hits;
+    private final long misses;
+    private final long loads;
+    private final long loadedAt;
+
+    public CacheStats(String name, long version, int size, long hits, long misses, long loads, long loadedAt) {
+        this.name = name;
+        this.version = version;
+        this.size = size;
+        this.hits = hits;
+        this.misses = misses;
+        this.loads = loads;
+        this.loadedAt = loadedAt;
+    }
+
+    public String getName() { return name; }
+    public long getVersion() { return version; }
+    public int getSize() { return size; }
+    public long getHits() { return hits; }
+    public long getMisses() { return misses; }
+    public long getLoads() { return loads; }
+    // Epoch millis of the current snapshot, 0 when never loaded
+    public long getLoadedAt() { return loadedAt; }
+
+    public double getHitRate() {
+        long reads = hits + misses;
+        return reads == 0 ? 0 : (double) hits / reads;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s v%d: %d entries, %d hits, %d misses (%.1f%%), %d loads",
+                name, version, size, hits, misses, getHitRate() * 100, loads);
+    }
+}
@@ -0,0 +1,129 @@
+package com.inventory.api.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * In-memory copy of one small, rarely changing collection (taxes, product groups, ...).
+ *
+ * The whole collection is loaded into an immutable snapshot; reads go to the current snapshot
+ * without locking, and refresh() swaps in a new one with the next version number. The owning
+ * service calls refresh() after each of its writes. The first read loads the data when nothing
+ * did before; a failed load keeps the previous snapshot and is retried by the next read.
+ *
+ * The values are shared between callers: change them through the owning service, never in place.
+ */
+public final class ReferenceData<K, V> {
+
+    private static final class Snapshot<K, V> {
+        final long version;
+        final List<V> values;
+        final Map<K, V> byKey;
+        final long loadedAt;
+
+        Snapshot(long version, List<V> values, Map<K, V> byKey, long loadedAt) {
+            this.version = version;
+            this.values = values;
+            this.byKey = byKey;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private final String name;
+    private final Function<V, K> keyOf;
+    private final Supplier<? extends Collection<V>> loader;
+
+    private volatile Snapshot<K, V> snapshot = new Snapshot<>(0, Collections.emptyList(), Collections.emptyMap(), 0);
+    // Set when a load fails, so the next read tries again
+    private volatile boolean stale = true;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+
+    // name is the collection the data comes from; it identifies the data set in ReferenceDataCache
+    public ReferenceData(String name, Function<V, K> keyOf, Supplier<? extends Collection<V>> loader) {
+        this.name = name;
+        this.keyOf = keyOf;
+        this.loader = loader;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // Every value, in load order; a read that had to load first counts as a miss
+    public List<V> getAll() {
+        boolean mustLoad = stale;
+        Snapshot<K, V> current = current();
+        if (mustLoad) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return current.values;
+    }
+
+    // null (and a miss) when no value has the key
+    public V get(K key) {
+        Snapshot<K, V> current = current();
+        V value = key != null ? current.byKey.get(key) : null;
+        if (value != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return value;
+    }
+
+    public long getVersion() {
+        return snapshot.version;
+    }
+
+    // Reloads the collection; false (previous snapshot kept) when the load failed
+    public synchronized boolean refresh() {
+        try {
+            // A value without a key is still listed, it just cannot be looked up
+            List<V> loaded = new ArrayList<>();
+            Map<K, V> byKey = new HashMap<>();
+            for (V value : loader.get()) {
+                if (value == null) continue;
+                loaded.add(value);
+                K key = keyOf.apply(value);
+                if (key != null) byKey.put(key, value);
+            }
+            List<V> values = List.copyOf(loaded);
+            snapshot = new Snapshot<>(snapshot.version + 1, values, Collections.unmodifiableMap(byKey),
+                    System.currentTimeMillis());
+            stale = false;
+            loads.increment();
+            return true;
+        } catch (RuntimeException e) {
+            stale = true;
+            System.err.println("Reference Data: Could not load " + name + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    public CacheStats getStats() {
+        Snapshot<K, V> current = snapshot;
+        return new CacheStats(name, current.version, current.values.size(),
+                hits.sum(), misses.sum(), loads.sum(), current.loadedAt);
+    }
+
+    private Snapshot<K, V> current() {
+        if (!stale) return snapshot;
+        synchronized (this) {
+            // Another reader may have loaded it while this one waited
+            if (stale) refresh();
+            return snapshot;
+        }
+    }
+}
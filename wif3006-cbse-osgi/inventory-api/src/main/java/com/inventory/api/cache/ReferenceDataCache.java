@@ -0,0 +1,23 @@
+package com.inventory.api.cache;
+
+import java.util.List;
+
+/**
+ * Registry of the ReferenceData sets held by the service bundles.
+ *
+ * Each service registers its sets from @Activate (which loads them fully) and unregisters
+ * them from @Deactivate. The registry refreshes a set by collection name - for writes made
+ * outside the owning service - and reports the hit/miss counters of all of them.
+ */
+public interface ReferenceDataCache {
+
+    // Loads the data now; a set registered under the same name is replaced
+    void register(ReferenceData<?, ?> data);
+
+    void unregister(ReferenceData<?, ?> data);
+
+    // Reloads the set of that collection; false when none is registered or the load failed
+    boolean refresh(String name);
+
+    List<CacheStats> getStats();
+}
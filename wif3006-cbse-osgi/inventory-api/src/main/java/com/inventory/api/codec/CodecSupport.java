@@ -0,0 +1,140 @@
+package com.inventory.api.codec;
+
+import org.bson.BsonReader;
+import org.bson.BsonWriter;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Field readers/writers shared by the model codecs.
+ *
+ * Readers accept every BSON type older documents were written with (numbers as strings or
+ * doubles, dates as strings or BSON dates) and return null/0 for a null value, so documents
+ * not yet converted by the native-types SchemaMigration still read. Writers produce the
+ * native format: amounts as Decimal128, dates as BSON dates.
+ */
+final class CodecSupport {
+
+    private CodecSupport() {
+    }
+
+    // =================== READERS ===================
+
+    static String readString(BsonReader reader) {
+        switch (reader.getCurrentBsonType()) {
+            case STRING:
+                return reader.readString();
+            case OBJECT_ID:
+                return reader.readObjectId().toHexString();
+            case INT32:
+                return String.valueOf(reader.readInt32());
+            case INT64:
+                return String.valueOf(reader.readInt64());
+            case DOUBLE:
+                return String.valueOf(reader.readDouble());
+            case NULL:
+                reader.readNull();
+                return null;
+            default:
+                reader.skipValue();
+                return null;
+        }
+    }
+
+    static BigDecimal readDecimal(BsonReader reader) {
+        switch (reader.getCurrentBsonType()) {
+            case STRING:
+                String value = reader.readString();
+                return value.isEmpty() ? null : new BigDecimal(value);
+            case DOUBLE:
+                return BigDecimal.valueOf(reader.readDouble());
+            case INT32:
+                return BigDecimal.valueOf(reader.readInt32());
+            case INT64:
+                return BigDecimal.valueOf(reader.readInt64());
+            case DECIMAL128:
+                return reader.readDecimal128().bigDecimalValue();
+            case NULL:
+                reader.readNull();
+                return null;
+            default:
+                reader.skipValue();
+                return null;
+        }
+    }
+
+    static double readDouble(BsonReader reader) {
+        BigDecimal value = readDecimal(reader);
+        return value != null ? value.doubleValue() : 0;
+    }
+
+    static int readInt(BsonReader reader) {
+        switch (reader.getCurrentBsonType()) {
+            case INT32:
+                return reader.readInt32();
+            case INT64:
+                return Math.toIntExact(reader.readInt64());
+            default:
+                BigDecimal value = readDecimal(reader);
+                return value != null ? value.intValue() : 0;
+        }
+    }
+
+    // BSON dates are converted in the system zone, as the Document mapping did
+    static LocalDate readDate(BsonReader reader) {
+        switch (reader.getCurrentBsonType()) {
+            case STRING:
+                String value = reader.readString();
+                return value.isEmpty() ? null : LocalDate.parse(value);
+            case DATE_TIME:
+                return Instant.ofEpochMilli(reader.readDateTime()).atZone(ZoneId.systemDefault()).toLocalDate();
+            case NULL:
+                reader.readNull();
+                return null;
+            default:
+                reader.skipValue();
+                return null;
+        }
+    }
+
+    // =================== WRITERS ===================
+
+    static void writeString(BsonWriter writer, String name, String value) {
+        if (value == null) {
+            writer.writeNull(name);
+        } else {
+            writer.writeString(name, value);
+        }
+    }
+
+    static void writeDecimal(BsonWriter writer, String name, BigDecimal value) {
+        if (value == null) {
+            writer.writeNull(name);
+        } else {
+            writer.writeDecimal128(name, new Decimal128(value));
+        }
+    }
+
+    // Start of the day in the system zone, the instant readDate() turns back into the same date
+    static void writeDate(BsonWriter writer, String name, LocalDate value) {
+        if (value == null) {
+            writer.writeNull(name);
+        } else {
+            writer.writeDateTime(name, value.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+    }
+
+    // Ids created by the driver are ObjectIds; anything else was stored as a plain string
+    static void writeId(BsonWriter writer, String id) {
+        if (ObjectId.isValid(id)) {
+            writer.writeObjectId("_id", new ObjectId(id));
+        } else {
+            writer.writeString("_id", id);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.inventory.api.codec;
+
+import com.inventory.api.customer.model.Customer;
+
+import org.bson.BsonReader;
+import org.bson.BsonWriter;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+/**
+ * "customers" documents.
+ */
+public final class CustomerCodec extends ObjectIdModelCodec<Customer> {
+
+    public CustomerCodec() {
+        super(Customer.class);
+    }
+
+    @Override
+    String getId(Customer customer) {
+        return customer.getId();
+    }
+
+    @Override
+    void setId(Customer customer, String id) {
+        customer.setId(id);
+    }
+
+    @Override
+    Customer newInstance() {
+        return new Customer();
+    }
+
+    @Override
+    void encodeFields(BsonWriter writer, Customer customer, EncoderContext encoderContext) {
+        CodecSupport.writeString(writer, "name", customer.getName());
+        CodecSupport.writeString(writer, "email", customer.getEmail());
+        CodecSupport.writeString(writer, "phoneNumber", customer.getPhoneNumber());
+        CodecSupport.writeString(writer, "address", customer.getAddress());
+        CodecSupport.writeString(writer, "customerGroupId", customer.getCustomerGroupId());
+        CodecSupport.writeString(writer, "customerCategoryId", customer.getCustomerCategoryId());
+        CodecSupport.writeString(writer, "createdAt", customer.getCreatedAt());
+        CodecSupport.writeString(writer, "editedAt", customer.getEditedAt());
+    }
+
+    @Override
+    boolean decodeField(BsonReader reader, String name, Customer customer, DecoderContext decoderContext) {
+        switch (name) {
+            case "name": customer.setName(CodecSupport.readString(reader)); return true;
+            case "email": customer.setEmail(CodecSupport.readString(reader)); return true;
+            case "phoneNumber": customer.setPhoneNumber(CodecSupport.readString(reader)); return true;
+            case "address": customer.setAddress(CodecSupport.readString(reader)); return true;
+            case "customerGroupId": customer.setCustomerGroupId(CodecSupport.readString(reader)); return true;
+            case "customerCategoryId": customer.setCustomerCategoryId(CodecSupport.readString(reader)); return true;
+            case "createdAt": customer.setCreatedAt(CodecSupport.readString(reader)); return true;
+            case "editedAt": customer.setEditedAt(CodecSupport.readString(reader)); return true;
+            default: return false;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.inventory.api.codec;
+
+import com.inventory.api.customer.model.CustomerContact;
+import com.inventory.api.customer.model.CustomerOverview;
+import com.inventory.api.salesorder.model.SalesOrderSummary;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of the customer overview pipeline: a "customers" document with the joined arrays
+ * "contacts", "orderStats" (at most one { orderCount, lifetimeValue }) and "recentOrders"
+ * (sales order summaries). Group and category are filled in by the service. Never written.
+ */
+public final class CustomerOverviewCodec extends ModelCodec<CustomerOverview> {
+
+    private final CustomerCodec customerCodec = new CustomerCodec();
+    private final SalesOrderSummaryCodec summaryCodec = new SalesOrderSummaryCodec();
+
+    public CustomerOverviewCodec() {
+        super(CustomerOverview.class);
+    }
+
+    @Override
+    CustomerOverview newInstance() {
+        return new CustomerOverview();
+    }
+
+    @Override
+    void readId(BsonReader reader, CustomerOverview overview) {
+        customerCodec.readId(reader, overview.getCustomer());
+    }
+
+    @Override
+    void encodeFields(BsonWriter writer, CustomerOverview overview, EncoderContext encoderContext) {
+        throw new UnsupportedOperationException("Customer overviews are read-only; write the Customer");
+    }
+
+    @Override
+    boolean decodeField(BsonReader reader, String name, CustomerOverview overview, DecoderContext decoderContext) {
+        switch (name) {
+            case "contacts": overview.setContacts(readContacts(reader)); return true;
+            case "orderStats": readOrderStats(reader, overview); return true;
+            case "recentOrders": overview.setRecentOrders(readRecentOrders(reader, decoderContext)); return true;
+            default: return customerCodec.decodeField(reader, name, overview.getCustomer(), decoderContext);
+        }
+    }
+
+    // Contacts are stored as plain documents, so they are read field by field here
+    private static List<CustomerContact> readContacts(BsonReader reader) {
+        List<CustomerContact> contacts = new ArrayList<>();
+        if (reader.getCurrentBsonType() != BsonType.ARRAY) {
+            reader.skipValue();
+            return contacts;
+        }
+
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            CustomerContact contact = new CustomerContact();
+            contact.setCreatedAt(null);
+            reader.readStartDocument();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                switch (reader.readName()) {
+                    case "_id": contact.setId(CodecSupport.readString(reader)); break;
+                    case "contactName": contact.setContactName(CodecSupport.readString(reader)); break;
+                    case "position": contact.setPosition(CodecSupport.readString(reader)); break;
+                    case "phone": contact.setPhone(CodecSupport.readString(reader)); break;
+                    case "email": contact.setEmail(CodecSupport.readString(reader)); break;
+                    case "customerId": contact.setCustomerId(CodecSupport.readString(reader)); break;
+                    case "createdAt": contact.setCreatedAt(CodecSupport.readString(reader)); break;
+                    case "editedAt": contact.setEditedAt(CodecSupport.readString(reader)); break;
+                    default: reader.skipValue();
+                }
+            }
+            reader.readEndDocument();
+            contacts.add(contact);
+        }
+        reader.readEndArray();
+        return contacts;
+    }
+
+    // $group over no orders returns no document, which leaves the count and value at zero
+    private static void readOrderStats(BsonReader reader, CustomerOverview overview) {
+        if (reader.getCurrentBsonType() != BsonType.ARRAY) {
+            reader.skipValue();
+            return;
+        }
+
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            reader.readStartDocument();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                switch (reader.readName()) {
+                    case "orderCount": overview.setOrderCount(CodecSupport.readInt(reader)); break;
+                    case "lifetimeValue":
+                        BigDecimal value = CodecSupport.readDecimal(reader);
+                        if (value != null) overview.setLifetimeValue(value);
+                        break;
+                    default: reader.skipValue();
+                }
+            }
+            reader.readEndDocument();
+        }
+        reader.readEndArray();
+    }
+
+    private List<SalesOrderSummary> readRecentOrders(BsonReader reader, DecoderContext decoderContext) {
+        List<SalesOrderSummary> orders = new ArrayList<>();
+        if (reader.getCurrentBsonType() != BsonType.ARRAY) {
+            reader.skipValue();
+            return orders;
+        }
+
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            orders.add(summaryCodec.decode(reader, decoderContext));
+        }
+        reader.readEndArray();
+        return orders;
+    }
+}
@@ -0,0 +1,60 @@
+package com.inventory.api.codec;
+
+import com.inventory.api.salesorder.model.DeliveryOrder;
+
+import org.bson.BsonReader;
+import org.bson.BsonWriter;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+/**
+ * "delivery_orders" documents.
+ */
+public final class DeliveryOrderCodec extends ObjectIdModelCodec<DeliveryOrder> {
+
+    public DeliveryOrderCodec() {
+        super(DeliveryOrder.class);
+    }
+
+    @Override
+    String getId(DeliveryOrder order) {
+        return order.getId();
+    }
+
+    @Override
+    void setId(DeliveryOrder order, String id) {
+        order.setId(id);
+    }
+
+    @Override
+    DeliveryOrder newInstance() {
+        return new DeliveryOrder();
+    }
+
+    @Override
+    void encodeFields(BsonWriter writer, DeliveryOrder order, EncoderContext encoderContext) {
+        CodecSupport.writeString(writer, "deliveryNumber", order.getDeliveryNumber());
+        CodecSupport.writeDate(writer, "deliveryDate", order.getDeliveryDate());
+        CodecSupport.writeString(writer, "salesOrderId", order.getSalesOrderId());
+        CodecSupport.writeString(writer, "status", order.getStatus());
+        CodecSupport.writeString(writer, "description", order.getDescription());
+        CodecSupport.writeString(writer, "returnId", order.getReturnId());
+        CodecSupport.writeString(writer, "createdAt", order.getCreatedAt());
+        CodecSupport.writeString(writer, "editedAt", order.getEditedAt());
+    }
+
+    @Override
+    boolean decodeField(BsonReader reader, String name, DeliveryOrder order, DecoderContext decoderContext) {
+        switch (name) {
+            case "deliveryNumber": order.setDeliveryNumber(CodecSupport.readString(reader)); return true;
+            case "deliveryDate": order.setDeliveryDate(CodecSupport.readDate(reader)); return true;
+            case "salesOrderId": order.setSalesOrderId(CodecSupport.readString(reader)); return true;
+            case "status": order.setStatus(CodecSupport.readString(reader)); return true;
+            case "description": order.setDescription(CodecSupport.readString(reader)); return true;
+            case "returnId": order.setReturnId(CodecSupport.readString(reader)); return true;
+            case "createdAt": order.setCreatedAt(CodecSupport.readString(reader)); return true;
+            case "editedAt": order.setEditedAt(CodecSupport.readString(reader)); return true;
+            default: return false;
+        }
+    }
+}
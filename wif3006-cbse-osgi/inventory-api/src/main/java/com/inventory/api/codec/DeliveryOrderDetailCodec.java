@@ -0,0 +1,55 @@
+package com.inventory.api.codec;
+
+import com.inventory.api.salesorder.model.DeliveryOrderDetail;
+import com.inventory.api.salesorder.model.SalesOrderDetail;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+/**
+ * Result of the delivery order detail pipeline: a "delivery_orders" document with its sales
+ * order joined as "salesOrder" (an array of at most one SalesOrderDetailCodec document). Never written.
+ */
+public final class DeliveryOrderDetailCodec extends ModelCodec<DeliveryOrderDetail> {
+
+    private final DeliveryOrderCodec deliveryCodec = new DeliveryOrderCodec();
+    private final SalesOrderDetailCodec salesOrderCodec = new SalesOrderDetailCodec();
+
+    public DeliveryOrderDetailCodec() {
+        super(DeliveryOrderDetail.class);
+    }
+
+    @Override
+    DeliveryOrderDetail newInstance() {
+        return new DeliveryOrderDetail();
+    }
+
+    @Override
+    void readId(BsonReader reader, DeliveryOrderDetail detail) {
+        deliveryCodec.readId(reader, detail.getDeliveryOrder());
+    }
+
+    @Override
+    void encodeFields(BsonWriter writer, DeliveryOrderDetail detail, EncoderContext encoderContext) {
+        throw new UnsupportedOperationException("Delivery order details are read-only; write the DeliveryOrder");
+    }
+
+    @Override
+    boolean decodeField(BsonReader reader, String name, DeliveryOrderDetail detail, DecoderContext decoderContext) {
+        if (!"salesOrder".equals(name)) {
+            return deliveryCodec.decodeField(reader, name, detail.getDeliveryOrder(), decoderContext);
+        }
+        if (reader.getCurrentBsonType() != BsonType.ARRAY) return false;
+
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            SalesOrderDetail salesOrder = salesOrderCodec.decode(reader, decoderContext);
+            if (detail.getSalesOrder() == null) detail.setSalesOrder(salesOrder);
+        }
+        reader.readEndArray();
+        return true;
+    }
+}
@@ -0,0 +1,36 @@
+package com.inventory.api.codec;
+
+import com.mongodb.MongoClientSettings;
+
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+
+/**
+ * Codec registry of the inventory models, installed on the shared MongoClient.
+ *
+ * With it a collection can be typed (database.getCollection("sales_orders", SalesOrder.class))
+ * and results decode straight from the BSON reader into the model. The driver's default
+ * codecs come after the model codecs, so Document collections keep working unchanged.
+ */
+public final class InventoryCodecs {
+
+    public static final CodecRegistry REGISTRY = CodecRegistries.fromRegistries(
+            CodecRegistries.fromCodecs(
+                    new SalesOrderCodec(),
+                    new SalesOrderItemCodec(),
+                    new DeliveryOrderCodec(),
+                    new SalesReturnCodec(),
+                    new TaxCodec(),
+                    new SalesOrderSummaryCodec(),
+                    new SalesOrderDetailCodec(),
+                    new DeliveryOrderDetailCodec(),
+                    new PurchaseOrderCodec(),
+                    new PurchaseOrderSummaryCodec(),
+                    new CustomerCodec(),
+                    new CustomerOverviewCodec(),
+                    new ProductCodec()),
+            MongoClientSettings.getDefaultCodecRegistry());
+
+    private InventoryCodecs() {
+    }
+}
@@ -0,0 +1,66 @@
+package com.inventory.api.codec;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+/**
+ * Base of the model codecs: walks the BSON document field by field and hands each one to
+ * the subclass, so a model is built straight from the reader without an intermediate Document.
+ * Fields the subclass does not know (e.g. computed sort keys of an aggregation) are skipped.
+ */
+abstract class ModelCodec<T> implements Codec<T> {
+
+    private final Class<T> type;
+
+    ModelCodec(Class<T> type) {
+        this.type = type;
+    }
+
+    @Override
+    public Class<T> getEncoderClass() {
+        return type;
+    }
+
+    @Override
+    public void encode(BsonWriter writer, T value, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        writeId(writer, value);
+        encodeFields(writer, value, encoderContext);
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public T decode(BsonReader reader, DecoderContext decoderContext) {
+        T value = newInstance();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String name = reader.readName();
+            if ("_id".equals(name)) {
+                readId(reader, value);
+            } else if (!decodeField(reader, name, value, decoderContext)) {
+                reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return value;
+    }
+
+    abstract T newInstance();
+
+    abstract void encodeFields(BsonWriter writer, T value, EncoderContext encoderContext);
+
+    // false = unknown field, the caller skips its value
+    abstract boolean decodeField(BsonReader reader, String name, T value, DecoderContext decoderContext);
+
+    // Models without an _id property leave it to the server
+    void writeId(BsonWriter writer, T value) {
+    }
+
+    void readId(BsonReader reader, T value) {
+        reader.skipValue();
+    }
+}
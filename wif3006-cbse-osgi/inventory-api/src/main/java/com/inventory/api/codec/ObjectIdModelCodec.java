@@ -0,0 +1,54 @@
+package com.inventory.api.codec;
+
+import org.bson.BsonObjectId;
+import org.bson.BsonReader;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.BsonWriter;
+import org.bson.codecs.CollectibleCodec;
+import org.bson.types.ObjectId;
+
+/**
+ * Codec of a model whose String id is the hex form of the document's ObjectId _id.
+ * insertOne/insertMany generate the id on the model itself, so callers read it back
+ * from the object they inserted.
+ */
+abstract class ObjectIdModelCodec<T> extends ModelCodec<T> implements CollectibleCodec<T> {
+
+    ObjectIdModelCodec(Class<T> type) {
+        super(type);
+    }
+
+    abstract String getId(T value);
+
+    abstract void setId(T value, String id);
+
+    @Override
+    void writeId(BsonWriter writer, T value) {
+        String id = getId(value);
+        if (id != null) CodecSupport.writeId(writer, id);
+    }
+
+    @Override
+    void readId(BsonReader reader, T value) {
+        setId(value, CodecSupport.readString(reader));
+    }
+
+    @Override
+    public T generateIdIfAbsentFromDocument(T document) {
+        if (getId(document) == null) setId(document, new ObjectId().toHexString());
+        return document;
+    }
+
+    @Override
+    public boolean documentHasId(T document) {
+        return getId(document) != null;
+    }
+
+    @Override
+    public BsonValue getDocumentId(T document) {
+        String id = getId(document);
+        if (id == null) throw new IllegalStateException("The document does not contain an _id");
+        return ObjectId.isValid(id) ? new BsonObjectId(new ObjectId(id)) : new BsonString(id);
+    }
+}
@@ -0,0 +1,45 @@
+package com.inventory.api.codec;
+
+import com.inventory.api.product.model.Product;
+
+import org.bson.BsonReader;
+import org.bson.BsonWriter;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+/**
+ * "products" documents. The product id is the business "id" field, not _id (left to the
+ * server), and the group is stored as "groupId". Stock quantity is not persisted here.
+ */
+public final class ProductCodec extends ModelCodec<Product> {
+
+    public ProductCodec() {
+        super(Product.class);
+    }
+
+    @Override
+    Product newInstance() {
+        return new Product();
+    }
+
+    @Override
+    void encodeFields(BsonWriter writer, Product product, EncoderContext encoderContext) {
+        CodecSupport.writeString(writer, "id", product.getId());
+        CodecSupport.writeString(writer, "name", product.getName());
+        writer.writeDouble("price", product.getPrice());
+        CodecSupport.writeString(writer, "groupId", product.getProductGroupId());
+        CodecSupport.writeString(writer, "uomId", product.getUomId());
+    }
+
+    @Override
+    boolean decodeField(BsonReader reader, String name, Product product, DecoderContext decoderContext) {
+        switch (name) {
+            case "id": product.setId(CodecSupport.readString(reader)); return true;
+            case "name": product.setName(CodecSupport.readString(reader)); return true;
+            case "price": product.setPrice(CodecSupport.readDouble(reader)); return true;
+            case "groupId": product.setProductGroupId(CodecSupport.readString(reader)); return true;
+            case "uomId": product.setUomId(CodecSupport.readString(reader)); return true;
+            default: return false;
+        }
+    }
+}
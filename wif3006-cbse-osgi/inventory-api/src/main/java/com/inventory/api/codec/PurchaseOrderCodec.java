@@ -0,0 +1,144 @@
+package com.inventory.api.codec;
+
+import com.inventory.api.purchaseorder.model.OrderItem;
+import com.inventory.api.purchaseorder.model.PurchaseOrder;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * "purchase_orders" documents, keyed by the numeric orderId (_id is left to the server).
+ * Dates are BSON dates and item prices Decimal128 (ISO strings and doubles in documents not
+ * migrated yet); order items are embedded documents read in the same pass.
+ *
+ * receivedQuantities (productId -> quantity) is what the receipt posted to the stock ledger, so
+ * a reversal takes back exactly that whatever the items are called by then.
+ *
+ * totalPrice and itemCount are written next to the items so list screens can project them
+ * instead of the items (see PurchaseOrderSummaryCodec); the full order recomputes them.
+ */
+public final class PurchaseOrderCodec extends ModelCodec<PurchaseOrder> {
+
+    public PurchaseOrderCodec() {
+        super(PurchaseOrder.class);
+    }
+
+    @Override
+    PurchaseOrder newInstance() {
+        return new PurchaseOrder();
+    }
+
+    @Override
+    void encodeFields(BsonWriter writer, PurchaseOrder po, EncoderContext encoderContext) {
+        writer.writeInt32("orderId", po.getOrderId());
+        CodecSupport.writeDate(writer, "orderDate", po.getOrderDate());
+        CodecSupport.writeString(writer, "orderNumber", po.getOrderNumber());
+        CodecSupport.writeString(writer, "vendor", po.getVendor());
+        CodecSupport.writeString(writer, "orderStatus", po.getOrderStatus());
+        CodecSupport.writeDate(writer, "receivedDate", po.getReceivedDate());
+        CodecSupport.writeDate(writer, "returnedDate", po.getReturnedDate());
+        CodecSupport.writeDate(writer, "shippingDate", po.getShippingDate());
+        CodecSupport.writeDate(writer, "cancelledDate", po.getCancelledDate());
+        CodecSupport.writeString(writer, "warehouse", po.getWarehouse());
+        if (po.getReceivedQuantities() != null) {
+            writer.writeStartDocument("receivedQuantities");
+            for (Map.Entry<String, Integer> entry : po.getReceivedQuantities().entrySet()) {
+                writer.writeInt32(entry.getKey(), entry.getValue());
+            }
+            writer.writeEndDocument();
+        }
+
+        BigDecimal totalPrice = BigDecimal.ZERO;
+        int itemCount = 0;
+        writer.writeStartArray("orderItems");
+        if (po.getOrderItems() != null) {
+            for (OrderItem item : po.getOrderItems()) {
+                BigDecimal price = BigDecimal.valueOf(item.getPricePerItem());
+                totalPrice = totalPrice.add(price.multiply(BigDecimal.valueOf(item.getQuantity())));
+                itemCount++;
+                writer.writeStartDocument();
+                CodecSupport.writeString(writer, "itemName", item.getItemName());
+                writer.writeInt32("quantity", item.getQuantity());
+                CodecSupport.writeDecimal(writer, "pricePerItem", price);
+                writer.writeEndDocument();
+            }
+        }
+        writer.writeEndArray();
+        CodecSupport.writeDecimal(writer, "totalPrice", totalPrice);
+        writer.writeInt32("itemCount", itemCount);
+    }
+
+    @Override
+    boolean decodeField(BsonReader reader, String name, PurchaseOrder po, DecoderContext decoderContext) {
+        switch (name) {
+            case "orderId": po.setOrderId(CodecSupport.readInt(reader)); return true;
+            case "orderDate": po.setOrderDate(CodecSupport.readDate(reader)); return true;
+            case "orderNumber": po.setOrderNumber(CodecSupport.readString(reader)); return true;
+            case "vendor": po.setVendor(CodecSupport.readString(reader)); return true;
+            case "orderStatus": po.setOrderStatus(CodecSupport.readString(reader)); return true;
+            case "receivedDate": po.setReceivedDate(CodecSupport.readDate(reader)); return true;
+            case "returnedDate": po.setReturnedDate(CodecSupport.readDate(reader)); return true;
+            case "shippingDate": po.setShippingDate(CodecSupport.readDate(reader)); return true;
+            case "cancelledDate": po.setCancelledDate(CodecSupport.readDate(reader)); return true;
+            case "warehouse": po.setWarehouse(CodecSupport.readString(reader)); return true;
+            case "orderItems": po.setOrderItems(readItems(reader)); return true;
+            case "receivedQuantities": po.setReceivedQuantities(readQuantities(reader)); return true;
+            default: return false;
+        }
+    }
+
+    private static List<OrderItem> readItems(BsonReader reader) {
+        List<OrderItem> items = new ArrayList<>();
+        if (reader.getCurrentBsonType() != BsonType.ARRAY) {
+            reader.skipValue();
+            return items;
+        }
+
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            items.add(readItem(reader));
+        }
+        reader.readEndArray();
+        return items;
+    }
+
+    private static Map<String, Integer> readQuantities(BsonReader reader) {
+        if (reader.getCurrentBsonType() != BsonType.DOCUMENT) {
+            reader.skipValue();
+            return null;
+        }
+
+        Map<String, Integer> quantities = new TreeMap<>();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String productId = reader.readName();
+            quantities.put(productId, CodecSupport.readInt(reader));
+        }
+        reader.readEndDocument();
+        return quantities;
+    }
+
+    private static OrderItem readItem(BsonReader reader) {
+        OrderItem item = new OrderItem();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case "itemName": item.setItemName(CodecSupport.readString(reader)); break;
+                case "quantity": item.setQuantity(CodecSupport.readInt(reader)); break;
+                case "pricePerItem": item.setPricePerItem(CodecSupport.readDouble(reader)); break;
+                default: reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return item;
+    }
+}
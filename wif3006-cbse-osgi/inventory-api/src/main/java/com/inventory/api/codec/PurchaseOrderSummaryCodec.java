@@ -0,0 +1,45 @@
+package com.inventory.api.codec;
+
+import com.inventory.api.purchaseorder.model.PurchaseOrderSummary;
+
+import org.bson.BsonReader;
+import org.bson.BsonWriter;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+/**
+ * Read side of "purchase_orders" for list screens: decodes the projected summary fields,
+ * including the totalPrice and itemCount the PurchaseOrderCodec stores. Never written.
+ */
+public final class PurchaseOrderSummaryCodec extends ModelCodec<PurchaseOrderSummary> {
+
+    public PurchaseOrderSummaryCodec() {
+        super(PurchaseOrderSummary.class);
+    }
+
+    @Override
+    PurchaseOrderSummary newInstance() {
+        return new PurchaseOrderSummary();
+    }
+
+    @Override
+    void encodeFields(BsonWriter writer, PurchaseOrderSummary summary, EncoderContext encoderContext) {
+        throw new UnsupportedOperationException("Purchase order summaries are read-only; write the PurchaseOrder");
+    }
+
+    @Override
+    boolean decodeField(BsonReader reader, String name, PurchaseOrderSummary summary, DecoderContext decoderContext) {
+        switch (name) {
+            case "orderId": summary.setOrderId(CodecSupport.readInt(reader)); return true;
+            case "orderDate": summary.setOrderDate(CodecSupport.readDate(reader)); return true;
+            case "orderNumber": summary.setOrderNumber(CodecSupport.readString(reader)); return true;
+            case "vendor": summary.setVendor(CodecSupport.readString(reader)); return true;
+            case "orderStatus": summary.setOrderStatus(CodecSupport.readString(reader)); return true;
+            case "receivedDate": summary.setReceivedDate(CodecSupport.readDate(reader)); return true;
+            case "returnedDate": summary.setReturnedDate(CodecSupport.readDate(reader)); return true;
+            case "totalPrice": summary.setTotalPrice(CodecSupport.readDouble(reader)); return true;
+            case "itemCount": summary.setItemCount(CodecSupport.readInt(reader)); return true;
+            default: return false;
+        }
+    }
+}
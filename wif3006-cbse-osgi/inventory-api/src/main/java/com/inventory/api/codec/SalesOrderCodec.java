@@ -0,0 +1,75 @@
+package com.inventory.api.codec;
+
+import com.inventory.api.salesorder.model.SalesOrder;
+
+import org.bson.BsonReader;
+import org.bson.BsonWriter;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import java.math.BigDecimal;
+
+/**
+ * "sales_orders" documents. Amounts are written as Decimal128 (missing amounts as 0);
+ * older documents holding them as strings or doubles are still read.
+ */
+public final class SalesOrderCodec extends ObjectIdModelCodec<SalesOrder> {
+
+    public SalesOrderCodec() {
+        super(SalesOrder.class);
+    }
+
+    @Override
+    String getId(SalesOrder order) {
+        return order.getId();
+    }
+
+    @Override
+    void setId(SalesOrder order, String id) {
+        order.setId(id);
+    }
+
+    @Override
+    SalesOrder newInstance() {
+        return new SalesOrder();
+    }
+
+    @Override
+    void encodeFields(BsonWriter writer, SalesOrder order, EncoderContext encoderContext) {
+        CodecSupport.writeString(writer, "orderNumber", order.getOrderNumber());
+        CodecSupport.writeDate(writer, "orderDate", order.getOrderDate());
+        CodecSupport.writeString(writer, "customerId", order.getCustomerId());
+        CodecSupport.writeString(writer, "taxId", order.getTaxId());
+        CodecSupport.writeString(writer, "orderStatus", order.getOrderStatus());
+        CodecSupport.writeString(writer, "description", order.getDescription());
+        CodecSupport.writeString(writer, "warehouse", order.getWarehouse());
+        CodecSupport.writeDecimal(writer, "beforeTaxAmount", orZero(order.getBeforeTaxAmount()));
+        CodecSupport.writeDecimal(writer, "taxAmount", orZero(order.getTaxAmount()));
+        CodecSupport.writeDecimal(writer, "afterTaxAmount", orZero(order.getAfterTaxAmount()));
+        CodecSupport.writeString(writer, "createdAt", order.getCreatedAt());
+        CodecSupport.writeString(writer, "editedAt", order.getEditedAt());
+    }
+
+    @Override
+    boolean decodeField(BsonReader reader, String name, SalesOrder order, DecoderContext decoderContext) {
+        switch (name) {
+            case "orderNumber": order.setOrderNumber(CodecSupport.readString(reader)); return true;
+            case "orderDate": order.setOrderDate(CodecSupport.readDate(reader)); return true;
+            case "customerId": order.setCustomerId(CodecSupport.readString(reader)); return true;
+            case "taxId": order.setTaxId(CodecSupport.readString(reader)); return true;
+            case "orderStatus": order.setOrderStatus(CodecSupport.readString(reader)); return true;
+            case "description": order.setDescription(CodecSupport.readString(reader)); return true;
+            case "warehouse": order.setWarehouse(CodecSupport.readString(reader)); return true;
+            case "beforeTaxAmount": order.setBeforeTaxAmount(CodecSupport.readDecimal(reader)); return true;
+            case "taxAmount": order.setTaxAmount(CodecSupport.readDecimal(reader)); return true;
+            case "afterTaxAmount": order.setAfterTaxAmount(CodecSupport.readDecimal(reader)); return true;
+            case "createdAt": order.setCreatedAt(CodecSupport.readString(reader)); return true;
+            case "editedAt": order.setEditedAt(CodecSupport.readString(reader)); return true;
+            default: return false;
+        }
+    }
+
+    private static BigDecimal orZero(BigDecimal amount) {
+        return amount != null ? amount : BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,124 @@
+package com.inventory.api.codec;
+
+import com.inventory.api.salesorder.model.SalesOrderDetail;
+import com.inventory.api.salesorder.model.SalesOrderItem;
+import com.inventory.api.salesorder.model.Tax;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of the sales order detail pipeline: a "sales_orders" document with the joined arrays
+ * "lines" (items, each with a productName), "customer" and "tax". The order's own fields and
+ * the items go through their codecs in the same pass. Never written.
+ */
+public final class SalesOrderDetailCodec extends ModelCodec<SalesOrderDetail> {
+
+    private final SalesOrderCodec orderCodec = new SalesOrderCodec();
+    private final SalesOrderItemCodec itemCodec = new SalesOrderItemCodec();
+    private final TaxCodec taxCodec = new TaxCodec();
+
+    public SalesOrderDetailCodec() {
+        super(SalesOrderDetail.class);
+    }
+
+    @Override
+    SalesOrderDetail newInstance() {
+        return new SalesOrderDetail();
+    }
+
+    @Override
+    void readId(BsonReader reader, SalesOrderDetail detail) {
+        orderCodec.readId(reader, detail.getOrder());
+    }
+
+    @Override
+    void encodeFields(BsonWriter writer, SalesOrderDetail detail, EncoderContext encoderContext) {
+        throw new UnsupportedOperationException("Sales order details are read-only; write the SalesOrder");
+    }
+
+    @Override
+    boolean decodeField(BsonReader reader, String name, SalesOrderDetail detail, DecoderContext decoderContext) {
+        switch (name) {
+            case "lines": detail.setLines(readLines(reader, decoderContext)); return true;
+            case "customer": detail.setCustomerName(readCustomerName(reader)); return true;
+            case "tax": detail.setTax(readTax(reader, decoderContext)); return true;
+            default: return orderCodec.decodeField(reader, name, detail.getOrder(), decoderContext);
+        }
+    }
+
+    private List<SalesOrderDetail.Line> readLines(BsonReader reader, DecoderContext decoderContext) {
+        List<SalesOrderDetail.Line> lines = new ArrayList<>();
+        if (reader.getCurrentBsonType() != BsonType.ARRAY) {
+            reader.skipValue();
+            return lines;
+        }
+
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            SalesOrderItem item = new SalesOrderItem();
+            String productName = null;
+            reader.readStartDocument();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                String name = reader.readName();
+                if ("_id".equals(name)) {
+                    itemCodec.readId(reader, item);
+                } else if ("productName".equals(name)) {
+                    productName = CodecSupport.readString(reader);
+                } else if (!itemCodec.decodeField(reader, name, item, decoderContext)) {
+                    reader.skipValue();
+                }
+            }
+            reader.readEndDocument();
+            lines.add(new SalesOrderDetail.Line(item, productName));
+        }
+        reader.readEndArray();
+        return lines;
+    }
+
+    // $lookup returns an array; the first match's name (null when the customer is gone)
+    private static String readCustomerName(BsonReader reader) {
+        String customerName = null;
+        if (reader.getCurrentBsonType() != BsonType.ARRAY) {
+            reader.skipValue();
+            return null;
+        }
+
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            reader.readStartDocument();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                if ("name".equals(reader.readName()) && customerName == null) {
+                    customerName = CodecSupport.readString(reader);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.readEndDocument();
+        }
+        reader.readEndArray();
+        return customerName;
+    }
+
+    private Tax readTax(BsonReader reader, DecoderContext decoderContext) {
+        Tax tax = null;
+        if (reader.getCurrentBsonType() != BsonType.ARRAY) {
+            reader.skipValue();
+            return null;
+        }
+
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            Tax match = taxCodec.decode(reader, decoderContext);
+            if (tax == null) tax = match;
+        }
+        reader.readEndArray();
+        return tax;
+    }
+}
@@ -0,0 +1,58 @@
+package com.inventory.api.codec;
+
+import com.inventory.api.salesorder.model.SalesOrderItem;
+
+import org.bson.BsonReader;
+import org.bson.BsonWriter;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+/**
+ * "sales_order_items" documents; unitPrice is stored as Decimal128 (a string before migration).
+ */
+public final class SalesOrderItemCodec extends ObjectIdModelCodec<SalesOrderItem> {
+
+    public SalesOrderItemCodec() {
+        super(SalesOrderItem.class);
+    }
+
+    @Override
+    String getId(SalesOrderItem item) {
+        return item.getId();
+    }
+
+    @Override
+    void setId(SalesOrderItem item, String id) {
+        item.setId(id);
+    }
+
+    @Override
+    SalesOrderItem newInstance() {
+        return new SalesOrderItem();
+    }
+
+    @Override
+    void encodeFields(BsonWriter writer, SalesOrderItem item, EncoderContext encoderContext) {
+        CodecSupport.writeString(writer, "salesOrderId", item.getSalesOrderId());
+        CodecSupport.writeString(writer, "productId", item.getProductId());
+        CodecSupport.writeDecimal(writer, "unitPrice", item.getUnitPrice());
+        writer.writeInt32("quantity", item.getQuantity());
+        CodecSupport.writeString(writer, "productNumber", item.getProductNumber());
+        CodecSupport.writeString(writer, "createdAt", item.getCreatedAt());
+        CodecSupport.writeString(writer, "editedAt", item.getEditedAt());
+    }
+
+    @Override
+    boolean decodeField(BsonReader reader, String name, SalesOrderItem item, DecoderContext decoderContext) {
+        switch (name) {
+            case "salesOrderId": item.setSalesOrderId(CodecSupport.readString(reader)); return true;
+            case "productId": item.setProductId(CodecSupport.readString(reader)); return true;
+            case "unitPrice": item.setUnitPrice(CodecSupport.readDecimal(reader)); return true;
+            case "quantity": item.setQuantity(CodecSupport.readInt(reader)); return true;
+            case "productNumber": item.setProductNumber(CodecSupport.readString(reader)); return true;
+            case "createdAt": item.setCreatedAt(CodecSupport.readString(reader)); return true;
+            case "editedAt": item.setEditedAt(CodecSupport.readString(reader)); return true;
+            default: return false;
+        }
+    }
+}
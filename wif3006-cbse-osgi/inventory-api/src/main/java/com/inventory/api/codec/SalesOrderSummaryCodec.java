@@ -0,0 +1,48 @@
+package com.inventory.api.codec;
+
+import com.inventory.api.salesorder.model.SalesOrderSummary;
+
+import org.bson.BsonReader;
+import org.bson.BsonWriter;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+/**
+ * Read side of "sales_orders" for list screens: the projected summary fields only. Never written.
+ */
+public final class SalesOrderSummaryCodec extends ModelCodec<SalesOrderSummary> {
+
+    public SalesOrderSummaryCodec() {
+        super(SalesOrderSummary.class);
+    }
+
+    @Override
+    SalesOrderSummary newInstance() {
+        return new SalesOrderSummary();
+    }
+
+    @Override
+    void readId(BsonReader reader, SalesOrderSummary summary) {
+        summary.setId(CodecSupport.readString(reader));
+    }
+
+    @Override
+    void encodeFields(BsonWriter writer, SalesOrderSummary summary, EncoderContext encoderContext) {
+        throw new UnsupportedOperationException("Sales order summaries are read-only; write the SalesOrder");
+    }
+
+    @Override
+    boolean decodeField(BsonReader reader, String name, SalesOrderSummary summary, DecoderContext decoderContext) {
+        switch (name) {
+            case "orderNumber": summary.setOrderNumber(CodecSupport.readString(reader)); return true;
+            case "orderDate": summary.setOrderDate(CodecSupport.readDate(reader)); return true;
+            case "customerId": summary.setCustomerId(CodecSupport.readString(reader)); return true;
+            case "taxId": summary.setTaxId(CodecSupport.readString(reader)); return true;
+            case "orderStatus": summary.setOrderStatus(CodecSupport.readString(reader)); return true;
+            case "beforeTaxAmount": summary.setBeforeTaxAmount(CodecSupport.readDecimal(reader)); return true;
+            case "taxAmount": summary.setTaxAmount(CodecSupport.readDecimal(reader)); return true;
+            case "afterTaxAmount": summary.setAfterTaxAmount(CodecSupport.readDecimal(reader)); return true;
+            default: return false;
+        }
+    }
+}
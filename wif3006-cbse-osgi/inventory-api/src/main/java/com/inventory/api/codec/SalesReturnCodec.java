@@ -0,0 +1,58 @@
+package com.inventory.api.codec;
+
+import com.inventory.api.salesorder.model.SalesReturn;
+
+import org.bson.BsonReader;
+import org.bson.BsonWriter;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+/**
+ * "sales_returns" documents.
+ */
+public final class SalesReturnCodec extends ObjectIdModelCodec<SalesReturn> {
+
+    public SalesReturnCodec() {
+        super(SalesReturn.class);
+    }
+
+    @Override
+    String getId(SalesReturn salesReturn) {
+        return salesReturn.getId();
+    }
+
+    @Override
+    void setId(SalesReturn salesReturn, String id) {
+        salesReturn.setId(id);
+    }
+
+    @Override
+    SalesReturn newInstance() {
+        return new SalesReturn();
+    }
+
+    @Override
+    void encodeFields(BsonWriter writer, SalesReturn salesReturn, EncoderContext encoderContext) {
+        CodecSupport.writeString(writer, "returnNumber", salesReturn.getReturnNumber());
+        CodecSupport.writeDate(writer, "returnDate", salesReturn.getReturnDate());
+        CodecSupport.writeString(writer, "deliveryOrderId", salesReturn.getDeliveryOrderId());
+        CodecSupport.writeString(writer, "status", salesReturn.getStatus());
+        CodecSupport.writeString(writer, "description", salesReturn.getDescription());
+        CodecSupport.writeString(writer, "createdAt", salesReturn.getCreatedAt());
+        CodecSupport.writeString(writer, "editedAt", salesReturn.getEditedAt());
+    }
+
+    @Override
+    boolean decodeField(BsonReader reader, String name, SalesReturn salesReturn, DecoderContext decoderContext) {
+        switch (name) {
+            case "returnNumber": salesReturn.setReturnNumber(CodecSupport.readString(reader)); return true;
+            case "returnDate": salesReturn.setReturnDate(CodecSupport.readDate(reader)); return true;
+            case "deliveryOrderId": salesReturn.setDeliveryOrderId(CodecSupport.readString(reader)); return true;
+            case "status": salesReturn.setStatus(CodecSupport.readString(reader)); return true;
+            case "description": salesReturn.setDescription(CodecSupport.readString(reader)); return true;
+            case "createdAt": salesReturn.setCreatedAt(CodecSupport.readString(reader)); return true;
+            case "editedAt": salesReturn.setEditedAt(CodecSupport.readString(reader)); return true;
+            default: return false;
+        }
+    }
+}
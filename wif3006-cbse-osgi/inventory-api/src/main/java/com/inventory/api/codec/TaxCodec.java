@@ -0,0 +1,55 @@
+package com.inventory.api.codec;
+
+import com.inventory.api.salesorder.model.Tax;
+
+import org.bson.BsonReader;
+import org.bson.BsonWriter;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+/**
+ * "taxes" documents. Taxes are seeded with their own _id (usually a plain string), so the
+ * codec never generates one; taxRate may be stored as a string, an int or a double.
+ */
+public final class TaxCodec extends ModelCodec<Tax> {
+
+    public TaxCodec() {
+        super(Tax.class);
+    }
+
+    @Override
+    Tax newInstance() {
+        return new Tax();
+    }
+
+    @Override
+    void writeId(BsonWriter writer, Tax tax) {
+        if (tax.getId() != null) CodecSupport.writeId(writer, tax.getId());
+    }
+
+    @Override
+    void readId(BsonReader reader, Tax tax) {
+        tax.setId(CodecSupport.readString(reader));
+    }
+
+    @Override
+    void encodeFields(BsonWriter writer, Tax tax, EncoderContext encoderContext) {
+        CodecSupport.writeString(writer, "taxName", tax.getTaxName());
+        CodecSupport.writeDecimal(writer, "taxRate", tax.getTaxRate());
+        CodecSupport.writeString(writer, "description", tax.getDescription());
+        CodecSupport.writeString(writer, "createdAt", tax.getCreatedAt());
+        CodecSupport.writeString(writer, "editedAt", tax.getEditedAt());
+    }
+
+    @Override
+    boolean decodeField(BsonReader reader, String name, Tax tax, DecoderContext decoderContext) {
+        switch (name) {
+            case "taxName": tax.setTaxName(CodecSupport.readString(reader)); return true;
+            case "taxRate": tax.setTaxRate(CodecSupport.readDecimal(reader)); return true;
+            case "description": tax.setDescription(CodecSupport.readString(reader)); return true;
+            case "createdAt": tax.setCreatedAt(CodecSupport.readString(reader)); return true;
+            case "editedAt": tax.setEditedAt(CodecSupport.readString(reader)); return true;
+            default: return false;
+        }
+    }
+}
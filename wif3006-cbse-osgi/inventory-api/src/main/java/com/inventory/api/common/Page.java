@@ -0,0 +1,29 @@
+package com.inventory.api.common;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated list.
+ *
+ * nextCursor is the key of the last item on the page; pass it back as afterId to get the
+ * next page. It is null on the last page.
+ */
+public final class Page<T> {
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    public Page(List<T> items, String nextCursor) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() { return items; }
+
+    public String getNextCursor() { return nextCursor; }
+
+    public boolean hasNext() { return nextCursor != null; }
+
+    public boolean isEmpty() { return items.isEmpty(); }
+}
@@ -0,0 +1,10 @@
+package com.inventory.api.common;
+
+/**
+ * Direction of a paginated list along its key (ObjectId order is insertion order, so ASC
+ * lists oldest first).
+ */
+public enum Sort {
+    ASC,
+    DESC
+}
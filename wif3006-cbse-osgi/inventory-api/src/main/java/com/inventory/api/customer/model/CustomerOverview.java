@@ -0,0 +1,46 @@
+package com.inventory.api.customer.model;
+
+import com.inventory.api.salesorder.model.SalesOrderSummary;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+// A customer with everything the overview screen shows: contacts, group, category and order history
+public class CustomerOverview implements Serializable {
+    private Customer customer = new Customer();
+    private List<CustomerContact> contacts = new ArrayList<>();
+    private CustomerGroup group;
+    private CustomerCategory category;
+    private int orderCount;
+    private BigDecimal lifetimeValue = BigDecimal.ZERO;
+    private List<SalesOrderSummary> recentOrders = new ArrayList<>();
+
+    // Getters and Setters
+    public Customer getCustomer() { return customer; }
+    public void setCustomer(Customer customer) { this.customer = customer; }
+
+    public List<CustomerContact> getContacts() { return contacts; }
+    public void setContacts(List<CustomerContact> contacts) { this.contacts = contacts; }
+
+    // Null when the customer has no group or it no longer exists
+    public CustomerGroup getGroup() { return group; }
+    public void setGroup(CustomerGroup group) { this.group = group; }
+
+    // Null when the customer has no category or it no longer exists
+    public CustomerCategory getCategory() { return category; }
+    public void setCategory(CustomerCategory category) { this.category = category; }
+
+    // Every sales order of the customer, whatever its status
+    public int getOrderCount() { return orderCount; }
+    public void setOrderCount(int orderCount) { this.orderCount = orderCount; }
+
+    // After-tax total of the customer's orders, cancelled ones left out
+    public BigDecimal getLifetimeValue() { return lifetimeValue; }
+    public void setLifetimeValue(BigDecimal lifetimeValue) { this.lifetimeValue = lifetimeValue; }
+
+    // The latest orders, newest first
+    public List<SalesOrderSummary> getRecentOrders() { return recentOrders; }
+    public void setRecentOrders(List<SalesOrderSummary> recentOrders) { this.recentOrders = recentOrders; }
+}
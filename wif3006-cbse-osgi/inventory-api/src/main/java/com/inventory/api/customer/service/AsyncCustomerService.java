@@ -0,0 +1,24 @@
+package com.inventory.api.customer.service;
+
+import com.inventory.api.customer.model.Customer;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterparts of the CustomerService lookups, on the reactive driver.
+ * Independent calls can be started together and joined once; writes stay on CustomerService.
+ */
+public interface AsyncCustomerService {
+
+    CompletableFuture<List<Customer>> getAllCustomers();
+
+    // Empty for an unknown or malformed id
+    CompletableFuture<Optional<Customer>> getCustomerById(String id);
+
+    // Bulk lookup (one $in query): id -> name, unknown ids are left out
+    CompletableFuture<Map<String, String>> getCustomerNamesByIds(Collection<String> ids);
+}
@@ -1,9 +1,9 @@
 package com.inventory.api.customer.service;
 
 public interface CustomerDependencyChecker {
-    // Returns true if the module has data related to this customer
-    boolean hasDependency(String customerId);
+    // Count this module's data related to the customer, with the message to show when it blocks a delete
+    DependencyCheckResult check(String customerId);
 
-    // Returns the error message (e.g., "Customer has Sales Orders")
-    String getDependencyMessage();
-}
\ No newline at end of file
+    // Short-circuit variant: true as soon as one related record exists (no full count)
+    boolean hasDependency(String customerId);
+}
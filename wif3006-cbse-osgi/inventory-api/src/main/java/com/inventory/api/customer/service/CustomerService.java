@@ -1,12 +1,18 @@
 package com.inventory.api.customer.service;
 
+import com.inventory.api.common.Page;
+import com.inventory.api.common.Sort;
 import com.inventory.api.customer.model.Customer;
 import com.inventory.api.customer.model.CustomerCategory;
 import com.inventory.api.customer.model.CustomerContact;
 import com.inventory.api.customer.model.CustomerGroup;
+import com.inventory.api.customer.model.CustomerOverview;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface CustomerService {
 
@@ -15,11 +21,20 @@ public interface CustomerService {
 
     List<Customer> getAllCustomers();
 
+    // Keyset page on _id: afterId is the nextCursor of the previous page (null for the first page)
+    Page<Customer> listCustomers(String afterId, int limit, Sort sort);
+
+    // Every customer, read lazily from the cursor batchSize at a time; close the stream when done
+    Stream<Customer> streamCustomers(int batchSize);
+
     // Using Optional to prevent null pointer exceptions in the Menu
     Optional<Customer> getCustomerByName(String name);
 
     Optional<Customer> getCustomerById(String id);
 
+    // Bulk lookup (one $in query) for list/report screens: id -> name, unknown ids are left out
+    Map<String, String> getCustomerNamesByIds(Collection<String> ids);
+
     void updateCustomer(Customer customer);
 
     String deleteCustomer(String id);
@@ -63,4 +78,9 @@ public interface CustomerService {
     void updateContact(CustomerContact contact);
 
     void deleteContact(String id);
+
+    // ================= OVERVIEW =================
+    // The customer with its contacts, group, category, order count, lifetime value and latest orders,
+    // read in one aggregation and cached per customer until one of them changes. Do not modify it.
+    Optional<CustomerOverview> getCustomerOverview(String customerId);
 }
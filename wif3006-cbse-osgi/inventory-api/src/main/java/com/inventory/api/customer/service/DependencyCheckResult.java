@@ -0,0 +1,35 @@
+package com.inventory.api.customer.service;
+
+/**
+ * What one module reports about a customer it references.
+ *
+ * Immutable and created per call, so concurrent deletes each get their own count
+ * and message instead of reading whatever the checker saw last.
+ */
+public final class DependencyCheckResult {
+
+    private static final DependencyCheckResult NONE = new DependencyCheckResult(0, null);
+
+    private final long count;
+    private final String message;
+
+    private DependencyCheckResult(long count, String message) {
+        this.count = count;
+        this.message = message;
+    }
+
+    public static DependencyCheckResult none() {
+        return NONE;
+    }
+
+    // count <= 0 means nothing references the customer; the message is then ignored
+    public static DependencyCheckResult of(long count, String message) {
+        return count > 0 ? new DependencyCheckResult(count, message) : NONE;
+    }
+
+    public boolean hasDependency() { return count > 0; }
+    public long getCount() { return count; }
+
+    // e.g. "Customer has 3 existing Sales Order(s)."; null when there is no dependency
+    public String getMessage() { return message; }
+}
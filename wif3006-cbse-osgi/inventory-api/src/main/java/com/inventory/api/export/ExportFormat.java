@@ -0,0 +1,18 @@
+package com.inventory.api.export;
+
+// File layouts of an export: one JSON document per line, or CSV with a header line
+public enum ExportFormat {
+    NDJSON("ndjson"),
+    CSV("csv");
+
+    private final String extension;
+
+    ExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    // File name extension, without the dot and without ".gz"
+    public String getExtension() {
+        return extension;
+    }
+}
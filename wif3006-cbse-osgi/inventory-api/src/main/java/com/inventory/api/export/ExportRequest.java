@@ -0,0 +1,92 @@
+package com.inventory.api.export;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What to export: a collection, optionally filtered and sorted, to one file.
+ *
+ * Immutable; each setter returns a copy. NDJSON writes the whole documents; CSV writes the
+ * given columns (a dotted name reads an embedded field, "address.city"), so CSV needs them.
+ * An array or embedded document in a CSV column is written as JSON.
+ */
+public final class ExportRequest {
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private final String collection;
+    private final Path target;
+    private final Bson filter;
+    private final Bson sort;
+    private final List<String> columns;
+    private final ExportFormat format;
+    private final boolean gzip;
+    private final int batchSize;
+
+    private ExportRequest(String collection, Path target, Bson filter, Bson sort, List<String> columns,
+                          ExportFormat format, boolean gzip, int batchSize) {
+        this.collection = collection;
+        this.target = target;
+        this.filter = filter;
+        this.sort = sort;
+        this.columns = columns;
+        this.format = format;
+        this.gzip = gzip;
+        this.batchSize = batchSize;
+    }
+
+    // Every document of the collection as NDJSON, in natural order
+    public static ExportRequest of(String collection, Path target) {
+        if (collection == null || collection.isEmpty()) throw new IllegalArgumentException("Collection is required");
+        if (target == null) throw new IllegalArgumentException("Target file is required");
+        return new ExportRequest(collection, target, new Document(), null, Collections.emptyList(),
+                ExportFormat.NDJSON, false, DEFAULT_BATCH_SIZE);
+    }
+
+    public ExportRequest filter(Bson filter) {
+        return new ExportRequest(collection, target, filter != null ? filter : new Document(), sort, columns, format, gzip, batchSize);
+    }
+
+    // Best on an indexed field; null keeps the natural order
+    public ExportRequest sort(Bson sort) {
+        return new ExportRequest(collection, target, filter, sort, columns, format, gzip, batchSize);
+    }
+
+    public ExportRequest columns(String... columns) {
+        return new ExportRequest(collection, target, filter, sort, List.copyOf(Arrays.asList(columns)), format, gzip, batchSize);
+    }
+
+    public ExportRequest format(ExportFormat format) {
+        return new ExportRequest(collection, target, filter, sort, columns, format, gzip, batchSize);
+    }
+
+    // Gzip the file as it is written
+    public ExportRequest gzip(boolean gzip) {
+        return new ExportRequest(collection, target, filter, sort, columns, format, gzip, batchSize);
+    }
+
+    // Documents per round trip to the server; also the most documents in memory at a time
+    public ExportRequest batchSize(int batchSize) {
+        if (batchSize < 1) throw new IllegalArgumentException("Batch size must be at least 1");
+        return new ExportRequest(collection, target, filter, sort, columns, format, gzip, batchSize);
+    }
+
+    public String getCollection() { return collection; }
+    public Path getTarget() { return target; }
+    public Bson getFilter() { return filter; }
+    public Bson getSort() { return sort; }
+    public List<String> getColumns() { return columns; }
+    public ExportFormat getFormat() { return format; }
+    public boolean isGzip() { return gzip; }
+    public int getBatchSize() { return batchSize; }
+
+    @Override
+    public String toString() {
+        return collection + " -> " + target;
+    }
+}
@@ -0,0 +1,38 @@
+package com.inventory.api.export;
+
+import java.nio.file.Path;
+
+// Outcome of one finished export
+public final class ExportResult {
+
+    private final String collection;
+    private final Path file;
+    private final long documents;
+    private final long bytes;
+    private final long elapsedMillis;
+
+    public ExportResult(String collection, Path file, long documents, long bytes, long elapsedMillis) {
+        this.collection = collection;
+        this.file = file;
+        this.documents = documents;
+        this.bytes = bytes;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public String getCollection() { return collection; }
+    public Path getFile() { return file; }
+    public long getDocuments() { return documents; }
+    // Size of the file as written (after gzip)
+    public long getBytes() { return bytes; }
+    public long getElapsedMillis() { return elapsedMillis; }
+
+    public double getDocumentsPerSecond() {
+        return documents * 1000.0 / Math.max(1, elapsedMillis);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d document(s), %d bytes to %s in %d ms (%.0f/s)",
+                collection, documents, bytes, file, elapsedMillis, getDocumentsPerSecond());
+    }
+}
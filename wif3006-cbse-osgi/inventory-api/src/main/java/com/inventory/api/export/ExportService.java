@@ -0,0 +1,20 @@
+package com.inventory.api.export;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Streams collections from the Mongo cursor straight to files, published by the infrastructure bundle.
+ *
+ * Documents are written as they arrive, one cursor batch at a time, so an export needs the same
+ * memory for a hundred rows as for ten million. The file appears under its name only when it is
+ * complete; a failed export leaves nothing behind.
+ */
+public interface ExportService {
+
+    // Runs on the calling thread; UncheckedIOException when the file cannot be written
+    ExportResult export(ExportRequest request);
+
+    // One export per request, run in parallel; completes when all are done, exceptionally if one failed
+    CompletableFuture<List<ExportResult>> exportAll(List<ExportRequest> requests);
+}
@@ -0,0 +1,84 @@
+package com.inventory.api.mongo;
+
+import org.bson.BsonType;
+import org.bson.types.Decimal128;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * Target BSON type of one field in a SchemaMigration.
+ *
+ * convert() returns the stored value in the native type, or null when it is already native or
+ * cannot be converted (e.g. a non-numeric amount string); such values are left as they are.
+ */
+public enum BsonConversion {
+
+    // Exact amounts: "12.50", 12.5 and 12 all become Decimal128 12.50 / 12.5 / 12
+    DECIMAL128(BsonType.STRING, BsonType.DOUBLE, BsonType.INT32, BsonType.INT64) {
+        @Override
+        public Object convert(Object value) {
+            BigDecimal decimal = toDecimal(value);
+            try {
+                return decimal != null ? new Decimal128(decimal) : null;
+            } catch (NumberFormatException e) {
+                return null; // more than 34 significant digits
+            }
+        }
+    },
+
+    // ISO yyyy-MM-dd strings become a BSON date at the start of that day in the system zone,
+    // the same instant the codecs (and Spring Data) write for a LocalDate
+    DATE(BsonType.STRING) {
+        @Override
+        public Object convert(Object value) {
+            if (!(value instanceof String)) return null;
+            try {
+                LocalDate date = LocalDate.parse(((String) value).trim());
+                return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+    },
+
+    // Whole numbers only; 2.5 or "two" are left alone
+    INT32(BsonType.STRING, BsonType.DOUBLE, BsonType.INT64, BsonType.DECIMAL128) {
+        @Override
+        public Object convert(Object value) {
+            if (value instanceof Integer) return null;
+            BigDecimal decimal = value instanceof Decimal128 ? ((Decimal128) value).bigDecimalValue() : toDecimal(value);
+            try {
+                return decimal != null ? decimal.intValueExact() : null;
+            } catch (ArithmeticException e) {
+                return null;
+            }
+        }
+    };
+
+    private final BsonType[] legacyTypes;
+
+    BsonConversion(BsonType... legacyTypes) {
+        this.legacyTypes = legacyTypes;
+    }
+
+    // Stored types that still need converting ($type filter of the migration scan)
+    public BsonType[] getLegacyTypes() {
+        return legacyTypes.clone();
+    }
+
+    public abstract Object convert(Object value);
+
+    private static BigDecimal toDecimal(Object value) {
+        try {
+            if (value instanceof String) return new BigDecimal(((String) value).trim());
+            if (value instanceof Integer || value instanceof Long) return BigDecimal.valueOf(((Number) value).longValue());
+            if (value instanceof Double) return BigDecimal.valueOf((Double) value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return null;
+    }
+}
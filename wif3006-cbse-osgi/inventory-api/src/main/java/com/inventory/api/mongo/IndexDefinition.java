@@ -0,0 +1,70 @@
+package com.inventory.api.mongo;
+
+import com.mongodb.client.model.Collation;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+
+import org.bson.conversions.Bson;
+
+/**
+ * One index a service needs on one collection.
+ *
+ * Immutable; the fluent methods return a copy. The name defaults to the one MongoDB
+ * would generate itself ("field_1" / "a_1_b_1"), so an index created by hand with the
+ * same keys is recognised as already present.
+ */
+public final class IndexDefinition {
+
+    private final String collection;
+    private final String[] fields;
+    private final String name;
+    private final boolean unique;
+    private final Collation collation;
+
+    private IndexDefinition(String collection, String[] fields, String name, boolean unique, Collation collation) {
+        this.collection = collection;
+        this.fields = fields;
+        this.name = name;
+        this.unique = unique;
+        this.collation = collation;
+    }
+
+    // Ascending (compound when several fields are given) index on the collection
+    public static IndexDefinition ascending(String collection, String... fields) {
+        if (fields.length == 0) throw new IllegalArgumentException("An index needs at least one field");
+        return new IndexDefinition(collection, fields.clone(), String.join("_1_", fields) + "_1", false, null);
+    }
+
+    public IndexDefinition unique() {
+        return new IndexDefinition(collection, fields, name, true, collation);
+    }
+
+    public IndexDefinition named(String indexName) {
+        return new IndexDefinition(collection, fields, indexName, unique, collation);
+    }
+
+    // Queries only use a collated index when they pass the same collation
+    public IndexDefinition withCollation(Collation indexCollation) {
+        return new IndexDefinition(collection, fields, name, unique, indexCollation);
+    }
+
+    public String getCollection() { return collection; }
+    public String getName() { return name; }
+    public boolean isUnique() { return unique; }
+    public Collation getCollation() { return collation; }
+
+    public Bson getKeys() {
+        return Indexes.ascending(fields);
+    }
+
+    public IndexOptions toIndexOptions() {
+        IndexOptions options = new IndexOptions().name(name).unique(unique);
+        if (collation != null) options.collation(collation);
+        return options;
+    }
+
+    @Override
+    public String toString() {
+        return collection + "." + name;
+    }
+}
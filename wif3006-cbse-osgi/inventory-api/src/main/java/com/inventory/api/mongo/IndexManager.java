@@ -0,0 +1,22 @@
+package com.inventory.api.mongo;
+
+import java.util.List;
+
+/**
+ * Central place where the service bundles declare the indexes their queries rely on.
+ *
+ * Each service calls ensureIndexes() from its @Activate method with the indexes for the
+ * collections it owns. Creation is idempotent: indexes that already exist (by name) are
+ * left alone, so restarting a bundle costs one listIndexes per collection and nothing else.
+ */
+public interface IndexManager {
+
+    // Create whatever is missing and remember the declarations for the reports below
+    void ensureIndexes(List<IndexDefinition> definitions);
+
+    // Declared indexes that are not on the server (e.g. creation failed on duplicate data)
+    List<IndexDefinition> findMissingIndexes();
+
+    // "collection.index" entries with no recorded use since the server last started ($indexStats)
+    List<String> findUnusedIndexes();
+}
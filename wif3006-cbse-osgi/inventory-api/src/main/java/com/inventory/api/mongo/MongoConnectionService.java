@@ -0,0 +1,18 @@
+package com.inventory.api.mongo;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoDatabase;
+
+/**
+ * Shared MongoDB connection published by the infrastructure bundle.
+ * Every module takes this through @Reference instead of creating its own MongoClient,
+ * so the whole container runs on a single connection pool.
+ */
+public interface MongoConnectionService {
+
+    // The pooled client. Do NOT close it, the infrastructure bundle owns its lifecycle.
+    MongoClient getClient();
+
+    // The inventory database (name comes from the configuration)
+    MongoDatabase getDatabase();
+}
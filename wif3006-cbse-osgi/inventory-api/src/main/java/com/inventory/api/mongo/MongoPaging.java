@@ -0,0 +1,95 @@
+package com.inventory.api.mongo;
+
+import com.inventory.api.common.Page;
+import com.inventory.api.common.Sort;
+
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Keyset pagination and lazy streaming over a collection, shared by the service bundles.
+ *
+ * Pages seek on an indexed, unique key (_id, products.id, purchase_orders.orderId) instead
+ * of skip(), so fetching page N costs the same as page 1. Streams pull from the server
+ * cursor one batch at a time and must be closed (try-with-resources) to release it.
+ */
+public final class MongoPaging {
+
+    public static final int MAX_PAGE_SIZE = 500;
+
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    private MongoPaging() {
+    }
+
+    // after == null starts from the beginning; limit is capped at MAX_PAGE_SIZE.
+    // keyOf reads the key back from a decoded item to build the next cursor.
+    public static <T> Page<T> page(MongoCollection<T> collection, String key, Object after,
+                                   int limit, Sort sort, Function<T, ?> keyOf) {
+        return page(collection, key, after, limit, sort, null, keyOf);
+    }
+
+    // Same, returning only the projected fields (null = whole documents); the projection must keep the key
+    public static <T> Page<T> page(MongoCollection<T> collection, String key, Object after,
+                                   int limit, Sort sort, Bson projection, Function<T, ?> keyOf) {
+        if (limit < 1) throw new IllegalArgumentException("Page limit must be at least 1");
+        int size = Math.min(limit, MAX_PAGE_SIZE);
+        boolean descending = sort == Sort.DESC;
+
+        Bson filter = after == null
+                ? new Document()
+                : descending ? Filters.lt(key, after) : Filters.gt(key, after);
+        Bson order = descending ? Sorts.descending(key) : Sorts.ascending(key);
+
+        // One extra row tells us whether there is a next page without a count
+        FindIterable<T> find = collection.find(filter);
+        if (projection != null) find = find.projection(projection);
+        List<T> items = find.sort(order).limit(size + 1).into(new ArrayList<>());
+        boolean more = items.size() > size;
+        if (more) items = new ArrayList<>(items.subList(0, size));
+
+        String nextCursor = more ? String.valueOf(keyOf.apply(items.get(items.size() - 1))) : null;
+        return new Page<>(items, nextCursor);
+    }
+
+    // Cursor of an _id-keyed page; a malformed cursor is rejected rather than silently restarting
+    public static ObjectId objectIdCursor(String afterId) {
+        if (afterId == null || afterId.isEmpty()) return null;
+        if (!ObjectId.isValid(afterId)) throw new IllegalArgumentException("Invalid page cursor: " + afterId);
+        return new ObjectId(afterId);
+    }
+
+    // Lazily pulls the results of find; the cursor is opened on the first pull and closed with the stream
+    public static <T> Stream<T> stream(FindIterable<T> find, int batchSize) {
+        if (batchSize < 1) throw new IllegalArgumentException("Batch size must be at least 1");
+        FindIterable<T> batched = find.batchSize(batchSize);
+        AtomicReference<MongoCursor<T>> opened = new AtomicReference<>();
+        int characteristics = Spliterator.ORDERED | Spliterator.NONNULL;
+
+        return StreamSupport.stream(() -> {
+                    MongoCursor<T> cursor = batched.iterator();
+                    opened.set(cursor);
+                    return Spliterators.spliteratorUnknownSize(cursor, characteristics);
+                }, characteristics, false)
+                .onClose(() -> {
+                    MongoCursor<T> cursor = opened.get();
+                    if (cursor != null) cursor.close();
+                });
+    }
+}
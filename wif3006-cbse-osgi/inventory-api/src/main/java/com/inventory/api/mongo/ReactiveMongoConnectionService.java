@@ -0,0 +1,18 @@
+package com.inventory.api.mongo;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoDatabase;
+
+/**
+ * Shared reactive MongoDB connection published by the infrastructure bundle, used by the
+ * Async*Service components. Configured under the same PID as MongoConnectionService, so both
+ * clients point at the same database with the same pool limits.
+ */
+public interface ReactiveMongoConnectionService {
+
+    // The pooled reactive client. Do NOT close it, the infrastructure bundle owns its lifecycle.
+    MongoClient getClient();
+
+    // The inventory database, with the model codecs registered (null when not connected)
+    MongoDatabase getDatabase();
+}
@@ -0,0 +1,56 @@
+package com.inventory.api.mongo;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One versioned data migration: the fields to convert, per collection.
+ *
+ * Immutable; convert() returns a copy. Versions are shared by every bundle (they key the
+ * "schema_migrations" collection), so a bundle picks a number no other bundle uses.
+ * A field inside an array of embedded documents is named with a dot ("orderItems.quantity").
+ */
+public final class SchemaMigration {
+
+    private final int version;
+    private final String description;
+    // collection -> field -> target type, in declaration order
+    private final Map<String, Map<String, BsonConversion>> conversions;
+
+    private SchemaMigration(int version, String description, Map<String, Map<String, BsonConversion>> conversions) {
+        this.version = version;
+        this.description = description;
+        this.conversions = conversions;
+    }
+
+    public static SchemaMigration version(int version, String description) {
+        if (version <= 0) throw new IllegalArgumentException("Migration versions start at 1");
+        return new SchemaMigration(version, description, Collections.emptyMap());
+    }
+
+    public SchemaMigration convert(String collection, String field, BsonConversion conversion) {
+        Map<String, Map<String, BsonConversion>> copy = new LinkedHashMap<>();
+        conversions.forEach((name, fields) -> copy.put(name, new LinkedHashMap<>(fields)));
+        copy.computeIfAbsent(collection, name -> new LinkedHashMap<>()).put(field, conversion);
+        copy.replaceAll((name, fields) -> Collections.unmodifiableMap(fields));
+        return new SchemaMigration(version, description, Collections.unmodifiableMap(copy));
+    }
+
+    public int getVersion() { return version; }
+    public String getDescription() { return description; }
+
+    public Set<String> getCollections() {
+        return conversions.keySet();
+    }
+
+    public Map<String, BsonConversion> getConversions(String collection) {
+        return conversions.getOrDefault(collection, Collections.emptyMap());
+    }
+
+    @Override
+    public String toString() {
+        return "V" + version + " (" + description + ")";
+    }
+}
@@ -0,0 +1,22 @@
+package com.inventory.api.mongo;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Runs SchemaMigrations online, while the services keep reading and writing.
+ *
+ * Each service submits the migrations for the collections it owns from its @Activate method.
+ * The collections of a migration are converted in parallel, in batched bulk writes; progress
+ * is checkpointed in "schema_migrations", so a migration interrupted by a restart resumes where
+ * it stopped. Until isApplied() returns true the readers must accept both the old and the
+ * new format (the model codecs do).
+ */
+public interface SchemaMigrationService {
+
+    // Starts the migration in the background unless it was applied before; completes with
+    // the number of documents converted by this run
+    CompletableFuture<Long> submit(SchemaMigration migration);
+
+    // True once every collection of the version is converted (answered from memory)
+    boolean isApplied(int version);
+}
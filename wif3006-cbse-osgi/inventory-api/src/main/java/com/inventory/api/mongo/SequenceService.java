@@ -0,0 +1,16 @@
+package com.inventory.api.mongo;
+
+/**
+ * Atomic, collision-free number sequences backed by the "counters" collection.
+ * Each sequence is one document ({ _id: name, seq: last value handed out }) that is
+ * advanced with a single findOneAndUpdate + $inc, so allocating an ID is O(1) and safe
+ * under concurrent callers (in this container or any other process).
+ */
+public interface SequenceService {
+
+    // Allocate the next value of the sequence (starts at 1)
+    long next(String sequenceName);
+
+    // Make sure the sequence never hands out a value <= floor (used to seed from existing data)
+    void ensureAtLeast(String sequenceName, long floor);
+}
@@ -0,0 +1,33 @@
+package com.inventory.api.product.model;
+import java.io.Serializable;
+
+// One product counted in a stock count; expected and variance are filled in when the count completes
+public class StockCountLine implements Serializable {
+    private String countId;
+    private String productId;
+    private int counted;
+    private Long expected;
+    private Long variance;
+
+    public StockCountLine() {}
+    public StockCountLine(String countId, String productId, int counted, Long expected, Long variance) {
+        this.countId = countId;
+        this.productId = productId;
+        this.counted = counted;
+        this.expected = expected;
+        this.variance = variance;
+    }
+    // Getters/Setters
+    public String getCountId() { return countId; }
+    public void setCountId(String countId) { this.countId = countId; }
+    public String getProductId() { return productId; }
+    public void setProductId(String productId) { this.productId = productId; }
+    public int getCounted() { return counted; }
+    public void setCounted(int counted) { this.counted = counted; }
+    // On hand in the count's warehouse when the count completed (null before that)
+    public Long getExpected() { return expected; }
+    public void setExpected(Long expected) { this.expected = expected; }
+    // counted - expected: what the adjustment added (or, negative, took away)
+    public Long getVariance() { return variance; }
+    public void setVariance(Long variance) { this.variance = variance; }
+}
@@ -0,0 +1,23 @@
+package com.inventory.api.product.service;
+
+import com.inventory.api.product.model.Product;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterparts of the ProductService lookups, on the reactive driver.
+ * Independent calls can be started together and joined once; writes stay on ProductService.
+ */
+public interface AsyncProductService {
+
+    CompletableFuture<List<Product>> getAllProducts();
+
+    // Completes with null when not found, like ProductService.getProduct
+    CompletableFuture<Product> getProduct(String id);
+
+    // Bulk lookup (one $in query): id -> name, unknown ids are left out
+    CompletableFuture<Map<String, String>> getProductNamesByIds(Collection<String> ids);
+}
@@ -1,9 +1,14 @@
 package com.inventory.api.product.service;
 
+import com.inventory.api.common.Page;
+import com.inventory.api.common.Sort;
 import com.inventory.api.product.model.*;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.stream.Stream;
 
 public interface ProductService {
     // --- Product ---
@@ -11,7 +16,15 @@ public interface ProductService {
     void updateProduct(Product product);
     void deleteProduct(String id);
     List<Product> getAllProducts();
+    // Keyset page on the product id: afterId is the nextCursor of the previous page (null for the first)
+    Page<Product> listProducts(String afterId, int limit, Sort sort);
+    // Every product, read lazily from the cursor batchSize at a time; close the stream when done
+    Stream<Product> streamProducts(int batchSize);
     Product getProduct(String id);
+    // Bulk lookup (one $in query): id -> name, unknown ids are left out
+    Map<String, String> getProductNamesByIds(Collection<String> ids);
+    // Case-insensitive exact name match (collation index on products.name), null if not found
+    String getProductIdByName(String name);
 
     // --- Group ---
     void addProductGroup(ProductGroup group);
@@ -34,7 +47,13 @@ public interface ProductService {
     // --- Stock ---
     void addStockCount(StockCount stock);
     List<StockCount> getAllStockCounts();
+    // Counted quantities of a Pending count, productId -> quantity, in one bulk upsert (a recount replaces the line)
+    String recordCountedQuantities(String countId, Map<String, Integer> counted);
+    // The count's lines, read lazily batchSize at a time; close the stream when done
+    Stream<StockCountLine> streamStockCountLines(String countId, int batchSize);
 
+    // Snapshots the expected on-hand of every line, computes the variances on the server and posts them
+    // to the stock ledger in batches; a count that failed half-way resumes where it stopped when run again
     String completeStockCount(String countId);
 
     // --- Menu ---
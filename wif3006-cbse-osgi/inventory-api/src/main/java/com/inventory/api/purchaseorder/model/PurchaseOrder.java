@@ -5,6 +5,8 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 public class PurchaseOrder implements Serializable {
     private int orderId;
@@ -17,6 +19,8 @@ public class PurchaseOrder implements Serializable {
     private LocalDate returnedDate; // Date when order status changed to "returned"
     private LocalDate shippingDate; // Date when order status changed to "shipping"
     private LocalDate cancelledDate; // Date when order status changed to "cancelled"
+    private String warehouse; // Where the goods of a received order were put
+    private Map<String, Integer> receivedQuantities; // productId -> quantity the receipt put on hand
     
     public PurchaseOrder() {
         this.orderItems = new ArrayList<>();
@@ -112,6 +116,22 @@ public class PurchaseOrder implements Serializable {
         this.cancelledDate = cancelledDate;
     }
     
+    public String getWarehouse() {
+        return warehouse;
+    }
+    
+    public void setWarehouse(String warehouse) {
+        this.warehouse = warehouse;
+    }
+    
+    public Map<String, Integer> getReceivedQuantities() {
+        return receivedQuantities;
+    }
+    
+    public void setReceivedQuantities(Map<String, Integer> receivedQuantities) {
+        this.receivedQuantities = receivedQuantities != null ? new TreeMap<>(receivedQuantities) : null;
+    }
+    
     public double getTotalPrice() {
         return orderItems.stream()
             .mapToDouble(OrderItem::getTotalPrice)
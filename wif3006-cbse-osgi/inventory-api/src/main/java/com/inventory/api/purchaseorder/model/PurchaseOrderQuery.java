@@ -0,0 +1,121 @@
+package com.inventory.api.purchaseorder.model;
+
+import com.inventory.api.common.Sort;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Criteria for PurchaseOrderService.findPurchaseOrders(), translated into a single Mongo query.
+ *
+ * Every criterion is optional; an empty query returns every order by orderId. Date bounds are
+ * inclusive. Statuses are matched in lower case, the way the menus store them.
+ */
+public class PurchaseOrderQuery {
+
+    public enum SortField {
+        ORDER_ID("orderId"),
+        ORDER_DATE("orderDate"),
+        VENDOR("vendor"),
+        TOTAL_PRICE("totalPrice");
+
+        private final String field;
+
+        SortField(String field) {
+            this.field = field;
+        }
+
+        public String getField() {
+            return field;
+        }
+    }
+
+    private final Set<String> statuses = new LinkedHashSet<>();
+    private String vendor;
+    private LocalDate orderDateFrom;
+    private LocalDate orderDateTo;
+    private LocalDate receivedDateFrom;
+    private LocalDate receivedDateTo;
+    private SortField sortField = SortField.ORDER_ID;
+    private Sort sortDirection = Sort.ASC;
+    private int limit; // 0 = no limit
+
+    public PurchaseOrderQuery statuses(String... statuses) {
+        for (String status : statuses) this.statuses.add(status.toLowerCase(Locale.ROOT));
+        return this;
+    }
+
+    public PurchaseOrderQuery statuses(Collection<String> statuses) {
+        return statuses(statuses.toArray(new String[0]));
+    }
+
+    public PurchaseOrderQuery vendor(String vendor) {
+        this.vendor = vendor;
+        return this;
+    }
+
+    // Either bound may be null for an open range
+    public PurchaseOrderQuery orderDateBetween(LocalDate from, LocalDate to) {
+        this.orderDateFrom = from;
+        this.orderDateTo = to;
+        return this;
+    }
+
+    public PurchaseOrderQuery receivedDateBetween(LocalDate from, LocalDate to) {
+        this.receivedDateFrom = from;
+        this.receivedDateTo = to;
+        return this;
+    }
+
+    public PurchaseOrderQuery sortBy(SortField field, Sort direction) {
+        this.sortField = field;
+        this.sortDirection = direction;
+        return this;
+    }
+
+    public PurchaseOrderQuery limit(int limit) {
+        if (limit < 0) throw new IllegalArgumentException("Limit must not be negative");
+        this.limit = limit;
+        return this;
+    }
+
+    public Set<String> getStatuses() {
+        return Collections.unmodifiableSet(statuses);
+    }
+
+    public String getVendor() {
+        return vendor;
+    }
+
+    public LocalDate getOrderDateFrom() {
+        return orderDateFrom;
+    }
+
+    public LocalDate getOrderDateTo() {
+        return orderDateTo;
+    }
+
+    public LocalDate getReceivedDateFrom() {
+        return receivedDateFrom;
+    }
+
+    public LocalDate getReceivedDateTo() {
+        return receivedDateTo;
+    }
+
+    public SortField getSortField() {
+        return sortField;
+    }
+
+    public Sort getSortDirection() {
+        return sortDirection;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+}
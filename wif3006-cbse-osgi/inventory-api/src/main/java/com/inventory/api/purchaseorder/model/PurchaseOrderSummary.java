@@ -0,0 +1,92 @@
+package com.inventory.api.purchaseorder.model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * The columns of a purchase order list. Read with a projection: the total and the item count
+ * are stored on the order when it is written, so the items themselves never leave the server.
+ */
+public class PurchaseOrderSummary implements Serializable {
+    private int orderId;
+    private LocalDate orderDate;
+    private String orderNumber;
+    private String vendor;
+    private String orderStatus;
+    private LocalDate receivedDate;
+    private LocalDate returnedDate;
+    private double totalPrice;
+    private int itemCount;
+    
+    public int getOrderId() {
+        return orderId;
+    }
+    
+    public void setOrderId(int orderId) {
+        this.orderId = orderId;
+    }
+    
+    public LocalDate getOrderDate() {
+        return orderDate;
+    }
+    
+    public void setOrderDate(LocalDate orderDate) {
+        this.orderDate = orderDate;
+    }
+    
+    public String getOrderNumber() {
+        return orderNumber;
+    }
+    
+    public void setOrderNumber(String orderNumber) {
+        this.orderNumber = orderNumber;
+    }
+    
+    public String getVendor() {
+        return vendor;
+    }
+    
+    public void setVendor(String vendor) {
+        this.vendor = vendor;
+    }
+    
+    public String getOrderStatus() {
+        return orderStatus;
+    }
+    
+    public void setOrderStatus(String orderStatus) {
+        this.orderStatus = orderStatus;
+    }
+    
+    public LocalDate getReceivedDate() {
+        return receivedDate;
+    }
+    
+    public void setReceivedDate(LocalDate receivedDate) {
+        this.receivedDate = receivedDate;
+    }
+    
+    public LocalDate getReturnedDate() {
+        return returnedDate;
+    }
+    
+    public void setReturnedDate(LocalDate returnedDate) {
+        this.returnedDate = returnedDate;
+    }
+    
+    public double getTotalPrice() {
+        return totalPrice;
+    }
+    
+    public void setTotalPrice(double totalPrice) {
+        this.totalPrice = totalPrice;
+    }
+    
+    public int getItemCount() {
+        return itemCount;
+    }
+    
+    public void setItemCount(int itemCount) {
+        this.itemCount = itemCount;
+    }
+}
@@ -0,0 +1,18 @@
+package com.inventory.api.purchaseorder.service;
+
+import com.inventory.api.purchaseorder.model.PurchaseOrder;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterparts of the PurchaseOrderService lookups, on the reactive driver.
+ * Writes and the ID sequence stay on PurchaseOrderService.
+ */
+public interface AsyncPurchaseOrderService {
+
+    CompletableFuture<List<PurchaseOrder>> getAllPurchaseOrders();
+
+    // Completes with null when not found, like PurchaseOrderService.getPurchaseOrderById
+    CompletableFuture<PurchaseOrder> getPurchaseOrderById(int orderId);
+}
@@ -1,27 +1,68 @@
 package com.inventory.api.purchaseorder.service;
 
+import com.inventory.api.common.Page;
+import com.inventory.api.common.Sort;
+import com.inventory.api.export.ExportFormat;
+import com.inventory.api.export.ExportResult;
 import com.inventory.api.purchaseorder.model.PurchaseOrder;
+import com.inventory.api.purchaseorder.model.PurchaseOrderQuery;
+import com.inventory.api.purchaseorder.model.PurchaseOrderSummary;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface PurchaseOrderService {
     // View all purchase orders
     List<PurchaseOrder> getAllPurchaseOrders();
     
+    // Keyset page on orderId: afterId is the nextCursor of the previous page (null for the first page)
+    Page<PurchaseOrder> listPurchaseOrders(String afterId, int limit, Sort sort);
+    
+    // Same page as listPurchaseOrders(), projected to the list columns (the items stay on the server)
+    Page<PurchaseOrderSummary> listPurchaseOrderSummaries(String afterId, int limit, Sort sort);
+    
+    // Every purchase order, read lazily from the cursor batchSize at a time; close the stream when done
+    Stream<PurchaseOrder> streamPurchaseOrders(int batchSize);
+    
+    // Filtered, sorted and limited on the server (one indexed query); see PurchaseOrderQuery
+    List<PurchaseOrder> findPurchaseOrders(PurchaseOrderQuery query);
+    
+    // Same as findPurchaseOrders(), projected to the list columns
+    List<PurchaseOrderSummary> findPurchaseOrderSummaries(PurchaseOrderQuery query);
+    
+    // The orders matching the query's filters, streamed to a file in orderId order (sort and limit are ignored)
+    ExportResult exportPurchaseOrders(PurchaseOrderQuery query, ExportFormat format, boolean gzip, Path target);
+    
     // Get a specific purchase order by ID
     PurchaseOrder getPurchaseOrderById(int orderId);
     
     // Add a new purchase order
     PurchaseOrder addPurchaseOrder(PurchaseOrder purchaseOrder);
     
-    // Update an existing purchase order
+    // Update an existing purchase order. IllegalStateException if the items of a received/returned
+    // order would change (their stock was posted) or the order changed status meanwhile
     PurchaseOrder updatePurchaseOrder(int orderId, PurchaseOrder purchaseOrder);
     
+    // Goods receive: shipping -> received, putting the items on hand in the warehouse (null = the default one).
+    // Items are matched to products by name; null when the order is not shipping.
+    PurchaseOrder receivePurchaseOrder(int orderId, String warehouse);
+    
+    // Undo a goods receive: received -> shipping, taking the items off hand again.
+    // Null when the order is not received; IllegalStateException when the stock was already reserved or used.
+    PurchaseOrder reversePurchaseOrderReceipt(int orderId);
+    
+    // Purchase return: received -> returned, the items leaving stock for the vendor (same results as above)
+    PurchaseOrder returnPurchaseOrder(int orderId);
+    
+    // Undo a purchase return: returned -> received, the items back on hand; null when the order is not returned
+    PurchaseOrder cancelPurchaseReturn(int orderId);
+    
     // Delete a purchase order
     boolean deletePurchaseOrder(int orderId);
     
     // Check if purchase order exists
     boolean purchaseOrderExists(int orderId);
     
-    // Get next available order ID
+    // Allocate the next order ID (atomic, every call consumes a new ID)
     int getNextOrderId();
 }
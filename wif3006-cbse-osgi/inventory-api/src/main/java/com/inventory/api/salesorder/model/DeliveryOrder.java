@@ -11,6 +11,8 @@ public class DeliveryOrder implements Serializable {
     private String salesOrderId;
     private String status; // PENDING, IN_TRANSIT, DELIVERED, CANCELLED
     private String description;
+    // The sales return that brought the delivered goods back; set once, when that return completes
+    private String returnId;
     private String createdAt;
     private String editedAt;
 
@@ -46,6 +48,9 @@ public class DeliveryOrder implements Serializable {
     public String getDescription() { return description; }
     public void setDescription(String description) { this.description = description; }
 
+    public String getReturnId() { return returnId; }
+    public void setReturnId(String returnId) { this.returnId = returnId; }
+
     public String getCreatedAt() { return createdAt; }
     public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }
 
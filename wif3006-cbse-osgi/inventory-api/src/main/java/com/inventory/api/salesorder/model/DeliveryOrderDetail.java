@@ -0,0 +1,17 @@
+package com.inventory.api.salesorder.model;
+
+import java.io.Serializable;
+
+// A delivery order with the detail of the sales order it delivers
+public class DeliveryOrderDetail implements Serializable {
+    private DeliveryOrder deliveryOrder = new DeliveryOrder();
+    private SalesOrderDetail salesOrder;
+
+    // Getters and Setters
+    public DeliveryOrder getDeliveryOrder() { return deliveryOrder; }
+    public void setDeliveryOrder(DeliveryOrder deliveryOrder) { this.deliveryOrder = deliveryOrder; }
+
+    // Null when the sales order no longer exists
+    public SalesOrderDetail getSalesOrder() { return salesOrder; }
+    public void setSalesOrder(SalesOrderDetail salesOrder) { this.salesOrder = salesOrder; }
+}
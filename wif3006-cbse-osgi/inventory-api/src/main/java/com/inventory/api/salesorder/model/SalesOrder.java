@@ -13,6 +13,8 @@ public class SalesOrder implements Serializable {
     private String taxId;
     private String orderStatus; // PENDING, CONFIRMED, PROCESSING, COMPLETED, CANCELLED
     private String description;
+    // Where a confirmed order's stock is reserved
+    private String warehouse;
     
     // Tax calculation fields
     private BigDecimal beforeTaxAmount;
@@ -64,6 +66,9 @@ public class SalesOrder implements Serializable {
     public String getDescription() { return description; }
     public void setDescription(String description) { this.description = description; }
 
+    public String getWarehouse() { return warehouse; }
+    public void setWarehouse(String warehouse) { this.warehouse = warehouse; }
+
     public BigDecimal getBeforeTaxAmount() { return beforeTaxAmount; }
     public void setBeforeTaxAmount(BigDecimal beforeTaxAmount) { this.beforeTaxAmount = beforeTaxAmount; }
 
@@ -0,0 +1,51 @@
+package com.inventory.api.salesorder.model;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+// A sales order with everything its detail view shows: lines with product names, the customer's name and the tax
+public class SalesOrderDetail implements Serializable {
+    private SalesOrder order = new SalesOrder();
+    private String customerName;
+    private Tax tax;
+    private List<Line> lines = new ArrayList<>();
+
+    // Getters and Setters
+    public SalesOrder getOrder() { return order; }
+    public void setOrder(SalesOrder order) { this.order = order; }
+
+    // Null when the customer no longer exists
+    public String getCustomerName() { return customerName; }
+    public void setCustomerName(String customerName) { this.customerName = customerName; }
+
+    // Null when the order has no tax
+    public Tax getTax() { return tax; }
+    public void setTax(Tax tax) { this.tax = tax; }
+
+    public List<Line> getLines() { return lines; }
+    public void setLines(List<Line> lines) { this.lines = lines; }
+
+    public BigDecimal getTaxRate() {
+        return tax != null && tax.getTaxRate() != null ? tax.getTaxRate() : BigDecimal.ZERO;
+    }
+
+    // One order line and the name of its product (null when the product no longer exists)
+    public static class Line implements Serializable {
+        private SalesOrderItem item;
+        private String productName;
+
+        public Line() {}
+        public Line(SalesOrderItem item, String productName) {
+            this.item = item;
+            this.productName = productName;
+        }
+
+        public SalesOrderItem getItem() { return item; }
+        public void setItem(SalesOrderItem item) { this.item = item; }
+
+        public String getProductName() { return productName; }
+        public void setProductName(String productName) { this.productName = productName; }
+    }
+}
@@ -0,0 +1,46 @@
+package com.inventory.api.salesorder.model;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// The columns of a sales order list: read with a projection, without the description and audit timestamps
+public class SalesOrderSummary implements Serializable {
+    private String id;
+    private String orderNumber;
+    private LocalDate orderDate;
+    private String customerId;
+    private String taxId;
+    private String orderStatus;
+    private BigDecimal beforeTaxAmount = BigDecimal.ZERO;
+    private BigDecimal taxAmount = BigDecimal.ZERO;
+    private BigDecimal afterTaxAmount = BigDecimal.ZERO;
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getOrderNumber() { return orderNumber; }
+    public void setOrderNumber(String orderNumber) { this.orderNumber = orderNumber; }
+
+    public LocalDate getOrderDate() { return orderDate; }
+    public void setOrderDate(LocalDate orderDate) { this.orderDate = orderDate; }
+
+    public String getCustomerId() { return customerId; }
+    public void setCustomerId(String customerId) { this.customerId = customerId; }
+
+    public String getTaxId() { return taxId; }
+    public void setTaxId(String taxId) { this.taxId = taxId; }
+
+    public String getOrderStatus() { return orderStatus; }
+    public void setOrderStatus(String orderStatus) { this.orderStatus = orderStatus; }
+
+    public BigDecimal getBeforeTaxAmount() { return beforeTaxAmount; }
+    public void setBeforeTaxAmount(BigDecimal beforeTaxAmount) { this.beforeTaxAmount = beforeTaxAmount; }
+
+    public BigDecimal getTaxAmount() { return taxAmount; }
+    public void setTaxAmount(BigDecimal taxAmount) { this.taxAmount = taxAmount; }
+
+    public BigDecimal getAfterTaxAmount() { return afterTaxAmount; }
+    public void setAfterTaxAmount(BigDecimal afterTaxAmount) { this.afterTaxAmount = afterTaxAmount; }
+}
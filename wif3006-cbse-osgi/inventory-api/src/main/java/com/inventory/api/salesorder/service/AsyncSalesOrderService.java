@@ -0,0 +1,41 @@
+package com.inventory.api.salesorder.service;
+
+import com.inventory.api.salesorder.model.SalesOrder;
+import com.inventory.api.salesorder.model.SalesOrderItem;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterparts of the SalesOrderService lookups, on the reactive driver.
+ *
+ * Order screens start the independent reads (customer name, lines, product names) together
+ * and wait once, instead of paying one round trip after another. Writes and the cached
+ * tax lookups stay on SalesOrderService.
+ */
+public interface AsyncSalesOrderService {
+
+    // ================= SALES ORDERS =================
+    CompletableFuture<List<SalesOrder>> getAllSalesOrders();
+
+    CompletableFuture<Optional<SalesOrder>> getSalesOrderById(String id);
+
+    CompletableFuture<Optional<SalesOrder>> getSalesOrderByNumber(String orderNumber);
+
+    // ================= SALES ORDER ITEMS =================
+    CompletableFuture<List<SalesOrderItem>> getItemsByOrderId(String orderId);
+
+    // Items of many orders in one query, grouped by salesOrderId
+    CompletableFuture<Map<String, List<SalesOrderItem>>> getItemsByOrderIds(Collection<String> orderIds);
+
+    // ================= HELPER METHODS =================
+    // Cross-module lookups, answered by the async Customer and Product services
+    CompletableFuture<String> getCustomerNameById(String customerId);
+
+    CompletableFuture<Map<String, String>> getCustomerNamesByIds(Collection<String> customerIds);
+
+    CompletableFuture<Map<String, String>> getProductNamesByIds(Collection<String> productIds);
+}
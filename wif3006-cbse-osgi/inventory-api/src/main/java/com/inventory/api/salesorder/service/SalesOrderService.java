@@ -1,14 +1,26 @@
 package com.inventory.api.salesorder.service;
 
+import com.inventory.api.common.Page;
+import com.inventory.api.common.Sort;
+import com.inventory.api.export.ExportFormat;
+import com.inventory.api.export.ExportResult;
 import com.inventory.api.salesorder.model.SalesOrder;
+import com.inventory.api.salesorder.model.SalesOrderDetail;
 import com.inventory.api.salesorder.model.SalesOrderItem;
+import com.inventory.api.salesorder.model.SalesOrderSummary;
 import com.inventory.api.salesorder.model.DeliveryOrder;
+import com.inventory.api.salesorder.model.DeliveryOrderDetail;
 import com.inventory.api.salesorder.model.SalesReturn;
 import com.inventory.api.salesorder.model.Tax;
 
 import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 public interface SalesOrderService {
 
@@ -17,20 +29,48 @@ public interface SalesOrderService {
 
     List<SalesOrder> getAllSalesOrders();
 
+    // Keyset page on _id: afterId is the nextCursor of the previous page (null for the first page)
+    Page<SalesOrder> listSalesOrders(String afterId, int limit, Sort sort);
+
+    // Same page as listSalesOrders(), projected to the list columns (no description or audit timestamps)
+    Page<SalesOrderSummary> listSalesOrderSummaries(String afterId, int limit, Sort sort);
+
+    // Every sales order, read lazily from the cursor batchSize at a time; close the stream when done
+    Stream<SalesOrder> streamSalesOrders(int batchSize);
+
+    // Orders, lines, delivery orders and returns, each streamed to its own file in the directory, in parallel
+    CompletableFuture<List<ExportResult>> exportSalesData(Path directory, ExportFormat format, boolean gzip);
+
     Optional<SalesOrder> getSalesOrderById(String id);
 
     Optional<SalesOrder> getSalesOrderByNumber(String orderNumber);
 
+    // The order with its lines, product names, customer name and tax, joined on the server in one round trip
+    Optional<SalesOrderDetail> getSalesOrderDetail(String id);
+
     void updateSalesOrder(SalesOrder order);
 
-    // Returns a String message (e.g., "Cannot delete, has delivery orders")
+    // Returns a String message (e.g., "Cannot delete, has delivery orders"); an order holding a reservation is cancelled first
     String deleteSalesOrder(String id);
 
+    // Indexed count / existence check on customerId (used by the customer delete check)
+    long countSalesOrdersByCustomerId(String customerId);
+
+    boolean hasSalesOrdersForCustomer(String customerId);
+
     // ================= SALES ORDER ITEMS =================
+    // The writes throw IllegalStateException while the order holds a stock reservation (CONFIRMED, PROCESSING)
+    // or is being confirmed
     void addSalesOrderItem(SalesOrderItem item);
 
+    // Bulk line entry: one insertMany and one totals recalculation per order
+    void addSalesOrderItems(List<SalesOrderItem> items);
+
     List<SalesOrderItem> getItemsByOrderId(String orderId);
 
+    // Items of many orders in one query, grouped by salesOrderId
+    Map<String, List<SalesOrderItem>> getItemsByOrderIds(Collection<String> orderIds);
+
     void updateSalesOrderItem(SalesOrderItem item);
 
     void deleteSalesOrderItem(String id);
@@ -40,10 +80,15 @@ public interface SalesOrderService {
 
     List<DeliveryOrder> getAllDeliveryOrders();
 
+    Page<DeliveryOrder> listDeliveryOrders(String afterId, int limit, Sort sort);
+
     Optional<DeliveryOrder> getDeliveryOrderById(String id);
 
     Optional<DeliveryOrder> getDeliveryOrderByNumber(String deliveryNumber);
 
+    // The delivery order with the detail of its sales order, in one round trip
+    Optional<DeliveryOrderDetail> getDeliveryOrderDetail(String id);
+
     void updateDeliveryOrder(DeliveryOrder order);
 
     // Returns a String message
@@ -54,6 +99,8 @@ public interface SalesOrderService {
 
     List<SalesReturn> getAllSalesReturns();
 
+    Page<SalesReturn> listSalesReturns(String afterId, int limit, Sort sort);
+
     Optional<SalesReturn> getSalesReturnById(String id);
 
     Optional<SalesReturn> getSalesReturnByNumber(String returnNumber);
@@ -63,6 +110,24 @@ public interface SalesOrderService {
     // Returns a String message
     String deleteSalesReturn(String id);
 
+    // ================= STOCK =================
+    // These move stock through the StockLedgerService and return a String message.
+    // An order's lines are expected to be final once it is confirmed.
+
+    // PENDING -> CONFIRMED, reserving every line in the warehouse (null = the default one);
+    // nothing changes when one of the products is short, or while a line write is under way
+    String confirmSalesOrder(String orderId, String warehouse);
+
+    // -> CANCELLED, giving back the stock a confirmed order held
+    String cancelSalesOrder(String orderId);
+
+    // -> DELIVERED, taking the order's reserved stock off hand and completing the sales order;
+    // nothing changes (the reservation stays) when the reserved stock is short
+    String deliverDeliveryOrder(String deliveryOrderId);
+
+    // -> COMPLETED, putting the delivered lines back on hand in the order's warehouse
+    String completeSalesReturn(String returnId);
+
     // ================= HELPER METHODS =================
     // These methods help with cross-module lookups (Customer, Product, Tax)
     String getCustomerNameById(String customerId);
@@ -81,6 +146,18 @@ public interface SalesOrderService {
 
     String getDeliveryOrderNumberById(String id);
 
+    // Bulk versions of the lookups above, for list/report screens (one $in query each).
+    // Ids that cannot be resolved are left out of the map.
+    Map<String, String> getCustomerNamesByIds(Collection<String> customerIds);
+
+    Map<String, String> getProductNamesByIds(Collection<String> productIds);
+
+    Map<String, BigDecimal> getTaxRatesByIds(Collection<String> taxIds);
+
+    Map<String, String> getSalesOrderNumbersByIds(Collection<String> ids);
+
+    Map<String, String> getDeliveryOrderNumbersByIds(Collection<String> ids);
+
     BigDecimal getProductPriceById(String productId);
 
     Optional<Tax> getTaxByName(String taxName);
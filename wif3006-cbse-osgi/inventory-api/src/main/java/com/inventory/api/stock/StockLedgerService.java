@@ -0,0 +1,33 @@
+package com.inventory.api.stock;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * On-hand and reserved stock per product and warehouse, published by the product bundle.
+ *
+ * Every movement is one conditional $inc on the level's document, so concurrent order takers
+ * never reserve more than is available and no lock is taken outside the server. Each movement
+ * is also journalled in "stock_movements" under the document it was posted for.
+ */
+public interface StockLedgerService {
+
+    // Where stock goes when the caller does not name a warehouse
+    String DEFAULT_WAREHOUSE = "Main";
+
+    // From the in-memory cache (loaded on first read); a level nothing was posted to has no stock.
+    // Good for display and quick checks - post() is what guarantees the stock is there.
+    StockLevel getStockLevel(String productId, String warehouse);
+
+    // Every warehouse holding the product, read from the database
+    List<StockLevel> getStockLevels(String productId);
+
+    // Posts the movement for each productId -> quantity, all or nothing: false (and nothing moved)
+    // when a guarded quantity of one of the products would go below zero
+    boolean post(StockMovementType type, String reference, String warehouse, Map<String, Integer> quantities);
+
+    // Corrects on-hand by each productId -> signed delta (a count's variance) in one unordered bulk write,
+    // journalled as COUNT_ADJUSTMENT. Unguarded: what was counted is what is there. Zero deltas are skipped.
+    // A level takes a reference once, so a caller that failed part-way can re-run with the same reference.
+    void adjust(String reference, String warehouse, Map<String, Integer> deltas);
+}
@@ -0,0 +1,52 @@
+package com.inventory.api.stock;
+
+/**
+ * Stock of one product in one warehouse, as of one write.
+ *
+ * Immutable. The version goes up by one with every movement posted to the level, so of two
+ * copies the one with the higher version is the newer; a level nothing was posted to yet has
+ * version 0 and no stock.
+ */
+public final class StockLevel {
+
+    private final String productId;
+    private final String warehouse;
+    private final long onHand;
+    private final long reserved;
+    private final long version;
+
+    public StockLevel(String productId, String warehouse, long onHand, long reserved, long version) {
+        this.productId = productId;
+        this.warehouse = warehouse;
+        this.onHand = onHand;
+        this.reserved = reserved;
+        this.version = version;
+    }
+
+    public static StockLevel empty(String productId, String warehouse) {
+        return new StockLevel(productId, warehouse, 0, 0, 0);
+    }
+
+    // The _id of the level's document in "stock_levels"
+    public static String idOf(String productId, String warehouse) {
+        return productId + "@" + warehouse;
+    }
+
+    public String getId() { return idOf(productId, warehouse); }
+    public String getProductId() { return productId; }
+    public String getWarehouse() { return warehouse; }
+    public long getOnHand() { return onHand; }
+    public long getReserved() { return reserved; }
+    public long getVersion() { return version; }
+
+    // What new orders can still reserve
+    public long getAvailable() {
+        return onHand - reserved;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s in %s: %d on hand, %d reserved, %d available",
+                productId, warehouse, onHand, reserved, getAvailable());
+    }
+}
@@ -0,0 +1,41 @@
+package com.inventory.api.stock;
+
+/**
+ * What a movement does to the on-hand and reserved quantities of one product in one warehouse.
+ * Available is always on-hand minus reserved.
+ */
+public enum StockMovementType {
+
+    // Goods received against a purchase order
+    RECEIPT(1, 0),
+    // Goods a customer sent back
+    RETURN(1, 0),
+    // Held for a confirmed sales order; needs that much available
+    RESERVE(0, 1),
+    // A reservation given back; needs that much reserved
+    RELEASE(0, -1),
+    // Reserved goods delivered; needs that much reserved
+    ISSUE(-1, -1),
+    // A receipt taken back out; needs that much available
+    REVERSAL(-1, 0),
+    // A stock count correction of on-hand; posted through adjust(), signed (counted minus expected)
+    COUNT_ADJUSTMENT(1, 0);
+
+    private final int onHand;
+    private final int reserved;
+
+    StockMovementType(int onHand, int reserved) {
+        this.onHand = onHand;
+        this.reserved = reserved;
+    }
+
+    // -1, 0 or 1 per unit moved
+    public int getOnHandSign() { return onHand; }
+    public int getReservedSign() { return reserved; }
+    public int getAvailableSign() { return onHand - reserved; }
+
+    // True when the movement takes from a quantity that must not go below zero
+    public boolean isGuarded() {
+        return getAvailableSign() < 0 || reserved < 0;
+    }
+}
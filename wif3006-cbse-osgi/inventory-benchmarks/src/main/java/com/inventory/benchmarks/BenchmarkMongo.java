@@ -0,0 +1,69 @@
+package com.inventory.benchmarks;
+
+import com.inventory.api.codec.InventoryCodecs;
+import com.inventory.api.mongo.MongoConnectionService;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoDatabase;
+
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The MongoConnectionService the benchmarked services are wired to.
+ *
+ * Uses the server in the "mongodb.uri" system property when it is set (same property as the
+ * launcher); otherwise starts an embedded mongod that lives as long as the benchmark fork.
+ */
+final class BenchmarkMongo implements MongoConnectionService, AutoCloseable {
+
+    private final TransitionWalker.ReachedState<RunningMongodProcess> embedded;
+    private final MongoClient client;
+    private final MongoDatabase database;
+
+    BenchmarkMongo(String databaseName) {
+        Logger.getLogger("org.mongodb.driver").setLevel(Level.SEVERE);
+
+        String uri = System.getProperty("mongodb.uri");
+        if (uri == null || uri.isEmpty()) {
+            embedded = Mongod.instance().start(Version.Main.V7_0);
+            ServerAddress address = embedded.current().getServerAddress();
+            uri = "mongodb://" + address.getHost() + ":" + address.getPort();
+        } else {
+            embedded = null;
+        }
+
+        // Same codec registry as the infrastructure bundle's client, so typed collections decode
+        client = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(uri))
+                .codecRegistry(InventoryCodecs.REGISTRY)
+                .build());
+        database = client.getDatabase(databaseName);
+    }
+
+    @Override
+    public MongoClient getClient() {
+        return client;
+    }
+
+    @Override
+    public MongoDatabase getDatabase() {
+        return database;
+    }
+
+    @Override
+    public void close() {
+        client.close();
+        if (embedded != null) embedded.close();
+    }
+}
@@ -0,0 +1,158 @@
+package com.inventory.benchmarks;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.Projections;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generated datasets in the exact document shape the services write.
+ *
+ * The generator is seeded, so the same size always produces the same data. A collection that
+ * already holds the requested number of documents is reused (useful with -Dmongodb.uri).
+ */
+final class Datasets {
+
+    static final long SEED = 42;
+    static final String[] PO_STATUSES = {"pending", "shipping", "received", "cancelled", "returned"};
+    private static final String[] SO_STATUSES = {"Pending", "Confirmed", "Delivered"};
+    private static final LocalDate EPOCH = LocalDate.of(2020, 1, 1);
+    private static final int BATCH = 10_000;
+
+    private Datasets() {
+    }
+
+    // =================== PURCHASE ORDERS ===================
+
+    static void seedPurchaseOrders(MongoDatabase database, int count) {
+        MongoCollection<Document> orders = database.getCollection("purchase_orders");
+        if (orders.countDocuments() == count) return;
+
+        orders.drop();
+        Random random = new Random(SEED);
+        List<Document> batch = new ArrayList<>(BATCH);
+        for (int orderId = 1; orderId <= count; orderId++) {
+            batch.add(purchaseOrder(random, orderId, 1 + random.nextInt(5)));
+            if (batch.size() == BATCH) flush(orders, batch);
+        }
+        flush(orders, batch);
+
+        // The sequence continues after the seeded orders, as it would in production
+        database.getCollection("counters").drop();
+        database.getCollection("counters").insertOne(new Document("_id", "purchase_order_id").append("seq", (long) count));
+    }
+
+    static Document purchaseOrder(Random random, int orderId, int itemCount) {
+        LocalDate orderDate = EPOCH.plusDays(random.nextInt(1500));
+        String status = PO_STATUSES[random.nextInt(PO_STATUSES.length)];
+
+        List<Document> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            items.add(new Document()
+                    .append("itemName", "Item-" + random.nextInt(5_000))
+                    .append("quantity", 1 + random.nextInt(100))
+                    .append("pricePerItem", Math.round(random.nextDouble() * 50_000) / 100.0));
+        }
+
+        boolean shipped = !status.equals("pending") && !status.equals("cancelled");
+        boolean received = status.equals("received") || status.equals("returned");
+        return new Document()
+                .append("orderId", orderId)
+                .append("orderDate", orderDate.toString())
+                .append("orderNumber", String.format("PO-%03d", orderId))
+                .append("vendor", "Vendor " + random.nextInt(500))
+                .append("orderStatus", status)
+                .append("receivedDate", received ? orderDate.plusDays(7).toString() : null)
+                .append("returnedDate", status.equals("returned") ? orderDate.plusDays(14).toString() : null)
+                .append("shippingDate", shipped ? orderDate.plusDays(2).toString() : null)
+                .append("cancelledDate", status.equals("cancelled") ? orderDate.plusDays(1).toString() : null)
+                .append("orderItems", items);
+    }
+
+    // =================== SALES ORDERS ===================
+
+    static void seedSalesOrders(MongoDatabase database, int count, int itemsPerOrder) {
+        MongoCollection<Document> orders = database.getCollection("sales_orders");
+        MongoCollection<Document> items = database.getCollection("sales_order_items");
+        if (orders.countDocuments() == count && items.countDocuments() == (long) count * itemsPerOrder) return;
+
+        orders.drop();
+        items.drop();
+        MongoCollection<Document> taxes = database.getCollection("taxes");
+        taxes.drop();
+        List<String> taxIds = new ArrayList<>();
+        for (String rate : new String[] {"6", "8", "10"}) {
+            Document tax = new Document("taxName", "SST " + rate + "%").append("taxRate", rate);
+            taxes.insertOne(tax);
+            taxIds.add(tax.getObjectId("_id").toHexString());
+        }
+
+        Random random = new Random(SEED);
+        List<Document> orderBatch = new ArrayList<>(BATCH);
+        List<Document> itemBatch = new ArrayList<>(BATCH);
+        for (int n = 1; n <= count; n++) {
+            Document order = salesOrder(random, n, taxIds.get(random.nextInt(taxIds.size())));
+            orderBatch.add(order);
+            String salesOrderId = order.getObjectId("_id").toHexString();
+            for (int i = 0; i < itemsPerOrder; i++) {
+                itemBatch.add(salesOrderItem(random, salesOrderId));
+                if (itemBatch.size() == BATCH) flush(items, itemBatch);
+            }
+            if (orderBatch.size() == BATCH) flush(orders, orderBatch);
+        }
+        flush(orders, orderBatch);
+        flush(items, itemBatch);
+    }
+
+    static Document salesOrder(Random random, int n, String taxId) {
+        String createdAt = EPOCH.plusDays(random.nextInt(1500)).atStartOfDay().toString();
+        return new Document()
+                .append("_id", new ObjectId())
+                .append("orderNumber", "SO-" + n)
+                .append("orderDate", createdAt.substring(0, 10))
+                .append("customerId", new ObjectId().toHexString())
+                .append("taxId", taxId)
+                .append("orderStatus", SO_STATUSES[random.nextInt(SO_STATUSES.length)])
+                .append("description", "Generated order " + n)
+                .append("beforeTaxAmount", "0")
+                .append("taxAmount", "0")
+                .append("afterTaxAmount", "0")
+                .append("createdAt", createdAt)
+                .append("editedAt", createdAt);
+    }
+
+    static Document salesOrderItem(Random random, String salesOrderId) {
+        return new Document()
+                .append("salesOrderId", salesOrderId)
+                .append("productId", new ObjectId().toHexString())
+                .append("unitPrice", BigDecimal.valueOf(100 + random.nextInt(100_000), 2).toPlainString())
+                .append("quantity", 1 + random.nextInt(20))
+                .append("productNumber", "P-" + random.nextInt(10_000));
+    }
+
+    // Random existing _ids (as hex strings) to spread single-order operations over the collection
+    static List<String> sampleIds(MongoDatabase database, String collection, int size) {
+        List<String> ids = new ArrayList<>(size);
+        for (Document doc : database.getCollection(collection).aggregate(List.of(
+                Aggregates.sample(size), Aggregates.project(Projections.include("_id"))))) {
+            ids.add(doc.getObjectId("_id").toHexString());
+        }
+        return ids;
+    }
+
+    private static void flush(MongoCollection<Document> collection, List<Document> batch) {
+        if (batch.isEmpty()) return;
+        collection.insertMany(batch, new InsertManyOptions().ordered(false));
+        batch.clear();
+    }
+}
@@ -0,0 +1,121 @@
+package com.inventory.benchmarks;
+
+import com.inventory.api.codec.InventoryCodecs;
+import com.inventory.api.purchaseorder.model.PurchaseOrder;
+import com.inventory.api.salesorder.model.SalesOrder;
+import com.inventory.api.salesorder.model.SalesOrderItem;
+
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BSON <-> model mapping of the order models through the codecs in InventoryCodecs, without any
+ * database. Decoding starts from raw BSON bytes, as the driver hands them over off the wire.
+ * itemCount is the number of nested orderItems (purchase orders) or item documents (sales orders).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MappingBenchmark {
+
+    private static final DecoderContext DECODE = DecoderContext.builder().build();
+    private static final EncoderContext ENCODE = EncoderContext.builder().build();
+
+    @Param({"1", "10", "50"})
+    public int itemCount;
+
+    private final Codec<PurchaseOrder> purchaseOrderCodec = InventoryCodecs.REGISTRY.get(PurchaseOrder.class);
+    private final Codec<SalesOrder> salesOrderCodec = InventoryCodecs.REGISTRY.get(SalesOrder.class);
+    private final Codec<SalesOrderItem> salesOrderItemCodec = InventoryCodecs.REGISTRY.get(SalesOrderItem.class);
+
+    private RawBsonDocument purchaseOrderBson;
+    private PurchaseOrder purchaseOrder;
+    private RawBsonDocument salesOrderBson;
+    private SalesOrder salesOrder;
+    private List<RawBsonDocument> salesOrderItemBson;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(Datasets.SEED);
+        purchaseOrderBson = raw(Datasets.purchaseOrder(random, 1, itemCount));
+        purchaseOrder = decode(purchaseOrderCodec, purchaseOrderBson);
+
+        Document salesOrderDoc = Datasets.salesOrder(random, 1, new ObjectId().toHexString());
+        salesOrderBson = raw(salesOrderDoc);
+        salesOrder = decode(salesOrderCodec, salesOrderBson);
+        salesOrderItemBson = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            salesOrderItemBson.add(raw(Datasets.salesOrderItem(random, salesOrderDoc.getObjectId("_id").toHexString())
+                    .append("_id", new ObjectId())));
+        }
+    }
+
+    private static RawBsonDocument raw(Document document) {
+        return RawBsonDocument.parse(document.toJson());
+    }
+
+    private static <T> T decode(Codec<T> codec, RawBsonDocument bson) {
+        try (BsonBinaryReader reader = new BsonBinaryReader(bson.getByteBuffer().asNIO())) {
+            return codec.decode(reader, DECODE);
+        }
+    }
+
+    private static <T> int encode(Codec<T> codec, T value) {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        try (BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+            codec.encode(writer, value, ENCODE);
+        }
+        return buffer.getSize();
+    }
+
+    @Benchmark
+    public Object decodePurchaseOrder() {
+        return decode(purchaseOrderCodec, purchaseOrderBson);
+    }
+
+    @Benchmark
+    public int encodePurchaseOrder() {
+        return encode(purchaseOrderCodec, purchaseOrder);
+    }
+
+    // An order plus its item documents, as the sales order detail screen reads them
+    @Benchmark
+    public void decodeSalesOrderWithItems(Blackhole blackhole) {
+        blackhole.consume(decode(salesOrderCodec, salesOrderBson));
+        for (RawBsonDocument itemBson : salesOrderItemBson) {
+            blackhole.consume(decode(salesOrderItemCodec, itemBson));
+        }
+    }
+
+    @Benchmark
+    public int encodeSalesOrder() {
+        return encode(salesOrderCodec, salesOrder);
+    }
+}
@@ -0,0 +1,55 @@
+package com.inventory.benchmarks;
+
+import com.inventory.purchaseorder.PurchaseOrderServiceImpl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * getNextOrderId() through the counter sequence; blockSize is the SequenceService setting
+ * (1 = one $inc round trip per ID). Independent of the dataset size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class OrderIdBenchmark {
+
+    @Param({"1", "100"})
+    public int blockSize;
+
+    private BenchmarkMongo mongo;
+    private PurchaseOrderServiceImpl service;
+
+    @Setup
+    public void setUp() {
+        mongo = new BenchmarkMongo("inventory_bench_sequence");
+        service = Wiring.purchaseOrderService(mongo, Wiring.sequenceService(mongo, blockSize));
+    }
+
+    @TearDown
+    public void tearDown() {
+        mongo.close();
+    }
+
+    @Benchmark
+    public int getNextOrderId() {
+        return service.getNextOrderId();
+    }
+}
@@ -0,0 +1,98 @@
+package com.inventory.benchmarks;
+
+import com.inventory.api.common.Sort;
+import com.inventory.api.purchaseorder.model.PurchaseOrderQuery;
+import com.inventory.purchaseorder.PurchaseOrderServiceImpl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * List and report paths of the purchase order service over generated datasets.
+ * fullReport reads the whole collection, as the report did before PurchaseOrderQuery.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PurchaseOrderBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"10000", "100000", "1000000"})
+    public int documentCount;
+
+    private BenchmarkMongo mongo;
+    private PurchaseOrderServiceImpl service;
+    private String middleCursor;
+
+    @Setup
+    public void setUp() {
+        mongo = new BenchmarkMongo("inventory_bench_po_" + documentCount);
+        Datasets.seedPurchaseOrders(mongo.getDatabase(), documentCount);
+        service = Wiring.purchaseOrderService(mongo, Wiring.sequenceService(mongo, 1));
+        middleCursor = String.valueOf(documentCount / 2);
+    }
+
+    @TearDown
+    public void tearDown() {
+        mongo.close();
+    }
+
+    @Benchmark
+    public Object listFirstPage() {
+        return service.listPurchaseOrders(null, PAGE_SIZE, Sort.ASC);
+    }
+
+    @Benchmark
+    public Object listPageFromMiddle() {
+        return service.listPurchaseOrders(middleCursor, PAGE_SIZE, Sort.ASC);
+    }
+
+    // The list screen: same page without the items, the stored total instead
+    @Benchmark
+    public Object listFirstSummaryPage() {
+        return service.listPurchaseOrderSummaries(null, PAGE_SIZE, Sort.ASC);
+    }
+
+    @Benchmark
+    public Object reportTopSummariesByTotalPrice() {
+        return service.findPurchaseOrderSummaries(new PurchaseOrderQuery()
+                .sortBy(PurchaseOrderQuery.SortField.TOTAL_PRICE, Sort.DESC)
+                .limit(PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Object reportReceivedByDate() {
+        return service.findPurchaseOrders(new PurchaseOrderQuery()
+                .statuses("received")
+                .sortBy(PurchaseOrderQuery.SortField.ORDER_DATE, Sort.DESC)
+                .limit(100));
+    }
+
+    @Benchmark
+    public Object reportTopByTotalPrice() {
+        return service.findPurchaseOrders(new PurchaseOrderQuery()
+                .sortBy(PurchaseOrderQuery.SortField.TOTAL_PRICE, Sort.DESC)
+                .limit(PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Object fullReport() {
+        return service.getAllPurchaseOrders();
+    }
+}
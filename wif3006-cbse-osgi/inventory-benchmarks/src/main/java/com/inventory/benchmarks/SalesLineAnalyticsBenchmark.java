@@ -0,0 +1,72 @@
+package com.inventory.benchmarks;
+
+import com.inventory.analytics.SalesLineAnalyticsImpl;
+import com.inventory.api.analytics.LineDimension;
+import com.inventory.api.analytics.LineQuery;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group-bys of the in-memory sales line analytics over generated datasets (documentCount orders
+ * with ITEMS_PER_ORDER lines each). The load happens once in setUp; only the scans are timed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class SalesLineAnalyticsBenchmark {
+
+    private static final int ITEMS_PER_ORDER = 3;
+    private static final int TOP_N = 10;
+
+    @Param({"100000", "1000000"})
+    public int documentCount;
+
+    private BenchmarkMongo mongo;
+    private SalesLineAnalyticsImpl analytics;
+
+    @Setup
+    public void setUp() {
+        mongo = new BenchmarkMongo("inventory_bench_so_" + documentCount);
+        Datasets.seedSalesOrders(mongo.getDatabase(), documentCount, ITEMS_PER_ORDER);
+        // Migrates the seeded orders to native types first, as in production
+        Wiring.salesOrderService(mongo);
+        analytics = Wiring.salesLineAnalytics(mongo);
+    }
+
+    @TearDown
+    public void tearDown() {
+        mongo.close();
+    }
+
+    @Benchmark
+    public Object quantityByProductByMonth() {
+        return analytics.query(LineQuery.groupBy(LineDimension.PRODUCT, LineDimension.MONTH));
+    }
+
+    // Every customer summed, then the top ones: the whole group table is built either way
+    @Benchmark
+    public Object topCustomers() {
+        return analytics.query(LineQuery.groupBy(LineDimension.CUSTOMER).limit(TOP_N));
+    }
+
+    @Benchmark
+    public Object productPairs() {
+        return analytics.productPairs(LineQuery.groupBy().limit(TOP_N));
+    }
+}
@@ -0,0 +1,103 @@
+package com.inventory.benchmarks;
+
+import com.inventory.api.analytics.RollupDimension;
+import com.inventory.api.common.Page;
+import com.inventory.api.common.Sort;
+import com.inventory.api.salesorder.model.SalesOrder;
+import com.inventory.salesorder.SalesOrderServiceImpl;
+import com.inventory.salesorder.SalesRollupServiceImpl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * recalculateOrderTotals() and the sales order list screen over generated datasets
+ * (documentCount orders with ITEMS_PER_ORDER item documents each).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SalesOrderBenchmark {
+
+    private static final int ITEMS_PER_ORDER = 3;
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"10000", "100000", "1000000"})
+    public int documentCount;
+
+    private BenchmarkMongo mongo;
+    private SalesOrderServiceImpl service;
+    private SalesRollupServiceImpl rollups;
+    private List<String> orderIds;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        mongo = new BenchmarkMongo("inventory_bench_so_" + documentCount);
+        Datasets.seedSalesOrders(mongo.getDatabase(), documentCount, ITEMS_PER_ORDER);
+        service = Wiring.salesOrderService(mongo);
+        orderIds = Datasets.sampleIds(mongo.getDatabase(), "sales_orders", 1_000);
+        rollups = Wiring.salesRollupService(mongo);
+        rollups.rebuild();
+    }
+
+    @TearDown
+    public void tearDown() {
+        mongo.close();
+    }
+
+    // Spread over sampled orders so one hot document does not flatter the numbers
+    @Benchmark
+    public void recalculateOrderTotals() {
+        service.recalculateOrderTotals(orderIds.get(next++ % orderIds.size()));
+    }
+
+    // One order's detail view: lines, products, customer and tax joined in a single aggregation
+    @Benchmark
+    public Object orderDetail() {
+        return service.getSalesOrderDetail(orderIds.get(next++ % orderIds.size()));
+    }
+
+    @Benchmark
+    public Object listFirstPage() {
+        return service.listSalesOrders(null, PAGE_SIZE, Sort.ASC);
+    }
+
+    // The sales order list as the menu reads it: projected to its columns
+    @Benchmark
+    public Object listFirstSummaryPage() {
+        return service.listSalesOrderSummaries(null, PAGE_SIZE, Sort.ASC);
+    }
+
+    // The dashboard's top products over all history, from the rollups instead of the orders
+    @Benchmark
+    public Object rollupTopProducts() {
+        return rollups.getTopBy(RollupDimension.PRODUCT, null, null, 10);
+    }
+
+    // The list screen: one page of orders plus their items in one $in query
+    @Benchmark
+    public Object listFirstPageWithItems() {
+        Page<SalesOrder> page = service.listSalesOrders(null, PAGE_SIZE, Sort.ASC);
+        List<String> ids = new ArrayList<>(page.getItems().size());
+        for (SalesOrder order : page.getItems()) ids.add(order.getId());
+        return service.getItemsByOrderIds(ids);
+    }
+}
@@ -0,0 +1,113 @@
+package com.inventory.benchmarks;
+
+import com.inventory.analytics.SalesLineAnalyticsImpl;
+import com.inventory.api.mongo.IndexManager;
+import com.inventory.api.mongo.MongoConnectionService;
+import com.inventory.api.mongo.SchemaMigration;
+import com.inventory.api.mongo.SchemaMigrationService;
+import com.inventory.api.mongo.SequenceService;
+import com.inventory.infrastructure.IndexManagerImpl;
+import com.inventory.infrastructure.ReferenceDataCacheImpl;
+import com.inventory.infrastructure.SchemaMigrationServiceImpl;
+import com.inventory.infrastructure.SequenceServiceImpl;
+import com.inventory.purchaseorder.PurchaseOrderServiceImpl;
+import com.inventory.salesorder.SalesOrderServiceImpl;
+import com.inventory.salesorder.SalesRollupServiceImpl;
+
+import java.lang.reflect.Field;
+
+/**
+ * Stands in for Declarative Services: fills the @Reference fields and calls activate(),
+ * so the benchmarks run the real component classes outside Felix.
+ */
+final class Wiring {
+
+    private Wiring() {
+    }
+
+    static IndexManager indexManager(MongoConnectionService connection) {
+        IndexManagerImpl indexManager = new IndexManagerImpl();
+        set(indexManager, "connectionService", connection);
+        return indexManager;
+    }
+
+    // activate(Config) takes a DS config annotation, so its two effects are applied directly
+    static SequenceService sequenceService(MongoConnectionService connection, int blockSize) {
+        SequenceServiceImpl sequenceService = new SequenceServiceImpl();
+        set(sequenceService, "connectionService", connection);
+        set(sequenceService, "counterCollection", connection.getDatabase().getCollection("counters"));
+        set(sequenceService, "blockSize", blockSize);
+        return sequenceService;
+    }
+
+    static SchemaMigrationService migrationService(MongoConnectionService connection) {
+        SchemaMigrationServiceImpl migrationService = new SchemaMigrationServiceImpl();
+        set(migrationService, "connectionService", connection);
+        migrationService.activate();
+        return migrationService;
+    }
+
+    static PurchaseOrderServiceImpl purchaseOrderService(MongoConnectionService connection, SequenceService sequenceService) {
+        PurchaseOrderServiceImpl service = new PurchaseOrderServiceImpl();
+        SchemaMigrationService migrationService = migrationService(connection);
+        set(service, "connectionService", connection);
+        set(service, "sequenceService", sequenceService);
+        set(service, "indexManager", indexManager(connection));
+        set(service, "migrationService", migrationService);
+        service.activate();
+        awaitMigration(migrationService, PurchaseOrderServiceImpl.class);
+        return service;
+    }
+
+    static SalesOrderServiceImpl salesOrderService(MongoConnectionService connection) {
+        SalesOrderServiceImpl service = new SalesOrderServiceImpl();
+        SchemaMigrationService migrationService = migrationService(connection);
+        set(service, "connectionService", connection);
+        set(service, "indexManager", indexManager(connection));
+        set(service, "migrationService", migrationService);
+        set(service, "referenceDataCache", new ReferenceDataCacheImpl());
+        set(service, "salesRollupService", salesRollupService(connection));
+        service.activate();
+        awaitMigration(migrationService, SalesOrderServiceImpl.class);
+        return service;
+    }
+
+    static SalesRollupServiceImpl salesRollupService(MongoConnectionService connection) {
+        SalesRollupServiceImpl service = new SalesRollupServiceImpl();
+        set(service, "connectionService", connection);
+        set(service, "indexManager", indexManager(connection));
+        service.activate();
+        return service;
+    }
+
+    // activate(Config) would also schedule refreshes; the benchmarks load once and only query
+    static SalesLineAnalyticsImpl salesLineAnalytics(MongoConnectionService connection) {
+        SalesLineAnalyticsImpl analytics = new SalesLineAnalyticsImpl();
+        set(analytics, "connectionService", connection);
+        set(analytics, "salesOrderCollection", connection.getDatabase().getCollection("sales_orders"));
+        analytics.reload();
+        return analytics;
+    }
+
+    // The seeded documents are in the legacy format; measure only once activate()'s migration has converted them
+    private static void awaitMigration(SchemaMigrationService migrationService, Class<?> serviceType) {
+        try {
+            Field field = serviceType.getDeclaredField("NATIVE_TYPES");
+            field.setAccessible(true);
+            // Resubmitting a running version returns its future
+            migrationService.submit((SchemaMigration) field.get(null)).join();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No migration on " + serviceType.getSimpleName(), e);
+        }
+    }
+
+    static void set(Object target, String fieldName, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No field " + target.getClass().getSimpleName() + "." + fieldName, e);
+        }
+    }
+}
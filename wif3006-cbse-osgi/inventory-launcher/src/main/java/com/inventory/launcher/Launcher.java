@@ -15,6 +15,12 @@ import java.io.InputStream;
 import java.io.IOException;
 
 public class Launcher {
+    // Must match <mongodb.version> in the root pom
+    private static final String MONGODB_VERSION = "4.11.1";
+    // Versions the reactive driver of MONGODB_VERSION depends on
+    private static final String REACTIVE_STREAMS_VERSION = "1.0.4";
+    private static final String REACTOR_VERSION = "3.5.0";
+
     public static void main(String[] args) {
         try {
             System.out.println("Starting Pure OSGi Inventory System...");
@@ -79,22 +85,33 @@ public class Launcher {
             // These are copied here by the maven-dependency-plugin
             String libDir = rootPath + "inventory-launcher/target/bundles/";
 
-            // ORDER MATTERS: Function -> Promise -> API -> SCR
+            // ORDER MATTERS: Function -> Promise -> API -> ConfigAdmin -> SCR
             infrastructureBundles.add(libDir + "org.osgi.util.function-1.2.0.jar");
             infrastructureBundles.add(libDir + "org.osgi.util.promise-1.2.0.jar");
             infrastructureBundles.add(libDir + "org.osgi.service.component-1.5.0.jar");
+            infrastructureBundles.add(libDir + "org.apache.felix.configadmin-1.9.26.jar");
             infrastructureBundles.add(libDir + "org.apache.felix.scr-2.2.6.jar");
-            infrastructureBundles.add(libDir + "bson-4.10.2.jar");
-            infrastructureBundles.add(libDir + "mongodb-driver-core-4.10.2.jar");
-            infrastructureBundles.add(libDir + "mongodb-driver-sync-4.10.2.jar");
+            // The driver is installed ONCE and shared by every module (no embedded copies)
+            infrastructureBundles.add(libDir + "bson-" + MONGODB_VERSION + ".jar");
+            infrastructureBundles.add(libDir + "bson-record-codec-" + MONGODB_VERSION + ".jar");
+            infrastructureBundles.add(libDir + "mongodb-driver-core-" + MONGODB_VERSION + ".jar");
+            infrastructureBundles.add(libDir + "mongodb-driver-sync-" + MONGODB_VERSION + ".jar");
+            // Reactive driver for the Async*Service components (Reactive Streams API -> Reactor -> driver)
+            infrastructureBundles.add(libDir + "reactive-streams-" + REACTIVE_STREAMS_VERSION + ".jar");
+            infrastructureBundles.add(libDir + "reactor-core-" + REACTOR_VERSION + ".jar");
+            infrastructureBundles.add(libDir + "mongodb-driver-reactivestreams-" + MONGODB_VERSION + ".jar");
 
             // B. Project Bundles (Your Code)
             projectBundles.add(rootPath + "inventory-api/target/inventory-api-1.0.0.jar");
+            // Shared MongoDB connection pool, must start before the service bundles
+            projectBundles.add(rootPath + "infrastructure-bundle/target/infrastructure-bundle-1.0.0.jar");
             projectBundles.add(rootPath + "main-bundle/target/main-menu-bundle-1.0.0.jar");
             projectBundles.add(rootPath + "customer-bundle/target/customer-bundle-1.0.0.jar");
             projectBundles.add(rootPath + "purchase-order-bundle/target/purchase-order-bundle-1.0.0.jar");
             projectBundles.add(rootPath + "sales-order-bundle/target/sales-order-bundle-1.0.0.jar");
             projectBundles.add(rootPath + "product-bundle/target/product-bundle-1.0.0.jar");
+            // Optional: in-memory sales line analytics; the system runs the same without it
+            projectBundles.add(rootPath + "analytics-bundle/target/analytics-bundle-1.0.0.jar");
 
             // 4. Install & Start Infrastructure
             System.out.println("--- Loading Infrastructure ---");
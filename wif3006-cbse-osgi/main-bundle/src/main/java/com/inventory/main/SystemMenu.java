@@ -1,6 +1,8 @@
 package com.inventory.main;
 
 import com.inventory.api.ModuleMenu;
+import com.inventory.api.mongo.IndexDefinition;
+import com.inventory.api.mongo.IndexManager;
 import org.osgi.service.component.annotations.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -18,6 +20,10 @@ public class SystemMenu {
     )
     private volatile List<ModuleMenu> modules = new ArrayList<>();
 
+    // Optional, so the menu still comes up without the infrastructure bundle
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC)
+    private volatile IndexManager indexManager;
+
     public void bindMenu(ModuleMenu menu) {
         synchronized(modules) {
             // Check if we already have this specific instance
@@ -43,6 +49,7 @@ public class SystemMenu {
 
     private void showMainMenu() {
         try { Thread.sleep(3000); } catch (Exception e) {} // Wait for others to load
+        logIndexReport();
 
         Scanner scanner = new Scanner(System.in);
         while (true) {
@@ -73,4 +80,20 @@ public class SystemMenu {
             }
         }
     }
-}
\ No newline at end of file
+
+    // Once, after the service bundles declared their indexes in @Activate
+    private void logIndexReport() {
+        IndexManager manager = indexManager;
+        if (manager == null) return;
+        try {
+            List<IndexDefinition> missing = manager.findMissingIndexes();
+            List<String> unused = manager.findUnusedIndexes();
+            if (!missing.isEmpty()) System.out.println("Index Report: Declared but not on the server: " + missing);
+            if (!unused.isEmpty()) System.out.println("Index Report: Not used since the server started: " + unused);
+            if (missing.isEmpty() && unused.isEmpty()) System.out.println("Index Report: Every declared index is in place and in use.");
+        } catch (RuntimeException e) {
+            // $indexStats needs the clusterMonitor role, which the app user may not have
+            System.err.println("Index Report: Could not read the indexes: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.inventory.product;
+
+import com.inventory.api.mongo.Publishers;
+import com.inventory.api.mongo.ReactiveMongoConnectionService;
+import com.inventory.api.product.model.Product;
+import com.inventory.api.product.service.AsyncProductService;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.mongodb.reactivestreams.client.MongoDatabase;
+
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The ProductService lookups on the reactive driver; same queries, same indexes
+ * (created by ProductServiceImpl).
+ */
+@Component(service = AsyncProductService.class)
+public class AsyncProductServiceImpl implements AsyncProductService {
+
+    @Reference
+    private ReactiveMongoConnectionService connectionService;
+
+    private MongoCollection<Product> productCollection;
+
+    @Activate
+    public void activate() {
+        MongoDatabase database = connectionService.getDatabase();
+        if (database == null) {
+            System.err.println("❌ Async Product Service: Shared reactive MongoDB connection is not available.");
+            return;
+        }
+        productCollection = database.getCollection("products", Product.class);
+    }
+
+    @Override
+    public CompletableFuture<List<Product>> getAllProducts() {
+        if (productCollection == null) return CompletableFuture.completedFuture(new ArrayList<>());
+        return Publishers.toList(productCollection.find());
+    }
+
+    @Override
+    public CompletableFuture<Product> getProduct(String id) {
+        if (productCollection == null) return CompletableFuture.completedFuture(null);
+        return Publishers.first(productCollection.find(Filters.eq("id", id)).first());
+    }
+
+    @Override
+    public CompletableFuture<Map<String, String>> getProductNamesByIds(Collection<String> ids) {
+        if (productCollection == null || ids == null || ids.isEmpty()) return CompletableFuture.completedFuture(new HashMap<>());
+
+        return Publishers.toList(productCollection.find(Filters.in("id", ids))
+                        .projection(Projections.fields(Projections.include("id", "name"), Projections.excludeId())))
+                .thenApply(products -> {
+                    Map<String, String> names = new HashMap<>();
+                    for (Product p : products) names.put(p.getId(), p.getName());
+                    return names;
+                });
+    }
+}
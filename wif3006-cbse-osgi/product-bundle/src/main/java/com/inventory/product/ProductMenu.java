@@ -1,12 +1,20 @@
 package com.inventory.product;
 
 import com.inventory.api.ModuleMenu;
+import com.inventory.api.common.Page;
+import com.inventory.api.common.Sort;
 import com.inventory.api.product.model.*;
+import com.inventory.api.mongo.MongoPaging;
 import com.inventory.api.product.service.ProductService;
+import com.inventory.api.stock.StockLedgerService;
+import com.inventory.api.stock.StockLevel;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
 import java.util.Scanner;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 @Component(service = ModuleMenu.class, immediate = true)
 public class ProductMenu implements ModuleMenu {
@@ -14,6 +22,11 @@ public class ProductMenu implements ModuleMenu {
     @Reference
     private ProductService productService;
 
+    @Reference
+    private StockLedgerService stockLedgerService;
+
+    private static final int PAGE_SIZE = 20;
+
     @Override
     public String getModuleName() { return "Product Management Module"; }
 
@@ -28,6 +41,7 @@ public class ProductMenu implements ModuleMenu {
             System.out.println("3. Manage Unit Measures");
             System.out.println("4. Manage Warehouses");
             System.out.println("5. Manage Stock Counts");
+            System.out.println("6. Stock On Hand");
             System.out.println("0. Back");
             System.out.print("Select: ");
             String choice = scanner.nextLine();
@@ -37,6 +51,7 @@ public class ProductMenu implements ModuleMenu {
                 case "3": handleUOM(scanner); break;
                 case "4": handleWarehouses(scanner); break;
                 case "5": handleStock(scanner); break;
+                case "6": handleStockOnHand(scanner); break;
                 case "0": return;
                 default: System.out.println("Invalid option.");
             }
@@ -99,14 +114,21 @@ public class ProductMenu implements ModuleMenu {
             var groups = productService.getAllProductGroups();
             var uoms = productService.getAllUnitMeasures();
 
-            for (Product p : productService.getAllProducts()) {
-                String gName = "N/A";
-                for (ProductGroup g : groups) if (g.getGroupId().equals(p.getProductGroupId())) gName = g.getGroupName();
-                String uName = "N/A";
-                for (UnitMeasure u : uoms) if (u.getUomId().equals(p.getUomId())) uName = u.getSymbol();
+            Page<Product> page = productService.listProducts(null, PAGE_SIZE, Sort.ASC);
+            while (true) {
+                for (Product p : page.getItems()) {
+                    String gName = "N/A";
+                    for (ProductGroup g : groups) if (g.getGroupId().equals(p.getProductGroupId())) gName = g.getGroupName();
+                    String uName = "N/A";
+                    for (UnitMeasure u : uoms) if (u.getUomId().equals(p.getUomId())) uName = u.getSymbol();
 
-                System.out.printf("%-5s | %-15s | $%-9.2f | %-15s | %-10s%n",
-                        p.getId(), p.getName(), p.getPrice(), gName, uName);
+                    System.out.printf("%-5s | %-15s | $%-9.2f | %-15s | %-10s%n",
+                            p.getId(), p.getName(), p.getPrice(), gName, uName);
+                }
+                if (!page.hasNext()) break;
+                System.out.print("-- Enter for next page, 'q' to stop: ");
+                if (scanner.nextLine().trim().equalsIgnoreCase("q")) break;
+                page = productService.listProducts(page.getNextCursor(), PAGE_SIZE, Sort.ASC);
             }
             System.out.println("==========================================================");
 
@@ -303,7 +325,7 @@ public class ProductMenu implements ModuleMenu {
     private void handleStock(Scanner s) {
         System.out.println("\n--- Stock Counts ---");
         // Updated Menu Options
-        System.out.println("1. New Stock Count | 2. List History | 3. Export Report | 4. Complete Count | 0. Back");
+        System.out.println("1. New Stock Count | 2. List History | 3. Export Report | 4. Complete Count | 5. Enter Counted Qty | 6. View Variances | 0. Back");
         String c = s.nextLine();
 
         if (c.equals("0")) {
@@ -367,11 +389,58 @@ public class ProductMenu implements ModuleMenu {
             // --- COMPLETE COUNT ---
             System.out.print("Enter Stock Count ID to Complete: ");
             String id = s.nextLine();
-            // Calls the new method in ProductService interface
+            // Snapshots expected stock, computes the variances and posts the adjustments
             System.out.println(productService.completeStockCount(id));
+
+        } else if (c.equals("5")) {
+            // --- ENTER COUNTED QUANTITIES (sent as one batch) ---
+            String id = prompt(s, "Enter Stock Count ID: ");
+            Map<String, Integer> counted = new LinkedHashMap<>();
+            while (true) {
+                String productId = prompt(s, "Product ID (Enter to finish): ").trim();
+                if (productId.isEmpty()) break;
+                if (productService.getProduct(productId) == null) { System.out.println("❌ Product not found."); continue; }
+                try {
+                    int qty = Integer.parseInt(prompt(s, "Counted Qty: ").trim());
+                    if (qty < 0) { System.out.println("❌ Quantity cannot be negative."); continue; }
+                    counted.put(productId, qty);
+                } catch (NumberFormatException e) {
+                    System.out.println("❌ Invalid quantity.");
+                }
+            }
+            if (!counted.isEmpty()) System.out.println(productService.recordCountedQuantities(id, counted));
+
+        } else if (c.equals("6")) {
+            // --- VARIANCE REPORT (streamed, so large counts are not loaded at once) ---
+            String id = prompt(s, "Enter Stock Count ID: ");
+            System.out.println("\n==================== STOCK COUNT " + id + " ====================");
+            System.out.printf("%-12s | %-10s | %-10s | %-10s%n", "Product", "Counted", "Expected", "Variance");
+            System.out.println("------------------------------------------------------------");
+            try (Stream<StockCountLine> lines = productService.streamStockCountLines(id, MongoPaging.DEFAULT_BATCH_SIZE)) {
+                lines.forEach(l -> System.out.printf("%-12s | %-10d | %-10s | %-10s%n", l.getProductId(), l.getCounted(),
+                        l.getExpected() != null ? l.getExpected() : "-", l.getVariance() != null ? l.getVariance() : "-"));
+            }
+            System.out.println("============================================================");
         }
     }
 
+    // --- 6. Stock On Hand ---
+    private void handleStockOnHand(Scanner s) {
+        String id = prompt(s, "Product ID: ");
+        Product p = productService.getProduct(id);
+        if (p == null) { System.out.println("❌ Product not found."); return; }
+
+        List<StockLevel> levels = stockLedgerService.getStockLevels(id);
+        if (levels.isEmpty()) { System.out.println("No stock recorded for " + p.getName() + "."); return; }
+
+        System.out.println("\n==================== STOCK: " + p.getName() + " ====================");
+        System.out.printf("%-20s | %-10s | %-10s | %-10s%n", "Warehouse", "On Hand", "Reserved", "Available");
+        System.out.println("------------------------------------------------------------");
+        for (StockLevel level : levels)
+            System.out.printf("%-20s | %-10d | %-10d | %-10d%n", level.getWarehouse(), level.getOnHand(), level.getReserved(), level.getAvailable());
+        System.out.println("============================================================");
+    }
+
     // --- ID GENERATORS ---
     private String generateProductId() {
         int max = 0;
@@ -0,0 +1,261 @@
+package com.inventory.product;
+
+import com.inventory.api.cache.CacheInvalidation;
+import com.inventory.api.cache.CacheInvalidationListener;
+import com.inventory.api.mongo.IndexDefinition;
+import com.inventory.api.mongo.IndexManager;
+import com.inventory.api.mongo.MongoConnectionService;
+import com.inventory.api.stock.StockLedgerService;
+import com.inventory.api.stock.StockLevel;
+import com.inventory.api.stock.StockMovementType;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.PushOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stock levels in "stock_levels", one document per product and warehouse:
+ * { _id: "productId@warehouse", productId, warehouse, onHand, reserved, available, version, adjustments }.
+ *
+ * available is stored next to onHand and reserved so a reservation can be one conditional update
+ * ({ available: { $gte: qty } } + $inc) that the server applies atomically, whoever else is
+ * reserving the same product. A movement over several products is applied product by product and
+ * undone if one of them fails.
+ *
+ * Reads come from a ConcurrentHashMap of immutable levels: its bins are locked separately, so
+ * updates of different products never wait on each other. Every write puts the level it returned
+ * into the map, and of two copies the higher version wins, so a slow read can never overwrite a
+ * newer write. Changes made by other instances evict the entry through the change stream.
+ */
+@Component(service = {StockLedgerService.class, CacheInvalidationListener.class}, immediate = true)
+public class StockLedgerServiceImpl implements StockLedgerService, CacheInvalidationListener {
+
+    static final String LEVELS = "stock_levels";
+    static final String MOVEMENTS = "stock_movements";
+
+    // Levels are read by _id or by product; the journal by the product and by the document it was posted for
+    static final List<IndexDefinition> INDEXES = List.of(
+            IndexDefinition.ascending(LEVELS, "productId"),
+            IndexDefinition.ascending(MOVEMENTS, "productId", "warehouse"),
+            IndexDefinition.ascending(MOVEMENTS, "reference"));
+
+    // The last references adjust() applied to a level, kept on the level so a re-run can skip them
+    static final int ADJUSTMENTS_KEPT = 20;
+
+    @Reference
+    private MongoConnectionService connectionService;
+
+    @Reference
+    private IndexManager indexManager;
+
+    private MongoCollection<Document> levelCollection;
+    private MongoCollection<Document> movementCollection;
+
+    private final Map<String, StockLevel> levels = new ConcurrentHashMap<>();
+
+    @Activate
+    public void activate() {
+        MongoDatabase database = connectionService.getDatabase();
+        if (database == null) {
+            System.err.println("❌ Stock Ledger: Shared MongoDB connection is not available.");
+            return;
+        }
+        levelCollection = database.getCollection(LEVELS);
+        movementCollection = database.getCollection(MOVEMENTS);
+        indexManager.ensureIndexes(INDEXES);
+    }
+
+    @Override
+    public StockLevel getStockLevel(String productId, String warehouse) {
+        StockLevel cached = levels.get(StockLevel.idOf(productId, warehouse));
+        if (cached != null) return cached;
+
+        Document doc = levelCollection.find(Filters.eq("_id", StockLevel.idOf(productId, warehouse))).first();
+        return remember(doc != null ? toLevel(doc) : StockLevel.empty(productId, warehouse));
+    }
+
+    @Override
+    public List<StockLevel> getStockLevels(String productId) {
+        List<StockLevel> list = new ArrayList<>();
+        for (Document doc : levelCollection.find(Filters.eq("productId", productId))) {
+            list.add(remember(toLevel(doc)));
+        }
+        return list;
+    }
+
+    @Override
+    public boolean post(StockMovementType type, String reference, String warehouse, Map<String, Integer> quantities) {
+        if (warehouse == null || warehouse.trim().isEmpty()) throw new IllegalArgumentException("Warehouse is required");
+        for (Map.Entry<String, Integer> line : quantities.entrySet()) {
+            if (line.getKey() == null) throw new IllegalArgumentException("Product is required");
+            if (line.getValue() == null || line.getValue() <= 0) {
+                throw new IllegalArgumentException("Quantity of " + line.getKey() + " must be positive");
+            }
+        }
+
+        List<Map.Entry<String, Integer>> applied = new ArrayList<>();
+        for (Map.Entry<String, Integer> line : quantities.entrySet()) {
+            if (apply(type, line.getKey(), warehouse, line.getValue(), 1) == null) {
+                // Not enough of this one: give back what the earlier lines took
+                for (Map.Entry<String, Integer> done : applied) {
+                    apply(type, done.getKey(), warehouse, done.getValue(), -1);
+                }
+                return false;
+            }
+            applied.add(line);
+        }
+
+        journal(type, reference, warehouse, quantities);
+        return true;
+    }
+
+    @Override
+    public void adjust(String reference, String warehouse, Map<String, Integer> deltas) {
+        if (warehouse == null || warehouse.trim().isEmpty()) throw new IllegalArgumentException("Warehouse is required");
+
+        Map<String, Integer> changes = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> line : deltas.entrySet()) {
+            if (line.getKey() == null) throw new IllegalArgumentException("Product is required");
+            if (line.getValue() == null || line.getValue() == 0) continue;
+            changes.put(line.getKey(), line.getValue());
+        }
+        if (changes.isEmpty()) return;
+
+        // Levels this reference was already applied to, by a run that failed before its caller recorded it
+        List<String> ids = new ArrayList<>();
+        for (String productId : changes.keySet()) ids.add(StockLevel.idOf(productId, warehouse));
+        Set<String> applied = new HashSet<>();
+        for (Document doc : levelCollection.find(Filters.and(Filters.in("_id", ids), Filters.eq("adjustments", reference)))
+                .projection(Projections.include("_id"))) {
+            applied.add(doc.getString("_id"));
+        }
+
+        List<UpdateOneModel<Document>> updates = new ArrayList<>();
+        for (Map.Entry<String, Integer> line : new ArrayList<>(changes.entrySet())) {
+            String id = StockLevel.idOf(line.getKey(), warehouse);
+            if (applied.contains(id)) {
+                changes.remove(line.getKey());
+                continue;
+            }
+            // The $ne guard makes a concurrent second application fail on the _id index instead of adding twice
+            updates.add(new UpdateOneModel<>(
+                    Filters.and(Filters.eq("_id", id), Filters.ne("adjustments", reference)),
+                    Updates.combine(
+                            Updates.inc("onHand", line.getValue()),
+                            Updates.inc("available", line.getValue()),
+                            Updates.inc("version", 1L),
+                            Updates.pushEach("adjustments", List.of(reference), new PushOptions().slice(-ADJUSTMENTS_KEPT)),
+                            Updates.setOnInsert("productId", line.getKey()),
+                            Updates.setOnInsert("warehouse", warehouse)),
+                    new UpdateOptions().upsert(true)));
+        }
+        if (updates.isEmpty()) return;
+
+        // Unordered, so one failed line does not stop the others; the driver splits it into server-sized batches
+        levelCollection.bulkWrite(updates, new BulkWriteOptions().ordered(false));
+        // The bulk write returns no documents, so the next read reloads these levels
+        for (String productId : changes.keySet()) {
+            levels.remove(StockLevel.idOf(productId, warehouse));
+        }
+        journal(StockMovementType.COUNT_ADJUSTMENT, reference, warehouse, changes);
+    }
+
+    // One $inc on the level; direction -1 undoes an earlier one (unguarded). Null when the guard did not match.
+    private StockLevel apply(StockMovementType type, String productId, String warehouse, int quantity, int direction) {
+        long onHand = (long) type.getOnHandSign() * quantity * direction;
+        long reserved = (long) type.getReservedSign() * quantity * direction;
+        long available = onHand - reserved;
+
+        List<Bson> guards = new ArrayList<>();
+        guards.add(Filters.eq("_id", StockLevel.idOf(productId, warehouse)));
+        if (direction > 0 && available < 0) guards.add(Filters.gte("available", -available));
+        if (direction > 0 && reserved < 0) guards.add(Filters.gte("reserved", -reserved));
+
+        List<Bson> updates = new ArrayList<>();
+        if (onHand != 0) updates.add(Updates.inc("onHand", onHand));
+        if (reserved != 0) updates.add(Updates.inc("reserved", reserved));
+        if (available != 0) updates.add(Updates.inc("available", available));
+        updates.add(Updates.inc("version", 1L));
+        updates.add(Updates.setOnInsert("productId", productId));
+        updates.add(Updates.setOnInsert("warehouse", warehouse));
+
+        // Only stock coming in may create the level; a guarded movement needs one that has the stock
+        Document after = levelCollection.findOneAndUpdate(Filters.and(guards), Updates.combine(updates),
+                new FindOneAndUpdateOptions().upsert(!type.isGuarded()).returnDocument(ReturnDocument.AFTER));
+        return after != null ? remember(toLevel(after)) : null;
+    }
+
+    // The level already moved; a journal that failed to write is reported, not rolled back
+    private void journal(StockMovementType type, String reference, String warehouse, Map<String, Integer> quantities) {
+        List<Document> movements = new ArrayList<>();
+        Date now = new Date();
+        for (Map.Entry<String, Integer> line : quantities.entrySet()) {
+            movements.add(new Document("productId", line.getKey())
+                    .append("warehouse", warehouse)
+                    .append("type", type.name())
+                    .append("quantity", line.getValue())
+                    .append("reference", reference)
+                    .append("postedAt", now));
+        }
+        if (movements.isEmpty()) return;
+        try {
+            movementCollection.insertMany(movements);
+        } catch (RuntimeException e) {
+            System.err.println("❌ Stock Ledger: " + type + " " + reference + " posted but not journalled: " + e.getMessage());
+        }
+    }
+
+    // Keeps whichever of the cached and the given level is newer
+    private StockLevel remember(StockLevel level) {
+        return levels.merge(level.getId(), level,
+                (cached, fresh) -> fresh.getVersion() >= cached.getVersion() ? fresh : cached);
+    }
+
+    private static StockLevel toLevel(Document doc) {
+        return new StockLevel(doc.getString("productId"), doc.getString("warehouse"),
+                longOf(doc, "onHand"), longOf(doc, "reserved"), longOf(doc, "version"));
+    }
+
+    // $inc keeps small values as int32
+    private static long longOf(Document doc, String field) {
+        Object value = doc.get(field);
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    // =================== CROSS-INSTANCE INVALIDATION ===================
+
+    @Override
+    public Set<String> getCollections() {
+        return Set.of(LEVELS);
+    }
+
+    @Override
+    public void invalidate(CacheInvalidation invalidation) {
+        if (invalidation.getDocumentId() != null) {
+            levels.remove(invalidation.getDocumentId());
+        } else {
+            levels.clear();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.inventory.product;
+
+import com.inventory.api.product.model.Product;
+import com.mongodb.reactivestreams.client.FindPublisher;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AsyncProductServiceImplTest {
+
+    @Mock
+    private MongoCollection<Product> productCollection;
+    @Mock
+    private FindPublisher<Product> productFind;
+
+    private AsyncProductServiceImpl productService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        productService = new AsyncProductServiceImpl();
+        setField(productService, "productCollection", productCollection);
+    }
+
+    private void setField(Object target, String fieldName, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    // Emits the items on request, like a driver publisher that already has its batch
+    @SafeVarargs
+    private static <T> Publisher<T> publisherOf(T... items) {
+        return subscriber -> subscriber.onSubscribe(new Subscription() {
+            private int next;
+            private boolean done;
+
+            @Override
+            public void request(long n) {
+                while (n-- > 0 && !done && next < items.length) subscriber.onNext(items[next++]);
+                if (!done && next == items.length) {
+                    done = true;
+                    subscriber.onComplete();
+                }
+            }
+
+            @Override
+            public void cancel() {
+                done = true;
+            }
+        });
+    }
+
+    // Makes the mocked FindPublisher itself emit the products when subscribed to
+    private void emit(Product... products) {
+        doAnswer(invocation -> {
+            publisherOf(products).subscribe(invocation.getArgument(0));
+            return null;
+        }).when(productFind).subscribe(any());
+    }
+
+    private static Product product(String id, String name) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        return product;
+    }
+
+    @Test
+    void testGetAllProducts_ShouldCompleteWithEveryProduct() {
+        Product widget = product("P1", "Widget");
+        Product gadget = product("P2", "Gadget");
+        when(productCollection.find()).thenReturn(productFind);
+        emit(widget, gadget);
+
+        assertEquals(List.of(widget, gadget), productService.getAllProducts().join());
+    }
+
+    @Test
+    void testGetProduct_NotFound_ShouldCompleteWithNull() {
+        when(productCollection.find(any(Bson.class))).thenReturn(productFind);
+        when(productFind.first()).thenReturn(publisherOf());
+
+        assertNull(productService.getProduct("P9").join());
+    }
+
+    @Test
+    void testGetProductNamesByIds_ShouldMapTheIdsOfOneQuery() {
+        when(productCollection.find(any(Bson.class))).thenReturn(productFind);
+        when(productFind.projection(any())).thenReturn(productFind);
+        emit(product("P1", "Widget"), product("P2", "Gadget"));
+
+        Map<String, String> names = productService.getProductNamesByIds(List.of("P1", "P2", "P9")).join();
+
+        assertEquals(Map.of("P1", "Widget", "P2", "Gadget"), names);
+        verify(productCollection, times(1)).find(any(Bson.class));
+    }
+
+    @Test
+    void testGetProductNamesByIds_Empty_ShouldNotQuery() {
+        assertTrue(productService.getProductNamesByIds(List.of()).join().isEmpty());
+        assertTrue(productService.getProductNamesByIds(null).join().isEmpty());
+        verifyNoInteractions(productCollection);
+    }
+
+    @Test
+    void testLookups_WithoutConnection_ShouldCompleteEmpty() throws Exception {
+        setField(productService, "productCollection", null);
+
+        assertTrue(productService.getAllProducts().join().isEmpty());
+        assertNull(productService.getProduct("P1").join());
+        assertTrue(productService.getProductNamesByIds(List.of("P1")).join().isEmpty());
+    }
+}
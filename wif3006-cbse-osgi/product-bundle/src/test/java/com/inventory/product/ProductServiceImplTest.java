@@ -1,7 +1,11 @@
 package com.inventory.product;
 
 import com.inventory.api.product.model.*;
+import com.inventory.api.stock.StockLedgerService;
+import com.mongodb.MongoException;
 import com.mongodb.client.*;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
 import com.mongodb.client.result.DeleteResult;
 import com.mongodb.client.result.UpdateResult;
 import org.bson.Document;
@@ -9,12 +13,16 @@ import org.bson.conversions.Bson;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.lang.reflect.Field;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -23,17 +31,25 @@ import static org.mockito.Mockito.*;
 public class ProductServiceImplTest {
 
     // --- 1. Mock MongoDB Collections ---
-    @Mock private MongoCollection<Document> productCollection;
+    @Mock private MongoCollection<Product> productCollection;
     @Mock private MongoCollection<Document> productGroupCollection;
     @Mock private MongoCollection<Document> unitMeasureCollection;
     @Mock private MongoCollection<Document> warehouseCollection;
     @Mock private MongoCollection<Document> stockCountCollection;
+    @Mock private MongoCollection<Document> stockCountLineCollection;
 
     // --- 2. Mock MongoDB Helpers ---
+    @Mock private FindIterable<Product> productIterable;
+    @Mock private MongoCursor<Product> productCursor;
     @Mock private FindIterable<Document> findIterable;
     @Mock private MongoCursor<Document> cursor;
     @Mock private DeleteResult deleteResult;
     @Mock private UpdateResult updateResult;
+    @Mock private AggregateIterable<Document> aggregateIterable;
+    @Mock private StockLedgerService stockLedgerService;
+
+    @Captor private ArgumentCaptor<List<Bson>> pipeline;
+    @Captor private ArgumentCaptor<Map<String, Integer>> batches;
 
     // --- 3. Inject into Service ---
     @InjectMocks
@@ -47,6 +63,7 @@ public class ProductServiceImplTest {
         setField(productService, "unitMeasureCollection", unitMeasureCollection);
         setField(productService, "warehouseCollection", warehouseCollection);
         setField(productService, "stockCountCollection", stockCountCollection);
+        setField(productService, "stockCountLineCollection", stockCountLineCollection);
     }
 
     private void setField(Object target, String fieldName, Object value) throws Exception {
@@ -55,21 +72,36 @@ public class ProductServiceImplTest {
         field.set(target, value);
     }
 
+    // The reference-data reload that follows a catalog write finds an empty collection
+    private void mockEmptyReload(MongoCollection<Document> collection) {
+        when(collection.find()).thenReturn(findIterable);
+        when(findIterable.iterator()).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(false);
+    }
+
+    // Shape of a projected product as the codec decodes it: unselected fields stay at their defaults
+    private static Product idOnly(String id, String name) {
+        Product p = new Product();
+        p.setId(id);
+        p.setName(name);
+        return p;
+    }
+
     // ================= PRODUCT TESTS =================
 
     @Test
     void testAddProduct_ShouldInsertDocument() {
         Product product = new Product("101", "Apple", 2.50, "g1", "u1");
         productService.addProduct(product);
-        verify(productCollection, times(1)).insertOne(any(Document.class));
+        verify(productCollection, times(1)).insertOne(product);
     }
 
     @Test
     void testGetAllProducts_ShouldReturnList() {
-        when(productCollection.find()).thenReturn(findIterable);
-        when(findIterable.iterator()).thenReturn(cursor);
-        when(cursor.hasNext()).thenReturn(true, false);
-        when(cursor.next()).thenReturn(new Document("id", "101").append("name", "Apple").append("price", 2.50));
+        when(productCollection.find()).thenReturn(productIterable);
+        when(productIterable.iterator()).thenReturn(productCursor);
+        when(productCursor.hasNext()).thenReturn(true, false);
+        when(productCursor.next()).thenReturn(new Product("101", "Apple", 2.50, null, null));
 
         List<Product> list = productService.getAllProducts();
         assertNotNull(list);
@@ -79,8 +111,8 @@ public class ProductServiceImplTest {
 
     @Test
     void testGetProduct_ShouldReturnObject() {
-        when(productCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(new Document("id", "101").append("name", "Banana"));
+        when(productCollection.find(any(Bson.class))).thenReturn(productIterable);
+        when(productIterable.first()).thenReturn(new Product("101", "Banana", 0, null, null));
 
         Product p = productService.getProduct("101");
         assertNotNull(p);
@@ -104,6 +136,7 @@ public class ProductServiceImplTest {
 
     @Test
     void testAddProductGroup_ShouldInsert() {
+        mockEmptyReload(productGroupCollection);
         ProductGroup pg = new ProductGroup("g1", "Fruits", "Fresh");
         productService.addProductGroup(pg);
         verify(productGroupCollection, times(1)).insertOne(any(Document.class));
@@ -111,14 +144,39 @@ public class ProductServiceImplTest {
 
     @Test
     void testDeleteProductGroup_ShouldDelete() {
+        mockEmptyReload(productGroupCollection);
         productService.deleteProductGroup("g1");
         verify(productGroupCollection, times(1)).deleteOne(any(Bson.class));
     }
 
+    @Test
+    void testGetAllProductGroups_ShouldServeTheCachedListUntilAWrite() {
+        when(productGroupCollection.find()).thenReturn(findIterable);
+        when(findIterable.iterator()).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(true, false, true, true, false);
+        when(cursor.next()).thenReturn(
+                new Document("id", "g1").append("name", "Fruits"),
+                new Document("id", "g1").append("name", "Fruits"),
+                new Document("id", "g2").append("name", "Dairy"));
+
+        assertEquals(1, productService.getAllProductGroups().size());
+        assertEquals(1, productService.getAllProductGroups().size());
+        verify(productGroupCollection, times(1)).find();
+
+        // The write reloads the list once, the next read sees the new group
+        productService.addProductGroup(new ProductGroup("g2", "Dairy", null));
+        List<ProductGroup> groups = productService.getAllProductGroups();
+
+        assertEquals(2, groups.size());
+        assertEquals("Dairy", groups.get(1).getGroupName());
+        verify(productGroupCollection, times(2)).find();
+    }
+
     // ================= UOM TESTS =================
 
     @Test
     void testAddUnitMeasure_ShouldInsert() {
+        mockEmptyReload(unitMeasureCollection);
         UnitMeasure uom = new UnitMeasure("u1", "Kilogram", "kg");
         productService.addUnitMeasure(uom);
         verify(unitMeasureCollection, times(1)).insertOne(any(Document.class));
@@ -139,6 +197,7 @@ public class ProductServiceImplTest {
 
     @Test
     void testAddWarehouse_ShouldInsert() {
+        mockEmptyReload(warehouseCollection);
         Warehouse wh = new Warehouse("KL Sentral", false, "Main Hub");
         productService.addWarehouse(wh);
         verify(warehouseCollection, times(1)).insertOne(any(Document.class));
@@ -146,6 +205,7 @@ public class ProductServiceImplTest {
 
     @Test
     void testDeleteWarehouse_ShouldDelete() {
+        mockEmptyReload(warehouseCollection);
         productService.deleteWarehouse("KL Sentral");
         verify(warehouseCollection, times(1)).deleteOne(any(Bson.class));
     }
@@ -171,9 +231,22 @@ public class ProductServiceImplTest {
         assertEquals("SC-001", list.get(0).getCountId());
     }
 
+    // A count claimed for completion whose lines have no variance left to post
+    private void mockClaimedCountWithoutVariances(String countId) {
+        when(stockCountCollection.findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class)))
+                .thenReturn(new Document("id", countId).append("warehouse", "KL Sentral").append("status", "Reconciling"));
+        when(stockCountLineCollection.aggregate(anyList())).thenReturn(aggregateIterable);
+        when(stockCountLineCollection.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.projection(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.sort(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.batchSize(anyInt())).thenReturn(findIterable);
+        when(findIterable.iterator()).thenReturn(cursor);
+    }
+
     @Test
     void testCompleteStockCount_Success() {
         // Mock the DB returning "1 row updated"
+        mockClaimedCountWithoutVariances("SC-001");
         when(stockCountCollection.updateOne(any(Bson.class), any(Bson.class))).thenReturn(updateResult);
         when(updateResult.getMatchedCount()).thenReturn(1L);
 
@@ -186,13 +259,174 @@ public class ProductServiceImplTest {
 
     @Test
     void testCompleteStockCount_NotFound() {
-        // Mock the DB returning "0 rows updated" (ID not found)
-        when(stockCountCollection.updateOne(any(Bson.class), any(Bson.class))).thenReturn(updateResult);
-        when(updateResult.getMatchedCount()).thenReturn(0L);
+        // Mock the DB matching no Pending count (ID not found)
+        when(stockCountCollection.findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class)))
+                .thenReturn(null);
 
         String result = productService.completeStockCount("SC-999");
 
         // Assert error message
         assertTrue(result.contains("Error: Stock Count ID not found"));
+        verifyNoInteractions(stockCountLineCollection, stockLedgerService);
+    }
+
+    @Test
+    void testCompleteStockCount_ShouldSnapshotOnServerAndPostVariancesInBatches() {
+        mockClaimedCountWithoutVariances("SC-001");
+        // ADJUSTMENT_BATCH + 1 lines with a variance: two ledger writes
+        int lines = ProductServiceImpl.ADJUSTMENT_BATCH + 1;
+        int[] served = {0};
+        when(cursor.hasNext()).thenAnswer(invocation -> served[0] < lines);
+        when(cursor.next()).thenAnswer(invocation -> {
+            int i = served[0]++;
+            return new Document("_id", i).append("productId", "P" + i).append("variance", i % 2 == 0 ? 2 : -1);
+        });
+        when(stockCountCollection.updateOne(any(Bson.class), any(Bson.class))).thenReturn(updateResult);
+        when(updateResult.getMatchedCount()).thenReturn(1L);
+
+        String result = productService.completeStockCount("SC-001");
+
+        assertTrue(result.contains(lines + " line(s) adjusted"), result);
+        // Expected/variance computed by one aggregation that merges back into the lines
+        verify(stockCountLineCollection).aggregate(pipeline.capture());
+        List<Bson> stages = pipeline.getValue();
+        assertTrue(stages.get(1).toBsonDocument().containsKey("$lookup"));
+        assertTrue(stages.get(stages.size() - 1).toBsonDocument().containsKey("$merge"));
+        verify(aggregateIterable).toCollection();
+
+        verify(stockLedgerService, times(2)).adjust(eq("SC-001"), eq("KL Sentral"), batches.capture());
+        assertEquals(ProductServiceImpl.ADJUSTMENT_BATCH, batches.getAllValues().get(0).size());
+        verify(stockCountLineCollection, times(2)).updateMany(any(Bson.class), any(Bson.class));
+    }
+
+    @Test
+    void testCompleteStockCount_RerunAfterFailureBeforeMarking_ShouldRepostUnderTheSameReference() {
+        mockClaimedCountWithoutVariances("SC-001");
+        int[] served = {0};
+        when(cursor.hasNext()).thenAnswer(invocation -> served[0] < 2);
+        when(cursor.next()).thenAnswer(invocation -> {
+            int i = served[0]++;
+            return new Document("_id", i).append("productId", "P" + i).append("variance", i == 0 ? 2 : -1);
+        });
+        // The ledger write goes through, then marking the lines fails
+        when(stockCountLineCollection.updateMany(any(Bson.class), any(Bson.class)))
+                .thenThrow(new MongoException("connection reset"))
+                .thenReturn(updateResult);
+        when(stockCountCollection.updateOne(any(Bson.class), any(Bson.class))).thenReturn(updateResult);
+        when(updateResult.getMatchedCount()).thenReturn(1L);
+
+        assertTrue(productService.completeStockCount("SC-001").contains("Database Error"));
+        verify(stockCountCollection, never()).updateOne(any(Bson.class), any(Bson.class));
+
+        // The lines were not marked, so the re-run posts the same batch; the count id lets the ledger skip it
+        served[0] = 0;
+        String result = productService.completeStockCount("SC-001");
+
+        assertTrue(result.contains("marked as Completed"), result);
+        Map<String, Integer> batch = new LinkedHashMap<>();
+        batch.put("P0", 2);
+        batch.put("P1", -1);
+        verify(stockLedgerService, times(2)).adjust("SC-001", "KL Sentral", batch);
+    }
+
+    @Test
+    void testRecordCountedQuantities_ShouldBulkUpsertLines() {
+        when(stockCountCollection.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.first()).thenReturn(new Document("id", "SC-001").append("warehouse", "KL Sentral").append("status", "Pending"));
+
+        String result = productService.recordCountedQuantities("SC-001", Map.of("101", 5, "102", 0));
+
+        assertTrue(result.contains("Recorded 2 line(s)"), result);
+        verify(stockCountLineCollection, times(1)).bulkWrite(anyList(), any(BulkWriteOptions.class));
+    }
+
+    @Test
+    void testRecordCountedQuantities_CompletedCount_ShouldNotWrite() {
+        when(stockCountCollection.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.first()).thenReturn(new Document("id", "SC-001").append("warehouse", "KL Sentral").append("status", "Completed"));
+
+        String result = productService.recordCountedQuantities("SC-001", Map.of("101", 5));
+
+        assertTrue(result.contains("only Pending"), result);
+        verifyNoInteractions(stockCountLineCollection);
+    }
+
+    // ================= BULK LOOKUP TESTS =================
+
+    @Test
+    void testGetProductNamesByIds_ShouldUseSingleQuery() {
+        when(productCollection.find(any(Bson.class))).thenReturn(productIterable);
+        when(productIterable.projection(any(Bson.class))).thenReturn(productIterable);
+        when(productIterable.iterator()).thenReturn(productCursor);
+        when(productCursor.hasNext()).thenReturn(true, true, false);
+        when(productCursor.next()).thenReturn(idOnly("101", "Apple"), idOnly("102", "Banana"));
+
+        Map<String, String> names = productService.getProductNamesByIds(List.of("101", "102", "999"));
+
+        assertEquals(2, names.size());
+        assertEquals("Apple", names.get("101"));
+        assertFalse(names.containsKey("999"));
+        verify(productCollection, times(1)).find(any(Bson.class));
+    }
+
+    @Test
+    void testGetProductNamesByIds_WithEmptyIds_ShouldNotQuery() {
+        assertTrue(productService.getProductNamesByIds(List.of()).isEmpty());
+        verifyNoInteractions(productCollection);
+    }
+
+    // ================= NAME LOOKUP TESTS =================
+
+    @Test
+    void testGetProductIdByName_ShouldUseCollationQuery() {
+        when(productCollection.find(any(Bson.class))).thenReturn(productIterable);
+        when(productIterable.collation(ProductServiceImpl.CASE_INSENSITIVE)).thenReturn(productIterable);
+        when(productIterable.projection(any(Bson.class))).thenReturn(productIterable);
+        when(productIterable.first()).thenReturn(idOnly("101", null));
+
+        assertEquals("101", productService.getProductIdByName("APPLE"));
+        verify(productIterable).collation(ProductServiceImpl.CASE_INSENSITIVE);
+        verify(productCollection, never()).find();
+    }
+
+    @Test
+    void testGetProductIdByName_SecondLookup_ShouldHitCache() {
+        when(productCollection.find(any(Bson.class))).thenReturn(productIterable);
+        when(productIterable.collation(any())).thenReturn(productIterable);
+        when(productIterable.projection(any(Bson.class))).thenReturn(productIterable);
+        when(productIterable.first()).thenReturn(idOnly("101", null));
+
+        productService.getProductIdByName("Apple");
+        assertEquals("101", productService.getProductIdByName("apple"));
+
+        verify(productCollection, times(1)).find(any(Bson.class));
+    }
+
+    @Test
+    void testGetProductIdByName_AfterDelete_ShouldQueryAgain() {
+        when(productCollection.find(any(Bson.class))).thenReturn(productIterable);
+        when(productIterable.collation(any())).thenReturn(productIterable);
+        when(productIterable.projection(any(Bson.class))).thenReturn(productIterable);
+        when(productIterable.first()).thenReturn(idOnly("101", null), (Product) null);
+
+        productService.getProductIdByName("Apple");
+        productService.deleteProduct("101");
+
+        assertNull(productService.getProductIdByName("Apple"));
+        verify(productCollection, times(2)).find(any(Bson.class));
+    }
+
+    @Test
+    void testGetProductIdByName_AfterUpdate_ShouldDropStaleName() {
+        when(productCollection.find(any(Bson.class))).thenReturn(productIterable);
+        when(productIterable.collation(any())).thenReturn(productIterable);
+        when(productIterable.projection(any(Bson.class))).thenReturn(productIterable);
+        when(productIterable.first()).thenReturn(idOnly("101", null), (Product) null);
+
+        productService.getProductIdByName("Apple");
+        productService.updateProduct(new Product("101", "Green Apple", 3.00, "g1", "u1"));
+
+        // Old name no longer resolves from the cache
+        assertNull(productService.getProductIdByName("Apple"));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,236 @@
+package com.inventory.product;
+
+import com.inventory.api.cache.CacheInvalidation;
+import com.inventory.api.stock.StockLevel;
+import com.inventory.api.stock.StockMovementType;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.lang.reflect.Field;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StockLedgerServiceImplTest {
+
+    @Mock private MongoCollection<Document> levelCollection;
+    @Mock private MongoCollection<Document> movementCollection;
+    @Mock private FindIterable<Document> findIterable;
+    @Mock private MongoCursor<Document> cursor;
+
+    @Captor private ArgumentCaptor<List<UpdateOneModel<Document>>> writes;
+    @Captor private ArgumentCaptor<List<Document>> journal;
+
+    @InjectMocks
+    private StockLedgerServiceImpl stockLedgerService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // Reflection is required because fields are private in OSGi Impl
+        setField(stockLedgerService, "levelCollection", levelCollection);
+        setField(stockLedgerService, "movementCollection", movementCollection);
+    }
+
+    private void setField(Object target, String fieldName, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    // A level document as findOneAndUpdate returns it ($inc leaves small values as int32)
+    private static Document level(String productId, String warehouse, int onHand, int reserved, long version) {
+        return new Document("_id", StockLevel.idOf(productId, warehouse))
+                .append("productId", productId)
+                .append("warehouse", warehouse)
+                .append("onHand", onHand)
+                .append("reserved", reserved)
+                .append("available", onHand - reserved)
+                .append("version", version);
+    }
+
+    // The adjust() look-up of the levels its reference was already applied to
+    private void mockAlreadyAdjusted(Document... levels) {
+        when(levelCollection.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.projection(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.iterator()).thenReturn(cursor);
+        int[] served = {0};
+        when(cursor.hasNext()).thenAnswer(invocation -> served[0] < levels.length);
+        lenient().when(cursor.next()).thenAnswer(invocation -> levels[served[0]++]);
+    }
+
+    @Test
+    void testPostReceipt_ShouldUpsertCacheAndJournal() {
+        when(levelCollection.findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class)))
+                .thenReturn(level("p1", "Main", 10, 0, 1));
+
+        assertTrue(stockLedgerService.post(StockMovementType.RECEIPT, "PO-001", "Main", Map.of("p1", 10)));
+
+        ArgumentCaptor<Bson> update = ArgumentCaptor.forClass(Bson.class);
+        ArgumentCaptor<FindOneAndUpdateOptions> options = ArgumentCaptor.forClass(FindOneAndUpdateOptions.class);
+        verify(levelCollection).findOneAndUpdate(any(Bson.class), update.capture(), options.capture());
+        BsonDocument inc = update.getValue().toBsonDocument().getDocument("$inc");
+        assertEquals(10, inc.getNumber("onHand").intValue());
+        assertEquals(10, inc.getNumber("available").intValue());
+        assertFalse(inc.containsKey("reserved"));
+        assertTrue(options.getValue().isUpsert());
+
+        verify(movementCollection).insertMany(anyList());
+
+        // Served from the cache afterwards
+        StockLevel cached = stockLedgerService.getStockLevel("p1", "Main");
+        assertEquals(10, cached.getOnHand());
+        assertEquals(10, cached.getAvailable());
+        verify(levelCollection, never()).find(any(Bson.class));
+    }
+
+    @Test
+    void testPostReserve_ShouldGuardOnAvailable() {
+        when(levelCollection.findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class)))
+                .thenReturn(level("p1", "Main", 10, 4, 2));
+
+        assertTrue(stockLedgerService.post(StockMovementType.RESERVE, "SO-001", "Main", Map.of("p1", 4)));
+
+        ArgumentCaptor<Bson> filter = ArgumentCaptor.forClass(Bson.class);
+        ArgumentCaptor<FindOneAndUpdateOptions> options = ArgumentCaptor.forClass(FindOneAndUpdateOptions.class);
+        verify(levelCollection).findOneAndUpdate(filter.capture(), any(Bson.class), options.capture());
+        String rendered = filter.getValue().toBsonDocument().toJson();
+        assertTrue(rendered.contains("\"available\": {\"$gte\": 4}"), rendered);
+        assertFalse(options.getValue().isUpsert());
+    }
+
+    @Test
+    void testPostReserve_ShortLine_ShouldUndoEarlierLinesAndNotJournal() {
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        quantities.put("p1", 2);
+        quantities.put("p2", 5);
+        when(levelCollection.findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class)))
+                .thenReturn(level("p1", "Main", 10, 2, 2))   // p1 reserved
+                .thenReturn(null)                            // p2 short
+                .thenReturn(level("p1", "Main", 10, 0, 3));  // p1 given back
+
+        assertFalse(stockLedgerService.post(StockMovementType.RESERVE, "SO-001", "Main", quantities));
+
+        ArgumentCaptor<Bson> update = ArgumentCaptor.forClass(Bson.class);
+        verify(levelCollection, times(3)).findOneAndUpdate(any(Bson.class), update.capture(), any(FindOneAndUpdateOptions.class));
+        BsonDocument undo = update.getAllValues().get(2).toBsonDocument().getDocument("$inc");
+        assertEquals(-2, undo.getNumber("reserved").intValue());
+        verify(movementCollection, never()).insertMany(anyList());
+
+        assertEquals(0, stockLedgerService.getStockLevel("p1", "Main").getReserved());
+    }
+
+    @Test
+    void testPost_NonPositiveQuantity_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class,
+                () -> stockLedgerService.post(StockMovementType.RECEIPT, "PO-001", "Main", Map.of("p1", 0)));
+        verifyNoInteractions(levelCollection);
+    }
+
+    @Test
+    void testGetStockLevels_OlderCopy_ShouldNotReplaceNewerCachedLevel() {
+        when(levelCollection.findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class)))
+                .thenReturn(level("p1", "Main", 10, 0, 5));
+        stockLedgerService.post(StockMovementType.RECEIPT, "PO-001", "Main", Map.of("p1", 10));
+
+        // A read that started before the write returns the level as of version 4
+        when(levelCollection.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.iterator()).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(true, false);
+        when(cursor.next()).thenReturn(level("p1", "Main", 0, 0, 4));
+
+        List<StockLevel> levels = stockLedgerService.getStockLevels("p1");
+
+        assertEquals(1, levels.size());
+        assertEquals(10, levels.get(0).getOnHand());
+        assertEquals(10, stockLedgerService.getStockLevel("p1", "Main").getOnHand());
+    }
+
+    @Test
+    void testInvalidate_ShouldEvictLevel() {
+        when(levelCollection.findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class)))
+                .thenReturn(level("p1", "Main", 10, 0, 1));
+        stockLedgerService.post(StockMovementType.RECEIPT, "PO-001", "Main", Map.of("p1", 10));
+
+        stockLedgerService.invalidate(CacheInvalidation.ofDocument("stock_levels", StockLevel.idOf("p1", "Main"), "update"));
+
+        when(levelCollection.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.first()).thenReturn(level("p1", "Main", 7, 0, 2));
+        assertEquals(7, stockLedgerService.getStockLevel("p1", "Main").getOnHand());
+    }
+
+    @Test
+    void testAdjust_ShouldBulkWriteSignedDeltasAndEvict() {
+        when(levelCollection.findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class)))
+                .thenReturn(level("p1", "Main", 10, 0, 1));
+        stockLedgerService.post(StockMovementType.RECEIPT, "PO-001", "Main", Map.of("p1", 10));
+
+        Map<String, Integer> deltas = new LinkedHashMap<>();
+        deltas.put("p1", -3);
+        deltas.put("p2", 0);
+        deltas.put("p3", 4);
+        mockAlreadyAdjusted();
+        stockLedgerService.adjust("SC-001", "Main", deltas);
+
+        verify(levelCollection).bulkWrite(writes.capture(), any(BulkWriteOptions.class));
+        assertEquals(2, writes.getValue().size());
+        String guard = writes.getValue().get(0).getFilter().toBsonDocument().toJson();
+        assertTrue(guard.contains("\"adjustments\": {\"$ne\": \"SC-001\"}"), guard);
+        BsonDocument inc = writes.getValue().get(0).getUpdate().toBsonDocument().getDocument("$inc");
+        assertEquals(-3, inc.getNumber("onHand").intValue());
+        assertEquals(-3, inc.getNumber("available").intValue());
+        assertTrue(writes.getValue().get(0).getOptions().isUpsert());
+        verify(movementCollection, times(2)).insertMany(anyList());
+
+        // The cached level is stale now, so the next read goes to the database
+        when(findIterable.first()).thenReturn(level("p1", "Main", 7, 0, 2));
+        assertEquals(7, stockLedgerService.getStockLevel("p1", "Main").getOnHand());
+    }
+
+    @Test
+    void testAdjust_RerunOfSameReference_ShouldSkipLevelsItWasAppliedTo() {
+        Map<String, Integer> deltas = new LinkedHashMap<>();
+        deltas.put("p1", -3);
+        deltas.put("p2", 5);
+        // A first run adjusted p1 and failed before its caller recorded that
+        mockAlreadyAdjusted(new Document("_id", StockLevel.idOf("p1", "Main")));
+
+        stockLedgerService.adjust("SC-001", "Main", deltas);
+
+        verify(levelCollection).bulkWrite(writes.capture(), any(BulkWriteOptions.class));
+        assertEquals(1, writes.getValue().size());
+        assertTrue(writes.getValue().get(0).getFilter().toBsonDocument().toJson().contains(StockLevel.idOf("p2", "Main")));
+        verify(movementCollection).insertMany(journal.capture());
+        assertEquals(1, journal.getValue().size());
+        assertEquals("p2", journal.getValue().get(0).getString("productId"));
+    }
+
+    @Test
+    void testAdjust_RerunAfterEveryLevelWasApplied_ShouldNotWrite() {
+        mockAlreadyAdjusted(new Document("_id", StockLevel.idOf("p1", "Main")));
+
+        stockLedgerService.adjust("SC-001", "Main", Map.of("p1", -3));
+
+        verify(levelCollection, never()).bulkWrite(anyList(), any(BulkWriteOptions.class));
+        verifyNoInteractions(movementCollection);
+    }
+}
@@ -0,0 +1,53 @@
+package com.inventory.purchaseorder;
+
+import com.inventory.api.mongo.Publishers;
+import com.inventory.api.mongo.ReactiveMongoConnectionService;
+import com.inventory.api.purchaseorder.model.PurchaseOrder;
+import com.inventory.api.purchaseorder.service.AsyncPurchaseOrderService;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.mongodb.reactivestreams.client.MongoDatabase;
+
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The PurchaseOrderService lookups on the reactive driver; same queries, same indexes
+ * (created by PurchaseOrderServiceImpl).
+ */
+@Component(service = AsyncPurchaseOrderService.class)
+public class AsyncPurchaseOrderServiceImpl implements AsyncPurchaseOrderService {
+
+    @Reference
+    private ReactiveMongoConnectionService connectionService;
+
+    private MongoCollection<PurchaseOrder> purchaseOrderCollection;
+
+    @Activate
+    public void activate() {
+        MongoDatabase database = connectionService.getDatabase();
+        if (database == null) {
+            System.err.println("   ❌ Async Purchase Order Service: Shared reactive MongoDB connection is not available.");
+            return;
+        }
+        purchaseOrderCollection = database.getCollection("purchase_orders", PurchaseOrder.class);
+    }
+
+    @Override
+    public CompletableFuture<List<PurchaseOrder>> getAllPurchaseOrders() {
+        if (purchaseOrderCollection == null) return CompletableFuture.completedFuture(new ArrayList<>());
+        return Publishers.toList(purchaseOrderCollection.find());
+    }
+
+    @Override
+    public CompletableFuture<PurchaseOrder> getPurchaseOrderById(int orderId) {
+        if (purchaseOrderCollection == null) return CompletableFuture.completedFuture(null);
+        return Publishers.first(purchaseOrderCollection.find(Filters.eq("orderId", orderId)).first());
+    }
+}
@@ -4,8 +4,11 @@
 package com.inventory.purchaseorder;
 
 import com.inventory.api.purchaseorder.model.PurchaseOrder;
+import com.inventory.api.purchaseorder.model.PurchaseOrderQuery;
+import com.inventory.api.purchaseorder.model.PurchaseOrderSummary;
 import com.inventory.api.purchaseorder.service.PurchaseOrderService;
 import com.inventory.api.purchaseorder.model.OrderItem;
+import com.inventory.api.stock.StockLedgerService;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -86,9 +89,8 @@ public class GoodsReceiveMenu {
     
     private void viewGoodsReceive() {
         // Get all purchase orders with "received" status
-        List<PurchaseOrder> receivedOrders = purchaseOrderService.getAllPurchaseOrders().stream()
-            .filter(order -> order.getOrderStatus().equalsIgnoreCase("received"))
-            .collect(java.util.stream.Collectors.toList());
+        List<PurchaseOrderSummary> receivedOrders = purchaseOrderService.findPurchaseOrderSummaries(
+            new PurchaseOrderQuery().statuses("received"));
         
         System.out.println("\n--- Goods Receive List ---");
         if (receivedOrders.isEmpty()) {
@@ -102,7 +104,7 @@ public class GoodsReceiveMenu {
             "Receive Date", "Order ID", "Order Number", "Order Date", "Vendor", "Order Status");
         System.out.println("------------------------------------------------------------------------------------------------------------------------");
         
-        for (PurchaseOrder order : receivedOrders) {
+        for (PurchaseOrderSummary order : receivedOrders) {
             String receiveDate = order.getReceivedDate() != null 
                 ? order.getReceivedDate().format(DateTimeFormatter.ISO_LOCAL_DATE)
                 : "N/A";
@@ -123,9 +125,8 @@ public class GoodsReceiveMenu {
         System.out.println("(Enter 'cancel' at any time to cancel and return to menu)");
         
         // Get purchase orders with "shipping" status
-        List<PurchaseOrder> shippingOrders = purchaseOrderService.getAllPurchaseOrders().stream()
-            .filter(order -> order.getOrderStatus().equalsIgnoreCase("shipping"))
-            .collect(java.util.stream.Collectors.toList());
+        List<PurchaseOrderSummary> shippingOrders = purchaseOrderService.findPurchaseOrderSummaries(
+            new PurchaseOrderQuery().statuses("shipping"));
         
         if (shippingOrders.isEmpty()) {
             System.out.println("No purchase orders with 'shipping' status found.");
@@ -139,7 +140,7 @@ public class GoodsReceiveMenu {
             "Order ID", "Order Number", "Order Date", "Vendor", "Status", "Total Price");
         System.out.println("--------------------------------------------------------------------------------------------------------");
         
-        for (PurchaseOrder order : shippingOrders) {
+        for (PurchaseOrderSummary order : shippingOrders) {
             System.out.printf("%-8d | %-15s | %-12s | %-20s | %-15s | $%-11.2f%n",
                 order.getOrderId(),
                 order.getOrderNumber(),
@@ -186,28 +187,26 @@ public class GoodsReceiveMenu {
         String confirm = scanner.nextLine().trim().toUpperCase();
         
         if (confirm.equals("Y") || confirm.equals("YES")) {
-            // Update order status to "received" and set received date
-            PurchaseOrder updatedOrder = new PurchaseOrder();
-            updatedOrder.setOrderId(orderToReceive.getOrderId());
-            updatedOrder.setOrderDate(orderToReceive.getOrderDate());
-            updatedOrder.setOrderNumber(orderToReceive.getOrderNumber());
-            updatedOrder.setVendor(orderToReceive.getVendor());
-            updatedOrder.setOrderItems(orderToReceive.getOrderItems());
-            updatedOrder.setOrderStatus("received");
-            updatedOrder.setReceivedDate(LocalDate.now()); // Set received date to today
+            String warehouse = readString("Enter Warehouse", true, StockLedgerService.DEFAULT_WAREHOUSE, true);
+            if (warehouse.equals("CANCEL_SIGNAL")) {
+                System.out.println("Operation cancelled. Returning to Goods Receive menu.");
+                return;
+            }
             
-            PurchaseOrder savedOrder = purchaseOrderService.updatePurchaseOrder(orderToReceive.getOrderId(), updatedOrder);
+            // Status "received", received date today and the items put on hand in the warehouse
+            PurchaseOrder savedOrder = purchaseOrderService.receivePurchaseOrder(orderToReceive.getOrderId(), warehouse);
             
             if (savedOrder != null) {
                 System.out.println("✅ Goods receive record created successfully!");
                 System.out.println("Order status changed from 'shipping' to 'received'.");
                 System.out.println("Received date: " + savedOrder.getReceivedDate().format(DateTimeFormatter.ISO_LOCAL_DATE));
+                System.out.println("Items added to stock in warehouse: " + savedOrder.getWarehouse());
                 
                 // Display updated goods receive list
                 System.out.println("\n--- Updated Goods Receive List ---");
                 viewGoodsReceive();
             } else {
-                System.out.println("Error creating goods receive record.");
+                System.out.println("Error creating goods receive record (the order is no longer in 'shipping' status).");
             }
         } else {
             System.out.println("Operation cancelled.");
@@ -219,9 +218,8 @@ public class GoodsReceiveMenu {
         System.out.println("(Enter 'cancel' at any time to cancel and return to menu)");
         
         // Get all received orders
-        List<PurchaseOrder> receivedOrders = purchaseOrderService.getAllPurchaseOrders().stream()
-            .filter(order -> order.getOrderStatus().equalsIgnoreCase("received"))
-            .collect(java.util.stream.Collectors.toList());
+        List<PurchaseOrderSummary> receivedOrders = purchaseOrderService.findPurchaseOrderSummaries(
+            new PurchaseOrderQuery().statuses("received"));
         
         if (receivedOrders.isEmpty()) {
             System.out.println("No goods receive records found.");
@@ -235,7 +233,7 @@ public class GoodsReceiveMenu {
             "Receive Date", "Order ID", "Order Number", "Order Date", "Vendor", "Order Status");
         System.out.println("------------------------------------------------------------------------------------------------------------------------");
         
-        for (PurchaseOrder order : receivedOrders) {
+        for (PurchaseOrderSummary order : receivedOrders) {
             String receiveDate = order.getReceivedDate() != null 
                 ? order.getReceivedDate().format(DateTimeFormatter.ISO_LOCAL_DATE)
                 : "N/A";
@@ -309,6 +307,7 @@ public class GoodsReceiveMenu {
                 System.out.println("  " + (i + 1) + ". " + currentItems.get(i));
             }
             
+            System.out.println("(Item names and quantities were posted to stock and cannot change here; prices can.)");
             System.out.print("Edit items? (yes/no) [no]: ");
             String editItemsResponse = scanner.nextLine().trim().toLowerCase();
             
@@ -354,7 +353,13 @@ public class GoodsReceiveMenu {
             updatedOrder.setOrderStatus("received"); // Always "received"
             updatedOrder.setReceivedDate(orderToEdit.getReceivedDate()); // Keep existing received date
             
-            PurchaseOrder savedOrder = purchaseOrderService.updatePurchaseOrder(orderToEdit.getOrderId(), updatedOrder);
+            PurchaseOrder savedOrder;
+            try {
+                savedOrder = purchaseOrderService.updatePurchaseOrder(orderToEdit.getOrderId(), updatedOrder);
+            } catch (IllegalStateException e) {
+                System.out.println("❌ " + e.getMessage());
+                return;
+            }
             
             if (savedOrder != null) {
                 System.out.println("\n✅ Purchase Order updated successfully!");
@@ -379,9 +384,8 @@ public class GoodsReceiveMenu {
         System.out.println("(Enter 'cancel' at any time to cancel and return to menu)");
         
         // Get all received orders
-        List<PurchaseOrder> receivedOrders = purchaseOrderService.getAllPurchaseOrders().stream()
-            .filter(order -> order.getOrderStatus().equalsIgnoreCase("received"))
-            .collect(java.util.stream.Collectors.toList());
+        List<PurchaseOrderSummary> receivedOrders = purchaseOrderService.findPurchaseOrderSummaries(
+            new PurchaseOrderQuery().statuses("received"));
         
         if (receivedOrders.isEmpty()) {
             System.out.println("No goods receive records found.");
@@ -395,7 +399,7 @@ public class GoodsReceiveMenu {
             "Receive Date", "Order ID", "Order Number", "Order Date", "Vendor", "Order Status");
         System.out.println("------------------------------------------------------------------------------------------------------------------------");
         
-        for (PurchaseOrder order : receivedOrders) {
+        for (PurchaseOrderSummary order : receivedOrders) {
             String receiveDate = order.getReceivedDate() != null 
                 ? order.getReceivedDate().format(DateTimeFormatter.ISO_LOCAL_DATE)
                 : "N/A";
@@ -448,17 +452,14 @@ public class GoodsReceiveMenu {
         String confirm = scanner.nextLine().trim().toUpperCase();
         
         if (confirm.equals("Y") || confirm.equals("YES")) {
-            // Update order status from "received" back to "shipping" and clear received date
-            PurchaseOrder updatedOrder = new PurchaseOrder();
-            updatedOrder.setOrderId(orderToDelete.getOrderId());
-            updatedOrder.setOrderDate(orderToDelete.getOrderDate());
-            updatedOrder.setOrderNumber(orderToDelete.getOrderNumber());
-            updatedOrder.setVendor(orderToDelete.getVendor());
-            updatedOrder.setOrderItems(orderToDelete.getOrderItems());
-            updatedOrder.setOrderStatus("shipping"); // Change back to shipping
-            updatedOrder.setReceivedDate(null); // Clear received date
-            
-            PurchaseOrder savedOrder = purchaseOrderService.updatePurchaseOrder(orderToDelete.getOrderId(), updatedOrder);
+            // Status back to "shipping", received date cleared and the items taken off hand again
+            PurchaseOrder savedOrder;
+            try {
+                savedOrder = purchaseOrderService.reversePurchaseOrderReceipt(orderToDelete.getOrderId());
+            } catch (IllegalStateException e) {
+                System.out.println("Cannot delete goods receive record: " + e.getMessage() + ".");
+                return;
+            }
             
             if (savedOrder != null) {
                 System.out.println("✅ Goods receive record deleted successfully!");
@@ -3,11 +3,19 @@
 
 package com.inventory.purchaseorder;
 
+import com.inventory.api.common.Page;
+import com.inventory.api.common.Sort;
+import com.inventory.api.export.ExportFormat;
+import com.inventory.api.export.ExportResult;
 import com.inventory.api.purchaseorder.model.PurchaseOrder;
+import com.inventory.api.purchaseorder.model.PurchaseOrderQuery;
+import com.inventory.api.purchaseorder.model.PurchaseOrderSummary;
 import com.inventory.api.purchaseorder.service.PurchaseOrderService;
 import com.inventory.api.purchaseorder.model.OrderItem;
 
+import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
@@ -21,6 +29,7 @@ public class PurchaseOrderMenu {
     
     private static final List<String> VALID_STATUSES = List.of("pending", "shipping", "received", "cancelled", "returned");
     private static final List<String> EDITABLE_STATUSES = List.of("pending", "shipping", "cancelled"); // Statuses that can be set in Edit Purchase Order
+    private static final int PAGE_SIZE = 20;
     
     public PurchaseOrderMenu(PurchaseOrderService purchaseOrderService, Scanner scanner) {
         this.purchaseOrderService = purchaseOrderService;
@@ -282,15 +291,12 @@ public class PurchaseOrderMenu {
         }
     }
     
-    private String generateOrderNumber(int orderId) {
-        return String.format("PO-%03d", orderId);
-    }
-    
+    // Lists orders PAGE_SIZE at a time (by orderId), asking before each further page
     private void viewPurchaseOrders() {
-        List<PurchaseOrder> orders = purchaseOrderService.getAllPurchaseOrders();
+        Page<PurchaseOrderSummary> page = purchaseOrderService.listPurchaseOrderSummaries(null, PAGE_SIZE, Sort.ASC);
         
         System.out.println("\n--- Purchase Order List ---");
-        if (orders.isEmpty()) {
+        if (page.isEmpty()) {
             System.out.println("(No purchase orders found)");
             return;
         }
@@ -302,14 +308,20 @@ public class PurchaseOrderMenu {
         System.out.println("--------------------------------------------------------------------------------------------------------");
         
         // Display each order
-        for (PurchaseOrder order : orders) {
-            System.out.printf("%-8d | %-12s | %-15s | %-20s | %-15s | $%-11.2f%n",
-                order.getOrderId(),
-                order.getOrderDate().format(DateTimeFormatter.ISO_LOCAL_DATE),
-                order.getOrderNumber(),
-                order.getVendor(),
-                order.getOrderStatus(),
-                order.getTotalPrice());
+        while (true) {
+            for (PurchaseOrderSummary order : page.getItems()) {
+                System.out.printf("%-8d | %-12s | %-15s | %-20s | %-15s | $%-11.2f%n",
+                    order.getOrderId(),
+                    order.getOrderDate().format(DateTimeFormatter.ISO_LOCAL_DATE),
+                    order.getOrderNumber(),
+                    order.getVendor(),
+                    order.getOrderStatus(),
+                    order.getTotalPrice());
+            }
+            if (!page.hasNext()) break;
+            System.out.print("-- Enter for next page, 'q' to stop: ");
+            if (scanner.nextLine().trim().equalsIgnoreCase("q")) break;
+            page = purchaseOrderService.listPurchaseOrderSummaries(page.getNextCursor(), PAGE_SIZE, Sort.ASC);
         }
         System.out.println("--------------------------------------------------------------------------------------------------------");
     }
@@ -397,8 +409,7 @@ public class PurchaseOrderMenu {
             // Create and save purchase order
             PurchaseOrder newOrder = new PurchaseOrder();
             newOrder.setOrderDate(orderDate);
-            int nextId = purchaseOrderService.getNextOrderId();
-            newOrder.setOrderNumber(generateOrderNumber(nextId)); // Auto-generate order number
+            // Order ID and order number (PO-xxx) are allocated by the service on save
             newOrder.setVendor(vendor);
             newOrder.setOrderItems(orderItems);
             newOrder.setOrderStatus("pending"); // Automatically set to pending
@@ -426,8 +437,7 @@ public class PurchaseOrderMenu {
         System.out.println("(Enter 'cancel' at any time to cancel and return to menu)");
         
         // Display all orders first
-        List<PurchaseOrder> orders = purchaseOrderService.getAllPurchaseOrders();
-        if (orders.isEmpty()) {
+        if (purchaseOrderService.findPurchaseOrderSummaries(new PurchaseOrderQuery().limit(1)).isEmpty()) {
             System.out.println("No purchase orders found.");
             return;
         }
@@ -671,7 +681,13 @@ public class PurchaseOrderMenu {
             updatedOrder.setOrderItems(orderItems);
             updatedOrder.setOrderStatus(orderStatus);
             
-            PurchaseOrder savedOrder = purchaseOrderService.updatePurchaseOrder(orderToEdit.getOrderId(), updatedOrder);
+            PurchaseOrder savedOrder;
+            try {
+                savedOrder = purchaseOrderService.updatePurchaseOrder(orderToEdit.getOrderId(), updatedOrder);
+            } catch (IllegalStateException e) {
+                System.out.println("❌ " + e.getMessage());
+                return;
+            }
             
             if (savedOrder != null) {
                 System.out.println("\n✅ Purchase Order updated successfully!");
@@ -796,8 +812,7 @@ public class PurchaseOrderMenu {
         System.out.println("(Enter 'cancel' at any time to cancel and return to menu)");
         
         // Display all orders
-        List<PurchaseOrder> orders = purchaseOrderService.getAllPurchaseOrders();
-        if (orders.isEmpty()) {
+        if (purchaseOrderService.findPurchaseOrderSummaries(new PurchaseOrderQuery().limit(1)).isEmpty()) {
             System.out.println("No purchase orders found.");
             return;
         }
@@ -855,54 +870,56 @@ public class PurchaseOrderMenu {
     private void viewPurchaseReports() {
         System.out.println("\n--- View Purchase Reports ---");
         
-        List<PurchaseOrder> orders = purchaseOrderService.getAllPurchaseOrders();
+        // Default: all orders sorted by Order ID ascending
+        PurchaseOrderQuery query = new PurchaseOrderQuery();
+        List<PurchaseOrder> orders = purchaseOrderService.findPurchaseOrders(query);
         
         if (orders.isEmpty()) {
             System.out.println("(No purchase orders found)");
             return;
         }
         
-        // Default: Sort by Order ID ascending
-        List<PurchaseOrder> currentOrders = new ArrayList<>(orders);
-        currentOrders.sort((o1, o2) -> Integer.compare(o1.getOrderId(), o2.getOrderId()));
-        
         // Display full report with item details first (default sorted)
-        displayFullReport(currentOrders);
+        displayFullReport(orders);
         
         // Ask for sorting/filtering options
         while (true) {
-            List<PurchaseOrder> filteredAndSorted = askForSortingAndFiltering(currentOrders);
-            if (filteredAndSorted == null) {
+            PurchaseOrderQuery next = askForSortingAndFiltering(query);
+            if (next == null) {
                 // User selected exit
                 return;
             }
             
-            // Update current orders to maintain filter/sort state
-            currentOrders = filteredAndSorted;
+            // Keep the query to maintain filter/sort state; the database does the filtering and sorting
+            query = next;
+            orders = purchaseOrderService.findPurchaseOrders(query);
+            
+            if (orders.isEmpty() && !query.getStatuses().isEmpty()) {
+                System.out.println("No orders found with selected status(es): " + String.join(", ", query.getStatuses()));
+            }
             
             // Display full report with item details
-            displayFullReport(filteredAndSorted);
+            displayFullReport(orders);
         }
     }
     
-    private List<PurchaseOrder> askForSortingAndFiltering(List<PurchaseOrder> orders) {
-        List<PurchaseOrder> result = new ArrayList<>(orders);
-        
+    private PurchaseOrderQuery askForSortingAndFiltering(PurchaseOrderQuery query) {
         System.out.println("\n--- Sorting and Filtering Options ---");
         System.out.println("1. Filter by Status");
         System.out.println("2. Sort by Order ID");
         System.out.println("3. Sort by Order Date");
         System.out.println("4. Sort by Vendor");
         System.out.println("5. Sort by Total Price");
-        System.out.println("6. Exit to Purchase Order Menu");
-        System.out.print("Select an option (1-6): ");
+        System.out.println("6. Export to File");
+        System.out.println("7. Exit to Purchase Order Menu");
+        System.out.print("Select an option (1-7): ");
         
         String option = scanner.nextLine().trim();
         
-        // Validate input - only integer 1-6
+        // Validate input - only integer 1-7
         if (!isValidMenuInputForReport(option)) {
-            System.out.println("Invalid option. Please enter a number between 1 and 6.");
-            return result;
+            System.out.println("Invalid option. Please enter a number between 1 and 7.");
+            return query;
         }
         
         int choice = Integer.parseInt(option);
@@ -910,42 +927,74 @@ public class PurchaseOrderMenu {
         switch (choice) {
             case 1:
                 // Filter by status
-                result = filterByStatus(result);
-                break;
+                return filterByStatus(query);
             case 2:
                 // Sort by Order ID
-                result = applySorting(result, "orderId");
-                break;
+                return applySorting(query, PurchaseOrderQuery.SortField.ORDER_ID, "Order ID");
             case 3:
                 // Sort by Order Date
-                result = applySorting(result, "orderDate");
-                break;
+                return applySorting(query, PurchaseOrderQuery.SortField.ORDER_DATE, "Order Date");
             case 4:
                 // Sort by Vendor
-                result = applySorting(result, "vendor");
-                break;
+                return applySorting(query, PurchaseOrderQuery.SortField.VENDOR, "Vendor");
             case 5:
                 // Sort by Total Price
-                result = applySorting(result, "totalPrice");
-                break;
+                return applySorting(query, PurchaseOrderQuery.SortField.TOTAL_PRICE, "Total Price");
             case 6:
+                // Export the filtered orders (the current filter and sort are kept)
+                exportReport(query);
+                return query;
+            default:
                 // Exit to Purchase Order Menu
                 return null;
         }
-        
-        return result;
     }
     
     private boolean isValidMenuInputForReport(String input) {
         try {
             int choice = Integer.parseInt(input);
-            return choice >= 1 && choice <= 6;
+            return choice >= 1 && choice <= 7;
         } catch (NumberFormatException e) {
             return false;
         }
     }
     
-    private List<PurchaseOrder> filterByStatus(List<PurchaseOrder> orders) {
+    // Streams the orders of the current status filter to a file, in Order ID order
+    private void exportReport(PurchaseOrderQuery query) {
+        System.out.println("\n--- Export to File ---");
+        System.out.print("Format - J: NDJSON, C: CSV, or 'cancel' to return (J/C/cancel): ");
+        String formatInput = scanner.nextLine().trim();
+        if (checkCancel(formatInput)) {
+            return;
+        }
+        formatInput = formatInput.toUpperCase();
+        if (!formatInput.equals("J") && !formatInput.equals("C")) {
+            System.out.println("Invalid format. Please enter J or C.");
+            return;
+        }
+        ExportFormat format = formatInput.equals("C") ? ExportFormat.CSV : ExportFormat.NDJSON;
+        
+        System.out.print("Compress with gzip? (Y/N): ");
+        boolean gzip = scanner.nextLine().trim().equalsIgnoreCase("Y");
+        
+        String defaultFile = "exports/purchase_orders-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"))
+            + "." + format.getExtension() + (gzip ? ".gz" : "");
+        System.out.print("File (Enter for " + defaultFile + "): ");
+        String file = scanner.nextLine().trim();
+        if (file.isEmpty()) {
+            file = defaultFile;
+        }
+        
+        try {
+            ExportResult result = purchaseOrderService.exportPurchaseOrders(query, format, gzip, Paths.get(file));
+            System.out.println("✅ Exported " + result.getDocuments() + " order(s) to " + result.getFile()
+                + " (" + result.getBytes() + " bytes, " + result.getElapsedMillis() + " ms)");
+        } catch (RuntimeException e) {
+            System.out.println("Export failed: " + e.getMessage());
+        }
+    }
+    
+    private PurchaseOrderQuery filterByStatus(PurchaseOrderQuery query) {
         List<String> selectedStatuses = new ArrayList<>();
         
         System.out.println("\n--- Filter by Status ---");
@@ -959,7 +1008,7 @@ public class PurchaseOrderMenu {
             
             // Check for cancel
             if (checkCancel(status)) {
-                return orders; // Return original orders (no filter applied)
+                return query; // Keep the current query (no filter applied)
             }
             
             if (status.equals("done")) {
@@ -987,66 +1036,32 @@ public class PurchaseOrderMenu {
             }
         }
         
-        List<PurchaseOrder> filtered = orders.stream()
-            .filter(order -> selectedStatuses.contains(order.getOrderStatus().toLowerCase()))
-            .collect(java.util.stream.Collectors.toList());
-        
-        if (filtered.isEmpty()) {
-            System.out.println("No orders found with selected status(es): " + String.join(", ", selectedStatuses));
-            return filtered;
-        }
-        
-        System.out.println("✅ Filtered by status(es): " + String.join(", ", selectedStatuses) + 
-            " (" + filtered.size() + " order(s))");
-        return filtered;
+        // The selected statuses replace any earlier status filter; the sort is kept
+        System.out.println("✅ Filtered by status(es): " + String.join(", ", selectedStatuses));
+        return new PurchaseOrderQuery()
+            .statuses(selectedStatuses)
+            .sortBy(query.getSortField(), query.getSortDirection());
     }
     
-    private List<PurchaseOrder> applySorting(List<PurchaseOrder> orders, String sortField) {
+    private PurchaseOrderQuery applySorting(PurchaseOrderQuery query, PurchaseOrderQuery.SortField sortField, String label) {
         while (true) {
             System.out.print("\nSort order - A: Ascending, D: Descending, or 'cancel' to return (A/D/cancel): ");
             String sortOrder = scanner.nextLine().trim();
             
             // Check for cancel
             if (checkCancel(sortOrder)) {
-                return orders; // Return original orders (no sorting applied)
+                return query; // Keep the current query (no sorting applied)
             }
             
             sortOrder = sortOrder.toUpperCase();
             
             // Validate input - only A or D
             if (sortOrder.equals("A") || sortOrder.equals("D")) {
-        
                 boolean ascending = sortOrder.equals("A");
-                List<PurchaseOrder> sorted = new ArrayList<>(orders);
-                
-                switch (sortField) {
-                    case "orderId":
-                        sorted.sort((o1, o2) -> ascending 
-                            ? Integer.compare(o1.getOrderId(), o2.getOrderId())
-                            : Integer.compare(o2.getOrderId(), o1.getOrderId()));
-                        System.out.println("Sorted by Order ID (" + (ascending ? "ascending" : "descending") + ")");
-                        break;
-                    case "orderDate":
-                        sorted.sort((o1, o2) -> ascending
-                            ? o1.getOrderDate().compareTo(o2.getOrderDate())
-                            : o2.getOrderDate().compareTo(o1.getOrderDate()));
-                        System.out.println("Sorted by Order Date (" + (ascending ? "ascending" : "descending") + ")");
-                        break;
-                    case "vendor":
-                        sorted.sort((o1, o2) -> ascending
-                            ? o1.getVendor().compareToIgnoreCase(o2.getVendor())
-                            : o2.getVendor().compareToIgnoreCase(o1.getVendor()));
-                        System.out.println("Sorted by Vendor (" + (ascending ? "ascending" : "descending") + ")");
-                        break;
-                    case "totalPrice":
-                        sorted.sort((o1, o2) -> ascending
-                            ? Double.compare(o1.getTotalPrice(), o2.getTotalPrice())
-                            : Double.compare(o2.getTotalPrice(), o1.getTotalPrice()));
-                        System.out.println("Sorted by Total Price (" + (ascending ? "ascending" : "descending") + ")");
-                        break;
-                }
-                
-                return sorted;
+                System.out.println("Sorted by " + label + " (" + (ascending ? "ascending" : "descending") + ")");
+                return new PurchaseOrderQuery()
+                    .statuses(query.getStatuses())
+                    .sortBy(sortField, ascending ? Sort.ASC : Sort.DESC);
             } else {
                 System.out.println("Invalid input. Please enter A for Ascending, D for Descending, or 'cancel' to return.");
             }
@@ -3,51 +3,171 @@
 
 package com.inventory.purchaseorder;
 
+import com.inventory.api.common.Page;
+import com.inventory.api.common.Sort;
+import com.inventory.api.export.ExportFormat;
+import com.inventory.api.export.ExportRequest;
+import com.inventory.api.export.ExportResult;
+import com.inventory.api.export.ExportService;
+import com.inventory.api.purchaseorder.model.OrderItem;
 import com.inventory.api.purchaseorder.model.PurchaseOrder;
+import com.inventory.api.purchaseorder.model.PurchaseOrderQuery;
+import com.inventory.api.purchaseorder.model.PurchaseOrderSummary;
 import com.inventory.api.purchaseorder.service.PurchaseOrderService;
-import com.inventory.api.purchaseorder.model.OrderItem;
+import com.inventory.api.mongo.BsonConversion;
+import com.inventory.api.mongo.IndexDefinition;
+import com.inventory.api.mongo.IndexManager;
+import com.inventory.api.mongo.MongoConnectionService;
+import com.inventory.api.mongo.MongoPaging;
+import com.inventory.api.mongo.SchemaMigration;
+import com.inventory.api.mongo.SchemaMigrationService;
+import com.inventory.api.mongo.SequenceService;
+import com.inventory.api.product.service.ProductService;
+import com.inventory.api.stock.StockLedgerService;
+import com.inventory.api.stock.StockMovementType;
 import org.bson.Document;
+import org.bson.conversions.Bson;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
 
-import com.mongodb.client.MongoClient;
-import com.mongodb.client.MongoClients;
+import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Collation;
+import com.mongodb.client.model.CollationStrength;
+import com.mongodb.client.model.Field;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
 import com.mongodb.client.model.Updates;
+import com.mongodb.client.result.UpdateResult;
 
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Component(service = PurchaseOrderService.class, immediate = true)
 public class PurchaseOrderServiceImpl implements PurchaseOrderService {
     
+    // Counter document in the shared "counters" collection
+    static final String ORDER_ID_SEQUENCE = "purchase_order_id";
+    
+    // Strength 2 = ignore case, for the vendor sort of the report
+    private static final Collation VENDOR_COLLATION = Collation.builder()
+            .locale("en")
+            .collationStrength(CollationStrength.SECONDARY)
+            .build();
+    
+    // orderId is the business key (sequence-allocated, so unique); the others back findPurchaseOrders():
+    // status filter + date order (the prefix also serves status-only lookups), the exact vendor filter
+    // and the vendor sort, which only uses an index with the same collation as the query
+    static final List<IndexDefinition> INDEXES = List.of(
+            IndexDefinition.ascending("purchase_orders", "orderId").unique(),
+            IndexDefinition.ascending("purchase_orders", "orderStatus", "orderDate"),
+            IndexDefinition.ascending("purchase_orders", "vendor"),
+            IndexDefinition.ascending("purchase_orders", "vendor").named("vendor_ci").withCollation(VENDOR_COLLATION));
+    
+    // Dates were ISO strings and item prices doubles; the codec and toFilter() accept both while this runs
+    static final SchemaMigration NATIVE_TYPES = SchemaMigration.version(2, "Purchase order dates and prices to native BSON types")
+            .convert("purchase_orders", "orderId", BsonConversion.INT32)
+            .convert("purchase_orders", "orderDate", BsonConversion.DATE)
+            .convert("purchase_orders", "receivedDate", BsonConversion.DATE)
+            .convert("purchase_orders", "returnedDate", BsonConversion.DATE)
+            .convert("purchase_orders", "shippingDate", BsonConversion.DATE)
+            .convert("purchase_orders", "cancelledDate", BsonConversion.DATE)
+            .convert("purchase_orders", "orderItems.quantity", BsonConversion.INT32)
+            .convert("purchase_orders", "orderItems.pricePerItem", BsonConversion.DECIMAL128);
+    
+    // CSV export columns; the items are one JSON array column
+    static final String[] EXPORT_COLUMNS = {
+        "orderId", "orderNumber", "orderDate", "vendor", "orderStatus",
+        "shippingDate", "receivedDate", "returnedDate", "cancelledDate", "orderItems"
+    };
+    
+    // Sum of quantity * price over the items; $toDecimal also reads the strings and doubles of unmigrated orders
+    static final Document TOTAL_PRICE_EXPRESSION = new Document("$sum",
+        new Document("$map", new Document("input", new Document("$ifNull", List.of("$orderItems", List.of())))
+            .append("as", "item")
+            .append("in", new Document("$multiply", List.of(
+                new Document("$toDecimal", "$$item.quantity"),
+                new Document("$toDecimal", "$$item.pricePerItem"))))));
+    
+    static final Document ITEM_COUNT_EXPRESSION = new Document("$size",
+        new Document("$ifNull", List.of("$orderItems", List.of())));
+    
+    // The list columns. The codec stores totalPrice and itemCount with every write; orders written
+    // before that get them computed here until the backfill in activate() has reached them
+    static final Bson SUMMARY_PROJECTION = Projections.fields(
+        Projections.include("orderId", "orderNumber", "orderDate", "vendor", "orderStatus", "receivedDate", "returnedDate"),
+        Projections.computed("totalPrice", new Document("$ifNull", List.of("$totalPrice", TOTAL_PRICE_EXPRESSION))),
+        Projections.computed("itemCount", new Document("$ifNull", List.of("$itemCount", ITEM_COUNT_EXPRESSION))),
+        Projections.excludeId());
+    
+    // Statuses whose items were posted to the stock ledger
+    static final Set<String> STOCK_POSTED_STATUSES = Set.of("received", "returned");
+    
     private PurchaseOrderMenu currentMenu;
     
-    private MongoClient mongoClient;
+    @Reference
+    private MongoConnectionService connectionService;
+    
+    @Reference
+    private SequenceService sequenceService;
+    
+    @Reference
+    private IndexManager indexManager;
+    
+    @Reference
+    private SchemaMigrationService migrationService;
+    
+    @Reference
+    private ExportService exportService;
+    
+    @Reference
+    private ProductService productService;
+    
+    @Reference
+    private StockLedgerService stockLedgerService;
+
     private MongoDatabase database;
-    private MongoCollection<Document> purchaseOrderCollection;
+    private MongoCollection<PurchaseOrder> purchaseOrderCollection;
+    private MongoCollection<PurchaseOrderSummary> purchaseOrderSummaryCollection;
     
     @Activate
     public void activate() {
         System.out.println("✅ Purchase Order Component Started.");
         try {
-            String uri = System.getProperty("mongodb.uri");
-            if (uri == null || uri.isEmpty()) {
-                System.err.println("❌ Error: mongodb.uri not found in System Properties.");
+            database = connectionService.getDatabase();
+            if (database == null) {
+                System.err.println("❌ Error: Shared MongoDB connection is not available.");
                 return;
             }
             
-            mongoClient = MongoClients.create(uri);
-            database = mongoClient.getDatabase("inventory_db_osgi");
-            purchaseOrderCollection = database.getCollection("purchase_orders");
+            // Decoded by the purchase order codec registered on the shared client
+            purchaseOrderCollection = database.getCollection("purchase_orders", PurchaseOrder.class);
+            purchaseOrderSummaryCollection = database.getCollection("purchase_orders", PurchaseOrderSummary.class);
+            indexManager.ensureIndexes(INDEXES);
+            migrationService.submit(NATIVE_TYPES);
+            backfillTotals();
             
-            System.out.println("   ✅ Connected to MongoDB: inventory_db_osgi");
+            // Seed the counter from orders created before the sequence existed (no-op afterwards)
+            sequenceService.ensureAtLeast(ORDER_ID_SEQUENCE, findMaxOrderId());
+            
+            System.out.println("   ✅ Connected to MongoDB: " + database.getName());
             System.out.println("   Loaded " + purchaseOrderCollection.countDocuments() + " purchase order(s) from database.");
         } catch (Exception e) {
             System.err.println("   ❌ MongoDB Connection Failed: " + e.getMessage());
@@ -55,96 +175,22 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
         }
     }
     
-    @Deactivate
-    public void deactivate() {
-        System.out.println("❌ Stopping Purchase Order Component...");
-        if (mongoClient != null) {
-            mongoClient.close();
+    // Stores totalPrice and itemCount on orders written before the codec did; one pipeline update on the
+    // server, and a no-op once every order has them
+    private void backfillTotals() {
+        var result = purchaseOrderCollection.updateMany(Filters.exists("totalPrice", false), List.of(
+            Aggregates.set(
+                new Field<>("totalPrice", TOTAL_PRICE_EXPRESSION),
+                new Field<>("itemCount", ITEM_COUNT_EXPRESSION))));
+        if (result != null && result.getModifiedCount() > 0) {
+            System.out.println("   Stored totals on " + result.getModifiedCount() + " purchase order(s).");
         }
     }
     
-    // =================== DOCUMENT MAPPING METHODS ===================
-    
-    private PurchaseOrder mapToPurchaseOrder(Document doc) {
-        if (doc == null) return null;
-        
-        PurchaseOrder po = new PurchaseOrder();
-        po.setOrderId(doc.getInteger("orderId", 0));
-        
-        String orderDateStr = doc.getString("orderDate");
-        if (orderDateStr != null && !orderDateStr.isEmpty()) {
-            po.setOrderDate(LocalDate.parse(orderDateStr));
-        }
-        
-        po.setOrderNumber(doc.getString("orderNumber"));
-        po.setVendor(doc.getString("vendor"));
-        po.setOrderStatus(doc.getString("orderStatus"));
-        
-        String receivedDateStr = doc.getString("receivedDate");
-        if (receivedDateStr != null && !receivedDateStr.isEmpty()) {
-            po.setReceivedDate(LocalDate.parse(receivedDateStr));
-        }
-        
-        String returnedDateStr = doc.getString("returnedDate");
-        if (returnedDateStr != null && !returnedDateStr.isEmpty()) {
-            po.setReturnedDate(LocalDate.parse(returnedDateStr));
-        }
-        
-        String shippingDateStr = doc.getString("shippingDate");
-        if (shippingDateStr != null && !shippingDateStr.isEmpty()) {
-            po.setShippingDate(LocalDate.parse(shippingDateStr));
-        }
-        
-        String cancelledDateStr = doc.getString("cancelledDate");
-        if (cancelledDateStr != null && !cancelledDateStr.isEmpty()) {
-            po.setCancelledDate(LocalDate.parse(cancelledDateStr));
-        }
-        
-        // Map OrderItems (nested documents)
-        @SuppressWarnings("unchecked")
-        List<Document> itemsDocs = (List<Document>) doc.get("orderItems");
-        List<OrderItem> orderItems = new ArrayList<>();
-        if (itemsDocs != null) {
-            for (Document itemDoc : itemsDocs) {
-                OrderItem item = new OrderItem(
-                    itemDoc.getString("itemName"),
-                    itemDoc.getInteger("quantity", 0),
-                    itemDoc.getDouble("pricePerItem")
-                );
-                orderItems.add(item);
-            }
-        }
-        po.setOrderItems(orderItems);
-        
-        return po;
-    }
-    
-    private Document mapFromPurchaseOrder(PurchaseOrder po) {
-        Document doc = new Document()
-            .append("orderId", po.getOrderId())
-            .append("orderDate", po.getOrderDate() != null ? po.getOrderDate().toString() : null)
-            .append("orderNumber", po.getOrderNumber())
-            .append("vendor", po.getVendor())
-            .append("orderStatus", po.getOrderStatus())
-            .append("receivedDate", po.getReceivedDate() != null ? po.getReceivedDate().toString() : null)
-            .append("returnedDate", po.getReturnedDate() != null ? po.getReturnedDate().toString() : null)
-            .append("shippingDate", po.getShippingDate() != null ? po.getShippingDate().toString() : null)
-            .append("cancelledDate", po.getCancelledDate() != null ? po.getCancelledDate().toString() : null);
-        
-        // Map OrderItems as nested documents
-        List<Document> itemsDocs = new ArrayList<>();
-        if (po.getOrderItems() != null) {
-            for (OrderItem item : po.getOrderItems()) {
-                Document itemDoc = new Document()
-                    .append("itemName", item.getItemName())
-                    .append("quantity", item.getQuantity())
-                    .append("pricePerItem", item.getPricePerItem());
-                itemsDocs.add(itemDoc);
-            }
-        }
-        doc.append("orderItems", itemsDocs);
-        
-        return doc;
+    @Deactivate
+    public void deactivate() {
+        System.out.println("❌ Stopping Purchase Order Component...");
+        // The shared client is closed by the infrastructure bundle, not here
     }
     
     // =================== SERVICE IMPLEMENTATION ===================
@@ -154,18 +200,46 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
         List<PurchaseOrder> orders = new ArrayList<>();
         if (purchaseOrderCollection == null) return orders;
         
-        for (Document doc : purchaseOrderCollection.find()) {
-            orders.add(mapToPurchaseOrder(doc));
+        for (PurchaseOrder po : purchaseOrderCollection.find()) {
+            orders.add(po);
         }
         return orders;
     }
     
+    @Override
+    public Page<PurchaseOrder> listPurchaseOrders(String afterId, int limit, Sort sort) {
+        if (purchaseOrderCollection == null) return new Page<>(new ArrayList<>(), null);
+        
+        return MongoPaging.page(purchaseOrderCollection, "orderId", orderIdCursor(afterId), limit, sort, PurchaseOrder::getOrderId);
+    }
+    
+    @Override
+    public Page<PurchaseOrderSummary> listPurchaseOrderSummaries(String afterId, int limit, Sort sort) {
+        if (purchaseOrderSummaryCollection == null) return new Page<>(new ArrayList<>(), null);
+        
+        return MongoPaging.page(purchaseOrderSummaryCollection, "orderId", orderIdCursor(afterId), limit, sort,
+            SUMMARY_PROJECTION, PurchaseOrderSummary::getOrderId);
+    }
+    
+    private static Integer orderIdCursor(String afterId) {
+        try {
+            return afterId == null || afterId.isEmpty() ? null : Integer.valueOf(afterId);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page cursor: " + afterId);
+        }
+    }
+    
+    @Override
+    public Stream<PurchaseOrder> streamPurchaseOrders(int batchSize) {
+        if (purchaseOrderCollection == null) return Stream.empty();
+        return MongoPaging.stream(purchaseOrderCollection.find(), batchSize);
+    }
+    
     @Override
     public PurchaseOrder getPurchaseOrderById(int orderId) {
         if (purchaseOrderCollection == null) return null;
         
-        Document doc = purchaseOrderCollection.find(Filters.eq("orderId", orderId)).first();
-        return mapToPurchaseOrder(doc);
+        return purchaseOrderCollection.find(Filters.eq("orderId", orderId)).first();
     }
     
     @Override
@@ -182,8 +256,7 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
             purchaseOrder.setOrderNumber(String.format("PO-%03d", purchaseOrder.getOrderId()));
         }
         
-        Document doc = mapFromPurchaseOrder(purchaseOrder);
-        purchaseOrderCollection.insertOne(doc);
+        purchaseOrderCollection.insertOne(purchaseOrder);
         return purchaseOrder;
     }
     
@@ -198,6 +271,14 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
         
         updatedOrder.setOrderId(orderId); // Ensure ID matches
         
+        // The stock of a received or returned order was posted from its items; they change only
+        // after the receipt is reversed, or the reversal would move quantities never received
+        if (STOCK_POSTED_STATUSES.contains(existingOrder.getOrderStatus().toLowerCase())
+                && !itemQuantities(existingOrder).equals(itemQuantities(updatedOrder))) {
+            throw new IllegalStateException("The items of " + existingOrder.getOrderNumber() + " were "
+                    + existingOrder.getOrderStatus().toLowerCase() + "; reverse the receipt before changing them");
+        }
+        
         String newStatus = updatedOrder.getOrderStatus().toLowerCase();
         String oldStatus = existingOrder.getOrderStatus().toLowerCase();
         
@@ -278,22 +359,246 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
             updatedOrder.setCancelledDate(existingOrder.getCancelledDate());
         }
         
-        Document doc = mapFromPurchaseOrder(updatedOrder);
-        purchaseOrderCollection.replaceOne(Filters.eq("orderId", orderId), doc);
+        // The warehouse is only set by receivePurchaseOrder(); a full edit keeps it
+        if (updatedOrder.getWarehouse() == null) {
+            updatedOrder.setWarehouse(existingOrder.getWarehouse());
+        }
+        // Likewise what the receipt posted, which reversals take back
+        updatedOrder.setReceivedQuantities(existingOrder.getReceivedQuantities());
+        
+        // Only over the status read above, so a receipt posted meanwhile is not overwritten
+        UpdateResult result = purchaseOrderCollection.replaceOne(
+                Filters.and(Filters.eq("orderId", orderId), Filters.eq("orderStatus", existingOrder.getOrderStatus())),
+                updatedOrder);
+        if (result.getMatchedCount() == 0) {
+            throw new IllegalStateException(existingOrder.getOrderNumber() + " was changed meanwhile; open it again");
+        }
         return updatedOrder;
     }
     
+    // itemName -> quantity; prices and the order of the items do not move stock
+    private static Map<String, Integer> itemQuantities(PurchaseOrder order) {
+        Map<String, Integer> quantities = new TreeMap<>();
+        for (OrderItem item : order.getOrderItems()) {
+            quantities.merge(String.valueOf(item.getItemName()), item.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+    
+    // =================== STOCK MOVEMENTS ===================
+    
+    @Override
+    public PurchaseOrder receivePurchaseOrder(int orderId, String warehouse) {
+        String target = warehouse == null || warehouse.trim().isEmpty() ? StockLedgerService.DEFAULT_WAREHOUSE : warehouse.trim();
+        return moveStock(orderId, "shipping", StockMovementType.RECEIPT, target, true, Updates.combine(
+                Updates.set("orderStatus", "received"),
+                Updates.set("receivedDate", toDate(LocalDate.now())),
+                Updates.set("warehouse", target)));
+    }
+    
+    @Override
+    public PurchaseOrder reversePurchaseOrderReceipt(int orderId) {
+        return moveStock(orderId, "received", StockMovementType.REVERSAL, null, false, Updates.combine(
+                Updates.set("orderStatus", "shipping"),
+                Updates.unset("receivedDate"),
+                Updates.unset("warehouse"),
+                Updates.unset("receivedQuantities")));
+    }
+    
+    @Override
+    public PurchaseOrder returnPurchaseOrder(int orderId) {
+        return moveStock(orderId, "received", StockMovementType.REVERSAL, null, false, Updates.combine(
+                Updates.set("orderStatus", "returned"),
+                Updates.set("returnedDate", toDate(LocalDate.now()))));
+    }
+    
+    @Override
+    public PurchaseOrder cancelPurchaseReturn(int orderId) {
+        return moveStock(orderId, "returned", StockMovementType.RECEIPT, null, false, Updates.combine(
+                Updates.set("orderStatus", "received"),
+                Updates.unset("returnedDate")));
+    }
+    
+    // Applies the status change only if the order is still in fromStatus (one findOneAndUpdate, so two
+    // clerks cannot receive the same order twice) and posts its items to the warehouse (null = the order's own).
+    // Stock going out is taken first and given back if the status changed meanwhile. A receipt records
+    // the productId quantities it posts on the order (same update), and every later movement posts those.
+    private PurchaseOrder moveStock(int orderId, String fromStatus, StockMovementType type, String warehouse,
+                                    boolean recordQuantities, Bson statusUpdate) {
+        if (purchaseOrderCollection == null) return null;
+        
+        PurchaseOrder order = purchaseOrderCollection.find(
+                Filters.and(Filters.eq("orderId", orderId), Filters.eq("orderStatus", fromStatus))).first();
+        if (order == null) return null;
+        
+        String target = warehouse != null ? warehouse
+                : order.getWarehouse() != null ? order.getWarehouse() : StockLedgerService.DEFAULT_WAREHOUSE;
+        Map<String, Integer> quantities = stockOf(order);
+        if (recordQuantities) {
+            statusUpdate = Updates.combine(statusUpdate, Updates.set("receivedQuantities", new Document(quantities)));
+        }
+        if (type.isGuarded() && !quantities.isEmpty()
+                && !stockLedgerService.post(type, order.getOrderNumber(), target, quantities)) {
+            throw new IllegalStateException("Some items of " + order.getOrderNumber() + " in " + target
+                    + " are already reserved or used");
+        }
+        
+        PurchaseOrder updated = purchaseOrderCollection.findOneAndUpdate(
+                Filters.and(Filters.eq("orderId", orderId), Filters.eq("orderStatus", fromStatus)),
+                statusUpdate,
+                new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER));
+        
+        if (type.isGuarded()) {
+            if (updated == null && !quantities.isEmpty()) {
+                stockLedgerService.post(StockMovementType.RECEIPT, order.getOrderNumber(), target, quantities);
+            }
+        } else if (updated != null && !quantities.isEmpty()) {
+            // Incoming stock cannot fail, so it follows the status
+            stockLedgerService.post(type, updated.getOrderNumber(), target, quantities);
+        }
+        return updated;
+    }
+    
+    // What the receipt posted; orders received before that was recorded fall back to the item names
+    private Map<String, Integer> stockOf(PurchaseOrder order) {
+        return order.getReceivedQuantities() != null ? order.getReceivedQuantities() : quantitiesOf(order);
+    }
+    
+    // productId -> quantity of the order's items; items are named, so names no product has are skipped
+    private Map<String, Integer> quantitiesOf(PurchaseOrder order) {
+        Map<String, Integer> quantities = new TreeMap<>();
+        for (OrderItem item : order.getOrderItems()) {
+            if (item.getQuantity() <= 0) continue;
+            String productId = productService.getProductIdByName(item.getItemName());
+            if (productId == null) {
+                System.err.println("Warning: no product named '" + item.getItemName() + "' on "
+                        + order.getOrderNumber() + "; its stock is not moved.");
+                continue;
+            }
+            quantities.merge(productId, item.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+    
     // Get purchase orders by status
     public List<PurchaseOrder> getPurchaseOrdersByStatus(String status) {
-        if (purchaseOrderCollection == null) return new ArrayList<>();
-        
+        return findPurchaseOrders(new PurchaseOrderQuery().statuses(status));
+    }
+    
+    @Override
+    public List<PurchaseOrder> findPurchaseOrders(PurchaseOrderQuery query) {
         List<PurchaseOrder> orders = new ArrayList<>();
-        for (Document doc : purchaseOrderCollection.find(Filters.eq("orderStatus", status))) {
-            orders.add(mapToPurchaseOrder(doc));
+        if (purchaseOrderCollection == null) return orders;
+        
+        Bson filter = toFilter(query);
+        String field = query.getSortField().getField();
+        // orderId breaks ties so equal sort keys come back in a stable order
+        Bson sort = query.getSortDirection() == Sort.DESC
+            ? Sorts.descending(field, "orderId")
+            : Sorts.ascending(field, "orderId");
+        
+        if (query.getSortField() == PurchaseOrderQuery.SortField.TOTAL_PRICE) {
+            // The stored total, or computed from the items on orders the backfill has not reached yet
+            List<Bson> pipeline = new ArrayList<>();
+            pipeline.add(Aggregates.match(filter));
+            pipeline.add(Aggregates.addFields(new Field<>("totalPrice",
+                new Document("$ifNull", List.of("$totalPrice", TOTAL_PRICE_EXPRESSION)))));
+            pipeline.add(Aggregates.sort(sort));
+            if (query.getLimit() > 0) pipeline.add(Aggregates.limit(query.getLimit()));
+            
+            // The codec recomputes totalPrice from the items
+            for (PurchaseOrder po : purchaseOrderCollection.aggregate(pipeline)) {
+                orders.add(po);
+            }
+            return orders;
+        }
+        
+        FindIterable<PurchaseOrder> find = purchaseOrderCollection.find(filter).sort(sort);
+        if (query.getSortField() == PurchaseOrderQuery.SortField.VENDOR) {
+            // Vendor names sort case-insensitively, as the report did in memory
+            find = find.collation(VENDOR_COLLATION);
+        }
+        if (query.getLimit() > 0) find = find.limit(query.getLimit());
+        
+        for (PurchaseOrder po : find) {
+            orders.add(po);
         }
         return orders;
     }
     
+    @Override
+    public List<PurchaseOrderSummary> findPurchaseOrderSummaries(PurchaseOrderQuery query) {
+        List<PurchaseOrderSummary> summaries = new ArrayList<>();
+        if (purchaseOrderSummaryCollection == null) return summaries;
+        
+        String field = query.getSortField().getField();
+        Bson sort = query.getSortDirection() == Sort.DESC
+            ? Sorts.descending(field, "orderId")
+            : Sorts.ascending(field, "orderId");
+        
+        // Same filter and order as findPurchaseOrders(), without the items; totalPrice is a stored field now
+        FindIterable<PurchaseOrderSummary> find = purchaseOrderSummaryCollection.find(toFilter(query))
+            .projection(SUMMARY_PROJECTION)
+            .sort(sort);
+        if (query.getSortField() == PurchaseOrderQuery.SortField.VENDOR) {
+            find = find.collation(VENDOR_COLLATION);
+        }
+        if (query.getLimit() > 0) find = find.limit(query.getLimit());
+        
+        for (PurchaseOrderSummary summary : find) {
+            summaries.add(summary);
+        }
+        return summaries;
+    }
+    
+    @Override
+    public ExportResult exportPurchaseOrders(PurchaseOrderQuery query, ExportFormat format, boolean gzip, Path target) {
+        ExportRequest request = ExportRequest.of("purchase_orders", target)
+            .filter(toFilter(query))
+            .sort(Sorts.ascending("orderId"))
+            .format(format)
+            .gzip(gzip);
+        if (format == ExportFormat.CSV) {
+            request = request.columns(EXPORT_COLUMNS);
+        }
+        return exportService.export(request);
+    }
+    
+    // One clause per criterion; a date range is one clause so both bounds seek the same index range
+    private Bson toFilter(PurchaseOrderQuery query) {
+        List<Bson> filters = new ArrayList<>();
+        if (!query.getStatuses().isEmpty()) filters.add(Filters.in("orderStatus", query.getStatuses()));
+        if (query.getVendor() != null) filters.add(Filters.eq("vendor", query.getVendor()));
+        addRange(filters, "orderDate", query.getOrderDateFrom(), query.getOrderDateTo());
+        addRange(filters, "receivedDate", query.getReceivedDateFrom(), query.getReceivedDateTo());
+        return filters.isEmpty() ? new Document() : Filters.and(filters);
+    }
+    
+    private void addRange(List<Bson> filters, String field, LocalDate from, LocalDate to) {
+        if (from == null && to == null) return;
+        Bson dates = range(field, from != null ? toDate(from) : null, to != null ? toDate(to) : null);
+        if (migrationService.isApplied(NATIVE_TYPES.getVersion())) {
+            filters.add(dates);
+            return;
+        }
+        // Until the migration is applied a field may still hold an ISO string (which compares in
+        // date order); range operators only match values of their own type, so both ranges are needed
+        Bson strings = range(field, from != null ? from.toString() : null, to != null ? to.toString() : null);
+        filters.add(Filters.or(dates, strings));
+    }
+    
+    private static Bson range(String field, Object from, Object to) {
+        Document bounds = new Document();
+        if (from != null) bounds.append("$gte", from);
+        if (to != null) bounds.append("$lte", to);
+        return new Document(field, bounds);
+    }
+    
+    // Same instant the codec writes for a LocalDate
+    private static Date toDate(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+    
     @Override
     public boolean deletePurchaseOrder(int orderId) {
         if (purchaseOrderCollection == null) return false;
@@ -318,15 +623,18 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
     public int getNextOrderId() {
         if (purchaseOrderCollection == null) return 1;
         
-        // Find maximum orderId
-        int maxId = 0;
-        for (Document doc : purchaseOrderCollection.find()) {
-            Integer id = doc.getInteger("orderId");
-            if (id != null && id > maxId) {
-                maxId = id;
-            }
-        }
-        return maxId + 1;
+        // Atomic $inc on the counter document: O(1) and no duplicate IDs under concurrent creates
+        return Math.toIntExact(sequenceService.next(ORDER_ID_SEQUENCE));
+    }
+    
+    // Highest orderId already stored (only the top document is read)
+    private int findMaxOrderId() {
+        PurchaseOrder top = purchaseOrderCollection.find()
+            .sort(Sorts.descending("orderId"))
+            .projection(Projections.include("orderId"))
+            .limit(1)
+            .first();
+        return top != null ? top.getOrderId() : 0;
     }
     
     // Method to show menu (called from main menu)
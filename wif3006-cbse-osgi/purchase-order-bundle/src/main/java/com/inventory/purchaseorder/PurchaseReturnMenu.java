@@ -4,6 +4,8 @@
 package com.inventory.purchaseorder;
 
 import com.inventory.api.purchaseorder.model.PurchaseOrder;
+import com.inventory.api.purchaseorder.model.PurchaseOrderQuery;
+import com.inventory.api.purchaseorder.model.PurchaseOrderSummary;
 import com.inventory.api.purchaseorder.service.PurchaseOrderService;
 import com.inventory.api.purchaseorder.model.OrderItem;
 
@@ -86,9 +88,8 @@ public class PurchaseReturnMenu {
     
     private void viewPurchaseReturn() {
         // Get all purchase orders with "returned" status
-        List<PurchaseOrder> returnedOrders = purchaseOrderService.getAllPurchaseOrders().stream()
-            .filter(order -> order.getOrderStatus().equalsIgnoreCase("returned"))
-            .collect(java.util.stream.Collectors.toList());
+        List<PurchaseOrderSummary> returnedOrders = purchaseOrderService.findPurchaseOrderSummaries(
+            new PurchaseOrderQuery().statuses("returned"));
         
         System.out.println("\n--- Purchase Return List ---");
         if (returnedOrders.isEmpty()) {
@@ -102,7 +103,7 @@ public class PurchaseReturnMenu {
             "Return Date", "Receive Date", "Order Number", "Vendor", "Order Status");
         System.out.println("------------------------------------------------------------------------------------------------------------------------");
         
-        for (PurchaseOrder order : returnedOrders) {
+        for (PurchaseOrderSummary order : returnedOrders) {
             String returnDate = order.getReturnedDate() != null 
                 ? order.getReturnedDate().format(DateTimeFormatter.ISO_LOCAL_DATE)
                 : "N/A";
@@ -125,9 +126,8 @@ public class PurchaseReturnMenu {
         System.out.println("(Enter 'cancel' at any time to cancel and return to menu)");
         
         // Get purchase orders with "received" status (only received orders can be returned)
-        List<PurchaseOrder> receivedOrders = purchaseOrderService.getAllPurchaseOrders().stream()
-            .filter(order -> order.getOrderStatus().equalsIgnoreCase("received"))
-            .collect(java.util.stream.Collectors.toList());
+        List<PurchaseOrderSummary> receivedOrders = purchaseOrderService.findPurchaseOrderSummaries(
+            new PurchaseOrderQuery().statuses("received"));
         
         if (receivedOrders.isEmpty()) {
             System.out.println("No purchase orders with 'received' status found.");
@@ -141,7 +141,7 @@ public class PurchaseReturnMenu {
             "Order ID", "Order Number", "Order Date", "Vendor", "Status", "Total Price");
         System.out.println("------------------------------------------------------------------------------------------------------------------------");
         
-        for (PurchaseOrder order : receivedOrders) {
+        for (PurchaseOrderSummary order : receivedOrders) {
             System.out.printf("%-8d | %-15s | %-12s | %-20s | %-15s | $%-11.2f%n",
                 order.getOrderId(),
                 order.getOrderNumber(),
@@ -194,18 +194,14 @@ public class PurchaseReturnMenu {
         }
         
         if (confirm.equals("Y") || confirm.equals("YES")) {
-            // Update order status to "returned" and set returned date
-            PurchaseOrder updatedOrder = new PurchaseOrder();
-            updatedOrder.setOrderId(orderToReturn.getOrderId());
-            updatedOrder.setOrderDate(orderToReturn.getOrderDate());
-            updatedOrder.setOrderNumber(orderToReturn.getOrderNumber());
-            updatedOrder.setVendor(orderToReturn.getVendor());
-            updatedOrder.setOrderItems(orderToReturn.getOrderItems());
-            updatedOrder.setOrderStatus("returned");
-            updatedOrder.setReceivedDate(orderToReturn.getReceivedDate()); // Keep received date
-            updatedOrder.setReturnedDate(LocalDate.now()); // Set returned date to today
-            
-            PurchaseOrder savedOrder = purchaseOrderService.updatePurchaseOrder(orderToReturn.getOrderId(), updatedOrder);
+            // Status "returned", returned date today and the items taken out of stock for the vendor
+            PurchaseOrder savedOrder;
+            try {
+                savedOrder = purchaseOrderService.returnPurchaseOrder(orderToReturn.getOrderId());
+            } catch (IllegalStateException e) {
+                System.out.println("Cannot return this order: " + e.getMessage() + ".");
+                return;
+            }
             
             if (savedOrder != null) {
                 System.out.println("✅ Purchase return record created successfully!");
@@ -228,9 +224,8 @@ public class PurchaseReturnMenu {
         System.out.println("(Enter 'cancel' at any time to cancel and return to menu)");
         
         // Get all returned orders
-        List<PurchaseOrder> returnedOrders = purchaseOrderService.getAllPurchaseOrders().stream()
-            .filter(order -> order.getOrderStatus().equalsIgnoreCase("returned"))
-            .collect(java.util.stream.Collectors.toList());
+        List<PurchaseOrderSummary> returnedOrders = purchaseOrderService.findPurchaseOrderSummaries(
+            new PurchaseOrderQuery().statuses("returned"));
         
         if (returnedOrders.isEmpty()) {
             System.out.println("No purchase return records found.");
@@ -244,7 +239,7 @@ public class PurchaseReturnMenu {
             "Return Date", "Receive Date", "Order Number", "Vendor", "Order Status");
         System.out.println("------------------------------------------------------------------------------------------------------------------------");
         
-        for (PurchaseOrder order : returnedOrders) {
+        for (PurchaseOrderSummary order : returnedOrders) {
             String returnDate = order.getReturnedDate() != null 
                 ? order.getReturnedDate().format(DateTimeFormatter.ISO_LOCAL_DATE)
                 : "N/A";
@@ -318,6 +313,7 @@ public class PurchaseReturnMenu {
                 System.out.println("  " + (i + 1) + ". " + currentItems.get(i));
             }
             
+            System.out.println("(Item names and quantities were posted to stock and cannot change here; prices can.)");
             System.out.print("Edit items? (yes/no) [no]: ");
             String editItemsResponse = scanner.nextLine().trim().toLowerCase();
             
@@ -364,7 +360,13 @@ public class PurchaseReturnMenu {
             updatedOrder.setReceivedDate(orderToEdit.getReceivedDate()); // Keep existing received date
             updatedOrder.setReturnedDate(orderToEdit.getReturnedDate()); // Keep existing returned date
             
-            PurchaseOrder savedOrder = purchaseOrderService.updatePurchaseOrder(orderToEdit.getOrderId(), updatedOrder);
+            PurchaseOrder savedOrder;
+            try {
+                savedOrder = purchaseOrderService.updatePurchaseOrder(orderToEdit.getOrderId(), updatedOrder);
+            } catch (IllegalStateException e) {
+                System.out.println("❌ " + e.getMessage());
+                return;
+            }
             
             if (savedOrder != null) {
                 System.out.println("\n✅ Purchase Order updated successfully!");
@@ -389,9 +391,8 @@ public class PurchaseReturnMenu {
         System.out.println("(Enter 'cancel' at any time to cancel and return to menu)");
         
         // Get all returned orders
-        List<PurchaseOrder> returnedOrders = purchaseOrderService.getAllPurchaseOrders().stream()
-            .filter(order -> order.getOrderStatus().equalsIgnoreCase("returned"))
-            .collect(java.util.stream.Collectors.toList());
+        List<PurchaseOrderSummary> returnedOrders = purchaseOrderService.findPurchaseOrderSummaries(
+            new PurchaseOrderQuery().statuses("returned"));
         
         if (returnedOrders.isEmpty()) {
             System.out.println("No purchase return records found.");
@@ -405,7 +406,7 @@ public class PurchaseReturnMenu {
             "Return Date", "Receive Date", "Order Number", "Vendor", "Order Status");
         System.out.println("------------------------------------------------------------------------------------------------------------------------");
         
-        for (PurchaseOrder order : returnedOrders) {
+        for (PurchaseOrderSummary order : returnedOrders) {
             String returnDate = order.getReturnedDate() != null 
                 ? order.getReturnedDate().format(DateTimeFormatter.ISO_LOCAL_DATE)
                 : "N/A";
@@ -464,18 +465,8 @@ public class PurchaseReturnMenu {
         }
         
         if (confirm.equals("Y") || confirm.equals("YES")) {
-            // Update order status from "returned" back to "received" and clear returned date
-            PurchaseOrder updatedOrder = new PurchaseOrder();
-            updatedOrder.setOrderId(orderToDelete.getOrderId());
-            updatedOrder.setOrderDate(orderToDelete.getOrderDate());
-            updatedOrder.setOrderNumber(orderToDelete.getOrderNumber());
-            updatedOrder.setVendor(orderToDelete.getVendor());
-            updatedOrder.setOrderItems(orderToDelete.getOrderItems());
-            updatedOrder.setOrderStatus("received"); // Change back to received
-            updatedOrder.setReceivedDate(orderToDelete.getReceivedDate()); // Keep received date
-            updatedOrder.setReturnedDate(null); // Clear returned date
-            
-            PurchaseOrder savedOrder = purchaseOrderService.updatePurchaseOrder(orderToDelete.getOrderId(), updatedOrder);
+            // Status back to "received", returned date cleared and the items back on hand
+            PurchaseOrder savedOrder = purchaseOrderService.cancelPurchaseReturn(orderToDelete.getOrderId());
             
             if (savedOrder != null) {
                 System.out.println("✅ Purchase return record deleted successfully!");
@@ -0,0 +1,132 @@
+package com.inventory.purchaseorder;
+
+import com.inventory.api.purchaseorder.model.PurchaseOrder;
+import com.mongodb.MongoTimeoutException;
+import com.mongodb.reactivestreams.client.FindPublisher;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AsyncPurchaseOrderServiceImplTest {
+
+    @Mock
+    private MongoCollection<PurchaseOrder> purchaseOrderCollection;
+    @Mock
+    private FindPublisher<PurchaseOrder> orderFind;
+
+    private AsyncPurchaseOrderServiceImpl service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        service = new AsyncPurchaseOrderServiceImpl();
+        setField(service, "purchaseOrderCollection", purchaseOrderCollection);
+    }
+
+    private void setField(Object target, String fieldName, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    // Emits the items on request, like a driver publisher that already has its batch
+    @SafeVarargs
+    private static <T> Publisher<T> publisherOf(T... items) {
+        return subscriber -> subscriber.onSubscribe(new Subscription() {
+            private int next;
+            private boolean done;
+
+            @Override
+            public void request(long n) {
+                while (n-- > 0 && !done && next < items.length) subscriber.onNext(items[next++]);
+                if (!done && next == items.length) {
+                    done = true;
+                    subscriber.onComplete();
+                }
+            }
+
+            @Override
+            public void cancel() {
+                done = true;
+            }
+        });
+    }
+
+    private static PurchaseOrder order(int orderId) {
+        PurchaseOrder order = new PurchaseOrder();
+        order.setOrderId(orderId);
+        return order;
+    }
+
+    @Test
+    void testGetAllPurchaseOrders_ShouldCompleteWithEveryOrder() {
+        PurchaseOrder first = order(1);
+        PurchaseOrder second = order(2);
+        when(purchaseOrderCollection.find()).thenReturn(orderFind);
+        doAnswer(invocation -> {
+            publisherOf(first, second).subscribe(invocation.getArgument(0));
+            return null;
+        }).when(orderFind).subscribe(any());
+
+        assertEquals(List.of(first, second), service.getAllPurchaseOrders().join());
+    }
+
+    @Test
+    void testGetPurchaseOrderById_Found_ShouldCompleteWithTheOrder() {
+        when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(orderFind);
+        when(orderFind.first()).thenReturn(publisherOf(order(7)));
+
+        assertEquals(7, service.getPurchaseOrderById(7).join().getOrderId());
+    }
+
+    @Test
+    void testGetPurchaseOrderById_NotFound_ShouldCompleteWithNull() {
+        when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(orderFind);
+        when(orderFind.first()).thenReturn(publisherOf());
+
+        assertNull(service.getPurchaseOrderById(9).join());
+    }
+
+    @Test
+    void testGetPurchaseOrderById_ServerError_ShouldCompleteExceptionally() {
+        when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(orderFind);
+        when(orderFind.first()).thenReturn(subscriber -> subscriber.onSubscribe(new Subscription() {
+            @Override
+            public void request(long n) {
+                subscriber.onError(new MongoTimeoutException("no server"));
+            }
+
+            @Override
+            public void cancel() {
+            }
+        }));
+
+        CompletableFuture<PurchaseOrder> result = service.getPurchaseOrderById(1);
+
+        CompletionException e = assertThrows(CompletionException.class, result::join);
+        assertInstanceOf(MongoTimeoutException.class, e.getCause());
+    }
+
+    @Test
+    void testLookups_WithoutConnection_ShouldCompleteEmpty() throws Exception {
+        setField(service, "purchaseOrderCollection", null);
+
+        assertTrue(service.getAllPurchaseOrders().join().isEmpty());
+        assertNull(service.getPurchaseOrderById(1).join());
+    }
+}
@@ -6,28 +6,56 @@
  */
 package com.inventory.purchaseorder;
 
+import com.inventory.api.codec.InventoryCodecs;
+import com.inventory.api.common.Page;
+import com.inventory.api.common.Sort;
+import com.inventory.api.export.ExportFormat;
+import com.inventory.api.export.ExportRequest;
+import com.inventory.api.export.ExportService;
 import com.inventory.api.purchaseorder.model.OrderItem;
 import com.inventory.api.purchaseorder.model.PurchaseOrder;
+import com.inventory.api.purchaseorder.model.PurchaseOrderQuery;
+import com.inventory.api.purchaseorder.model.PurchaseOrderSummary;
+import com.inventory.api.mongo.SchemaMigrationService;
+import com.inventory.api.mongo.SequenceService;
+import com.inventory.api.product.service.ProductService;
+import com.inventory.api.stock.StockLedgerService;
+import com.inventory.api.stock.StockMovementType;
+import com.mongodb.client.AggregateIterable;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Collation;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
 import com.mongodb.client.result.DeleteResult;
 import com.mongodb.client.result.UpdateResult;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
 import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
 import org.bson.conversions.Bson;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -37,16 +65,28 @@ import static org.mockito.Mockito.*;
 public class PurchaseOrderServiceImplTest {
 
     @Mock
-    private MongoCollection<Document> purchaseOrderCollection;
+    private MongoCollection<PurchaseOrder> purchaseOrderCollection;
+
+    @Mock
+    private MongoCollection<PurchaseOrderSummary> purchaseOrderSummaryCollection;
+
+    @Mock
+    private FindIterable<PurchaseOrderSummary> summaryIterable;
+
+    @Mock
+    private MongoCursor<PurchaseOrderSummary> summaryCursor;
 
     @Mock
     private MongoDatabase database;
 
     @Mock
-    private FindIterable<Document> findIterable;
+    private FindIterable<PurchaseOrder> findIterable;
 
     @Mock
-    private MongoCursor<Document> cursor;
+    private MongoCursor<PurchaseOrder> cursor;
+
+    @Mock
+    private AggregateIterable<PurchaseOrder> aggregateIterable;
 
     @Mock
     private DeleteResult deleteResult;
@@ -54,6 +94,24 @@ public class PurchaseOrderServiceImplTest {
     @Mock
     private UpdateResult updateResult;
 
+    @Mock
+    private SequenceService sequenceService;
+
+    @Mock
+    private SchemaMigrationService migrationService;
+
+    @Mock
+    private ExportService exportService;
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private StockLedgerService stockLedgerService;
+
+    @Captor
+    private ArgumentCaptor<List<Bson>> pipeline;
+
     @InjectMocks
     private PurchaseOrderServiceImpl purchaseOrderService;
 
@@ -61,7 +119,11 @@ public class PurchaseOrderServiceImplTest {
     void setUp() throws Exception {
         // Injecting mocks into private fields since @Activate is skipped in unit tests
         setField(purchaseOrderService, "purchaseOrderCollection", purchaseOrderCollection);
+        setField(purchaseOrderService, "purchaseOrderSummaryCollection", purchaseOrderSummaryCollection);
         setField(purchaseOrderService, "database", database);
+        // An edit replaces the order it read; not every test gets that far
+        lenient().when(purchaseOrderCollection.replaceOne(any(Bson.class), any(PurchaseOrder.class))).thenReturn(updateResult);
+        lenient().when(updateResult.getMatchedCount()).thenReturn(1L);
     }
 
     private void setField(Object target, String fieldName, Object value) throws Exception {
@@ -113,30 +175,33 @@ public class PurchaseOrderServiceImplTest {
         return doc;
     }
 
+    // Runs a stored document through the purchase order codec, as the typed collection does
+    private PurchaseOrder decode(Document doc) {
+        BsonDocument bson = doc.toBsonDocument(Document.class, InventoryCodecs.REGISTRY);
+        return InventoryCodecs.REGISTRY.get(PurchaseOrder.class)
+            .decode(new BsonDocumentReader(bson), DecoderContext.builder().build());
+    }
+
     // =================== 1. CRUD OPERATIONS TESTS ===================
 
     @Test
     void testAddPurchaseOrder_ShouldInsertDocument() {
-        // Mock getNextOrderId by setting up find() to return empty cursor
-        when(purchaseOrderCollection.find()).thenReturn(findIterable);
-        when(findIterable.iterator()).thenReturn(cursor);
-        when(cursor.hasNext()).thenReturn(false);
+        // getNextOrderId() allocates from the shared sequence
+        when(sequenceService.next("purchase_order_id")).thenReturn(1L);
         
         PurchaseOrder po = createTestPurchaseOrder(0, "pending");
         
         purchaseOrderService.addPurchaseOrder(po);
         
-        verify(purchaseOrderCollection, times(1)).insertOne(any(Document.class));
+        verify(purchaseOrderCollection, times(1)).insertOne(any(PurchaseOrder.class));
         assertNotEquals(0, po.getOrderId()); // ID should be generated
         assertNotNull(po.getOrderNumber()); // Order number should be generated
     }
 
     @Test
     void testAddPurchaseOrder_ShouldAutoGenerateOrderId() {
-        // Mock getNextOrderId by setting up find() to return empty cursor
-        when(purchaseOrderCollection.find()).thenReturn(findIterable);
-        when(findIterable.iterator()).thenReturn(cursor);
-        when(cursor.hasNext()).thenReturn(false);
+        // getNextOrderId() allocates from the shared sequence
+        when(sequenceService.next("purchase_order_id")).thenReturn(1L);
         
         PurchaseOrder po = createTestPurchaseOrder(0, "pending");
         purchaseOrderService.addPurchaseOrder(po);
@@ -146,9 +211,7 @@ public class PurchaseOrderServiceImplTest {
 
     @Test
     void testAddPurchaseOrder_ShouldAutoGenerateOrderNumber() {
-        when(purchaseOrderCollection.find()).thenReturn(findIterable);
-        when(findIterable.iterator()).thenReturn(cursor);
-        when(cursor.hasNext()).thenReturn(false);
+        when(sequenceService.next("purchase_order_id")).thenReturn(1L);
         
         PurchaseOrder po = createTestPurchaseOrder(0, "pending");
         po.setOrderNumber(null);
@@ -164,7 +227,7 @@ public class PurchaseOrderServiceImplTest {
         Document doc = createTestDocument(orderId, "pending", null, null);
         
         when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(doc);
+        when(findIterable.first()).thenReturn(decode(doc));
         
         PurchaseOrder result = purchaseOrderService.getPurchaseOrderById(orderId);
         
@@ -191,7 +254,7 @@ public class PurchaseOrderServiceImplTest {
         when(purchaseOrderCollection.find()).thenReturn(findIterable);
         when(findIterable.iterator()).thenReturn(cursor);
         when(cursor.hasNext()).thenReturn(true, true, false);
-        when(cursor.next()).thenReturn(doc1, doc2);
+        when(cursor.next()).thenReturn(decode(doc1), decode(doc2));
         
         List<PurchaseOrder> result = purchaseOrderService.getAllPurchaseOrders();
         
@@ -200,6 +263,109 @@ public class PurchaseOrderServiceImplTest {
         assertEquals(2, result.get(1).getOrderId());
     }
 
+    @Test
+    void testListPurchaseOrders_ShouldSeekOnNumericOrderId() {
+        ArgumentCaptor<Bson> filter = ArgumentCaptor.forClass(Bson.class);
+        when(purchaseOrderCollection.find(filter.capture())).thenReturn(findIterable);
+        when(findIterable.sort(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.limit(anyInt())).thenReturn(findIterable);
+        when(findIterable.into(any())).thenAnswer(invocation -> {
+            List<PurchaseOrder> target = invocation.getArgument(0);
+            target.add(decode(createTestDocument(11, "pending", null, null)));
+            target.add(decode(createTestDocument(12, "pending", null, null)));
+            return target;
+        });
+        
+        Page<PurchaseOrder> page = purchaseOrderService.listPurchaseOrders("10", 1, Sort.ASC);
+        
+        assertEquals(10, filter.getValue().toBsonDocument().getDocument("orderId").getInt32("$gt").getValue());
+        assertEquals(1, page.getItems().size());
+        assertEquals("11", page.getNextCursor());
+    }
+
+    @Test
+    void testListPurchaseOrders_WithInvalidCursor_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> purchaseOrderService.listPurchaseOrders("abc", 10, Sort.ASC));
+    }
+
+    @Test
+    void testListPurchaseOrderSummaries_ShouldProjectAwayTheItems() {
+        PurchaseOrderSummary first = new PurchaseOrderSummary();
+        first.setOrderId(11);
+        ArgumentCaptor<Bson> projection = ArgumentCaptor.forClass(Bson.class);
+        when(purchaseOrderSummaryCollection.find(any(Bson.class))).thenReturn(summaryIterable);
+        when(summaryIterable.projection(projection.capture())).thenReturn(summaryIterable);
+        when(summaryIterable.sort(any(Bson.class))).thenReturn(summaryIterable);
+        when(summaryIterable.limit(anyInt())).thenReturn(summaryIterable);
+        when(summaryIterable.into(any())).thenAnswer(invocation -> {
+            List<PurchaseOrderSummary> target = invocation.getArgument(0);
+            target.add(first);
+            target.add(new PurchaseOrderSummary());
+            return target;
+        });
+        
+        Page<PurchaseOrderSummary> page = purchaseOrderService.listPurchaseOrderSummaries(null, 1, Sort.ASC);
+        
+        BsonDocument fields = projection.getValue().toBsonDocument();
+        assertFalse(fields.containsKey("orderItems"));
+        assertEquals(1, fields.getInt32("vendor").getValue());
+        // Stored total, computed only for orders not backfilled yet
+        assertTrue(fields.getDocument("totalPrice").containsKey("$ifNull"));
+        assertEquals("11", page.getNextCursor());
+        verifyNoInteractions(purchaseOrderCollection);
+    }
+
+    @Test
+    void testFindPurchaseOrderSummaries_SortByTotalPrice_ShouldSortOnStoredTotalWithoutAggregation() {
+        ArgumentCaptor<Bson> sort = ArgumentCaptor.forClass(Bson.class);
+        when(purchaseOrderSummaryCollection.find(any(Bson.class))).thenReturn(summaryIterable);
+        when(summaryIterable.projection(any(Bson.class))).thenReturn(summaryIterable);
+        when(summaryIterable.sort(sort.capture())).thenReturn(summaryIterable);
+        when(summaryIterable.limit(anyInt())).thenReturn(summaryIterable);
+        when(summaryIterable.iterator()).thenReturn(summaryCursor);
+        
+        purchaseOrderService.findPurchaseOrderSummaries(new PurchaseOrderQuery()
+            .sortBy(PurchaseOrderQuery.SortField.TOTAL_PRICE, Sort.DESC)
+            .limit(20));
+        
+        assertEquals(-1, sort.getValue().toBsonDocument().getInt32("totalPrice").getValue());
+        verify(summaryIterable).limit(20);
+        verify(purchaseOrderSummaryCollection, never()).aggregate(anyList());
+    }
+
+    @Test
+    void testCodec_ShouldStoreTotalsThatTheSummaryReads() {
+        BsonDocument stored = new BsonDocument();
+        InventoryCodecs.REGISTRY.get(PurchaseOrder.class).encode(new BsonDocumentWriter(stored),
+            createTestPurchaseOrder(7, "shipping"), EncoderContext.builder().build());
+        
+        // 10 x 5.50 + 5 x 10.00
+        assertEquals(0, stored.getDecimal128("totalPrice").getValue().bigDecimalValue().compareTo(new BigDecimal("105.00")));
+        assertEquals(2, stored.getInt32("itemCount").getValue());
+        
+        stored.remove("orderItems");
+        PurchaseOrderSummary summary = InventoryCodecs.REGISTRY.get(PurchaseOrderSummary.class)
+            .decode(new BsonDocumentReader(stored), DecoderContext.builder().build());
+        assertEquals(7, summary.getOrderId());
+        assertEquals("Test Vendor", summary.getVendor());
+        assertEquals(105.0, summary.getTotalPrice(), 0.001);
+        assertEquals(2, summary.getItemCount());
+    }
+
+    @Test
+    void testCodec_ShouldRoundTripTheReceivedQuantities() {
+        PurchaseOrder order = createTestPurchaseOrder(7, "received");
+        order.setReceivedQuantities(Map.of("p1", 10, "p2", 5));
+        BsonDocument stored = new BsonDocument();
+        InventoryCodecs.REGISTRY.get(PurchaseOrder.class).encode(new BsonDocumentWriter(stored), order, EncoderContext.builder().build());
+
+        assertEquals(10, stored.getDocument("receivedQuantities").getInt32("p1").getValue());
+        PurchaseOrder decoded = InventoryCodecs.REGISTRY.get(PurchaseOrder.class)
+            .decode(new BsonDocumentReader(stored), DecoderContext.builder().build());
+        assertEquals(Map.of("p1", 10, "p2", 5), decoded.getReceivedQuantities());
+        assertNull(decode(createTestDocument(7, "shipping", null, null)).getReceivedQuantities());
+    }
+
     @Test
     void testUpdatePurchaseOrder_ShouldTriggerReplaceOne() {
         int orderId = 1;
@@ -208,11 +374,11 @@ public class PurchaseOrderServiceImplTest {
         
         Document existingDoc = createTestDocument(orderId, "pending", null, null);
         when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(existingDoc);
+        when(findIterable.first()).thenReturn(decode(existingDoc));
         
         purchaseOrderService.updatePurchaseOrder(orderId, updated);
         
-        verify(purchaseOrderCollection, times(1)).replaceOne(any(Bson.class), any(Document.class));
+        verify(purchaseOrderCollection, times(1)).replaceOne(any(Bson.class), any(PurchaseOrder.class));
     }
 
     @Test
@@ -224,7 +390,7 @@ public class PurchaseOrderServiceImplTest {
         PurchaseOrder result = purchaseOrderService.updatePurchaseOrder(999, updated);
         
         assertNull(result);
-        verify(purchaseOrderCollection, never()).replaceOne(any(Bson.class), any(Document.class));
+        verify(purchaseOrderCollection, never()).replaceOne(any(Bson.class), any(PurchaseOrder.class));
     }
 
     @Test
@@ -267,29 +433,21 @@ public class PurchaseOrderServiceImplTest {
     }
 
     @Test
-    void testGetNextOrderId_ShouldReturnMaxIdPlusOne() {
-        Document doc1 = createTestDocument(5, "pending", null, null);
-        Document doc2 = createTestDocument(10, "shipping", LocalDate.now(), null);
-        
-        when(purchaseOrderCollection.find()).thenReturn(findIterable);
-        when(findIterable.iterator()).thenReturn(cursor);
-        when(cursor.hasNext()).thenReturn(true, true, false);
-        when(cursor.next()).thenReturn(doc1, doc2);
+    void testGetNextOrderId_ShouldAllocateFromSequence() {
+        when(sequenceService.next("purchase_order_id")).thenReturn(11L);
         
         int nextId = purchaseOrderService.getNextOrderId();
         
         assertEquals(11, nextId);
+        verify(purchaseOrderCollection, never()).find();
     }
 
     @Test
-    void testGetNextOrderId_WhenNoOrders_ShouldReturnOne() {
-        when(purchaseOrderCollection.find()).thenReturn(findIterable);
-        when(findIterable.iterator()).thenReturn(cursor);
-        when(cursor.hasNext()).thenReturn(false);
-        
-        int nextId = purchaseOrderService.getNextOrderId();
+    void testGetNextOrderId_ShouldReturnDistinctIdsOnConsecutiveCalls() {
+        when(sequenceService.next("purchase_order_id")).thenReturn(1L, 2L);
         
-        assertEquals(1, nextId);
+        assertEquals(1, purchaseOrderService.getNextOrderId());
+        assertEquals(2, purchaseOrderService.getNextOrderId());
     }
 
     @Test
@@ -298,9 +456,10 @@ public class PurchaseOrderServiceImplTest {
         Document doc2 = createTestDocument(2, "pending", null, null);
         
         when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.sort(any(Bson.class))).thenReturn(findIterable);
         when(findIterable.iterator()).thenReturn(cursor);
         when(cursor.hasNext()).thenReturn(true, true, false);
-        when(cursor.next()).thenReturn(doc1, doc2);
+        when(cursor.next()).thenReturn(decode(doc1), decode(doc2));
         
         List<PurchaseOrder> result = purchaseOrderService.getPurchaseOrdersByStatus("pending");
         
@@ -316,7 +475,7 @@ public class PurchaseOrderServiceImplTest {
         
         Document existingDoc = createTestDocument(orderId, "pending", null, null);
         when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(existingDoc);
+        when(findIterable.first()).thenReturn(decode(existingDoc));
         
         PurchaseOrder updated = createTestPurchaseOrder(orderId, "shipping");
         PurchaseOrder result = purchaseOrderService.updatePurchaseOrder(orderId, updated);
@@ -334,7 +493,7 @@ public class PurchaseOrderServiceImplTest {
         
         Document existingDoc = createTestDocument(orderId, "shipping", existingShippingDate, null);
         when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(existingDoc);
+        when(findIterable.first()).thenReturn(decode(existingDoc));
         
         PurchaseOrder updated = createTestPurchaseOrder(orderId, "pending");
         PurchaseOrder result = purchaseOrderService.updatePurchaseOrder(orderId, updated);
@@ -350,7 +509,7 @@ public class PurchaseOrderServiceImplTest {
         
         Document existingDoc = createTestDocument(orderId, "pending", null, null);
         when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(existingDoc);
+        when(findIterable.first()).thenReturn(decode(existingDoc));
         
         PurchaseOrder updated = createTestPurchaseOrder(orderId, "cancelled");
         PurchaseOrder result = purchaseOrderService.updatePurchaseOrder(orderId, updated);
@@ -368,7 +527,7 @@ public class PurchaseOrderServiceImplTest {
         
         Document existingDoc = createTestDocument(orderId, "shipping", existingShippingDate, null);
         when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(existingDoc);
+        when(findIterable.first()).thenReturn(decode(existingDoc));
         
         PurchaseOrder updated = createTestPurchaseOrder(orderId, "cancelled");
         PurchaseOrder result = purchaseOrderService.updatePurchaseOrder(orderId, updated);
@@ -386,7 +545,7 @@ public class PurchaseOrderServiceImplTest {
         
         Document existingDoc = createTestDocument(orderId, "cancelled", null, existingCancelledDate);
         when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(existingDoc);
+        when(findIterable.first()).thenReturn(decode(existingDoc));
         
         PurchaseOrder updated = createTestPurchaseOrder(orderId, "cancelled");
         PurchaseOrder result = purchaseOrderService.updatePurchaseOrder(orderId, updated);
@@ -403,7 +562,7 @@ public class PurchaseOrderServiceImplTest {
         
         Document existingDoc = createTestDocument(orderId, "shipping", existingShippingDate, null);
         when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(existingDoc);
+        when(findIterable.first()).thenReturn(decode(existingDoc));
         
         PurchaseOrder updated = createTestPurchaseOrder(orderId, "shipping");
         PurchaseOrder result = purchaseOrderService.updatePurchaseOrder(orderId, updated);
@@ -420,7 +579,7 @@ public class PurchaseOrderServiceImplTest {
         
         Document existingDoc = createTestDocument(orderId, "shipping", LocalDate.now().minusDays(1), null);
         when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(existingDoc);
+        when(findIterable.first()).thenReturn(decode(existingDoc));
         
         PurchaseOrder updated = createTestPurchaseOrder(orderId, "received");
         PurchaseOrder result = purchaseOrderService.updatePurchaseOrder(orderId, updated);
@@ -439,7 +598,7 @@ public class PurchaseOrderServiceImplTest {
         Document existingDoc = createTestDocument(orderId, "received", LocalDate.now().minusDays(6), null);
         existingDoc.append("receivedDate", existingReceivedDate.toString());
         when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(existingDoc);
+        when(findIterable.first()).thenReturn(decode(existingDoc));
         
         PurchaseOrder updated = createTestPurchaseOrder(orderId, "received");
         PurchaseOrder result = purchaseOrderService.updatePurchaseOrder(orderId, updated);
@@ -456,7 +615,7 @@ public class PurchaseOrderServiceImplTest {
         Document existingDoc = createTestDocument(orderId, "received", LocalDate.now().minusDays(5), null);
         existingDoc.append("receivedDate", existingReceivedDate.toString());
         when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(existingDoc);
+        when(findIterable.first()).thenReturn(decode(existingDoc));
         
         PurchaseOrder updated = createTestPurchaseOrder(orderId, "returned");
         PurchaseOrder result = purchaseOrderService.updatePurchaseOrder(orderId, updated);
@@ -477,7 +636,7 @@ public class PurchaseOrderServiceImplTest {
         existingDoc.append("receivedDate", existingReceivedDate.toString());
         existingDoc.append("returnedDate", existingReturnedDate.toString());
         when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(existingDoc);
+        when(findIterable.first()).thenReturn(decode(existingDoc));
         
         PurchaseOrder updated = createTestPurchaseOrder(orderId, "returned");
         PurchaseOrder result = purchaseOrderService.updatePurchaseOrder(orderId, updated);
@@ -487,6 +646,50 @@ public class PurchaseOrderServiceImplTest {
         assertEquals(existingReceivedDate, result.getReceivedDate()); // Should keep received date
     }
 
+    @Test
+    void testUpdatePurchaseOrder_ReceivedWithOtherQuantities_ShouldRefuseWithoutReplacing() {
+        int orderId = 1;
+        Document existingDoc = createTestDocument(orderId, "received", LocalDate.now().minusDays(6), null);
+        when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.first()).thenReturn(decode(existingDoc));
+        
+        PurchaseOrder updated = createTestPurchaseOrder(orderId, "received");
+        updated.setOrderItems(List.of(new OrderItem("Item1", 12, 5.50), new OrderItem("Item2", 5, 10.00)));
+        
+        assertThrows(IllegalStateException.class, () -> purchaseOrderService.updatePurchaseOrder(orderId, updated));
+        verify(purchaseOrderCollection, never()).replaceOne(any(Bson.class), any(PurchaseOrder.class));
+    }
+
+    @Test
+    void testUpdatePurchaseOrder_ReturnedWithNewPricesOnly_ShouldReplace() {
+        int orderId = 1;
+        Document existingDoc = createTestDocument(orderId, "returned", LocalDate.now().minusDays(6), null);
+        when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.first()).thenReturn(decode(existingDoc));
+        
+        PurchaseOrder updated = createTestPurchaseOrder(orderId, "returned");
+        updated.setOrderItems(List.of(new OrderItem("Item2", 5, 11.00), new OrderItem("Item1", 10, 5.75)));
+        
+        assertNotNull(purchaseOrderService.updatePurchaseOrder(orderId, updated));
+    }
+
+    @Test
+    void testUpdatePurchaseOrder_StatusChangedMeanwhile_ShouldThrow() {
+        int orderId = 1;
+        Document existingDoc = createTestDocument(orderId, "shipping", LocalDate.now().minusDays(1), null);
+        when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.first()).thenReturn(decode(existingDoc));
+        when(updateResult.getMatchedCount()).thenReturn(0L);
+        
+        PurchaseOrder updated = createTestPurchaseOrder(orderId, "shipping");
+        updated.setOrderItems(List.of(new OrderItem("Item1", 99, 5.50)));
+        
+        assertThrows(IllegalStateException.class, () -> purchaseOrderService.updatePurchaseOrder(orderId, updated));
+        ArgumentCaptor<Bson> filter = ArgumentCaptor.forClass(Bson.class);
+        verify(purchaseOrderCollection).replaceOne(filter.capture(), any(PurchaseOrder.class));
+        assertTrue(filter.getValue().toBsonDocument().toJson().contains("\"shipping\""));
+    }
+
     // =================== 4. DOCUMENT MAPPING TESTS ===================
 
     @Test
@@ -496,7 +699,7 @@ public class PurchaseOrderServiceImplTest {
         doc.append("returnedDate", LocalDate.now().minusDays(2).toString());
         
         when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(doc);
+        when(findIterable.first()).thenReturn(decode(doc));
         
         PurchaseOrder result = purchaseOrderService.getPurchaseOrderById(1);
         
@@ -514,7 +717,7 @@ public class PurchaseOrderServiceImplTest {
         Document doc = createTestDocument(1, "pending", null, null);
         
         when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(doc);
+        when(findIterable.first()).thenReturn(decode(doc));
         
         PurchaseOrder result = purchaseOrderService.getPurchaseOrderById(1);
         
@@ -532,7 +735,7 @@ public class PurchaseOrderServiceImplTest {
         doc.append("cancelledDate", null);
         
         when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(doc);
+        when(findIterable.first()).thenReturn(decode(doc));
         
         PurchaseOrder result = purchaseOrderService.getPurchaseOrderById(1);
         
@@ -551,7 +754,7 @@ public class PurchaseOrderServiceImplTest {
             .append("orderItems", new ArrayList<>());
         
         when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(doc);
+        when(findIterable.first()).thenReturn(decode(doc));
         
         PurchaseOrder result = purchaseOrderService.getPurchaseOrderById(1);
         
@@ -567,7 +770,7 @@ public class PurchaseOrderServiceImplTest {
         int orderId = 1;
         Document existingDoc = createTestDocument(orderId, "pending", null, null);
         when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(existingDoc);
+        when(findIterable.first()).thenReturn(decode(existingDoc));
         
         PurchaseOrder updated = createTestPurchaseOrder(orderId, "SHIPPING");
         PurchaseOrder result = purchaseOrderService.updatePurchaseOrder(orderId, updated);
@@ -582,7 +785,7 @@ public class PurchaseOrderServiceImplTest {
         int orderId = 1;
         Document existingDoc = createTestDocument(orderId, "pending", null, null);
         when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(existingDoc);
+        when(findIterable.first()).thenReturn(decode(existingDoc));
         
         PurchaseOrder updated = createTestPurchaseOrder(orderId, "Cancelled");
         PurchaseOrder result = purchaseOrderService.updatePurchaseOrder(orderId, updated);
@@ -604,7 +807,7 @@ public class PurchaseOrderServiceImplTest {
         Document existingDoc = createTestDocument(orderId, "pending", existingShippingDate, existingCancelledDate);
         existingDoc.append("receivedDate", existingReceivedDate.toString());
         when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(existingDoc);
+        when(findIterable.first()).thenReturn(decode(existingDoc));
         
         PurchaseOrder updated = createTestPurchaseOrder(orderId, "invalid_status");
         PurchaseOrder result = purchaseOrderService.updatePurchaseOrder(orderId, updated);
@@ -626,7 +829,7 @@ public class PurchaseOrderServiceImplTest {
         purchaseOrderService.addPurchaseOrder(po);
         
         assertEquals(999, po.getOrderId()); // Should keep the set ID
-        verify(purchaseOrderCollection, times(1)).insertOne(any(Document.class));
+        verify(purchaseOrderCollection, times(1)).insertOne(any(PurchaseOrder.class));
     }
 
     @Test
@@ -634,23 +837,21 @@ public class PurchaseOrderServiceImplTest {
         int orderId = 1;
         Document existingDoc = createTestDocument(orderId, "pending", null, null);
         when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(existingDoc);
+        when(findIterable.first()).thenReturn(decode(existingDoc));
         
         PurchaseOrder updated = createTestPurchaseOrder(999, "shipping"); // Different ID
         PurchaseOrder result = purchaseOrderService.updatePurchaseOrder(orderId, updated);
         
         assertNotNull(result);
         assertEquals(orderId, result.getOrderId()); // Should be forced to match
-        verify(purchaseOrderCollection, times(1)).replaceOne(any(Bson.class), any(Document.class));
+        verify(purchaseOrderCollection, times(1)).replaceOne(any(Bson.class), any(PurchaseOrder.class));
     }
 
     // =================== 8. ORDER NUMBER EDGE CASES ===================
 
     @Test
     void testAddPurchaseOrder_WithEmptyStringOrderNumber_ShouldAutoGenerate() {
-        when(purchaseOrderCollection.find()).thenReturn(findIterable);
-        when(findIterable.iterator()).thenReturn(cursor);
-        when(cursor.hasNext()).thenReturn(false);
+        when(sequenceService.next("purchase_order_id")).thenReturn(1L);
         
         PurchaseOrder po = createTestPurchaseOrder(0, "pending");
         po.setOrderNumber(""); // Empty string
@@ -663,9 +864,7 @@ public class PurchaseOrderServiceImplTest {
 
     @Test
     void testAddPurchaseOrder_WithNullOrderNumber_ShouldAutoGenerate() {
-        when(purchaseOrderCollection.find()).thenReturn(findIterable);
-        when(findIterable.iterator()).thenReturn(cursor);
-        when(cursor.hasNext()).thenReturn(false);
+        when(sequenceService.next("purchase_order_id")).thenReturn(1L);
         
         PurchaseOrder po = createTestPurchaseOrder(0, "pending");
         po.setOrderNumber(null);
@@ -682,7 +881,7 @@ public class PurchaseOrderServiceImplTest {
         int orderId = 1;
         Document existingDoc = createTestDocument(orderId, "pending", null, null);
         when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(existingDoc);
+        when(findIterable.first()).thenReturn(decode(existingDoc));
         
         PurchaseOrder updated = createTestPurchaseOrder(orderId, "pending"); // Same status
         PurchaseOrder result = purchaseOrderService.updatePurchaseOrder(orderId, updated);
@@ -699,7 +898,7 @@ public class PurchaseOrderServiceImplTest {
         
         Document existingDoc = createTestDocument(orderId, "cancelled", null, existingCancelledDate);
         when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(existingDoc);
+        when(findIterable.first()).thenReturn(decode(existingDoc));
         
         PurchaseOrder updated = createTestPurchaseOrder(orderId, "cancelled");
         PurchaseOrder result = purchaseOrderService.updatePurchaseOrder(orderId, updated);
@@ -719,7 +918,7 @@ public class PurchaseOrderServiceImplTest {
         Document existingDoc = createTestDocument(orderId, "received", LocalDate.now().minusDays(6), null);
         existingDoc.append("receivedDate", existingReceivedDate.toString());
         when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(existingDoc);
+        when(findIterable.first()).thenReturn(decode(existingDoc));
         
         PurchaseOrder updated = createTestPurchaseOrder(orderId, "cancelled");
         PurchaseOrder result = purchaseOrderService.updatePurchaseOrder(orderId, updated);
@@ -741,7 +940,7 @@ public class PurchaseOrderServiceImplTest {
         existingDoc.append("receivedDate", existingReceivedDate.toString());
         existingDoc.append("returnedDate", existingReturnedDate.toString());
         when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(existingDoc);
+        when(findIterable.first()).thenReturn(decode(existingDoc));
         
         PurchaseOrder updated = createTestPurchaseOrder(orderId, "cancelled");
         PurchaseOrder result = purchaseOrderService.updatePurchaseOrder(orderId, updated);
@@ -766,7 +965,7 @@ public class PurchaseOrderServiceImplTest {
             .append("orderItems", null); // Explicitly null
         
         when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(doc);
+        when(findIterable.first()).thenReturn(decode(doc));
         
         PurchaseOrder result = purchaseOrderService.getPurchaseOrderById(1);
         
@@ -787,7 +986,7 @@ public class PurchaseOrderServiceImplTest {
         
         purchaseOrderService.addPurchaseOrder(po);
         
-        verify(purchaseOrderCollection, times(1)).insertOne(any(Document.class));
+        verify(purchaseOrderCollection, times(1)).insertOne(any(PurchaseOrder.class));
         assertNotNull(po.getOrderItems()); // Should be initialized to empty list by model
     }
 
@@ -800,7 +999,7 @@ public class PurchaseOrderServiceImplTest {
         // Missing orderDate, orderNumber, vendor, orderItems, dates
         
         when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(doc);
+        when(findIterable.first()).thenReturn(decode(doc));
         
         PurchaseOrder result = purchaseOrderService.getPurchaseOrderById(1);
         
@@ -823,7 +1022,7 @@ public class PurchaseOrderServiceImplTest {
         doc.remove("returnedDate");
         
         when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(doc);
+        when(findIterable.first()).thenReturn(decode(doc));
         
         PurchaseOrder result = purchaseOrderService.getPurchaseOrderById(1);
         
@@ -845,7 +1044,7 @@ public class PurchaseOrderServiceImplTest {
         doc.append("returnedDate", ""); // Empty string
         
         when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(doc);
+        when(findIterable.first()).thenReturn(decode(doc));
         
         PurchaseOrder result = purchaseOrderService.getPurchaseOrderById(1);
         
@@ -934,4 +1133,265 @@ public class PurchaseOrderServiceImplTest {
         assertNotNull(result);
         assertTrue(result.isEmpty());
     }
+
+    // =================== 15. SERVER-SIDE QUERY TESTS ===================
+
+    @Test
+    void testFindPurchaseOrders_ShouldTranslateCriteriaIntoOneQuery() {
+        ArgumentCaptor<Bson> filter = ArgumentCaptor.forClass(Bson.class);
+        ArgumentCaptor<Bson> sort = ArgumentCaptor.forClass(Bson.class);
+        when(purchaseOrderCollection.find(filter.capture())).thenReturn(findIterable);
+        when(findIterable.sort(sort.capture())).thenReturn(findIterable);
+        when(findIterable.limit(5)).thenReturn(findIterable);
+        when(findIterable.iterator()).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(true, false);
+        when(cursor.next()).thenReturn(decode(createTestDocument(3, "shipping", null, null)));
+        
+        PurchaseOrderQuery query = new PurchaseOrderQuery()
+            .statuses("Pending", "shipping")
+            .vendor("Acme")
+            .orderDateBetween(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 3, 31))
+            .sortBy(PurchaseOrderQuery.SortField.ORDER_DATE, Sort.DESC)
+            .limit(5);
+        List<PurchaseOrder> result = purchaseOrderService.findPurchaseOrders(query);
+        
+        // One $and clause per criterion, in declaration order
+        List<BsonDocument> clauses = new ArrayList<>();
+        filter.getValue().toBsonDocument().getArray("$and").forEach(clause -> clauses.add(clause.asDocument()));
+        assertEquals(3, clauses.size());
+        assertEquals("pending", clauses.get(0).getDocument("orderStatus").getArray("$in").get(0).asString().getValue());
+        assertEquals(2, clauses.get(0).getDocument("orderStatus").getArray("$in").size());
+        assertEquals("Acme", clauses.get(1).getString("vendor").getValue());
+        
+        // Migration not applied yet: the date range matches BSON dates and ISO strings
+        BsonDocument dateRange = clauses.get(2).getArray("$or").get(0).asDocument().getDocument("orderDate");
+        BsonDocument stringRange = clauses.get(2).getArray("$or").get(1).asDocument().getDocument("orderDate");
+        assertEquals(toEpochMillis(LocalDate.of(2024, 1, 1)), dateRange.getDateTime("$gte").getValue());
+        assertEquals(toEpochMillis(LocalDate.of(2024, 3, 31)), dateRange.getDateTime("$lte").getValue());
+        assertEquals("2024-01-01", stringRange.getString("$gte").getValue());
+        assertEquals("2024-03-31", stringRange.getString("$lte").getValue());
+        
+        BsonDocument sortBson = sort.getValue().toBsonDocument();
+        assertEquals(-1, sortBson.getInt32("orderDate").getValue());
+        assertEquals(-1, sortBson.getInt32("orderId").getValue());
+        verify(findIterable, never()).collation(any());
+        assertEquals(1, result.size());
+    }
+
+    @Test
+    void testFindPurchaseOrders_AfterMigration_ShouldOnlyMatchBsonDates() {
+        ArgumentCaptor<Bson> filter = ArgumentCaptor.forClass(Bson.class);
+        when(migrationService.isApplied(PurchaseOrderServiceImpl.NATIVE_TYPES.getVersion())).thenReturn(true);
+        when(purchaseOrderCollection.find(filter.capture())).thenReturn(findIterable);
+        when(findIterable.sort(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.iterator()).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(false);
+        
+        purchaseOrderService.findPurchaseOrders(new PurchaseOrderQuery()
+            .receivedDateBetween(LocalDate.of(2024, 2, 1), null));
+        
+        BsonDocument range = filter.getValue().toBsonDocument().getArray("$and").get(0).asDocument().getDocument("receivedDate");
+        assertEquals(toEpochMillis(LocalDate.of(2024, 2, 1)), range.getDateTime("$gte").getValue());
+        assertFalse(range.containsKey("$lte"));
+    }
+    
+    private static long toEpochMillis(LocalDate date) {
+        return date.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+    
+    @Test
+    void testFindPurchaseOrders_SortByVendor_ShouldUseCaseInsensitiveCollation() {
+        when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.sort(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.collation(any(Collation.class))).thenReturn(findIterable);
+        when(findIterable.iterator()).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(false);
+        
+        purchaseOrderService.findPurchaseOrders(new PurchaseOrderQuery()
+            .sortBy(PurchaseOrderQuery.SortField.VENDOR, Sort.ASC));
+        
+        ArgumentCaptor<Collation> collation = ArgumentCaptor.forClass(Collation.class);
+        verify(findIterable).collation(collation.capture());
+        assertEquals("en", collation.getValue().getLocale());
+        verify(findIterable, never()).limit(anyInt());
+    }
+
+    @Test
+    void testVendorSort_ShouldHaveAnIndexWithTheSameCollation() {
+        when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.sort(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.collation(any(Collation.class))).thenReturn(findIterable);
+        when(findIterable.iterator()).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(false);
+        
+        purchaseOrderService.findPurchaseOrders(new PurchaseOrderQuery()
+            .sortBy(PurchaseOrderQuery.SortField.VENDOR, Sort.ASC));
+        
+        ArgumentCaptor<Collation> collation = ArgumentCaptor.forClass(Collation.class);
+        verify(findIterable).collation(collation.capture());
+        assertTrue(PurchaseOrderServiceImpl.INDEXES.stream().anyMatch(index -> index.getName().equals("vendor_ci")
+            && collation.getValue().equals(index.getCollation())));
+    }
+
+    @Test
+    void testFindPurchaseOrders_SortByTotalPrice_ShouldComputeTotalInAggregation() {
+        when(purchaseOrderCollection.aggregate(pipeline.capture())).thenReturn(aggregateIterable);
+        when(aggregateIterable.iterator()).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(true, false);
+        when(cursor.next()).thenReturn(decode(createTestDocument(1, "received", null, null)));
+        
+        List<PurchaseOrder> result = purchaseOrderService.findPurchaseOrders(new PurchaseOrderQuery()
+            .statuses("received")
+            .sortBy(PurchaseOrderQuery.SortField.TOTAL_PRICE, Sort.DESC)
+            .limit(10));
+        
+        List<Bson> stages = pipeline.getValue();
+        assertEquals(4, stages.size());
+        assertTrue(stages.get(0).toBsonDocument().containsKey("$match"));
+        assertTrue(stages.get(1).toBsonDocument().getDocument("$addFields").containsKey("totalPrice"));
+        assertEquals(-1, stages.get(2).toBsonDocument().getDocument("$sort").getInt32("totalPrice").getValue());
+        assertEquals(10, stages.get(3).toBsonDocument().getInt32("$limit").getValue());
+        verify(purchaseOrderCollection, never()).find(any(Bson.class));
+        assertEquals(1, result.size());
+    }
+
+    @Test
+    void testPurchaseOrderQuery_WithNegativeLimit_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> new PurchaseOrderQuery().limit(-1));
+    }
+
+    @Test
+    void testExportPurchaseOrders_Csv_ShouldFilterLikeTheReportAndSortByOrderId() {
+        ArgumentCaptor<ExportRequest> request = ArgumentCaptor.forClass(ExportRequest.class);
+        
+        purchaseOrderService.exportPurchaseOrders(new PurchaseOrderQuery().vendor("Acme"),
+            ExportFormat.CSV, true, Path.of("exports", "orders.csv.gz"));
+        
+        verify(exportService).export(request.capture());
+        assertEquals("purchase_orders", request.getValue().getCollection());
+        assertEquals("Acme", request.getValue().getFilter().toBsonDocument()
+            .getArray("$and").get(0).asDocument().getString("vendor").getValue());
+        assertEquals(1, request.getValue().getSort().toBsonDocument().getInt32("orderId").getValue());
+        assertEquals(Arrays.asList(PurchaseOrderServiceImpl.EXPORT_COLUMNS), request.getValue().getColumns());
+        assertTrue(request.getValue().isGzip());
+        verifyNoInteractions(purchaseOrderCollection);
+    }
+
+    // ================= STOCK MOVEMENT TESTS =================
+
+    @Test
+    void testReceivePurchaseOrder_ShouldPutItemsOnHandInWarehouse() {
+        PurchaseOrder shipping = createTestPurchaseOrder(1, "shipping");
+        PurchaseOrder received = createTestPurchaseOrder(1, "received");
+        received.setWarehouse("East");
+        when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.first()).thenReturn(shipping);
+        when(purchaseOrderCollection.findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class)))
+            .thenReturn(received);
+        when(productService.getProductIdByName("Item1")).thenReturn("p1");
+        when(productService.getProductIdByName("Item2")).thenReturn(null);
+
+        PurchaseOrder result = purchaseOrderService.receivePurchaseOrder(1, "East");
+
+        assertSame(received, result);
+        ArgumentCaptor<Bson> filter = ArgumentCaptor.forClass(Bson.class);
+        ArgumentCaptor<Bson> update = ArgumentCaptor.forClass(Bson.class);
+        verify(purchaseOrderCollection).findOneAndUpdate(filter.capture(), update.capture(), any(FindOneAndUpdateOptions.class));
+        assertTrue(filter.getValue().toBsonDocument().toJson().contains("\"shipping\""));
+        BsonDocument set = update.getValue().toBsonDocument().getDocument("$set");
+        assertEquals("received", set.getString("orderStatus").getValue());
+        assertEquals("East", set.getString("warehouse").getValue());
+        // Item2 has no product, so only Item1 moves; what moved is kept on the order for the reversal
+        assertEquals(new BsonDocument("p1", new BsonInt32(10)), set.getDocument("receivedQuantities"));
+        verify(stockLedgerService).post(StockMovementType.RECEIPT, "PO-001", "East", Map.of("p1", 10));
+    }
+
+    @Test
+    void testReceivePurchaseOrder_NotShipping_ShouldReturnNullWithoutMovingStock() {
+        when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.first()).thenReturn(null);
+
+        assertNull(purchaseOrderService.receivePurchaseOrder(1, null));
+        verify(purchaseOrderCollection, never()).findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class));
+        verifyNoInteractions(stockLedgerService);
+    }
+
+    @Test
+    void testReversePurchaseOrderReceipt_StockAlreadyUsed_ShouldThrowAndKeepReceived() {
+        PurchaseOrder received = createTestPurchaseOrder(1, "received");
+        received.setWarehouse("East");
+        when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.first()).thenReturn(received);
+        when(productService.getProductIdByName("Item1")).thenReturn("p1");
+        when(productService.getProductIdByName("Item2")).thenReturn("p2");
+        when(stockLedgerService.post(StockMovementType.REVERSAL, "PO-001", "East", Map.of("p1", 10, "p2", 5)))
+            .thenReturn(false);
+
+        assertThrows(IllegalStateException.class, () -> purchaseOrderService.reversePurchaseOrderReceipt(1));
+        verify(purchaseOrderCollection, never()).findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class));
+    }
+
+    @Test
+    void testReversePurchaseOrderReceipt_ProductRenamedSinceReceipt_ShouldTakeBackWhatWasReceived() {
+        PurchaseOrder received = createTestPurchaseOrder(1, "received");
+        received.setWarehouse("East");
+        received.setReceivedQuantities(Map.of("p1", 10, "p2", 5));
+        PurchaseOrder shipping = createTestPurchaseOrder(1, "shipping");
+        when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.first()).thenReturn(received);
+        when(stockLedgerService.post(StockMovementType.REVERSAL, "PO-001", "East", Map.of("p1", 10, "p2", 5)))
+            .thenReturn(true);
+        when(purchaseOrderCollection.findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class)))
+            .thenReturn(shipping);
+
+        assertSame(shipping, purchaseOrderService.reversePurchaseOrderReceipt(1));
+        // The names are not looked up again, and the record goes with the receipt
+        verifyNoInteractions(productService);
+        ArgumentCaptor<Bson> update = ArgumentCaptor.forClass(Bson.class);
+        verify(purchaseOrderCollection).findOneAndUpdate(any(Bson.class), update.capture(), any(FindOneAndUpdateOptions.class));
+        assertTrue(update.getValue().toBsonDocument().getDocument("$unset").containsKey("receivedQuantities"));
+    }
+
+    @Test
+    void testCancelPurchaseReturn_ShouldPutTheRecordedQuantitiesBack() {
+        PurchaseOrder returned = createTestPurchaseOrder(1, "returned");
+        returned.setReceivedQuantities(Map.of("p1", 10));
+        PurchaseOrder received = createTestPurchaseOrder(1, "received");
+        when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.first()).thenReturn(returned);
+        when(purchaseOrderCollection.findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class)))
+            .thenReturn(received);
+
+        purchaseOrderService.cancelPurchaseReturn(1);
+
+        verify(stockLedgerService).post(StockMovementType.RECEIPT, "PO-001", StockLedgerService.DEFAULT_WAREHOUSE, Map.of("p1", 10));
+        verifyNoInteractions(productService);
+    }
+
+    @Test
+    void testUpdatePurchaseOrder_ShouldKeepTheReceivedQuantities() {
+        PurchaseOrder existing = createTestPurchaseOrder(1, "received");
+        existing.setReceivedQuantities(Map.of("p1", 10));
+        when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.first()).thenReturn(existing);
+
+        PurchaseOrder result = purchaseOrderService.updatePurchaseOrder(1, createTestPurchaseOrder(1, "received"));
+
+        assertEquals(Map.of("p1", 10), result.getReceivedQuantities());
+    }
+
+    @Test
+    void testReturnPurchaseOrder_StatusChangedMeanwhile_ShouldPutStockBack() {
+        PurchaseOrder received = createTestPurchaseOrder(1, "received");
+        when(purchaseOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.first()).thenReturn(received);
+        when(productService.getProductIdByName(anyString())).thenReturn("p1");
+        when(stockLedgerService.post(any(), any(), any(), any())).thenReturn(true);
+        when(purchaseOrderCollection.findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class)))
+            .thenReturn(null);
+
+        assertNull(purchaseOrderService.returnPurchaseOrder(1));
+        verify(stockLedgerService).post(StockMovementType.REVERSAL, "PO-001", StockLedgerService.DEFAULT_WAREHOUSE, Map.of("p1", 15));
+        verify(stockLedgerService).post(StockMovementType.RECEIPT, "PO-001", StockLedgerService.DEFAULT_WAREHOUSE, Map.of("p1", 15));
+    }
 }
@@ -0,0 +1,130 @@
+package com.inventory.salesorder;
+
+import com.inventory.api.customer.model.Customer;
+import com.inventory.api.customer.service.AsyncCustomerService;
+import com.inventory.api.mongo.Publishers;
+import com.inventory.api.mongo.ReactiveMongoConnectionService;
+import com.inventory.api.product.service.AsyncProductService;
+import com.inventory.api.salesorder.model.SalesOrder;
+import com.inventory.api.salesorder.model.SalesOrderItem;
+import com.inventory.api.salesorder.service.AsyncSalesOrderService;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.mongodb.reactivestreams.client.MongoDatabase;
+
+import org.bson.types.ObjectId;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The SalesOrderService lookups on the reactive driver; same queries, same indexes
+ * (created by SalesOrderServiceImpl). Customer and product names come from the async
+ * services of those modules, so a caller can have them in flight at the same time.
+ */
+@Component(service = AsyncSalesOrderService.class)
+public class AsyncSalesOrderServiceImpl implements AsyncSalesOrderService {
+
+    @Reference
+    private ReactiveMongoConnectionService connectionService;
+
+    // Service References (for cross-module queries)
+    @Reference
+    private AsyncCustomerService customerService;
+
+    @Reference
+    private AsyncProductService productService;
+
+    private MongoCollection<SalesOrder> salesOrderCollection;
+    private MongoCollection<SalesOrderItem> salesOrderItemCollection;
+
+    @Activate
+    public void activate() {
+        MongoDatabase database = connectionService.getDatabase();
+        if (database == null) {
+            System.err.println("Async Sales Order Service: Shared reactive MongoDB connection is not available.");
+            return;
+        }
+        salesOrderCollection = database.getCollection("sales_orders", SalesOrder.class);
+        salesOrderItemCollection = database.getCollection("sales_order_items", SalesOrderItem.class);
+    }
+
+    // =================== SALES ORDERS ===================
+
+    @Override
+    public CompletableFuture<List<SalesOrder>> getAllSalesOrders() {
+        if (salesOrderCollection == null) return CompletableFuture.completedFuture(new ArrayList<>());
+        return Publishers.toList(salesOrderCollection.find());
+    }
+
+    @Override
+    public CompletableFuture<Optional<SalesOrder>> getSalesOrderById(String id) {
+        if (salesOrderCollection == null || id == null || !ObjectId.isValid(id)) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        return Publishers.first(salesOrderCollection.find(Filters.eq("_id", new ObjectId(id))).first())
+                .thenApply(Optional::ofNullable);
+    }
+
+    @Override
+    public CompletableFuture<Optional<SalesOrder>> getSalesOrderByNumber(String orderNumber) {
+        if (salesOrderCollection == null) return CompletableFuture.completedFuture(Optional.empty());
+        return Publishers.first(salesOrderCollection.find(Filters.eq("orderNumber", orderNumber)).first())
+                .thenApply(Optional::ofNullable);
+    }
+
+    // =================== SALES ORDER ITEMS ===================
+
+    @Override
+    public CompletableFuture<List<SalesOrderItem>> getItemsByOrderId(String orderId) {
+        if (salesOrderItemCollection == null) return CompletableFuture.completedFuture(new ArrayList<>());
+        return Publishers.toList(salesOrderItemCollection.find(Filters.eq("salesOrderId", orderId)));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, List<SalesOrderItem>>> getItemsByOrderIds(Collection<String> orderIds) {
+        if (salesOrderItemCollection == null || orderIds == null || orderIds.isEmpty()) {
+            return CompletableFuture.completedFuture(new HashMap<>());
+        }
+
+        return Publishers.toList(salesOrderItemCollection.find(Filters.in("salesOrderId", orderIds)))
+                .thenApply(items -> {
+                    Map<String, List<SalesOrderItem>> itemsByOrder = new HashMap<>();
+                    for (SalesOrderItem item : items) {
+                        itemsByOrder.computeIfAbsent(item.getSalesOrderId(), k -> new ArrayList<>()).add(item);
+                    }
+                    return itemsByOrder;
+                });
+    }
+
+    // =================== HELPER METHODS ===================
+
+    @Override
+    public CompletableFuture<String> getCustomerNameById(String customerId) {
+        if (customerId == null) return CompletableFuture.completedFuture("Unknown");
+        return customerService.getCustomerById(customerId)
+                .thenApply(customer -> customer.map(Customer::getName).orElse("Unknown"));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, String>> getCustomerNamesByIds(Collection<String> customerIds) {
+        if (customerIds == null || customerIds.isEmpty()) return CompletableFuture.completedFuture(Collections.emptyMap());
+        return customerService.getCustomerNamesByIds(customerIds);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, String>> getProductNamesByIds(Collection<String> productIds) {
+        if (productIds == null || productIds.isEmpty()) return CompletableFuture.completedFuture(Collections.emptyMap());
+        return productService.getProductNamesByIds(productIds);
+    }
+}
@@ -1,24 +1,44 @@
 package com.inventory.salesorder;
 
 import com.inventory.api.ModuleMenu;
+import com.inventory.api.analytics.RollupDimension;
+import com.inventory.api.analytics.RollupTotal;
+import com.inventory.api.analytics.SalesRollupService;
+import com.inventory.api.common.Page;
+import com.inventory.api.common.Sort;
+import com.inventory.api.export.ExportFormat;
+import com.inventory.api.export.ExportResult;
+import com.inventory.api.salesorder.service.AsyncSalesOrderService;
 import com.inventory.api.salesorder.service.SalesOrderService;
 import com.inventory.api.salesorder.model.SalesOrder;
+import com.inventory.api.salesorder.model.SalesOrderDetail;
 import com.inventory.api.salesorder.model.SalesOrderItem;
+import com.inventory.api.salesorder.model.SalesOrderSummary;
 import com.inventory.api.salesorder.model.DeliveryOrder;
+import com.inventory.api.salesorder.model.DeliveryOrderDetail;
 import com.inventory.api.salesorder.model.SalesReturn;
 import com.inventory.api.salesorder.model.Tax;
+import com.inventory.api.stock.StockLedgerService;
 
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
 
 import java.math.BigDecimal;
+import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Component(service = ModuleMenu.class)
 public class SalesOrderMenu implements ModuleMenu {
@@ -26,9 +46,21 @@ public class SalesOrderMenu implements ModuleMenu {
     @Reference
     private SalesOrderService salesOrderService;
 
+    // Report screens start their independent lookups together through this one
+    @Reference
+    private AsyncSalesOrderService asyncSalesOrderService;
+
+    @Reference
+    private SalesRollupService salesRollupService;
+
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
+    private static final int PAGE_SIZE = 20;
+
+    // Rows of a top-N analytics screen
+    private static final int TOP_N = 10;
+
     @Override
     public String getModuleName() {
         return "Sales Order Management Module";
@@ -55,6 +87,45 @@ public class SalesOrderMenu implements ModuleMenu {
         return date.format(DATE_FORMATTER);
     }
 
+    // Distinct, non-null reference ids of a list, for the bulk lookups of the service
+    private static <T> Set<String> idsOf(List<T> rows, Function<T, String> idGetter) {
+        return rows.stream().map(idGetter).filter(Objects::nonNull).collect(Collectors.toSet());
+    }
+
+    // Asks before fetching the next page of a list; false on the last page or when the user stops
+    private boolean wantsNextPage(Scanner scanner, Page<?> page) {
+        if (!page.hasNext()) return false;
+        System.out.print("-- Enter for next page, 'q' to stop: ");
+        return !scanner.nextLine().trim().equalsIgnoreCase("q");
+    }
+
+    // Statuses an order only reaches (or leaves) through a stock movement
+    private static final Set<String> STOCK_ORDER_STATUSES = Set.of("CONFIRMED", "PROCESSING", "COMPLETED", "CANCELLED");
+
+    // Confirming reserves stock and cancelling releases it, so those go through the service after the
+    // other edits are saved; CONFIRMED <-> PROCESSING keeps the reservation. Returns the status to save.
+    private String orderStatusToSave(String current, String requested) {
+        if (requested.equals(current)) return current;
+        boolean fromStock = STOCK_ORDER_STATUSES.contains(current);
+        boolean toStock = STOCK_ORDER_STATUSES.contains(requested);
+        boolean bothReserving = Set.of("CONFIRMED", "PROCESSING").containsAll(Set.of(current, requested));
+        if ((!fromStock && !toStock) || bothReserving) return requested;
+        if (!requested.equals("CANCELLED") && !(requested.equals("CONFIRMED") && current.equals("PENDING"))) {
+            System.out.println("Status " + current + " -> " + requested + " is set by confirming, delivering or cancelling. Keeping " + current + ".");
+        }
+        return current;
+    }
+
+    // Runs the confirmation or cancellation orderStatusToSave() held back
+    private void moveOrderStock(Scanner scanner, SalesOrder order, String requested) {
+        if (requested.equals("CONFIRMED") && "PENDING".equals(order.getOrderStatus())) {
+            String warehouse = promptForUpdate(scanner, "Reserve stock from Warehouse", StockLedgerService.DEFAULT_WAREHOUSE);
+            System.out.println(salesOrderService.confirmSalesOrder(order.getId(), warehouse));
+        } else if (requested.equals("CANCELLED") && !requested.equals(order.getOrderStatus())) {
+            System.out.println(salesOrderService.cancelSalesOrder(order.getId()));
+        }
+    }
+
     // Helper to allow skipping updates on Edit
     private String promptForUpdate(Scanner scanner, String label, String currentValue) {
         System.out.print(label + " [" + currentValue + "]: ");
@@ -74,7 +145,9 @@ public class SalesOrderMenu implements ModuleMenu {
             System.out.println("2. View Sales Report");
             System.out.println("3. Manage Delivery Orders");
             System.out.println("4. Manage Sales Returns");
-            System.out.println("5. Back to Main Menu");
+            System.out.println("5. Export Sales Data");
+            System.out.println("6. Sales Analytics");
+            System.out.println("7. Back to Main Menu");
             System.out.print("Enter choice: ");
 
             String choice = scanner.nextLine();
@@ -84,8 +157,10 @@ public class SalesOrderMenu implements ModuleMenu {
                 case "2": handleSalesReportSubMenu(scanner); break;
                 case "3": handleDeliveryOrderSubMenu(scanner); break;
                 case "4": handleSalesReturnSubMenu(scanner); break;
-                case "5": back = true; break;
-                default: System.out.println("Invalid option. Please try again (1-5)");
+                case "5": handleExportSalesData(scanner); break;
+                case "6": handleSalesAnalyticsSubMenu(scanner); break;
+                case "7": back = true; break;
+                default: System.out.println("Invalid option. Please try again (1-7)");
             }
         }
     }
@@ -108,36 +183,42 @@ public class SalesOrderMenu implements ModuleMenu {
 
             switch (choice) {
                 case "1":
-                    List<SalesOrder> orders = salesOrderService.getAllSalesOrders();
-                    if (orders.isEmpty()) {
+                    Page<SalesOrderSummary> page = salesOrderService.listSalesOrderSummaries(null, PAGE_SIZE, Sort.ASC);
+                    if (page.isEmpty()) {
                         System.out.println("No sales orders found.");
                     } else {
                         System.out.println("\n--- Sales Order List ---");
-                        System.out.printf("%-4s %-23s %-12s %-20s %-10s %-15s %-15s %-15s %-15s %-20s %-20s%n",
-                                "No.", "Order Number", "Order Date", "Customer", "Tax (%)", "Before Tax", "Tax Amount", "After Tax", "Status", "Created At", "Edited At");
-                        System.out.println("-----------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------");
+                        System.out.printf("%-4s %-23s %-12s %-20s %-10s %-15s %-15s %-15s %-15s%n",
+                                "No.", "Order Number", "Order Date", "Customer", "Tax (%)", "Before Tax", "Tax Amount", "After Tax", "Status");
+                        System.out.println("---------------------------------------------------------------------------------------------------------------------------------------------");
 
                         int i = 1;
-                        for (SalesOrder order : orders) {
-                            String orderDate = formatLocalDate(order.getOrderDate());
-                            String customer = salesOrderService.getCustomerNameById(order.getCustomerId());
+                        while (true) {
+                            List<SalesOrderSummary> orders = page.getItems();
+                            // Resolve customers and tax rates for the whole page in one query each
+                            Map<String, String> customerNames = salesOrderService.getCustomerNamesByIds(idsOf(orders, SalesOrderSummary::getCustomerId));
+                            Map<String, BigDecimal> taxRates = salesOrderService.getTaxRatesByIds(idsOf(orders, SalesOrderSummary::getTaxId));
+
+                            for (SalesOrderSummary order : orders) {
+                                String orderDate = formatLocalDate(order.getOrderDate());
+                                String customer = customerNames.getOrDefault(order.getCustomerId(), "Unknown");
                             
-                            String taxRate = "0";
-                            if (order.getTaxId() != null && !order.getTaxId().isEmpty()) {
-                                BigDecimal rate = salesOrderService.getTaxRateById(order.getTaxId());
-                                taxRate = (rate != null) ? rate.toString() : "0";
+                                String taxRate = "0";
+                                if (order.getTaxId() != null && !order.getTaxId().isEmpty()) {
+                                    BigDecimal rate = taxRates.getOrDefault(order.getTaxId(), BigDecimal.ZERO);
+                                    taxRate = rate.toString();
+                                }
+
+                                BigDecimal beforeTax = order.getBeforeTaxAmount() != null ? order.getBeforeTaxAmount() : BigDecimal.ZERO;
+                                BigDecimal taxAmt = order.getTaxAmount() != null ? order.getTaxAmount() : BigDecimal.ZERO;
+                                BigDecimal afterTax = order.getAfterTaxAmount() != null ? order.getAfterTaxAmount() : BigDecimal.ZERO;
+
+                                System.out.printf("%-4d %-23s %-12s %-20s %-10s %-15s %-15s %-15s %-15s%n",
+                                        i++, order.getOrderNumber(), orderDate, customer, taxRate, 
+                                        beforeTax, taxAmt, afterTax, order.getOrderStatus());
                             }
-
-                            String created = formatDate(order.getCreatedAt());
-                            String edited = formatDate(order.getEditedAt());
-                            
-                            BigDecimal beforeTax = order.getBeforeTaxAmount() != null ? order.getBeforeTaxAmount() : BigDecimal.ZERO;
-                            BigDecimal taxAmt = order.getTaxAmount() != null ? order.getTaxAmount() : BigDecimal.ZERO;
-                            BigDecimal afterTax = order.getAfterTaxAmount() != null ? order.getAfterTaxAmount() : BigDecimal.ZERO;
-
-                            System.out.printf("%-4d %-23s %-12s %-20s %-10s %-15s %-15s %-15s %-15s %-20s %-20s%n",
-                                    i++, order.getOrderNumber(), orderDate, customer, taxRate, 
-                                    beforeTax, taxAmt, afterTax, order.getOrderStatus(), created, edited);
+                            if (!wantsNextPage(scanner, page)) break;
+                            page = salesOrderService.listSalesOrderSummaries(page.getNextCursor(), PAGE_SIZE, Sort.ASC);
                         }
                     }
                     break;
@@ -220,6 +301,11 @@ public class SalesOrderMenu implements ModuleMenu {
         order.setCustomerId(customerId);
         order.setTaxId(taxId);
         order.setOrderStatus(status.isEmpty() ? "PENDING" : status.toUpperCase());
+        if (Set.of("CONFIRMED", "PROCESSING", "COMPLETED").contains(order.getOrderStatus())) {
+            // Nothing to reserve yet: the items come after the order
+            System.out.println("New orders start as PENDING; set CONFIRMED once the items are added to reserve their stock.");
+            order.setOrderStatus("PENDING");
+        }
         order.setDescription(description);
         order.setBeforeTaxAmount(BigDecimal.ZERO);
         order.setTaxAmount(BigDecimal.ZERO);
@@ -280,7 +366,8 @@ public class SalesOrderMenu implements ModuleMenu {
         }
 
         // Update Status
-        order.setOrderStatus(promptForUpdate(scanner, "Order Status", order.getOrderStatus()).toUpperCase());
+        String requestedStatus = promptForUpdate(scanner, "Order Status", order.getOrderStatus()).toUpperCase();
+        order.setOrderStatus(orderStatusToSave(order.getOrderStatus(), requestedStatus));
 
         // Update Description
         order.setDescription(promptForUpdate(scanner, "Description", 
@@ -288,6 +375,7 @@ public class SalesOrderMenu implements ModuleMenu {
 
         salesOrderService.updateSalesOrder(order);
         System.out.println("Sales Order updated successfully.");
+        moveOrderStock(scanner, order, requestedStatus);
     }
 
     // --- SALES ORDER ITEMS SUB-MENU ---
@@ -332,10 +420,12 @@ public class SalesOrderMenu implements ModuleMenu {
                                 "No.", "Product", "Unit Price", "Quantity", "Total", "Created At", "Edited At");
                         System.out.println("-------------------------------------------------------------------------------------------------------------------------------");
 
+                        Map<String, String> productNames = salesOrderService.getProductNamesByIds(idsOf(items, SalesOrderItem::getProductId));
+
                         int i = 1;
                         BigDecimal grandTotal = BigDecimal.ZERO;
                         for (SalesOrderItem item : items) {
-                            String productName = salesOrderService.getProductNameById(item.getProductId());
+                            String productName = productNames.getOrDefault(item.getProductId(), "Unknown");
                             BigDecimal itemTotal = item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity()));
                             grandTotal = grandTotal.add(itemTotal);
                             String created = formatDate(item.getCreatedAt());
@@ -408,8 +498,12 @@ public class SalesOrderMenu implements ModuleMenu {
         item.setUnitPrice(unitPrice);
         item.setQuantity(quantity);
 
-        salesOrderService.addSalesOrderItem(item);
-        System.out.println("Item added successfully! Order totals will be recalculated.");
+        try {
+            salesOrderService.addSalesOrderItem(item);
+            System.out.println("Item added successfully! Order totals will be recalculated.");
+        } catch (IllegalStateException e) {
+            System.out.println("❌ " + e.getMessage());
+        }
     }
 
     private void performEditSalesOrderItem(Scanner scanner, String orderId) {
@@ -422,11 +516,9 @@ public class SalesOrderMenu implements ModuleMenu {
         System.out.print("Enter Product Name to Edit: ");
         String productName = scanner.nextLine();
         
+        Map<String, String> productNames = salesOrderService.getProductNamesByIds(idsOf(items, SalesOrderItem::getProductId));
         Optional<SalesOrderItem> target = items.stream()
-                .filter(item -> {
-                    String pName = salesOrderService.getProductNameById(item.getProductId());
-                    return pName.equalsIgnoreCase(productName);
-                })
+                .filter(item -> productNames.getOrDefault(item.getProductId(), "Unknown").equalsIgnoreCase(productName))
                 .findFirst();
 
         if (target.isPresent()) {
@@ -453,8 +545,12 @@ public class SalesOrderMenu implements ModuleMenu {
                 }
             }
 
-            salesOrderService.updateSalesOrderItem(item);
-            System.out.println("Item updated successfully!");
+            try {
+                salesOrderService.updateSalesOrderItem(item);
+                System.out.println("Item updated successfully!");
+            } catch (IllegalStateException e) {
+                System.out.println("❌ " + e.getMessage());
+            }
         } else {
             System.out.println("Item not found.");
         }
@@ -470,16 +566,18 @@ public class SalesOrderMenu implements ModuleMenu {
         System.out.print("Enter Product Name to Delete: ");
         String productName = scanner.nextLine();
         
+        Map<String, String> productNames = salesOrderService.getProductNamesByIds(idsOf(items, SalesOrderItem::getProductId));
         Optional<SalesOrderItem> target = items.stream()
-                .filter(item -> {
-                    String pName = salesOrderService.getProductNameById(item.getProductId());
-                    return pName.equalsIgnoreCase(productName);
-                })
+                .filter(item -> productNames.getOrDefault(item.getProductId(), "Unknown").equalsIgnoreCase(productName))
                 .findFirst();
 
         if (target.isPresent()) {
-            salesOrderService.deleteSalesOrderItem(target.get().getId());
-            System.out.println("Item deleted successfully!");
+            try {
+                salesOrderService.deleteSalesOrderItem(target.get().getId());
+                System.out.println("Item deleted successfully!");
+            } catch (IllegalStateException e) {
+                System.out.println("❌ " + e.getMessage());
+            }
         } else {
             System.out.println("Item not found.");
         }
@@ -503,10 +601,20 @@ public class SalesOrderMenu implements ModuleMenu {
                 "Order Number", "Customer", "Items", "Total Amount");
         System.out.println("------------------------------------------------------------------------");
 
+        // One query per entity type for the whole report instead of several per order,
+        // the items and the customer names in flight at the same time
+        CompletableFuture<Map<String, List<SalesOrderItem>>> itemsFuture =
+                asyncSalesOrderService.getItemsByOrderIds(idsOf(orders, SalesOrder::getId));
+        CompletableFuture<Map<String, String>> customerNamesFuture =
+                asyncSalesOrderService.getCustomerNamesByIds(idsOf(orders, SalesOrder::getCustomerId));
+        Map<String, List<SalesOrderItem>> itemsByOrder = itemsFuture.join();
+        Map<String, String> customerNames = customerNamesFuture.join();
+        Map<String, BigDecimal> taxRates = salesOrderService.getTaxRatesByIds(idsOf(orders, SalesOrder::getTaxId));
+
         BigDecimal overallTotal = BigDecimal.ZERO;
         for (SalesOrder order : orders) {
-            List<SalesOrderItem> items = salesOrderService.getItemsByOrderId(order.getId());
-            String customer = salesOrderService.getCustomerNameById(order.getCustomerId());
+            List<SalesOrderItem> items = itemsByOrder.getOrDefault(order.getId(), List.of());
+            String customer = customerNames.getOrDefault(order.getCustomerId(), "Unknown");
             
             BigDecimal orderTotal = BigDecimal.ZERO;
             for (SalesOrderItem item : items) {
@@ -515,7 +623,7 @@ public class SalesOrderMenu implements ModuleMenu {
 
             // Apply tax if exists
             if (order.getTaxId() != null) {
-                BigDecimal taxRate = salesOrderService.getTaxRateById(order.getTaxId());
+                BigDecimal taxRate = taxRates.getOrDefault(order.getTaxId(), BigDecimal.ZERO);
                 BigDecimal taxAmount = orderTotal.multiply(taxRate).divide(BigDecimal.valueOf(100));
                 orderTotal = orderTotal.add(taxAmount);
             }
@@ -532,32 +640,152 @@ public class SalesOrderMenu implements ModuleMenu {
         System.out.print("\nView detailed items for an order? (Enter Order Number or 'no'): ");
         String input = scanner.nextLine();
         if (!input.equalsIgnoreCase("no")) {
-            Optional<SalesOrder> orderOpt = salesOrderService.getSalesOrderByNumber(input);
-            if (orderOpt.isPresent()) {
-                viewDetailedSalesReport(orderOpt.get());
+            // The report already holds every order, so only the detail itself goes to the database
+            Optional<SalesOrder> orderOpt = orders.stream()
+                    .filter(order -> input.equals(order.getOrderNumber()))
+                    .findFirst();
+            Optional<SalesOrderDetail> detail = orderOpt.flatMap(order -> salesOrderService.getSalesOrderDetail(order.getId()));
+            if (detail.isPresent()) {
+                viewDetailedSalesReport(detail.get());
             } else {
                 System.out.println("Order not found.");
             }
         }
     }
 
-    private void viewDetailedSalesReport(SalesOrder order) {
+    // --- 5. EXPORT ---
+    // Every collection streamed from the database to its own file, all four at once
+    private void handleExportSalesData(Scanner scanner) {
+        System.out.println("\n--- Export Sales Data ---");
+        System.out.print("Format - J: NDJSON, C: CSV (J/C, Enter for J): ");
+        String formatInput = scanner.nextLine().trim().toUpperCase();
+        if (!formatInput.isEmpty() && !formatInput.equals("J") && !formatInput.equals("C")) {
+            System.out.println("Invalid format. Export cancelled.");
+            return;
+        }
+        ExportFormat format = formatInput.equals("C") ? ExportFormat.CSV : ExportFormat.NDJSON;
+
+        System.out.print("Compress with gzip? (Y/N, Enter for N): ");
+        boolean gzip = scanner.nextLine().trim().equalsIgnoreCase("Y");
+
+        String defaultDirectory = "exports/sales-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        System.out.print("Directory (Enter for " + defaultDirectory + "): ");
+        String directory = scanner.nextLine().trim();
+        if (directory.isEmpty()) directory = defaultDirectory;
+
+        try {
+            List<ExportResult> results = salesOrderService.exportSalesData(Paths.get(directory), format, gzip).join();
+            for (ExportResult result : results) {
+                System.out.printf("Exported %-18s %8d record(s) -> %s (%d bytes, %d ms)%n",
+                        result.getCollection(), result.getDocuments(), result.getFile(), result.getBytes(), result.getElapsedMillis());
+            }
+        } catch (RuntimeException e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            System.out.println("Export failed: " + cause.getMessage());
+        }
+    }
+
+    // --- 6. SALES ANALYTICS SUB-MENU ---
+    // Everything here is read from the daily rollups, not from the orders
+    private void handleSalesAnalyticsSubMenu(Scanner scanner) {
+        boolean stay = true;
+        while (stay) {
+            System.out.println("\n===========================");
+            System.out.println("   SALES ANALYTICS    ");
+            System.out.println("===========================");
+            System.out.println("1. Total Revenue");
+            System.out.println("2. Revenue by Day");
+            System.out.println("3. Top Customers");
+            System.out.println("4. Top Products");
+            System.out.println("5. Revenue by Tax");
+            System.out.println("6. Rebuild Rollups");
+            System.out.println("7. Back");
+            System.out.print("Enter choice: ");
+            String choice = scanner.nextLine();
+
+            switch (choice) {
+                case "1": case "2": case "3": case "4": case "5":
+                    LocalDate from = promptForRangeDate(scanner, "From");
+                    LocalDate to = promptForRangeDate(scanner, "To");
+                    if (choice.equals("1")) {
+                        RollupTotal total = salesRollupService.getTotal(from, to);
+                        System.out.printf("Revenue (before tax): %.2f | Quantity: %d | Order lines: %d%n",
+                                total.getRevenue(), total.getQuantity(), total.getLines());
+                    } else if (choice.equals("2")) {
+                        printRollupTotals("Day", salesRollupService.getTotalsBy(RollupDimension.DAY, from, to), Map.of());
+                    } else if (choice.equals("3")) {
+                        List<RollupTotal> top = salesRollupService.getTopBy(RollupDimension.CUSTOMER, from, to, TOP_N);
+                        printRollupTotals("Customer", top, salesOrderService.getCustomerNamesByIds(idsOf(top, RollupTotal::getKey)));
+                    } else if (choice.equals("4")) {
+                        List<RollupTotal> top = salesRollupService.getTopBy(RollupDimension.PRODUCT, from, to, TOP_N);
+                        printRollupTotals("Product", top, salesOrderService.getProductNamesByIds(idsOf(top, RollupTotal::getKey)));
+                    } else {
+                        Map<String, String> taxNames = salesOrderService.getAllTaxes().stream()
+                                .filter(tax -> tax.getId() != null && tax.getTaxName() != null)
+                                .collect(Collectors.toMap(Tax::getId, Tax::getTaxName, (a, b) -> a));
+                        printRollupTotals("Tax", salesRollupService.getTotalsBy(RollupDimension.TAX, from, to), taxNames);
+                    }
+                    break;
+                case "6":
+                    System.out.println("Rebuilding rollups from every sales order...");
+                    long started = System.currentTimeMillis();
+                    long buckets = salesRollupService.rebuild();
+                    System.out.println("Rebuilt " + buckets + " bucket(s) in " + (System.currentTimeMillis() - started) + " ms.");
+                    break;
+                case "7":
+                    stay = false;
+                    break;
+                default:
+                    System.out.println("Invalid option. Please try again (1-7)");
+            }
+        }
+    }
+
+    // Enter leaves that end of the range open
+    private LocalDate promptForRangeDate(Scanner scanner, String label) {
+        while (true) {
+            System.out.print(label + " (yyyy-MM-dd, Enter for no limit): ");
+            String input = scanner.nextLine().trim();
+            if (input.isEmpty()) return null;
+            try {
+                return LocalDate.parse(input, DATE_FORMATTER);
+            } catch (DateTimeParseException e) {
+                System.out.println("Invalid date format. Please use yyyy-MM-dd.");
+            }
+        }
+    }
+
+    private void printRollupTotals(String keyLabel, List<RollupTotal> totals, Map<String, String> names) {
+        if (totals.isEmpty()) {
+            System.out.println("No sales in this range.");
+            return;
+        }
+        System.out.printf("%-30s %15s %10s %8s%n", keyLabel, "Revenue", "Quantity", "Lines");
+        System.out.println("-----------------------------------------------------------------");
+        for (RollupTotal total : totals) {
+            String key = total.getKey() == null ? "-" : names.getOrDefault(total.getKey(), total.getKey());
+            System.out.printf("%-30s %15.2f %10d %8d%n", key, total.getRevenue(), total.getQuantity(), total.getLines());
+        }
+    }
+
+    // The order, its lines, product names, customer and tax all came back from one pipeline
+    private void viewDetailedSalesReport(SalesOrderDetail detail) {
+        SalesOrder order = detail.getOrder();
         System.out.println("\n--- Detailed Report for Order: " + order.getOrderNumber() + " ---");
-        
-        System.out.println("Customer: " + salesOrderService.getCustomerNameById(order.getCustomerId()));
+
+        System.out.println("Customer: " + (detail.getCustomerName() != null ? detail.getCustomerName() : "Unknown"));
         System.out.println("Order Date: " + formatLocalDate(order.getOrderDate()));
         System.out.println("Status: " + order.getOrderStatus());
         
-        List<SalesOrderItem> items = salesOrderService.getItemsByOrderId(order.getId());
-        
         System.out.println("\n--- Items ---");
         System.out.printf("%-30s %-12s %-10s %-15s%n",
                 "Product", "Unit Price", "Quantity", "Total");
         System.out.println("-----------------------------------------------------------------------");
 
         BigDecimal subtotal = BigDecimal.ZERO;
-        for (SalesOrderItem item : items) {
-            String productName = salesOrderService.getProductNameById(item.getProductId());
+        for (SalesOrderDetail.Line line : detail.getLines()) {
+            SalesOrderItem item = line.getItem();
+            String productName = line.getProductName() != null ? line.getProductName() : "Unknown";
             BigDecimal itemTotal = item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity()));
             subtotal = subtotal.add(itemTotal);
 
@@ -569,7 +797,7 @@ public class SalesOrderMenu implements ModuleMenu {
         System.out.printf("%-54s %-15s%n", "Subtotal:", subtotal);
 
         if (order.getTaxId() != null) {
-            BigDecimal taxRate = salesOrderService.getTaxRateById(order.getTaxId());
+            BigDecimal taxRate = detail.getTaxRate();
             BigDecimal taxAmount = subtotal.multiply(taxRate).divide(BigDecimal.valueOf(100));
             System.out.printf("%-54s %-15s (%s%%)%n", "Tax:", taxAmount, taxRate);
             System.out.printf("%-54s %-15s%n", "Total:", subtotal.add(taxAmount));
@@ -589,14 +817,15 @@ public class SalesOrderMenu implements ModuleMenu {
             System.out.println("2. Add New Delivery Order");
             System.out.println("3. Edit Delivery Order");
             System.out.println("4. Delete Delivery Order");
-            System.out.println("5. Back");
+            System.out.println("5. View Delivery Order Details");
+            System.out.println("6. Back");
             System.out.print("Enter choice: ");
             String choice = scanner.nextLine();
 
             switch (choice) {
                 case "1":
-                    List<DeliveryOrder> orders = salesOrderService.getAllDeliveryOrders();
-                    if (orders.isEmpty()) {
+                    Page<DeliveryOrder> page = salesOrderService.listDeliveryOrders(null, PAGE_SIZE, Sort.ASC);
+                    if (page.isEmpty()) {
                         System.out.println("No delivery orders found.");
                     } else {
                         System.out.println("\n--- Delivery Order List ---");
@@ -605,21 +834,28 @@ public class SalesOrderMenu implements ModuleMenu {
                         System.out.println("-----------------------------------------------------------------------------------------------------------------------------------------------");
 
                         int i = 1;
-                        for (DeliveryOrder order : orders) {
-                            String deliveryDate = formatLocalDate(order.getDeliveryDate());
-                            String salesOrderNum = salesOrderService.getSalesOrderNumberById(order.getSalesOrderId());
-                            String description = (order.getDescription() != null && !order.getDescription().isEmpty()) 
-                                    ? order.getDescription() : "N/A";
-                            // Truncate description if too long
-                            if (description.length() > 28) {
-                                description = description.substring(0, 25) + "...";
+                        while (true) {
+                            List<DeliveryOrder> orders = page.getItems();
+                            Map<String, String> salesOrderNumbers = salesOrderService.getSalesOrderNumbersByIds(idsOf(orders, DeliveryOrder::getSalesOrderId));
+
+                            for (DeliveryOrder order : orders) {
+                                String deliveryDate = formatLocalDate(order.getDeliveryDate());
+                                String salesOrderNum = salesOrderNumbers.getOrDefault(order.getSalesOrderId(), "Unknown");
+                                String description = (order.getDescription() != null && !order.getDescription().isEmpty()) 
+                                        ? order.getDescription() : "N/A";
+                                // Truncate description if too long
+                                if (description.length() > 28) {
+                                    description = description.substring(0, 25) + "...";
+                                }
+                                String created = formatDate(order.getCreatedAt());
+                                String edited = formatDate(order.getEditedAt());
+
+                                System.out.printf("%-4d %-23s %-15s %-23s %-15s %-30s %-20s %-20s%n",
+                                        i++, order.getDeliveryNumber(), deliveryDate, salesOrderNum, 
+                                        order.getStatus(), description, created, edited);
                             }
-                            String created = formatDate(order.getCreatedAt());
-                            String edited = formatDate(order.getEditedAt());
-
-                            System.out.printf("%-4d %-23s %-15s %-23s %-15s %-30s %-20s %-20s%n",
-                                    i++, order.getDeliveryNumber(), deliveryDate, salesOrderNum, 
-                                    order.getStatus(), description, created, edited);
+                            if (!wantsNextPage(scanner, page)) break;
+                            page = salesOrderService.listDeliveryOrders(page.getNextCursor(), PAGE_SIZE, Sort.ASC);
                         }
                     }
                     break;
@@ -641,14 +877,41 @@ public class SalesOrderMenu implements ModuleMenu {
                     }
                     break;
                 case "5":
+                    System.out.print("Enter Delivery Number to View: ");
+                    String viewNum = scanner.nextLine();
+                    Optional<DeliveryOrder> viewOpt = salesOrderService.getDeliveryOrderByNumber(viewNum);
+                    Optional<DeliveryOrderDetail> viewDetail = viewOpt.flatMap(order -> salesOrderService.getDeliveryOrderDetail(order.getId()));
+                    if (viewDetail.isPresent()) {
+                        viewDeliveryOrderDetail(viewDetail.get());
+                    } else {
+                        System.out.println("Delivery Order not found.");
+                    }
+                    break;
+                case "6":
                     stay = false;
                     break;
                 default:
-                    System.out.println("Invalid option. Please try again (1-5)");
+                    System.out.println("Invalid option. Please try again (1-6)");
             }
         }
     }
 
+    private void viewDeliveryOrderDetail(DeliveryOrderDetail detail) {
+        DeliveryOrder delivery = detail.getDeliveryOrder();
+        System.out.println("\n--- Delivery Order: " + delivery.getDeliveryNumber() + " ---");
+        System.out.println("Delivery Date: " + formatLocalDate(delivery.getDeliveryDate()));
+        System.out.println("Status: " + delivery.getStatus());
+        System.out.println("Description: " + (delivery.getDescription() != null && !delivery.getDescription().isEmpty()
+                ? delivery.getDescription() : "N/A"));
+
+        if (detail.getSalesOrder() == null) {
+            System.out.println("Sales Order: Unknown");
+            return;
+        }
+        System.out.println("Sales Order: " + detail.getSalesOrder().getOrder().getOrderNumber());
+        viewDetailedSalesReport(detail.getSalesOrder());
+    }
+
     private void performAddDeliveryOrder(Scanner scanner) {
         System.out.println("\n--- Add New Delivery Order ---");
         
@@ -682,8 +945,13 @@ public class SalesOrderMenu implements ModuleMenu {
         order.setStatus(status.isEmpty() ? "PENDING" : status.toUpperCase());
         order.setDescription(description);
 
+        // Delivering issues the order's stock, so it goes through the service once the delivery exists
+        boolean delivered = order.getStatus().equals("DELIVERED");
+        if (delivered) order.setStatus("PENDING");
+
         DeliveryOrder created = salesOrderService.createDeliveryOrder(order);
         System.out.println("Delivery Order Created Successfully! Delivery Number: " + created.getDeliveryNumber());
+        if (delivered) System.out.println(salesOrderService.deliverDeliveryOrder(created.getId()));
     }
 
     private void performEditDeliveryOrder(Scanner scanner) {
@@ -710,8 +978,15 @@ public class SalesOrderMenu implements ModuleMenu {
             }
         }
 
-        // Update Status
-        order.setStatus(promptForUpdate(scanner, "Status", order.getStatus()).toUpperCase());
+        // Update Status (DELIVERED issues the stock, so it is set by the service; delivered goods stay delivered)
+        String currentStatus = order.getStatus();
+        String requestedStatus = promptForUpdate(scanner, "Status", currentStatus).toUpperCase();
+        boolean deliver = requestedStatus.equals("DELIVERED") && !requestedStatus.equals(currentStatus);
+        if ("DELIVERED".equals(currentStatus) && !requestedStatus.equals(currentStatus)) {
+            System.out.println("The stock of this delivery was already issued. Keeping DELIVERED.");
+        } else if (!deliver) {
+            order.setStatus(requestedStatus);
+        }
 
         // Update Description
         order.setDescription(promptForUpdate(scanner, "Description", 
@@ -719,6 +994,7 @@ public class SalesOrderMenu implements ModuleMenu {
 
         salesOrderService.updateDeliveryOrder(order);
         System.out.println("Delivery Order updated successfully.");
+        if (deliver) System.out.println(salesOrderService.deliverDeliveryOrder(order.getId()));
     }
 
     // --- 4. SALES RETURN SUB-MENU ---
@@ -738,8 +1014,8 @@ public class SalesOrderMenu implements ModuleMenu {
 
             switch (choice) {
                 case "1":
-                    List<SalesReturn> returns = salesOrderService.getAllSalesReturns();
-                    if (returns.isEmpty()) {
+                    Page<SalesReturn> page = salesOrderService.listSalesReturns(null, PAGE_SIZE, Sort.ASC);
+                    if (page.isEmpty()) {
                         System.out.println("No sales returns found.");
                     } else {
                         System.out.println("\n--- Sales Return List ---");
@@ -748,21 +1024,28 @@ public class SalesOrderMenu implements ModuleMenu {
                         System.out.println("------------------------------------------------------------------------------------------------------------------------------------------");
 
                         int i = 1;
-                        for (SalesReturn returnOrder : returns) {
-                            String returnDate = formatLocalDate(returnOrder.getReturnDate());
-                            String deliveryNum = salesOrderService.getDeliveryOrderNumberById(returnOrder.getDeliveryOrderId());
-                            String description = (returnOrder.getDescription() != null && !returnOrder.getDescription().isEmpty()) 
-                                    ? returnOrder.getDescription() : "N/A";
-                            // Truncate description if too long
-                            if (description.length() > 28) {
-                                description = description.substring(0, 25) + "...";
+                        while (true) {
+                            List<SalesReturn> returns = page.getItems();
+                            Map<String, String> deliveryNumbers = salesOrderService.getDeliveryOrderNumbersByIds(idsOf(returns, SalesReturn::getDeliveryOrderId));
+
+                            for (SalesReturn returnOrder : returns) {
+                                String returnDate = formatLocalDate(returnOrder.getReturnDate());
+                                String deliveryNum = deliveryNumbers.getOrDefault(returnOrder.getDeliveryOrderId(), "Unknown");
+                                String description = (returnOrder.getDescription() != null && !returnOrder.getDescription().isEmpty()) 
+                                        ? returnOrder.getDescription() : "N/A";
+                                // Truncate description if too long
+                                if (description.length() > 28) {
+                                    description = description.substring(0, 25) + "...";
+                                }
+                                String created = formatDate(returnOrder.getCreatedAt());
+                                String edited = formatDate(returnOrder.getEditedAt());
+
+                                System.out.printf("%-4d %-23s %-13s %-23s %-15s %-30s %-20s %-20s%n",
+                                        i++, returnOrder.getReturnNumber(), returnDate, deliveryNum, 
+                                        returnOrder.getStatus(), description, created, edited);
                             }
-                            String created = formatDate(returnOrder.getCreatedAt());
-                            String edited = formatDate(returnOrder.getEditedAt());
-
-                            System.out.printf("%-4d %-23s %-13s %-23s %-15s %-30s %-20s %-20s%n",
-                                    i++, returnOrder.getReturnNumber(), returnDate, deliveryNum, 
-                                    returnOrder.getStatus(), description, created, edited);
+                            if (!wantsNextPage(scanner, page)) break;
+                            page = salesOrderService.listSalesReturns(page.getNextCursor(), PAGE_SIZE, Sort.ASC);
                         }
                     }
                     break;
@@ -825,8 +1108,13 @@ public class SalesOrderMenu implements ModuleMenu {
         salesReturn.setStatus(status.isEmpty() ? "PENDING" : status.toUpperCase());
         salesReturn.setDescription(description);
 
+        // Completing puts the goods back in stock, so it goes through the service once the return exists
+        boolean completed = salesReturn.getStatus().equals("COMPLETED");
+        if (completed) salesReturn.setStatus("PENDING");
+
         SalesReturn created = salesOrderService.createSalesReturn(salesReturn);
         System.out.println("Sales Return Created Successfully! Return Number: " + created.getReturnNumber());
+        if (completed) System.out.println(salesOrderService.completeSalesReturn(created.getId()));
     }   
 
     private void performEditSalesReturn(Scanner scanner) {
@@ -853,8 +1141,15 @@ public class SalesOrderMenu implements ModuleMenu {
             }
         }
 
-        // Update Status
-        salesReturn.setStatus(promptForUpdate(scanner, "Status", salesReturn.getStatus()).toUpperCase());
+        // Update Status (COMPLETED returns the stock, so it is set by the service; returned goods stay returned)
+        String currentStatus = salesReturn.getStatus();
+        String requestedStatus = promptForUpdate(scanner, "Status", currentStatus).toUpperCase();
+        boolean complete = requestedStatus.equals("COMPLETED") && !requestedStatus.equals(currentStatus);
+        if ("COMPLETED".equals(currentStatus) && !requestedStatus.equals(currentStatus)) {
+            System.out.println("The goods of this return are already back in stock. Keeping COMPLETED.");
+        } else if (!complete) {
+            salesReturn.setStatus(requestedStatus);
+        }
 
         // Update Description
         salesReturn.setDescription(promptForUpdate(scanner, "Description", 
@@ -862,5 +1157,6 @@ public class SalesOrderMenu implements ModuleMenu {
 
         salesOrderService.updateSalesReturn(salesReturn);
         System.out.println("Sales Return updated successfully.");
+        if (complete) System.out.println(salesOrderService.completeSalesReturn(salesReturn.getId()));
     }
 }
\ No newline at end of file
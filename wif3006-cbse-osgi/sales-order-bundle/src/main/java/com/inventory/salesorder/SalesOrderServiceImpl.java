@@ -1,24 +1,61 @@
 package com.inventory.salesorder;
 
+import com.inventory.api.common.Page;
+import com.inventory.api.common.Sort;
+import com.inventory.api.analytics.SalesRollupService;
+import com.inventory.api.export.ExportFormat;
+import com.inventory.api.export.ExportRequest;
+import com.inventory.api.export.ExportResult;
+import com.inventory.api.export.ExportService;
 import com.inventory.api.salesorder.service.SalesOrderService;
 import com.inventory.api.salesorder.model.SalesOrder;
+import com.inventory.api.salesorder.model.SalesOrderDetail;
 import com.inventory.api.salesorder.model.SalesOrderItem;
+import com.inventory.api.salesorder.model.SalesOrderSummary;
 import com.inventory.api.salesorder.model.DeliveryOrder;
+import com.inventory.api.salesorder.model.DeliveryOrderDetail;
 import com.inventory.api.salesorder.model.SalesReturn;
 import com.inventory.api.salesorder.model.Tax;
+import com.inventory.api.codec.InventoryCodecs;
+import com.inventory.api.cache.ReferenceData;
+import com.inventory.api.cache.ReferenceDataCache;
 import com.inventory.api.customer.service.CustomerService;
 import com.inventory.api.customer.model.Customer;
 import com.inventory.api.product.service.ProductService;
 import com.inventory.api.product.model.Product;
+import com.inventory.api.mongo.BsonConversion;
+import com.inventory.api.mongo.IndexDefinition;
+import com.inventory.api.mongo.IndexManager;
+import com.inventory.api.mongo.MongoPaging;
+import com.inventory.api.mongo.MongoConnectionService;
+import com.inventory.api.mongo.SchemaMigration;
+import com.inventory.api.mongo.SchemaMigrationService;
+import com.inventory.api.stock.StockLedgerService;
+import com.inventory.api.stock.StockMovementType;
 
-import com.mongodb.client.MongoClient;
-import com.mongodb.client.MongoClients;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.CountOptions;
+import com.mongodb.client.model.Field;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndDeleteOptions;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.Variable;
 import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
 
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentWriter;
 import org.bson.Document;
+import org.bson.codecs.EncoderContext;
+import org.bson.conversions.Bson;
+import org.bson.types.Decimal128;
 import org.bson.types.ObjectId;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
@@ -26,24 +63,87 @@ import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 
 import java.math.BigDecimal;
-import java.time.LocalDate;
+import java.math.RoundingMode;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Date;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 @Component(service = SalesOrderService.class)
 public class SalesOrderServiceImpl implements SalesOrderService {
 
-    private MongoClient mongoClient;
+    @Reference
+    private MongoConnectionService connectionService;
+
+    @Reference
+    private IndexManager indexManager;
+
+    @Reference
+    private SchemaMigrationService migrationService;
+
+    @Reference
+    private ReferenceDataCache referenceDataCache;
+
+    @Reference
+    private ExportService exportService;
+
+    // Child-to-parent references and the human-readable numbers the menu searches by
+    static final List<IndexDefinition> INDEXES = List.of(
+            IndexDefinition.ascending("sales_orders", "orderNumber"),
+            IndexDefinition.ascending("sales_orders", "customerId"),
+            IndexDefinition.ascending("sales_order_items", "salesOrderId"),
+            IndexDefinition.ascending("delivery_orders", "salesOrderId"),
+            IndexDefinition.ascending("delivery_orders", "deliveryNumber"),
+            IndexDefinition.ascending("sales_returns", "deliveryOrderId"),
+            IndexDefinition.ascending("sales_returns", "returnNumber"),
+            IndexDefinition.ascending("taxes", "taxName"));
+
+    // Order statuses under which the order's lines are reserved in its warehouse
+    static final List<String> RESERVING_STATUSES = List.of("CONFIRMED", "PROCESSING");
+
+    // Bookkeeping on the order document, outside the model: the line writes in progress, and the
+    // mark of a confirmation reading the lines it reserves; a line write and a confirmation
+    // shut each other out through these, as the lines live in another collection than the status
+    static final String LINE_WRITES = "lineWrites";
+    static final String CONFIRMING = "confirming";
+
+    // The sales order list columns; _id comes along as the page cursor
+    static final Bson SUMMARY_PROJECTION = Projections.include("orderNumber", "orderDate", "customerId", "taxId",
+            "orderStatus", "beforeTaxAmount", "taxAmount", "afterTaxAmount");
+
+    // Amounts and dates were stored as strings; the codecs read both while this runs
+    static final SchemaMigration NATIVE_TYPES = SchemaMigration.version(1, "Sales order amounts and dates to native BSON types")
+            .convert("sales_orders", "orderDate", BsonConversion.DATE)
+            .convert("sales_orders", "beforeTaxAmount", BsonConversion.DECIMAL128)
+            .convert("sales_orders", "taxAmount", BsonConversion.DECIMAL128)
+            .convert("sales_orders", "afterTaxAmount", BsonConversion.DECIMAL128)
+            .convert("sales_order_items", "unitPrice", BsonConversion.DECIMAL128)
+            .convert("sales_order_items", "quantity", BsonConversion.INT32)
+            .convert("delivery_orders", "deliveryDate", BsonConversion.DATE)
+            .convert("sales_returns", "returnDate", BsonConversion.DATE)
+            .convert("taxes", "taxRate", BsonConversion.DECIMAL128);
+
     private MongoDatabase database;
 
-    private MongoCollection<Document> salesOrderCollection;
-    private MongoCollection<Document> salesOrderItemCollection;
-    private MongoCollection<Document> deliveryOrderCollection;
-    private MongoCollection<Document> salesReturnCollection;
-    private MongoCollection<Document> taxCollection;
+    private MongoCollection<SalesOrder> salesOrderCollection;
+    private MongoCollection<SalesOrderSummary> salesOrderSummaryCollection;
+    private MongoCollection<SalesOrderItem> salesOrderItemCollection;
+    private MongoCollection<DeliveryOrder> deliveryOrderCollection;
+    private MongoCollection<SalesReturn> salesReturnCollection;
+    private MongoCollection<Tax> taxCollection;
+
+    // Every tax rate, read on each order total and report line instead of a lookup per order
+    private final ReferenceData<String, Tax> taxes = new ReferenceData<>("taxes", Tax::getId, this::loadTaxes);
 
     // Service References (for cross-module queries)
     @Reference
@@ -52,28 +152,42 @@ public class SalesOrderServiceImpl implements SalesOrderService {
     @Reference
     private ProductService productService;
 
+    @Reference
+    private StockLedgerService stockLedgerService;
+
+    // Re-rolled after every write that changes what an order sold
+    @Reference
+    private SalesRollupService salesRollupService;
+
     @Activate
     public void activate() {
-        System.out.println("Sales Order Service: Starting with MANUAL Mapping...");
+        System.out.println("Sales Order Service: Starting...");
         try {
-            String uri = System.getProperty("mongodb.uri");
-            if (uri == null || uri.isEmpty()) {
-                System.err.println("Error: mongodb.uri not found in System Properties.");
+            // 1. Shared Connection (pool is owned by the infrastructure bundle)
+            database = connectionService.getDatabase();
+            if (database == null) {
+                System.err.println("Error: Shared MongoDB connection is not available.");
                 return;
             }
 
-            // 1. Standard Connection (No CodecRegistry needed for Document)
-            mongoClient = MongoClients.create(uri);
-            database = mongoClient.getDatabase("inventory_db_osgi");
+            // 2. Typed collections, decoded by the model codecs registered on the shared client
+            salesOrderCollection = database.getCollection("sales_orders", SalesOrder.class);
+            salesOrderSummaryCollection = database.getCollection("sales_orders", SalesOrderSummary.class);
+            salesOrderItemCollection = database.getCollection("sales_order_items", SalesOrderItem.class);
+            deliveryOrderCollection = database.getCollection("delivery_orders", DeliveryOrder.class);
+            salesReturnCollection = database.getCollection("sales_returns", SalesReturn.class);
+            taxCollection = database.getCollection("taxes", Tax.class);
 
-            // 2. Initialize Collections as 'Document'
-            salesOrderCollection = database.getCollection("sales_orders");
-            salesOrderItemCollection = database.getCollection("sales_order_items");
-            deliveryOrderCollection = database.getCollection("delivery_orders");
-            salesReturnCollection = database.getCollection("sales_returns");
-            taxCollection = database.getCollection("taxes");
+            // 3. Indexes for the filtered fields (no-op when they already exist)
+            indexManager.ensureIndexes(INDEXES);
 
-            System.out.println("Sales Order Service: Database Connected (Manual Mode).");
+            // 4. Convert legacy documents in the background (no-op once applied)
+            migrationService.submit(NATIVE_TYPES);
+
+            // 5. Reference data, loaded fully before the first order is read
+            referenceDataCache.register(taxes);
+
+            System.out.println("Sales Order Service: Database Connected.");
 
         } catch (Exception e) {
             System.err.println("Sales Order Service: Connection Failed.");
@@ -83,224 +197,11 @@ public class SalesOrderServiceImpl implements SalesOrderService {
 
     @Deactivate
     public void deactivate() {
-        if (mongoClient != null) mongoClient.close();
+        referenceDataCache.unregister(taxes);
+        // The shared client is closed by the infrastructure bundle, not here
         System.out.println("Sales Order Service: Stopped.");
     }
 
-    // =================== MAPPING HELPERS ===================
-
-    // --- SALES ORDER MAPPING ---
-    private SalesOrder mapToSalesOrder(Document doc) {
-        if (doc == null) return null;
-        SalesOrder order = new SalesOrder();
-        order.setId(doc.get("_id").toString());
-        order.setOrderNumber(doc.getString("orderNumber"));
-        
-        // Parse LocalDate from string
-        Object orderDateObj = doc.get("orderDate");
-        if (orderDateObj != null) {
-            if (orderDateObj instanceof Date) {
-                // Convert java.util.Date to LocalDate
-                Date date = (Date) orderDateObj;
-                order.setOrderDate(date.toInstant()
-                    .atZone(java.time.ZoneId.systemDefault())
-                    .toLocalDate());
-            } else if (orderDateObj instanceof String) {
-                // Parse String to LocalDate
-                order.setOrderDate(LocalDate.parse((String) orderDateObj));
-            }
-        }
-        
-        order.setCustomerId(doc.getString("customerId"));
-        order.setTaxId(doc.getString("taxId"));
-        order.setOrderStatus(doc.getString("orderStatus"));
-        order.setDescription(doc.getString("description"));
-        
-        // Parse BigDecimal amounts
-        Object beforeTaxObj = doc.get("beforeTaxAmount");
-        if (beforeTaxObj != null) {
-            if (beforeTaxObj instanceof Double) {
-                order.setBeforeTaxAmount(BigDecimal.valueOf((Double) beforeTaxObj));
-            } else if (beforeTaxObj instanceof String) {
-                order.setBeforeTaxAmount(new BigDecimal((String) beforeTaxObj));
-            }
-        }
-        
-        Object taxAmountObj = doc.get("taxAmount");
-        if (taxAmountObj != null) {
-            if (taxAmountObj instanceof Double) {
-                order.setTaxAmount(BigDecimal.valueOf((Double) taxAmountObj));
-            } else if (taxAmountObj instanceof String) {
-                order.setTaxAmount(new BigDecimal((String) taxAmountObj));
-            }
-        }
-        
-        Object afterTaxObj = doc.get("afterTaxAmount");
-        if (afterTaxObj != null) {
-            if (afterTaxObj instanceof Double) {
-                order.setAfterTaxAmount(BigDecimal.valueOf((Double) afterTaxObj));
-            } else if (afterTaxObj instanceof String) {
-                order.setAfterTaxAmount(new BigDecimal((String) afterTaxObj));
-            }
-        }
-        
-        order.setCreatedAt(doc.getString("createdAt"));
-        order.setEditedAt(doc.getString("editedAt"));
-        return order;
-    }
-
-    private Document mapFromSalesOrder(SalesOrder order) {
-        return new Document()
-                .append("orderNumber", order.getOrderNumber())
-                .append("orderDate", order.getOrderDate() != null ? order.getOrderDate().toString() : null)
-                .append("customerId", order.getCustomerId())
-                .append("taxId", order.getTaxId())
-                .append("orderStatus", order.getOrderStatus())
-                .append("description", order.getDescription())
-                .append("beforeTaxAmount", order.getBeforeTaxAmount() != null ? order.getBeforeTaxAmount().toString() : "0")
-                .append("taxAmount", order.getTaxAmount() != null ? order.getTaxAmount().toString() : "0")
-                .append("afterTaxAmount", order.getAfterTaxAmount() != null ? order.getAfterTaxAmount().toString() : "0")
-                .append("createdAt", order.getCreatedAt())
-                .append("editedAt", order.getEditedAt());
-    }
-
-    // --- SALES ORDER ITEM MAPPING ---
-    private SalesOrderItem mapToSalesOrderItem(Document doc) {
-        if (doc == null) return null;
-        SalesOrderItem item = new SalesOrderItem();
-        item.setId(doc.get("_id").toString());
-        item.setSalesOrderId(doc.getString("salesOrderId"));
-        item.setProductId(doc.getString("productId"));
-        
-        // Parse BigDecimal
-        Object unitPriceObj = doc.get("unitPrice");
-        if (unitPriceObj != null) {
-            if (unitPriceObj instanceof Double) {
-                item.setUnitPrice(BigDecimal.valueOf((Double) unitPriceObj));
-            } else if (unitPriceObj instanceof String) {
-                item.setUnitPrice(new BigDecimal((String) unitPriceObj));
-            }
-        }
-        
-        item.setQuantity(doc.getInteger("quantity", 0));
-        item.setProductNumber(doc.getString("productNumber"));
-        item.setCreatedAt(doc.getString("createdAt"));
-        item.setEditedAt(doc.getString("editedAt"));
-        return item;
-    }
-
-    private Document mapFromSalesOrderItem(SalesOrderItem item) {
-        return new Document()
-                .append("salesOrderId", item.getSalesOrderId())
-                .append("productId", item.getProductId())
-                .append("unitPrice", item.getUnitPrice() != null ? item.getUnitPrice().toString() : null)
-                .append("quantity", item.getQuantity())
-                .append("productNumber", item.getProductNumber())
-                .append("createdAt", item.getCreatedAt())
-                .append("editedAt", item.getEditedAt());
-    }
-
-    // --- DELIVERY ORDER MAPPING ---
-    private DeliveryOrder mapToDeliveryOrder(Document doc) {
-        if (doc == null) return null;
-        DeliveryOrder order = new DeliveryOrder();
-        order.setId(doc.get("_id").toString());
-        order.setDeliveryNumber(doc.getString("deliveryNumber"));
-        
-        String deliveryDateStr = doc.getString("deliveryDate");
-        if (deliveryDateStr != null) {
-            order.setDeliveryDate(LocalDate.parse(deliveryDateStr));
-        }
-        
-        order.setSalesOrderId(doc.getString("salesOrderId"));
-        order.setStatus(doc.getString("status"));
-        order.setDescription(doc.getString("description"));
-        order.setCreatedAt(doc.getString("createdAt"));
-        order.setEditedAt(doc.getString("editedAt"));
-        return order;
-    }
-
-    private Document mapFromDeliveryOrder(DeliveryOrder order) {
-        return new Document()
-                .append("deliveryNumber", order.getDeliveryNumber())
-                .append("deliveryDate", order.getDeliveryDate() != null ? order.getDeliveryDate().toString() : null)
-                .append("salesOrderId", order.getSalesOrderId())
-                .append("status", order.getStatus())
-                .append("description", order.getDescription())
-                .append("createdAt", order.getCreatedAt())
-                .append("editedAt", order.getEditedAt());
-    }
-
-    // --- SALES RETURN MAPPING ---
-    private SalesReturn mapToSalesReturn(Document doc) {
-        if (doc == null) return null;
-        SalesReturn salesReturn = new SalesReturn();
-        salesReturn.setId(doc.get("_id").toString());
-        salesReturn.setReturnNumber(doc.getString("returnNumber"));
-        
-        String returnDateStr = doc.getString("returnDate");
-        if (returnDateStr != null) {
-            salesReturn.setReturnDate(LocalDate.parse(returnDateStr));
-        }
-        
-        salesReturn.setDeliveryOrderId(doc.getString("deliveryOrderId"));
-        salesReturn.setStatus(doc.getString("status"));
-        salesReturn.setDescription(doc.getString("description"));
-        salesReturn.setCreatedAt(doc.getString("createdAt"));
-        salesReturn.setEditedAt(doc.getString("editedAt"));
-        return salesReturn;
-    }
-
-    private Document mapFromSalesReturn(SalesReturn salesReturn) {
-        return new Document()
-                .append("returnNumber", salesReturn.getReturnNumber())
-                .append("returnDate", salesReturn.getReturnDate() != null ? salesReturn.getReturnDate().toString() : null)
-                .append("deliveryOrderId", salesReturn.getDeliveryOrderId())
-                .append("status", salesReturn.getStatus())
-                .append("description", salesReturn.getDescription())
-                .append("createdAt", salesReturn.getCreatedAt())
-                .append("editedAt", salesReturn.getEditedAt());
-    }
-
-    // --- TAX MAPPING ---
-    private Tax mapToTax(Document doc) {
-        if (doc == null) return null;
-        Tax tax = new Tax();
-
-        Object idObj = doc.get("_id");
-        if (idObj != null) {
-            tax.setId(idObj.toString());
-        }
-
-        tax.setTaxName(doc.getString("taxName"));
-    
-        // Parse BigDecimal for taxRate
-        Object taxRateObj = doc.get("taxRate");
-        if (taxRateObj != null) {
-            if (taxRateObj instanceof Integer) {
-                tax.setTaxRate(BigDecimal.valueOf((Integer) taxRateObj));
-            } else if (taxRateObj instanceof Double) {
-                tax.setTaxRate(BigDecimal.valueOf((Double) taxRateObj));
-            } else if (taxRateObj instanceof String) {
-                tax.setTaxRate(new BigDecimal((String) taxRateObj));
-            }
-        }
-    
-        tax.setDescription(doc.getString("description"));
-        tax.setCreatedAt(doc.getString("createdAt"));
-        tax.setEditedAt(doc.getString("editedAt"));
-        return tax;
-    }
-
-    private Document mapFromTax(Tax tax) {
-        return new Document()
-                .append("taxName", tax.getTaxName())
-                .append("taxRate", tax.getTaxRate() != null ? tax.getTaxRate().toString() : null)
-                .append("description", tax.getDescription())
-                .append("createdAt", tax.getCreatedAt())
-                .append("editedAt", tax.getEditedAt());
-    }
-
     // =================== SALES ORDERS IMPLEMENTATION ===================
 
     @Override
@@ -311,11 +212,8 @@ public class SalesOrderServiceImpl implements SalesOrderService {
         if (order.getOrderNumber() == null) {
             order.setOrderNumber(generateOrderNumber("SO"));
         }
-        Document doc = mapFromSalesOrder(order);
-        salesOrderCollection.insertOne(doc);
-        
-        // Set the generated ID back to the order
-        order.setId(doc.get("_id").toString());
+        // The codec generates the ObjectId on the model itself
+        salesOrderCollection.insertOne(order);
         return order;
     }
 
@@ -323,8 +221,7 @@ public class SalesOrderServiceImpl implements SalesOrderService {
     public List<SalesOrder> getAllSalesOrders() {
         List<SalesOrder> list = new ArrayList<>();
         try {
-            for (Document doc : salesOrderCollection.find()) {
-                SalesOrder order = mapToSalesOrder(doc);
+            for (SalesOrder order : salesOrderCollection.find()) {
                 list.add(order);
             }
         } catch (Exception e) {
@@ -335,28 +232,120 @@ public class SalesOrderServiceImpl implements SalesOrderService {
         return list;
     }
 
+    @Override
+    public Page<SalesOrder> listSalesOrders(String afterId, int limit, Sort sort) {
+        return MongoPaging.page(salesOrderCollection, "_id", MongoPaging.objectIdCursor(afterId), limit, sort, SalesOrder::getId);
+    }
+
+    @Override
+    public Page<SalesOrderSummary> listSalesOrderSummaries(String afterId, int limit, Sort sort) {
+        return MongoPaging.page(salesOrderSummaryCollection, "_id", MongoPaging.objectIdCursor(afterId), limit, sort,
+                SUMMARY_PROJECTION, SalesOrderSummary::getId);
+    }
+
+    @Override
+    public Stream<SalesOrder> streamSalesOrders(int batchSize) {
+        return MongoPaging.stream(salesOrderCollection.find(), batchSize);
+    }
+
+    @Override
+    public CompletableFuture<List<ExportResult>> exportSalesData(Path directory, ExportFormat format, boolean gzip) {
+        return exportService.exportAll(List.of(
+                exportRequest(directory, "sales_orders", format, gzip, "_id", "orderNumber", "orderDate", "customerId",
+                        "taxId", "orderStatus", "description", "beforeTaxAmount", "taxAmount", "afterTaxAmount", "createdAt", "editedAt"),
+                exportRequest(directory, "sales_order_items", format, gzip, "_id", "salesOrderId", "productId",
+                        "productNumber", "unitPrice", "quantity", "createdAt", "editedAt"),
+                exportRequest(directory, "delivery_orders", format, gzip, "_id", "deliveryNumber", "deliveryDate",
+                        "salesOrderId", "status", "description", "createdAt", "editedAt"),
+                exportRequest(directory, "sales_returns", format, gzip, "_id", "returnNumber", "returnDate",
+                        "deliveryOrderId", "status", "description", "createdAt", "editedAt")));
+    }
+
+    // <directory>/<collection>.<ndjson|csv>[.gz], whole documents for NDJSON, the columns for CSV
+    private static ExportRequest exportRequest(Path directory, String collection, ExportFormat format, boolean gzip,
+                                               String... columns) {
+        String fileName = collection + "." + format.getExtension() + (gzip ? ".gz" : "");
+        ExportRequest request = ExportRequest.of(collection, directory.resolve(fileName)).format(format).gzip(gzip);
+        return format == ExportFormat.CSV ? request.columns(columns) : request;
+    }
+
     @Override
     public Optional<SalesOrder> getSalesOrderById(String id) {
         try {
-            Document doc = salesOrderCollection.find(Filters.eq("_id", new ObjectId(id))).first();
-            return Optional.ofNullable(mapToSalesOrder(doc));
+            return Optional.ofNullable(salesOrderCollection.find(Filters.eq("_id", new ObjectId(id))).first());
         } catch (IllegalArgumentException e) {
             return Optional.empty();
         }
     }
 
+    @Override
+    public Optional<SalesOrderDetail> getSalesOrderDetail(String id) {
+        if (id == null || !ObjectId.isValid(id)) return Optional.empty();
+
+        List<Bson> pipeline = new ArrayList<>();
+        pipeline.add(Aggregates.match(Filters.eq("_id", new ObjectId(id))));
+        pipeline.addAll(detailStages());
+        return Optional.ofNullable(salesOrderCollection.aggregate(pipeline, SalesOrderDetail.class).first());
+    }
+
+    // Joins the lines (with their product names), the customer and the tax onto the sales orders
+    // coming in; decoded by SalesOrderDetailCodec. Every join is an equality on an indexed field.
+    static List<Bson> detailStages() {
+        return List.of(
+                // Items refer to their order by the hex string of its _id
+                Aggregates.lookup("sales_order_items",
+                        List.of(new Variable<>("orderId", new Document("$toString", "$_id"))),
+                        List.of(
+                                Aggregates.match(Filters.expr(new Document("$eq", List.of("$salesOrderId", "$$orderId")))),
+                                Aggregates.sort(Sorts.ascending("_id")),
+                                Aggregates.lookup("products", "productId", "id", "product"),
+                                Aggregates.set(new Field<>("productName",
+                                        new Document("$arrayElemAt", List.of("$product.name", 0)))),
+                                Aggregates.project(Projections.exclude("product"))),
+                        "lines"),
+                Aggregates.set(
+                        new Field<>("customerKey", objectIdOf("$customerId")),
+                        new Field<>("taxKey", objectIdOf("$taxId"))),
+                Aggregates.lookup("customers", "customerKey", "_id", "customer"),
+                Aggregates.lookup("taxes", "taxKey", "_id", "tax"));
+    }
+
+    // A hex id stored as a string, as the ObjectId it refers to; ids that are not hex (seeded taxes) stay strings
+    private static Document objectIdOf(String field) {
+        return new Document("$convert", new Document("input", field)
+                .append("to", "objectId")
+                .append("onError", field)
+                .append("onNull", null));
+    }
+
     @Override
     public Optional<SalesOrder> getSalesOrderByNumber(String orderNumber) {
-        Document doc = salesOrderCollection.find(Filters.eq("orderNumber", orderNumber)).first();
-        return Optional.ofNullable(mapToSalesOrder(doc));
+        return Optional.ofNullable(salesOrderCollection.find(Filters.eq("orderNumber", orderNumber)).first());
+    }
+
+    @Override
+    public long countSalesOrdersByCustomerId(String customerId) {
+        return salesOrderCollection.countDocuments(Filters.eq("customerId", customerId));
+    }
+
+    @Override
+    public boolean hasSalesOrdersForCustomer(String customerId) {
+        // limit(1): the index scan stops at the first match
+        return salesOrderCollection.countDocuments(Filters.eq("customerId", customerId),
+                new CountOptions().limit(1)) > 0;
     }
 
     @Override
     public void updateSalesOrder(SalesOrder order) {
         if (order.getId() != null) {
             order.setEditedAt(LocalDateTime.now().toString());
-            Document doc = mapFromSalesOrder(order);
-            salesOrderCollection.replaceOne(Filters.eq("_id", new ObjectId(order.getId())), doc);
+            // $set of every model field rather than a replace, which would drop the line-write bookkeeping
+            BsonDocument fields = new BsonDocument();
+            InventoryCodecs.REGISTRY.get(SalesOrder.class)
+                    .encode(new BsonDocumentWriter(fields), order, EncoderContext.builder().build());
+            fields.remove("_id");
+            salesOrderCollection.updateOne(Filters.eq("_id", new ObjectId(order.getId())), new BsonDocument("$set", fields));
+            salesRollupService.refreshOrder(order.getId());
         }
     }
 
@@ -369,12 +358,20 @@ public class SalesOrderServiceImpl implements SalesOrderService {
         }
 
         try {
-            // Delete associated items first
+            // An order holding a reservation is cancelled first, which releases it; the filter keeps a
+            // confirmation racing this delete from leaving its stock reserved for an order that is gone
+            DeleteResult result = salesOrderCollection.deleteOne(Filters.and(
+                    Filters.eq("_id", new ObjectId(id)), Filters.nin("orderStatus", RESERVING_STATUSES)));
+            if (result.getDeletedCount() == 0) {
+                return salesOrderCollection.countDocuments(Filters.eq("_id", new ObjectId(id))) > 0
+                        ? "Cannot delete: the sales order holds a stock reservation; cancel it first."
+                        : "Sales Order not found.";
+            }
+
+            // Then its items
             salesOrderItemCollection.deleteMany(Filters.eq("salesOrderId", id));
-            
-            // Delete the order
-            DeleteResult result = salesOrderCollection.deleteOne(Filters.eq("_id", new ObjectId(id)));
-            return result.getDeletedCount() > 0 ? "Sales Order deleted successfully." : "Sales Order not found.";
+            salesRollupService.refreshOrder(id);
+            return "Sales Order deleted successfully.";
         } catch (Exception e) {
             return "Error: " + e.getMessage();
         }
@@ -384,31 +381,73 @@ public class SalesOrderServiceImpl implements SalesOrderService {
 
     @Override
     public void addSalesOrderItem(SalesOrderItem item) {
-        if (item.getCreatedAt() == null) {
-            item.setCreatedAt(LocalDateTime.now().toString());
+        List<ObjectId> writing = beginLineWrites(List.of(item.getSalesOrderId()));
+        try {
+            if (item.getCreatedAt() == null) {
+                item.setCreatedAt(LocalDateTime.now().toString());
+            }
+            salesOrderItemCollection.insertOne(item);
+        } finally {
+            endLineWrites(writing);
         }
-        Document doc = mapFromSalesOrderItem(item);
-        salesOrderItemCollection.insertOne(doc);
         
         // Recalculate order totals after adding item
         recalculateOrderTotals(item.getSalesOrderId());
     }
 
+    @Override
+    public void addSalesOrderItems(List<SalesOrderItem> items) {
+        if (items == null || items.isEmpty()) return;
+
+        String now = LocalDateTime.now().toString();
+        Set<String> orderIds = new LinkedHashSet<>();
+        for (SalesOrderItem item : items) {
+            if (item.getCreatedAt() == null) item.setCreatedAt(now);
+            orderIds.add(item.getSalesOrderId());
+        }
+        List<ObjectId> writing = beginLineWrites(orderIds);
+        try {
+            salesOrderItemCollection.insertMany(items);
+        } finally {
+            endLineWrites(writing);
+        }
+
+        // Totals once per order, not once per line
+        for (String orderId : orderIds) {
+            recalculateOrderTotals(orderId);
+        }
+    }
+
     @Override
     public List<SalesOrderItem> getItemsByOrderId(String orderId) {
         List<SalesOrderItem> list = new ArrayList<>();
-        for (Document doc : salesOrderItemCollection.find(Filters.eq("salesOrderId", orderId))) {
-            list.add(mapToSalesOrderItem(doc));
+        for (SalesOrderItem item : salesOrderItemCollection.find(Filters.eq("salesOrderId", orderId))) {
+            list.add(item);
         }
         return list;
     }
 
+    @Override
+    public Map<String, List<SalesOrderItem>> getItemsByOrderIds(Collection<String> orderIds) {
+        Map<String, List<SalesOrderItem>> itemsByOrder = new HashMap<>();
+        if (orderIds == null || orderIds.isEmpty()) return itemsByOrder;
+
+        for (SalesOrderItem item : salesOrderItemCollection.find(Filters.in("salesOrderId", orderIds))) {
+            itemsByOrder.computeIfAbsent(item.getSalesOrderId(), k -> new ArrayList<>()).add(item);
+        }
+        return itemsByOrder;
+    }
+
     @Override
     public void updateSalesOrderItem(SalesOrderItem item) {
         if (item.getId() != null) {
-            item.setEditedAt(LocalDateTime.now().toString());
-            Document doc = mapFromSalesOrderItem(item);
-            salesOrderItemCollection.replaceOne(Filters.eq("_id", new ObjectId(item.getId())), doc);
+            List<ObjectId> writing = beginLineWrites(List.of(item.getSalesOrderId()));
+            try {
+                item.setEditedAt(LocalDateTime.now().toString());
+                salesOrderItemCollection.replaceOne(Filters.eq("_id", new ObjectId(item.getId())), item);
+            } finally {
+                endLineWrites(writing);
+            }
             
             // Recalculate order totals after updating item
             recalculateOrderTotals(item.getSalesOrderId());
@@ -417,21 +456,60 @@ public class SalesOrderServiceImpl implements SalesOrderService {
 
     @Override
     public void deleteSalesOrderItem(String id) {
+        if (!ObjectId.isValid(id)) return;
+        SalesOrderItem line = salesOrderItemCollection.find(Filters.eq("_id", new ObjectId(id)))
+                .projection(Projections.include("salesOrderId")).first();
+        if (line == null) return;
+        List<ObjectId> writing = beginLineWrites(List.of(line.getSalesOrderId()));
+
         try {
-            // Get the item first to find the order ID
-            Document doc = salesOrderItemCollection.find(Filters.eq("_id", new ObjectId(id))).first();
-            if (doc != null) {
-                String orderId = doc.getString("salesOrderId");
-                salesOrderItemCollection.deleteOne(Filters.eq("_id", new ObjectId(id)));
-                
+            SalesOrderItem deleted;
+            try {
+                deleted = salesOrderItemCollection.findOneAndDelete(Filters.eq("_id", new ObjectId(id)),
+                        new FindOneAndDeleteOptions().projection(Projections.include("salesOrderId")));
+            } finally {
+                endLineWrites(writing);
+            }
+            if (deleted != null) {
                 // Recalculate order totals after deleting item
-                recalculateOrderTotals(orderId);
+                recalculateOrderTotals(deleted.getSalesOrderId());
             }
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
+    // The stock of an order holding a reservation was reserved for its lines as they were; cancel
+    // and delivery release or issue the lines as they are, so the two must not drift apart. The
+    // status predicate sits in the filter of the update that registers the write, so a confirmation
+    // cannot slip in between the check and the write; it waits on lineWrites in turn. An order
+    // that does not exist is left to the write, as before. Returns the orders to end the writes on.
+    private List<ObjectId> beginLineWrites(Collection<String> orderIds) {
+        List<ObjectId> begun = new ArrayList<>();
+        for (String orderId : new LinkedHashSet<>(orderIds)) {
+            if (orderId == null || !ObjectId.isValid(orderId)) continue;
+            ObjectId id = new ObjectId(orderId);
+            UpdateResult result = salesOrderCollection.updateOne(
+                    Filters.and(Filters.eq("_id", id),
+                            Filters.nin("orderStatus", RESERVING_STATUSES),
+                            Filters.exists(CONFIRMING, false)),
+                    Updates.inc(LINE_WRITES, 1));
+            if (result.getMatchedCount() > 0) {
+                begun.add(id);
+            } else if (salesOrderCollection.countDocuments(Filters.eq("_id", id), new CountOptions().limit(1)) > 0) {
+                endLineWrites(begun);
+                throw new IllegalStateException("The sales order holds a stock reservation, or is being confirmed; cancel it before changing its lines.");
+            }
+        }
+        return begun;
+    }
+
+    private void endLineWrites(List<ObjectId> orderIds) {
+        for (ObjectId id : orderIds) {
+            salesOrderCollection.updateOne(Filters.eq("_id", id), Updates.inc(LINE_WRITES, -1));
+        }
+    }
+
     // =================== DELIVERY ORDERS IMPLEMENTATION ===================
 
     @Override
@@ -442,44 +520,61 @@ public class SalesOrderServiceImpl implements SalesOrderService {
         if (order.getDeliveryNumber() == null) {
             order.setDeliveryNumber(generateOrderNumber("DO"));
         }
-        Document doc = mapFromDeliveryOrder(order);
-        deliveryOrderCollection.insertOne(doc);
-        
-        order.setId(doc.get("_id").toString());
+        deliveryOrderCollection.insertOne(order);
         return order;
     }
 
     @Override
     public List<DeliveryOrder> getAllDeliveryOrders() {
         List<DeliveryOrder> list = new ArrayList<>();
-        for (Document doc : deliveryOrderCollection.find()) {
-            list.add(mapToDeliveryOrder(doc));
+        for (DeliveryOrder order : deliveryOrderCollection.find()) {
+            list.add(order);
         }
         return list;
     }
 
+    @Override
+    public Page<DeliveryOrder> listDeliveryOrders(String afterId, int limit, Sort sort) {
+        return MongoPaging.page(deliveryOrderCollection, "_id", MongoPaging.objectIdCursor(afterId), limit, sort, DeliveryOrder::getId);
+    }
+
     @Override
     public Optional<DeliveryOrder> getDeliveryOrderById(String id) {
         try {
-            Document doc = deliveryOrderCollection.find(Filters.eq("_id", new ObjectId(id))).first();
-            return Optional.ofNullable(mapToDeliveryOrder(doc));
+            return Optional.ofNullable(deliveryOrderCollection.find(Filters.eq("_id", new ObjectId(id))).first());
         } catch (IllegalArgumentException e) {
             return Optional.empty();
         }
     }
 
+    @Override
+    public Optional<DeliveryOrderDetail> getDeliveryOrderDetail(String id) {
+        if (id == null || !ObjectId.isValid(id)) return Optional.empty();
+
+        // delivery order -> sales order -> lines, customer and tax, all in the one pipeline
+        List<Bson> salesOrderStages = new ArrayList<>();
+        salesOrderStages.add(Aggregates.match(Filters.expr(new Document("$eq", List.of("$_id", "$$salesOrderId")))));
+        salesOrderStages.addAll(detailStages());
+
+        List<Bson> pipeline = List.of(
+                Aggregates.match(Filters.eq("_id", new ObjectId(id))),
+                Aggregates.lookup("sales_orders",
+                        List.of(new Variable<>("salesOrderId", objectIdOf("$salesOrderId"))),
+                        salesOrderStages,
+                        "salesOrder"));
+        return Optional.ofNullable(deliveryOrderCollection.aggregate(pipeline, DeliveryOrderDetail.class).first());
+    }
+
     @Override
     public Optional<DeliveryOrder> getDeliveryOrderByNumber(String deliveryNumber) {
-        Document doc = deliveryOrderCollection.find(Filters.eq("deliveryNumber", deliveryNumber)).first();
-        return Optional.ofNullable(mapToDeliveryOrder(doc));
+        return Optional.ofNullable(deliveryOrderCollection.find(Filters.eq("deliveryNumber", deliveryNumber)).first());
     }
 
     @Override
     public void updateDeliveryOrder(DeliveryOrder order) {
         if (order.getId() != null) {
             order.setEditedAt(LocalDateTime.now().toString());
-            Document doc = mapFromDeliveryOrder(order);
-            deliveryOrderCollection.replaceOne(Filters.eq("_id", new ObjectId(order.getId())), doc);
+            deliveryOrderCollection.replaceOne(Filters.eq("_id", new ObjectId(order.getId())), order);
         }
     }
 
@@ -509,27 +604,28 @@ public class SalesOrderServiceImpl implements SalesOrderService {
         if (salesReturn.getReturnNumber() == null) {
             salesReturn.setReturnNumber(generateOrderNumber("SR"));
         }
-        Document doc = mapFromSalesReturn(salesReturn);
-        salesReturnCollection.insertOne(doc);
-        
-        salesReturn.setId(doc.get("_id").toString());
+        salesReturnCollection.insertOne(salesReturn);
         return salesReturn;
     }
 
     @Override
     public List<SalesReturn> getAllSalesReturns() {
         List<SalesReturn> list = new ArrayList<>();
-        for (Document doc : salesReturnCollection.find()) {
-            list.add(mapToSalesReturn(doc));
+        for (SalesReturn salesReturn : salesReturnCollection.find()) {
+            list.add(salesReturn);
         }
         return list;
     }
 
+    @Override
+    public Page<SalesReturn> listSalesReturns(String afterId, int limit, Sort sort) {
+        return MongoPaging.page(salesReturnCollection, "_id", MongoPaging.objectIdCursor(afterId), limit, sort, SalesReturn::getId);
+    }
+
     @Override
     public Optional<SalesReturn> getSalesReturnById(String id) {
         try {
-            Document doc = salesReturnCollection.find(Filters.eq("_id", new ObjectId(id))).first();
-            return Optional.ofNullable(mapToSalesReturn(doc));
+            return Optional.ofNullable(salesReturnCollection.find(Filters.eq("_id", new ObjectId(id))).first());
         } catch (IllegalArgumentException e) {
             return Optional.empty();
         }
@@ -537,16 +633,14 @@ public class SalesOrderServiceImpl implements SalesOrderService {
 
     @Override
     public Optional<SalesReturn> getSalesReturnByNumber(String returnNumber) {
-        Document doc = salesReturnCollection.find(Filters.eq("returnNumber", returnNumber)).first();
-        return Optional.ofNullable(mapToSalesReturn(doc));
+        return Optional.ofNullable(salesReturnCollection.find(Filters.eq("returnNumber", returnNumber)).first());
     }
 
     @Override
     public void updateSalesReturn(SalesReturn salesReturn) {
         if (salesReturn.getId() != null) {
             salesReturn.setEditedAt(LocalDateTime.now().toString());
-            Document doc = mapFromSalesReturn(salesReturn);
-            salesReturnCollection.replaceOne(Filters.eq("_id", new ObjectId(salesReturn.getId())), doc);
+            salesReturnCollection.replaceOne(Filters.eq("_id", new ObjectId(salesReturn.getId())), salesReturn);
         }
     }
 
@@ -560,6 +654,192 @@ public class SalesOrderServiceImpl implements SalesOrderService {
         }
     }    
 
+    // =================== STOCK ===================
+
+    @Override
+    public String confirmSalesOrder(String orderId, String warehouse) {
+        Optional<SalesOrder> found = getSalesOrderById(orderId);
+        if (found.isEmpty()) return "Sales Order not found.";
+        SalesOrder order = found.get();
+        if (!"PENDING".equals(order.getOrderStatus())) {
+            return "Only PENDING orders can be confirmed (" + order.getOrderNumber() + " is " + order.getOrderStatus() + ").";
+        }
+
+        // Shut out line writes while the lines are read and reserved; none may be under way either
+        ObjectId id = new ObjectId(orderId);
+        UpdateResult marked = salesOrderCollection.updateOne(
+                Filters.and(Filters.eq("_id", id), Filters.eq("orderStatus", "PENDING"), Filters.not(Filters.gt(LINE_WRITES, 0))),
+                Updates.set(CONFIRMING, true));
+        if (marked.getMatchedCount() == 0) {
+            return "Sales Order " + order.getOrderNumber() + " is being changed; try again.";
+        }
+
+        Map<String, Integer> quantities = quantitiesOf(orderId);
+        if (quantities.isEmpty()) {
+            unmarkConfirming(id);
+            return "Cannot confirm: " + order.getOrderNumber() + " has no items.";
+        }
+        String where = warehouse == null || warehouse.trim().isEmpty() ? StockLedgerService.DEFAULT_WAREHOUSE : warehouse.trim();
+
+        // Reserve first, so the order never says CONFIRMED without its stock
+        if (!stockLedgerService.post(StockMovementType.RESERVE, order.getOrderNumber(), where, quantities)) {
+            unmarkConfirming(id);
+            return "Cannot confirm: not enough stock in " + where + " for " + order.getOrderNumber() + ".";
+        }
+
+        // Only one confirmation wins; one that lost gives its reservation back
+        UpdateResult result = salesOrderCollection.updateOne(
+                Filters.and(Filters.eq("_id", id), Filters.eq("orderStatus", "PENDING")),
+                Updates.combine(
+                        Updates.set("orderStatus", "CONFIRMED"),
+                        Updates.set("warehouse", where),
+                        Updates.set("editedAt", LocalDateTime.now().toString()),
+                        Updates.unset(CONFIRMING)));
+        if (result.getMatchedCount() == 0) {
+            stockLedgerService.post(StockMovementType.RELEASE, order.getOrderNumber(), where, quantities);
+            unmarkConfirming(id);
+            return "Sales Order " + order.getOrderNumber() + " was changed meanwhile; nothing reserved.";
+        }
+        return "Sales Order " + order.getOrderNumber() + " confirmed; stock reserved in " + where + ".";
+    }
+
+    private void unmarkConfirming(ObjectId id) {
+        salesOrderCollection.updateOne(Filters.eq("_id", id), Updates.unset(CONFIRMING));
+    }
+
+    @Override
+    public String cancelSalesOrder(String orderId) {
+        if (!ObjectId.isValid(orderId)) return "Sales Order not found.";
+
+        // The status before the change tells whether the order held stock
+        SalesOrder before = salesOrderCollection.findOneAndUpdate(
+                Filters.and(Filters.eq("_id", new ObjectId(orderId)), Filters.nin("orderStatus", "COMPLETED", "CANCELLED")),
+                Updates.combine(
+                        Updates.set("orderStatus", "CANCELLED"),
+                        Updates.set("editedAt", LocalDateTime.now().toString())),
+                new FindOneAndUpdateOptions().returnDocument(ReturnDocument.BEFORE));
+        if (before == null) return "Sales Order not found, or already completed or cancelled.";
+        salesRollupService.refreshOrder(orderId);
+
+        if (RESERVING_STATUSES.contains(before.getOrderStatus()) && before.getWarehouse() != null) {
+            Map<String, Integer> quantities = quantitiesOf(orderId);
+            if (!quantities.isEmpty() && !stockLedgerService.post(StockMovementType.RELEASE,
+                    before.getOrderNumber(), before.getWarehouse(), quantities)) {
+                return "Sales Order " + before.getOrderNumber() + " cancelled, but its reservation in "
+                        + before.getWarehouse() + " could not be released.";
+            }
+            return "Sales Order " + before.getOrderNumber() + " cancelled; stock released in " + before.getWarehouse() + ".";
+        }
+        return "Sales Order " + before.getOrderNumber() + " cancelled.";
+    }
+
+    @Override
+    public String deliverDeliveryOrder(String deliveryOrderId) {
+        if (!ObjectId.isValid(deliveryOrderId)) return "Delivery Order not found.";
+
+        DeliveryOrder delivery = deliveryOrderCollection.findOneAndUpdate(
+                Filters.and(Filters.eq("_id", new ObjectId(deliveryOrderId)), Filters.nin("status", "DELIVERED", "CANCELLED")),
+                Updates.combine(
+                        Updates.set("status", "DELIVERED"),
+                        Updates.set("editedAt", LocalDateTime.now().toString())),
+                new FindOneAndUpdateOptions().returnDocument(ReturnDocument.BEFORE));
+        if (delivery == null) return "Delivery Order not found, or already delivered or cancelled.";
+
+        // The sales order is done once delivered; only one that held stock has any to issue
+        SalesOrder order = delivery.getSalesOrderId() == null || !ObjectId.isValid(delivery.getSalesOrderId()) ? null
+                : salesOrderCollection.findOneAndUpdate(
+                        Filters.and(Filters.eq("_id", new ObjectId(delivery.getSalesOrderId())),
+                                Filters.in("orderStatus", RESERVING_STATUSES)),
+                        Updates.combine(
+                                Updates.set("orderStatus", "COMPLETED"),
+                                Updates.set("editedAt", LocalDateTime.now().toString())),
+                        new FindOneAndUpdateOptions().returnDocument(ReturnDocument.BEFORE));
+        if (order == null || order.getWarehouse() == null) {
+            return "Delivery Order " + delivery.getDeliveryNumber() + " delivered (its sales order held no stock).";
+        }
+
+        Map<String, Integer> quantities = quantitiesOf(order.getId());
+        if (!quantities.isEmpty() && !stockLedgerService.post(StockMovementType.ISSUE,
+                delivery.getDeliveryNumber(), order.getWarehouse(), quantities)) {
+            // Both were claimed above, so nobody else moved them on; put them back and keep the
+            // reservation, so the delivery can be retried (or the order cancelled, which releases it)
+            salesOrderCollection.updateOne(
+                    Filters.and(Filters.eq("_id", new ObjectId(order.getId())), Filters.eq("orderStatus", "COMPLETED")),
+                    Updates.combine(
+                            Updates.set("orderStatus", order.getOrderStatus()),
+                            Updates.set("editedAt", LocalDateTime.now().toString())));
+            deliveryOrderCollection.updateOne(
+                    Filters.and(Filters.eq("_id", new ObjectId(deliveryOrderId)), Filters.eq("status", "DELIVERED")),
+                    Updates.combine(
+                            Updates.set("status", delivery.getStatus()),
+                            Updates.set("editedAt", LocalDateTime.now().toString())));
+            return "Cannot deliver " + delivery.getDeliveryNumber() + ": the reserved stock in "
+                    + order.getWarehouse() + " is short; nothing was changed.";
+        }
+        return "Delivery Order " + delivery.getDeliveryNumber() + " delivered; stock issued from " + order.getWarehouse() + ".";
+    }
+
+    @Override
+    public String completeSalesReturn(String returnId) {
+        if (!ObjectId.isValid(returnId)) return "Sales Return not found.";
+        Optional<SalesReturn> found = getSalesReturnById(returnId);
+        if (found.isEmpty() || "COMPLETED".equals(found.get().getStatus()) || "CANCELLED".equals(found.get().getStatus())) {
+            return "Sales Return not found, or already completed or cancelled.";
+        }
+        String deliveryId = found.get().getDeliveryOrderId();
+
+        // Only goods that left the warehouse can come back, and only once: the first return to
+        // complete claims the delivery order, so a second one cannot put the same goods back again
+        DeliveryOrder delivery = deliveryId == null || !ObjectId.isValid(deliveryId) ? null
+                : deliveryOrderCollection.findOneAndUpdate(
+                        Filters.and(Filters.eq("_id", new ObjectId(deliveryId)), Filters.eq("status", "DELIVERED"),
+                                Filters.eq("returnId", null)),
+                        Updates.set("returnId", returnId));
+        if (delivery == null && deliveryId != null && ObjectId.isValid(deliveryId)
+                && deliveryOrderCollection.countDocuments(Filters.and(
+                        Filters.eq("_id", new ObjectId(deliveryId)), Filters.ne("returnId", null))) > 0) {
+            return "Cannot complete " + found.get().getReturnNumber()
+                    + ": the goods of its delivery order were already returned by another sales return.";
+        }
+
+        SalesReturn salesReturn = salesReturnCollection.findOneAndUpdate(
+                Filters.and(Filters.eq("_id", new ObjectId(returnId)), Filters.nin("status", "COMPLETED", "CANCELLED")),
+                Updates.combine(
+                        Updates.set("status", "COMPLETED"),
+                        Updates.set("editedAt", LocalDateTime.now().toString())),
+                new FindOneAndUpdateOptions().returnDocument(ReturnDocument.BEFORE));
+        if (salesReturn == null) {
+            // Completed or cancelled meanwhile; the delivery order is free for another return
+            if (delivery != null) {
+                deliveryOrderCollection.updateOne(Filters.and(Filters.eq("_id", new ObjectId(deliveryId)),
+                        Filters.eq("returnId", returnId)), Updates.unset("returnId"));
+            }
+            return "Sales Return not found, or already completed or cancelled.";
+        }
+
+        Optional<SalesOrder> order = Optional.ofNullable(delivery).map(DeliveryOrder::getSalesOrderId)
+                .flatMap(this::getSalesOrderById);
+        Map<String, Integer> quantities = order.map(o -> quantitiesOf(o.getId())).orElse(Collections.emptyMap());
+        if (quantities.isEmpty()) {
+            return "Sales Return " + salesReturn.getReturnNumber() + " completed (nothing was delivered, no stock returned).";
+        }
+
+        String where = order.get().getWarehouse() != null ? order.get().getWarehouse() : StockLedgerService.DEFAULT_WAREHOUSE;
+        stockLedgerService.post(StockMovementType.RETURN, salesReturn.getReturnNumber(), where, quantities);
+        return "Sales Return " + salesReturn.getReturnNumber() + " completed; stock returned to " + where + ".";
+    }
+
+    // productId -> quantity over the order's lines; sorted, so orders sharing products reserve them in the same order
+    private Map<String, Integer> quantitiesOf(String orderId) {
+        Map<String, Integer> quantities = new TreeMap<>();
+        for (SalesOrderItem item : getItemsByOrderId(orderId)) {
+            if (item.getProductId() != null && item.getQuantity() > 0) {
+                quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+            }
+        }
+        return quantities;
+    }
+
     // =================== HELPER METHODS ===================
 
     @Override
@@ -586,34 +866,17 @@ public class SalesOrderServiceImpl implements SalesOrderService {
     @Override
     public String getProductIdByName(String productName) {
         if (productName == null || productService == null) return null;
-        
-        // Search through all products to find matching name
-        List<Product> products = productService.getAllProducts();
-        for (Product product : products) {
-            if (product.getName().equalsIgnoreCase(productName)) {
-                return product.getId();
-            }
-        }
-        return null;
+        // Indexed, case-insensitive lookup (cached in the product bundle)
+        return productService.getProductIdByName(productName);
     }
 
     public Optional<Tax> getTaxById(String id) {
-        try {
-            Document doc = taxCollection.find(Filters.eq("_id", id)).first();
-            return Optional.ofNullable(mapToTax(doc));
-        } catch (IllegalArgumentException e) {
-            System.err.println("Error finding tax by id: " + id);
-            return Optional.empty();
-        }
+        return Optional.ofNullable(taxes.get(id));
     }
 
     @Override
     public List<Tax> getAllTaxes() {
-        List<Tax> list = new ArrayList<>();
-        for (Document doc : taxCollection.find()) {
-            list.add(mapToTax(doc));
-        }
-        return list;
+        return new ArrayList<>(taxes.getAll());
     }
 
     @Override
@@ -636,6 +899,61 @@ public class SalesOrderServiceImpl implements SalesOrderService {
         return order.map(DeliveryOrder::getDeliveryNumber).orElse("Unknown");
     }
 
+    // =================== BULK LOOKUPS ===================
+
+    @Override
+    public Map<String, String> getCustomerNamesByIds(Collection<String> customerIds) {
+        if (customerIds == null || customerIds.isEmpty() || customerService == null) return Collections.emptyMap();
+        return customerService.getCustomerNamesByIds(customerIds);
+    }
+
+    @Override
+    public Map<String, String> getProductNamesByIds(Collection<String> productIds) {
+        if (productIds == null || productIds.isEmpty() || productService == null) return Collections.emptyMap();
+        return productService.getProductNamesByIds(productIds);
+    }
+
+    @Override
+    public Map<String, BigDecimal> getTaxRatesByIds(Collection<String> taxIds) {
+        Map<String, BigDecimal> rates = new HashMap<>();
+        if (taxIds == null || taxIds.isEmpty()) return rates;
+
+        for (String taxId : taxIds) {
+            Tax tax = taxes.get(taxId);
+            if (tax != null) rates.put(tax.getId(), tax.getTaxRate() != null ? tax.getTaxRate() : BigDecimal.ZERO);
+        }
+        return rates;
+    }
+
+    @Override
+    public Map<String, String> getSalesOrderNumbersByIds(Collection<String> ids) {
+        return findFieldByObjectIds(salesOrderCollection, ids, "orderNumber");
+    }
+
+    @Override
+    public Map<String, String> getDeliveryOrderNumbersByIds(Collection<String> ids) {
+        return findFieldByObjectIds(deliveryOrderCollection, ids, "deliveryNumber");
+    }
+
+    // One $in query on _id, returning hex id -> a single string field (invalid ids are skipped)
+    private Map<String, String> findFieldByObjectIds(MongoCollection<?> collection,
+                                                     Collection<String> ids, String field) {
+        Map<String, String> values = new HashMap<>();
+        if (ids == null || ids.isEmpty()) return values;
+
+        List<ObjectId> objectIds = new ArrayList<>();
+        for (String id : ids) {
+            if (id != null && ObjectId.isValid(id)) objectIds.add(new ObjectId(id));
+        }
+        if (objectIds.isEmpty()) return values;
+
+        for (Document doc : collection.find(Filters.in("_id", objectIds), Document.class)
+                .projection(Projections.include(field))) {
+            values.put(doc.getObjectId("_id").toHexString(), doc.getString(field));
+        }
+        return values;
+    }
+
     // =================== UTILITY METHODS ===================
 
     private String generateOrderNumber(String prefix) {
@@ -645,46 +963,71 @@ public class SalesOrderServiceImpl implements SalesOrderService {
     
     /**
      * Recalculate order totals (before tax, tax amount, after tax)
-     * Called whenever items are added, updated, or deleted
+     * Called whenever items are added, updated, or deleted.
+     *
+     * One aggregation lets the server sum the lines, the tax rate comes from the cached taxes, then a single
+     * updateOne sets only the three amount fields - the order document is never re-read
+     * into Java or replaced as a whole.
      */
     @Override
     public void recalculateOrderTotals(String orderId) {
         try {
-            Optional<SalesOrder> orderOpt = getSalesOrderById(orderId);
-            if (orderOpt.isEmpty()) return;
-            
-            SalesOrder order = orderOpt.get();
-            List<SalesOrderItem> items = getItemsByOrderId(orderId);
-            
-            // Calculate subtotal (before tax)
-            BigDecimal beforeTax = BigDecimal.ZERO;
-            for (SalesOrderItem item : items) {
-                BigDecimal itemTotal = item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity()));
-                beforeTax = beforeTax.add(itemTotal);
-            }
-            
-            // Calculate tax amount
+            Document totals = salesOrderCollection.aggregate(orderTotalsPipeline(orderId), Document.class).first();
+            if (totals == null) return;
+
+            BigDecimal beforeTax = toBigDecimal(totals.get("beforeTax"));
+
+            // Rounded in Java (HALF_UP) - the server's $round rounds half to even
             BigDecimal taxAmount = BigDecimal.ZERO;
-            if (order.getTaxId() != null) {
-                BigDecimal taxRate = getTaxRateById(order.getTaxId());
-                taxAmount = beforeTax.multiply(taxRate).divide(BigDecimal.valueOf(100), 2, BigDecimal.ROUND_HALF_UP);
+            if (totals.getString("taxId") != null) {
+                BigDecimal taxRate = getTaxRateById(totals.getString("taxId"));
+                taxAmount = beforeTax.multiply(taxRate).divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
             }
-            
-            // Calculate after tax amount
+
             BigDecimal afterTax = beforeTax.add(taxAmount);
-            
-            // Update order with calculated amounts
-            order.setBeforeTaxAmount(beforeTax);
-            order.setTaxAmount(taxAmount);
-            order.setAfterTaxAmount(afterTax);
-            
-            updateSalesOrder(order);
-            
+
+            salesOrderCollection.updateOne(Filters.eq("_id", new ObjectId(orderId)), Updates.combine(
+                    Updates.set("beforeTaxAmount", new Decimal128(beforeTax)),
+                    Updates.set("taxAmount", new Decimal128(taxAmount)),
+                    Updates.set("afterTaxAmount", new Decimal128(afterTax)),
+                    Updates.set("editedAt", LocalDateTime.now().toString())));
+
+            // The lines changed, so what the order sold did too
+            salesRollupService.refreshOrder(orderId);
+
         } catch (Exception e) {
             System.err.println("Error recalculating order totals: " + e.getMessage());
             e.printStackTrace();
         }
     }
+
+    // { taxId, beforeTax: sum(unitPrice * quantity) } for one order
+    static List<Bson> orderTotalsPipeline(String orderId) {
+        // Unmigrated prices are still strings; $toDecimal reads both and keeps the sum exact
+        Document lineTotal = new Document("$multiply",
+                List.of(new Document("$toDecimal", "$unitPrice"), "$quantity"));
+
+        return List.of(
+                Aggregates.match(Filters.eq("_id", new ObjectId(orderId))),
+                Aggregates.lookup("sales_order_items",
+                        List.of(new Variable<>("orderId", new Document("$toString", "$_id"))),
+                        List.of(
+                                Aggregates.match(Filters.expr(new Document("$eq", List.of("$salesOrderId", "$$orderId")))),
+                                Aggregates.group(null, Accumulators.sum("beforeTax", lineTotal))),
+                        "lines"),
+                Aggregates.project(Projections.fields(
+                        Projections.include("taxId"),
+                        Projections.computed("beforeTax", new Document("$arrayElemAt", List.of("$lines.beforeTax", 0))))));
+    }
+
+    // Stored amounts/rates may be Decimal128, a number or a numeric string
+    private static BigDecimal toBigDecimal(Object value) {
+        if (value instanceof Decimal128) return ((Decimal128) value).bigDecimalValue();
+        if (value instanceof Integer || value instanceof Long) return BigDecimal.valueOf(((Number) value).longValue());
+        if (value instanceof Number) return BigDecimal.valueOf(((Number) value).doubleValue());
+        if (value instanceof String) return new BigDecimal((String) value);
+        return BigDecimal.ZERO;
+    }
     
     /**
      * Get product price by ID
@@ -698,7 +1041,15 @@ public class SalesOrderServiceImpl implements SalesOrderService {
 
     @Override
     public Optional<Tax> getTaxByName(String taxName) {
-        Document doc = taxCollection.find(Filters.eq("taxName", taxName)).first();
-        return Optional.ofNullable(mapToTax(doc));
+        if (taxName == null) return Optional.empty();
+        return taxes.getAll().stream().filter(tax -> taxName.equals(tax.getTaxName())).findFirst();
+    }
+
+    private List<Tax> loadTaxes() {
+        List<Tax> list = new ArrayList<>();
+        for (Tax tax : taxCollection.find()) {
+            list.add(tax);
+        }
+        return list;
     }
 }
\ No newline at end of file
@@ -0,0 +1,337 @@
+package com.inventory.salesorder;
+
+import com.inventory.api.analytics.RollupDimension;
+import com.inventory.api.analytics.RollupTotal;
+import com.inventory.api.analytics.SalesRollupService;
+import com.inventory.api.mongo.IndexDefinition;
+import com.inventory.api.mongo.IndexManager;
+import com.inventory.api.mongo.MongoConnectionService;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.BsonField;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.DeleteManyModel;
+import com.mongodb.client.model.Field;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndReplaceOptions;
+import com.mongodb.client.model.MergeOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.Variable;
+import com.mongodb.client.model.WriteModel;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sales rollups in "sales_rollups", one bucket per day, customer, product and tax:
+ * { _id: { day, customerId, productId, taxId }, day, customerId, productId, taxId, quantity, revenue, lines, builtAt }.
+ *
+ * What each order put into the buckets is kept in "sales_rollup_orders" ({ _id: order id, buckets: [...] }).
+ * Re-rolling an order swaps that entry for the order's current buckets in one findOneAndReplace and
+ * $incs the rollups by the difference, so nothing is read but the order itself; two re-rolls of the
+ * same order racing still add up, as each one subtracts what it replaced. rebuild() derives both
+ * collections from the orders again with $merge.
+ */
+@Component(service = SalesRollupService.class, immediate = true)
+public class SalesRollupServiceImpl implements SalesRollupService {
+
+    static final String ROLLUPS = "sales_rollups";
+    static final String ORDER_BUCKETS = "sales_rollup_orders";
+
+    // A range alone, or a range of one customer / product / tax
+    static final List<IndexDefinition> INDEXES = List.of(
+            IndexDefinition.ascending(ROLLUPS, "day"),
+            IndexDefinition.ascending(ROLLUPS, "customerId", "day"),
+            IndexDefinition.ascending(ROLLUPS, "productId", "day"),
+            IndexDefinition.ascending(ROLLUPS, "taxId", "day"));
+
+    @Reference
+    private MongoConnectionService connectionService;
+
+    @Reference
+    private IndexManager indexManager;
+
+    private MongoCollection<Document> salesOrderCollection;
+    private MongoCollection<Document> rollupCollection;
+    private MongoCollection<Document> orderBucketCollection;
+
+    @Activate
+    public void activate() {
+        MongoDatabase database = connectionService.getDatabase();
+        if (database == null) {
+            System.err.println("❌ Sales Rollups: Shared MongoDB connection is not available.");
+            return;
+        }
+        salesOrderCollection = database.getCollection("sales_orders");
+        rollupCollection = database.getCollection(ROLLUPS);
+        orderBucketCollection = database.getCollection(ORDER_BUCKETS);
+        indexManager.ensureIndexes(INDEXES);
+    }
+
+    // =================== MAINTENANCE ===================
+
+    @Override
+    public void refreshOrder(String orderId) {
+        if (orderId == null || !ObjectId.isValid(orderId)) return;
+        try {
+            Document current = salesOrderCollection
+                    .aggregate(orderBucketsPipeline(Filters.eq("_id", new ObjectId(orderId)))).first();
+            Document before;
+            if (current == null) {
+                before = orderBucketCollection.findOneAndDelete(Filters.eq("_id", orderId));
+            } else {
+                current.append("builtAt", new Date());
+                before = orderBucketCollection.findOneAndReplace(Filters.eq("_id", orderId), current,
+                        new FindOneAndReplaceOptions().upsert(true).returnDocument(ReturnDocument.BEFORE));
+            }
+            applyDifference(bucketsOf(before), bucketsOf(current));
+        } catch (RuntimeException e) {
+            // The order itself is saved; rebuild() puts the rollups right
+            System.err.println("❌ Sales Rollups: order " + orderId + " not rolled up: " + e.getMessage());
+        }
+    }
+
+    // One $inc per bucket whose sums changed; buckets left without lines are removed in the same bulk write
+    private void applyDifference(List<Document> before, List<Document> after) {
+        Map<Document, Delta> deltas = new LinkedHashMap<>();
+        for (Document bucket : before) deltas.computeIfAbsent(bucket.get("_id", Document.class), k -> new Delta()).add(bucket, -1);
+        for (Document bucket : after) deltas.computeIfAbsent(bucket.get("_id", Document.class), k -> new Delta()).add(bucket, 1);
+
+        List<WriteModel<Document>> writes = new ArrayList<>();
+        List<Document> touched = new ArrayList<>();
+        Date now = new Date();
+        for (Map.Entry<Document, Delta> entry : deltas.entrySet()) {
+            Delta delta = entry.getValue();
+            if (delta.isZero()) continue;
+
+            Document key = entry.getKey();
+            touched.add(key);
+            writes.add(new UpdateOneModel<>(Filters.eq("_id", key),
+                    Updates.combine(
+                            Updates.inc("quantity", delta.quantity),
+                            Updates.inc("revenue", new Decimal128(delta.revenue)),
+                            Updates.inc("lines", delta.lines),
+                            Updates.set("builtAt", now),
+                            Updates.setOnInsert("day", key.get("day")),
+                            Updates.setOnInsert("customerId", key.get("customerId")),
+                            Updates.setOnInsert("productId", key.get("productId")),
+                            Updates.setOnInsert("taxId", key.get("taxId"))),
+                    new UpdateOptions().upsert(true)));
+        }
+        if (writes.isEmpty()) return;
+
+        writes.add(new DeleteManyModel<>(Filters.and(Filters.in("_id", touched), Filters.lte("lines", 0))));
+        rollupCollection.bulkWrite(writes, new BulkWriteOptions().ordered(true));
+    }
+
+    // What one bucket gains (or, negative, loses) from the re-rolled order
+    private static final class Delta {
+        private long quantity;
+        private BigDecimal revenue = BigDecimal.ZERO;
+        private long lines;
+
+        void add(Document bucket, int sign) {
+            quantity += sign * longOf(bucket.get("quantity"));
+            revenue = revenue.add(decimalOf(bucket.get("revenue")).multiply(BigDecimal.valueOf(sign)));
+            lines += sign * longOf(bucket.get("lines"));
+        }
+
+        boolean isZero() {
+            return quantity == 0 && revenue.signum() == 0 && lines == 0;
+        }
+    }
+
+    private static List<Document> bucketsOf(Document orderBuckets) {
+        if (orderBuckets == null) return Collections.emptyList();
+        List<Document> buckets = orderBuckets.getList("buckets", Document.class);
+        return buckets != null ? buckets : Collections.emptyList();
+    }
+
+    @Override
+    public long rebuild() {
+        Date stamp = new Date();
+
+        // 1. Every order's buckets, from the orders and their lines; entries of orders gone since are dropped
+        List<Bson> perOrder = new ArrayList<>(orderBucketsPipeline(new Document()));
+        perOrder.add(Aggregates.set(new Field<>("builtAt", stamp)));
+        perOrder.add(Aggregates.merge(ORDER_BUCKETS, replaceOrInsert()));
+        salesOrderCollection.aggregate(perOrder).allowDiskUse(true).toCollection();
+        orderBucketCollection.deleteMany(Filters.lt("builtAt", stamp));
+
+        // 2. The rollups as the sum of those, so both agree; buckets nothing feeds any more are dropped
+        List<Bson> rollups = List.of(
+                Aggregates.unwind("$buckets"),
+                Aggregates.group("$buckets._id",
+                        Accumulators.sum("quantity", "$buckets.quantity"),
+                        Accumulators.sum("revenue", "$buckets.revenue"),
+                        Accumulators.sum("lines", "$buckets.lines")),
+                Aggregates.set(
+                        new Field<>("day", "$_id.day"),
+                        new Field<>("customerId", "$_id.customerId"),
+                        new Field<>("productId", "$_id.productId"),
+                        new Field<>("taxId", "$_id.taxId"),
+                        new Field<>("builtAt", stamp)),
+                Aggregates.merge(ROLLUPS, replaceOrInsert()));
+        orderBucketCollection.aggregate(rollups).allowDiskUse(true).toCollection();
+        rollupCollection.deleteMany(Filters.lt("builtAt", stamp));
+
+        return rollupCollection.countDocuments();
+    }
+
+    private static MergeOptions replaceOrInsert() {
+        return new MergeOptions()
+                .whenMatched(MergeOptions.WhenMatched.REPLACE)
+                .whenNotMatched(MergeOptions.WhenNotMatched.INSERT);
+    }
+
+    // { _id: order id, buckets: [{ _id: { day, customerId, productId, taxId }, quantity, revenue, lines }] }
+    // for each order the filter matches that is not cancelled, has a date and has lines
+    static List<Bson> orderBucketsPipeline(Bson orderFilter) {
+        // Unmigrated prices are still strings; $toDecimal reads both and keeps the sum exact
+        Document lineTotal = new Document("$multiply",
+                List.of(new Document("$toDecimal", "$items.unitPrice"), "$items.quantity"));
+        // Unmigrated dates are yyyy-MM-dd strings; read them as the start of that day in the system zone,
+        // the instant the codec writes and range() asks for, not as UTC midnight
+        Document day = new Document("$cond", List.of(
+                new Document("$eq", List.of(new Document("$type", "$orderDate"), "string")),
+                new Document("$dateFromString", new Document("dateString", "$orderDate")
+                        .append("timezone", ZoneId.systemDefault().getId())),
+                "$orderDate"));
+
+        return List.of(
+                Aggregates.match(Filters.and(orderFilter,
+                        Filters.ne("orderStatus", "CANCELLED"),
+                        Filters.ne("orderDate", null))),
+                Aggregates.lookup("sales_order_items",
+                        List.of(new Variable<>("orderId", new Document("$toString", "$_id"))),
+                        List.of(
+                                Aggregates.match(Filters.expr(new Document("$eq", List.of("$salesOrderId", "$$orderId")))),
+                                Aggregates.project(Projections.include("productId", "unitPrice", "quantity"))),
+                        "items"),
+                Aggregates.unwind("$items"),
+                Aggregates.group(new Document("orderId", new Document("$toString", "$_id"))
+                                .append("day", day)
+                                .append("customerId", "$customerId")
+                                .append("productId", "$items.productId")
+                                .append("taxId", "$taxId"),
+                        Accumulators.sum("quantity", new Document("$toLong", new Document("$ifNull", List.of("$items.quantity", 0)))),
+                        Accumulators.sum("revenue", lineTotal),
+                        Accumulators.sum("lines", 1L)),
+                Aggregates.group("$_id.orderId", Accumulators.push("buckets",
+                        new Document("_id", new Document("day", "$_id.day")
+                                .append("customerId", "$_id.customerId")
+                                .append("productId", "$_id.productId")
+                                .append("taxId", "$_id.taxId"))
+                                .append("quantity", "$quantity")
+                                .append("revenue", "$revenue")
+                                .append("lines", "$lines"))));
+    }
+
+    // =================== QUERIES ===================
+
+    @Override
+    public RollupTotal getTotal(LocalDate from, LocalDate to) {
+        return sum(range(from, to), null);
+    }
+
+    @Override
+    public RollupTotal getTotal(RollupDimension dimension, String key, LocalDate from, LocalDate to) {
+        return sum(Filters.and(Filters.eq(dimension.getField(), key), range(from, to)), key);
+    }
+
+    @Override
+    public List<RollupTotal> getTotalsBy(RollupDimension dimension, LocalDate from, LocalDate to) {
+        return totalsBy(dimension, from, to, 0);
+    }
+
+    @Override
+    public List<RollupTotal> getTopBy(RollupDimension dimension, LocalDate from, LocalDate to, int limit) {
+        if (limit <= 0) return new ArrayList<>();
+        return totalsBy(dimension, from, to, limit);
+    }
+
+    private RollupTotal sum(Bson filter, String key) {
+        Document total = rollupCollection.aggregate(List.of(
+                Aggregates.match(filter),
+                Aggregates.group(null, sums()))).first();
+        return total != null ? toTotal(key, total) : RollupTotal.empty(key);
+    }
+
+    private List<RollupTotal> totalsBy(RollupDimension dimension, LocalDate from, LocalDate to, int limit) {
+        List<Bson> pipeline = new ArrayList<>();
+        pipeline.add(Aggregates.match(range(from, to)));
+        pipeline.add(Aggregates.group("$" + dimension.getField(), sums()));
+        pipeline.add(Aggregates.sort(dimension == RollupDimension.DAY
+                ? Sorts.ascending("_id")
+                : Sorts.orderBy(Sorts.descending("revenue"), Sorts.ascending("_id"))));
+        if (limit > 0) pipeline.add(Aggregates.limit(limit));
+
+        List<RollupTotal> totals = new ArrayList<>();
+        for (Document doc : rollupCollection.aggregate(pipeline)) {
+            totals.add(toTotal(keyOf(doc.get("_id")), doc));
+        }
+        return totals;
+    }
+
+    private static List<BsonField> sums() {
+        return List.of(
+                Accumulators.sum("quantity", "$quantity"),
+                Accumulators.sum("revenue", "$revenue"),
+                Accumulators.sum("lines", "$lines"));
+    }
+
+    // Days are stored as the start of the order date in the system zone, as the order codec writes it; null = open
+    static Bson range(LocalDate from, LocalDate to) {
+        List<Bson> bounds = new ArrayList<>();
+        if (from != null) bounds.add(Filters.gte("day", startOf(from)));
+        if (to != null) bounds.add(Filters.lt("day", startOf(to.plusDays(1))));
+        return bounds.isEmpty() ? new Document() : Filters.and(bounds);
+    }
+
+    private static Date startOf(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static String keyOf(Object id) {
+        if (id instanceof Date) return ((Date) id).toInstant().atZone(ZoneId.systemDefault()).toLocalDate().toString();
+        return id != null ? id.toString() : null;
+    }
+
+    private static RollupTotal toTotal(String key, Document doc) {
+        return new RollupTotal(key, longOf(doc.get("quantity")), decimalOf(doc.get("revenue")), longOf(doc.get("lines")));
+    }
+
+    private static long longOf(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    private static BigDecimal decimalOf(Object value) {
+        if (value instanceof Decimal128) return ((Decimal128) value).bigDecimalValue();
+        if (value instanceof Integer || value instanceof Long) return BigDecimal.valueOf(((Number) value).longValue());
+        if (value instanceof Number) return BigDecimal.valueOf(((Number) value).doubleValue());
+        return BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,205 @@
+package com.inventory.salesorder;
+
+import com.inventory.api.customer.model.Customer;
+import com.inventory.api.customer.service.AsyncCustomerService;
+import com.inventory.api.product.service.AsyncProductService;
+import com.inventory.api.salesorder.model.SalesOrder;
+import com.inventory.api.salesorder.model.SalesOrderItem;
+import com.mongodb.MongoTimeoutException;
+import com.mongodb.reactivestreams.client.FindPublisher;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AsyncSalesOrderServiceImplTest {
+
+    @Mock
+    private MongoCollection<SalesOrder> salesOrderCollection;
+    @Mock
+    private MongoCollection<SalesOrderItem> salesOrderItemCollection;
+    @Mock
+    private FindPublisher<SalesOrder> orderFind;
+    @Mock
+    private FindPublisher<SalesOrderItem> itemFind;
+
+    @Mock
+    private AsyncCustomerService customerService;
+    @Mock
+    private AsyncProductService productService;
+
+    private AsyncSalesOrderServiceImpl service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        service = new AsyncSalesOrderServiceImpl();
+        setField(service, "salesOrderCollection", salesOrderCollection);
+        setField(service, "salesOrderItemCollection", salesOrderItemCollection);
+        setField(service, "customerService", customerService);
+        setField(service, "productService", productService);
+    }
+
+    private void setField(Object target, String fieldName, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    // Emits the items on request, like a driver publisher that already has its batch
+    @SafeVarargs
+    private static <T> Publisher<T> publisherOf(T... items) {
+        return subscriber -> subscriber.onSubscribe(new Subscription() {
+            private int next;
+            private boolean done;
+
+            @Override
+            public void request(long n) {
+                while (n-- > 0 && !done && next < items.length) subscriber.onNext(items[next++]);
+                if (!done && next == items.length) {
+                    done = true;
+                    subscriber.onComplete();
+                }
+            }
+
+            @Override
+            public void cancel() {
+                done = true;
+            }
+        });
+    }
+
+    // Makes a mocked FindPublisher itself emit the items when subscribed to
+    @SafeVarargs
+    private static <T> void emit(FindPublisher<T> find, T... items) {
+        doAnswer(invocation -> {
+            publisherOf(items).subscribe(invocation.getArgument(0));
+            return null;
+        }).when(find).subscribe(any());
+    }
+
+    // =================== SALES ORDERS ===================
+
+    @Test
+    void testGetSalesOrderById_Found_ShouldCompleteWithTheOrder() {
+        String id = new ObjectId().toHexString();
+        SalesOrder order = new SalesOrder();
+        order.setId(id);
+        when(salesOrderCollection.find(any(Bson.class))).thenReturn(orderFind);
+        when(orderFind.first()).thenReturn(publisherOf(order));
+
+        Optional<SalesOrder> result = service.getSalesOrderById(id).join();
+
+        assertTrue(result.isPresent());
+        assertEquals(id, result.get().getId());
+    }
+
+    @Test
+    void testGetSalesOrderById_InvalidId_ShouldCompleteEmptyWithoutQuery() {
+        Optional<SalesOrder> result = service.getSalesOrderById("not-an-id").join();
+
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(salesOrderCollection);
+    }
+
+    @Test
+    void testGetSalesOrderByNumber_ServerError_ShouldCompleteExceptionally() {
+        when(salesOrderCollection.find(any(Bson.class))).thenReturn(orderFind);
+        when(orderFind.first()).thenReturn(subscriber -> subscriber.onSubscribe(new Subscription() {
+            @Override
+            public void request(long n) {
+                subscriber.onError(new MongoTimeoutException("no server"));
+            }
+
+            @Override
+            public void cancel() {
+            }
+        }));
+
+        CompletableFuture<Optional<SalesOrder>> result = service.getSalesOrderByNumber("SO-1");
+
+        CompletionException e = assertThrows(CompletionException.class, result::join);
+        assertInstanceOf(MongoTimeoutException.class, e.getCause());
+    }
+
+    // =================== SALES ORDER ITEMS ===================
+
+    @Test
+    void testGetItemsByOrderIds_ShouldGroupTheLinesOfOneQueryByOrder() {
+        SalesOrderItem a1 = new SalesOrderItem();
+        a1.setSalesOrderId("A");
+        SalesOrderItem b1 = new SalesOrderItem();
+        b1.setSalesOrderId("B");
+        SalesOrderItem a2 = new SalesOrderItem();
+        a2.setSalesOrderId("A");
+        when(salesOrderItemCollection.find(any(Bson.class))).thenReturn(itemFind);
+        emit(itemFind, a1, b1, a2);
+
+        Map<String, List<SalesOrderItem>> result = service.getItemsByOrderIds(List.of("A", "B")).join();
+
+        assertEquals(List.of(a1, a2), result.get("A"));
+        assertEquals(List.of(b1), result.get("B"));
+        verify(salesOrderItemCollection, times(1)).find(any(Bson.class));
+    }
+
+    @Test
+    void testGetItemsByOrderIds_Empty_ShouldNotQuery() {
+        assertTrue(service.getItemsByOrderIds(List.of()).join().isEmpty());
+        verifyNoInteractions(salesOrderItemCollection);
+    }
+
+    // =================== HELPER METHODS ===================
+
+    @Test
+    void testGetCustomerNameById_ShouldMapTheAsyncCustomerLookup() {
+        Customer customer = new Customer();
+        customer.setName("Acme");
+        when(customerService.getCustomerById("C1")).thenReturn(CompletableFuture.completedFuture(Optional.of(customer)));
+        when(customerService.getCustomerById("C2")).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+
+        assertEquals("Acme", service.getCustomerNameById("C1").join());
+        assertEquals("Unknown", service.getCustomerNameById("C2").join());
+        assertEquals("Unknown", service.getCustomerNameById(null).join());
+    }
+
+    @Test
+    void testGetProductNamesByIds_ShouldDelegateToTheAsyncProductService() {
+        when(productService.getProductNamesByIds(Set.of("P1")))
+                .thenReturn(CompletableFuture.completedFuture(Map.of("P1", "Widget")));
+
+        assertEquals(Map.of("P1", "Widget"), service.getProductNamesByIds(Set.of("P1")).join());
+        assertTrue(service.getProductNamesByIds(Set.of()).join().isEmpty());
+        verify(productService, times(1)).getProductNamesByIds(any());
+    }
+
+    @Test
+    void testLookups_WithoutConnection_ShouldCompleteEmpty() throws Exception {
+        setField(service, "salesOrderCollection", null);
+        setField(service, "salesOrderItemCollection", null);
+        String id = new ObjectId().toHexString();
+
+        assertTrue(service.getAllSalesOrders().join().isEmpty());
+        assertTrue(service.getSalesOrderById(id).join().isEmpty());
+        assertTrue(service.getSalesOrderByNumber("SO-1").join().isEmpty());
+        assertTrue(service.getItemsByOrderId(id).join().isEmpty());
+        assertTrue(service.getItemsByOrderIds(List.of(id)).join().isEmpty());
+    }
+}
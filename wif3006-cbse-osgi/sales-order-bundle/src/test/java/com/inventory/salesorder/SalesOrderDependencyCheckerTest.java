@@ -0,0 +1,62 @@
+package com.inventory.salesorder;
+
+import com.inventory.api.customer.service.DependencyCheckResult;
+import com.inventory.api.salesorder.service.SalesOrderService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SalesOrderDependencyCheckerTest {
+
+    @Mock
+    private SalesOrderService salesOrderService;
+
+    @InjectMocks
+    private SalesOrderDependencyChecker checker;
+
+    @Test
+    void testCheck_ShouldReturnCountAndMessageTogether() {
+        when(salesOrderService.countSalesOrdersByCustomerId("cust1")).thenReturn(3L);
+
+        DependencyCheckResult result = checker.check("cust1");
+
+        assertTrue(result.hasDependency());
+        assertEquals(3, result.getCount());
+        assertEquals("Customer has 3 existing Sales Order(s).", result.getMessage());
+        verify(salesOrderService, never()).getAllSalesOrders();
+    }
+
+    @Test
+    void testCheck_WhenNoOrders_ShouldReturnNone() {
+        when(salesOrderService.countSalesOrdersByCustomerId("cust1")).thenReturn(0L);
+
+        assertFalse(checker.check("cust1").hasDependency());
+    }
+
+    @Test
+    void testCheck_ConcurrentCallsShouldNotShareResults() {
+        when(salesOrderService.countSalesOrdersByCustomerId("a")).thenReturn(1L);
+        when(salesOrderService.countSalesOrdersByCustomerId("b")).thenReturn(5L);
+
+        DependencyCheckResult first = checker.check("a");
+        DependencyCheckResult second = checker.check("b");
+
+        // The first caller still sees its own count after another check ran
+        assertEquals(1, first.getCount());
+        assertEquals(5, second.getCount());
+    }
+
+    @Test
+    void testHasDependency_ShouldUseExistsQuery() {
+        when(salesOrderService.hasSalesOrdersForCustomer("cust1")).thenReturn(true);
+
+        assertTrue(checker.hasDependency("cust1"));
+        verify(salesOrderService, never()).countSalesOrdersByCustomerId("cust1");
+    }
+}
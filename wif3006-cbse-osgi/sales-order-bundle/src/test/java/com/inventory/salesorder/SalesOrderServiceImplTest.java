@@ -1,18 +1,35 @@
 package com.inventory.salesorder;
 
+import com.inventory.api.analytics.SalesRollupService;
+import com.inventory.api.codec.InventoryCodecs;
+import com.inventory.api.common.Page;
+import com.inventory.api.common.Sort;
 import com.inventory.api.salesorder.model.*;
 import com.inventory.api.customer.service.CustomerService;
 import com.inventory.api.customer.model.Customer;
 import com.inventory.api.product.service.ProductService;
 import com.inventory.api.product.model.Product;
+import com.inventory.api.stock.StockLedgerService;
+import com.inventory.api.stock.StockMovementType;
 import com.mongodb.client.*;
+import com.mongodb.client.model.CountOptions;
+import com.mongodb.client.model.FindOneAndDeleteOptions;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
 import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
 import org.bson.Document;
+import org.bson.codecs.CollectibleCodec;
+import org.bson.codecs.DecoderContext;
 import org.bson.conversions.Bson;
+import org.bson.types.Decimal128;
 import org.bson.types.ObjectId;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -21,38 +38,84 @@ import java.lang.reflect.Field;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 public class SalesOrderServiceImplTest {
 
     @Mock
-    private MongoCollection<Document> salesOrderCollection;
+    private MongoCollection<SalesOrder> salesOrderCollection;
     @Mock
-    private MongoCollection<Document> salesOrderItemCollection;
+    private MongoCollection<SalesOrderSummary> salesOrderSummaryCollection;
     @Mock
-    private MongoCollection<Document> deliveryOrderCollection;
+    private MongoCollection<SalesOrderItem> salesOrderItemCollection;
     @Mock
-    private MongoCollection<Document> salesReturnCollection;
+    private MongoCollection<DeliveryOrder> deliveryOrderCollection;
     @Mock
-    private MongoCollection<Document> taxCollection;
+    private MongoCollection<SalesReturn> salesReturnCollection;
+    @Mock
+    private MongoCollection<Tax> taxCollection;
 
     @Mock
     private CustomerService customerService;
     @Mock
     private ProductService productService;
+    @Mock
+    private StockLedgerService stockLedgerService;
+    @Mock
+    private SalesRollupService salesRollupService;
 
     @Mock
     private FindIterable<Document> findIterable;
     @Mock
     private MongoCursor<Document> cursor;
     @Mock
+    private FindIterable<SalesOrder> orderIterable;
+    @Mock
+    private MongoCursor<SalesOrder> orderCursor;
+    @Mock
+    private FindIterable<SalesOrderSummary> summaryIterable;
+    @Mock
+    private FindIterable<SalesOrderItem> itemIterable;
+    @Mock
+    private MongoCursor<SalesOrderItem> itemCursor;
+    @Mock
+    private FindIterable<DeliveryOrder> deliveryIterable;
+    @Mock
+    private MongoCursor<DeliveryOrder> deliveryCursor;
+    @Mock
+    private FindIterable<SalesReturn> returnIterable;
+    @Mock
+    private MongoCursor<SalesReturn> returnCursor;
+    @Mock
+    private FindIterable<Tax> taxIterable;
+    @Mock
+    private MongoCursor<Tax> taxCursor;
+    @Mock
+    private AggregateIterable<Document> totalsAggregate;
+    @Mock
+    private AggregateIterable<SalesOrderDetail> orderDetailAggregate;
+    @Mock
+    private AggregateIterable<DeliveryOrderDetail> deliveryDetailAggregate;
+    @Mock
     private DeleteResult deleteResult;
+    @Mock
+    private UpdateResult updateResult;
+
+    @Captor
+    private ArgumentCaptor<List<Bson>> pipeline;
 
     @InjectMocks
     private SalesOrderServiceImpl salesOrderService;
@@ -60,12 +123,19 @@ public class SalesOrderServiceImplTest {
     @BeforeEach
     void setUp() throws Exception {
         setField(salesOrderService, "salesOrderCollection", salesOrderCollection);
+        setField(salesOrderService, "salesOrderSummaryCollection", salesOrderSummaryCollection);
         setField(salesOrderService, "salesOrderItemCollection", salesOrderItemCollection);
         setField(salesOrderService, "deliveryOrderCollection", deliveryOrderCollection);
         setField(salesOrderService, "salesReturnCollection", salesReturnCollection);
         setField(salesOrderService, "taxCollection", taxCollection);
         setField(salesOrderService, "customerService", customerService);
         setField(salesOrderService, "productService", productService);
+        setField(salesOrderService, "stockLedgerService", stockLedgerService);
+        setField(salesOrderService, "salesRollupService", salesRollupService);
+
+        // Order updates match by default; line writes register through one
+        lenient().when(salesOrderCollection.updateOne(any(Bson.class), any(Bson.class))).thenReturn(updateResult);
+        lenient().when(updateResult.getMatchedCount()).thenReturn(1L);
     }
 
     private void setField(Object target, String fieldName, Object value) throws Exception {
@@ -74,6 +144,40 @@ public class SalesOrderServiceImplTest {
         field.set(target, value);
     }
 
+    // Runs a stored document through the model codec, as the typed collections do
+    private <T> T decode(Document doc, Class<T> type) {
+        BsonDocument bson = doc.toBsonDocument(Document.class, InventoryCodecs.REGISTRY);
+        return InventoryCodecs.REGISTRY.get(type).decode(new BsonDocumentReader(bson), DecoderContext.builder().build());
+    }
+
+    private <T> void mockInsertGeneratesId(MongoCollection<T> collection, Class<T> type) {
+        CollectibleCodec<T> codec = (CollectibleCodec<T>) InventoryCodecs.REGISTRY.get(type);
+        doAnswer(invocation -> {
+            codec.generateIdIfAbsentFromDocument(invocation.getArgument(0));
+            return null;
+        }).when(collection).insertOne(any(type));
+    }
+
+    // The taxes collection as loaded by the reference-data cache
+    private void mockTaxes(Document... docs) {
+        Iterator<Document> taxes = List.of(docs).iterator();
+        when(taxCollection.find()).thenReturn(taxIterable);
+        when(taxIterable.iterator()).thenReturn(taxCursor);
+        when(taxCursor.hasNext()).thenAnswer(invocation -> taxes.hasNext());
+        when(taxCursor.next()).thenAnswer(invocation -> decode(taxes.next(), Tax.class));
+    }
+
+    // An order update whose update document names the field
+    private static Bson touching(String field) {
+        return argThat(update -> update.toBsonDocument().toJson().contains("\"" + field + "\""));
+    }
+
+    // Stubs the totals aggregation of recalculateOrderTotals
+    private void mockOrderTotals(Document totals) {
+        when(salesOrderCollection.aggregate(anyList(), eq(Document.class))).thenReturn(totalsAggregate);
+        when(totalsAggregate.first()).thenReturn(totals);
+    }
+
     // --- 1. SALES ORDER MODULE TESTS ---
 
     @Test
@@ -82,16 +186,12 @@ public class SalesOrderServiceImplTest {
         order.setOrderDate(LocalDate.now());
         order.setCustomerId("cust123");
         
-        // Mock insertOne to set the _id
-        doAnswer(invocation -> {
-            Document doc = invocation.getArgument(0);
-            doc.put("_id", new ObjectId());
-            return null;
-        }).when(salesOrderCollection).insertOne(any(Document.class));
+        // insertOne lets the codec generate the _id on the model
+        mockInsertGeneratesId(salesOrderCollection, SalesOrder.class);
         
         salesOrderService.createSalesOrder(order);
         
-        verify(salesOrderCollection, times(1)).insertOne(any(Document.class));
+        verify(salesOrderCollection, times(1)).insertOne(any(SalesOrder.class));
         assertNotNull(order.getOrderNumber());
         assertNotNull(order.getId());
     }
@@ -105,8 +205,8 @@ public class SalesOrderServiceImplTest {
                 .append("customerId", "cust123")
                 .append("orderStatus", "PENDING");
         
-        when(salesOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(doc);
+        when(salesOrderCollection.find(any(Bson.class))).thenReturn(orderIterable);
+        when(orderIterable.first()).thenReturn(decode(doc, SalesOrder.class));
 
         Optional<SalesOrder> result = salesOrderService.getSalesOrderById(id.toHexString());
         
@@ -120,16 +220,92 @@ public class SalesOrderServiceImplTest {
                 .append("orderNumber", "SO-20250121-001")
                 .append("orderDate", LocalDate.now().toString());
         
-        when(salesOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(doc);
+        when(salesOrderCollection.find(any(Bson.class))).thenReturn(orderIterable);
+        when(orderIterable.first()).thenReturn(decode(doc, SalesOrder.class));
 
         Optional<SalesOrder> result = salesOrderService.getSalesOrderByNumber("SO-20250121-001");
         
         assertTrue(result.isPresent());
     }
 
+    // A sales order as the detail pipeline returns it: the order fields plus the joined arrays
+    private Document detailDocument(ObjectId id) {
+        return new Document("_id", id)
+                .append("orderNumber", "SO-001")
+                .append("customerId", "cust123")
+                .append("taxId", "tax-sst")
+                .append("orderStatus", "CONFIRMED")
+                .append("lines", List.of(new Document("_id", new ObjectId())
+                        .append("salesOrderId", id.toHexString())
+                        .append("productId", "P001")
+                        .append("unitPrice", new Decimal128(new BigDecimal("12.50")))
+                        .append("quantity", 4)
+                        .append("productName", "Widget")))
+                .append("customerKey", "cust123")
+                .append("customer", List.of(new Document("_id", new ObjectId()).append("name", "Acme Sdn Bhd").append("email", "a@acme.test")))
+                .append("taxKey", "tax-sst")
+                .append("tax", List.of(new Document("_id", "tax-sst").append("taxName", "SST").append("taxRate", 6)));
+    }
+
     @Test
-    void testUpdateSalesOrder_ShouldTriggerReplaceOne() {
+    void testGetSalesOrderDetail_ShouldJoinEverythingInOneAggregation() {
+        ObjectId id = new ObjectId();
+        when(salesOrderCollection.aggregate(pipeline.capture(), eq(SalesOrderDetail.class))).thenReturn(orderDetailAggregate);
+        when(orderDetailAggregate.first()).thenReturn(decode(detailDocument(id), SalesOrderDetail.class));
+
+        SalesOrderDetail detail = salesOrderService.getSalesOrderDetail(id.toHexString()).orElseThrow();
+
+        List<Bson> stages = pipeline.getValue();
+        assertEquals(id, stages.get(0).toBsonDocument().getDocument("$match").getObjectId("_id").getValue());
+        List<String> joined = new ArrayList<>();
+        for (Bson stage : stages) {
+            BsonDocument rendered = stage.toBsonDocument();
+            if (rendered.containsKey("$lookup")) joined.add(rendered.getDocument("$lookup").getString("from").getValue());
+        }
+        assertEquals(List.of("sales_order_items", "customers", "taxes"), joined);
+        // Product names are joined inside the items lookup
+        assertTrue(stages.get(1).toBsonDocument().toJson().contains("\"from\": \"products\""));
+
+        assertEquals(id.toHexString(), detail.getOrder().getId());
+        assertEquals("SO-001", detail.getOrder().getOrderNumber());
+        assertEquals("Acme Sdn Bhd", detail.getCustomerName());
+        assertEquals(0, detail.getTaxRate().compareTo(new BigDecimal("6")));
+        assertEquals(1, detail.getLines().size());
+        assertEquals("Widget", detail.getLines().get(0).getProductName());
+        assertEquals(4, detail.getLines().get(0).getItem().getQuantity());
+        verifyNoInteractions(salesOrderItemCollection, customerService, productService);
+    }
+
+    @Test
+    void testGetSalesOrderDetail_WithInvalidId_ShouldBeEmpty() {
+        assertTrue(salesOrderService.getSalesOrderDetail("not-an-id").isEmpty());
+        verifyNoInteractions(salesOrderCollection);
+    }
+
+    @Test
+    void testGetDeliveryOrderDetail_ShouldWalkToTheSalesOrderInOneAggregation() {
+        ObjectId deliveryId = new ObjectId();
+        ObjectId orderId = new ObjectId();
+        when(deliveryOrderCollection.aggregate(pipeline.capture(), eq(DeliveryOrderDetail.class))).thenReturn(deliveryDetailAggregate);
+        when(deliveryDetailAggregate.first()).thenReturn(decode(new Document("_id", deliveryId)
+                .append("deliveryNumber", "DO-001")
+                .append("salesOrderId", orderId.toHexString())
+                .append("status", "PENDING")
+                .append("salesOrder", List.of(detailDocument(orderId))), DeliveryOrderDetail.class));
+
+        DeliveryOrderDetail detail = salesOrderService.getDeliveryOrderDetail(deliveryId.toHexString()).orElseThrow();
+
+        BsonDocument lookup = pipeline.getValue().get(1).toBsonDocument().getDocument("$lookup");
+        assertEquals("sales_orders", lookup.getString("from").getValue());
+        assertTrue(lookup.getArray("pipeline").size() > 1);
+        assertEquals("DO-001", detail.getDeliveryOrder().getDeliveryNumber());
+        assertEquals(orderId.toHexString(), detail.getSalesOrder().getOrder().getId());
+        assertEquals("Widget", detail.getSalesOrder().getLines().get(0).getProductName());
+        verifyNoInteractions(salesOrderCollection, salesOrderItemCollection);
+    }
+
+    @Test
+    void testUpdateSalesOrder_ShouldSetTheModelFieldsInPlace() {
         ObjectId orderId = new ObjectId();
 
         SalesOrder order = new SalesOrder();
@@ -141,7 +317,15 @@ public class SalesOrderServiceImplTest {
         salesOrderService.updateSalesOrder(order);
         
         assertNotNull(order.getEditedAt());
-        verify(salesOrderCollection, times(1)).replaceOne(any(Bson.class), any(Document.class));
+        // A replace would drop the line-write bookkeeping kept beside the model fields
+        ArgumentCaptor<Bson> update = ArgumentCaptor.forClass(Bson.class);
+        verify(salesOrderCollection, times(1)).updateOne(any(Bson.class), update.capture());
+        verify(salesOrderCollection, never()).replaceOne(any(Bson.class), any(SalesOrder.class));
+        BsonDocument set = update.getValue().toBsonDocument().getDocument("$set");
+        assertEquals("SO-20250121-001", set.getString("orderNumber").getValue());
+        assertTrue(set.isNull("taxId"));
+        assertFalse(set.containsKey("_id"));
+        assertFalse(set.containsKey(SalesOrderServiceImpl.LINE_WRITES));
     }
 
     @Test
@@ -170,16 +354,32 @@ public class SalesOrderServiceImplTest {
         verify(salesOrderItemCollection, times(1)).deleteMany(any(Bson.class));
     }
 
+    @Test
+    void testDeleteSalesOrder_WhenHoldingReservation_ShouldBlock() {
+        String orderId = new ObjectId().toHexString();
+
+        when(deliveryOrderCollection.countDocuments(any(Bson.class))).thenReturn(0L);
+        when(salesOrderCollection.deleteOne(any(Bson.class))).thenReturn(deleteResult);
+        when(deleteResult.getDeletedCount()).thenReturn(0L);
+        when(salesOrderCollection.countDocuments(any(Bson.class))).thenReturn(1L);
+
+        String result = salesOrderService.deleteSalesOrder(orderId);
+
+        assertTrue(result.contains("reservation"), result);
+        verify(salesOrderItemCollection, never()).deleteMany(any(Bson.class));
+        verifyNoInteractions(salesRollupService);
+    }
+
     @Test
     void testGetAllSalesOrders_ShouldReturnList() {
-        when(salesOrderCollection.find()).thenReturn(findIterable);
-        when(findIterable.iterator()).thenReturn(cursor);
-        when(cursor.hasNext()).thenReturn(true, false);
-        when(cursor.next()).thenReturn(
-            new Document("_id", new ObjectId())
+        when(salesOrderCollection.find()).thenReturn(orderIterable);
+        when(orderIterable.iterator()).thenReturn(orderCursor);
+        when(orderCursor.hasNext()).thenReturn(true, false);
+        when(orderCursor.next()).thenReturn(
+            decode(new Document("_id", new ObjectId())
                 .append("orderNumber", "SO-001")
                 .append("orderDate", LocalDate.now().toString())
-                .append("orderStatus", "PENDING")
+                .append("orderStatus", "PENDING"), SalesOrder.class)
         );
 
         List<SalesOrder> list = salesOrderService.getAllSalesOrders();
@@ -187,6 +387,132 @@ public class SalesOrderServiceImplTest {
         assertEquals(1, list.size());
     }
 
+    @Test
+    void testCountSalesOrdersByCustomerId_ShouldUseCountQuery() {
+        when(salesOrderCollection.countDocuments(any(Bson.class))).thenReturn(3L);
+
+        assertEquals(3, salesOrderService.countSalesOrdersByCustomerId("cust1"));
+        verify(salesOrderCollection, never()).find();
+    }
+
+    @Test
+    void testHasSalesOrdersForCustomer_ShouldStopAtFirstMatch() {
+        ArgumentCaptor<CountOptions> options = ArgumentCaptor.forClass(CountOptions.class);
+        when(salesOrderCollection.countDocuments(any(Bson.class), options.capture())).thenReturn(1L);
+
+        assertTrue(salesOrderService.hasSalesOrdersForCustomer("cust1"));
+        assertEquals(1, options.getValue().getLimit());
+    }
+
+    // Stubs find(filter).sort().limit().into() with the given rows
+    private ArgumentCaptor<Bson> mockPageQuery(List<SalesOrder> rows) {
+        ArgumentCaptor<Bson> filter = ArgumentCaptor.forClass(Bson.class);
+        when(salesOrderCollection.find(filter.capture())).thenReturn(orderIterable);
+        when(orderIterable.sort(any(Bson.class))).thenReturn(orderIterable);
+        when(orderIterable.limit(anyInt())).thenReturn(orderIterable);
+        when(orderIterable.into(any())).thenAnswer(invocation -> {
+            List<SalesOrder> target = invocation.getArgument(0);
+            target.addAll(rows);
+            return target;
+        });
+        return filter;
+    }
+
+    private SalesOrder order(ObjectId id, String number) {
+        return decode(new Document("_id", id).append("orderNumber", number).append("orderStatus", "PENDING"), SalesOrder.class);
+    }
+
+    @Test
+    void testListSalesOrders_ShouldFetchOneExtraRowToDetectNextPage() {
+        ObjectId first = new ObjectId();
+        ObjectId second = new ObjectId();
+        mockPageQuery(List.of(order(first, "SO-001"), order(second, "SO-002"), order(new ObjectId(), "SO-003")));
+
+        Page<SalesOrder> page = salesOrderService.listSalesOrders(null, 2, Sort.ASC);
+
+        verify(orderIterable).limit(3);
+        assertEquals(2, page.getItems().size());
+        assertTrue(page.hasNext());
+        assertEquals(second.toHexString(), page.getNextCursor());
+    }
+
+    @Test
+    void testListSalesOrders_WithCursor_ShouldSeekPastItAndEndOnShortPage() {
+        ObjectId after = new ObjectId();
+        ArgumentCaptor<Bson> filter = mockPageQuery(List.of(order(new ObjectId(), "SO-004")));
+
+        Page<SalesOrder> page = salesOrderService.listSalesOrders(after.toHexString(), 2, Sort.DESC);
+
+        BsonDocument seek = filter.getValue().toBsonDocument();
+        assertEquals(after, seek.getDocument("_id").getObjectId("$lt").getValue());
+        assertEquals(1, page.getItems().size());
+        assertFalse(page.hasNext());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void testListSalesOrders_WithInvalidCursor_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> salesOrderService.listSalesOrders("not-an-id", 10, Sort.ASC));
+        verifyNoInteractions(salesOrderCollection);
+    }
+
+    @Test
+    void testListSalesOrderSummaries_ShouldProjectToListColumns() {
+        ObjectId first = new ObjectId();
+        ArgumentCaptor<Bson> projection = ArgumentCaptor.forClass(Bson.class);
+        when(salesOrderSummaryCollection.find(any(Bson.class))).thenReturn(summaryIterable);
+        when(summaryIterable.projection(projection.capture())).thenReturn(summaryIterable);
+        when(summaryIterable.sort(any(Bson.class))).thenReturn(summaryIterable);
+        when(summaryIterable.limit(anyInt())).thenReturn(summaryIterable);
+        when(summaryIterable.into(any())).thenAnswer(invocation -> {
+            List<SalesOrderSummary> target = invocation.getArgument(0);
+            target.add(decode(new Document("_id", first).append("orderNumber", "SO-001"), SalesOrderSummary.class));
+            target.add(decode(new Document("_id", new ObjectId()).append("orderNumber", "SO-002"), SalesOrderSummary.class));
+            return target;
+        });
+
+        Page<SalesOrderSummary> page = salesOrderService.listSalesOrderSummaries(null, 1, Sort.ASC);
+
+        BsonDocument fields = projection.getValue().toBsonDocument();
+        assertTrue(fields.containsKey("afterTaxAmount"));
+        assertFalse(fields.containsKey("description"));
+        assertFalse(fields.containsKey("createdAt"));
+        assertEquals(first.toHexString(), page.getNextCursor());
+        assertEquals("SO-001", page.getItems().get(0).getOrderNumber());
+        verifyNoInteractions(salesOrderCollection);
+    }
+
+    @Test
+    void testSalesOrderSummaryCodec_ShouldSkipFieldsOutsideTheSummary() {
+        ObjectId id = new ObjectId();
+        SalesOrderSummary summary = decode(new Document("_id", id)
+                .append("orderNumber", "SO-009")
+                .append("description", "Long free text")
+                .append("afterTaxAmount", new Decimal128(new BigDecimal("110.00")))
+                .append("createdAt", "2024-01-01 10:00:00"), SalesOrderSummary.class);
+
+        assertEquals(id.toHexString(), summary.getId());
+        assertEquals("SO-009", summary.getOrderNumber());
+        assertEquals(0, summary.getAfterTaxAmount().compareTo(new BigDecimal("110.00")));
+    }
+
+    @Test
+    void testStreamSalesOrders_ShouldPullLazilyAndCloseCursorWhenStoppedEarly() {
+        when(salesOrderCollection.find()).thenReturn(orderIterable);
+        when(orderIterable.batchSize(50)).thenReturn(orderIterable);
+        when(orderIterable.iterator()).thenReturn(orderCursor);
+        when(orderCursor.hasNext()).thenReturn(true);
+        when(orderCursor.next()).thenReturn(order(new ObjectId(), "SO-001"));
+
+        try (Stream<SalesOrder> orders = salesOrderService.streamSalesOrders(50)) {
+            // Nothing is read until the stream is consumed
+            verify(orderIterable, never()).iterator();
+            assertEquals("SO-001", orders.map(SalesOrder::getOrderNumber).findFirst().orElseThrow());
+        }
+        verify(orderCursor, times(1)).next();
+        verify(orderCursor).close();
+    }
+
     // --- 2. SALES ORDER ITEMS MODULE TESTS ---
 
     @Test
@@ -199,39 +525,139 @@ public class SalesOrderServiceImplTest {
         item.setUnitPrice(BigDecimal.valueOf(100));
         item.setQuantity(2);
         
-        // Mock insertOne to set the _id
-        doAnswer(invocation -> {
-            Document doc = invocation.getArgument(0);
-            doc.put("_id", new ObjectId());
-            return null;
-        }).when(salesOrderItemCollection).insertOne(any(Document.class));
+        // insertOne lets the codec generate the _id on the model
+        mockInsertGeneratesId(salesOrderItemCollection, SalesOrderItem.class);
         
         // Mock for recalculation
-        Document orderDoc = new Document("_id", orderId)
-                .append("orderNumber", "SO-001")
-                .append("orderStatus", "PENDING");
-        when(salesOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(orderDoc);
-        when(salesOrderItemCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.iterator()).thenReturn(cursor);
-        when(cursor.hasNext()).thenReturn(false);
+        mockOrderTotals(new Document("_id", orderId).append("beforeTax", new Decimal128(new BigDecimal("200"))));
         
         salesOrderService.addSalesOrderItem(item);
         
-        verify(salesOrderItemCollection, times(1)).insertOne(any(Document.class));
+        verify(salesOrderItemCollection, times(1)).insertOne(any(SalesOrderItem.class));
+        verify(salesOrderCollection, times(1)).updateOne(any(Bson.class), touching("afterTaxAmount"));
+        verify(salesOrderCollection, times(2)).updateOne(any(Bson.class), touching(SalesOrderServiceImpl.LINE_WRITES));
+    }
+
+    @Test
+    void testAddSalesOrderItems_ShouldInsertManyAndRecalculateOncePerOrder() {
+        String orderId = new ObjectId().toHexString();
+        List<SalesOrderItem> items = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            SalesOrderItem item = new SalesOrderItem();
+            item.setSalesOrderId(orderId);
+            item.setProductId("prod" + i);
+            item.setUnitPrice(BigDecimal.TEN);
+            item.setQuantity(1);
+            items.add(item);
+        }
+        mockOrderTotals(new Document("beforeTax", new Decimal128(new BigDecimal("30"))));
+
+        salesOrderService.addSalesOrderItems(items);
+
+        verify(salesOrderItemCollection, times(1)).insertMany(anyList());
+        verify(salesOrderItemCollection, never()).insertOne(any(SalesOrderItem.class));
+        verify(salesOrderCollection, times(1)).aggregate(anyList(), eq(Document.class));
+        verify(salesOrderCollection, times(1)).updateOne(any(Bson.class), touching("afterTaxAmount"));
+        verify(salesOrderCollection, times(2)).updateOne(any(Bson.class), touching(SalesOrderServiceImpl.LINE_WRITES));
+    }
+
+    @Test
+    void testAddSalesOrderItem_WhenOrderHoldsReservation_ShouldReject() {
+        SalesOrderItem item = new SalesOrderItem();
+        item.setSalesOrderId(new ObjectId().toHexString());
+        item.setProductId("prod456");
+        item.setQuantity(2);
+        when(updateResult.getMatchedCount()).thenReturn(0L);
+        when(salesOrderCollection.countDocuments(any(Bson.class), any(CountOptions.class))).thenReturn(1L);
+
+        assertThrows(IllegalStateException.class, () -> salesOrderService.addSalesOrderItem(item));
+        assertThrows(IllegalStateException.class, () -> salesOrderService.addSalesOrderItems(List.of(item)));
+
+        verify(salesOrderItemCollection, never()).insertOne(any(SalesOrderItem.class));
+        verify(salesOrderItemCollection, never()).insertMany(anyList());
+    }
+
+    @Test
+    void testDeleteSalesOrderItem_WhenOrderHoldsReservation_ShouldReject() {
+        ObjectId itemId = new ObjectId();
+        when(salesOrderItemCollection.find(any(Bson.class))).thenReturn(itemIterable);
+        when(itemIterable.projection(any(Bson.class))).thenReturn(itemIterable);
+        when(itemIterable.first()).thenReturn(decode(new Document("_id", itemId)
+                .append("salesOrderId", new ObjectId().toHexString()), SalesOrderItem.class));
+        when(updateResult.getMatchedCount()).thenReturn(0L);
+        when(salesOrderCollection.countDocuments(any(Bson.class), any(CountOptions.class))).thenReturn(1L);
+
+        assertThrows(IllegalStateException.class, () -> salesOrderService.deleteSalesOrderItem(itemId.toHexString()));
+
+        verify(salesOrderItemCollection, never()).findOneAndDelete(any(Bson.class), any(FindOneAndDeleteOptions.class));
+    }
+
+    @Test
+    void testAddSalesOrderItem_ShouldRegisterTheWriteUnderTheStatusFilter() {
+        ObjectId orderId = new ObjectId();
+        SalesOrderItem item = new SalesOrderItem();
+        item.setSalesOrderId(orderId.toHexString());
+        item.setProductId("prod456");
+        item.setQuantity(2);
+        mockOrderTotals(null);
+
+        salesOrderService.addSalesOrderItem(item);
+
+        // The status predicate guards the registration itself, not a separate read before it
+        ArgumentCaptor<Bson> filter = ArgumentCaptor.forClass(Bson.class);
+        ArgumentCaptor<Bson> update = ArgumentCaptor.forClass(Bson.class);
+        var inOrder = inOrder(salesOrderCollection, salesOrderItemCollection);
+        inOrder.verify(salesOrderCollection).updateOne(filter.capture(), update.capture());
+        inOrder.verify(salesOrderItemCollection).insertOne(item);
+        inOrder.verify(salesOrderCollection).updateOne(any(Bson.class), update.capture());
+        String guard = filter.getValue().toBsonDocument().toJson();
+        assertTrue(guard.contains("CONFIRMED") && guard.contains(SalesOrderServiceImpl.CONFIRMING), guard);
+        assertEquals(1, update.getAllValues().get(0).toBsonDocument().getDocument("$inc").getInt32("lineWrites").getValue());
+        assertEquals(-1, update.getAllValues().get(1).toBsonDocument().getDocument("$inc").getInt32("lineWrites").getValue());
+        verify(salesOrderCollection, never()).countDocuments(any(Bson.class), any(CountOptions.class));
+    }
+
+    @Test
+    void testAddSalesOrderItems_SecondOrderRejected_ShouldEndTheFirstOrdersWrite() {
+        SalesOrderItem first = new SalesOrderItem();
+        first.setSalesOrderId(new ObjectId().toHexString());
+        SalesOrderItem second = new SalesOrderItem();
+        second.setSalesOrderId(new ObjectId().toHexString());
+        when(updateResult.getMatchedCount()).thenReturn(1L, 0L);
+        when(salesOrderCollection.countDocuments(any(Bson.class), any(CountOptions.class))).thenReturn(1L);
+
+        assertThrows(IllegalStateException.class, () -> salesOrderService.addSalesOrderItems(List.of(first, second)));
+
+        ArgumentCaptor<Bson> update = ArgumentCaptor.forClass(Bson.class);
+        verify(salesOrderCollection, times(3)).updateOne(any(Bson.class), update.capture());
+        assertEquals(-1, update.getAllValues().get(2).toBsonDocument().getDocument("$inc").getInt32("lineWrites").getValue());
+        verify(salesOrderItemCollection, never()).insertMany(anyList());
+    }
+
+    @Test
+    void testUpdateSalesOrderItem_WhenInsertFails_ShouldStillEndTheWrite() {
+        SalesOrderItem item = new SalesOrderItem();
+        item.setId(new ObjectId().toHexString());
+        item.setSalesOrderId(new ObjectId().toHexString());
+        when(salesOrderItemCollection.replaceOne(any(Bson.class), any(SalesOrderItem.class)))
+                .thenThrow(new IllegalArgumentException("write failed"));
+
+        assertThrows(IllegalArgumentException.class, () -> salesOrderService.updateSalesOrderItem(item));
+
+        verify(salesOrderCollection, times(2)).updateOne(any(Bson.class), touching(SalesOrderServiceImpl.LINE_WRITES));
     }
 
     @Test
     void testGetItemsByOrderId_ShouldReturnList() {
-        when(salesOrderItemCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.iterator()).thenReturn(cursor);
-        when(cursor.hasNext()).thenReturn(true, false);
-        when(cursor.next()).thenReturn(
-            new Document("_id", new ObjectId())
+        when(salesOrderItemCollection.find(any(Bson.class))).thenReturn(itemIterable);
+        when(itemIterable.iterator()).thenReturn(itemCursor);
+        when(itemCursor.hasNext()).thenReturn(true, false);
+        when(itemCursor.next()).thenReturn(
+            decode(new Document("_id", new ObjectId())
                 .append("salesOrderId", "order123")
                 .append("productId", "prod456")
                 .append("unitPrice", "100.00")
-                .append("quantity", 2)
+                .append("quantity", 2), SalesOrderItem.class)
         );
 
         List<SalesOrderItem> items = salesOrderService.getItemsByOrderId("order123");
@@ -251,18 +677,13 @@ public class SalesOrderServiceImplTest {
         item.setUnitPrice(BigDecimal.valueOf(150));
         
         // Mock for recalculation
-        Document orderDoc = new Document("_id", orderId)
-                .append("orderNumber", "SO-001");
-        when(salesOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(orderDoc);
-        when(salesOrderItemCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.iterator()).thenReturn(cursor);
-        when(cursor.hasNext()).thenReturn(false);
+        mockOrderTotals(new Document("_id", orderId));
         
         salesOrderService.updateSalesOrderItem(item);
         
         assertNotNull(item.getEditedAt());
-        verify(salesOrderItemCollection, times(1)).replaceOne(any(Bson.class), any(Document.class));
+        verify(salesOrderItemCollection, times(1)).replaceOne(any(Bson.class), any(SalesOrderItem.class));
+        verify(salesOrderCollection, never()).replaceOne(any(Bson.class), any(SalesOrder.class));
     }
 
     @Test
@@ -273,12 +694,18 @@ public class SalesOrderServiceImplTest {
         Document itemDoc = new Document("_id", itemId)
                 .append("salesOrderId", orderId);
         
-        when(salesOrderItemCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(itemDoc);
+        when(salesOrderItemCollection.find(any(Bson.class))).thenReturn(itemIterable);
+        when(itemIterable.projection(any(Bson.class))).thenReturn(itemIterable);
+        when(itemIterable.first()).thenReturn(decode(itemDoc, SalesOrderItem.class));
+        when(salesOrderItemCollection.findOneAndDelete(any(Bson.class), any(FindOneAndDeleteOptions.class)))
+                .thenReturn(decode(itemDoc, SalesOrderItem.class));
+        mockOrderTotals(new Document("_id", new ObjectId(orderId)));
         
         salesOrderService.deleteSalesOrderItem(itemId.toHexString());
         
-        verify(salesOrderItemCollection, times(1)).deleteOne(any(Bson.class));
+        verify(salesOrderItemCollection, times(1)).findOneAndDelete(any(Bson.class), any(FindOneAndDeleteOptions.class));
+        verify(salesOrderCollection, times(1)).updateOne(any(Bson.class), touching("afterTaxAmount"));
+        verify(salesOrderCollection, times(2)).updateOne(any(Bson.class), touching(SalesOrderServiceImpl.LINE_WRITES));
     }
 
     // --- 3. DELIVERY ORDER MODULE TESTS ---
@@ -289,16 +716,12 @@ public class SalesOrderServiceImplTest {
         order.setDeliveryDate(LocalDate.now());
         order.setSalesOrderId(new ObjectId().toHexString());
         
-        // Mock insertOne to set the _id
-        doAnswer(invocation -> {
-            Document doc = invocation.getArgument(0);
-            doc.put("_id", new ObjectId());
-            return null;
-        }).when(deliveryOrderCollection).insertOne(any(Document.class));
+        // insertOne lets the codec generate the _id on the model
+        mockInsertGeneratesId(deliveryOrderCollection, DeliveryOrder.class);
         
         salesOrderService.createDeliveryOrder(order);
         
-        verify(deliveryOrderCollection, times(1)).insertOne(any(Document.class));
+        verify(deliveryOrderCollection, times(1)).insertOne(any(DeliveryOrder.class));
         assertNotNull(order.getDeliveryNumber());
         assertNotNull(order.getId());
     }
@@ -312,8 +735,8 @@ public class SalesOrderServiceImplTest {
                 .append("salesOrderId", "so123")
                 .append("status", "PENDING");
         
-        when(deliveryOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(doc);
+        when(deliveryOrderCollection.find(any(Bson.class))).thenReturn(deliveryIterable);
+        when(deliveryIterable.first()).thenReturn(decode(doc, DeliveryOrder.class));
 
         Optional<DeliveryOrder> result = salesOrderService.getDeliveryOrderById(id.toHexString());
         
@@ -330,7 +753,7 @@ public class SalesOrderServiceImplTest {
         salesOrderService.updateDeliveryOrder(order);
         
         assertNotNull(order.getEditedAt());
-        verify(deliveryOrderCollection, times(1)).replaceOne(any(Bson.class), any(Document.class));
+        verify(deliveryOrderCollection, times(1)).replaceOne(any(Bson.class), any(DeliveryOrder.class));
     }
 
     @Test
@@ -360,9 +783,9 @@ public class SalesOrderServiceImplTest {
 
     @Test
     void testGetAllDeliveryOrders_ShouldReturnList() {
-        when(deliveryOrderCollection.find()).thenReturn(findIterable);
-        when(findIterable.iterator()).thenReturn(cursor);
-        when(cursor.hasNext()).thenReturn(false);
+        when(deliveryOrderCollection.find()).thenReturn(deliveryIterable);
+        when(deliveryIterable.iterator()).thenReturn(deliveryCursor);
+        when(deliveryCursor.hasNext()).thenReturn(false);
         
         List<DeliveryOrder> list = salesOrderService.getAllDeliveryOrders();
         
@@ -377,16 +800,12 @@ public class SalesOrderServiceImplTest {
         salesReturn.setReturnDate(LocalDate.now());
         salesReturn.setDeliveryOrderId(new ObjectId().toHexString());
         
-        // Mock insertOne to set the _id
-        doAnswer(invocation -> {
-            Document doc = invocation.getArgument(0);
-            doc.put("_id", new ObjectId());
-            return null;
-        }).when(salesReturnCollection).insertOne(any(Document.class));
+        // insertOne lets the codec generate the _id on the model
+        mockInsertGeneratesId(salesReturnCollection, SalesReturn.class);
         
         salesOrderService.createSalesReturn(salesReturn);
         
-        verify(salesReturnCollection, times(1)).insertOne(any(Document.class));
+        verify(salesReturnCollection, times(1)).insertOne(any(SalesReturn.class));
         assertNotNull(salesReturn.getReturnNumber());
         assertNotNull(salesReturn.getId());
     }
@@ -400,8 +819,8 @@ public class SalesOrderServiceImplTest {
                 .append("deliveryOrderId", "do123")
                 .append("status", "PENDING");
         
-        when(salesReturnCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(doc);
+        when(salesReturnCollection.find(any(Bson.class))).thenReturn(returnIterable);
+        when(returnIterable.first()).thenReturn(decode(doc, SalesReturn.class));
 
         Optional<SalesReturn> result = salesOrderService.getSalesReturnById(id.toHexString());
         
@@ -418,7 +837,7 @@ public class SalesOrderServiceImplTest {
         salesOrderService.updateSalesReturn(salesReturn);
         
         assertNotNull(salesReturn.getEditedAt());
-        verify(salesReturnCollection, times(1)).replaceOne(any(Bson.class), any(Document.class));
+        verify(salesReturnCollection, times(1)).replaceOne(any(Bson.class), any(SalesReturn.class));
     }
 
     @Test
@@ -435,9 +854,9 @@ public class SalesOrderServiceImplTest {
 
     @Test
     void testGetAllSalesReturns_ShouldReturnList() {
-        when(salesReturnCollection.find()).thenReturn(findIterable);
-        when(findIterable.iterator()).thenReturn(cursor);
-        when(cursor.hasNext()).thenReturn(false);
+        when(salesReturnCollection.find()).thenReturn(returnIterable);
+        when(returnIterable.iterator()).thenReturn(returnCursor);
+        when(returnCursor.hasNext()).thenReturn(false);
         
         List<SalesReturn> list = salesOrderService.getAllSalesReturns();
         
@@ -449,12 +868,9 @@ public class SalesOrderServiceImplTest {
     @Test
     void testGetTaxById_ShouldReturnOptional() {
         String taxId = "tax123";
-        Document doc = new Document("_id", taxId)
+        mockTaxes(new Document("_id", taxId)
                 .append("taxName", "GST")
-                .append("taxRate", "10");
-        
-        when(taxCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(doc);
+                .append("taxRate", "10"));
 
         Optional<Tax> result = salesOrderService.getTaxById(taxId);
         
@@ -462,14 +878,23 @@ public class SalesOrderServiceImplTest {
         assertEquals("GST", result.get().getTaxName());
     }
 
+    @Test
+    void testGetTaxById_RepeatedReads_ShouldLoadTaxesOnce() {
+        mockTaxes(new Document("_id", "tax123").append("taxName", "GST").append("taxRate", "10"));
+
+        assertTrue(salesOrderService.getTaxById("tax123").isPresent());
+        assertTrue(salesOrderService.getTaxById("tax123").isPresent());
+        assertFalse(salesOrderService.getTaxById("unknown").isPresent());
+
+        verify(taxCollection, times(1)).find();
+        verify(taxCollection, never()).find(any(Bson.class));
+    }
+
     @Test
     void testGetTaxByName_ShouldReturnOptional() {
-        Document doc = new Document("_id", "tax123")
+        mockTaxes(new Document("_id", "tax123")
                 .append("taxName", "GST")
-                .append("taxRate", "10");
-        
-        when(taxCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(doc);
+                .append("taxRate", "10"));
 
         Optional<Tax> result = salesOrderService.getTaxByName("GST");
         
@@ -479,12 +904,9 @@ public class SalesOrderServiceImplTest {
     @Test
     void testGetTaxRateById_ShouldReturnBigDecimal() {
         String taxId = "tax123";
-        Document doc = new Document("_id", taxId)
+        mockTaxes(new Document("_id", taxId)
                 .append("taxName", "GST")
-                .append("taxRate", "10");
-        
-        when(taxCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(doc);
+                .append("taxRate", "10"));
 
         BigDecimal rate = salesOrderService.getTaxRateById(taxId);
         
@@ -500,14 +922,9 @@ public class SalesOrderServiceImplTest {
 
     @Test
     void testGetAllTaxes_ShouldReturnList() {
-        when(taxCollection.find()).thenReturn(findIterable);
-        when(findIterable.iterator()).thenReturn(cursor);
-        when(cursor.hasNext()).thenReturn(true, false);
-        when(cursor.next()).thenReturn(
-            new Document("_id", "tax123")
+        mockTaxes(new Document("_id", "tax123")
                 .append("taxName", "GST")
-                .append("taxRate", "10")
-        );
+                .append("taxRate", "10"));
 
         List<Tax> list = salesOrderService.getAllTaxes();
         
@@ -575,28 +992,18 @@ public class SalesOrderServiceImplTest {
 
     @Test
     void testGetProductIdByName_ShouldReturnId() {
-        Product product1 = new Product();
-        product1.setId("prod123");
-        product1.setName("Laptop");
-        
-        Product product2 = new Product();
-        product2.setId("prod456");
-        product2.setName("Mouse");
-        
-        List<Product> products = new ArrayList<>();
-        products.add(product1);
-        products.add(product2);
-        
-        when(productService.getAllProducts()).thenReturn(products);
+        when(productService.getProductIdByName("Laptop")).thenReturn("prod123");
         
         String id = salesOrderService.getProductIdByName("Laptop");
         
         assertEquals("prod123", id);
+        // Indexed lookup, the catalog is never loaded
+        verify(productService, never()).getAllProducts();
     }
 
     @Test
     void testGetProductIdByName_WhenNotFound_ShouldReturnNull() {
-        when(productService.getAllProducts()).thenReturn(new ArrayList<>());
+        when(productService.getProductIdByName("NonExistent")).thenReturn(null);
         
         String id = salesOrderService.getProductIdByName("NonExistent");
         
@@ -631,8 +1038,8 @@ public class SalesOrderServiceImplTest {
         Document doc = new Document("_id", id)
                 .append("orderNumber", "SO-20250121-001");
         
-        when(salesOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(doc);
+        when(salesOrderCollection.find(any(Bson.class))).thenReturn(orderIterable);
+        when(orderIterable.first()).thenReturn(decode(doc, SalesOrder.class));
 
         String orderNumber = salesOrderService.getSalesOrderNumberById(id.toHexString());
         
@@ -645,8 +1052,8 @@ public class SalesOrderServiceImplTest {
         Document doc = new Document("_id", id)
                 .append("deliveryNumber", "DO-20250121-001");
         
-        when(deliveryOrderCollection.find(any(Bson.class))).thenReturn(findIterable);
-        when(findIterable.first()).thenReturn(doc);
+        when(deliveryOrderCollection.find(any(Bson.class))).thenReturn(deliveryIterable);
+        when(deliveryIterable.first()).thenReturn(decode(doc, DeliveryOrder.class));
 
         String deliveryNumber = salesOrderService.getDeliveryOrderNumberById(id.toHexString());
         
@@ -656,47 +1063,373 @@ public class SalesOrderServiceImplTest {
     // --- 7. RECALCULATION TESTS ---
 
     @Test
-    void testRecalculateOrderTotals_ShouldUpdateAmounts() {
+    void testRecalculateOrderTotals_ShouldSetOnlyAmountFields() {
         ObjectId orderId = new ObjectId();
-        
-        // Create separate FindIterable mocks for different queries
-        FindIterable<Document> orderFindIterable = mock(FindIterable.class);
-        FindIterable<Document> itemsFindIterable = mock(FindIterable.class);
-        FindIterable<Document> taxFindIterable = mock(FindIterable.class);
-        MongoCursor<Document> itemsCursor = mock(MongoCursor.class);
-        
-        // Mock order retrieval (called twice - once in recalculate, once in update)
-        Document orderDoc = new Document("_id", orderId)
-                .append("orderNumber", "SO-001")
+        // 100.00 x 2 + 50.00 x 1, summed by the server; tax rate stored as a string
+        mockOrderTotals(new Document("_id", orderId)
                 .append("taxId", "tax123")
-                .append("orderStatus", "PENDING");
-        
-        when(salesOrderCollection.find(any(Bson.class))).thenReturn(orderFindIterable);
-        when(orderFindIterable.first()).thenReturn(orderDoc);
-        
-        // Mock items retrieval
-        when(salesOrderItemCollection.find(any(Bson.class))).thenReturn(itemsFindIterable);
-        when(itemsFindIterable.iterator()).thenReturn(itemsCursor);
-        when(itemsCursor.hasNext()).thenReturn(true, true, false);
-        when(itemsCursor.next()).thenReturn(
-            new Document("_id", new ObjectId())
-                .append("unitPrice", "100.00")
-                .append("quantity", 2),
-            new Document("_id", new ObjectId())
-                .append("unitPrice", "50.00")
-                .append("quantity", 1)
-        );
-        
-        // Mock tax retrieval
-        Document taxDoc = new Document("_id", "tax123")
-                .append("taxRate", "10");
-        when(taxCollection.find(any(Bson.class))).thenReturn(taxFindIterable);
-        when(taxFindIterable.first()).thenReturn(taxDoc);
-        
+                .append("beforeTax", new Decimal128(new BigDecimal("250.00"))));
+        mockTaxes(new Document("_id", "tax123").append("taxName", "GST").append("taxRate", "10"));
+
         salesOrderService.recalculateOrderTotals(orderId.toHexString());
-        
-        // Should call replaceOne to update the order
-        verify(salesOrderCollection, times(1)).replaceOne(any(Bson.class), any(Document.class));
+
+        ArgumentCaptor<Bson> update = ArgumentCaptor.forClass(Bson.class);
+        verify(salesOrderCollection, times(1)).updateOne(any(Bson.class), update.capture());
+        verify(salesOrderCollection, never()).replaceOne(any(Bson.class), any(SalesOrder.class));
+        verify(salesOrderItemCollection, never()).find(any(Bson.class));
+
+        BsonDocument set = update.getValue().toBsonDocument().getDocument("$set");
+        assertEquals("250.00", set.getDecimal128("beforeTaxAmount").getValue().toString());
+        assertEquals("25.00", set.getDecimal128("taxAmount").getValue().toString());
+        assertEquals("275.00", set.getDecimal128("afterTaxAmount").getValue().toString());
+        assertFalse(set.containsKey("orderNumber"));
     }
 
-}
\ No newline at end of file
+    @Test
+    void testRecalculateOrderTotals_WithoutItemsOrTax_ShouldSetZero() {
+        ObjectId orderId = new ObjectId();
+        mockOrderTotals(new Document("_id", orderId));
+
+        salesOrderService.recalculateOrderTotals(orderId.toHexString());
+
+        ArgumentCaptor<Bson> update = ArgumentCaptor.forClass(Bson.class);
+        verify(salesOrderCollection).updateOne(any(Bson.class), update.capture());
+        BsonDocument set = update.getValue().toBsonDocument().getDocument("$set");
+        assertEquals("0", set.getDecimal128("beforeTaxAmount").getValue().toString());
+        assertEquals("0", set.getDecimal128("afterTaxAmount").getValue().toString());
+    }
+
+    @Test
+    void testRecalculateOrderTotals_WhenOrderMissing_ShouldNotUpdate() {
+        mockOrderTotals(null);
+
+        salesOrderService.recalculateOrderTotals(new ObjectId().toHexString());
+
+        verify(salesOrderCollection, never()).updateOne(any(Bson.class), any(Bson.class));
+        verifyNoInteractions(salesRollupService);
+    }
+
+    @Test
+    void testRecalculateOrderTotals_ShouldReRollTheOrder() {
+        ObjectId orderId = new ObjectId();
+        mockOrderTotals(new Document("_id", orderId));
+
+        salesOrderService.recalculateOrderTotals(orderId.toHexString());
+
+        verify(salesRollupService).refreshOrder(orderId.toHexString());
+    }
+
+    @Test
+    void testUpdateSalesOrder_ShouldReRollTheOrder() {
+        SalesOrder order = new SalesOrder();
+        order.setId(new ObjectId().toHexString());
+
+        salesOrderService.updateSalesOrder(order);
+
+        verify(salesRollupService).refreshOrder(order.getId());
+    }
+
+    // --- 8. BULK LOOKUP TESTS ---
+
+    @Test
+    void testGetCustomerNamesByIds_ShouldDelegateOnceToCustomerService() {
+        List<String> ids = List.of("c1", "c2");
+        when(customerService.getCustomerNamesByIds(ids)).thenReturn(Map.of("c1", "Ali", "c2", "Bala"));
+
+        Map<String, String> names = salesOrderService.getCustomerNamesByIds(ids);
+
+        assertEquals("Ali", names.get("c1"));
+        verify(customerService, times(1)).getCustomerNamesByIds(ids);
+        verify(customerService, never()).getCustomerById(any());
+    }
+
+    @Test
+    void testGetProductNamesByIds_ShouldDelegateOnceToProductService() {
+        List<String> ids = List.of("p1");
+        when(productService.getProductNamesByIds(ids)).thenReturn(Map.of("p1", "Laptop"));
+
+        Map<String, String> names = salesOrderService.getProductNamesByIds(ids);
+
+        assertEquals("Laptop", names.get("p1"));
+        verify(productService, never()).getProduct(any());
+    }
+
+    @Test
+    void testGetItemsByOrderIds_ShouldGroupBySalesOrderId() {
+        Document item1 = new Document("_id", new ObjectId()).append("salesOrderId", "o1")
+                .append("productId", "p1").append("unitPrice", "10.00").append("quantity", 1);
+        Document item2 = new Document("_id", new ObjectId()).append("salesOrderId", "o1")
+                .append("productId", "p2").append("unitPrice", "5.00").append("quantity", 2);
+        Document item3 = new Document("_id", new ObjectId()).append("salesOrderId", "o2")
+                .append("productId", "p1").append("unitPrice", "10.00").append("quantity", 3);
+
+        when(salesOrderItemCollection.find(any(Bson.class))).thenReturn(itemIterable);
+        when(itemIterable.iterator()).thenReturn(itemCursor);
+        when(itemCursor.hasNext()).thenReturn(true, true, true, false);
+        when(itemCursor.next()).thenReturn(decode(item1, SalesOrderItem.class), decode(item2, SalesOrderItem.class), decode(item3, SalesOrderItem.class));
+
+        Map<String, List<SalesOrderItem>> grouped = salesOrderService.getItemsByOrderIds(List.of("o1", "o2"));
+
+        assertEquals(2, grouped.get("o1").size());
+        assertEquals(1, grouped.get("o2").size());
+        verify(salesOrderItemCollection, times(1)).find(any(Bson.class));
+    }
+
+    @Test
+    void testGetTaxRatesByIds_ShouldMapIdToRate() {
+        mockTaxes(new Document("_id", "T1").append("taxName", "SST").append("taxRate", 6));
+
+        Map<String, BigDecimal> rates = salesOrderService.getTaxRatesByIds(List.of("T1", "T9"));
+
+        assertEquals(0, BigDecimal.valueOf(6).compareTo(rates.get("T1")));
+        assertFalse(rates.containsKey("T9"));
+    }
+
+    @Test
+    void testGetSalesOrderNumbersByIds_ShouldSkipInvalidIds() {
+        ObjectId id = new ObjectId();
+        when(salesOrderCollection.find(any(Bson.class), eq(Document.class))).thenReturn(findIterable);
+        when(findIterable.projection(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.iterator()).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(true, false);
+        when(cursor.next()).thenReturn(new Document("_id", id).append("orderNumber", "SO-1"));
+
+        Map<String, String> numbers = salesOrderService.getSalesOrderNumbersByIds(List.of(id.toHexString(), "bad-id"));
+
+        assertEquals(1, numbers.size());
+        assertEquals("SO-1", numbers.get(id.toHexString()));
+    }
+
+    @Test
+    void testGetDeliveryOrderNumbersByIds_WithEmptyIds_ShouldNotQuery() {
+        assertTrue(salesOrderService.getDeliveryOrderNumbersByIds(List.of()).isEmpty());
+        verifyNoInteractions(deliveryOrderCollection);
+    }
+
+    // ================= STOCK =================
+
+    private SalesOrder order(ObjectId id, String status, String warehouse) {
+        SalesOrder order = new SalesOrder();
+        order.setId(id.toHexString());
+        order.setOrderNumber("SO-1");
+        order.setOrderStatus(status);
+        order.setWarehouse(warehouse);
+        return order;
+    }
+
+    // The order's lines as getItemsByOrderId() reads them
+    private void mockItems(SalesOrderItem... items) {
+        Iterator<SalesOrderItem> lines = List.of(items).iterator();
+        when(salesOrderItemCollection.find(any(Bson.class))).thenReturn(itemIterable);
+        when(itemIterable.iterator()).thenReturn(itemCursor);
+        when(itemCursor.hasNext()).thenAnswer(invocation -> lines.hasNext());
+        lenient().when(itemCursor.next()).thenAnswer(invocation -> lines.next());
+    }
+
+    private static SalesOrderItem line(String productId, int quantity) {
+        SalesOrderItem item = new SalesOrderItem();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        return item;
+    }
+
+    @Test
+    void testConfirmSalesOrder_ShouldReserveThenConfirm() {
+        ObjectId id = new ObjectId();
+        when(salesOrderCollection.find(any(Bson.class))).thenReturn(orderIterable);
+        when(orderIterable.first()).thenReturn(order(id, "PENDING", null));
+        mockItems(line("p2", 1), line("p1", 2), line("p2", 3));
+        when(stockLedgerService.post(eq(StockMovementType.RESERVE), eq("SO-1"), eq("East"), any())).thenReturn(true);
+
+        String message = salesOrderService.confirmSalesOrder(id.toHexString(), "East");
+
+        assertTrue(message.contains("confirmed"), message);
+        verify(stockLedgerService).post(StockMovementType.RESERVE, "SO-1", "East", Map.of("p1", 2, "p2", 4));
+        ArgumentCaptor<Bson> filter = ArgumentCaptor.forClass(Bson.class);
+        ArgumentCaptor<Bson> update = ArgumentCaptor.forClass(Bson.class);
+        verify(salesOrderCollection, times(2)).updateOne(filter.capture(), update.capture());
+        // Marked against line writes before the lines are read, unmarked with the status change
+        assertTrue(filter.getAllValues().get(0).toBsonDocument().toJson().contains(SalesOrderServiceImpl.LINE_WRITES));
+        assertTrue(filter.getAllValues().get(1).toBsonDocument().toJson().contains("PENDING"));
+        assertTrue(update.getAllValues().get(1).toBsonDocument().getDocument("$unset").containsKey(SalesOrderServiceImpl.CONFIRMING));
+    }
+
+    @Test
+    void testConfirmSalesOrder_LineWriteUnderWay_ShouldNotReserve() {
+        ObjectId id = new ObjectId();
+        when(salesOrderCollection.find(any(Bson.class))).thenReturn(orderIterable);
+        when(orderIterable.first()).thenReturn(order(id, "PENDING", null));
+        when(updateResult.getMatchedCount()).thenReturn(0L);
+
+        String message = salesOrderService.confirmSalesOrder(id.toHexString(), "East");
+
+        assertTrue(message.contains("being changed"), message);
+        verifyNoInteractions(stockLedgerService, salesOrderItemCollection);
+    }
+
+    @Test
+    void testConfirmSalesOrder_NotEnoughStock_ShouldNotConfirm() {
+        ObjectId id = new ObjectId();
+        when(salesOrderCollection.find(any(Bson.class))).thenReturn(orderIterable);
+        when(orderIterable.first()).thenReturn(order(id, "PENDING", null));
+        mockItems(line("p1", 2));
+        when(stockLedgerService.post(eq(StockMovementType.RESERVE), any(), eq(StockLedgerService.DEFAULT_WAREHOUSE), any()))
+                .thenReturn(false);
+
+        String message = salesOrderService.confirmSalesOrder(id.toHexString(), null);
+
+        assertTrue(message.startsWith("Cannot confirm"), message);
+        verify(salesOrderCollection, never()).updateOne(any(Bson.class), touching("orderStatus"));
+        // Marked, then unmarked again
+        verify(salesOrderCollection, times(2)).updateOne(any(Bson.class), touching(SalesOrderServiceImpl.CONFIRMING));
+    }
+
+    @Test
+    void testConfirmSalesOrder_ChangedMeanwhile_ShouldReleaseReservation() {
+        ObjectId id = new ObjectId();
+        when(salesOrderCollection.find(any(Bson.class))).thenReturn(orderIterable);
+        when(orderIterable.first()).thenReturn(order(id, "PENDING", null));
+        mockItems(line("p1", 2));
+        when(stockLedgerService.post(eq(StockMovementType.RESERVE), any(), any(), any())).thenReturn(true);
+        // The mark goes through; the status change finds the order no longer PENDING
+        when(updateResult.getMatchedCount()).thenReturn(1L, 0L, 1L);
+
+        salesOrderService.confirmSalesOrder(id.toHexString(), "Main");
+
+        verify(stockLedgerService).post(StockMovementType.RELEASE, "SO-1", "Main", Map.of("p1", 2));
+    }
+
+    @Test
+    void testCancelSalesOrder_Confirmed_ShouldReleaseStock() {
+        ObjectId id = new ObjectId();
+        when(salesOrderCollection.findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class)))
+                .thenReturn(order(id, "CONFIRMED", "Main"));
+        mockItems(line("p1", 2));
+        when(stockLedgerService.post(any(), any(), any(), any())).thenReturn(true);
+
+        String message = salesOrderService.cancelSalesOrder(id.toHexString());
+
+        assertTrue(message.contains("released"), message);
+        verify(stockLedgerService).post(StockMovementType.RELEASE, "SO-1", "Main", Map.of("p1", 2));
+    }
+
+    @Test
+    void testCancelSalesOrder_Pending_ShouldNotMoveStock() {
+        ObjectId id = new ObjectId();
+        when(salesOrderCollection.findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class)))
+                .thenReturn(order(id, "PENDING", null));
+
+        salesOrderService.cancelSalesOrder(id.toHexString());
+
+        verifyNoInteractions(stockLedgerService);
+    }
+
+    @Test
+    void testDeliverDeliveryOrder_ShouldIssueReservedStockAndCompleteOrder() {
+        ObjectId orderId = new ObjectId();
+        DeliveryOrder delivery = new DeliveryOrder();
+        delivery.setId(new ObjectId().toHexString());
+        delivery.setDeliveryNumber("DO-1");
+        delivery.setSalesOrderId(orderId.toHexString());
+        delivery.setStatus("PENDING");
+        when(deliveryOrderCollection.findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class)))
+                .thenReturn(delivery);
+        when(salesOrderCollection.findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class)))
+                .thenReturn(order(orderId, "CONFIRMED", "Main"));
+        mockItems(line("p1", 2));
+        when(stockLedgerService.post(any(), any(), any(), any())).thenReturn(true);
+
+        String message = salesOrderService.deliverDeliveryOrder(delivery.getId());
+
+        assertTrue(message.contains("issued"), message);
+        verify(stockLedgerService).post(StockMovementType.ISSUE, "DO-1", "Main", Map.of("p1", 2));
+    }
+
+    @Test
+    void testDeliverDeliveryOrder_ReservedStockShort_ShouldPutBothStatusesBack() {
+        ObjectId orderId = new ObjectId();
+        DeliveryOrder delivery = new DeliveryOrder();
+        delivery.setId(new ObjectId().toHexString());
+        delivery.setDeliveryNumber("DO-1");
+        delivery.setSalesOrderId(orderId.toHexString());
+        delivery.setStatus("PENDING");
+        when(deliveryOrderCollection.findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class)))
+                .thenReturn(delivery);
+        when(salesOrderCollection.findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class)))
+                .thenReturn(order(orderId, "PROCESSING", "Main"));
+        mockItems(line("p1", 2));
+        when(stockLedgerService.post(StockMovementType.ISSUE, "DO-1", "Main", Map.of("p1", 2))).thenReturn(false);
+
+        String message = salesOrderService.deliverDeliveryOrder(delivery.getId());
+
+        assertTrue(message.startsWith("Cannot deliver"), message);
+        ArgumentCaptor<Bson> orderUpdate = ArgumentCaptor.forClass(Bson.class);
+        verify(salesOrderCollection).updateOne(any(Bson.class), orderUpdate.capture());
+        assertEquals("PROCESSING", orderUpdate.getValue().toBsonDocument().getDocument("$set").getString("orderStatus").getValue());
+        ArgumentCaptor<Bson> deliveryUpdate = ArgumentCaptor.forClass(Bson.class);
+        verify(deliveryOrderCollection).updateOne(any(Bson.class), deliveryUpdate.capture());
+        assertEquals("PENDING", deliveryUpdate.getValue().toBsonDocument().getDocument("$set").getString("status").getValue());
+        // The reservation stays for the retry
+        verify(stockLedgerService, never()).post(eq(StockMovementType.RELEASE), any(), any(), any());
+    }
+
+    @Test
+    void testDeliverDeliveryOrder_AlreadyDelivered_ShouldNotIssueTwice() {
+        when(deliveryOrderCollection.findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class)))
+                .thenReturn(null);
+
+        String message = salesOrderService.deliverDeliveryOrder(new ObjectId().toHexString());
+
+        assertTrue(message.contains("already delivered"), message);
+        verifyNoInteractions(stockLedgerService);
+    }
+
+    private void mockPendingReturn(ObjectId deliveryId) {
+        SalesReturn pending = new SalesReturn();
+        pending.setReturnNumber("SR-1");
+        pending.setStatus("PENDING");
+        pending.setDeliveryOrderId(deliveryId.toHexString());
+        when(salesReturnCollection.find(any(Bson.class))).thenReturn(returnIterable);
+        when(returnIterable.first()).thenReturn(pending);
+    }
+
+    @Test
+    void testCompleteSalesReturn_ShouldPutDeliveredLinesBackOnHand() {
+        ObjectId orderId = new ObjectId();
+        ObjectId deliveryId = new ObjectId();
+        mockPendingReturn(deliveryId);
+        SalesReturn salesReturn = new SalesReturn();
+        salesReturn.setReturnNumber("SR-1");
+        salesReturn.setDeliveryOrderId(deliveryId.toHexString());
+        when(salesReturnCollection.findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class)))
+                .thenReturn(salesReturn);
+        DeliveryOrder delivery = new DeliveryOrder();
+        delivery.setId(deliveryId.toHexString());
+        delivery.setSalesOrderId(orderId.toHexString());
+        delivery.setStatus("DELIVERED");
+        // The delivery order is claimed for this return before it completes
+        when(deliveryOrderCollection.findOneAndUpdate(any(Bson.class), any(Bson.class))).thenReturn(delivery);
+        when(salesOrderCollection.find(any(Bson.class))).thenReturn(orderIterable);
+        when(orderIterable.first()).thenReturn(order(orderId, "COMPLETED", "East"));
+        mockItems(line("p1", 2));
+
+        String message = salesOrderService.completeSalesReturn(new ObjectId().toHexString());
+
+        assertTrue(message.contains("returned to East"), message);
+        verify(stockLedgerService).post(StockMovementType.RETURN, "SR-1", "East", Map.of("p1", 2));
+    }
+
+    @Test
+    void testCompleteSalesReturn_WhenDeliveryAlreadyReturned_ShouldNotReturnStockAgain() {
+        ObjectId deliveryId = new ObjectId();
+        mockPendingReturn(deliveryId);
+        when(deliveryOrderCollection.findOneAndUpdate(any(Bson.class), any(Bson.class))).thenReturn(null);
+        when(deliveryOrderCollection.countDocuments(any(Bson.class))).thenReturn(1L);
+
+        String message = salesOrderService.completeSalesReturn(new ObjectId().toHexString());
+
+        assertTrue(message.contains("already returned"), message);
+        verify(salesReturnCollection, never()).findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class));
+        verifyNoInteractions(stockLedgerService);
+    }
+}
@@ -0,0 +1,248 @@
+package com.inventory.salesorder;
+
+import com.inventory.api.analytics.RollupDimension;
+import com.inventory.api.analytics.RollupTotal;
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.DeleteManyModel;
+import com.mongodb.client.model.FindOneAndReplaceOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SalesRollupServiceImplTest {
+
+    @Mock private MongoCollection<Document> salesOrderCollection;
+    @Mock private MongoCollection<Document> rollupCollection;
+    @Mock private MongoCollection<Document> orderBucketCollection;
+    @Mock private AggregateIterable<Document> aggregate;
+    @Mock private MongoCursor<Document> cursor;
+
+    @Captor private ArgumentCaptor<List<WriteModel<Document>>> writes;
+    @Captor private ArgumentCaptor<List<Bson>> pipeline;
+    @Captor private ArgumentCaptor<List<Bson>> rollupPipeline;
+
+    @InjectMocks
+    private SalesRollupServiceImpl salesRollupService;
+
+    private final Date day = Date.from(LocalDate.of(2025, 1, 21).atStartOfDay(ZoneId.systemDefault()).toInstant());
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // Reflection is required because fields are private in OSGi Impl
+        setField(salesRollupService, "salesOrderCollection", salesOrderCollection);
+        setField(salesRollupService, "rollupCollection", rollupCollection);
+        setField(salesRollupService, "orderBucketCollection", orderBucketCollection);
+    }
+
+    private void setField(Object target, String fieldName, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    // One entry of an order's buckets as the pipeline groups it
+    private Document bucket(String productId, long quantity, String revenue) {
+        return new Document("_id", new Document("day", day)
+                .append("customerId", "c1")
+                .append("productId", productId)
+                .append("taxId", "t1"))
+                .append("quantity", quantity)
+                .append("revenue", new Decimal128(new BigDecimal(revenue)))
+                .append("lines", 1L);
+    }
+
+    private void mockOrderBuckets(Document current) {
+        when(salesOrderCollection.aggregate(anyList())).thenReturn(aggregate);
+        when(aggregate.first()).thenReturn(current);
+    }
+
+    private List<WriteModel<Document>> capturedWrites() {
+        verify(rollupCollection).bulkWrite(writes.capture(), any(BulkWriteOptions.class));
+        return writes.getValue();
+    }
+
+    private static BsonDocument incOf(WriteModel<Document> write) {
+        return ((UpdateOneModel<Document>) write).getUpdate().toBsonDocument().getDocument("$inc");
+    }
+
+    @Test
+    void testRefreshOrder_ShouldIncRollupsByTheDifferenceOnly() {
+        String orderId = new ObjectId().toHexString();
+        mockOrderBuckets(new Document("_id", orderId).append("buckets", List.of(bucket("p1", 5, "50.00"), bucket("p2", 1, "10.00"))));
+        when(orderBucketCollection.findOneAndReplace(any(Bson.class), any(Document.class), any(FindOneAndReplaceOptions.class)))
+                .thenReturn(new Document("_id", orderId).append("buckets", List.of(bucket("p1", 2, "20.00"))));
+
+        salesRollupService.refreshOrder(orderId);
+
+        List<WriteModel<Document>> writes = capturedWrites();
+        assertEquals(3, writes.size());
+        BsonDocument p1 = incOf(writes.get(0));
+        assertEquals(3, p1.getInt64("quantity").getValue());
+        assertEquals("30.00", p1.getDecimal128("revenue").getValue().toString());
+        assertEquals(0, p1.getInt64("lines").getValue());
+        BsonDocument p2 = incOf(writes.get(1));
+        assertEquals(1, p2.getInt64("quantity").getValue());
+        assertEquals(1, p2.getInt64("lines").getValue());
+        // Buckets left without lines go in the same bulk write
+        assertInstanceOf(DeleteManyModel.class, writes.get(2));
+        verify(salesOrderCollection, never()).find(any(Bson.class));
+    }
+
+    @Test
+    void testRefreshOrder_WhenOrderGone_ShouldTakeItsBucketsBackOut() {
+        String orderId = new ObjectId().toHexString();
+        mockOrderBuckets(null);
+        when(orderBucketCollection.findOneAndDelete(any(Bson.class)))
+                .thenReturn(new Document("_id", orderId).append("buckets", List.of(bucket("p1", 2, "20.00"))));
+
+        salesRollupService.refreshOrder(orderId);
+
+        BsonDocument inc = incOf(capturedWrites().get(0));
+        assertEquals(-2, inc.getInt64("quantity").getValue());
+        assertEquals("-20.00", inc.getDecimal128("revenue").getValue().toString());
+        assertEquals(-1, inc.getInt64("lines").getValue());
+    }
+
+    @Test
+    void testRefreshOrder_Unchanged_ShouldNotWrite() {
+        String orderId = new ObjectId().toHexString();
+        mockOrderBuckets(new Document("_id", orderId).append("buckets", List.of(bucket("p1", 2, "20.00"))));
+        when(orderBucketCollection.findOneAndReplace(any(Bson.class), any(Document.class), any(FindOneAndReplaceOptions.class)))
+                .thenReturn(new Document("_id", orderId).append("buckets", List.of(bucket("p1", 2, "20.00"))));
+
+        salesRollupService.refreshOrder(orderId);
+
+        verifyNoInteractions(rollupCollection);
+    }
+
+    @Test
+    void testRefreshOrder_WithInvalidId_ShouldDoNothing() {
+        salesRollupService.refreshOrder("not-an-id");
+        verifyNoInteractions(salesOrderCollection, rollupCollection, orderBucketCollection);
+    }
+
+    @Test
+    void testRebuild_ShouldMergeOrdersThenRollupsAndDropStaleOnes() {
+        when(salesOrderCollection.aggregate(anyList())).thenReturn(aggregate);
+        when(orderBucketCollection.aggregate(anyList())).thenReturn(aggregate);
+        when(aggregate.allowDiskUse(true)).thenReturn(aggregate);
+        when(rollupCollection.countDocuments()).thenReturn(42L);
+
+        assertEquals(42, salesRollupService.rebuild());
+
+        verify(salesOrderCollection).aggregate(pipeline.capture());
+        BsonDocument lastPerOrder = pipeline.getValue().get(pipeline.getValue().size() - 1).toBsonDocument();
+        assertEquals(SalesRollupServiceImpl.ORDER_BUCKETS, lastPerOrder.getDocument("$merge").getString("into").getValue());
+
+        verify(orderBucketCollection).aggregate(rollupPipeline.capture());
+        BsonDocument lastRollup = rollupPipeline.getValue().get(rollupPipeline.getValue().size() - 1).toBsonDocument();
+        assertEquals(SalesRollupServiceImpl.ROLLUPS, lastRollup.getDocument("$merge").getString("into").getValue());
+
+        verify(aggregate, times(2)).toCollection();
+        verify(orderBucketCollection).deleteMany(any(Bson.class));
+        verify(rollupCollection).deleteMany(any(Bson.class));
+    }
+
+    @Test
+    void testGetTopBy_ShouldGroupSortAndLimitOnTheServer() {
+        when(rollupCollection.aggregate(anyList())).thenReturn(aggregate);
+        when(aggregate.iterator()).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(true, false);
+        when(cursor.next()).thenReturn(new Document("_id", "p1")
+                .append("quantity", 7L).append("revenue", new Decimal128(new BigDecimal("70.00"))).append("lines", 3L));
+
+        List<RollupTotal> top = salesRollupService.getTopBy(RollupDimension.PRODUCT,
+                LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31), 5);
+
+        verify(rollupCollection).aggregate(pipeline.capture());
+        String rendered = pipeline.getValue().toString();
+        List<Bson> stages = pipeline.getValue();
+        assertEquals("$productId", stages.get(1).toBsonDocument().getDocument("$group").getString("_id").getValue());
+        assertEquals(-1, stages.get(2).toBsonDocument().getDocument("$sort").getInt32("revenue").getValue(), rendered);
+        assertEquals(5, stages.get(3).toBsonDocument().getInt32("$limit").getValue());
+
+        assertEquals(1, top.size());
+        assertEquals("p1", top.get(0).getKey());
+        assertEquals(7, top.get(0).getQuantity());
+        assertEquals(0, top.get(0).getRevenue().compareTo(new BigDecimal("70.00")));
+    }
+
+    @Test
+    void testGetTotalsByDay_ShouldKeyByDate() {
+        when(rollupCollection.aggregate(anyList())).thenReturn(aggregate);
+        when(aggregate.iterator()).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(true, false);
+        when(cursor.next()).thenReturn(new Document("_id", day)
+                .append("quantity", 2L).append("revenue", new Decimal128(new BigDecimal("20.00"))).append("lines", 1L));
+
+        List<RollupTotal> days = salesRollupService.getTotalsBy(RollupDimension.DAY, null, null);
+
+        assertEquals("2025-01-21", days.get(0).getKey());
+    }
+
+    @Test
+    void testGetTotal_WithNoSales_ShouldBeZero() {
+        when(rollupCollection.aggregate(anyList())).thenReturn(aggregate);
+        when(aggregate.first()).thenReturn(null);
+
+        RollupTotal total = salesRollupService.getTotal(RollupDimension.CUSTOMER, "c1", LocalDate.of(2025, 1, 1), null);
+
+        assertEquals("c1", total.getKey());
+        assertEquals(0, total.getRevenue().signum());
+    }
+
+    @Test
+    void testOrderBucketsPipeline_StringDates_ShouldBeReadInTheSystemZone() {
+        TimeZone saved = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Kuala_Lumpur"));
+        try {
+            List<Bson> stages = SalesRollupServiceImpl.orderBucketsPipeline(new Document());
+            BsonDocument day = stages.get(3).toBsonDocument().getDocument("$group").getDocument("_id").getDocument("day");
+
+            BsonDocument parse = day.getArray("$cond").get(1).asDocument().getDocument("$dateFromString");
+            assertEquals("$orderDate", parse.getString("dateString").getValue());
+            assertEquals("Asia/Kuala_Lumpur", parse.getString("timezone").getValue());
+            // Dates the codec wrote are already the start of the day and pass through
+            assertEquals("$orderDate", day.getArray("$cond").get(2).asString().getValue());
+        } finally {
+            TimeZone.setDefault(saved);
+        }
+    }
+
+    @Test
+    void testRange_ShouldIncludeTheWholeLastDay() {
+        BsonDocument range = SalesRollupServiceImpl.range(LocalDate.of(2025, 1, 21), LocalDate.of(2025, 1, 21)).toBsonDocument();
+        String rendered = range.toJson();
+        assertTrue(rendered.contains("$gte"), rendered);
+        assertTrue(rendered.contains("$lt"), rendered);
+        assertEquals(0, SalesRollupServiceImpl.range(null, null).toBsonDocument().size());
+    }
+}
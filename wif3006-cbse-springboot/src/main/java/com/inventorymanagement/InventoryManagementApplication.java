@@ -1,5 +1,6 @@
 package com.inventorymanagement;
 
+import com.inventorymanagement.common.service.IndexReportService;
 import com.inventorymanagement.customer_gohyuheng.CustomerMenu;
 import com.inventorymanagement.product_ericleechunkiat.ProductMenu;
 import com.inventorymanagement.purchaseorder_ooiweiying.PurchaseOrderMenu;
@@ -28,12 +29,18 @@ public class InventoryManagementApplication implements CommandLineRunner {
     @Autowired
     private PurchaseOrderMenu purchaseOrderMenu;
 
+    @Autowired
+    private IndexReportService indexReportService;
+
     public static void main(String[] args) {
         SpringApplication.run(InventoryManagementApplication.class, args);
     }
 
     @Override
     public void run(String... args) throws Exception {
+        // The indexes were created while the context started; report what is missing or unused
+        indexReportService.logReport();
+
         Scanner scanner = new Scanner(System.in);
         boolean running = true;
 
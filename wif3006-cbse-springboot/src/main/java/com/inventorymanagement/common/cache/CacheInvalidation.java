@@ -0,0 +1,56 @@
+package com.inventorymanagement.common.cache;
+
+/**
+ * A change to cached data, made by this or another application instance.
+ *
+ * Either one document (collection and documentId set), a whole collection (documentId null, e.g.
+ * after a drop) or everything (both null - changes may have been missed, e.g. the change stream
+ * could not be resumed).
+ */
+public final class CacheInvalidation {
+
+    private static final CacheInvalidation EVERYTHING = new CacheInvalidation(null, null, "reset");
+
+    private final String collection;
+    private final String documentId;
+    private final String operation;
+
+    private CacheInvalidation(String collection, String documentId, String operation) {
+        this.collection = collection;
+        this.documentId = documentId;
+        this.operation = operation;
+    }
+
+    // documentId is the _id as a string (hex for ObjectIds)
+    public static CacheInvalidation ofDocument(String collection, String documentId, String operation) {
+        return new CacheInvalidation(collection, documentId, operation);
+    }
+
+    public static CacheInvalidation ofCollection(String collection, String operation) {
+        return new CacheInvalidation(collection, null, operation);
+    }
+
+    public static CacheInvalidation everything() {
+        return EVERYTHING;
+    }
+
+    public String getCollection() { return collection; }
+    public String getDocumentId() { return documentId; }
+    // The change stream operation type: insert, update, replace, delete, drop, rename, ...
+    public String getOperation() { return operation; }
+
+    public boolean isEverything() {
+        return collection == null;
+    }
+
+    // True when cached data read from that collection may be stale
+    public boolean affects(String name) {
+        return collection == null || collection.equals(name);
+    }
+
+    @Override
+    public String toString() {
+        if (collection == null) return "everything";
+        return operation + " " + collection + (documentId != null ? "/" + documentId : "");
+    }
+}
@@ -0,0 +1,57 @@
+package com.inventorymanagement.common.cache;
+
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the ReferenceData sets held by the services.
+ *
+ * Each service registers its sets from @PostConstruct, which loads them before the first
+ * request. The registry refreshes a set by collection name - for writes made outside the
+ * owning service - and reports the hit/miss counters of all of them. As a CacheInvalidationListener
+ * it also reloads a set when another instance writes to its collection.
+ */
+@Service
+public class ReferenceDataCache implements CacheInvalidationListener {
+
+    private final Map<String, ReferenceData<?, ?>> registered = new ConcurrentHashMap<>();
+
+    // Loads the data now; a set registered under the same name is replaced
+    public void register(ReferenceData<?, ?> data) {
+        registered.put(data.getName(), data);
+        if (data.refresh()) {
+            System.out.println("Reference Data: Loaded " + data.getStats().getSize() + " " + data.getName() + ".");
+        }
+    }
+
+    // Reloads the set of that collection; false when none is registered or the load failed
+    public boolean refresh(String name) {
+        ReferenceData<?, ?> data = registered.get(name);
+        return data != null && data.refresh();
+    }
+
+    @Override
+    public Set<String> getCollections() {
+        return Set.copyOf(registered.keySet());
+    }
+
+    @Override
+    public void invalidate(CacheInvalidation invalidation) {
+        // The sets are small: any change reloads the whole collection
+        for (ReferenceData<?, ?> data : registered.values()) {
+            if (invalidation.affects(data.getName())) data.refresh();
+        }
+    }
+
+    public List<CacheStats> getStats() {
+        List<CacheStats> stats = new ArrayList<>();
+        for (ReferenceData<?, ?> data : registered.values()) stats.add(data.getStats());
+        stats.sort((a, b) -> a.getName().compareTo(b.getName()));
+        return stats;
+    }
+}
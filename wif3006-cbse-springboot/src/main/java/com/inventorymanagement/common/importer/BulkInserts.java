@@ -0,0 +1,33 @@
+package com.inventorymanagement.common.importer;
+
+import com.mongodb.bulk.BulkWriteError;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Chunk writes of the bulk imports
+public final class BulkInserts {
+
+    private BulkInserts() {
+    }
+
+    /**
+     * Inserts the documents with one unordered bulkWrite: the server applies them in any order and
+     * a failed document (e.g. a duplicate key) does not stop the others. Returns the position in
+     * the list -> error message of each document that was not written (empty when all were).
+     */
+    public static <T> Map<Integer, String> insertUnordered(MongoTemplate mongoTemplate, Class<T> type, List<T> documents) {
+        Map<Integer, String> failed = new HashMap<>();
+        if (documents.isEmpty()) return failed;
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, type).insert(documents).execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) failed.put(error.getIndex(), error.getMessage());
+        }
+        return failed;
+    }
+}
@@ -0,0 +1,23 @@
+package com.inventorymanagement.common.importer;
+
+import java.util.Locale;
+
+// File layouts the bulk imports read: CSV with a header line, or one JSON object per line
+public enum ImportFormat {
+    CSV,
+    NDJSON;
+
+    // "csv", "ndjson" or "jsonl", case-insensitive
+    public static ImportFormat of(String name) {
+        if (name == null) throw new IllegalArgumentException("Import format is required (csv or ndjson).");
+        switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case "csv":
+                return CSV;
+            case "ndjson":
+            case "jsonl":
+                return NDJSON;
+            default:
+                throw new IllegalArgumentException("Unknown import format '" + name + "' (csv or ndjson).");
+        }
+    }
+}
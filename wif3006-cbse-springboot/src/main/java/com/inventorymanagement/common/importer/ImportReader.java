@@ -0,0 +1,148 @@
+package com.inventorymanagement.common.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads an import file one record at a time, so a file of any size needs the memory of one line.
+ *
+ * CSV: the first line names the columns; fields may be quoted ("a, b", "say ""hi""") and a quoted
+ * field may span lines. NDJSON: one JSON object per line, its top-level scalar values are the columns.
+ * A leading byte order mark is dropped. Blank lines are skipped. A record that cannot be parsed comes back as a malformed row instead of
+ * ending the import.
+ */
+public class ImportReader implements Iterator<ImportRow>, AutoCloseable {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    // Spreadsheet tools often save UTF-8 with a byte order mark, which the decoder leaves in the text
+    private static final char BOM = '\uFEFF';
+
+    private final BufferedReader reader;
+    private final ImportFormat format;
+    private List<String> header;
+    private long lineNumber;
+    private ImportRow next;
+
+    public ImportReader(InputStream in, ImportFormat format) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        this.format = format;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) next = readNext();
+        return next != null;
+    }
+
+    @Override
+    public ImportRow next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        ImportRow row = next;
+        next = null;
+        return row;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private ImportRow readNext() {
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1 && !line.isEmpty() && line.charAt(0) == BOM) line = line.substring(1);
+                if (line.isBlank()) continue;
+                if (format == ImportFormat.NDJSON) return parseJson(line);
+
+                long start = lineNumber;
+                List<String> values = parseCsv(line);
+                if (values == null) return ImportRow.malformed(start, "Unterminated quoted field.");
+                if (header == null) {
+                    header = values;
+                    continue;
+                }
+                return csvRow(start, values);
+            }
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ImportRow csvRow(long line, List<String> values) {
+        if (values.size() > header.size()) {
+            return ImportRow.malformed(line, "Expected " + header.size() + " columns, found " + values.size() + ".");
+        }
+        Map<String, String> fields = new HashMap<>();
+        for (int i = 0; i < values.size(); i++) fields.put(header.get(i).trim(), values.get(i));
+        return ImportRow.of(line, fields);
+    }
+
+    private ImportRow parseJson(String line) {
+        try {
+            JsonNode node = JSON.readTree(line);
+            if (node == null || !node.isObject()) return ImportRow.malformed(lineNumber, "Not a JSON object.");
+            Map<String, String> fields = new LinkedHashMap<>();
+            node.fields().forEachRemaining(e -> {
+                if (e.getValue().isValueNode() && !e.getValue().isNull()) fields.put(e.getKey(), e.getValue().asText());
+            });
+            return ImportRow.of(lineNumber, fields);
+        } catch (JsonProcessingException e) {
+            return ImportRow.malformed(lineNumber, "Invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    // The fields of one CSV record; reads further lines while a quoted field is open (null if it never closes)
+    private List<String> parseCsv(String line) throws IOException {
+        List<String> values = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    values.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            if (!quoted) break;
+
+            line = reader.readLine();
+            if (line == null) return null;
+            lineNumber++;
+            field.append('\n');
+        }
+        values.add(field.toString());
+        return values;
+    }
+}
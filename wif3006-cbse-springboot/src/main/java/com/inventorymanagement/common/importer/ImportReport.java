@@ -0,0 +1,103 @@
+package com.inventorymanagement.common.importer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of one bulk import: rows read, imported and rejected, the records written, and the
+ * throughput. Every rejected row is counted; the first MAX_REJECTIONS keep their line and reason.
+ */
+public class ImportReport {
+
+    public static final int MAX_REJECTIONS = 1000;
+
+    // A rejected row: its line in the file and why
+    public static class Rejection {
+        private final long line;
+        private final String reason;
+
+        public Rejection(long line, String reason) {
+            this.line = line;
+            this.reason = reason;
+        }
+
+        public long getLine() { return line; }
+
+        public String getReason() { return reason; }
+
+        @Override
+        public String toString() {
+            return "line " + line + ": " + reason;
+        }
+    }
+
+    private final String source;
+    private final long startedAt = System.nanoTime();
+    private long elapsedNanos = -1;
+    private long rowsRead;
+    private long rowsImported;
+    private long rowsRejected;
+    private long recordsWritten;
+    private int chunks;
+    private final List<Rejection> rejections = new ArrayList<>();
+
+    // source names what was imported ("sales orders", "products")
+    public ImportReport(String source) {
+        this.source = source;
+    }
+
+    public void rowRead() {
+        rowsRead++;
+    }
+
+    public void imported(int rows, int records) {
+        rowsImported += rows;
+        recordsWritten += records;
+    }
+
+    public void reject(long line, String reason) {
+        rowsRejected++;
+        if (rejections.size() < MAX_REJECTIONS) rejections.add(new Rejection(line, reason));
+    }
+
+    public void chunkWritten() {
+        chunks++;
+    }
+
+    public ImportReport finish() {
+        elapsedNanos = System.nanoTime() - startedAt;
+        return this;
+    }
+
+    public String getSource() { return source; }
+
+    public long getRowsRead() { return rowsRead; }
+
+    public long getRowsImported() { return rowsImported; }
+
+    public long getRowsRejected() { return rowsRejected; }
+
+    public long getRecordsWritten() { return recordsWritten; }
+
+    public int getChunks() { return chunks; }
+
+    public List<Rejection> getRejections() { return Collections.unmodifiableList(rejections); }
+
+    // Until finish(): the time so far
+    public long getElapsedMillis() {
+        long nanos = elapsedNanos >= 0 ? elapsedNanos : System.nanoTime() - startedAt;
+        return nanos / 1_000_000;
+    }
+
+    public double getRowsPerSecond() {
+        long millis = Math.max(1, getElapsedMillis());
+        return rowsRead * 1000.0 / millis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Import of %s: %d rows read, %d imported (%d records, %d chunks), %d rejected in %d ms (%.0f rows/s)",
+                source, rowsRead, rowsImported, recordsWritten, chunks, rowsRejected, getElapsedMillis(), getRowsPerSecond());
+    }
+}
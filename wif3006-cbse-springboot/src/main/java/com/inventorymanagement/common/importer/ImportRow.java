@@ -0,0 +1,39 @@
+package com.inventorymanagement.common.importer;
+
+import java.util.Collections;
+import java.util.Map;
+
+// One record of an import file: its line number and column -> value, or the reason it could not be parsed
+public class ImportRow {
+    private final long line;
+    private final Map<String, String> fields;
+    private final String error;
+
+    private ImportRow(long line, Map<String, String> fields, String error) {
+        this.line = line;
+        this.fields = fields;
+        this.error = error;
+    }
+
+    public static ImportRow of(long line, Map<String, String> fields) {
+        return new ImportRow(line, Collections.unmodifiableMap(fields), null);
+    }
+
+    public static ImportRow malformed(long line, String error) {
+        return new ImportRow(line, Collections.emptyMap(), error);
+    }
+
+    public long getLine() { return line; }
+
+    public boolean isMalformed() { return error != null; }
+
+    public String getError() { return error; }
+
+    // Trimmed value of the column, null when the column is missing or blank
+    public String get(String column) {
+        String value = fields.get(column);
+        if (value == null) return null;
+        value = value.trim();
+        return value.isEmpty() ? null : value;
+    }
+}
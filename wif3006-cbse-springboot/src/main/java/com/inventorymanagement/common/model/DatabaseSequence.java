@@ -0,0 +1,28 @@
+package com.inventorymanagement.common.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// One counter document per sequence, e.g. { _id: "purchase_order_id", seq: 42 }
+@Document(collection = "counters")
+public class DatabaseSequence {
+    @Id
+    private String id; // Sequence name
+
+    private long seq; // Last value handed out
+
+    // Constructors
+    public DatabaseSequence() {}
+
+    public DatabaseSequence(String id, long seq) {
+        this.id = id;
+        this.seq = seq;
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public long getSeq() { return seq; }
+    public void setSeq(long seq) { this.seq = seq; }
+}
@@ -0,0 +1,23 @@
+package com.inventorymanagement.common.model;
+
+import java.util.Collections;
+import java.util.List;
+
+// One page of a keyset-paginated list; pass nextCursor back as afterId for the next page (null on the last page)
+public class KeysetPage<T> {
+    private final List<T> items;
+    private final String nextCursor;
+
+    public KeysetPage(List<T> items, String nextCursor) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() { return items; }
+
+    public String getNextCursor() { return nextCursor; }
+
+    public boolean hasNext() { return nextCursor != null; }
+
+    public boolean isEmpty() { return items.isEmpty(); }
+}
@@ -0,0 +1,95 @@
+package com.inventorymanagement.common.service;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compares the @Indexed / @CompoundIndex declarations of the @Document models with what is on
+ * the server. The indexes themselves are created at startup (spring.data.mongodb.auto-index-creation);
+ * this only reports declarations that did not make it (e.g. the collection was created by hand
+ * with conflicting options) and indexes that no query has used since the server last started.
+ * logReport() prints both once at startup, before the main menu.
+ */
+@Service
+public class IndexReportService {
+
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    // "collection.index" for each declared index that is not on the server
+    public List<String> findMissingIndexes() {
+        MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty> context =
+                mongoOperations.getConverter().getMappingContext();
+        IndexResolver resolver = IndexResolver.create(context);
+
+        List<String> missing = new ArrayList<>();
+        for (MongoPersistentEntity<?> entity : documentEntities()) {
+            Set<String> existing = new HashSet<>();
+            for (IndexInfo info : mongoOperations.indexOps(entity.getType()).getIndexInfo()) {
+                existing.add(info.getName());
+            }
+            for (IndexDefinition definition : resolver.resolveIndexFor(entity.getTypeInformation())) {
+                String name = definition.getIndexOptions().getString("name");
+                if (name != null && !existing.contains(name)) {
+                    missing.add(entity.getCollection() + "." + name);
+                }
+            }
+        }
+        return missing;
+    }
+
+    // "collection.index" for each index with no recorded use ($indexStats ops == 0), _id excluded
+    public List<String> findUnusedIndexes() {
+        List<String> unused = new ArrayList<>();
+        for (MongoPersistentEntity<?> entity : documentEntities()) {
+            List<Document> indexStats = mongoOperations.getCollection(entity.getCollection())
+                    .aggregate(List.of(new Document("$indexStats", new Document())))
+                    .into(new ArrayList<>());
+            for (Document stats : indexStats) {
+                String indexName = stats.getString("name");
+                Document accesses = stats.get("accesses", Document.class);
+                long ops = accesses == null ? 0 : accesses.get("ops", Number.class).longValue();
+                if (ops == 0 && !"_id_".equals(indexName)) unused.add(entity.getCollection() + "." + indexName);
+            }
+        }
+        return unused;
+    }
+
+    // Never fails startup: $indexStats needs the clusterMonitor role, which the app user may not have
+    public void logReport() {
+        try {
+            List<String> missing = findMissingIndexes();
+            List<String> unused = findUnusedIndexes();
+            if (!missing.isEmpty()) System.out.println("Index Report: Declared but not on the server: " + missing);
+            if (!unused.isEmpty()) System.out.println("Index Report: Not used since the server started: " + unused);
+            if (missing.isEmpty() && unused.isEmpty()) System.out.println("Index Report: Every declared index is in place and in use.");
+        } catch (RuntimeException e) {
+            System.err.println("Index Report: Could not read the indexes: " + e.getMessage());
+        }
+    }
+
+    // =================== Helpers ===================
+
+    private List<MongoPersistentEntity<?>> documentEntities() {
+        List<MongoPersistentEntity<?>> entities = new ArrayList<>();
+        for (MongoPersistentEntity<?> entity : mongoOperations.getConverter().getMappingContext().getPersistentEntities()) {
+            if (entity.isAnnotationPresent(org.springframework.data.mongodb.core.mapping.Document.class)) {
+                entities.add(entity);
+            }
+        }
+        return entities;
+    }
+}
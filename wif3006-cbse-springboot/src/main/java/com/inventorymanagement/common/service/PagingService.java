@@ -0,0 +1,64 @@
+package com.inventorymanagement.common.service;
+
+import com.inventorymanagement.common.model.KeysetPage;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Keyset pagination and cursor streaming for the list screens of every module.
+ *
+ * A page seeks past the last key of the previous one ({ key: { $gt: after } } on an indexed,
+ * unique field) instead of using skip, so every page costs the same. A stream reads from the
+ * server cursor batchSize documents at a time; close it (try-with-resources) when done.
+ */
+@Service
+public class PagingService {
+
+    public static final int MAX_PAGE_SIZE = 500;
+
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    // key is the property name ("id" maps to _id); after == null starts at the beginning
+    public <T> KeysetPage<T> page(Class<T> type, String key, Object after, int limit,
+                                  Sort.Direction direction, Function<T, Object> keyOf) {
+        if (limit < 1) throw new IllegalArgumentException("Page limit must be at least 1");
+        int size = Math.min(limit, MAX_PAGE_SIZE);
+
+        Query query = new Query();
+        if (after != null) {
+            query.addCriteria(direction == Sort.Direction.DESC
+                    ? Criteria.where(key).lt(after)
+                    : Criteria.where(key).gt(after));
+        }
+        // One extra row tells whether there is a next page without a count
+        query.with(Sort.by(direction, key)).limit(size + 1);
+
+        List<T> rows = mongoOperations.find(query, type);
+        if (rows.size() <= size) return new KeysetPage<>(rows, null);
+
+        List<T> items = rows.subList(0, size);
+        return new KeysetPage<>(items, String.valueOf(keyOf.apply(items.get(size - 1))));
+    }
+
+    // afterId of an _id-keyed page; a malformed cursor is rejected rather than silently restarting
+    public static ObjectId objectIdCursor(String afterId) {
+        if (afterId == null || afterId.isEmpty()) return null;
+        if (!ObjectId.isValid(afterId)) throw new IllegalArgumentException("Invalid page cursor: " + afterId);
+        return new ObjectId(afterId);
+    }
+
+    public <T> Stream<T> stream(Class<T> type, int batchSize) {
+        if (batchSize < 1) throw new IllegalArgumentException("Batch size must be at least 1");
+        return mongoOperations.stream(new Query().cursorBatchSize(batchSize), type);
+    }
+}
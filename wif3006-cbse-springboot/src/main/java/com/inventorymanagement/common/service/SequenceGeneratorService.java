@@ -0,0 +1,106 @@
+package com.inventorymanagement.common.service;
+
+import com.inventorymanagement.common.model.DatabaseSequence;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Atomic sequences stored in the "counters" collection (same layout as the OSGi SequenceService).
+ * Each allocation is a single findAndModify with $inc, so it is O(1) and never hands out
+ * the same value twice, even with several application instances.
+ *
+ * inventory.sequence.block-size > 1 reserves that many values per round trip and serves
+ * them from memory; values left in a block on shutdown become gaps, never duplicates.
+ */
+@Service
+public class SequenceGeneratorService {
+
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    @Value("${inventory.sequence.block-size:1}")
+    private int blockSize = 1;
+
+    // Values reserved in the database but not handed out yet: [next, last]
+    private static final class Block {
+        long next;
+        long last;
+    }
+
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+
+    // Allocate the next value of the sequence (starts at 1)
+    public long next(String sequenceName) {
+        int size = Math.max(1, blockSize);
+        Block block = blocks.computeIfAbsent(sequenceName, k -> new Block());
+        synchronized (block) {
+            if (block.next == 0 || block.next > block.last) {
+                long last = reserve(sequenceName, size);
+                block.next = last - size + 1;
+                block.last = last;
+            }
+            return block.next++;
+        }
+    }
+
+    // Reserve count consecutive values in one round trip and return the first (batch creates)
+    public long nextRange(String sequenceName, int count) {
+        if (count < 1) throw new IllegalArgumentException("Count must be at least 1");
+        return reserve(sequenceName, count) - count + 1;
+    }
+
+    // Make sure the sequence never hands out a value <= floor (used to seed from existing data)
+    public void ensureAtLeast(String sequenceName, long floor) {
+        if (floor <= 0) return;
+
+        // $max only ever moves the counter forward, so concurrent seeding is harmless
+        upsertWithRetry(() -> mongoOperations.upsert(
+                byName(sequenceName), new Update().max("seq", floor), DatabaseSequence.class));
+
+        Block block = blocks.get(sequenceName);
+        if (block != null) {
+            synchronized (block) {
+                if (block.next != 0 && block.next <= floor) {
+                    block.next = 0;
+                    block.last = 0;
+                }
+            }
+        }
+    }
+
+    // =================== Helpers ===================
+
+    // Atomically advances the counter by 'count' and returns the new (last reserved) value
+    private long reserve(String sequenceName, int count) {
+        DatabaseSequence counter = upsertWithRetry(() -> mongoOperations.findAndModify(
+                byName(sequenceName),
+                new Update().inc("seq", (long) count),
+                FindAndModifyOptions.options().returnNew(true).upsert(true),
+                DatabaseSequence.class));
+        return counter.getSeq();
+    }
+
+    private Query byName(String sequenceName) {
+        return new Query(Criteria.where("_id").is(sequenceName));
+    }
+
+    // Two first-time upserts of the same counter can race on the _id index; the loser simply retries
+    private <T> T upsertWithRetry(Supplier<T> upsert) {
+        try {
+            return upsert.get();
+        } catch (DuplicateKeyException e) {
+            return upsert.get();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.inventorymanagement.common.web;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Turns the exceptions of the services into RFC 7807 responses for the REST controllers.
+ *
+ * Bad cursors, limits and ids (IllegalArgumentException) are the caller's fault (400), a
+ * record that is not there (NoSuchElementException) is 404, and a unique index violation on
+ * create or a change the record's state or its dependents refuse (IllegalStateException) is a
+ * conflict (409). Validation errors on request bodies are already answered with 400 by Spring MVC.
+ */
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ProblemDetail badRequest(IllegalArgumentException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+
+    @ExceptionHandler(NoSuchElementException.class)
+    public ProblemDetail notFound(NoSuchElementException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ProblemDetail refused(IllegalStateException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, e.getMessage());
+    }
+
+    @ExceptionHandler(DuplicateKeyException.class)
+    public ProblemDetail conflict(DuplicateKeyException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, "A record with the same key already exists.");
+    }
+}
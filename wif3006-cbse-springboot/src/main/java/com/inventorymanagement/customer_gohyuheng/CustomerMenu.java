@@ -1,8 +1,10 @@
 package com.inventorymanagement.customer_gohyuheng;
 
+import com.inventorymanagement.common.model.KeysetPage;
 import com.inventorymanagement.customer_gohyuheng.model.*;
 import com.inventorymanagement.customer_gohyuheng.service.CustomerService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
@@ -16,6 +18,15 @@ public class CustomerMenu {
     @Autowired
     private CustomerService customerService;
 
+    private static final int PAGE_SIZE = 20;
+
+    // Asks before fetching the next page of a list; false on the last page or when the user stops
+    private boolean wantsNextPage(Scanner scanner, KeysetPage<?> page) {
+        if (!page.hasNext()) return false;
+        System.out.print("-- Enter for next page, 'q' to stop: ");
+        return !scanner.nextLine().trim().equalsIgnoreCase("q");
+    }
+
     private String promptForUpdate(Scanner scanner, String label, String currentValue) {
         System.out.print(label + " [" + currentValue + "]: ");
         String input = scanner.nextLine();
@@ -212,8 +223,8 @@ public class CustomerMenu {
 
             switch (choice) {
                 case "1":
-                    List<Customer> customers = customerService.getAllCustomers();
-                    if (customers.isEmpty()) System.out.println("No customers found.");
+                    KeysetPage<Customer> page = customerService.listCustomers(null, PAGE_SIZE, Sort.Direction.ASC);
+                    if (page.isEmpty()) System.out.println("No customers found.");
                     else {
                         System.out.println("\n--- Customer List ---");
                         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
@@ -223,34 +234,39 @@ public class CustomerMenu {
                         System.out.println("----------------------------------------------------------------------------------------------------------------------------------------------------------------");
 
                         int i = 1;
-                        for (Customer c : customers) {
-                            String groupName = "N/A";
-                            if (c.getCustomerGroupId() != null) {
-                                Optional<CustomerGroup> gOpt = customerService.getGroupById(c.getCustomerGroupId());
-                                if (gOpt.isPresent()) groupName = gOpt.get().getGroupName();
+                        while (true) {
+                            List<Customer> customers = page.getItems();
+                            for (Customer c : customers) {
+                                String groupName = "N/A";
+                                if (c.getCustomerGroupId() != null) {
+                                    Optional<CustomerGroup> gOpt = customerService.getGroupById(c.getCustomerGroupId());
+                                    if (gOpt.isPresent()) groupName = gOpt.get().getGroupName();
+                                }
+
+                                String catName = "N/A";
+                                if (c.getCustomerCategoryId() != null) {
+                                    Optional<CustomerCategory> cOpt = customerService.getCategoryById(c.getCustomerCategoryId());
+                                    if (cOpt.isPresent()) catName = cOpt.get().getCategoryName();
+                                }
+
+                                String dateStr = (c.getCreatedDate() != null) ? c.getCreatedDate().format(formatter) : "N/A";
+                                String updateStr = (c.getUpdatedDate() != null) ? c.getUpdatedDate().format(formatter) : "-";
+
+                                // Safe check for null address
+                                String addressDisplay = (c.getAddress() != null) ? c.getAddress() : "N/A";
+
+                                System.out.printf("%-4d %-15s %-25s %-12s %-20s %-15s %-15s %-20s %-20s%n",
+                                        i++,
+                                        c.getName(),
+                                        c.getEmail(),
+                                        c.getPhoneNumber(),
+                                        addressDisplay,
+                                        groupName,
+                                        catName,
+                                        dateStr, updateStr);
                             }
-
-                            String catName = "N/A";
-                            if (c.getCustomerCategoryId() != null) {
-                                Optional<CustomerCategory> cOpt = customerService.getCategoryById(c.getCustomerCategoryId());
-                                if (cOpt.isPresent()) catName = cOpt.get().getCategoryName();
-                            }
-
-                            String dateStr = (c.getCreatedDate() != null) ? c.getCreatedDate().format(formatter) : "N/A";
-                            String updateStr = (c.getUpdatedDate() != null) ? c.getUpdatedDate().format(formatter) : "-";
-
-                            // Safe check for null address
-                            String addressDisplay = (c.getAddress() != null) ? c.getAddress() : "N/A";
-
-                            System.out.printf("%-4d %-15s %-25s %-12s %-20s %-15s %-15s %-20s %-20s%n",
-                                    i++,
-                                    c.getName(),
-                                    c.getEmail(),
-                                    c.getPhoneNumber(),
-                                    addressDisplay,
-                                    groupName,
-                                    catName,
-                                    dateStr, updateStr);
+                            if (!wantsNextPage(scanner, page)) break;
+                            page = customerService.listCustomers(page.getNextCursor(), PAGE_SIZE, Sort.Direction.ASC);
                         }
                     }
                     break;
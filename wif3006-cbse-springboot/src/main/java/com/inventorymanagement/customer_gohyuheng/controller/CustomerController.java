@@ -0,0 +1,65 @@
+package com.inventorymanagement.customer_gohyuheng.controller;
+
+import com.inventorymanagement.common.model.KeysetPage;
+import com.inventorymanagement.customer_gohyuheng.model.Customer;
+import com.inventorymanagement.customer_gohyuheng.service.CustomerService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+// REST access to the customers; paths under /api/customers
+@RestController
+@RequestMapping("/api/customers")
+public class CustomerController {
+
+    @Autowired
+    private CustomerService customerService;
+
+    // Keyset page: pass nextCursor back as 'after' for the next page
+    @GetMapping
+    public KeysetPage<Customer> listCustomers(@RequestParam(required = false) String after,
+                                              @RequestParam(defaultValue = "50") int limit,
+                                              @RequestParam(defaultValue = "ASC") Sort.Direction direction) {
+        return customerService.listCustomers(after, limit, direction);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Customer> getCustomer(@PathVariable String id) {
+        return ResponseEntity.of(customerService.getCustomerById(id));
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Customer createCustomer(@Valid @RequestBody Customer customer) {
+        customer.setId(null);
+        return customerService.createCustomer(customer);
+    }
+
+    // Many customers in one request and one insert
+    @PostMapping("/bulk")
+    @ResponseStatus(HttpStatus.CREATED)
+    public List<Customer> createCustomers(@Valid @RequestBody List<Customer> customers) {
+        customers.forEach(customer -> customer.setId(null));
+        return customerService.createCustomers(customers);
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<Customer> updateCustomer(@PathVariable String id, @Valid @RequestBody Customer customer) {
+        if (customerService.getCustomerById(id).isEmpty()) return ResponseEntity.notFound().build();
+        customer.setId(id);
+        return ResponseEntity.ok(customerService.updateCustomer(customer));
+    }
+
+    // 404 for an unknown id, 409 while the customer has sales orders
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteCustomer(@PathVariable String id) {
+        if (customerService.getCustomerById(id).isEmpty()) return ResponseEntity.notFound().build();
+        customerService.removeCustomer(id);
+        return ResponseEntity.noContent().build();
+    }
+}
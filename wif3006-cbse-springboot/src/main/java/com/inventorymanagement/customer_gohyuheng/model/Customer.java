@@ -3,6 +3,7 @@ package com.inventorymanagement.customer_gohyuheng.model;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -14,6 +15,7 @@ public class Customer {
     @Id
     private String id;
 
+    @Indexed
     @NotBlank(message = "Name is required")
     private String name;
 
@@ -27,9 +29,11 @@ public class Customer {
     private String address;
 
     // These store the IDs of the Group and Category objects
+    @Indexed
     @NotBlank(message = "Customer Group is required")
     private String customerGroupId;
 
+    @Indexed
     @NotBlank(message = "Customer Category is required")
     private String customerCategoryId;
 
@@ -3,6 +3,7 @@ package com.inventorymanagement.customer_gohyuheng.model;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import jakarta.validation.constraints.NotBlank;
 import java.time.LocalDateTime;
@@ -20,6 +21,7 @@ public class CustomerContact {
     private String phone;
     private String email;
 
+    @Indexed
     @NotBlank(message = "Customer ID is required")
     private String customerId; // Links this contact to a specific Customer
 
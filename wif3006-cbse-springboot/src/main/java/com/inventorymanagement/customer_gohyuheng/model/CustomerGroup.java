@@ -3,6 +3,7 @@ package com.inventorymanagement.customer_gohyuheng.model;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import jakarta.validation.constraints.NotBlank;
 import java.time.LocalDateTime;
@@ -13,6 +14,7 @@ public class CustomerGroup {
     @Id
     private String id;
 
+    @Indexed
     @NotBlank(message = "Group Name is required")
     private String groupName; // e.g., "Education", "Government"
 
@@ -3,6 +3,7 @@ package com.inventorymanagement.customer_gohyuheng.repository;
 import com.inventorymanagement.customer_gohyuheng.model.Customer;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
 
@@ -10,6 +11,9 @@ import java.util.List;
 public interface CustomerRepository extends MongoRepository<Customer, String> {
     Optional<Customer> findByName(String name);
 
+    // Customers of many names in one query on the name index (bulk import)
+    List<Customer> findByNameIn(Collection<String> names);
+
     List<Customer> findByCustomerGroupId(String groupId);
     List<Customer> findByCustomerCategoryId(String categoryId);
 }
\ No newline at end of file
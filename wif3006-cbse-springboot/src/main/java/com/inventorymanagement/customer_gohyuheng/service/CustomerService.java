@@ -1,13 +1,23 @@
 package com.inventorymanagement.customer_gohyuheng.service;
 
+import com.inventorymanagement.common.cache.ReferenceData;
+import com.inventorymanagement.common.cache.ReferenceDataCache;
+import com.inventorymanagement.common.model.KeysetPage;
+import com.inventorymanagement.common.service.PagingService;
 import com.inventorymanagement.customer_gohyuheng.model.*;
 import com.inventorymanagement.customer_gohyuheng.repository.*;
 import com.inventorymanagement.salesorder_wongxiuhuan.repository.SalesOrderRepository;
-import com.inventorymanagement.salesorder_wongxiuhuan.model.SalesOrder;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 public class CustomerService {
@@ -27,15 +37,50 @@ public class CustomerService {
     @Autowired
     private SalesOrderRepository salesOrderRepo;
 
+    @Autowired
+    private PagingService pagingService;
+
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
+    // Groups and categories by id, reloaded after each of their writes below.
+    // The by-name lookups still query the repository: the menu edits the object they return.
+    private final ReferenceData<String, CustomerGroup> groups =
+            new ReferenceData<>("customer_groups", CustomerGroup::getId, () -> groupRepo.findAll());
+    private final ReferenceData<String, CustomerCategory> categories =
+            new ReferenceData<>("customer_categories", CustomerCategory::getId, () -> categoryRepo.findAll());
+
+    @PostConstruct
+    public void registerReferenceData() {
+        referenceDataCache.register(groups);
+        referenceDataCache.register(categories);
+    }
+
     // --- Customer Logic ---
     public Customer createCustomer(Customer customer) {
         return customerRepo.save(customer);
     }
 
+    // Bulk create: one insertMany for the whole batch
+    public List<Customer> createCustomers(List<Customer> customers) {
+        if (customers == null || customers.isEmpty()) return List.of();
+        return customerRepo.insert(customers);
+    }
+
     public List<Customer> getAllCustomers() {
         return customerRepo.findAll();
     }
 
+    // Keyset page on _id: afterId is the nextCursor of the previous page (null for the first page)
+    public KeysetPage<Customer> listCustomers(String afterId, int limit, Sort.Direction direction) {
+        return pagingService.page(Customer.class, "id", PagingService.objectIdCursor(afterId), limit, direction, Customer::getId);
+    }
+
+    // Every customer, read from the cursor batchSize at a time; close the stream when done
+    public Stream<Customer> streamCustomers(int batchSize) {
+        return pagingService.stream(Customer.class, batchSize);
+    }
+
     public Optional<Customer> getCustomerByName(String name) {
         return customerRepo.findByName(name);
     }
@@ -44,6 +89,16 @@ public class CustomerService {
         return customerRepo.findById(id);
     }
 
+    // Bulk lookup for list/report screens: one $in query, id -> name
+    public Map<String, String> getCustomerNamesByIds(Collection<String> ids) {
+        Map<String, String> names = new HashMap<>();
+        if (ids == null || ids.isEmpty()) return names;
+        for (Customer customer : customerRepo.findAllById(ids)) {
+            names.put(customer.getId(), customer.getName());
+        }
+        return names;
+    }
+
     public Customer updateCustomer(Customer customer) {
         return customerRepo.save(customer);
     }
@@ -54,11 +109,21 @@ public class CustomerService {
             return "❌ Customer not found.";
         }
 
+        try {
+            removeCustomer(id);
+            return "✅ Customer deleted successfully.";
+        } catch (IllegalStateException e) {
+            return "❌ " + e.getMessage();
+        }
+    }
+
+    // The customer and its contacts; IllegalStateException while it has sales orders
+    public void removeCustomer(String id) {
         // CHECK SALES ORDERS
-        List<SalesOrder> existingOrders = salesOrderRepo.findByCustomerId(id);
+        long existingOrders = salesOrderRepo.countByCustomerId(id);
 
-        if (!existingOrders.isEmpty()) {
-            return "❌ Cannot delete: This customer has " + existingOrders.size() + " existing Sales Order(s).";
+        if (existingOrders > 0) {
+            throw new IllegalStateException("Cannot delete: This customer has " + existingOrders + " existing Sales Order(s).");
         }
 
         // If no orders, proceed to delete
@@ -66,20 +131,21 @@ public class CustomerService {
         contactRepo.deleteAll(contacts);
 
         customerRepo.deleteById(id);
-        return "✅ Customer deleted successfully.";
     }
 
     // --- Group Logic ---
     public CustomerGroup createGroup(CustomerGroup group) {
-        return groupRepo.save(group);
+        CustomerGroup saved = groupRepo.save(group);
+        groups.refresh();
+        return saved;
     }
 
     public Optional<CustomerGroup> getGroupById(String id) {
-        return groupRepo.findById(id);
+        return Optional.ofNullable(groups.get(id));
     }
 
     public List<CustomerGroup> getAllGroups() {
-        return groupRepo.findAll();
+        return new ArrayList<>(groups.getAll());
     }
 
     public Optional<CustomerGroup> getGroupByName(String name) {
@@ -87,7 +153,9 @@ public class CustomerService {
     }
 
     public CustomerGroup updateGroup(CustomerGroup group) {
-        return groupRepo.save(group);
+        CustomerGroup saved = groupRepo.save(group);
+        groups.refresh();
+        return saved;
     }
 
     public String deleteGroup(String id) {
@@ -96,24 +164,29 @@ public class CustomerService {
             return "❌ Cannot delete: " + linked.size() + " customer(s) are currently assigned to this group.";
         }
         groupRepo.deleteById(id);
+        groups.refresh();
         return "✅ Group deleted successfully.";
     }
 
     // --- Category Logic ---
     public CustomerCategory createCategory(CustomerCategory category) {
-        return categoryRepo.save(category);
+        CustomerCategory saved = categoryRepo.save(category);
+        categories.refresh();
+        return saved;
     }
 
     public Optional<CustomerCategory> getCategoryById(String id) {
-        return categoryRepo.findById(id);
+        return Optional.ofNullable(categories.get(id));
     }
 
     public List<CustomerCategory> getAllCategories() {
-        return categoryRepo.findAll();
+        return new ArrayList<>(categories.getAll());
     }
 
     public CustomerCategory updateCategory(CustomerCategory category) {
-        return categoryRepo.save(category);
+        CustomerCategory saved = categoryRepo.save(category);
+        categories.refresh();
+        return saved;
     }
 
     public String deleteCategory(String id) {
@@ -122,6 +195,7 @@ public class CustomerService {
             return "❌ Cannot delete: " + linked.size() + " customer(s) are currently assigned to this category.";
         }
         categoryRepo.deleteById(id);
+        categories.refresh();
         return "✅ Category deleted successfully.";
     }
 
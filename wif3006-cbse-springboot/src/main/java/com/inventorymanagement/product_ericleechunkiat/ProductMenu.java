@@ -1,8 +1,10 @@
 package com.inventorymanagement.product_ericleechunkiat;
 
+import com.inventorymanagement.common.model.KeysetPage;
 import com.inventorymanagement.product_ericleechunkiat.model.*;
 import com.inventorymanagement.product_ericleechunkiat.service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Component;
 
 import java.util.Scanner;
@@ -14,6 +16,8 @@ public class ProductMenu {
     @Autowired
     private ProductService productService;
 
+    private static final int PAGE_SIZE = 20;
+
     public void start() {
         Scanner scanner = new Scanner(System.in);
         while (true) {
@@ -86,14 +90,21 @@ public class ProductMenu {
             List<ProductGroup> groups = productService.getAllProductGroups();
             List<UnitMeasure> uoms = productService.getAllUOMs();
 
-            for (Product p : productService.getAllProducts()) {
-                String gName = "N/A";
-                for (ProductGroup g : groups) if(g.getId().equals(p.getProductGroupId())) gName = g.getGroupName();
-                String uName = "N/A";
-                for (UnitMeasure u : uoms) if(u.getId().equals(p.getUomId())) uName = u.getSymbol();
+            KeysetPage<Product> page = productService.listProducts(null, PAGE_SIZE, Sort.Direction.ASC);
+            while (true) {
+                for (Product p : page.getItems()) {
+                    String gName = "N/A";
+                    for (ProductGroup g : groups) if(g.getId().equals(p.getProductGroupId())) gName = g.getGroupName();
+                    String uName = "N/A";
+                    for (UnitMeasure u : uoms) if(u.getId().equals(p.getUomId())) uName = u.getSymbol();
 
-                System.out.printf("%-6s | %-15s | $%-9.2f | %-15s | %-10s%n",
-                        p.getId(), p.getName(), p.getPrice(), gName, uName);
+                    System.out.printf("%-6s | %-15s | $%-9.2f | %-15s | %-10s%n",
+                            p.getId(), p.getName(), p.getPrice(), gName, uName);
+                }
+                if (!page.hasNext()) break;
+                System.out.print("-- Enter for next page, 'q' to stop: ");
+                if (s.nextLine().trim().equalsIgnoreCase("q")) break;
+                page = productService.listProducts(page.getNextCursor(), PAGE_SIZE, Sort.Direction.ASC);
             }
             System.out.println("==========================================================");
 
@@ -115,8 +126,12 @@ public class ProductMenu {
         } else if (c.equals("4")) {
             System.out.print("ID to Delete (0 to cancel): "); String id = s.nextLine();
             if (!id.equals("0")) {
-                productService.deleteProduct(id);
-                System.out.println("✅ Deleted.");
+                try {
+                    productService.deleteProduct(id);
+                    System.out.println("✅ Deleted.");
+                } catch (IllegalStateException e) {
+                    System.out.println("❌ " + e.getMessage());
+                }
             }
         }
     }
@@ -197,10 +212,9 @@ public class ProductMenu {
 
             if (uom != null) {
                 String n = prompt(s, "New Name ("+uom.getUnitName()+"): ");
-                uom.setUnitName(n);
                 String sym = prompt(s, "New Symbol ("+uom.getSymbol()+"): ");
-                uom.setSymbol(sym);
-                productService.updateUOM(id, uom);
+                // The listed UOM is the cached instance, so the edit goes in a new one
+                productService.updateUOM(id, new UnitMeasure(id, n, sym));
                 System.out.println("✅ Updated.");
             } else {
                 System.out.println("❌ UOM not found.");
@@ -247,8 +261,8 @@ public class ProductMenu {
 
             if (w != null) {
                 String d = prompt(s, "New Description ("+w.getDescription()+"): ");
-                w.setDescription(d);
-                productService.addWarehouse(w); // Save updates
+                // Save updates (as a new instance - the listed one is cached)
+                productService.addWarehouse(new Warehouse(w.getName(), w.isSystemWarehouse(), d));
                 System.out.println("✅ Updated.");
             } else {
                 System.out.println("❌ Warehouse not found.");
@@ -0,0 +1,77 @@
+package com.inventorymanagement.product_ericleechunkiat.controller;
+
+import com.inventorymanagement.common.importer.ImportFormat;
+import com.inventorymanagement.common.importer.ImportReport;
+import com.inventorymanagement.common.model.KeysetPage;
+import com.inventorymanagement.product_ericleechunkiat.model.Product;
+import com.inventorymanagement.product_ericleechunkiat.service.ProductImportService;
+import com.inventorymanagement.product_ericleechunkiat.service.ProductService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+import java.util.List;
+
+// REST access to the products; paths under /api/products
+@RestController
+@RequestMapping("/api/products")
+public class ProductController {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    // Keyset page on the product id: pass nextCursor back as 'after' for the next page
+    @GetMapping
+    public KeysetPage<Product> listProducts(@RequestParam(required = false) String after,
+                                            @RequestParam(defaultValue = "50") int limit,
+                                            @RequestParam(defaultValue = "ASC") Sort.Direction direction) {
+        return productService.listProducts(after, limit, direction);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Product> getProduct(@PathVariable String id) {
+        return ResponseEntity.of(productService.getProductById(id));
+    }
+
+    // A duplicate name (case-insensitive) is answered with 400
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Product addProduct(@RequestBody Product product) {
+        return productService.addProduct(product);
+    }
+
+    // Many products in one request: one name check and one insert
+    @PostMapping("/bulk")
+    @ResponseStatus(HttpStatus.CREATED)
+    public List<Product> addProducts(@RequestBody List<Product> products) {
+        return productService.addProducts(products);
+    }
+
+    // Products file (CSV or NDJSON) as the request body, read as it arrives; see ProductImportService
+    @PostMapping("/import")
+    public ImportReport importProducts(InputStream body,
+                                       @RequestParam(defaultValue = "csv") String format,
+                                       @RequestParam(defaultValue = "0") int chunkSize) {
+        return productImportService.importProducts(body, ImportFormat.of(format), chunkSize);
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<Product> updateProduct(@PathVariable String id, @RequestBody Product product) {
+        if (productService.getProductById(id).isEmpty()) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(productService.updateProduct(id, product));
+    }
+
+    // 404 for an unknown id, 409 while sales order lines use the product
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteProduct(@PathVariable String id) {
+        if (productService.getProductById(id).isEmpty()) return ResponseEntity.notFound().build();
+        productService.deleteProduct(id);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,15 +1,20 @@
 package com.inventorymanagement.product_ericleechunkiat.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collection = "products")
 public class Product {
     @Id
     private String id;
+    // Case-insensitive (strength 2) index, used by the name lookups in ProductRepository
+    @Indexed(name = "name_ci", collation = "{ 'locale': 'en', 'strength': 2 }")
     private String name;
     private double price;
+    @Indexed
     private String productGroupId;
+    @Indexed
     private String uomId;
 
     public Product() {}
@@ -2,15 +2,32 @@ package com.inventorymanagement.product_ericleechunkiat.repository;
 
 import com.inventorymanagement.product_ericleechunkiat.model.Product;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 
 import java.util.Optional;
 
 @Repository
 public interface ProductRepository extends MongoRepository<Product, String> {
-    // Custom finder methods (Spring generates the logic automatically)
+    // Case-insensitive name match through the name_ci collation index
+    // (a derived ...IgnoreCase query would be a regex and scan the collection)
+    @Query(value = "{ 'name': ?0 }", collation = "{ 'locale': 'en', 'strength': 2 }", exists = true)
     boolean existsByNameIgnoreCase(String name);
+
+    @Query(value = "{ 'name': ?0 }", fields = "{ '_id': 1 }", collation = "{ 'locale': 'en', 'strength': 2 }")
+    List<Product> findIdsByNameIgnoreCase(String name);
+
+    // Which of the names exist, in one query on the same index (bulk create)
+    @Query(value = "{ 'name': { '$in': ?0 } }", fields = "{ 'name': 1 }", collation = "{ 'locale': 'en', 'strength': 2 }")
+    List<Product> findNamesByNameInIgnoreCase(Collection<String> names);
+
+    // Id, name and price of the products of many names, same index (sales order import)
+    @Query(value = "{ 'name': { '$in': ?0 } }", fields = "{ 'name': 1, 'price': 1 }", collation = "{ 'locale': 'en', 'strength': 2 }")
+    List<Product> findPricesByNameInIgnoreCase(Collection<String> names);
+
+    // Custom finder methods (Spring generates the logic automatically)
      List<Product> findByProductGroupId(String groupId);
     List<Product> findByUomId(String uomId);
     Optional<Product> findByName(String name);
@@ -0,0 +1,133 @@
+package com.inventorymanagement.product_ericleechunkiat.service;
+
+import com.inventorymanagement.common.importer.BulkInserts;
+import com.inventorymanagement.common.importer.ImportFormat;
+import com.inventorymanagement.common.importer.ImportReader;
+import com.inventorymanagement.common.importer.ImportReport;
+import com.inventorymanagement.common.importer.ImportRow;
+import com.inventorymanagement.product_ericleechunkiat.model.Product;
+import com.inventorymanagement.product_ericleechunkiat.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk import of products from a CSV or NDJSON file with the columns name, price, productGroupId
+ * and uomId. The file is read a chunk of rows at a time; per chunk one collation query finds the
+ * names that already exist and one unordered bulkWrite inserts the rest. Invalid rows, names that
+ * exist or repeat in the file are rejected and reported; they do not stop the import.
+ */
+@Service
+public class ProductImportService {
+
+    @Autowired private ProductRepository productRepository;
+    @Autowired private MongoTemplate mongoTemplate;
+
+    @Value("${inventory.import.chunk-size:1000}")
+    private int defaultChunkSize;
+
+    // chunkSize <= 0 uses inventory.import.chunk-size
+    public ImportReport importProducts(InputStream in, ImportFormat format, int chunkSize) {
+        int size = chunkSize > 0 ? chunkSize : defaultChunkSize;
+        ImportReport report = new ImportReport("products");
+        // Name keys of this import, so a name repeated further down the file is rejected
+        Set<String> seen = new HashSet<>();
+        List<ImportRow> rows = new ArrayList<>();
+        List<Product> products = new ArrayList<>();
+
+        try (ImportReader reader = new ImportReader(in, format)) {
+            while (reader.hasNext()) {
+                ImportRow row = reader.next();
+                report.rowRead();
+                Product product = toProduct(row, report);
+                if (product == null) continue;
+                if (!seen.add(ProductService.nameKey(product.getName()))) {
+                    report.reject(row.getLine(), "Product '" + product.getName() + "' appears more than once in the file.");
+                    continue;
+                }
+                rows.add(row);
+                products.add(product);
+                if (products.size() >= size) writeChunk(rows, products, report);
+            }
+            writeChunk(rows, products, report);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        System.out.println(report.finish());
+        return report;
+    }
+
+    // The product of the row, or null (and the row rejected) when a value is missing or invalid
+    private Product toProduct(ImportRow row, ImportReport report) {
+        if (row.isMalformed()) {
+            report.reject(row.getLine(), row.getError());
+            return null;
+        }
+        String name = row.get("name");
+        if (name == null) {
+            report.reject(row.getLine(), "name is required.");
+            return null;
+        }
+        double price = 0;
+        String priceValue = row.get("price");
+        if (priceValue != null) {
+            try {
+                price = Double.parseDouble(priceValue);
+            } catch (NumberFormatException e) {
+                price = -1;
+            }
+            if (!(price >= 0)) {
+                report.reject(row.getLine(), "price '" + priceValue + "' is not a number >= 0.");
+                return null;
+            }
+        }
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(price);
+        product.setProductGroupId(row.get("productGroupId"));
+        product.setUomId(row.get("uomId"));
+        return product;
+    }
+
+    private void writeChunk(List<ImportRow> rows, List<Product> products, ImportReport report) {
+        if (products.isEmpty()) return;
+
+        List<String> names = new ArrayList<>();
+        for (Product product : products) names.add(product.getName());
+        Set<String> existing = new HashSet<>();
+        for (Product product : productRepository.findNamesByNameInIgnoreCase(names)) {
+            existing.add(ProductService.nameKey(product.getName()));
+        }
+
+        List<ImportRow> insertRows = new ArrayList<>();
+        List<Product> inserts = new ArrayList<>();
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            if (existing.contains(ProductService.nameKey(product.getName()))) {
+                report.reject(rows.get(i).getLine(), "Product '" + product.getName() + "' already exists.");
+            } else {
+                insertRows.add(rows.get(i));
+                inserts.add(product);
+            }
+        }
+
+        Map<Integer, String> failed = BulkInserts.insertUnordered(mongoTemplate, Product.class, inserts);
+        failed.forEach((index, error) -> report.reject(insertRows.get(index).getLine(), error));
+        report.imported(inserts.size() - failed.size(), inserts.size() - failed.size());
+        report.chunkWritten();
+
+        rows.clear();
+        products.clear();
+    }
+}
@@ -1,35 +1,117 @@
 package com.inventorymanagement.product_ericleechunkiat.service;
 
+import com.inventorymanagement.common.cache.CacheInvalidation;
+import com.inventorymanagement.common.cache.CacheInvalidationListener;
+import com.inventorymanagement.common.cache.ReferenceData;
+import com.inventorymanagement.common.cache.ReferenceDataCache;
+import com.inventorymanagement.common.model.KeysetPage;
+import com.inventorymanagement.common.service.PagingService;
 import com.inventorymanagement.product_ericleechunkiat.model.*;
 import com.inventorymanagement.product_ericleechunkiat.repository.*;
+import com.inventorymanagement.salesorder_wongxiuhuan.repository.SalesOrderItemRepository;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
 @Service
-public class ProductService {
+public class ProductService implements CacheInvalidationListener {
 
     @Autowired private ProductRepository productRepository;
     @Autowired private ProductGroupRepository groupRepository;
     @Autowired private UnitMeasureRepository uomRepository;
     @Autowired private WarehouseRepository warehouseRepository;
     @Autowired private StockCountRepository stockRepository;
+    @Autowired private PagingService pagingService;
+    @Autowired private SalesOrderItemRepository salesOrderItemRepository;
+    @Autowired private ReferenceDataCache referenceDataCache;
+
+    // lower-cased name -> product id, filled on lookup and invalidated on product writes
+    private final Map<String, String> productIdByName = new ConcurrentHashMap<>();
+
+    // The catalog lists every menu shows; reloaded after each of the writes below
+    private final ReferenceData<String, ProductGroup> productGroups =
+            new ReferenceData<>("product_groups", ProductGroup::getId, () -> groupRepository.findAll());
+    private final ReferenceData<String, UnitMeasure> unitMeasures =
+            new ReferenceData<>("unit_measures", UnitMeasure::getId, () -> uomRepository.findAll());
+    private final ReferenceData<String, Warehouse> warehouses =
+            new ReferenceData<>("warehouses", Warehouse::getName, () -> warehouseRepository.findAll());
+
+    @PostConstruct
+    public void registerReferenceData() {
+        referenceDataCache.register(productGroups);
+        referenceDataCache.register(unitMeasures);
+        referenceDataCache.register(warehouses);
+    }
 
     // ================= PRODUCT LOGIC =================
     public List<Product> getAllProducts() { return productRepository.findAll(); }
+    // Keyset page on the product id (compared as a string); afterId is the previous page's nextCursor
+    public KeysetPage<Product> listProducts(String afterId, int limit, Sort.Direction direction) {
+        String after = afterId == null || afterId.isEmpty() ? null : afterId;
+        return pagingService.page(Product.class, "id", after, limit, direction, Product::getId);
+    }
+    // Every product, read from the cursor batchSize at a time; close the stream when done
+    public Stream<Product> streamProducts(int batchSize) { return pagingService.stream(Product.class, batchSize); }
     public Optional<Product> getProductById(String id) { return productRepository.findById(id); }
 
+    // Bulk lookup for list/report screens: one $in query, id -> name
+    public Map<String, String> getProductNamesByIds(Collection<String> ids) {
+        Map<String, String> names = new HashMap<>();
+        if (ids == null || ids.isEmpty()) return names;
+        for (Product p : productRepository.findAllById(ids)) names.put(p.getId(), p.getName());
+        return names;
+    }
+
     public Product addProduct(Product product) {
         if (productRepository.existsByNameIgnoreCase(product.getName())) {
-            throw new RuntimeException("Error: Product '" + product.getName() + "' already exists.");
+            throw new IllegalArgumentException("Error: Product '" + product.getName() + "' already exists.");
+        }
+        Product saved = productRepository.save(product);
+        if (product.getName() != null) productIdByName.remove(nameKey(product.getName()));
+        return saved;
+    }
+
+    // Bulk create: one collation query checks every name, then one insertMany
+    public List<Product> addProducts(List<Product> products) {
+        if (products == null || products.isEmpty()) return List.of();
+
+        Set<String> keys = new HashSet<>();
+        List<String> names = new ArrayList<>();
+        for (Product product : products) {
+            if (product.getName() == null) continue;
+            if (!keys.add(nameKey(product.getName()))) {
+                throw new IllegalArgumentException("Error: Product '" + product.getName() + "' appears more than once.");
+            }
+            names.add(product.getName());
+        }
+        if (!names.isEmpty()) {
+            List<Product> existing = productRepository.findNamesByNameInIgnoreCase(names);
+            if (!existing.isEmpty()) {
+                throw new IllegalArgumentException("Error: Product '" + existing.get(0).getName() + "' already exists.");
+            }
         }
-        return productRepository.save(product);
+
+        List<Product> saved = productRepository.insert(products);
+        keys.forEach(productIdByName::remove);
+        return saved;
     }
 
     public Product updateProduct(String id, Product newDetails) {
         return productRepository.findById(id).map(p -> {
+            if (p.getName() != null) productIdByName.remove(nameKey(p.getName()));
             p.setName(newDetails.getName());
             p.setPrice(newDetails.getPrice());
             p.setProductGroupId(newDetails.getProductGroupId());
@@ -38,14 +120,56 @@ public class ProductService {
         }).orElseThrow(() -> new RuntimeException("Product not found"));
     }
 
-    public void deleteProduct(String id) { productRepository.deleteById(id); }
+    // IllegalStateException while sales order lines use the product
+    public void deleteProduct(String id) {
+        long lines = salesOrderItemRepository.countByProductId(id);
+        if (lines > 0) {
+            throw new IllegalStateException("Cannot delete: " + lines + " sales order line(s) use this product.");
+        }
+        productRepository.deleteById(id);
+        productIdByName.values().removeIf(id::equals);
+    }
+
+    // Case-insensitive exact name match, served from the cache or the name_ci index. Null if not found.
+    public String getProductIdByName(String name) {
+        if (name == null) return null;
+
+        String key = nameKey(name);
+        String cached = productIdByName.get(key);
+        if (cached != null) return cached;
+
+        List<Product> matches = productRepository.findIdsByNameIgnoreCase(name.trim());
+        if (matches.isEmpty()) return null;
+
+        String id = matches.get(0).getId();
+        productIdByName.put(key, id);
+        return id;
+    }
+
+    static String nameKey(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // ================= CROSS-INSTANCE INVALIDATION =================
+
+    @Override
+    public Set<String> getCollections() {
+        return Set.of("products");
+    }
+
+    @Override
+    public void invalidate(CacheInvalidation invalidation) {
+        // Groups/UOMs/warehouses are reloaded by the ReferenceDataCache; this is for the name lookups.
+        // The change carries the _id only, so they all start over.
+        productIdByName.clear();
+    }
 
     // ================= GROUP LOGIC (UPDATED FOR 1, 2, 3 IDs) =================
 
-    public List<ProductGroup> getAllProductGroups() { return groupRepository.findAll(); }
+    public List<ProductGroup> getAllProductGroups() { return new ArrayList<>(productGroups.getAll()); }
 
     public Optional<ProductGroup> getProductGroupById(String id) {
-        return groupRepository.findById(id);
+        return Optional.ofNullable(productGroups.get(id));
     }
 
     // UPDATED: Auto-Increment ID Logic
@@ -77,6 +201,7 @@ public class ProductService {
         group.setGroupName(name);
         group.setDescription(description);
         groupRepository.save(group);
+        productGroups.refresh();
         return "✅ Group Added with ID: " + nextId;
     }
 
@@ -88,6 +213,7 @@ public class ProductService {
             group.setGroupName(newName);
             group.setDescription(newDesc);
             groupRepository.save(group);
+            productGroups.refresh();
             return "✅ Group Updated Successfully.";
         } else {
             return "❌ Error: Group ID not found.";
@@ -100,13 +226,14 @@ public class ProductService {
         }
         if (groupRepository.existsById(id)) {
             groupRepository.deleteById(id);
+            productGroups.refresh();
             return "✅ Group Deleted.";
         }
         return "❌ Group not found.";
     }
 
     // ================= UOM LOGIC (UPDATED FOR 1, 2, 3 IDs) =================
-    public List<UnitMeasure> getAllUOMs() { return uomRepository.findAll(); }
+    public List<UnitMeasure> getAllUOMs() { return new ArrayList<>(unitMeasures.getAll()); }
 
     // UPDATED: Auto-Increment ID Logic for UOM
     public UnitMeasure addUOM(UnitMeasure uom) {
@@ -133,14 +260,18 @@ public class ProductService {
         }
 
         uom.setId(String.valueOf(nextId)); // Sets ID to "1", "2", etc.
-        return uomRepository.save(uom);
+        UnitMeasure saved = uomRepository.save(uom);
+        unitMeasures.refresh();
+        return saved;
     }
 
     public UnitMeasure updateUOM(String id, UnitMeasure newDetails) {
         return uomRepository.findById(id).map(u -> {
             u.setUnitName(newDetails.getUnitName());
             u.setSymbol(newDetails.getSymbol());
-            return uomRepository.save(u);
+            UnitMeasure saved = uomRepository.save(u);
+            unitMeasures.refresh();
+            return saved;
         }).orElseThrow(() -> new RuntimeException("UOM not found"));
     }
 
@@ -149,6 +280,7 @@ public class ProductService {
             throw new RuntimeException("Cannot Delete: UOM is in use.");
         }
         uomRepository.deleteById(id);
+        unitMeasures.refresh();
     }
 
     // Inside ProductService.class
@@ -165,9 +297,18 @@ public class ProductService {
     }
 
     // ================= WAREHOUSE LOGIC =================
-    public List<Warehouse> getAllWarehouses() { return warehouseRepository.findAll(); }
-    public Warehouse addWarehouse(Warehouse w) { return warehouseRepository.save(w); }
-    public void deleteWarehouse(String id) { warehouseRepository.deleteById(id); }
+    public List<Warehouse> getAllWarehouses() { return new ArrayList<>(warehouses.getAll()); }
+
+    public Warehouse addWarehouse(Warehouse w) {
+        Warehouse saved = warehouseRepository.save(w);
+        warehouses.refresh();
+        return saved;
+    }
+
+    public void deleteWarehouse(String id) {
+        warehouseRepository.deleteById(id);
+        warehouses.refresh();
+    }
 
     // ================= STOCK COUNT LOGIC =================
     public List<StockCount> getAllStockCounts() { return stockRepository.findAll(); }
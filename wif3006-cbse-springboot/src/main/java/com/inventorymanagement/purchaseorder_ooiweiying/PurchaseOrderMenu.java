@@ -3,10 +3,13 @@
 
 package com.inventorymanagement.purchaseorder_ooiweiying;
 
+import com.inventorymanagement.common.model.KeysetPage;
 import com.inventorymanagement.purchaseorder_ooiweiying.model.OrderItem;
 import com.inventorymanagement.purchaseorder_ooiweiying.model.PurchaseOrder;
+import com.inventorymanagement.purchaseorder_ooiweiying.model.PurchaseOrderQuery;
 import com.inventorymanagement.purchaseorder_ooiweiying.service.PurchaseOrderService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
@@ -16,7 +19,6 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Scanner;
-import java.util.stream.Collectors;
 
 @Component
 public class PurchaseOrderMenu {
@@ -26,6 +28,7 @@ public class PurchaseOrderMenu {
     
     private static final List<String> VALID_STATUSES = List.of("pending", "shipping", "received", "cancelled", "returned");
     private static final List<String> EDITABLE_STATUSES = List.of("pending", "shipping", "cancelled");
+    private static final int PAGE_SIZE = 20;
     
     // =================== MAIN MENU ===================
     
@@ -88,7 +91,7 @@ public class PurchaseOrderMenu {
             
             switch (input) {
                 case "1":
-                    viewPurchaseOrders();
+                    viewPurchaseOrders(scanner);
                     break;
                 case "2":
                     addPurchaseOrder(scanner);
@@ -232,11 +235,12 @@ public class PurchaseOrderMenu {
     
     // =================== PURCHASE ORDER OPERATIONS ===================
     
-    private void viewPurchaseOrders() {
-        List<PurchaseOrder> orders = purchaseOrderService.getAllPurchaseOrders();
+    // Lists orders PAGE_SIZE at a time (by orderId), asking before each further page
+    private void viewPurchaseOrders(Scanner scanner) {
+        KeysetPage<PurchaseOrder> page = purchaseOrderService.listPurchaseOrders(null, PAGE_SIZE, Sort.Direction.ASC);
         
         System.out.println("\n--- Purchase Order List ---");
-        if (orders.isEmpty()) {
+        if (page.isEmpty()) {
             System.out.println("(No purchase orders found)");
             return;
         }
@@ -246,14 +250,20 @@ public class PurchaseOrderMenu {
             "Order ID", "Order Date", "Order Number", "Vendor", "Status", "Total Price");
         System.out.println("--------------------------------------------------------------------------------------------------------");
         
-        for (PurchaseOrder order : orders) {
-            System.out.printf("%-8d | %-12s | %-15s | %-20s | %-15s | $%-11.2f%n",
-                order.getOrderId(),
-                order.getOrderDate() != null ? order.getOrderDate().format(DateTimeFormatter.ISO_LOCAL_DATE) : "N/A",
-                order.getOrderNumber(),
-                order.getVendor(),
-                order.getOrderStatus(),
-                order.getTotalPrice());
+        while (true) {
+            for (PurchaseOrder order : page.getItems()) {
+                System.out.printf("%-8d | %-12s | %-15s | %-20s | %-15s | $%-11.2f%n",
+                    order.getOrderId(),
+                    order.getOrderDate() != null ? order.getOrderDate().format(DateTimeFormatter.ISO_LOCAL_DATE) : "N/A",
+                    order.getOrderNumber(),
+                    order.getVendor(),
+                    order.getOrderStatus(),
+                    order.getTotalPrice());
+            }
+            if (!page.hasNext()) break;
+            System.out.print("-- Enter for next page, 'q' to stop: ");
+            if (scanner.nextLine().trim().equalsIgnoreCase("q")) break;
+            page = purchaseOrderService.listPurchaseOrders(page.getNextCursor(), PAGE_SIZE, Sort.Direction.ASC);
         }
         System.out.println("--------------------------------------------------------------------------------------------------------");
     }
@@ -330,9 +340,7 @@ public class PurchaseOrderMenu {
             
             PurchaseOrder newOrder = new PurchaseOrder();
             newOrder.setOrderDate(orderDate);
-            int nextId = purchaseOrderService.getNextOrderId();
-            newOrder.setOrderId(nextId);
-            newOrder.setOrderNumber(purchaseOrderService.generateOrderNumber(nextId));
+            // Order ID and order number (PO-xxx) are allocated by the service on save
             newOrder.setVendor(vendor);
             newOrder.setOrderItems(orderItems);
             newOrder.setOrderStatus("pending");
@@ -345,7 +353,7 @@ public class PurchaseOrderMenu {
             System.out.printf("Total Price: $%.2f%n", savedOrder.getTotalPrice());
             
             System.out.println("\n--- Updated Purchase Order List ---");
-            viewPurchaseOrders();
+            viewPurchaseOrders(scanner);
             
         } catch (Exception e) {
             System.out.println("Error adding purchase order: " + e.getMessage());
@@ -357,14 +365,13 @@ public class PurchaseOrderMenu {
         System.out.println("\n--- Edit Purchase Order ---");
         System.out.println("(Enter 'cancel' at any time to cancel and return to menu)");
         
-        List<PurchaseOrder> orders = purchaseOrderService.getAllPurchaseOrders();
-        if (orders.isEmpty()) {
+        if (purchaseOrderService.findPurchaseOrders(new PurchaseOrderQuery().limit(1)).isEmpty()) {
             System.out.println("No purchase orders found.");
             return;
         }
         
         System.out.println("\n--- Available Purchase Orders ---");
-        viewPurchaseOrders();
+        viewPurchaseOrders(scanner);
         
         PurchaseOrder orderToEdit = null;
         while (orderToEdit == null) {
@@ -567,14 +574,13 @@ public class PurchaseOrderMenu {
         System.out.println("\n--- Delete Purchase Order ---");
         System.out.println("(Enter 'cancel' at any time to cancel and return to menu)");
         
-        List<PurchaseOrder> orders = purchaseOrderService.getAllPurchaseOrders();
-        if (orders.isEmpty()) {
+        if (purchaseOrderService.findPurchaseOrders(new PurchaseOrderQuery().limit(1)).isEmpty()) {
             System.out.println("No purchase orders found.");
             return;
         }
         
         System.out.println("\n--- Available Purchase Orders ---");
-        viewPurchaseOrders();
+        viewPurchaseOrders(scanner);
         
         PurchaseOrder orderToDelete = null;
         while (orderToDelete == null) {
@@ -614,7 +620,7 @@ public class PurchaseOrderMenu {
             if (deleted) {
                 System.out.println("✅ Order deleted successfully!");
                 System.out.println("\n--- Updated Purchase Order List ---");
-                viewPurchaseOrders();
+                viewPurchaseOrders(scanner);
             } else {
                 System.out.println("Error deleting order.");
             }
@@ -626,26 +632,32 @@ public class PurchaseOrderMenu {
     private void viewPurchaseReports(Scanner scanner) {
         System.out.println("\n--- View Purchase Reports ---");
         
-        List<PurchaseOrder> orders = purchaseOrderService.getAllPurchaseOrders();
+        // Default: all orders sorted by Order ID ascending
+        PurchaseOrderQuery query = new PurchaseOrderQuery();
+        List<PurchaseOrder> orders = purchaseOrderService.findPurchaseOrders(query);
         
         if (orders.isEmpty()) {
             System.out.println("(No purchase orders found)");
             return;
         }
         
-        List<PurchaseOrder> currentOrders = new ArrayList<>(orders);
-        currentOrders.sort((o1, o2) -> Integer.compare(o1.getOrderId(), o2.getOrderId()));
-        
-        displayFullReport(currentOrders);
+        displayFullReport(orders);
         
         while (true) {
-            List<PurchaseOrder> filteredAndSorted = askForSortingAndFiltering(currentOrders, scanner);
-            if (filteredAndSorted == null) {
+            PurchaseOrderQuery next = askForSortingAndFiltering(query, scanner);
+            if (next == null) {
                 return;
             }
             
-            currentOrders = filteredAndSorted;
-            displayFullReport(filteredAndSorted);
+            // The database does the filtering and sorting; the query keeps the state
+            query = next;
+            orders = purchaseOrderService.findPurchaseOrders(query);
+            
+            if (orders.isEmpty() && !query.getStatuses().isEmpty()) {
+                System.out.println("No orders found with selected status(es): " + String.join(", ", query.getStatuses()));
+            }
+            
+            displayFullReport(orders);
         }
     }
     
@@ -795,9 +807,7 @@ public class PurchaseOrderMenu {
         return orderItems;
     }
     
-    private List<PurchaseOrder> askForSortingAndFiltering(List<PurchaseOrder> orders, Scanner scanner) {
-        List<PurchaseOrder> result = new ArrayList<>(orders);
-        
+    private PurchaseOrderQuery askForSortingAndFiltering(PurchaseOrderQuery query, Scanner scanner) {
         System.out.println("\n--- Sorting and Filtering Options ---");
         System.out.println("1. Filter by Status");
         System.out.println("2. Sort by Order ID");
@@ -811,35 +821,28 @@ public class PurchaseOrderMenu {
         
         if (!isValidMenuInput(option, 1, 6)) {
             System.out.println("Invalid option. Please enter a number between 1 and 6.");
-            return result;
+            return query;
         }
         
         int choice = Integer.parseInt(option);
         
         switch (choice) {
             case 1:
-                result = filterByStatus(result, scanner);
-                break;
+                return filterByStatus(query, scanner);
             case 2:
-                result = applySorting(result, "orderId", scanner);
-                break;
+                return applySorting(query, PurchaseOrderQuery.SortField.ORDER_ID, "Order ID", scanner);
             case 3:
-                result = applySorting(result, "orderDate", scanner);
-                break;
+                return applySorting(query, PurchaseOrderQuery.SortField.ORDER_DATE, "Order Date", scanner);
             case 4:
-                result = applySorting(result, "vendor", scanner);
-                break;
+                return applySorting(query, PurchaseOrderQuery.SortField.VENDOR, "Vendor", scanner);
             case 5:
-                result = applySorting(result, "totalPrice", scanner);
-                break;
-            case 6:
+                return applySorting(query, PurchaseOrderQuery.SortField.TOTAL_PRICE, "Total Price", scanner);
+            default:
                 return null;
         }
-        
-        return result;
     }
     
-    private List<PurchaseOrder> filterByStatus(List<PurchaseOrder> orders, Scanner scanner) {
+    private PurchaseOrderQuery filterByStatus(PurchaseOrderQuery query, Scanner scanner) {
         List<String> selectedStatuses = new ArrayList<>();
         
         System.out.println("\n--- Filter by Status ---");
@@ -852,7 +855,7 @@ public class PurchaseOrderMenu {
             String status = scanner.nextLine().trim().toLowerCase();
             
             if (checkCancel(status)) {
-                return orders;
+                return query;
             }
             
             if (status.equals("done")) {
@@ -880,67 +883,31 @@ public class PurchaseOrderMenu {
             }
         }
         
-        List<PurchaseOrder> filtered = orders.stream()
-            .filter(order -> selectedStatuses.contains(order.getOrderStatus().toLowerCase()))
-            .collect(Collectors.toList());
-        
-        if (filtered.isEmpty()) {
-            System.out.println("No orders found with selected status(es): " + String.join(", ", selectedStatuses));
-            return filtered;
-        }
-        
-        System.out.println("✅ Filtered by status(es): " + String.join(", ", selectedStatuses) + 
-            " (" + filtered.size() + " order(s))");
-        return filtered;
+        // The selected statuses replace any earlier status filter; the sort is kept
+        System.out.println("✅ Filtered by status(es): " + String.join(", ", selectedStatuses));
+        return new PurchaseOrderQuery()
+            .statuses(selectedStatuses)
+            .sortBy(query.getSortField(), query.getSortDirection());
     }
     
-    private List<PurchaseOrder> applySorting(List<PurchaseOrder> orders, String sortField, Scanner scanner) {
+    private PurchaseOrderQuery applySorting(PurchaseOrderQuery query, PurchaseOrderQuery.SortField sortField,
+                                            String label, Scanner scanner) {
         while (true) {
             System.out.print("\nSort order - A: Ascending, D: Descending, or 'cancel' to return (A/D/cancel): ");
             String sortOrder = scanner.nextLine().trim();
             
             if (checkCancel(sortOrder)) {
-                return orders;
+                return query;
             }
             
             sortOrder = sortOrder.toUpperCase();
             
             if (sortOrder.equals("A") || sortOrder.equals("D")) {
                 boolean ascending = sortOrder.equals("A");
-                List<PurchaseOrder> sorted = new ArrayList<>(orders);
-                
-                switch (sortField) {
-                    case "orderId":
-                        sorted.sort((o1, o2) -> ascending 
-                            ? Integer.compare(o1.getOrderId(), o2.getOrderId())
-                            : Integer.compare(o2.getOrderId(), o1.getOrderId()));
-                        System.out.println("Sorted by Order ID (" + (ascending ? "ascending" : "descending") + ")");
-                        break;
-                    case "orderDate":
-                        sorted.sort((o1, o2) -> {
-                            if (o1.getOrderDate() == null) return ascending ? -1 : 1;
-                            if (o2.getOrderDate() == null) return ascending ? 1 : -1;
-                            return ascending
-                                ? o1.getOrderDate().compareTo(o2.getOrderDate())
-                                : o2.getOrderDate().compareTo(o1.getOrderDate());
-                        });
-                        System.out.println("Sorted by Order Date (" + (ascending ? "ascending" : "descending") + ")");
-                        break;
-                    case "vendor":
-                        sorted.sort((o1, o2) -> ascending
-                            ? o1.getVendor().compareToIgnoreCase(o2.getVendor())
-                            : o2.getVendor().compareToIgnoreCase(o1.getVendor()));
-                        System.out.println("Sorted by Vendor (" + (ascending ? "ascending" : "descending") + ")");
-                        break;
-                    case "totalPrice":
-                        sorted.sort((o1, o2) -> ascending
-                            ? Double.compare(o1.getTotalPrice(), o2.getTotalPrice())
-                            : Double.compare(o2.getTotalPrice(), o1.getTotalPrice()));
-                        System.out.println("Sorted by Total Price (" + (ascending ? "ascending" : "descending") + ")");
-                        break;
-                }
-                
-                return sorted;
+                System.out.println("Sorted by " + label + " (" + (ascending ? "ascending" : "descending") + ")");
+                return new PurchaseOrderQuery()
+                    .statuses(query.getStatuses())
+                    .sortBy(sortField, ascending ? Sort.Direction.ASC : Sort.Direction.DESC);
             } else {
                 System.out.println("Invalid input. Please enter A for Ascending, D for Descending, or 'cancel' to return.");
             }
@@ -1058,9 +1025,7 @@ public class PurchaseOrderMenu {
     }
     
     private void viewGoodsReceive() {
-        List<PurchaseOrder> receivedOrders = purchaseOrderService.getAllPurchaseOrders().stream()
-            .filter(order -> order.getOrderStatus().equalsIgnoreCase("received"))
-            .collect(Collectors.toList());
+        List<PurchaseOrder> receivedOrders = purchaseOrderService.findPurchaseOrders(new PurchaseOrderQuery().statuses("received"));
         
         System.out.println("\n--- Goods Receive List ---");
         if (receivedOrders.isEmpty()) {
@@ -1093,9 +1058,7 @@ public class PurchaseOrderMenu {
         System.out.println("\n--- Add Goods Receive ---");
         System.out.println("(Enter 'cancel' at any time to cancel and return to menu)");
         
-        List<PurchaseOrder> shippingOrders = purchaseOrderService.getAllPurchaseOrders().stream()
-            .filter(order -> order.getOrderStatus().equalsIgnoreCase("shipping"))
-            .collect(Collectors.toList());
+        List<PurchaseOrder> shippingOrders = purchaseOrderService.findPurchaseOrders(new PurchaseOrderQuery().statuses("shipping"));
         
         if (shippingOrders.isEmpty()) {
             System.out.println("No purchase orders with 'shipping' status found.");
@@ -1184,9 +1147,7 @@ public class PurchaseOrderMenu {
         System.out.println("\n--- Edit Goods Receive ---");
         System.out.println("(Enter 'cancel' at any time to cancel and return to menu)");
         
-        List<PurchaseOrder> receivedOrders = purchaseOrderService.getAllPurchaseOrders().stream()
-            .filter(order -> order.getOrderStatus().equalsIgnoreCase("received"))
-            .collect(Collectors.toList());
+        List<PurchaseOrder> receivedOrders = purchaseOrderService.findPurchaseOrders(new PurchaseOrderQuery().statuses("received"));
         
         if (receivedOrders.isEmpty()) {
             System.out.println("No goods receive records found.");
@@ -1334,9 +1295,7 @@ public class PurchaseOrderMenu {
         System.out.println("\n--- Delete Goods Receive ---");
         System.out.println("(Enter 'cancel' at any time to cancel and return to menu)");
         
-        List<PurchaseOrder> receivedOrders = purchaseOrderService.getAllPurchaseOrders().stream()
-            .filter(order -> order.getOrderStatus().equalsIgnoreCase("received"))
-            .collect(Collectors.toList());
+        List<PurchaseOrder> receivedOrders = purchaseOrderService.findPurchaseOrders(new PurchaseOrderQuery().statuses("received"));
         
         if (receivedOrders.isEmpty()) {
             System.out.println("No goods receive records found.");
@@ -1469,9 +1428,7 @@ public class PurchaseOrderMenu {
     }
     
     private void viewPurchaseReturn() {
-        List<PurchaseOrder> returnedOrders = purchaseOrderService.getAllPurchaseOrders().stream()
-            .filter(order -> order.getOrderStatus().equalsIgnoreCase("returned"))
-            .collect(Collectors.toList());
+        List<PurchaseOrder> returnedOrders = purchaseOrderService.findPurchaseOrders(new PurchaseOrderQuery().statuses("returned"));
         
         System.out.println("\n--- Purchase Return List ---");
         if (returnedOrders.isEmpty()) {
@@ -1506,9 +1463,7 @@ public class PurchaseOrderMenu {
         System.out.println("\n--- Add Purchase Return ---");
         System.out.println("(Enter 'cancel' at any time to cancel and return to menu)");
         
-        List<PurchaseOrder> receivedOrders = purchaseOrderService.getAllPurchaseOrders().stream()
-            .filter(order -> order.getOrderStatus().equalsIgnoreCase("received"))
-            .collect(Collectors.toList());
+        List<PurchaseOrder> receivedOrders = purchaseOrderService.findPurchaseOrders(new PurchaseOrderQuery().statuses("received"));
         
         if (receivedOrders.isEmpty()) {
             System.out.println("No purchase orders with 'received' status found.");
@@ -1600,9 +1555,7 @@ public class PurchaseOrderMenu {
         System.out.println("\n--- Edit Purchase Return ---");
         System.out.println("(Enter 'cancel' at any time to cancel and return to menu)");
         
-        List<PurchaseOrder> returnedOrders = purchaseOrderService.getAllPurchaseOrders().stream()
-            .filter(order -> order.getOrderStatus().equalsIgnoreCase("returned"))
-            .collect(Collectors.toList());
+        List<PurchaseOrder> returnedOrders = purchaseOrderService.findPurchaseOrders(new PurchaseOrderQuery().statuses("returned"));
         
         if (returnedOrders.isEmpty()) {
             System.out.println("No purchase return records found.");
@@ -1754,9 +1707,7 @@ public class PurchaseOrderMenu {
         System.out.println("\n--- Delete Purchase Return ---");
         System.out.println("(Enter 'cancel' at any time to cancel and return to menu)");
         
-        List<PurchaseOrder> returnedOrders = purchaseOrderService.getAllPurchaseOrders().stream()
-            .filter(order -> order.getOrderStatus().equalsIgnoreCase("returned"))
-            .collect(Collectors.toList());
+        List<PurchaseOrder> returnedOrders = purchaseOrderService.findPurchaseOrders(new PurchaseOrderQuery().statuses("returned"));
         
         if (returnedOrders.isEmpty()) {
             System.out.println("No purchase return records found.");
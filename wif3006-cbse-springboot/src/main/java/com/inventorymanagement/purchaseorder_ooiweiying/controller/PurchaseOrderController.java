@@ -0,0 +1,64 @@
+package com.inventorymanagement.purchaseorder_ooiweiying.controller;
+
+import com.inventorymanagement.common.model.KeysetPage;
+import com.inventorymanagement.purchaseorder_ooiweiying.model.PurchaseOrder;
+import com.inventorymanagement.purchaseorder_ooiweiying.service.PurchaseOrderService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+// REST access to the purchase orders, addressed by their sequential orderId; paths under /api/purchase-orders
+@RestController
+@RequestMapping("/api/purchase-orders")
+public class PurchaseOrderController {
+
+    @Autowired
+    private PurchaseOrderService purchaseOrderService;
+
+    // Keyset page on orderId: pass nextCursor back as 'after' for the next page
+    @GetMapping
+    public KeysetPage<PurchaseOrder> listPurchaseOrders(@RequestParam(required = false) String after,
+                                                        @RequestParam(defaultValue = "50") int limit,
+                                                        @RequestParam(defaultValue = "ASC") Sort.Direction direction) {
+        return purchaseOrderService.listPurchaseOrders(after, limit, direction);
+    }
+
+    @GetMapping("/{orderId}")
+    public ResponseEntity<PurchaseOrder> getPurchaseOrder(@PathVariable int orderId) {
+        return ResponseEntity.of(purchaseOrderService.getPurchaseOrderByOrderId(orderId));
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public PurchaseOrder createPurchaseOrder(@Valid @RequestBody PurchaseOrder purchaseOrder) {
+        purchaseOrder.setId(null);
+        return purchaseOrderService.createPurchaseOrder(purchaseOrder);
+    }
+
+    // Many orders in one request: one sequence reservation and one insert
+    @PostMapping("/bulk")
+    @ResponseStatus(HttpStatus.CREATED)
+    public List<PurchaseOrder> createPurchaseOrders(@Valid @RequestBody List<PurchaseOrder> purchaseOrders) {
+        purchaseOrders.forEach(purchaseOrder -> purchaseOrder.setId(null));
+        return purchaseOrderService.createPurchaseOrders(purchaseOrders);
+    }
+
+    @PutMapping("/{orderId}")
+    public ResponseEntity<PurchaseOrder> updatePurchaseOrder(@PathVariable int orderId,
+                                                             @Valid @RequestBody PurchaseOrder purchaseOrder) {
+        PurchaseOrder updated = purchaseOrderService.updatePurchaseOrderByOrderId(orderId, purchaseOrder);
+        return updated != null ? ResponseEntity.ok(updated) : ResponseEntity.notFound().build();
+    }
+
+    @DeleteMapping("/{orderId}")
+    public ResponseEntity<Void> deletePurchaseOrder(@PathVariable int orderId) {
+        return purchaseOrderService.deletePurchaseOrderByOrderId(orderId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+}
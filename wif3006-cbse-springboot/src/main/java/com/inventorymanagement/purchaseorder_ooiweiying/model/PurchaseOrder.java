@@ -1,6 +1,8 @@
 package com.inventorymanagement.purchaseorder_ooiweiying.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
@@ -12,18 +14,22 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Document(collection = "purchase_orders")
+@CompoundIndex(name = "status_orderDate", def = "{ 'orderStatus': 1, 'orderDate': 1 }")
 public class PurchaseOrder {
     
     @Id
     private String id; // MongoDB ObjectId
     
+    @Indexed
     private int orderId; // Sequential ID for display purposes
     
+    @Indexed
     @NotBlank(message = "Order number is required")
     private String orderNumber; // Auto-generated format: PO-XXX
     
     private LocalDate orderDate;
     
+    @Indexed
     @NotBlank(message = "Vendor is required")
     private String vendor;
     
@@ -17,4 +17,7 @@ public interface PurchaseOrderRepository extends MongoRepository<PurchaseOrder,
     Optional<PurchaseOrder> findByOrderId(Integer orderId);
     
     List<PurchaseOrder> findByVendor(String vendor);
+    
+    // Highest orderId, used once to seed the order ID sequence
+    Optional<PurchaseOrder> findTopByOrderByOrderIdDesc();
 }
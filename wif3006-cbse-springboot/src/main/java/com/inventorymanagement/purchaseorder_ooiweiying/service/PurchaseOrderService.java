@@ -1,21 +1,61 @@
 package com.inventorymanagement.purchaseorder_ooiweiying.service;
 
+import com.inventorymanagement.common.model.KeysetPage;
+import com.inventorymanagement.common.service.PagingService;
+import com.inventorymanagement.common.service.SequenceGeneratorService;
 import com.inventorymanagement.purchaseorder_ooiweiying.model.OrderItem;
 import com.inventorymanagement.purchaseorder_ooiweiying.model.PurchaseOrder;
+import com.inventorymanagement.purchaseorder_ooiweiying.model.PurchaseOrderQuery;
 import com.inventorymanagement.purchaseorder_ooiweiying.repository.PurchaseOrderRepository;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Collation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 public class PurchaseOrderService {
     
+    // Counter document in the shared "counters" collection
+    static final String ORDER_ID_SEQUENCE = "purchase_order_id";
+    
+    // Strength 2 = ignore case, for the vendor sort of the report
+    private static final Collation VENDOR_COLLATION =
+            Collation.of("en").strength(Collation.ComparisonLevel.secondary());
+    
     @Autowired
     private PurchaseOrderRepository purchaseOrderRepository;
     
+    @Autowired
+    private SequenceGeneratorService sequenceGeneratorService;
+    
+    @Autowired
+    private PagingService pagingService;
+    
+    @Autowired
+    private MongoOperations mongoOperations;
+    
+    // Seed the counter from orders created before the sequence existed (no-op afterwards)
+    @PostConstruct
+    public void seedOrderIdSequence() {
+        int maxOrderId = purchaseOrderRepository.findTopByOrderByOrderIdDesc()
+                .map(PurchaseOrder::getOrderId)
+                .orElse(0);
+        sequenceGeneratorService.ensureAtLeast(ORDER_ID_SEQUENCE, maxOrderId);
+    }
+    
     // =================== CRUD Operations ===================
     
     public PurchaseOrder createPurchaseOrder(PurchaseOrder purchaseOrder) {
@@ -23,7 +63,27 @@ public class PurchaseOrderService {
         if (purchaseOrder.getOrderId() == 0) {
             purchaseOrder.setOrderId(getNextOrderId());
         }
+        applyCreateDefaults(purchaseOrder);
         
+        return purchaseOrderRepository.save(purchaseOrder);
+    }
+    
+    // Bulk create: the missing orderIds of the whole batch in one sequence round trip, then one insertMany
+    public List<PurchaseOrder> createPurchaseOrders(List<PurchaseOrder> purchaseOrders) {
+        if (purchaseOrders == null || purchaseOrders.isEmpty()) return List.of();
+        
+        int missing = (int) purchaseOrders.stream().filter(po -> po.getOrderId() == 0).count();
+        long nextId = missing > 0 ? sequenceGeneratorService.nextRange(ORDER_ID_SEQUENCE, missing) : 0;
+        for (PurchaseOrder purchaseOrder : purchaseOrders) {
+            if (purchaseOrder.getOrderId() == 0) {
+                purchaseOrder.setOrderId(Math.toIntExact(nextId++));
+            }
+            applyCreateDefaults(purchaseOrder);
+        }
+        return purchaseOrderRepository.insert(purchaseOrders);
+    }
+    
+    private void applyCreateDefaults(PurchaseOrder purchaseOrder) {
         // Auto-generate order number if not set
         if (purchaseOrder.getOrderNumber() == null || purchaseOrder.getOrderNumber().isEmpty()) {
             purchaseOrder.setOrderNumber(generateOrderNumber(purchaseOrder.getOrderId()));
@@ -33,14 +93,28 @@ public class PurchaseOrderService {
         if (purchaseOrder.getOrderStatus() == null || purchaseOrder.getOrderStatus().isEmpty()) {
             purchaseOrder.setOrderStatus("pending");
         }
-        
-        return purchaseOrderRepository.save(purchaseOrder);
     }
     
     public List<PurchaseOrder> getAllPurchaseOrders() {
         return purchaseOrderRepository.findAll();
     }
     
+    // Keyset page on orderId: afterId is the nextCursor of the previous page (null for the first page)
+    public KeysetPage<PurchaseOrder> listPurchaseOrders(String afterId, int limit, Sort.Direction direction) {
+        Integer after;
+        try {
+            after = afterId == null || afterId.isEmpty() ? null : Integer.valueOf(afterId);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page cursor: " + afterId);
+        }
+        return pagingService.page(PurchaseOrder.class, "orderId", after, limit, direction, PurchaseOrder::getOrderId);
+    }
+    
+    // Every purchase order, read from the cursor batchSize at a time; close the stream when done
+    public Stream<PurchaseOrder> streamPurchaseOrders(int batchSize) {
+        return pagingService.stream(PurchaseOrder.class, batchSize);
+    }
+    
     public Optional<PurchaseOrder> getPurchaseOrderById(String id) {
         return purchaseOrderRepository.findById(id);
     }
@@ -103,6 +177,53 @@ public class PurchaseOrderService {
         return purchaseOrderRepository.findByOrderStatus(status);
     }
     
+    // Filters, sorts and limits on the server (orderStatus + orderDate and vendor are indexed)
+    public List<PurchaseOrder> findPurchaseOrders(PurchaseOrderQuery query) {
+        Criteria criteria = toCriteria(query);
+        String field = query.getSortField().getField();
+        int direction = query.getSortDirection() == Sort.Direction.DESC ? -1 : 1;
+        
+        if (query.getSortField() == PurchaseOrderQuery.SortField.TOTAL_PRICE) {
+            // The total is not stored, so it is computed from the items on the server after the match
+            Document itemTotals = new Document("$map", new Document("input", new Document("$ifNull", List.of("$orderItems", List.of())))
+                    .append("as", "item")
+                    .append("in", new Document("$multiply", List.of("$$item.quantity", "$$item.pricePerItem"))));
+            List<AggregationOperation> stages = new ArrayList<>();
+            stages.add(Aggregation.match(criteria));
+            stages.add(context -> new Document("$addFields", new Document("totalPrice", new Document("$sum", itemTotals))));
+            // orderId breaks ties so equal totals come back in a stable order
+            stages.add(context -> new Document("$sort", new Document(field, direction).append("orderId", direction)));
+            if (query.getLimit() > 0) stages.add(Aggregation.limit(query.getLimit()));
+            return mongoOperations.aggregate(Aggregation.newAggregation(stages), PurchaseOrder.class, PurchaseOrder.class)
+                    .getMappedResults();
+        }
+        
+        Query mongoQuery = new Query(criteria).with(Sort.by(query.getSortDirection(), field, "orderId"));
+        if (query.getSortField() == PurchaseOrderQuery.SortField.VENDOR) {
+            // Vendor names sort case-insensitively, as the report did in memory
+            mongoQuery.collation(VENDOR_COLLATION);
+        }
+        if (query.getLimit() > 0) mongoQuery.limit(query.getLimit());
+        return mongoOperations.find(mongoQuery, PurchaseOrder.class);
+    }
+    
+    private Criteria toCriteria(PurchaseOrderQuery query) {
+        List<Criteria> criteria = new ArrayList<>();
+        if (!query.getStatuses().isEmpty()) criteria.add(Criteria.where("orderStatus").in(query.getStatuses()));
+        if (query.getVendor() != null) criteria.add(Criteria.where("vendor").is(query.getVendor()));
+        addRange(criteria, "orderDate", query.getOrderDateFrom(), query.getOrderDateTo());
+        addRange(criteria, "receivedDate", query.getReceivedDateFrom(), query.getReceivedDateTo());
+        return criteria.isEmpty() ? new Criteria() : new Criteria().andOperator(criteria);
+    }
+    
+    private void addRange(List<Criteria> criteria, String field, LocalDate from, LocalDate to) {
+        if (from == null && to == null) return;
+        Criteria range = Criteria.where(field);
+        if (from != null) range.gte(from);
+        if (to != null) range.lte(to);
+        criteria.add(range);
+    }
+    
     // =================== Status Transition Methods ===================
     
     public PurchaseOrder updateStatusToReceived(String id) {
@@ -171,15 +292,10 @@ public class PurchaseOrderService {
     
     // =================== Business Logic Methods ===================
     
+    // Atomic $inc on the counter document: O(1) and no duplicate IDs under concurrent creates.
+    // Every call consumes an ID.
     public int getNextOrderId() {
-        List<PurchaseOrder> allOrders = purchaseOrderRepository.findAll();
-        int maxId = 0;
-        for (PurchaseOrder order : allOrders) {
-            if (order.getOrderId() > maxId) {
-                maxId = order.getOrderId();
-            }
-        }
-        return maxId + 1;
+        return Math.toIntExact(sequenceGeneratorService.next(ORDER_ID_SEQUENCE));
     }
     
     public String generateOrderNumber(Integer orderId) {
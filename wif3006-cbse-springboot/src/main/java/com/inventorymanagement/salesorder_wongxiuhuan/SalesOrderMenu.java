@@ -1,8 +1,10 @@
 package com.inventorymanagement.salesorder_wongxiuhuan;
 
+import com.inventorymanagement.common.model.KeysetPage;
 import com.inventorymanagement.salesorder_wongxiuhuan.model.*;
 import com.inventorymanagement.salesorder_wongxiuhuan.service.SalesOrderService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
@@ -10,8 +12,13 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Component
 public class SalesOrderMenu {
@@ -19,12 +26,26 @@ public class SalesOrderMenu {
     @Autowired
     private SalesOrderService salesOrderService;
 
+    private static final int PAGE_SIZE = 20;
+
     private String promptForUpdate(Scanner scanner, String label, String currentValue) {
         System.out.print(label + " [" + currentValue + "]: ");
         String input = scanner.nextLine();
         return input.trim().isEmpty() ? currentValue : input;
     }
 
+    // Asks before fetching the next page of a list; false on the last page or when the user stops
+    private boolean wantsNextPage(Scanner scanner, KeysetPage<?> page) {
+        if (!page.hasNext()) return false;
+        System.out.print("-- Enter for next page, 'q' to stop: ");
+        return !scanner.nextLine().trim().equalsIgnoreCase("q");
+    }
+
+    // Distinct, non-null reference ids of a list, for the bulk lookups of the service
+    private static <T> Set<String> idsOf(List<T> rows, Function<T, String> idGetter) {
+        return rows.stream().map(idGetter).filter(Objects::nonNull).collect(Collectors.toSet());
+    }
+
     public void start(Scanner scanner) {
         boolean back = false;
         while (!back) {
@@ -67,7 +88,7 @@ public class SalesOrderMenu {
 
             switch (choice) {
                 case "1":
-                    viewAllSalesOrders();
+                    viewAllSalesOrders(scanner);
                     break;
                 case "2":
                     performAddSalesOrder(scanner);
@@ -90,9 +111,9 @@ public class SalesOrderMenu {
         }
     }
 
-    private void viewAllSalesOrders() {
-        List<SalesOrder> orders = salesOrderService.getAllSalesOrders();
-        if (orders.isEmpty()) {
+    private void viewAllSalesOrders(Scanner scanner) {
+        KeysetPage<SalesOrder> page = salesOrderService.listSalesOrders(null, PAGE_SIZE, Sort.Direction.ASC);
+        if (page.isEmpty()) {
             System.out.println("No sales orders found.");
         } else {
             System.out.println("\n--- Sales Order List ---");
@@ -103,52 +124,61 @@ public class SalesOrderMenu {
             System.out.println("--------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------");
 
             int i = 1;
-            for (SalesOrder order : orders) {
-                String orderDate = (order.getOrderDate() != null) ? order.getOrderDate().toString() : "N/A";
-                String customer = salesOrderService.getCustomerNameById(order.getCustomerId());
+            while (true) {
+                List<SalesOrder> orders = page.getItems();
+                // Resolve customers and tax rates for the whole page in one query each
+                Map<String, String> customerNames = salesOrderService.getCustomerNamesByIds(idsOf(orders, SalesOrder::getCustomerId));
+                Map<String, BigDecimal> taxRates = salesOrderService.getTaxRatesByIds(idsOf(orders, SalesOrder::getTaxId));
+
+                for (SalesOrder order : orders) {
+                    String orderDate = (order.getOrderDate() != null) ? order.getOrderDate().toString() : "N/A";
+                    String customer = customerNames.getOrDefault(order.getCustomerId(), "Unknown");
                 
-                // Truncate customer name if too long
-                if (customer.length() > 11) {
-                    customer = customer.substring(0, 8) + "...";
-                }
+                    // Truncate customer name if too long
+                    if (customer.length() > 11) {
+                        customer = customer.substring(0, 8) + "...";
+                    }
             
-                String taxRate = "0";
-                if (order.getTaxId() != null && !order.getTaxId().trim().isEmpty()) {
-                    BigDecimal rate = salesOrderService.getTaxRateById(order.getTaxId());
-                    taxRate = (rate != null) ? rate.toString() : "0";
-                }
+                    String taxRate = "0";
+                    if (order.getTaxId() != null && !order.getTaxId().trim().isEmpty()) {
+                        BigDecimal rate = taxRates.getOrDefault(order.getTaxId(), BigDecimal.ZERO);
+                        taxRate = rate.toString();
+                    }
             
-                BigDecimal beforeTax = order.getBeforeTaxAmount() != null ? order.getBeforeTaxAmount() : BigDecimal.ZERO;
-                BigDecimal taxAmt = order.getTaxAmount() != null ? order.getTaxAmount() : BigDecimal.ZERO;
-                BigDecimal afterTax = order.getAfterTaxAmount() != null ? order.getAfterTaxAmount() : BigDecimal.ZERO;
+                    BigDecimal beforeTax = order.getBeforeTaxAmount() != null ? order.getBeforeTaxAmount() : BigDecimal.ZERO;
+                    BigDecimal taxAmt = order.getTaxAmount() != null ? order.getTaxAmount() : BigDecimal.ZERO;
+                    BigDecimal afterTax = order.getAfterTaxAmount() != null ? order.getAfterTaxAmount() : BigDecimal.ZERO;
             
-                String createdDate = (order.getCreatedDate() != null) ? order.getCreatedDate().format(formatter) : "N/A";
-                String updatedDate = (order.getUpdatedDate() != null) ? order.getUpdatedDate().format(formatter) : "-";
+                    String createdDate = (order.getCreatedDate() != null) ? order.getCreatedDate().format(formatter) : "N/A";
+                    String updatedDate = (order.getUpdatedDate() != null) ? order.getUpdatedDate().format(formatter) : "-";
 
-                String beforeTaxStr = String.format("%.2f", beforeTax);
-                String taxAmtStr = String.format("%.2f", taxAmt);
-                String afterTaxStr = String.format("%.2f", afterTax);
+                    String beforeTaxStr = String.format("%.2f", beforeTax);
+                    String taxAmtStr = String.format("%.2f", taxAmt);
+                    String afterTaxStr = String.format("%.2f", afterTax);
                 
-                // Truncate description if too long
-                String description = (order.getDescription() != null && !order.getDescription().isEmpty()) 
-                        ? order.getDescription() : "N/A";
-                if (description.length() > 18) {
-                    description = description.substring(0, 15) + "...";
+                    // Truncate description if too long
+                    String description = (order.getDescription() != null && !order.getDescription().isEmpty()) 
+                            ? order.getDescription() : "N/A";
+                    if (description.length() > 18) {
+                        description = description.substring(0, 15) + "...";
+                    }
+
+                    System.out.printf("%-4d %-20s %-12s %-13s %-7s %-11s %-10s %-11s %-12s %-20s %-17s %-17s%n",
+                            i++,
+                            order.getOrderNumber(),
+                            orderDate,
+                            customer,
+                            taxRate,
+                            beforeTaxStr,
+                            taxAmtStr,
+                            afterTaxStr,
+                            order.getOrderStatus(),
+                            description,
+                            createdDate,
+                            updatedDate);
                 }
-
-                System.out.printf("%-4d %-20s %-12s %-13s %-7s %-11s %-10s %-11s %-12s %-20s %-17s %-17s%n",
-                        i++,
-                        order.getOrderNumber(),
-                        orderDate,
-                        customer,
-                        taxRate,
-                        beforeTaxStr,
-                        taxAmtStr,
-                        afterTaxStr,
-                        order.getOrderStatus(),
-                        description,
-                        createdDate,
-                        updatedDate);
+                if (!wantsNextPage(scanner, page)) break;
+                page = salesOrderService.listSalesOrders(page.getNextCursor(), PAGE_SIZE, Sort.Direction.ASC);
             }
         }
     }
@@ -366,10 +396,11 @@ public class SalesOrderMenu {
             System.out.println("----------------------------------------------------------------------------------------------------------------------------");
 
             DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+            Map<String, String> productNames = salesOrderService.getProductNamesByIds(idsOf(items, SalesOrderItem::getProductId));
             int i = 1;
             BigDecimal grandTotal = BigDecimal.ZERO;
             for (SalesOrderItem item : items) {
-                String productName = salesOrderService.getProductNameById(item.getProductId());
+                String productName = productNames.getOrDefault(item.getProductId(), "Unknown");
                 BigDecimal itemTotal = item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity()));
                 grandTotal = grandTotal.add(itemTotal);
                 
@@ -534,10 +565,15 @@ public class SalesOrderMenu {
                 "Order Number", "Customer", "Items", "Total Amount");
         System.out.println("------------------------------------------------------------------------");
 
+        // One query per entity type for the whole report instead of several per order
+        Map<String, List<SalesOrderItem>> itemsByOrder = salesOrderService.getItemsByOrderIds(idsOf(orders, SalesOrder::getId));
+        Map<String, String> customerNames = salesOrderService.getCustomerNamesByIds(idsOf(orders, SalesOrder::getCustomerId));
+        Map<String, BigDecimal> taxRates = salesOrderService.getTaxRatesByIds(idsOf(orders, SalesOrder::getTaxId));
+
         BigDecimal overallTotal = BigDecimal.ZERO;
         for (SalesOrder order : orders) {
-            List<SalesOrderItem> items = salesOrderService.getItemsByOrderId(order.getId());
-            String customer = salesOrderService.getCustomerNameById(order.getCustomerId());
+            List<SalesOrderItem> items = itemsByOrder.getOrDefault(order.getId(), List.of());
+            String customer = customerNames.getOrDefault(order.getCustomerId(), "Unknown");
             
             BigDecimal orderTotal = BigDecimal.ZERO;
             for (SalesOrderItem item : items) {
@@ -546,7 +582,7 @@ public class SalesOrderMenu {
 
             // Apply tax if exists
             if (order.getTaxId() != null) {
-                BigDecimal taxRate = salesOrderService.getTaxRateById(order.getTaxId());
+                BigDecimal taxRate = taxRates.getOrDefault(order.getTaxId(), BigDecimal.ZERO);
                 BigDecimal taxAmount = orderTotal.multiply(taxRate).divide(BigDecimal.valueOf(100));
                 orderTotal = orderTotal.add(taxAmount);
             }
@@ -590,9 +626,11 @@ public class SalesOrderMenu {
                 "Product", "Unit Price", "Quantity", "Total");
         System.out.println("------------------------------------------------------------------------------");
 
+        Map<String, String> productNames = salesOrderService.getProductNamesByIds(idsOf(items, SalesOrderItem::getProductId));
+
         BigDecimal subtotal = BigDecimal.ZERO;
         for (SalesOrderItem item : items) {
-            String productName = salesOrderService.getProductNameById(item.getProductId());
+            String productName = productNames.getOrDefault(item.getProductId(), "Unknown");
             BigDecimal itemTotal = item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity()));
             subtotal = subtotal.add(itemTotal);
 
@@ -631,7 +669,7 @@ public class SalesOrderMenu {
 
             switch (choice) {
                 case "1":
-                    viewAllDeliveryOrders();
+                    viewAllDeliveryOrders(scanner);
                     break;
                 case "2":
                     performAddDeliveryOrder(scanner);
@@ -651,9 +689,9 @@ public class SalesOrderMenu {
         }
     }
 
-    private void viewAllDeliveryOrders() {
-        List<DeliveryOrder> orders = salesOrderService.getAllDeliveryOrders();
-        if (orders.isEmpty()) {
+    private void viewAllDeliveryOrders(Scanner scanner) {
+        KeysetPage<DeliveryOrder> page = salesOrderService.listDeliveryOrders(null, PAGE_SIZE, Sort.Direction.ASC);
+        if (page.isEmpty()) {
             System.out.println("No delivery orders found.");
         } else {
             System.out.println("\n--- Delivery Order List ---");
@@ -664,28 +702,35 @@ public class SalesOrderMenu {
             System.out.println("------------------------------------------------------------------------------------------------------------------------------------------------------------");
 
             int i = 1;
-            for (DeliveryOrder order : orders) {
-                String deliveryDate = (order.getDeliveryDate() != null) ? order.getDeliveryDate().toString() : "N/A";
-                String salesOrderNum = salesOrderService.getSalesOrderNumberById(order.getSalesOrderId());
-                String createdDate = (order.getCreatedDate() != null) ? order.getCreatedDate().format(formatter) : "N/A";
-                String updatedDate = (order.getUpdatedDate() != null) ? order.getUpdatedDate().format(formatter) : "-";
+            while (true) {
+                List<DeliveryOrder> orders = page.getItems();
+                Map<String, String> salesOrderNumbers = salesOrderService.getSalesOrderNumbersByIds(idsOf(orders, DeliveryOrder::getSalesOrderId));
+
+                for (DeliveryOrder order : orders) {
+                    String deliveryDate = (order.getDeliveryDate() != null) ? order.getDeliveryDate().toString() : "N/A";
+                    String salesOrderNum = salesOrderNumbers.getOrDefault(order.getSalesOrderId(), "Unknown");
+                    String createdDate = (order.getCreatedDate() != null) ? order.getCreatedDate().format(formatter) : "N/A";
+                    String updatedDate = (order.getUpdatedDate() != null) ? order.getUpdatedDate().format(formatter) : "-";
                 
-                // Truncate description if too long
-                String description = (order.getDescription() != null && !order.getDescription().isEmpty()) 
-                        ? order.getDescription() : "N/A";
-                if (description.length() > 18) {
-                    description = description.substring(0, 15) + "...";
+                    // Truncate description if too long
+                    String description = (order.getDescription() != null && !order.getDescription().isEmpty()) 
+                            ? order.getDescription() : "N/A";
+                    if (description.length() > 18) {
+                        description = description.substring(0, 15) + "...";
+                    }
+
+                    System.out.printf("%-4d %-18s %-15s %-18s %-12s %-20s %-17s %-17s%n",
+                            i++,
+                            order.getDeliveryNumber(),
+                            deliveryDate,
+                            salesOrderNum,
+                            order.getStatus(),
+                            description,
+                            createdDate,
+                            updatedDate);
                 }
-
-                System.out.printf("%-4d %-18s %-15s %-18s %-12s %-20s %-17s %-17s%n",
-                        i++,
-                        order.getDeliveryNumber(),
-                        deliveryDate,
-                        salesOrderNum,
-                        order.getStatus(),
-                        description,
-                        createdDate,
-                        updatedDate);
+                if (!wantsNextPage(scanner, page)) break;
+                page = salesOrderService.listDeliveryOrders(page.getNextCursor(), PAGE_SIZE, Sort.Direction.ASC);
             }
         }
     }
@@ -797,7 +842,7 @@ public class SalesOrderMenu {
 
             switch (choice) {
                 case "1":
-                    viewAllSalesReturns();
+                    viewAllSalesReturns(scanner);
                     break;
                 case "2":
                     performAddSalesReturn(scanner);
@@ -817,9 +862,9 @@ public class SalesOrderMenu {
         }
     }
 
-    private void viewAllSalesReturns() {
-        List<SalesReturn> returns = salesOrderService.getAllSalesReturns();
-        if (returns.isEmpty()) {
+    private void viewAllSalesReturns(Scanner scanner) {
+        KeysetPage<SalesReturn> page = salesOrderService.listSalesReturns(null, PAGE_SIZE, Sort.Direction.ASC);
+        if (page.isEmpty()) {
             System.out.println("No sales returns found.");
         } else {
             System.out.println("\n--- Sales Return List ---");
@@ -830,27 +875,34 @@ public class SalesOrderMenu {
             System.out.println("-----------------------------------------------------------------------------------------------------------------");
 
             int i = 1;
-            for (SalesReturn returnOrder : returns) {
-                String returnDate = (returnOrder.getReturnDate() != null) ? returnOrder.getReturnDate().toString() : "N/A";
-                String deliveryNum = salesOrderService.getDeliveryOrderNumberById(returnOrder.getDeliveryOrderId());
-                String createdDate = (returnOrder.getCreatedDate() != null) ? returnOrder.getCreatedDate().format(formatter) : "N/A";
-                String updatedDate = (returnOrder.getUpdatedDate() != null) ? returnOrder.getUpdatedDate().format(formatter) : "-";
-
-                String description = (returnOrder.getDescription() != null && !returnOrder.getDescription().isEmpty()) 
-                        ? returnOrder.getDescription() : "N/A";
-                if (description.length() > 18) {
-                    description = description.substring(0, 15) + "...";
-                }
+            while (true) {
+                List<SalesReturn> returns = page.getItems();
+                Map<String, String> deliveryNumbers = salesOrderService.getDeliveryOrderNumbersByIds(idsOf(returns, SalesReturn::getDeliveryOrderId));
+
+                for (SalesReturn returnOrder : returns) {
+                    String returnDate = (returnOrder.getReturnDate() != null) ? returnOrder.getReturnDate().toString() : "N/A";
+                    String deliveryNum = deliveryNumbers.getOrDefault(returnOrder.getDeliveryOrderId(), "Unknown");
+                    String createdDate = (returnOrder.getCreatedDate() != null) ? returnOrder.getCreatedDate().format(formatter) : "N/A";
+                    String updatedDate = (returnOrder.getUpdatedDate() != null) ? returnOrder.getUpdatedDate().format(formatter) : "-";
+
+                    String description = (returnOrder.getDescription() != null && !returnOrder.getDescription().isEmpty()) 
+                            ? returnOrder.getDescription() : "N/A";
+                    if (description.length() > 18) {
+                        description = description.substring(0, 15) + "...";
+                    }
                 
-                System.out.printf("%-4d %-18s %-15s %-18s %-12s %-20s %-17s %-17s%n",
-                        i++,        
-                        returnOrder.getReturnNumber(),
-                        returnDate,
-                        deliveryNum,
-                        returnOrder.getStatus(),
-                        description,
-                        createdDate,
-                        updatedDate);
+                    System.out.printf("%-4d %-18s %-15s %-18s %-12s %-20s %-17s %-17s%n",
+                            i++,        
+                            returnOrder.getReturnNumber(),
+                            returnDate,
+                            deliveryNum,
+                            returnOrder.getStatus(),
+                            description,
+                            createdDate,
+                            updatedDate);
+                }
+                if (!wantsNextPage(scanner, page)) break;
+                page = salesOrderService.listSalesReturns(page.getNextCursor(), PAGE_SIZE, Sort.Direction.ASC);
             }
         }
     }
@@ -0,0 +1,120 @@
+package com.inventorymanagement.salesorder_wongxiuhuan.controller;
+
+import com.inventorymanagement.common.importer.ImportFormat;
+import com.inventorymanagement.common.importer.ImportReport;
+import com.inventorymanagement.common.model.KeysetPage;
+import com.inventorymanagement.salesorder_wongxiuhuan.model.SalesOrder;
+import com.inventorymanagement.salesorder_wongxiuhuan.model.SalesOrderItem;
+import com.inventorymanagement.salesorder_wongxiuhuan.service.SalesOrderImportService;
+import com.inventorymanagement.salesorder_wongxiuhuan.service.SalesOrderService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+import java.util.List;
+
+// REST access to the sales orders and their lines; paths under /api/sales-orders
+@RestController
+@RequestMapping("/api/sales-orders")
+public class SalesOrderController {
+
+    @Autowired
+    private SalesOrderService salesOrderService;
+
+    @Autowired
+    private SalesOrderImportService salesOrderImportService;
+
+    // Keyset page: pass nextCursor back as 'after' for the next page
+    @GetMapping
+    public KeysetPage<SalesOrder> listSalesOrders(@RequestParam(required = false) String after,
+                                                  @RequestParam(defaultValue = "50") int limit,
+                                                  @RequestParam(defaultValue = "ASC") Sort.Direction direction) {
+        return salesOrderService.listSalesOrders(after, limit, direction);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<SalesOrder> getSalesOrder(@PathVariable String id) {
+        return ResponseEntity.of(salesOrderService.getSalesOrderById(id));
+    }
+
+    @GetMapping("/by-number/{orderNumber}")
+    public ResponseEntity<SalesOrder> getSalesOrderByNumber(@PathVariable String orderNumber) {
+        return ResponseEntity.of(salesOrderService.getSalesOrderByNumber(orderNumber));
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public SalesOrder createSalesOrder(@Valid @RequestBody SalesOrder order) {
+        order.setId(null);
+        return salesOrderService.createSalesOrder(order);
+    }
+
+    // Many orders in one request and one insert
+    @PostMapping("/bulk")
+    @ResponseStatus(HttpStatus.CREATED)
+    public List<SalesOrder> createSalesOrders(@Valid @RequestBody List<SalesOrder> orders) {
+        orders.forEach(order -> order.setId(null));
+        return salesOrderService.createSalesOrders(orders);
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<SalesOrder> updateSalesOrder(@PathVariable String id, @Valid @RequestBody SalesOrder order) {
+        if (salesOrderService.getSalesOrderById(id).isEmpty()) return ResponseEntity.notFound().build();
+        order.setId(id);
+        return ResponseEntity.ok(salesOrderService.updateSalesOrder(order));
+    }
+
+    // 404 for an unknown id, 409 while delivery orders are linked to it
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteSalesOrder(@PathVariable String id) {
+        if (salesOrderService.getSalesOrderById(id).isEmpty()) return ResponseEntity.notFound().build();
+        salesOrderService.removeSalesOrder(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    // ==================== SALES ORDER ITEMS ====================
+
+    @GetMapping("/{id}/items")
+    public List<SalesOrderItem> getItems(@PathVariable String id) {
+        return salesOrderService.getItemsByOrderId(id);
+    }
+
+    @PostMapping("/{id}/items")
+    @ResponseStatus(HttpStatus.CREATED)
+    public SalesOrderItem addItem(@PathVariable String id, @Valid @RequestBody SalesOrderItem item) {
+        item.setId(null);
+        item.setSalesOrderId(id);
+        return salesOrderService.addSalesOrderItem(item);
+    }
+
+    // Lines of one order: one insert and one totals recalculation
+    @PostMapping("/{id}/items/bulk")
+    @ResponseStatus(HttpStatus.CREATED)
+    public List<SalesOrderItem> addItems(@PathVariable String id, @Valid @RequestBody List<SalesOrderItem> items) {
+        for (SalesOrderItem item : items) {
+            item.setId(null);
+            item.setSalesOrderId(id);
+        }
+        return salesOrderService.addSalesOrderItems(items);
+    }
+
+    // Lines of many orders (each names its salesOrderId): one insert, one recalculation per order
+    @PostMapping("/items/bulk")
+    @ResponseStatus(HttpStatus.CREATED)
+    public List<SalesOrderItem> addItemsOfManyOrders(@Valid @RequestBody List<SalesOrderItem> items) {
+        items.forEach(item -> item.setId(null));
+        return salesOrderService.addSalesOrderItems(items);
+    }
+
+    // Order lines file (CSV or NDJSON) as the request body, read as it arrives; see SalesOrderImportService
+    @PostMapping("/import")
+    public ImportReport importSalesOrders(InputStream body,
+                                          @RequestParam(defaultValue = "csv") String format,
+                                          @RequestParam(defaultValue = "0") int chunkSize) {
+        return salesOrderImportService.importSalesOrders(body, ImportFormat.of(format), chunkSize);
+    }
+}
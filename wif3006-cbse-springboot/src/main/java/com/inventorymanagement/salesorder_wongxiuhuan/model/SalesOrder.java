@@ -3,6 +3,7 @@ package com.inventorymanagement.salesorder_wongxiuhuan.model;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -19,13 +20,18 @@ public class SalesOrder {
     @NotNull(message = "Order date is required")
     private LocalDate orderDate;
     
+    // Unique now that the numbers come from a sequence; named apart from the old non-unique index
+    @Indexed(name = "orderNumber_unique", unique = true)
     private String orderNumber;
     
+    @Indexed
     @NotBlank(message = "Customer is required")
     private String customerId;
     
+    @Indexed
     private String taxId;
     
+    @Indexed
     @NotBlank(message = "Order status is required")
     private String orderStatus;
     
@@ -3,6 +3,7 @@ package com.inventorymanagement.salesorder_wongxiuhuan.model;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -16,9 +17,11 @@ public class SalesOrderItem {
     @Id
     private String id;
     
+    @Indexed
     @NotBlank(message = "Sales Order ID is required")
     private String salesOrderId;
     
+    @Indexed
     @NotBlank(message = "Product is required")
     private String productId;
     
@@ -3,6 +3,7 @@ package com.inventorymanagement.salesorder_wongxiuhuan.model;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -18,11 +19,14 @@ public class SalesReturn {
     @NotNull(message = "Return date is required")
     private LocalDate returnDate;
     
+    @Indexed
     private String returnNumber;
     
+    @Indexed
     @NotBlank(message = "Delivery Order is required")
     private String deliveryOrderId;
     
+    @Indexed
     @NotBlank(message = "Status is required")
     private String status;
     
@@ -3,6 +3,7 @@ package com.inventorymanagement.salesorder_wongxiuhuan.model;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -16,6 +17,7 @@ public class Tax {
     @Id
     private String id;
     
+    @Indexed
     @NotBlank(message = "Tax name is required")
     private String taxName;
     
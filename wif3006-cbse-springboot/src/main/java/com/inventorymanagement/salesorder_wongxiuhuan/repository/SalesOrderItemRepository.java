@@ -4,10 +4,13 @@ import com.inventorymanagement.salesorder_wongxiuhuan.model.SalesOrderItem;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface SalesOrderItemRepository extends MongoRepository<SalesOrderItem, String> {
     List<SalesOrderItem> findBySalesOrderId(String salesOrderId);
+    List<SalesOrderItem> findBySalesOrderIdIn(Collection<String> salesOrderIds);
     List<SalesOrderItem> findByProductId(String productId);
+    long countByProductId(String productId);
 }
\ No newline at end of file
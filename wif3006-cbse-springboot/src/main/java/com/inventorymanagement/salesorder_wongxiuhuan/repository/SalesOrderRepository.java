@@ -12,4 +12,8 @@ public interface SalesOrderRepository extends MongoRepository<SalesOrder, String
     Optional<SalesOrder> findByOrderNumber(String orderNumber);
     List<SalesOrder> findByCustomerId(String customerId);
     List<SalesOrder> findByOrderStatus(String orderStatus);
+
+    // Index-backed counts for the delete checks (no documents are loaded)
+    long countByCustomerId(String customerId);
+    long countByTaxId(String taxId);
 }
\ No newline at end of file
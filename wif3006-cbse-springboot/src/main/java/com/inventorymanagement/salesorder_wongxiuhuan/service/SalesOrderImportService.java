@@ -0,0 +1,364 @@
+package com.inventorymanagement.salesorder_wongxiuhuan.service;
+
+import com.inventorymanagement.common.importer.BulkInserts;
+import com.inventorymanagement.common.importer.ImportFormat;
+import com.inventorymanagement.common.importer.ImportReader;
+import com.inventorymanagement.common.importer.ImportReport;
+import com.inventorymanagement.common.importer.ImportRow;
+import com.inventorymanagement.customer_gohyuheng.model.Customer;
+import com.inventorymanagement.customer_gohyuheng.repository.CustomerRepository;
+import com.inventorymanagement.product_ericleechunkiat.model.Product;
+import com.inventorymanagement.product_ericleechunkiat.repository.ProductRepository;
+import com.inventorymanagement.salesorder_wongxiuhuan.model.SalesOrder;
+import com.inventorymanagement.salesorder_wongxiuhuan.model.SalesOrderItem;
+import com.inventorymanagement.salesorder_wongxiuhuan.model.Tax;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Bulk import of sales orders and their lines from a CSV or NDJSON file, one row per order line:
+ *
+ *   orderRef, orderDate (yyyy-MM-dd), customer (id or name), tax (id or name, optional),
+ *   orderStatus (optional, PENDING), description (optional), product (id or name), quantity,
+ *   unitPrice (optional, the product's price)
+ *
+ * The rows of one order share its orderRef and must follow each other; the order fields are taken
+ * from its first row. The file is read a chunk of about chunkSize rows at a time, cut between orders.
+ * Per chunk the customers and products are looked up with one query each (taxes come from the
+ * cache), the totals are computed here, and the orders and then their lines are written with one
+ * unordered bulkWrite each - instead of an insert per order and per line plus a totals
+ * recalculation per line. An order with an invalid row is rejected as a whole and reported.
+ */
+@Service
+public class SalesOrderImportService {
+
+    @Autowired private SalesOrderService salesOrderService;
+    @Autowired private CustomerRepository customerRepo;
+    @Autowired private ProductRepository productRepo;
+    @Autowired private MongoTemplate mongoTemplate;
+
+    @Value("${inventory.import.chunk-size:1000}")
+    private int defaultChunkSize;
+
+    // chunkSize <= 0 uses inventory.import.chunk-size
+    public ImportReport importSalesOrders(InputStream in, ImportFormat format, int chunkSize) {
+        ImportRun run = new ImportRun(chunkSize > 0 ? chunkSize : defaultChunkSize);
+        try (ImportReader reader = new ImportReader(in, format)) {
+            while (reader.hasNext()) run.add(reader.next());
+            run.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        System.out.println(run.report.finish());
+        return run.report;
+    }
+
+    // The rows of one order in the file
+    private static class OrderRows {
+        final String ref;
+        final List<ImportRow> rows = new ArrayList<>();
+
+        OrderRows(String ref) {
+            this.ref = ref;
+        }
+    }
+
+    // An order of the chunk ready to write, with its lines in file order
+    private static class PreparedOrder {
+        final OrderRows source;
+        final SalesOrder order;
+        final List<SalesOrderItem> items = new ArrayList<>();
+
+        PreparedOrder(OrderRows source, SalesOrder order) {
+            this.source = source;
+            this.order = order;
+        }
+    }
+
+    // Customers and products of one chunk, looked up by id and by name
+    private static class References {
+        final Map<String, String> customerIds = new HashMap<>();
+        final Map<String, String> customerIdsByName = new HashMap<>();
+        final Map<String, Product> productsById = new HashMap<>();
+        final Map<String, Product> productsByName = new HashMap<>();
+
+        String customerId(String value) {
+            String id = customerIds.get(value);
+            return id != null ? id : customerIdsByName.get(value);
+        }
+
+        Product product(String value) {
+            Product product = productsById.get(value);
+            return product != null ? product : productsByName.get(value.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    // State of one import: the open chunk, the order being read and the refs already written
+    private class ImportRun {
+        final int chunkSize;
+        final ImportReport report = new ImportReport("sales orders");
+        final Set<String> closedRefs = new HashSet<>();
+        final List<OrderRows> chunk = new ArrayList<>();
+        int chunkRows;
+        OrderRows current;
+
+        ImportRun(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        void add(ImportRow row) {
+            report.rowRead();
+            if (row.isMalformed()) {
+                report.reject(row.getLine(), row.getError());
+                return;
+            }
+            String ref = row.get("orderRef");
+            if (ref == null) {
+                report.reject(row.getLine(), "orderRef is required.");
+                return;
+            }
+            if (current == null || !ref.equals(current.ref)) {
+                if (current != null) {
+                    closedRefs.add(current.ref);
+                    if (chunkRows >= chunkSize) flush();
+                }
+                if (closedRefs.contains(ref)) {
+                    report.reject(row.getLine(), "Order " + ref + " was already read; the rows of an order must follow each other.");
+                    return;
+                }
+                current = new OrderRows(ref);
+                chunk.add(current);
+            }
+            current.rows.add(row);
+            chunkRows++;
+        }
+
+        void flush() {
+            if (chunk.isEmpty()) return;
+
+            References refs = lookUpReferences(chunk);
+            LocalDateTime now = LocalDateTime.now();
+            List<PreparedOrder> prepared = new ArrayList<>();
+            for (OrderRows orderRows : chunk) {
+                PreparedOrder order = prepare(orderRows, refs, now);
+                if (order != null) prepared.add(order);
+            }
+            if (!prepared.isEmpty()) {
+                // Same sequence as the bulk endpoint, one round trip per chunk
+                List<String> numbers = salesOrderService.generateOrderNumbers(prepared.size());
+                for (int i = 0; i < prepared.size(); i++) prepared.get(i).order.setOrderNumber(numbers.get(i));
+            }
+            write(prepared);
+
+            report.chunkWritten();
+            chunk.clear();
+            chunkRows = 0;
+        }
+
+        // The order and its lines, or null (and every row of the order rejected) when a row is invalid
+        private PreparedOrder prepare(OrderRows source, References refs, LocalDateTime now) {
+            Map<ImportRow, String> errors = new HashMap<>();
+            ImportRow first = source.rows.get(0);
+
+            SalesOrder order = new SalesOrder();
+            order.setOrderDate(parseDate(first, errors));
+            String customer = first.get("customer");
+            if (customer == null) {
+                errors.put(first, "customer is required.");
+            } else {
+                order.setCustomerId(refs.customerId(customer));
+                if (order.getCustomerId() == null) errors.put(first, "Customer '" + customer + "' not found.");
+            }
+            BigDecimal taxRate = BigDecimal.ZERO;
+            String tax = first.get("tax");
+            if (tax != null) {
+                Optional<Tax> found = salesOrderService.getTaxById(tax).or(() -> salesOrderService.getTaxByName(tax));
+                if (found.isPresent()) {
+                    order.setTaxId(found.get().getId());
+                    if (found.get().getTaxRate() != null) taxRate = found.get().getTaxRate();
+                } else {
+                    errors.put(first, "Tax '" + tax + "' not found.");
+                }
+            }
+            String status = first.get("orderStatus");
+            order.setOrderStatus(status == null ? "PENDING" : status.toUpperCase(Locale.ROOT));
+            order.setDescription(first.get("description"));
+
+            PreparedOrder prepared = new PreparedOrder(source, order);
+            BigDecimal beforeTax = BigDecimal.ZERO;
+            for (ImportRow row : source.rows) {
+                SalesOrderItem item = toItem(row, refs, errors);
+                if (item == null) continue;
+                item.setCreatedDate(now);
+                item.setUpdatedDate(now);
+                prepared.items.add(item);
+                beforeTax = beforeTax.add(item.getTotal());
+            }
+
+            if (!errors.isEmpty()) {
+                for (ImportRow row : source.rows) {
+                    String error = errors.get(row);
+                    report.reject(row.getLine(), error != null ? error : "Order " + source.ref + " was not imported.");
+                }
+                return null;
+            }
+
+            // Ids are set here so the lines can point to their order before either is written
+            order.setId(new ObjectId().toHexString());
+            BigDecimal taxAmount = SalesOrderService.taxAmount(beforeTax, taxRate);
+            order.setBeforeTaxAmount(beforeTax);
+            order.setTaxAmount(taxAmount);
+            order.setAfterTaxAmount(beforeTax.add(taxAmount));
+            order.setCreatedDate(now);
+            order.setUpdatedDate(now);
+            prepared.items.forEach(item -> item.setSalesOrderId(order.getId()));
+            return prepared;
+        }
+
+        private LocalDate parseDate(ImportRow row, Map<ImportRow, String> errors) {
+            String value = row.get("orderDate");
+            if (value == null) {
+                errors.put(row, "orderDate is required.");
+                return null;
+            }
+            try {
+                return LocalDate.parse(value);
+            } catch (DateTimeParseException e) {
+                errors.put(row, "orderDate '" + value + "' is not a date (yyyy-MM-dd).");
+                return null;
+            }
+        }
+
+        // The line of the row, or null with the reason in errors
+        private SalesOrderItem toItem(ImportRow row, References refs, Map<ImportRow, String> errors) {
+            String productValue = row.get("product");
+            Product product = productValue != null ? refs.product(productValue) : null;
+            if (product == null) {
+                errors.putIfAbsent(row, productValue == null ? "product is required." : "Product '" + productValue + "' not found.");
+                return null;
+            }
+
+            int quantity;
+            String quantityValue = row.get("quantity");
+            try {
+                quantity = quantityValue == null ? 0 : Integer.parseInt(quantityValue);
+            } catch (NumberFormatException e) {
+                quantity = 0;
+            }
+            if (quantity <= 0) {
+                errors.putIfAbsent(row, "quantity '" + quantityValue + "' is not a whole number > 0.");
+                return null;
+            }
+
+            BigDecimal unitPrice;
+            String priceValue = row.get("unitPrice");
+            try {
+                unitPrice = priceValue == null ? BigDecimal.valueOf(product.getPrice()) : new BigDecimal(priceValue);
+            } catch (NumberFormatException e) {
+                unitPrice = BigDecimal.ZERO;
+            }
+            if (unitPrice.signum() <= 0) {
+                errors.putIfAbsent(row, priceValue == null
+                        ? "unitPrice is required (product '" + product.getName() + "' has no price)."
+                        : "unitPrice '" + priceValue + "' is not a number > 0.");
+                return null;
+            }
+
+            SalesOrderItem item = new SalesOrderItem();
+            item.setProductId(product.getId());
+            item.setQuantity(quantity);
+            item.setUnitPrice(unitPrice);
+            return item;
+        }
+
+        // Orders first; the lines of an order that was not written are rejected with it
+        private void write(List<PreparedOrder> prepared) {
+            List<SalesOrder> orders = new ArrayList<>();
+            prepared.forEach(p -> orders.add(p.order));
+            Map<Integer, String> failedOrders = BulkInserts.insertUnordered(mongoTemplate, SalesOrder.class, orders);
+
+            List<SalesOrderItem> items = new ArrayList<>();
+            List<ImportRow> itemRows = new ArrayList<>();
+            List<PreparedOrder> itemOrders = new ArrayList<>();
+            for (int i = 0; i < prepared.size(); i++) {
+                PreparedOrder order = prepared.get(i);
+                String error = failedOrders.get(i);
+                if (error != null) {
+                    order.source.rows.forEach(row -> report.reject(row.getLine(), "Order " + order.source.ref + ": " + error));
+                    continue;
+                }
+                items.addAll(order.items);
+                itemRows.addAll(order.source.rows);
+                order.items.forEach(item -> itemOrders.add(order));
+            }
+            Map<Integer, String> failedItems = BulkInserts.insertUnordered(mongoTemplate, SalesOrderItem.class, items);
+
+            // An order missing a line gets the totals of the lines that were written
+            Set<String> partialOrders = new LinkedHashSet<>();
+            failedItems.forEach((index, error) -> {
+                report.reject(itemRows.get(index).getLine(), error);
+                partialOrders.add(itemOrders.get(index).order.getId());
+            });
+            partialOrders.forEach(salesOrderService::recalculateOrderTotals);
+
+            int ordersWritten = orders.size() - failedOrders.size();
+            int itemsWritten = items.size() - failedItems.size();
+            report.imported(itemsWritten, ordersWritten + itemsWritten);
+        }
+    }
+
+    // One query per entity type for the whole chunk
+    private References lookUpReferences(List<OrderRows> chunk) {
+        Set<String> customers = new HashSet<>();
+        Set<String> products = new HashSet<>();
+        for (OrderRows order : chunk) {
+            String customer = order.rows.get(0).get("customer");
+            if (customer != null) customers.add(customer);
+            for (ImportRow row : order.rows) {
+                String product = row.get("product");
+                if (product != null) products.add(product);
+            }
+        }
+
+        References refs = new References();
+        List<String> customerObjectIds = customers.stream().filter(ObjectId::isValid).toList();
+        if (!customerObjectIds.isEmpty()) {
+            customerRepo.findAllById(customerObjectIds).forEach(c -> refs.customerIds.put(c.getId(), c.getId()));
+        }
+        if (!customers.isEmpty()) {
+            for (Customer c : customerRepo.findByNameIn(customers)) refs.customerIdsByName.put(c.getName(), c.getId());
+        }
+
+        List<String> productObjectIds = products.stream().filter(ObjectId::isValid).toList();
+        if (!productObjectIds.isEmpty()) {
+            productRepo.findAllById(productObjectIds).forEach(p -> refs.productsById.put(p.getId(), p));
+        }
+        if (!products.isEmpty()) {
+            for (Product p : productRepo.findPricesByNameInIgnoreCase(products)) {
+                refs.productsByName.put(p.getName().toLowerCase(Locale.ROOT), p);
+            }
+        }
+        return refs;
+    }
+}
@@ -1,21 +1,49 @@
 package com.inventorymanagement.salesorder_wongxiuhuan.service;
 
+import com.inventorymanagement.common.cache.ReferenceData;
+import com.inventorymanagement.common.cache.ReferenceDataCache;
+import com.inventorymanagement.common.model.KeysetPage;
+import com.inventorymanagement.common.service.PagingService;
+import com.inventorymanagement.common.service.SequenceGeneratorService;
 import com.inventorymanagement.salesorder_wongxiuhuan.model.*;
 import com.inventorymanagement.salesorder_wongxiuhuan.repository.*;
 import com.inventorymanagement.customer_gohyuheng.repository.CustomerRepository;
 import com.inventorymanagement.product_ericleechunkiat.repository.ProductRepository;
+import com.inventorymanagement.product_ericleechunkiat.service.ProductService;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class SalesOrderService {
 
+    // Counter document in the shared "counters" collection; numbers are SO-<yyyyMMdd>-<value>
+    static final String ORDER_NUMBER_SEQUENCE = "sales_order_number";
+
     @Autowired
     private SalesOrderRepository salesOrderRepo;
 
@@ -37,6 +65,29 @@ public class SalesOrderService {
     @Autowired
     private ProductRepository productRepo;
 
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private PagingService pagingService;
+
+    @Autowired
+    private SequenceGeneratorService sequenceGeneratorService;
+
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
+    // Every tax rate, read on each order total and report line instead of a query per order
+    private final ReferenceData<String, Tax> taxes = new ReferenceData<>("taxes", Tax::getId, () -> taxRepo.findAll());
+
+    @PostConstruct
+    public void registerReferenceData() {
+        referenceDataCache.register(taxes);
+    }
+
     // ==================== SALES ORDER LOGIC ====================
 
     public SalesOrder createSalesOrder(SalesOrder order) {
@@ -46,10 +97,35 @@ public class SalesOrderService {
         return salesOrderRepo.save(order);
     }
 
+    // Bulk create: the numbers of the whole batch in one sequence round trip, then one insertMany
+    public List<SalesOrder> createSalesOrders(List<SalesOrder> orders) {
+        if (orders == null || orders.isEmpty()) return List.of();
+
+        List<String> numbers = generateOrderNumbers(orders.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < orders.size(); i++) {
+            SalesOrder order = orders.get(i);
+            order.setOrderNumber(numbers.get(i));
+            order.setCreatedDate(now);
+            order.setUpdatedDate(now);
+        }
+        return salesOrderRepo.insert(orders);
+    }
+
     public List<SalesOrder> getAllSalesOrders() {
         return salesOrderRepo.findAll();
     }
 
+    // Keyset page on _id: afterId is the nextCursor of the previous page (null for the first page)
+    public KeysetPage<SalesOrder> listSalesOrders(String afterId, int limit, Sort.Direction direction) {
+        return pagingService.page(SalesOrder.class, "id", PagingService.objectIdCursor(afterId), limit, direction, SalesOrder::getId);
+    }
+
+    // Every sales order, read from the cursor batchSize at a time; close the stream when done
+    public Stream<SalesOrder> streamSalesOrders(int batchSize) {
+        return pagingService.stream(SalesOrder.class, batchSize);
+    }
+
     public Optional<SalesOrder> getSalesOrderById(String id) {
         return salesOrderRepo.findById(id);
     }
@@ -72,10 +148,20 @@ public class SalesOrderService {
     }
 
     public String deleteSalesOrder(String id) {
+        try {
+            removeSalesOrder(id);
+            return "✅ Sales Order deleted successfully.";
+        } catch (IllegalStateException e) {
+            return "❌ " + e.getMessage();
+        }
+    }
+
+    // The order and its items; IllegalStateException while delivery orders are linked to it
+    public void removeSalesOrder(String id) {
         // Check if there are delivery orders linked
         List<DeliveryOrder> linkedDeliveries = deliveryOrderRepo.findBySalesOrderId(id);
         if (!linkedDeliveries.isEmpty()) {
-            return "❌ Cannot delete: " + linkedDeliveries.size() + " delivery order(s) are linked to this sales order.";
+            throw new IllegalStateException("Cannot delete: " + linkedDeliveries.size() + " delivery order(s) are linked to this sales order.");
         }
 
         // Delete all items first
@@ -84,12 +170,24 @@ public class SalesOrderService {
 
         // Delete the order
         salesOrderRepo.deleteById(id);
-        return "✅ Sales Order deleted successfully.";
     }
 
-    private String generateOrderNumber() {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
-        return "SO-" + LocalDateTime.now().format(formatter);
+    String generateOrderNumber() {
+        return orderNumber(LocalDate.now(), sequenceGeneratorService.next(ORDER_NUMBER_SEQUENCE));
+    }
+
+    // count numbers from one sequence round trip, for a bulk create or an import chunk
+    List<String> generateOrderNumbers(int count) {
+        long next = sequenceGeneratorService.nextRange(ORDER_NUMBER_SEQUENCE, count);
+        LocalDate today = LocalDate.now();
+        List<String> numbers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) numbers.add(orderNumber(today, next + i));
+        return numbers;
+    }
+
+    // The date is only for reading; the sequence value alone keeps the number unique
+    private static String orderNumber(LocalDate date, long value) {
+        return String.format("SO-%s-%06d", date.format(DateTimeFormatter.BASIC_ISO_DATE), value);
     }
 
     // ==================== SALES ORDER ITEM LOGIC ====================
@@ -104,10 +202,33 @@ public class SalesOrderService {
         return saved;
     }
 
+    // Bulk line entry: one batch insert and one totals recalculation per order
+    public List<SalesOrderItem> addSalesOrderItems(List<SalesOrderItem> items) {
+        if (items == null || items.isEmpty()) return List.of();
+
+        LocalDateTime now = LocalDateTime.now();
+        for (SalesOrderItem item : items) {
+            item.setCreatedDate(now);
+            item.setUpdatedDate(now);
+        }
+        List<SalesOrderItem> saved = salesOrderItemRepo.saveAll(items);
+
+        items.stream().map(SalesOrderItem::getSalesOrderId).distinct().forEach(this::recalculateOrderTotals);
+
+        return saved;
+    }
+
     public List<SalesOrderItem> getItemsByOrderId(String salesOrderId) {
         return salesOrderItemRepo.findBySalesOrderId(salesOrderId);
     }
 
+    // Items of many orders in one query, grouped by salesOrderId
+    public Map<String, List<SalesOrderItem>> getItemsByOrderIds(Collection<String> salesOrderIds) {
+        if (salesOrderIds == null || salesOrderIds.isEmpty()) return new HashMap<>();
+        return salesOrderItemRepo.findBySalesOrderIdIn(salesOrderIds).stream()
+                .collect(Collectors.groupingBy(SalesOrderItem::getSalesOrderId));
+    }
+
     public List<SalesOrderItem> getAllSalesOrderItems() {
         return salesOrderItemRepo.findAll();
     }
@@ -126,12 +247,12 @@ public class SalesOrderService {
     }
 
     public void deleteSalesOrderItem(String id) {
-        Optional<SalesOrderItem> itemOpt = salesOrderItemRepo.findById(id);
-        if (itemOpt.isPresent()) {
-            String orderId = itemOpt.get().getSalesOrderId();
-            salesOrderItemRepo.deleteById(id);
-        
-            recalculateOrderTotals(orderId);
+        // Delete and learn the order ID in one round trip
+        Query query = Query.query(Criteria.where("id").is(id));
+        query.fields().include("salesOrderId");
+        SalesOrderItem removed = mongoTemplate.findAndRemove(query, SalesOrderItem.class);
+        if (removed != null) {
+            recalculateOrderTotals(removed.getSalesOrderId());
         }
     }
 
@@ -148,6 +269,10 @@ public class SalesOrderService {
         return deliveryOrderRepo.findAll();
     }
 
+    public KeysetPage<DeliveryOrder> listDeliveryOrders(String afterId, int limit, Sort.Direction direction) {
+        return pagingService.page(DeliveryOrder.class, "id", PagingService.objectIdCursor(afterId), limit, direction, DeliveryOrder::getId);
+    }
+
     public Optional<DeliveryOrder> getDeliveryOrderById(String id) {
         return deliveryOrderRepo.findById(id);
     }
@@ -194,6 +319,10 @@ public class SalesOrderService {
         return salesReturnRepo.findAll();
     }
 
+    public KeysetPage<SalesReturn> listSalesReturns(String afterId, int limit, Sort.Direction direction) {
+        return pagingService.page(SalesReturn.class, "id", PagingService.objectIdCursor(afterId), limit, direction, SalesReturn::getId);
+    }
+
     public Optional<SalesReturn> getSalesReturnById(String id) {
         return salesReturnRepo.findById(id);
     }
@@ -226,37 +355,41 @@ public class SalesOrderService {
     public Tax createTax(Tax tax) {
         tax.setCreatedDate(LocalDateTime.now());
         tax.setUpdatedDate(LocalDateTime.now());
-        return taxRepo.save(tax);
+        Tax saved = taxRepo.save(tax);
+        taxes.refresh();
+        return saved;
     }
 
     public List<Tax> getAllTaxes() {
-        return taxRepo.findAll();
+        return new ArrayList<>(taxes.getAll());
     }
 
     public Optional<Tax> getTaxById(String id) {
-        return taxRepo.findById(id);
+        return Optional.ofNullable(taxes.get(id));
     }
 
     public Optional<Tax> getTaxByName(String taxName) {
-        return taxRepo.findByTaxName(taxName);
+        if (taxName == null) return Optional.empty();
+        return taxes.getAll().stream().filter(t -> taxName.equals(t.getTaxName())).findFirst();
     }
 
     public Tax updateTax(Tax tax) {
         tax.setUpdatedDate(LocalDateTime.now());
-        return taxRepo.save(tax);
+        Tax saved = taxRepo.save(tax);
+        taxes.refresh();
+        return saved;
     }
 
     public String deleteTax(String id) {
         // Check if any sales orders are using this tax
-        List<SalesOrder> linkedOrders = salesOrderRepo.findAll().stream()
-                .filter(order -> id.equals(order.getTaxId()))
-                .toList();
+        long linkedOrders = salesOrderRepo.countByTaxId(id);
 
-        if (!linkedOrders.isEmpty()) {
-            return "❌ Cannot delete: " + linkedOrders.size() + " sales order(s) are using this tax.";
+        if (linkedOrders > 0) {
+            return "❌ Cannot delete: " + linkedOrders + " sales order(s) are using this tax.";
         }
 
         taxRepo.deleteById(id);
+        taxes.refresh();
         return "✅ Tax deleted successfully.";
     }
 
@@ -295,9 +428,8 @@ public class SalesOrderService {
      * Get product ID by name
     */
     public String getProductIdByName(String productName) {
-        return productRepo.findByName(productName)
-                .map(product -> product.getId())
-                .orElse(null);
+        // Indexed, case-insensitive lookup (cached in ProductService)
+        return productService.getProductIdByName(productName);
     }
 
     /**
@@ -313,7 +445,7 @@ public class SalesOrderService {
      * Get tax rate by tax ID
      */
     public BigDecimal getTaxRateById(String taxId) {
-        return taxRepo.findById(taxId)
+        return getTaxById(taxId)
                 .map(Tax::getTaxRate)
                 .orElse(BigDecimal.ZERO);
     }
@@ -336,45 +468,118 @@ public class SalesOrderService {
                 .orElse("Unknown");
     }
 
+    // ==================== BULK LOOKUPS (list/report screens) ====================
+    // One $in query per entity type instead of one findById per row.
+    // Ids that cannot be resolved are left out of the map.
+
+    public Map<String, String> getCustomerNamesByIds(Collection<String> customerIds) {
+        Map<String, String> names = new HashMap<>();
+        if (customerIds == null || customerIds.isEmpty()) return names;
+        customerRepo.findAllById(customerIds).forEach(c -> names.put(c.getId(), c.getName()));
+        return names;
+    }
+
+    public Map<String, String> getProductNamesByIds(Collection<String> productIds) {
+        Map<String, String> names = new HashMap<>();
+        if (productIds == null || productIds.isEmpty()) return names;
+        productRepo.findAllById(productIds).forEach(p -> names.put(p.getId(), p.getName()));
+        return names;
+    }
+
+    public Map<String, BigDecimal> getTaxRatesByIds(Collection<String> taxIds) {
+        Map<String, BigDecimal> rates = new HashMap<>();
+        if (taxIds == null || taxIds.isEmpty()) return rates;
+        for (String taxId : taxIds) {
+            Tax t = taxes.get(taxId);
+            if (t != null) rates.put(t.getId(), t.getTaxRate() != null ? t.getTaxRate() : BigDecimal.ZERO);
+        }
+        return rates;
+    }
+
+    public Map<String, String> getSalesOrderNumbersByIds(Collection<String> salesOrderIds) {
+        Map<String, String> numbers = new HashMap<>();
+        if (salesOrderIds == null || salesOrderIds.isEmpty()) return numbers;
+        salesOrderRepo.findAllById(salesOrderIds).forEach(o -> numbers.put(o.getId(), o.getOrderNumber()));
+        return numbers;
+    }
+
+    public Map<String, String> getDeliveryOrderNumbersByIds(Collection<String> deliveryOrderIds) {
+        Map<String, String> numbers = new HashMap<>();
+        if (deliveryOrderIds == null || deliveryOrderIds.isEmpty()) return numbers;
+        deliveryOrderRepo.findAllById(deliveryOrderIds).forEach(o -> numbers.put(o.getId(), o.getDeliveryNumber()));
+        return numbers;
+    }
+
     /**
-    * Recalculate order totals (before tax, tax amount, after tax)
-    * Called whenever items are added, updated, or deleted
-    */
+     * Recalculate order totals (before tax, tax amount, after tax).
+     * One aggregation sums the lines on the server, the tax rate comes from the cached taxes, then a single
+     * update sets only the amount fields instead of re-reading and re-saving the whole order.
+     */
     public void recalculateOrderTotals(String orderId) {
         try {
-            Optional<SalesOrder> orderOpt = salesOrderRepo.findById(orderId);
-            if (orderOpt.isEmpty()) return;
-        
-            SalesOrder order = orderOpt.get();
-            List<SalesOrderItem> items = salesOrderItemRepo.findBySalesOrderId(orderId);
-        
-            // Calculate subtotal (before tax)
-            BigDecimal beforeTax = BigDecimal.ZERO;
-            for (SalesOrderItem item : items) {
-                BigDecimal itemTotal = item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity()));
-                beforeTax = beforeTax.add(itemTotal);
-            }
-        
-            // Calculate tax amount
+            Document totals = mongoTemplate.aggregate(orderTotalsAggregation(orderId), SalesOrder.class, Document.class)
+                    .getUniqueMappedResult();
+            if (totals == null) return;
+
+            BigDecimal beforeTax = toBigDecimal(totals.get("beforeTax"));
+
+            // Rounded in Java (HALF_UP) - the server's $round rounds half to even
             BigDecimal taxAmount = BigDecimal.ZERO;
-            if (order.getTaxId() != null && !order.getTaxId().trim().isEmpty()) {
-                BigDecimal taxRate = getTaxRateById(order.getTaxId());
-                taxAmount = beforeTax.multiply(taxRate).divide(BigDecimal.valueOf(100), 2, java.math.RoundingMode.HALF_UP);
+            String taxId = totals.getString("taxId");
+            if (taxId != null && !taxId.trim().isEmpty()) {
+                taxAmount = taxAmount(beforeTax, getTaxRateById(taxId));
             }
-        
-            // Calculate after tax amount
+
             BigDecimal afterTax = beforeTax.add(taxAmount);
-        
-            // Update order with calculated amounts
-            order.setBeforeTaxAmount(beforeTax);
-            order.setTaxAmount(taxAmount);
-            order.setAfterTaxAmount(afterTax);
-        
-            updateSalesOrder(order);
-        
+
+            Update update = new Update()
+                    .set("beforeTaxAmount", beforeTax)
+                    .set("taxAmount", taxAmount)
+                    .set("afterTaxAmount", afterTax)
+                    .set("updatedDate", LocalDateTime.now());
+            mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(orderId)), update, SalesOrder.class);
+
         } catch (Exception e) {
             System.err.println("Error recalculating order totals: " + e.getMessage());
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+
+    // Tax on the amount before tax, rate in percent, rounded HALF_UP to cents
+    static BigDecimal taxAmount(BigDecimal beforeTax, BigDecimal taxRate) {
+        return beforeTax.multiply(taxRate).divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+    }
+
+    // { taxId, beforeTax: sum(unitPrice * quantity) } for one order
+    static Aggregation orderTotalsAggregation(String orderId) {
+        Object id = ObjectId.isValid(orderId) ? new ObjectId(orderId) : orderId;
+
+        // BigDecimal is stored as a string; $toDecimal keeps the sum exact
+        Document lineTotal = new Document("$multiply",
+                List.of(new Document("$toDecimal", "$unitPrice"), "$quantity"));
+
+        List<AggregationOperation> stages = List.of(
+                context -> new Document("$match", new Document("_id", id)),
+                context -> new Document("$lookup", new Document("from", "sales_order_items")
+                        .append("let", new Document("orderId", new Document("$toString", "$_id")))
+                        .append("pipeline", List.of(
+                                new Document("$match", new Document("$expr",
+                                        new Document("$eq", List.of("$salesOrderId", "$$orderId")))),
+                                new Document("$group", new Document("_id", null)
+                                        .append("beforeTax", new Document("$sum", lineTotal)))))
+                        .append("as", "lines")),
+                context -> new Document("$project", new Document("taxId", 1)
+                        .append("beforeTax", new Document("$arrayElemAt", List.of("$lines.beforeTax", 0)))));
+
+        return Aggregation.newAggregation(stages);
+    }
+
+    // Aggregation results come back as Decimal128, a number or the stored string
+    private static BigDecimal toBigDecimal(Object value) {
+        if (value instanceof Decimal128) return ((Decimal128) value).bigDecimalValue();
+        if (value instanceof Integer || value instanceof Long) return BigDecimal.valueOf(((Number) value).longValue());
+        if (value instanceof Number) return BigDecimal.valueOf(((Number) value).doubleValue());
+        if (value instanceof String) return new BigDecimal((String) value);
+        return BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,68 @@
+package com.inventorymanagement.vendor_rafidurrashid.controller;
+
+import com.inventorymanagement.common.model.KeysetPage;
+import com.inventorymanagement.vendor_rafidurrashid.model.Vendor;
+import com.inventorymanagement.vendor_rafidurrashid.service.VendorService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+// REST access to the vendors; paths under /api/vendors
+@RestController
+@RequestMapping("/api/vendors")
+public class VendorController {
+
+    private final VendorService vendorService;
+
+    @Autowired
+    public VendorController(VendorService vendorService) {
+        this.vendorService = vendorService;
+    }
+
+    // Keyset page: pass nextCursor back as 'after' for the next page
+    @GetMapping
+    public KeysetPage<Vendor> listVendors(@RequestParam(required = false) String after,
+                                          @RequestParam(defaultValue = "50") int limit,
+                                          @RequestParam(defaultValue = "ASC") Sort.Direction direction) {
+        return vendorService.listVendors(after, limit, direction);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Vendor> getVendor(@PathVariable String id) {
+        return ResponseEntity.of(vendorService.getVendorById(id));
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Vendor createVendor(@RequestBody Vendor vendor) {
+        vendor.setId(null);
+        return vendorService.createVendor(vendor);
+    }
+
+    // Many vendors in one request and one insert
+    @PostMapping("/bulk")
+    @ResponseStatus(HttpStatus.CREATED)
+    public List<Vendor> createVendors(@RequestBody List<Vendor> vendors) {
+        vendors.forEach(vendor -> vendor.setId(null));
+        return vendorService.createVendors(vendors);
+    }
+
+    // Only the fields present in the body are changed
+    @PutMapping("/{id}")
+    public ResponseEntity<Vendor> updateVendor(@PathVariable String id, @RequestBody Vendor vendor) {
+        if (vendorService.getVendorById(id).isEmpty()) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(vendorService.updateVendor(id, vendor));
+    }
+
+    // Also removes the vendor's contacts; 404 for an unknown id
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteVendor(@PathVariable String id) {
+        if (vendorService.getVendorById(id).isEmpty()) return ResponseEntity.notFound().build();
+        vendorService.deleteVendor(id);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,24 +1,31 @@
 package com.inventorymanagement.vendor_rafidurrashid.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 import java.time.LocalDateTime;
 
+// Serves findByStatus/countByStatus as a prefix and findByStatusOrderByNameAsc without an in-memory sort
+@CompoundIndex(name = "status_name", def = "{ 'status': 1, 'name': 1 }")
 @Document(collection = "vendors")
 public class Vendor {
     @Id
     private String id;
     
     private String name;
+    @Indexed
     private String email;
     private String phone;
     private String address;
     private String status; // ACTIVE, INACTIVE, SUSPENDED
     
+    @Indexed
     @Field("vendor_code")
     private String vendorCode;
     
+    @Indexed
     @Field("tax_number")
     private String taxNumber;
     
@@ -28,9 +35,11 @@ public class Vendor {
     @Field("credit_limit")
     private Double creditLimit;
     
+    @Indexed
     @Field("vendor_group_id")
     private String vendorGroupId;
     
+    @Indexed
     @Field("vendor_category_id")
     private String vendorCategoryId;
     
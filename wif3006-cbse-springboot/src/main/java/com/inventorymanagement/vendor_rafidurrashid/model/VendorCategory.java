@@ -2,6 +2,7 @@ package com.inventorymanagement.vendor_rafidurrashid.model;
 
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.LocalDateTime;
 
@@ -12,6 +13,7 @@ public class VendorCategory {
     
     private String name;
     private String description;
+    @Indexed
     private String code;
     
     private LocalDateTime createdAt;
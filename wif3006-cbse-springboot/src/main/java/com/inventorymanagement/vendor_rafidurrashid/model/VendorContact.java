@@ -2,10 +2,14 @@ package com.inventorymanagement.vendor_rafidurrashid.model;
 
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 import java.time.LocalDateTime;
 
+// Serves the vendor_id lookups/counts/deletes as a prefix and the primary-contact lookup in full
+@CompoundIndex(name = "vendor_primary", def = "{ 'vendor_id': 1, 'is_primary': 1 }")
 @Document(collection = "vendor_contacts")
 public class VendorContact {
     @Id
@@ -13,8 +17,10 @@ public class VendorContact {
     
     private String name;
     private String position;
+    @Indexed
     private String email;
     private String phone;
+    @Indexed
     private String department;
     
     @Field("is_primary")
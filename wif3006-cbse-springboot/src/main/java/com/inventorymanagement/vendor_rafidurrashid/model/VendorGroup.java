@@ -3,6 +3,7 @@ package com.inventorymanagement.vendor_rafidurrashid.model;
 
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.LocalDateTime;
 
@@ -13,6 +14,7 @@ public class VendorGroup {
     
     private String name;
     private String description;
+    @Indexed
     private String code;
     
     private LocalDateTime createdAt;
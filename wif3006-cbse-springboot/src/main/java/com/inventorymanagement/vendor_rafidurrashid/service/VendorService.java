@@ -3,15 +3,19 @@ package com.inventorymanagement.vendor_rafidurrashid.service;
 
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.inventorymanagement.common.model.KeysetPage;
+import com.inventorymanagement.common.service.PagingService;
 import com.inventorymanagement.vendor_rafidurrashid.model.*;
 import com.inventorymanagement.vendor_rafidurrashid.repository.*;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
@@ -21,17 +25,20 @@ public class VendorService {
     private final VendorGroupRepository vendorGroupRepository;
     private final VendorCategoryRepository vendorCategoryRepository;
     private final VendorContactRepository vendorContactRepository;
+    private final PagingService pagingService;
     
     @Autowired
     public VendorService(
             VendorRepository vendorRepository,
             VendorGroupRepository vendorGroupRepository,
             VendorCategoryRepository vendorCategoryRepository,
-            VendorContactRepository vendorContactRepository) {
+            VendorContactRepository vendorContactRepository,
+            PagingService pagingService) {
         this.vendorRepository = vendorRepository;
         this.vendorGroupRepository = vendorGroupRepository;
         this.vendorCategoryRepository = vendorCategoryRepository;
         this.vendorContactRepository = vendorContactRepository;
+        this.pagingService = pagingService;
     }
     
     // ========== VENDOR CRUD OPERATIONS ==========
@@ -49,6 +56,22 @@ public class VendorService {
         return vendorRepository.save(vendor);
     }
     
+    // Bulk create: one insertMany; generated codes get a running suffix so a batch never repeats one
+    public List<Vendor> createVendors(List<Vendor> vendors) {
+        if (vendors == null || vendors.isEmpty()) return List.of();
+        
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < vendors.size(); i++) {
+            Vendor vendor = vendors.get(i);
+            if (vendor.getVendorCode() == null || vendor.getVendorCode().isEmpty()) {
+                vendor.setVendorCode(generateVendorCode(vendor.getName()) + "-" + (i + 1));
+            }
+            vendor.setCreatedAt(now);
+            vendor.setUpdatedAt(now);
+        }
+        return vendorRepository.insert(vendors);
+    }
+    
     public Optional<Vendor> getVendorById(String id) {
         return vendorRepository.findById(id);
     }
@@ -61,6 +84,16 @@ public class VendorService {
         return vendorRepository.findAll();
     }
     
+    // Keyset page on _id: afterId is the nextCursor of the previous page (null for the first page)
+    public KeysetPage<Vendor> listVendors(String afterId, int limit, Sort.Direction direction) {
+        return pagingService.page(Vendor.class, "id", PagingService.objectIdCursor(afterId), limit, direction, Vendor::getId);
+    }
+    
+    // Every vendor, read from the cursor batchSize at a time; close the stream when done
+    public Stream<Vendor> streamVendors(int batchSize) {
+        return pagingService.stream(Vendor.class, batchSize);
+    }
+    
     public List<Vendor> getActiveVendors() {
         return vendorRepository.findByStatus("ACTIVE");
     }
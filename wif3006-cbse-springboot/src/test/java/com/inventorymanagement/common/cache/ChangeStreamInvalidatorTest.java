@@ -0,0 +1,180 @@
+package com.inventorymanagement.common.cache;
+
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ChangeStreamInvalidatorTest {
+
+    @Mock
+    private MongoDatabase database;
+
+    @Mock
+    private ChangeStreamIterable<Document> stream;
+
+    @Mock
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor;
+
+    @Mock
+    private CacheInvalidationListener taxCache;
+
+    @Mock
+    private CacheInvalidationListener productCache;
+
+    @TempDir
+    Path tempDir;
+
+    private Path tokenFile;
+    private ChangeStreamInvalidator invalidator;
+
+    @BeforeEach
+    void setUp() {
+        tokenFile = tempDir.resolve("change-stream.token");
+        invalidator = new ChangeStreamInvalidator();
+        // What start() would set up, without its thread
+        ReflectionTestUtils.setField(invalidator, "database", database);
+        ReflectionTestUtils.setField(invalidator, "collections", List.of("taxes", "products"));
+        ReflectionTestUtils.setField(invalidator, "tokenFile", tokenFile);
+        ReflectionTestUtils.setField(invalidator, "listeners", List.of(taxCache, productCache));
+    }
+
+    // A mock, as every ChangeStreamDocument constructor is deprecated; only what the invalidator reads is stubbed
+    @SuppressWarnings("unchecked")
+    private static ChangeStreamDocument<Document> change(String operation, String collection, BsonValue id) {
+        ChangeStreamDocument<Document> change = mock(ChangeStreamDocument.class);
+        lenient().when(change.getOperationType()).thenReturn(OperationType.fromString(operation));
+        lenient().when(change.getNamespace()).thenReturn(new MongoNamespace("inventory_db_springboot", collection));
+        lenient().when(change.getDocumentKey()).thenReturn(id != null ? new BsonDocument("_id", id) : null);
+        return change;
+    }
+
+    // =================== EVENTS ===================
+
+    @Test
+    void testToInvalidation_DocumentChange_ShouldCarryTheIdAsString() {
+        ObjectId id = new ObjectId();
+
+        CacheInvalidation invalidation = ChangeStreamInvalidator.toInvalidation(change("update", "products", new BsonObjectId(id)));
+
+        assertEquals("products", invalidation.getCollection());
+        assertEquals(id.toHexString(), invalidation.getDocumentId());
+        assertEquals("update", invalidation.getOperation());
+        assertEquals("T1", ChangeStreamInvalidator.toInvalidation(change("delete", "taxes", new BsonString("T1"))).getDocumentId());
+    }
+
+    @Test
+    void testToInvalidation_DropAndDropDatabase_ShouldWidenTheScope() {
+        CacheInvalidation drop = ChangeStreamInvalidator.toInvalidation(change("drop", "taxes", null));
+        CacheInvalidation dropDatabase = ChangeStreamInvalidator.toInvalidation(change("dropDatabase", "taxes", null));
+
+        assertNull(drop.getDocumentId());
+        assertFalse(drop.isEverything());
+        assertTrue(dropDatabase.isEverything());
+    }
+
+    @Test
+    void testPublish_ShouldOnlyReachListenersOfThatCollection() {
+        when(taxCache.getCollections()).thenReturn(Set.of("taxes"));
+        when(productCache.getCollections()).thenReturn(Set.of("products"));
+        CacheInvalidation invalidation = CacheInvalidation.ofDocument("taxes", "T1", "update");
+
+        invalidator.publish(invalidation);
+
+        verify(taxCache).invalidate(invalidation);
+        verify(productCache, never()).invalidate(any());
+    }
+
+    @Test
+    void testPublish_FailingListener_ShouldNotStopTheOthers() {
+        doThrow(new IllegalStateException("boom")).when(taxCache).invalidate(any());
+
+        invalidator.publish(CacheInvalidation.everything());
+
+        verify(productCache).invalidate(CacheInvalidation.everything());
+    }
+
+    // =================== STREAM ===================
+
+    @Test
+    void testFollow_FromScratch_ShouldResetCachesThenPassChangesAndSaveTheToken() {
+        BsonDocument token = new BsonDocument("_data", new BsonString("8263A1"));
+        when(database.watch(anyList())).thenReturn(stream);
+        when(stream.maxAwaitTime(anyLong(), any(TimeUnit.class))).thenReturn(stream);
+        when(stream.cursor()).thenReturn(cursor);
+        when(productCache.getCollections()).thenReturn(Set.of("products"));
+        when(taxCache.getCollections()).thenReturn(Set.of("taxes"));
+        // One change, then the bean is stopped
+        ChangeStreamDocument<Document> insert = change("insert", "products", new BsonString("P1"));
+        when(cursor.tryNext()).thenReturn(insert);
+        when(cursor.getResumeToken()).thenAnswer(invocation -> {
+            ReflectionTestUtils.setField(invalidator, "running", false);
+            return token;
+        });
+        ReflectionTestUtils.setField(invalidator, "running", true);
+
+        invalidator.follow();
+
+        ArgumentCaptor<CacheInvalidation> received = ArgumentCaptor.forClass(CacheInvalidation.class);
+        verify(productCache, times(2)).invalidate(received.capture());
+        assertTrue(received.getAllValues().get(0).isEverything());
+        assertEquals("P1", received.getAllValues().get(1).getDocumentId());
+        verify(taxCache, times(1)).invalidate(CacheInvalidation.everything());
+        verify(stream, never()).resumeAfter(any());
+        verify(cursor).close();
+
+        assertTrue(Files.exists(tokenFile));
+        assertEquals(token, invalidator.readToken());
+    }
+
+    @Test
+    void testFollow_WithSavedToken_ShouldResumeWithoutReset() {
+        BsonDocument token = new BsonDocument("_data", new BsonString("8263A1"));
+        invalidator.writeToken(token);
+        ReflectionTestUtils.setField(invalidator, "resumeToken", invalidator.readToken());
+        when(database.watch(anyList())).thenReturn(stream);
+        when(stream.maxAwaitTime(anyLong(), any(TimeUnit.class))).thenReturn(stream);
+        when(stream.resumeAfter(token)).thenReturn(stream);
+        when(stream.cursor()).thenReturn(cursor);
+
+        invalidator.follow();
+
+        verify(stream).resumeAfter(token);
+        verify(taxCache, never()).invalidate(any());
+        verify(productCache, never()).invalidate(any());
+    }
+
+    @Test
+    void testReadToken_UnreadableFile_ShouldStartOver() throws Exception {
+        Files.writeString(tokenFile, "not json");
+
+        assertNull(invalidator.readToken());
+    }
+}
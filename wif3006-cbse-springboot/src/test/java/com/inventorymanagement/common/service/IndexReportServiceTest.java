@@ -0,0 +1,104 @@
+package com.inventorymanagement.common.service;
+
+import com.inventorymanagement.salesorder_wongxiuhuan.model.SalesOrderItem;
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class IndexReportServiceTest {
+
+    @Mock
+    private MongoOperations mongoOperations;
+
+    @Mock
+    private MongoConverter converter;
+
+    @Mock
+    private IndexOperations indexOperations;
+
+    @InjectMocks
+    private IndexReportService indexReportService;
+
+    @BeforeEach
+    void setUp() {
+        // Same simple types as the application context, so BigDecimal etc. are not mapped as entities
+        MongoMappingContext context = new MongoMappingContext();
+        context.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder());
+        context.setInitialEntitySet(Set.of(SalesOrderItem.class));
+        context.afterPropertiesSet();
+
+        when(mongoOperations.getConverter()).thenReturn(converter);
+        doReturn(context).when(converter).getMappingContext();
+    }
+
+    private IndexInfo index(String name) {
+        return new IndexInfo(List.of(IndexField.create(name, Sort.Direction.ASC)), name, false, false, "");
+    }
+
+    @Test
+    void testFindMissingIndexes_ShouldReportDeclaredIndexesNotOnServer() {
+        when(mongoOperations.indexOps(SalesOrderItem.class)).thenReturn(indexOperations);
+        when(indexOperations.getIndexInfo()).thenReturn(List.of(index("_id_"), index("salesOrderId")));
+
+        assertEquals(List.of("sales_order_items.productId"), indexReportService.findMissingIndexes());
+    }
+
+    @Test
+    void testFindMissingIndexes_WhenAllPresent_ShouldReturnEmpty() {
+        when(mongoOperations.indexOps(SalesOrderItem.class)).thenReturn(indexOperations);
+        when(indexOperations.getIndexInfo())
+                .thenReturn(List.of(index("_id_"), index("salesOrderId"), index("productId")));
+
+        assertTrue(indexReportService.findMissingIndexes().isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFindUnusedIndexes_ShouldReportIndexesWithoutOps() {
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        AggregateIterable<Document> stats = mock(AggregateIterable.class);
+        when(mongoOperations.getCollection("sales_order_items")).thenReturn(collection);
+        when(collection.aggregate(anyList())).thenReturn(stats);
+        when(stats.into(any())).thenAnswer(invocation -> {
+            Collection<Document> target = invocation.getArgument(0);
+            target.add(new Document("name", "_id_").append("accesses", new Document("ops", 0L)));
+            target.add(new Document("name", "salesOrderId").append("accesses", new Document("ops", 7L)));
+            target.add(new Document("name", "productId").append("accesses", new Document("ops", 0L)));
+            return target;
+        });
+
+        assertEquals(List.of("sales_order_items.productId"), indexReportService.findUnusedIndexes());
+    }
+
+    @Test
+    void testLogReport_WhenIndexStatsIsNotAllowed_ShouldNotFail() {
+        when(mongoOperations.indexOps(SalesOrderItem.class)).thenReturn(indexOperations);
+        when(indexOperations.getIndexInfo()).thenReturn(List.of(index("_id_"), index("salesOrderId"), index("productId")));
+        when(mongoOperations.getCollection("sales_order_items")).thenThrow(new IllegalStateException("not authorized"));
+
+        assertDoesNotThrow(() -> indexReportService.logReport());
+    }
+}
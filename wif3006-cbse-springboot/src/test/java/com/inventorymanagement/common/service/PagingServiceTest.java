@@ -0,0 +1,102 @@
+package com.inventorymanagement.common.service;
+
+import com.inventorymanagement.common.model.KeysetPage;
+import com.inventorymanagement.purchaseorder_ooiweiying.model.PurchaseOrder;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PagingServiceTest {
+
+    @Mock
+    private MongoOperations mongoOperations;
+
+    @InjectMocks
+    private PagingService pagingService;
+
+    private PurchaseOrder order(int orderId) {
+        PurchaseOrder order = new PurchaseOrder();
+        order.setOrderId(orderId);
+        return order;
+    }
+
+    private ArgumentCaptor<Query> stubFind(PurchaseOrder... rows) {
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        when(mongoOperations.find(query.capture(), eq(PurchaseOrder.class)))
+                .thenReturn(new ArrayList<>(List.of(rows)));
+        return query;
+    }
+
+    @Test
+    void testPage_FirstPage_ShouldFetchOneExtraRowAndReturnCursor() {
+        ArgumentCaptor<Query> query = stubFind(order(1), order(2), order(3));
+
+        KeysetPage<PurchaseOrder> page = pagingService.page(PurchaseOrder.class, "orderId", null, 2,
+                Sort.Direction.ASC, PurchaseOrder::getOrderId);
+
+        assertEquals(3, query.getValue().getLimit());
+        assertTrue(query.getValue().getQueryObject().isEmpty());
+        assertEquals(new Document("orderId", 1), query.getValue().getSortObject());
+        assertEquals(2, page.getItems().size());
+        assertEquals("2", page.getNextCursor());
+    }
+
+    @Test
+    void testPage_WithCursorDescending_ShouldSeekBelowItAndEndOnShortPage() {
+        ArgumentCaptor<Query> query = stubFind(order(4));
+
+        KeysetPage<PurchaseOrder> page = pagingService.page(PurchaseOrder.class, "orderId", 5, 2,
+                Sort.Direction.DESC, PurchaseOrder::getOrderId);
+
+        assertEquals(new Document("orderId", new Document("$lt", 5)), query.getValue().getQueryObject());
+        assertEquals(new Document("orderId", -1), query.getValue().getSortObject());
+        assertFalse(page.hasNext());
+    }
+
+    @Test
+    void testPage_ShouldCapLimitAndRejectNonPositive() {
+        ArgumentCaptor<Query> query = stubFind();
+
+        pagingService.page(PurchaseOrder.class, "orderId", null, 10_000, Sort.Direction.ASC, PurchaseOrder::getOrderId);
+
+        assertEquals(PagingService.MAX_PAGE_SIZE + 1, query.getValue().getLimit());
+        assertThrows(IllegalArgumentException.class, () -> pagingService.page(PurchaseOrder.class, "orderId",
+                null, 0, Sort.Direction.ASC, PurchaseOrder::getOrderId));
+    }
+
+    @Test
+    void testObjectIdCursor_ShouldRejectMalformedIds() {
+        ObjectId id = new ObjectId();
+        assertEquals(id, PagingService.objectIdCursor(id.toHexString()));
+        assertNull(PagingService.objectIdCursor(null));
+        assertThrows(IllegalArgumentException.class, () -> PagingService.objectIdCursor("not-an-id"));
+    }
+
+    @Test
+    void testStream_ShouldUseCursorBatchSize() {
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        when(mongoOperations.stream(query.capture(), eq(PurchaseOrder.class))).thenReturn(Stream.of(order(1)));
+
+        try (Stream<PurchaseOrder> orders = pagingService.stream(PurchaseOrder.class, 250)) {
+            assertEquals(1, orders.count());
+        }
+        assertEquals(250, query.getValue().getMeta().getCursorBatchSize());
+    }
+}
@@ -0,0 +1,114 @@
+package com.inventorymanagement.common.service;
+
+import com.inventorymanagement.common.model.DatabaseSequence;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SequenceGeneratorServiceTest {
+
+    private static final String SEQ = "purchase_order_id";
+
+    @Mock
+    private MongoOperations mongoOperations;
+
+    @InjectMocks
+    private SequenceGeneratorService sequenceGeneratorService;
+
+    private void stubFindAndModify(DatabaseSequence first, DatabaseSequence... rest) {
+        when(mongoOperations.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(DatabaseSequence.class)))
+                .thenReturn(first, rest);
+    }
+
+    @Test
+    void testNext_WithBlockSizeOne_ShouldHitDatabaseEveryCall() {
+        stubFindAndModify(new DatabaseSequence(SEQ, 1), new DatabaseSequence(SEQ, 2));
+
+        assertEquals(1, sequenceGeneratorService.next(SEQ));
+        assertEquals(2, sequenceGeneratorService.next(SEQ));
+        verify(mongoOperations, times(2)).findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(DatabaseSequence.class));
+    }
+
+    @Test
+    void testNext_ShouldUpsertAndReturnNewValue() {
+        stubFindAndModify(new DatabaseSequence(SEQ, 1));
+
+        sequenceGeneratorService.next(SEQ);
+
+        ArgumentCaptor<FindAndModifyOptions> options = ArgumentCaptor.forClass(FindAndModifyOptions.class);
+        verify(mongoOperations).findAndModify(any(Query.class), any(Update.class),
+                options.capture(), eq(DatabaseSequence.class));
+        assertTrue(options.getValue().isUpsert());
+        assertTrue(options.getValue().isReturnNew());
+    }
+
+    @Test
+    void testNext_WithBlockSize_ShouldServeBlockFromMemory() {
+        ReflectionTestUtils.setField(sequenceGeneratorService, "blockSize", 5);
+        // Counter was at 10, one $inc of 5 reserves 11..15
+        stubFindAndModify(new DatabaseSequence(SEQ, 15), new DatabaseSequence(SEQ, 20));
+
+        for (long expected = 11; expected <= 15; expected++) {
+            assertEquals(expected, sequenceGeneratorService.next(SEQ));
+        }
+        assertEquals(16, sequenceGeneratorService.next(SEQ));
+        verify(mongoOperations, times(2)).findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(DatabaseSequence.class));
+    }
+
+    @Test
+    void testNext_WhenFirstUpsertRacesOnDuplicateKey_ShouldRetry() {
+        when(mongoOperations.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(DatabaseSequence.class)))
+                .thenThrow(new DuplicateKeyException("E11000 duplicate key error"))
+                .thenReturn(new DatabaseSequence(SEQ, 2));
+
+        assertEquals(2, sequenceGeneratorService.next(SEQ));
+    }
+
+    @Test
+    void testNextRange_ShouldReserveTheWholeRangeInOneCall() {
+        // Counter was at 10: one $inc of 3 reserves 11..13
+        stubFindAndModify(new DatabaseSequence(SEQ, 13));
+
+        assertEquals(11, sequenceGeneratorService.nextRange(SEQ, 3));
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoOperations, times(1)).findAndModify(any(Query.class), update.capture(),
+                any(FindAndModifyOptions.class), eq(DatabaseSequence.class));
+        assertEquals(3L, ((org.bson.Document) update.getValue().getUpdateObject().get("$inc")).get("seq"));
+        assertThrows(IllegalArgumentException.class, () -> sequenceGeneratorService.nextRange(SEQ, 0));
+    }
+
+    @Test
+    void testEnsureAtLeast_ShouldUpsertWithMax() {
+        sequenceGeneratorService.ensureAtLeast(SEQ, 42);
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoOperations).upsert(any(Query.class), update.capture(), eq(DatabaseSequence.class));
+        assertTrue(update.getValue().getUpdateObject().containsKey("$max"));
+    }
+
+    @Test
+    void testEnsureAtLeast_WithZeroFloor_ShouldDoNothing() {
+        sequenceGeneratorService.ensureAtLeast(SEQ, 0);
+
+        verifyNoInteractions(mongoOperations);
+    }
+}
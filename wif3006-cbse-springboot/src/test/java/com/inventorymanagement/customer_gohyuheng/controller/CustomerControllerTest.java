@@ -0,0 +1,66 @@
+package com.inventorymanagement.customer_gohyuheng.controller;
+
+import com.inventorymanagement.common.web.ApiExceptionHandler;
+import com.inventorymanagement.customer_gohyuheng.model.Customer;
+import com.inventorymanagement.customer_gohyuheng.service.CustomerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Optional;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// The application class wires the console menus, so the slice names its beans itself
+@WebMvcTest(CustomerController.class)
+@ContextConfiguration(classes = {CustomerController.class, ApiExceptionHandler.class})
+public class CustomerControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private CustomerService customerService;
+
+    private static Customer customer(String id) {
+        Customer customer = new Customer();
+        customer.setId(id);
+        return customer;
+    }
+
+    @Test
+    void testRemoveCustomer_Unknown_ShouldBeNotFound() throws Exception {
+        when(customerService.getCustomerById("C9")).thenReturn(Optional.empty());
+
+        mockMvc.perform(delete("/api/customers/C9"))
+                .andExpect(status().isNotFound());
+
+        verify(customerService, never()).removeCustomer("C9");
+    }
+
+    @Test
+    void testRemoveCustomer_Blocked_ShouldBeConflict() throws Exception {
+        when(customerService.getCustomerById("C1")).thenReturn(Optional.of(customer("C1")));
+        doThrow(new IllegalStateException("Cannot delete: This customer has 2 existing Sales Order(s)."))
+                .when(customerService).removeCustomer("C1");
+
+        mockMvc.perform(delete("/api/customers/C1"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.detail").value("Cannot delete: This customer has 2 existing Sales Order(s)."));
+    }
+
+    @Test
+    void testRemoveCustomer_ShouldBeNoContent() throws Exception {
+        when(customerService.getCustomerById("C1")).thenReturn(Optional.of(customer("C1")));
+
+        mockMvc.perform(delete("/api/customers/C1"))
+                .andExpect(status().isNoContent());
+
+        verify(customerService).removeCustomer("C1");
+    }
+}
@@ -9,7 +9,6 @@ package com.inventorymanagement.customer_gohyuheng.service;
 import com.inventorymanagement.customer_gohyuheng.model.*;
 import com.inventorymanagement.customer_gohyuheng.repository.*;
 import com.inventorymanagement.salesorder_wongxiuhuan.repository.SalesOrderRepository;
-import com.inventorymanagement.salesorder_wongxiuhuan.model.SalesOrder;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -19,7 +18,6 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.Collections;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -89,7 +87,7 @@ public class CustomerServiceTest {
 
         when(customerRepo.existsById(customerId)).thenReturn(true);
 
-        when(salesOrderRepo.findByCustomerId(customerId)).thenReturn(Collections.emptyList());
+        when(salesOrderRepo.countByCustomerId(customerId)).thenReturn(0L);
 
         List<CustomerContact> associatedContacts = List.of(new CustomerContact());
         when(contactRepo.findByCustomerId(customerId)).thenReturn(associatedContacts);
@@ -106,11 +104,13 @@ public class CustomerServiceTest {
 
         when(customerRepo.existsById(customerId)).thenReturn(true);
 
-        when(salesOrderRepo.findByCustomerId(customerId)).thenReturn(List.of(new SalesOrder()));
+        when(salesOrderRepo.countByCustomerId(customerId)).thenReturn(2L);
 
         String result = customerService.deleteCustomer(customerId);
 
         assertTrue(result.contains("❌ Cannot delete"));
+        assertTrue(result.contains("2 existing Sales Order(s)"));
+        verify(salesOrderRepo, never()).findByCustomerId(customerId);
 
         verify(customerRepo, never()).deleteById(customerId);
 
@@ -0,0 +1,70 @@
+package com.inventorymanagement.product_ericleechunkiat.controller;
+
+import com.inventorymanagement.common.web.ApiExceptionHandler;
+import com.inventorymanagement.product_ericleechunkiat.model.Product;
+import com.inventorymanagement.product_ericleechunkiat.service.ProductImportService;
+import com.inventorymanagement.product_ericleechunkiat.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Optional;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// The application class wires the console menus, so the slice names its beans itself
+@WebMvcTest(ProductController.class)
+@ContextConfiguration(classes = {ProductController.class, ApiExceptionHandler.class})
+public class ProductControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ProductService productService;
+
+    @MockBean
+    private ProductImportService productImportService;
+
+    private static Product product(String id) {
+        Product product = new Product();
+        product.setId(id);
+        return product;
+    }
+
+    @Test
+    void testDeleteProduct_Unknown_ShouldBeNotFound() throws Exception {
+        when(productService.getProductById("P9")).thenReturn(Optional.empty());
+
+        mockMvc.perform(delete("/api/products/P9"))
+                .andExpect(status().isNotFound());
+
+        verify(productService, never()).deleteProduct("P9");
+    }
+
+    @Test
+    void testDeleteProduct_Blocked_ShouldBeConflict() throws Exception {
+        when(productService.getProductById("P1")).thenReturn(Optional.of(product("P1")));
+        doThrow(new IllegalStateException("Cannot delete: 3 sales order line(s) use this product."))
+                .when(productService).deleteProduct("P1");
+
+        mockMvc.perform(delete("/api/products/P1"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.detail").value("Cannot delete: 3 sales order line(s) use this product."));
+    }
+
+    @Test
+    void testDeleteProduct_ShouldBeNoContent() throws Exception {
+        when(productService.getProductById("P1")).thenReturn(Optional.of(product("P1")));
+
+        mockMvc.perform(delete("/api/products/P1"))
+                .andExpect(status().isNoContent());
+
+        verify(productService).deleteProduct("P1");
+    }
+}
@@ -0,0 +1,128 @@
+package com.inventorymanagement.product_ericleechunkiat.service;
+
+import com.inventorymanagement.common.importer.ImportFormat;
+import com.inventorymanagement.common.importer.ImportReport;
+import com.inventorymanagement.product_ericleechunkiat.model.Product;
+import com.inventorymanagement.product_ericleechunkiat.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductImportServiceTest {
+
+    @Mock private ProductRepository productRepo;
+    @Mock private MongoTemplate mongoTemplate;
+    @Mock private BulkOperations bulk;
+
+    @InjectMocks
+    private ProductImportService productImportService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(productImportService, "defaultChunkSize", 1000);
+    }
+
+    private static InputStream file(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void stubBulkInsert() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class)).thenReturn(bulk);
+        when(bulk.insert(anyList())).thenReturn(bulk);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<Product>> insertedChunks(int times) {
+        ArgumentCaptor<List<Product>> chunks = ArgumentCaptor.forClass(List.class);
+        verify(bulk, times(times)).insert(chunks.capture());
+        return chunks.getAllValues();
+    }
+
+    @Test
+    void testImportProducts_Csv_ShouldInsertValidRowsAndReportTheRest() {
+        Product existing = new Product();
+        existing.setName("BOLT");
+        when(productRepo.findNamesByNameInIgnoreCase(anyCollection())).thenReturn(List.of(existing));
+        stubBulkInsert();
+
+        String csv = "name,price,productGroupId,uomId\n"
+                + "Widget,2.50,G1,U1\n"
+                + "\"Nut, hex\",0.10,,\n"
+                + "bolt,1,,\n"
+                + "WIDGET,3,,\n"
+                + ",1,,\n"
+                + "Washer,cheap,,\n";
+
+        ImportReport report = productImportService.importProducts(file(csv), ImportFormat.CSV, 0);
+
+        List<Product> inserted = insertedChunks(1).get(0);
+        assertEquals(List.of("Widget", "Nut, hex"), inserted.stream().map(Product::getName).collect(Collectors.toList()));
+        assertEquals(2.5, inserted.get(0).getPrice());
+        assertEquals("G1", inserted.get(0).getProductGroupId());
+        assertNull(inserted.get(1).getUomId());
+
+        assertEquals(6, report.getRowsRead());
+        assertEquals(2, report.getRowsImported());
+        assertEquals(4, report.getRowsRejected());
+        assertEquals(List.of(4L, 5L, 6L, 7L), report.getRejections().stream().map(r -> r.getLine()).sorted().collect(Collectors.toList()));
+        assertTrue(report.getRejections().stream().anyMatch(r -> r.getReason().contains("already exists")));
+        assertTrue(report.getRejections().stream().anyMatch(r -> r.getReason().contains("more than once")));
+        verify(productRepo, never()).save(any(Product.class));
+    }
+
+    @Test
+    void testImportProducts_CsvWithByteOrderMark_ShouldReadTheFirstColumn() {
+        stubBulkInsert();
+
+        // As a spreadsheet saves "CSV UTF-8": EF BB BF before the header
+        byte[] bom = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+        byte[] csv = "name,price\nWidget,2.50\n".getBytes(StandardCharsets.UTF_8);
+        byte[] content = new byte[bom.length + csv.length];
+        System.arraycopy(bom, 0, content, 0, bom.length);
+        System.arraycopy(csv, 0, content, bom.length, csv.length);
+
+        ImportReport report = productImportService.importProducts(new ByteArrayInputStream(content), ImportFormat.CSV, 0);
+
+        assertEquals(1, report.getRowsImported());
+        assertEquals(0, report.getRowsRejected());
+        assertEquals("Widget", insertedChunks(1).get(0).get(0).getName());
+    }
+
+    @Test
+    void testImportProducts_Ndjson_ShouldWriteOneBulkPerChunk() {
+        stubBulkInsert();
+
+        String ndjson = "{\"name\":\"A\",\"price\":1}\n"
+                + "{\"name\":\"B\",\"price\":2}\n"
+                + "not json\n"
+                + "{\"name\":\"C\",\"price\":3}\n";
+
+        ImportReport report = productImportService.importProducts(file(ndjson), ImportFormat.NDJSON, 2);
+
+        List<List<Product>> chunks = insertedChunks(2);
+        assertEquals(2, chunks.get(0).size());
+        assertEquals(1, chunks.get(1).size());
+        assertEquals(2, report.getChunks());
+        assertEquals(3, report.getRowsImported());
+        assertEquals(1, report.getRowsRejected());
+        assertEquals(3L, report.getRejections().get(0).getLine());
+        verify(productRepo, times(2)).findNamesByNameInIgnoreCase(anyCollection());
+    }
+}
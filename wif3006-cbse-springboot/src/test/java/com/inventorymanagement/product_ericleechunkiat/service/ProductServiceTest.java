@@ -8,6 +8,7 @@ package com.inventorymanagement.product_ericleechunkiat.service;
 
 import com.inventorymanagement.product_ericleechunkiat.model.*;
 import com.inventorymanagement.product_ericleechunkiat.repository.*;
+import com.inventorymanagement.salesorder_wongxiuhuan.repository.SalesOrderItemRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -30,6 +31,7 @@ public class ProductServiceTest {
     @Mock private UnitMeasureRepository uomRepo;
     @Mock private WarehouseRepository warehouseRepo;
     @Mock private StockCountRepository stockRepo;
+    @Mock private SalesOrderItemRepository salesOrderItemRepo;
 
     // --- INJECT SERVICE ---
     @InjectMocks
@@ -69,6 +71,86 @@ public class ProductServiceTest {
         verify(productRepo, never()).save(any());
     }
 
+    @Test
+    void testAddProducts_ShouldCheckAllNamesInOneQueryAndInsertOnce() {
+        Product apple = new Product();
+        apple.setName("Apple");
+        Product pear = new Product();
+        pear.setName("Pear");
+        List<Product> batch = List.of(apple, pear);
+
+        when(productRepo.findNamesByNameInIgnoreCase(List.of("Apple", "Pear"))).thenReturn(List.of());
+        when(productRepo.insert(batch)).thenReturn(batch);
+
+        assertEquals(2, productService.addProducts(batch).size());
+        verify(productRepo, never()).existsByNameIgnoreCase(anyString());
+    }
+
+    @Test
+    void testAddProducts_DuplicateInBatchOrDatabase_ShouldInsertNothing() {
+        Product apple = new Product();
+        apple.setName("Apple");
+        Product shouting = new Product();
+        shouting.setName("APPLE");
+        Product banana = new Product();
+        banana.setName("Banana");
+
+        Exception inBatch = assertThrows(IllegalArgumentException.class,
+                () -> productService.addProducts(List.of(apple, shouting)));
+        assertTrue(inBatch.getMessage().contains("more than once"));
+
+        when(productRepo.findNamesByNameInIgnoreCase(List.of("Banana"))).thenReturn(List.of(banana));
+        Exception existing = assertThrows(IllegalArgumentException.class,
+                () -> productService.addProducts(List.of(banana)));
+        assertTrue(existing.getMessage().contains("already exists"));
+        verify(productRepo, never()).insert(anyList());
+    }
+
+    @Test
+    void testGetProductIdByName_ShouldUseIndexedLookupAndCache() {
+        Product match = new Product();
+        match.setId("101");
+        when(productRepo.findIdsByNameIgnoreCase("APPLE")).thenReturn(List.of(match));
+
+        assertEquals("101", productService.getProductIdByName("APPLE"));
+        assertEquals("101", productService.getProductIdByName("apple")); // served from cache
+
+        verify(productRepo, times(1)).findIdsByNameIgnoreCase(anyString());
+        verify(productRepo, never()).findAll();
+    }
+
+    @Test
+    void testGetProductIdByName_WhenNotFound_ShouldReturnNull() {
+        when(productRepo.findIdsByNameIgnoreCase("Durian")).thenReturn(Collections.emptyList());
+
+        assertNull(productService.getProductIdByName("Durian"));
+    }
+
+    @Test
+    void testDeleteProduct_ShouldInvalidateNameCache() {
+        Product match = new Product();
+        match.setId("101");
+        when(productRepo.findIdsByNameIgnoreCase("Apple"))
+                .thenReturn(List.of(match))
+                .thenReturn(Collections.emptyList());
+
+        productService.getProductIdByName("Apple");
+        productService.deleteProduct("101");
+
+        assertNull(productService.getProductIdByName("Apple"));
+        verify(productRepo, times(2)).findIdsByNameIgnoreCase("Apple");
+    }
+
+    @Test
+    void testDeleteProduct_UsedBySalesOrderLines_ShouldRefuse() {
+        when(salesOrderItemRepo.countByProductId("101")).thenReturn(3L);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> productService.deleteProduct("101"));
+
+        assertEquals("Cannot delete: 3 sales order line(s) use this product.", e.getMessage());
+        verify(productRepo, never()).deleteById(any());
+    }
+
     @Test
     void testGetProductById_ShouldReturnOptional() {
         Product p = new Product();
@@ -7,15 +7,24 @@
 
 package com.inventorymanagement.purchaseorder_ooiweiying.service;
 
+import com.inventorymanagement.common.service.SequenceGeneratorService;
 import com.inventorymanagement.purchaseorder_ooiweiying.model.OrderItem;
 import com.inventorymanagement.purchaseorder_ooiweiying.model.PurchaseOrder;
+import com.inventorymanagement.purchaseorder_ooiweiying.model.PurchaseOrderQuery;
 import com.inventorymanagement.purchaseorder_ooiweiying.repository.PurchaseOrderRepository;
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -33,6 +42,12 @@ public class PurchaseOrderServiceTest {
     @Mock
     private PurchaseOrderRepository purchaseOrderRepository;
 
+    @Mock
+    private SequenceGeneratorService sequenceGeneratorService;
+
+    @Mock
+    private MongoOperations mongoOperations;
+
     @InjectMocks
     private PurchaseOrderService purchaseOrderService;
 
@@ -61,7 +76,7 @@ public class PurchaseOrderServiceTest {
         PurchaseOrder po = createTestPurchaseOrder(0, "pending");
         PurchaseOrder saved = createTestPurchaseOrder(1, "pending");
 
-        when(purchaseOrderRepository.findAll()).thenReturn(new ArrayList<>());
+        when(sequenceGeneratorService.next("purchase_order_id")).thenReturn(1L);
         when(purchaseOrderRepository.save(any(PurchaseOrder.class))).thenReturn(saved);
 
         PurchaseOrder result = purchaseOrderService.createPurchaseOrder(po);
@@ -77,7 +92,7 @@ public class PurchaseOrderServiceTest {
         PurchaseOrder po = createTestPurchaseOrder(0, "pending");
         po.setOrderId(0);
 
-        when(purchaseOrderRepository.findAll()).thenReturn(new ArrayList<>());
+        when(sequenceGeneratorService.next("purchase_order_id")).thenReturn(1L);
         when(purchaseOrderRepository.save(any(PurchaseOrder.class))).thenReturn(po);
 
         purchaseOrderService.createPurchaseOrder(po);
@@ -91,7 +106,7 @@ public class PurchaseOrderServiceTest {
         PurchaseOrder po = createTestPurchaseOrder(0, "pending");
         po.setOrderNumber(null);
 
-        when(purchaseOrderRepository.findAll()).thenReturn(new ArrayList<>());
+        when(sequenceGeneratorService.next("purchase_order_id")).thenReturn(1L);
         when(purchaseOrderRepository.save(any(PurchaseOrder.class))).thenReturn(po);
 
         purchaseOrderService.createPurchaseOrder(po);
@@ -105,7 +120,7 @@ public class PurchaseOrderServiceTest {
     void testCreatePurchaseOrder_ShouldSetStatusToPendingIfEmpty() {
         PurchaseOrder po = createTestPurchaseOrder(0, null);
 
-        when(purchaseOrderRepository.findAll()).thenReturn(new ArrayList<>());
+        when(sequenceGeneratorService.next("purchase_order_id")).thenReturn(1L);
         when(purchaseOrderRepository.save(any(PurchaseOrder.class))).thenAnswer(invocation -> {
             PurchaseOrder saved = invocation.getArgument(0);
             saved.setId("test-id");
@@ -118,6 +133,29 @@ public class PurchaseOrderServiceTest {
         verify(purchaseOrderRepository, times(1)).save(any(PurchaseOrder.class));
     }
 
+    @Test
+    void testCreatePurchaseOrders_ShouldReserveIdsOnceAndInsertOnce() {
+        PurchaseOrder first = createTestPurchaseOrder(0, null);
+        PurchaseOrder keepsId = createTestPurchaseOrder(7, "pending");
+        PurchaseOrder second = createTestPurchaseOrder(0, "pending");
+        second.setOrderNumber(null);
+        List<PurchaseOrder> batch = List.of(first, keepsId, second);
+
+        when(sequenceGeneratorService.nextRange("purchase_order_id", 2)).thenReturn(21L);
+        when(purchaseOrderRepository.insert(batch)).thenReturn(batch);
+
+        List<PurchaseOrder> result = purchaseOrderService.createPurchaseOrders(batch);
+
+        assertEquals(3, result.size());
+        assertEquals(21, first.getOrderId());
+        assertEquals(7, keepsId.getOrderId());
+        assertEquals(22, second.getOrderId());
+        assertEquals("PO-022", second.getOrderNumber());
+        assertEquals("pending", first.getOrderStatus());
+        verify(sequenceGeneratorService, never()).next(anyString());
+        verify(purchaseOrderRepository, never()).save(any(PurchaseOrder.class));
+    }
+
     @Test
     void testGetPurchaseOrderById_ShouldReturnOptionalPurchaseOrder() {
         String id = "test-id-1";
@@ -258,24 +296,41 @@ public class PurchaseOrderServiceTest {
     }
 
     @Test
-    void testGetNextOrderId_ShouldReturnMaxIdPlusOne() {
-        PurchaseOrder po1 = createTestPurchaseOrder(5, "pending");
-        PurchaseOrder po2 = createTestPurchaseOrder(10, "shipping");
-
-        when(purchaseOrderRepository.findAll()).thenReturn(Arrays.asList(po1, po2));
+    void testGetNextOrderId_ShouldAllocateFromSequence() {
+        when(sequenceGeneratorService.next("purchase_order_id")).thenReturn(11L);
 
         int nextId = purchaseOrderService.getNextOrderId();
 
         assertEquals(11, nextId);
+        verify(purchaseOrderRepository, never()).findAll(); // No full-collection scan
     }
 
     @Test
-    void testGetNextOrderId_WhenNoOrders_ShouldReturnOne() {
-        when(purchaseOrderRepository.findAll()).thenReturn(new ArrayList<>());
+    void testGetNextOrderId_ShouldReturnDistinctIdsOnConsecutiveCalls() {
+        when(sequenceGeneratorService.next("purchase_order_id")).thenReturn(1L, 2L);
 
-        int nextId = purchaseOrderService.getNextOrderId();
+        assertEquals(1, purchaseOrderService.getNextOrderId());
+        assertEquals(2, purchaseOrderService.getNextOrderId());
+    }
+
+    @Test
+    void testSeedOrderIdSequence_ShouldSeedFromHighestExistingOrderId() {
+        PurchaseOrder top = createTestPurchaseOrder(10, "shipping");
+
+        when(purchaseOrderRepository.findTopByOrderByOrderIdDesc()).thenReturn(Optional.of(top));
+
+        purchaseOrderService.seedOrderIdSequence();
+
+        verify(sequenceGeneratorService).ensureAtLeast("purchase_order_id", 10);
+    }
+
+    @Test
+    void testSeedOrderIdSequence_WhenNoOrders_ShouldSeedWithZero() {
+        when(purchaseOrderRepository.findTopByOrderByOrderIdDesc()).thenReturn(Optional.empty());
 
-        assertEquals(1, nextId);
+        purchaseOrderService.seedOrderIdSequence();
+
+        verify(sequenceGeneratorService).ensureAtLeast("purchase_order_id", 0);
     }
 
     @Test
@@ -606,7 +661,7 @@ public class PurchaseOrderServiceTest {
 
         assertEquals(999, result.getOrderId()); // Should keep the set ID
         verify(purchaseOrderRepository, times(1)).save(any(PurchaseOrder.class));
-        verify(purchaseOrderRepository, never()).findAll(); // Should not call findAll to get next ID
+        verify(sequenceGeneratorService, never()).next(anyString()); // Should not allocate a new ID
     }
 
     @Test
@@ -635,7 +690,7 @@ public class PurchaseOrderServiceTest {
         PurchaseOrder po = createTestPurchaseOrder(0, "pending");
         po.setOrderNumber(""); // Empty string
 
-        when(purchaseOrderRepository.findAll()).thenReturn(new ArrayList<>());
+        when(sequenceGeneratorService.next("purchase_order_id")).thenReturn(1L);
         when(purchaseOrderRepository.save(any(PurchaseOrder.class))).thenReturn(po);
 
         purchaseOrderService.createPurchaseOrder(po);
@@ -650,7 +705,7 @@ public class PurchaseOrderServiceTest {
         PurchaseOrder po = createTestPurchaseOrder(0, "pending");
         po.setOrderNumber(null);
 
-        when(purchaseOrderRepository.findAll()).thenReturn(new ArrayList<>());
+        when(sequenceGeneratorService.next("purchase_order_id")).thenReturn(1L);
         when(purchaseOrderRepository.save(any(PurchaseOrder.class))).thenReturn(po);
 
         purchaseOrderService.createPurchaseOrder(po);
@@ -821,7 +876,7 @@ public class PurchaseOrderServiceTest {
         PurchaseOrder po = createTestPurchaseOrder(0, "pending");
         po.setOrderItems(null); // Null order items
 
-        when(purchaseOrderRepository.findAll()).thenReturn(new ArrayList<>());
+        when(sequenceGeneratorService.next("purchase_order_id")).thenReturn(1L);
         when(purchaseOrderRepository.save(any(PurchaseOrder.class))).thenAnswer(invocation -> {
             PurchaseOrder saved = invocation.getArgument(0);
             saved.setId("test-id");
@@ -896,4 +951,68 @@ public class PurchaseOrderServiceTest {
         assertEquals("PO-010", orderNumber10);
         assertEquals("PO-100", orderNumber100);
     }
+
+    // =================== 14. SERVER-SIDE QUERY ===================
+
+    @Test
+    void testFindPurchaseOrders_ShouldTranslateCriteriaIntoOneQuery() {
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        when(mongoOperations.find(query.capture(), eq(PurchaseOrder.class)))
+                .thenReturn(List.of(createTestPurchaseOrder(3, "shipping")));
+
+        List<PurchaseOrder> result = purchaseOrderService.findPurchaseOrders(new PurchaseOrderQuery()
+                .statuses("Pending", "shipping")
+                .vendor("Acme")
+                .orderDateBetween(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 3, 31))
+                .sortBy(PurchaseOrderQuery.SortField.ORDER_DATE, Sort.Direction.DESC)
+                .limit(5));
+
+        List<?> clauses = query.getValue().getQueryObject().getList("$and", Object.class);
+        assertEquals(3, clauses.size());
+        assertEquals(List.of("pending", "shipping"),
+                new ArrayList<>(((Document) clauses.get(0)).get("orderStatus", Document.class).get("$in", java.util.Collection.class)));
+        assertEquals("Acme", ((Document) clauses.get(1)).getString("vendor"));
+        Document orderDate = ((Document) clauses.get(2)).get("orderDate", Document.class);
+        assertEquals(LocalDate.of(2024, 1, 1), orderDate.get("$gte"));
+        assertEquals(LocalDate.of(2024, 3, 31), orderDate.get("$lte"));
+        assertEquals(new Document("orderDate", -1).append("orderId", -1), query.getValue().getSortObject());
+        assertEquals(5, query.getValue().getLimit());
+        assertTrue(query.getValue().getCollation().isEmpty());
+        assertEquals(1, result.size());
+    }
+
+    @Test
+    void testFindPurchaseOrders_SortByVendor_ShouldUseCaseInsensitiveCollation() {
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        when(mongoOperations.find(query.capture(), eq(PurchaseOrder.class))).thenReturn(List.of());
+
+        purchaseOrderService.findPurchaseOrders(new PurchaseOrderQuery()
+                .sortBy(PurchaseOrderQuery.SortField.VENDOR, Sort.Direction.ASC));
+
+        assertTrue(query.getValue().getQueryObject().isEmpty());
+        assertEquals("en", query.getValue().getCollation().get().toDocument().getString("locale"));
+        assertEquals(2, query.getValue().getCollation().get().toDocument().getInteger("strength"));
+        assertEquals(0, query.getValue().getLimit());
+    }
+
+    @Test
+    void testFindPurchaseOrders_SortByTotalPrice_ShouldComputeTotalInAggregation() {
+        ArgumentCaptor<Aggregation> aggregation = ArgumentCaptor.forClass(Aggregation.class);
+        when(mongoOperations.aggregate(aggregation.capture(), eq(PurchaseOrder.class), eq(PurchaseOrder.class)))
+                .thenReturn(new AggregationResults<>(List.of(createTestPurchaseOrder(1, "received")), new Document()));
+
+        List<PurchaseOrder> result = purchaseOrderService.findPurchaseOrders(new PurchaseOrderQuery()
+                .statuses("received")
+                .sortBy(PurchaseOrderQuery.SortField.TOTAL_PRICE, Sort.Direction.DESC)
+                .limit(10));
+
+        List<Document> stages = aggregation.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertEquals(4, stages.size());
+        assertTrue(stages.get(0).containsKey("$match"));
+        assertTrue(stages.get(1).get("$addFields", Document.class).containsKey("totalPrice"));
+        assertEquals(new Document("totalPrice", -1).append("orderId", -1), stages.get(2).get("$sort"));
+        assertEquals(10L, stages.get(3).get("$limit", Number.class).longValue());
+        verify(mongoOperations, never()).find(any(Query.class), eq(PurchaseOrder.class));
+        assertEquals(1, result.size());
+    }
 }
@@ -0,0 +1,117 @@
+package com.inventorymanagement.salesorder_wongxiuhuan.controller;
+
+import com.inventorymanagement.common.model.KeysetPage;
+import com.inventorymanagement.common.web.ApiExceptionHandler;
+import com.inventorymanagement.salesorder_wongxiuhuan.model.SalesOrder;
+import com.inventorymanagement.salesorder_wongxiuhuan.service.SalesOrderImportService;
+import com.inventorymanagement.salesorder_wongxiuhuan.service.SalesOrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// The application class wires the console menus, so the slice names its beans itself
+@WebMvcTest(SalesOrderController.class)
+@ContextConfiguration(classes = {SalesOrderController.class, ApiExceptionHandler.class})
+public class SalesOrderControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private SalesOrderService salesOrderService;
+
+    @MockBean
+    private SalesOrderImportService salesOrderImportService;
+
+    private static SalesOrder order(String id, String number) {
+        SalesOrder order = new SalesOrder();
+        order.setId(id);
+        order.setOrderNumber(number);
+        return order;
+    }
+
+    private static String orderJson(String number) {
+        return "{\"orderNumber\":\"" + number + "\",\"customerId\":\"C1\",\"orderDate\":\"2026-01-05\",\"orderStatus\":\"PENDING\"}";
+    }
+
+    @Test
+    void testListSalesOrders_ShouldPassTheCursorAndReturnThePage() throws Exception {
+        when(salesOrderService.listSalesOrders("SO1", 2, Sort.Direction.DESC))
+                .thenReturn(new KeysetPage<>(List.of(order("SO2", "SO-2"), order("SO3", "SO-3")), "SO3"));
+
+        mockMvc.perform(get("/api/sales-orders").param("after", "SO1").param("limit", "2").param("direction", "DESC"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].orderNumber").value("SO-2"))
+                .andExpect(jsonPath("$.nextCursor").value("SO3"));
+    }
+
+    @Test
+    void testListSalesOrders_BadLimit_ShouldBeBadRequest() throws Exception {
+        when(salesOrderService.listSalesOrders(null, 0, Sort.Direction.ASC))
+                .thenThrow(new IllegalArgumentException("Page limit must be at least 1"));
+
+        mockMvc.perform(get("/api/sales-orders").param("limit", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.detail").value("Page limit must be at least 1"));
+    }
+
+    @Test
+    void testCreateSalesOrders_ShouldInsertTheBatchAndAnswerCreated() throws Exception {
+        when(salesOrderService.createSalesOrders(anyList()))
+                .thenReturn(List.of(order("SO1", "SO-1"), order("SO2", "SO-2")));
+
+        mockMvc.perform(post("/api/sales-orders/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + orderJson("SO-1") + "," + orderJson("SO-2") + "]"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].id").value("SO2"));
+
+        verify(salesOrderService, times(1)).createSalesOrders(anyList());
+    }
+
+    @Test
+    void testDeleteSalesOrder_Unknown_ShouldBeNotFound() throws Exception {
+        when(salesOrderService.getSalesOrderById("SO9")).thenReturn(Optional.empty());
+
+        mockMvc.perform(delete("/api/sales-orders/SO9"))
+                .andExpect(status().isNotFound());
+
+        verify(salesOrderService, never()).removeSalesOrder("SO9");
+    }
+
+    @Test
+    void testDeleteSalesOrder_WithDeliveries_ShouldBeConflict() throws Exception {
+        when(salesOrderService.getSalesOrderById("SO1")).thenReturn(Optional.of(order("SO1", "SO-1")));
+        doThrow(new IllegalStateException("Cannot delete: 1 delivery order(s) are linked to this sales order."))
+                .when(salesOrderService).removeSalesOrder("SO1");
+
+        mockMvc.perform(delete("/api/sales-orders/SO1"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.detail").value("Cannot delete: 1 delivery order(s) are linked to this sales order."));
+    }
+
+    @Test
+    void testDeleteSalesOrder_ShouldBeNoContent() throws Exception {
+        when(salesOrderService.getSalesOrderById("SO1")).thenReturn(Optional.of(order("SO1", "SO-1")));
+
+        mockMvc.perform(delete("/api/sales-orders/SO1"))
+                .andExpect(status().isNoContent());
+
+        verify(salesOrderService).removeSalesOrder("SO1");
+    }
+}
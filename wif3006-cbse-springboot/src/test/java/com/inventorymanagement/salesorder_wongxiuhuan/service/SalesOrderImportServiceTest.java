@@ -0,0 +1,215 @@
+package com.inventorymanagement.salesorder_wongxiuhuan.service;
+
+import com.inventorymanagement.common.importer.ImportFormat;
+import com.inventorymanagement.common.importer.ImportReport;
+import com.inventorymanagement.customer_gohyuheng.model.Customer;
+import com.inventorymanagement.customer_gohyuheng.repository.CustomerRepository;
+import com.inventorymanagement.product_ericleechunkiat.model.Product;
+import com.inventorymanagement.product_ericleechunkiat.repository.ProductRepository;
+import com.inventorymanagement.salesorder_wongxiuhuan.model.SalesOrder;
+import com.inventorymanagement.salesorder_wongxiuhuan.model.SalesOrderItem;
+import com.inventorymanagement.salesorder_wongxiuhuan.model.Tax;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SalesOrderImportServiceTest {
+
+    private static final String HEADER = "orderRef,orderDate,customer,tax,orderStatus,description,product,quantity,unitPrice\n";
+
+    @Mock private SalesOrderService salesOrderService;
+    @Mock private CustomerRepository customerRepo;
+    @Mock private ProductRepository productRepo;
+    @Mock private MongoTemplate mongoTemplate;
+    @Mock private BulkOperations orderBulk;
+    @Mock private BulkOperations itemBulk;
+
+    @InjectMocks
+    private SalesOrderImportService salesOrderImportService;
+
+    // Stands in for the sales_order_number sequence
+    private long nextNumber;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(salesOrderImportService, "defaultChunkSize", 1000);
+        nextNumber = 1;
+        when(salesOrderService.generateOrderNumbers(anyInt())).thenAnswer(invocation -> {
+            List<String> numbers = new ArrayList<>();
+            for (int i = 0; i < invocation.<Integer>getArgument(0); i++) {
+                numbers.add(String.format("SO-20250101-%06d", nextNumber++));
+            }
+            return numbers;
+        });
+    }
+
+    private static InputStream file(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void stubReferences() {
+        Customer acme = new Customer();
+        acme.setId("cust-1");
+        acme.setName("Acme");
+        when(customerRepo.findByNameIn(anyCollection())).thenReturn(List.of(acme));
+
+        Product widget = new Product();
+        widget.setId("prod-1");
+        widget.setName("Widget");
+        widget.setPrice(2.5);
+        when(productRepo.findPricesByNameInIgnoreCase(anyCollection())).thenReturn(List.of(widget));
+    }
+
+    private void stubBulkInserts() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SalesOrder.class)).thenReturn(orderBulk);
+        when(orderBulk.insert(anyList())).thenReturn(orderBulk);
+        lenient().when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SalesOrderItem.class)).thenReturn(itemBulk);
+        lenient().when(itemBulk.insert(anyList())).thenReturn(itemBulk);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<List<T>> inserted(BulkOperations bulk, int times) {
+        ArgumentCaptor<List<T>> documents = ArgumentCaptor.forClass(List.class);
+        verify(bulk, times(times)).insert(documents.capture());
+        return documents.getAllValues();
+    }
+
+    @Test
+    void testImportSalesOrders_ShouldResolveOncePerChunkAndBulkWriteOrdersThenLines() {
+        stubReferences();
+        stubBulkInserts();
+        Tax gst = new Tax();
+        gst.setId("tax-1");
+        gst.setTaxRate(new BigDecimal("10"));
+        when(salesOrderService.getTaxByName("GST")).thenReturn(Optional.of(gst));
+
+        String csv = HEADER
+                + "A-1,2025-01-02,Acme,GST,,First order,Widget,2,\n"
+                + "A-1,,,,,,widget,1,4.00\n"
+                + "A-2,2025-01-03,Acme,,confirmed,,Widget,4,1.25\n";
+
+        ImportReport report = salesOrderImportService.importSalesOrders(file(csv), ImportFormat.CSV, 0);
+
+        List<SalesOrder> orders = this.<SalesOrder>inserted(orderBulk, 1).get(0);
+        assertEquals(2, orders.size());
+        SalesOrder first = orders.get(0);
+        assertEquals("SO-20250101-000001", first.getOrderNumber());
+        assertEquals("SO-20250101-000002", orders.get(1).getOrderNumber());
+        assertEquals(LocalDate.of(2025, 1, 2), first.getOrderDate());
+        assertEquals("cust-1", first.getCustomerId());
+        assertEquals("tax-1", first.getTaxId());
+        assertEquals("PENDING", first.getOrderStatus());
+        assertEquals(0, new BigDecimal("9.00").compareTo(first.getBeforeTaxAmount()));
+        assertEquals(0, new BigDecimal("0.90").compareTo(first.getTaxAmount()));
+        assertEquals(0, new BigDecimal("9.90").compareTo(first.getAfterTaxAmount()));
+        assertEquals("CONFIRMED", orders.get(1).getOrderStatus());
+        assertEquals(0, BigDecimal.ZERO.compareTo(orders.get(1).getTaxAmount()));
+
+        List<SalesOrderItem> items = this.<SalesOrderItem>inserted(itemBulk, 1).get(0);
+        assertEquals(3, items.size());
+        assertEquals(first.getId(), items.get(0).getSalesOrderId());
+        assertEquals(first.getId(), items.get(1).getSalesOrderId());
+        assertEquals(orders.get(1).getId(), items.get(2).getSalesOrderId());
+        assertEquals("prod-1", items.get(1).getProductId());
+
+        assertEquals(3, report.getRowsImported());
+        assertEquals(5, report.getRecordsWritten());
+        assertEquals(0, report.getRowsRejected());
+        verify(customerRepo, times(1)).findByNameIn(anyCollection());
+        verify(productRepo, times(1)).findPricesByNameInIgnoreCase(anyCollection());
+        verify(salesOrderService, never()).recalculateOrderTotals(anyString());
+        verify(salesOrderService, never()).addSalesOrderItem(any());
+    }
+
+    @Test
+    void testImportSalesOrders_InvalidRow_ShouldRejectTheWholeOrderOnly() {
+        stubReferences();
+        stubBulkInserts();
+
+        String csv = HEADER
+                + "B-1,2025-01-02,Acme,,,,Widget,1,\n"
+                + "B-1,,,,,,Widget,zero,\n"
+                + "B-2,2025-01-02,Nobody,,,,Widget,1,\n"
+                + "B-3,2025-01-02,Acme,,,,Widget,3,\n"
+                + "B-1,2025-01-02,Acme,,,,Widget,1,\n";
+
+        ImportReport report = salesOrderImportService.importSalesOrders(file(csv), ImportFormat.CSV, 0);
+
+        List<SalesOrder> orders = this.<SalesOrder>inserted(orderBulk, 1).get(0);
+        assertEquals(1, orders.size());
+        assertEquals(1, report.getRowsImported());
+        assertEquals(4, report.getRowsRejected());
+        assertTrue(report.getRejections().stream().anyMatch(r -> r.getLine() == 3 && r.getReason().contains("quantity")));
+        assertTrue(report.getRejections().stream().anyMatch(r -> r.getLine() == 2 && r.getReason().contains("B-1 was not imported")));
+        assertTrue(report.getRejections().stream().anyMatch(r -> r.getLine() == 4 && r.getReason().contains("Nobody")));
+        assertTrue(report.getRejections().stream().anyMatch(r -> r.getLine() == 6 && r.getReason().contains("follow each other")));
+    }
+
+    @Test
+    void testImportSalesOrders_ShouldCutChunksBetweenOrders() {
+        stubReferences();
+        stubBulkInserts();
+
+        String ndjson = "{\"orderRef\":\"C-1\",\"orderDate\":\"2025-01-02\",\"customer\":\"Acme\",\"product\":\"Widget\",\"quantity\":1}\n"
+                + "{\"orderRef\":\"C-1\",\"product\":\"Widget\",\"quantity\":2}\n"
+                + "{\"orderRef\":\"C-2\",\"orderDate\":\"2025-01-02\",\"customer\":\"Acme\",\"product\":\"Widget\",\"quantity\":3}\n";
+
+        ImportReport report = salesOrderImportService.importSalesOrders(file(ndjson), ImportFormat.NDJSON, 1);
+
+        List<List<SalesOrderItem>> itemChunks = inserted(itemBulk, 2);
+        assertEquals(2, itemChunks.get(0).size());
+        assertEquals(1, itemChunks.get(1).size());
+        List<List<SalesOrder>> orderChunks = inserted(orderBulk, 2);
+        assertNotEquals(orderChunks.get(0).get(0).getOrderNumber(), orderChunks.get(1).get(0).getOrderNumber());
+        verify(salesOrderService, times(2)).generateOrderNumbers(1);
+        assertEquals(2, report.getChunks());
+        assertEquals(3, report.getRowsImported());
+        verify(customerRepo, times(2)).findByNameIn(anyCollection());
+    }
+
+    @Test
+    void testImportSalesOrders_FailedOrderInsert_ShouldRejectItsRowsAndSkipItsLines() {
+        stubReferences();
+        stubBulkInserts();
+        BulkOperationException duplicate = mock(BulkOperationException.class);
+        when(duplicate.getErrors()).thenReturn(List.of(new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 0)));
+        when(orderBulk.execute()).thenThrow(duplicate);
+
+        String csv = HEADER
+                + "D-1,2025-01-02,Acme,,,,Widget,1,\n"
+                + "D-1,,,,,,Widget,1,\n"
+                + "D-2,2025-01-02,Acme,,,,Widget,1,\n";
+
+        ImportReport report = salesOrderImportService.importSalesOrders(file(csv), ImportFormat.CSV, 0);
+
+        List<SalesOrderItem> items = this.<SalesOrderItem>inserted(itemBulk, 1).get(0);
+        assertEquals(1, items.size());
+        assertEquals(1, report.getRowsImported());
+        assertEquals(2, report.getRecordsWritten());
+        assertEquals(2, report.getRowsRejected());
+        assertTrue(report.getRejections().get(0).getReason().contains("E11000"));
+    }
+}
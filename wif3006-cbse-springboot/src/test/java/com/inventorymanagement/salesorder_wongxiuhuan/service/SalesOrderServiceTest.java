@@ -1,19 +1,30 @@
 package com.inventorymanagement.salesorder_wongxiuhuan.service;
 
+import com.inventorymanagement.common.service.SequenceGeneratorService;
 import com.inventorymanagement.salesorder_wongxiuhuan.model.*;
 import com.inventorymanagement.salesorder_wongxiuhuan.repository.*;
 import com.inventorymanagement.customer_gohyuheng.repository.CustomerRepository;
 import com.inventorymanagement.customer_gohyuheng.model.Customer;
 import com.inventorymanagement.product_ericleechunkiat.repository.ProductRepository;
 import com.inventorymanagement.product_ericleechunkiat.model.Product;
+import com.inventorymanagement.product_ericleechunkiat.service.ProductService;
+import org.bson.Document;
+import org.bson.types.Decimal128;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -43,27 +54,70 @@ public class SalesOrderServiceTest {
     @Mock
     private ProductRepository productRepo;
 
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private SequenceGeneratorService sequenceGeneratorService;
+
     @InjectMocks
     private SalesOrderService salesOrderService;
 
+    // Stubs the totals aggregation of recalculateOrderTotals
+    private void mockOrderTotals(Document totals) {
+        List<Document> results = totals == null ? List.of() : List.of(totals);
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(SalesOrder.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(results, new Document()));
+    }
+
+    // The $set part of the single totals update
+    private Document capturedTotalsUpdate() {
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(SalesOrder.class));
+        return (Document) update.getValue().getUpdateObject().get("$set");
+    }
+
     // --- 1. SALES ORDER FUNCTIONALITIES TESTS ---
 
     @Test
     void testCreateSalesOrder_ShouldGenerateOrderNumberAndSave() {
         SalesOrder order = new SalesOrder();
         order.setCustomerId("cust-001");
+        when(sequenceGeneratorService.next("sales_order_number")).thenReturn(7L);
         when(salesOrderRepo.save(any(SalesOrder.class))).thenReturn(order);
 
         SalesOrder result = salesOrderService.createSalesOrder(order);
 
         assertNotNull(result);
         assertNotNull(result.getOrderNumber());
-        assertTrue(result.getOrderNumber().startsWith("SO-"));
+        assertTrue(result.getOrderNumber().startsWith("SO-") && result.getOrderNumber().endsWith("-000007"));
         assertNotNull(result.getCreatedDate());
         assertNotNull(result.getUpdatedDate());
         verify(salesOrderRepo, times(1)).save(any(SalesOrder.class));
     }
 
+    @Test
+    void testCreateSalesOrders_ShouldNumberTheBatchAndInsertOnce() {
+        SalesOrder first = new SalesOrder();
+        SalesOrder second = new SalesOrder();
+        List<SalesOrder> batch = List.of(first, second);
+        when(sequenceGeneratorService.nextRange("sales_order_number", 2)).thenReturn(41L);
+        when(salesOrderRepo.insert(batch)).thenReturn(batch);
+
+        List<SalesOrder> result = salesOrderService.createSalesOrders(batch);
+
+        assertEquals(2, result.size());
+        assertTrue(first.getOrderNumber().startsWith("SO-") && first.getOrderNumber().endsWith("-000041"));
+        assertTrue(second.getOrderNumber().endsWith("-000042"));
+        assertNotEquals(first.getOrderNumber(), second.getOrderNumber());
+        assertNotNull(second.getCreatedDate());
+        verify(sequenceGeneratorService, never()).next(anyString());
+        verify(salesOrderRepo, never()).save(any(SalesOrder.class));
+    }
+
     @Test
     void testGetAllSalesOrders_ShouldReturnListFromRepo() {
         when(salesOrderRepo.findAll()).thenReturn(List.of(new SalesOrder(), new SalesOrder()));
@@ -169,19 +223,35 @@ public class SalesOrderServiceTest {
         item.setUnitPrice(BigDecimal.valueOf(100));
         item.setQuantity(2);
         
-        SalesOrder order = new SalesOrder();
-        order.setId("so-001");
-        
         when(salesOrderItemRepo.save(any(SalesOrderItem.class))).thenReturn(item);
-        when(salesOrderRepo.findById("so-001")).thenReturn(Optional.of(order));
-        when(salesOrderItemRepo.findBySalesOrderId("so-001")).thenReturn(List.of(item));
+        mockOrderTotals(new Document("_id", "so-001").append("beforeTax", new Decimal128(new BigDecimal("200"))));
 
         SalesOrderItem result = salesOrderService.addSalesOrderItem(item);
 
         assertNotNull(result.getCreatedDate());
         assertNotNull(result.getUpdatedDate());
         verify(salesOrderItemRepo, times(1)).save(any(SalesOrderItem.class));
-        verify(salesOrderRepo, atLeastOnce()).findById("so-001");
+        assertEquals(new BigDecimal("200"), capturedTotalsUpdate().get("beforeTaxAmount"));
+    }
+
+    @Test
+    void testAddSalesOrderItems_ShouldSaveBatchAndRecalculateOncePerOrder() {
+        SalesOrderItem a = new SalesOrderItem();
+        a.setSalesOrderId("so-001");
+        SalesOrderItem b = new SalesOrderItem();
+        b.setSalesOrderId("so-001");
+        List<SalesOrderItem> items = List.of(a, b);
+
+        when(salesOrderItemRepo.saveAll(items)).thenReturn(items);
+        mockOrderTotals(new Document("_id", "so-001"));
+
+        salesOrderService.addSalesOrderItems(items);
+
+        assertNotNull(a.getCreatedDate());
+        verify(salesOrderItemRepo, times(1)).saveAll(items);
+        verify(salesOrderItemRepo, never()).save(any(SalesOrderItem.class));
+        verify(mongoTemplate, times(1)).aggregate(any(Aggregation.class), eq(SalesOrder.class), eq(Document.class));
+        verify(mongoTemplate, times(1)).updateFirst(any(Query.class), any(UpdateDefinition.class), eq(SalesOrder.class));
     }
 
     @Test
@@ -227,18 +297,15 @@ public class SalesOrderServiceTest {
         item.setUnitPrice(BigDecimal.valueOf(150));
         item.setQuantity(3);
         
-        SalesOrder order = new SalesOrder();
-        order.setId("so-001");
-        
         when(salesOrderItemRepo.save(any(SalesOrderItem.class))).thenReturn(item);
-        when(salesOrderRepo.findById("so-001")).thenReturn(Optional.of(order));
-        when(salesOrderItemRepo.findBySalesOrderId("so-001")).thenReturn(List.of(item));
+        mockOrderTotals(new Document("_id", "so-001").append("beforeTax", new Decimal128(new BigDecimal("450"))));
 
         SalesOrderItem result = salesOrderService.updateSalesOrderItem(item);
 
         assertNotNull(result.getUpdatedDate());
         verify(salesOrderItemRepo, times(1)).save(item);
-        verify(salesOrderRepo, atLeastOnce()).findById("so-001");
+        verify(salesOrderRepo, never()).save(any(SalesOrder.class));
+        assertEquals(new BigDecimal("450"), capturedTotalsUpdate().get("beforeTaxAmount"));
     }
 
     @Test
@@ -248,17 +315,13 @@ public class SalesOrderServiceTest {
         item.setId(itemId);
         item.setSalesOrderId("so-001");
         
-        SalesOrder order = new SalesOrder();
-        order.setId("so-001");
-        
-        when(salesOrderItemRepo.findById(itemId)).thenReturn(Optional.of(item));
-        when(salesOrderRepo.findById("so-001")).thenReturn(Optional.of(order));
-        when(salesOrderItemRepo.findBySalesOrderId("so-001")).thenReturn(List.of());
+        when(mongoTemplate.findAndRemove(any(Query.class), eq(SalesOrderItem.class))).thenReturn(item);
+        mockOrderTotals(new Document("_id", "so-001"));
 
         salesOrderService.deleteSalesOrderItem(itemId);
 
-        verify(salesOrderItemRepo, times(1)).deleteById(itemId);
-        verify(salesOrderRepo, atLeastOnce()).findById("so-001");
+        verify(mongoTemplate, times(1)).findAndRemove(any(Query.class), eq(SalesOrderItem.class));
+        assertEquals(BigDecimal.ZERO, capturedTotalsUpdate().get("afterTaxAmount"));
     }
 
     // --- 3. DELIVERY ORDER FUNCTIONALITIES TESTS ---
@@ -483,13 +546,38 @@ public class SalesOrderServiceTest {
         String id = "tax-001";
         Tax tax = new Tax();
         tax.setId(id);
-        when(taxRepo.findById(id)).thenReturn(Optional.of(tax));
+        when(taxRepo.findAll()).thenReturn(List.of(tax));
 
         Optional<Tax> result = salesOrderService.getTaxById(id);
 
         assertTrue(result.isPresent());
         assertEquals(id, result.get().getId());
-        verify(taxRepo, times(1)).findById(id);
+        verify(taxRepo, never()).findById(id);
+    }
+
+    @Test
+    void testGetTaxById_RepeatedReads_ShouldLoadTaxesOnce() {
+        when(taxRepo.findAll()).thenReturn(List.of(new Tax("tax-001", "GST", BigDecimal.valueOf(6), null)));
+
+        assertTrue(salesOrderService.getTaxById("tax-001").isPresent());
+        assertTrue(salesOrderService.getTaxById("tax-001").isPresent());
+        assertFalse(salesOrderService.getTaxById("tax-999").isPresent());
+
+        verify(taxRepo, times(1)).findAll();
+    }
+
+    @Test
+    void testUpdateTax_ShouldReloadTheCachedTaxes() {
+        Tax before = new Tax("tax-001", "GST", BigDecimal.valueOf(6), null);
+        Tax after = new Tax("tax-001", "GST", BigDecimal.valueOf(8), null);
+        when(taxRepo.findAll()).thenReturn(List.of(before), List.of(after));
+        when(taxRepo.save(after)).thenReturn(after);
+
+        assertEquals(BigDecimal.valueOf(6), salesOrderService.getTaxRateById("tax-001"));
+        salesOrderService.updateTax(after);
+
+        assertEquals(BigDecimal.valueOf(8), salesOrderService.getTaxRateById("tax-001"));
+        verify(taxRepo, times(2)).findAll();
     }
 
     @Test
@@ -497,13 +585,14 @@ public class SalesOrderServiceTest {
         String taxName = "GST";
         Tax tax = new Tax();
         tax.setTaxName(taxName);
-        when(taxRepo.findByTaxName(taxName)).thenReturn(Optional.of(tax));
+        tax.setId("tax-001");
+        when(taxRepo.findAll()).thenReturn(List.of(tax));
 
         Optional<Tax> result = salesOrderService.getTaxByName(taxName);
 
         assertTrue(result.isPresent());
         assertEquals(taxName, result.get().getTaxName());
-        verify(taxRepo, times(1)).findByTaxName(taxName);
+        verify(taxRepo, never()).findByTaxName(taxName);
     }
 
     @Test
@@ -521,20 +610,19 @@ public class SalesOrderServiceTest {
     @Test
     void testDeleteTax_WhenInUse_ShouldReturnErrorMessage() {
         String taxId = "tax-001";
-        SalesOrder order = new SalesOrder();
-        order.setTaxId(taxId);
-        when(salesOrderRepo.findAll()).thenReturn(List.of(order));
+        when(salesOrderRepo.countByTaxId(taxId)).thenReturn(1L);
 
         String result = salesOrderService.deleteTax(taxId);
 
         assertTrue(result.contains("❌ Cannot delete"));
+        verify(salesOrderRepo, never()).findAll();
         verify(taxRepo, never()).deleteById(anyString());
     }
 
     @Test
     void testDeleteTax_WhenNotInUse_ShouldDeleteSuccessfully() {
         String taxId = "tax-002";
-        when(salesOrderRepo.findAll()).thenReturn(List.of());
+        when(salesOrderRepo.countByTaxId(taxId)).thenReturn(0L);
 
         String result = salesOrderService.deleteTax(taxId);
 
@@ -583,6 +671,16 @@ public class SalesOrderServiceTest {
         verify(customerRepo, times(1)).findByName(customerName);
     }
 
+    @Test
+    void testGetProductIdByName_ShouldDelegateToIndexedLookup() {
+        when(productService.getProductIdByName("widget a")).thenReturn("prod-123");
+
+        String result = salesOrderService.getProductIdByName("widget a");
+
+        assertEquals("prod-123", result);
+        verify(productRepo, never()).findAll();
+    }
+
     @Test
     void testGetProductNameById_ShouldReturnProductName() {
         String productId = "prod-123";
@@ -617,73 +715,122 @@ public class SalesOrderServiceTest {
         Tax tax = new Tax();
         tax.setId(taxId);
         tax.setTaxRate(BigDecimal.valueOf(6));
-        when(taxRepo.findById(taxId)).thenReturn(Optional.of(tax));
+        when(taxRepo.findAll()).thenReturn(List.of(tax));
 
         BigDecimal result = salesOrderService.getTaxRateById(taxId);
 
         assertEquals(BigDecimal.valueOf(6), result);
-        verify(taxRepo, times(1)).findById(taxId);
+        verify(taxRepo, never()).findById(taxId);
     }
 
     @Test
     void testRecalculateOrderTotals_ShouldCalculateCorrectAmounts() {
         String orderId = "so-001";
-        
-        // Setup order with tax
-        SalesOrder order = new SalesOrder();
-        order.setId(orderId);
-        order.setTaxId("tax-001");
-        
-        // Setup tax
-        Tax tax = new Tax();
-        tax.setId("tax-001");
-        tax.setTaxRate(BigDecimal.valueOf(6));
-        
-        // Setup items: 2 items @ 100 each = 200 subtotal
-        SalesOrderItem item1 = new SalesOrderItem();
-        item1.setUnitPrice(BigDecimal.valueOf(100));
-        item1.setQuantity(2);
-        
-        when(salesOrderRepo.findById(orderId)).thenReturn(Optional.of(order));
-        when(taxRepo.findById("tax-001")).thenReturn(Optional.of(tax));
-        when(salesOrderItemRepo.findBySalesOrderId(orderId)).thenReturn(List.of(item1));
-        when(salesOrderRepo.save(any(SalesOrder.class))).thenReturn(order);
+        // 2 items @ 100 each = 200 subtotal (summed by the server), 6% tax
+        mockOrderTotals(new Document("_id", orderId)
+                .append("taxId", "tax-001")
+                .append("beforeTax", new Decimal128(new BigDecimal("200"))));
+        when(taxRepo.findAll()).thenReturn(List.of(new Tax("tax-001", "GST", BigDecimal.valueOf(6), null)));
 
         salesOrderService.recalculateOrderTotals(orderId);
 
         // Verify calculations: beforeTax = 200, tax = 12 (6% of 200), afterTax = 212
-        verify(salesOrderRepo, times(1)).save(argThat(o -> 
-            o.getBeforeTaxAmount().compareTo(BigDecimal.valueOf(200)) == 0 &&
-            o.getTaxAmount().compareTo(BigDecimal.valueOf(12)) == 0 &&
-            o.getAfterTaxAmount().compareTo(BigDecimal.valueOf(212)) == 0
-        ));
+        Document set = capturedTotalsUpdate();
+        assertEquals(0, ((BigDecimal) set.get("beforeTaxAmount")).compareTo(BigDecimal.valueOf(200)));
+        assertEquals(0, ((BigDecimal) set.get("taxAmount")).compareTo(BigDecimal.valueOf(12)));
+        assertEquals(0, ((BigDecimal) set.get("afterTaxAmount")).compareTo(BigDecimal.valueOf(212)));
+        verify(salesOrderRepo, never()).save(any(SalesOrder.class));
+        verify(salesOrderItemRepo, never()).findBySalesOrderId(orderId);
     }
 
     @Test
     void testRecalculateOrderTotals_WithNoTax_ShouldCalculateWithoutTax() {
         String orderId = "so-002";
-        
-        // Setup order without tax
-        SalesOrder order = new SalesOrder();
-        order.setId(orderId);
-        order.setTaxId(null);
-        
-        // Setup item: 3 @ 50 = 150
-        SalesOrderItem item = new SalesOrderItem();
-        item.setUnitPrice(BigDecimal.valueOf(50));
-        item.setQuantity(3);
-        
-        when(salesOrderRepo.findById(orderId)).thenReturn(Optional.of(order));
-        when(salesOrderItemRepo.findBySalesOrderId(orderId)).thenReturn(List.of(item));
-        when(salesOrderRepo.save(any(SalesOrder.class))).thenReturn(order);
+        // 3 @ 50 = 150, no taxId on the order
+        mockOrderTotals(new Document("_id", orderId)
+                .append("beforeTax", new Decimal128(new BigDecimal("150"))));
 
         salesOrderService.recalculateOrderTotals(orderId);
 
         // Verify: beforeTax = 150, tax = 0, afterTax = 150
-        verify(salesOrderRepo, times(1)).save(argThat(o -> 
-            o.getBeforeTaxAmount().compareTo(BigDecimal.valueOf(150)) == 0 &&
-            o.getTaxAmount().compareTo(BigDecimal.ZERO) == 0 &&
-            o.getAfterTaxAmount().compareTo(BigDecimal.valueOf(150)) == 0
-        ));
+        Document set = capturedTotalsUpdate();
+        assertEquals(0, ((BigDecimal) set.get("beforeTaxAmount")).compareTo(BigDecimal.valueOf(150)));
+        assertEquals(0, ((BigDecimal) set.get("taxAmount")).compareTo(BigDecimal.ZERO));
+        assertEquals(0, ((BigDecimal) set.get("afterTaxAmount")).compareTo(BigDecimal.valueOf(150)));
+    }
+
+    @Test
+    void testRecalculateOrderTotals_WhenOrderMissing_ShouldNotUpdate() {
+        mockOrderTotals(null);
+
+        salesOrderService.recalculateOrderTotals("missing");
+
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(UpdateDefinition.class), eq(SalesOrder.class));
+    }
+
+    // --- 7. BULK LOOKUP TESTS ---
+
+    @Test
+    void testGetCustomerNamesByIds_ShouldUseSingleQuery() {
+        Customer c1 = new Customer();
+        c1.setId("c1");
+        c1.setName("Ali");
+        Customer c2 = new Customer();
+        c2.setId("c2");
+        c2.setName("Bala");
+        List<String> ids = List.of("c1", "c2");
+        when(customerRepo.findAllById(ids)).thenReturn(List.of(c1, c2));
+
+        Map<String, String> names = salesOrderService.getCustomerNamesByIds(ids);
+
+        assertEquals("Ali", names.get("c1"));
+        assertEquals("Bala", names.get("c2"));
+        verify(customerRepo, never()).findById(any());
+    }
+
+    @Test
+    void testGetProductNamesByIds_ShouldSkipUnknownIds() {
+        List<String> ids = List.of("p1", "missing");
+        when(productRepo.findAllById(ids)).thenReturn(List.of(new Product("p1", "Laptop", 1000.0, null, null)));
+
+        Map<String, String> names = salesOrderService.getProductNamesByIds(ids);
+
+        assertEquals(1, names.size());
+        assertEquals("Laptop", names.get("p1"));
+    }
+
+    @Test
+    void testGetItemsByOrderIds_ShouldGroupBySalesOrderId() {
+        SalesOrderItem a = new SalesOrderItem();
+        a.setSalesOrderId("o1");
+        SalesOrderItem b = new SalesOrderItem();
+        b.setSalesOrderId("o1");
+        SalesOrderItem c = new SalesOrderItem();
+        c.setSalesOrderId("o2");
+        List<String> ids = List.of("o1", "o2");
+        when(salesOrderItemRepo.findBySalesOrderIdIn(ids)).thenReturn(List.of(a, b, c));
+
+        Map<String, List<SalesOrderItem>> grouped = salesOrderService.getItemsByOrderIds(ids);
+
+        assertEquals(2, grouped.get("o1").size());
+        assertEquals(1, grouped.get("o2").size());
+        verify(salesOrderItemRepo, never()).findBySalesOrderId(any());
+    }
+
+    @Test
+    void testGetTaxRatesByIds_ShouldMapIdToRate() {
+        List<String> ids = List.of("t1");
+        when(taxRepo.findAll()).thenReturn(List.of(new Tax("t1", "SST", BigDecimal.valueOf(6), null)));
+
+        Map<String, BigDecimal> rates = salesOrderService.getTaxRatesByIds(ids);
+
+        assertEquals(BigDecimal.valueOf(6), rates.get("t1"));
+    }
+
+    @Test
+    void testBulkLookups_WithEmptyIds_ShouldNotQuery() {
+        assertTrue(salesOrderService.getSalesOrderNumbersByIds(List.of()).isEmpty());
+        assertTrue(salesOrderService.getDeliveryOrderNumbersByIds(List.of()).isEmpty());
+        verifyNoInteractions(salesOrderRepo, deliveryOrderRepo);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,55 @@
+package com.inventorymanagement.vendor_rafidurrashid.controller;
+
+import com.inventorymanagement.common.web.ApiExceptionHandler;
+import com.inventorymanagement.vendor_rafidurrashid.model.Vendor;
+import com.inventorymanagement.vendor_rafidurrashid.service.VendorService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Optional;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// The application class wires the console menus, so the slice names its beans itself
+@WebMvcTest(VendorController.class)
+@ContextConfiguration(classes = {VendorController.class, ApiExceptionHandler.class})
+public class VendorControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private VendorService vendorService;
+
+    private static Vendor vendor(String id) {
+        Vendor vendor = new Vendor();
+        vendor.setId(id);
+        return vendor;
+    }
+
+    @Test
+    void testDeleteVendor_Unknown_ShouldBeNotFound() throws Exception {
+        when(vendorService.getVendorById("V9")).thenReturn(Optional.empty());
+
+        mockMvc.perform(delete("/api/vendors/V9"))
+                .andExpect(status().isNotFound());
+
+        verify(vendorService, never()).deleteVendor("V9");
+    }
+
+    @Test
+    void testDeleteVendor_ShouldBeNoContent() throws Exception {
+        when(vendorService.getVendorById("V1")).thenReturn(Optional.of(vendor("V1")));
+
+        mockMvc.perform(delete("/api/vendors/V1"))
+                .andExpect(status().isNoContent());
+
+        verify(vendorService).deleteVendor("V1");
+    }
+}